@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.util.MutableObjectIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Record types and data generators shared by the benchmarks.
+ *
+ * <p>All benchmarks work on {@code (Long, String)} records: an 8 byte key and a payload string
+ * of configurable length, which resembles the typical "key plus some attributes" records of
+ * real jobs better than plain integers.
+ */
+final class BenchmarkData {
+
+	static final TupleTypeInfo<Tuple2<Long, String>> RECORD_TYPE =
+			new TupleTypeInfo<>(BasicTypeInfo.LONG_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+
+	static TypeSerializer<Tuple2<Long, String>> createSerializer() {
+		return RECORD_TYPE.createSerializer(new ExecutionConfig());
+	}
+
+	static TypeComparator<Tuple2<Long, String>> createComparator() {
+		return RECORD_TYPE.createComparator(new int[] {0}, new boolean[] {true}, 0, new ExecutionConfig());
+	}
+
+	/**
+	 * Creates records with keys drawn uniformly from {@code [0, numKeys)} and random
+	 * alphanumeric payloads of the given length. The seed is fixed, so that all runs work
+	 * on the same data.
+	 */
+	@SuppressWarnings("unchecked")
+	static Tuple2<Long, String>[] createRecords(int numRecords, int numKeys, int payloadLength) {
+		final Random rnd = new Random(0xC0FFEE);
+		final char[] payload = new char[payloadLength];
+
+		Tuple2<Long, String>[] records = new Tuple2[numRecords];
+		for (int i = 0; i < numRecords; i++) {
+			for (int k = 0; k < payloadLength; k++) {
+				payload[k] = (char) ('a' + rnd.nextInt(26));
+			}
+			records[i] = new Tuple2<>((long) rnd.nextInt(numKeys), new String(payload));
+		}
+		return records;
+	}
+
+	static List<MemorySegment> allocateSegments(int numSegments, int segmentSize) {
+		List<MemorySegment> segments = new ArrayList<>(numSegments);
+		for (int i = 0; i < numSegments; i++) {
+			segments.add(MemorySegmentFactory.allocateUnpooledSegment(segmentSize));
+		}
+		return segments;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Iterator over a pre-generated array of records, handing out the same instances
+	 * on every pass, so that the benchmarks do not measure the data generation.
+	 */
+	static final class ArrayRecordIterator<T> implements MutableObjectIterator<T> {
+
+		private final T[] records;
+
+		private int pos;
+
+		ArrayRecordIterator(T[] records) {
+			this.records = records;
+		}
+
+		void reset() {
+			pos = 0;
+		}
+
+		@Override
+		public T next(T reuse) {
+			return next();
+		}
+
+		@Override
+		public T next() {
+			return pos < records.length ? records[pos++] : null;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/** This class is not meant to be instantiated */
+	private BenchmarkData() {}
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.util.event.EventListener;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the buffer pool of the network stack against a monitor based pool, which mirrors the
+ * request and recycle path the local buffer pool had before it became lock-free. Both pools are
+ * shared by all benchmark threads, like a result partition's pool is shared by the task thread
+ * writing records and the Netty threads recycling the sent buffers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BufferPoolBenchmark {
+
+	private static final int NUM_SEGMENTS = 1024;
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	private static final int POOL_SIZE = 128;
+
+	@Param({"LOCAL", "SYNCHRONIZED"})
+	public String poolType;
+
+	private NetworkBufferPool networkBufferPool;
+
+	private BufferProvider bufferProvider;
+
+	/** Buffers handed from the producer to the recyclers in {@link #handOver} */
+	private final Queue<Buffer> inFlight = new ConcurrentLinkedQueue<Buffer>();
+
+	@Setup
+	public void setup() throws IOException {
+		networkBufferPool = new NetworkBufferPool(NUM_SEGMENTS, SEGMENT_SIZE, MemoryType.HEAP);
+
+		switch (poolType) {
+			case "LOCAL":
+				bufferProvider = networkBufferPool.createBufferPool(POOL_SIZE, true);
+				break;
+			case "SYNCHRONIZED":
+				bufferProvider = new SynchronizedBufferPool(networkBufferPool, POOL_SIZE);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown pool type: " + poolType);
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void recycleInFlightBuffers() {
+		Buffer buffer;
+		while ((buffer = inFlight.poll()) != null) {
+			buffer.recycle();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (bufferProvider instanceof BufferPool) {
+			((BufferPool) bufferProvider).lazyDestroy();
+		}
+		else {
+			((SynchronizedBufferPool) bufferProvider).destroy();
+		}
+
+		networkBufferPool.destroy();
+	}
+
+	/** Every thread requests a buffer and recycles it right away */
+	@Benchmark
+	@Threads(4)
+	public Buffer requestAndRecycle() throws IOException, InterruptedException {
+		Buffer buffer = bufferProvider.requestBufferBlocking();
+		buffer.recycle();
+		return buffer;
+	}
+
+	/**
+	 * A single producer requests buffers, which are recycled by other threads. The producer does
+	 * not block if the pool is exhausted, because JMH stops the recyclers first at the end of an
+	 * iteration.
+	 */
+	@Benchmark
+	@Group("handOver")
+	@GroupThreads(1)
+	public boolean produce() throws IOException {
+		Buffer buffer = bufferProvider.requestBuffer();
+		if (buffer != null) {
+			inFlight.add(buffer);
+			return true;
+		}
+		return false;
+	}
+
+	@Benchmark
+	@Group("handOver")
+	@GroupThreads(2)
+	public boolean recycle() {
+		Buffer buffer = inFlight.poll();
+		if (buffer != null) {
+			buffer.recycle();
+			return true;
+		}
+		return false;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Buffer pool of fixed size, which guards all state with the monitor of its queue of
+	 * available segments.
+	 */
+	private static class SynchronizedBufferPool implements BufferProvider, BufferRecycler {
+
+		private final NetworkBufferPool networkBufferPool;
+
+		private final int poolSize;
+
+		private final Queue<MemorySegment> availableMemorySegments = new ArrayDeque<MemorySegment>();
+
+		private final Queue<EventListener<Buffer>> registeredListeners = new ArrayDeque<EventListener<Buffer>>();
+
+		private int numberOfRequestedMemorySegments;
+
+		private boolean isDestroyed;
+
+		SynchronizedBufferPool(NetworkBufferPool networkBufferPool, int poolSize) {
+			this.networkBufferPool = networkBufferPool;
+			this.poolSize = poolSize;
+		}
+
+		@Override
+		public Buffer requestBuffer() throws IOException {
+			try {
+				return requestBuffer(false);
+			}
+			catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public Buffer requestBufferBlocking() throws IOException, InterruptedException {
+			return requestBuffer(true);
+		}
+
+		private Buffer requestBuffer(boolean isBlocking) throws InterruptedException {
+			synchronized (availableMemorySegments) {
+				while (availableMemorySegments.isEmpty()) {
+					if (isDestroyed) {
+						throw new IllegalStateException("Buffer pool is destroyed.");
+					}
+
+					if (numberOfRequestedMemorySegments < poolSize) {
+						MemorySegment segment = networkBufferPool.requestMemorySegment();
+
+						if (segment != null) {
+							numberOfRequestedMemorySegments++;
+							availableMemorySegments.add(segment);
+							continue;
+						}
+					}
+
+					if (isBlocking) {
+						availableMemorySegments.wait(2000);
+					}
+					else {
+						return null;
+					}
+				}
+
+				return new Buffer(availableMemorySegments.poll(), this);
+			}
+		}
+
+		@Override
+		public void recycle(MemorySegment segment) {
+			synchronized (availableMemorySegments) {
+				if (isDestroyed) {
+					numberOfRequestedMemorySegments--;
+					networkBufferPool.recycle(segment);
+					return;
+				}
+
+				EventListener<Buffer> listener = registeredListeners.poll();
+
+				if (listener == null) {
+					availableMemorySegments.add(segment);
+					availableMemorySegments.notify();
+				}
+				else {
+					listener.onEvent(new Buffer(segment, this));
+				}
+			}
+		}
+
+		@Override
+		public boolean addListener(EventListener<Buffer> listener) {
+			synchronized (availableMemorySegments) {
+				if (!availableMemorySegments.isEmpty() || isDestroyed) {
+					return false;
+				}
+
+				registeredListeners.add(listener);
+				return true;
+			}
+		}
+
+		@Override
+		public boolean isDestroyed() {
+			synchronized (availableMemorySegments) {
+				return isDestroyed;
+			}
+		}
+
+		@Override
+		public int getMemorySegmentSize() {
+			return networkBufferPool.getMemorySegmentSize();
+		}
+
+		void destroy() {
+			synchronized (availableMemorySegments) {
+				MemorySegment segment;
+				while ((segment = availableMemorySegments.poll()) != null) {
+					numberOfRequestedMemorySegments--;
+					networkBufferPool.recycle(segment);
+				}
+
+				isDestroyed = true;
+			}
+		}
+	}
+}
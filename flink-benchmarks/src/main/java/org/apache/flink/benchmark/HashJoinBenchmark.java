@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark;
+
+import org.apache.flink.api.common.typeutils.SameTypePairComparator;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.hash.MutableHashTable;
+import org.apache.flink.util.MutableObjectIterator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the build and probe phases of the hybrid hash join ({@link MutableHashTable}).
+ * With the smaller memory setting, the build side does not fit into memory and partitions
+ * are spilled and joined recursively.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HashJoinBenchmark {
+
+	private static final int NUM_BUILD_RECORDS = 100_000;
+
+	private static final int NUM_PROBE_RECORDS = 500_000;
+
+	@Param({"16", "128"})
+	public int payloadLength;
+
+	/** Number of memory pages for the hash table, the smaller one forces spilling */
+	@Param({"2048", "128"})
+	public int numMemoryPages;
+
+	private TypeSerializer<Tuple2<Long, String>> serializer;
+
+	private TypeComparator<Tuple2<Long, String>> buildComparator;
+
+	private TypeComparator<Tuple2<Long, String>> probeComparator;
+
+	private BenchmarkData.ArrayRecordIterator<Tuple2<Long, String>> buildInput;
+
+	private BenchmarkData.ArrayRecordIterator<Tuple2<Long, String>> probeInput;
+
+	private List<MemorySegment> memory;
+
+	private IOManager ioManager;
+
+	@Setup
+	public void setup() {
+		serializer = BenchmarkData.createSerializer();
+		buildComparator = BenchmarkData.createComparator();
+		probeComparator = BenchmarkData.createComparator();
+
+		// every build side key is distinct, the probe side hits each key several times
+		buildInput = new BenchmarkData.ArrayRecordIterator<>(
+				BenchmarkData.createRecords(NUM_BUILD_RECORDS, Integer.MAX_VALUE, payloadLength));
+		probeInput = new BenchmarkData.ArrayRecordIterator<>(
+				BenchmarkData.createRecords(NUM_PROBE_RECORDS, NUM_BUILD_RECORDS, payloadLength));
+
+		memory = BenchmarkData.allocateSegments(numMemoryPages, MemoryManager.DEFAULT_PAGE_SIZE);
+		ioManager = new IOManagerAsync();
+	}
+
+	@TearDown
+	public void tearDown() {
+		ioManager.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_BUILD_RECORDS + NUM_PROBE_RECORDS)
+	public void buildAndProbe(Blackhole bh) throws Exception {
+		buildInput.reset();
+		probeInput.reset();
+
+		MutableHashTable<Tuple2<Long, String>, Tuple2<Long, String>> table = new MutableHashTable<>(
+				serializer, serializer, buildComparator, probeComparator,
+				new SameTypePairComparator<>(BenchmarkData.createComparator()),
+				memory, ioManager);
+
+		try {
+			table.open(buildInput, probeInput);
+
+			Tuple2<Long, String> reuse = serializer.createInstance();
+			Tuple2<Long, String> match;
+			while (table.nextRecord()) {
+				bh.consume(table.getCurrentProbeRecord());
+
+				MutableObjectIterator<Tuple2<Long, String>> matches = table.getBuildSideIterator();
+				while ((match = matches.next(reuse)) != null) {
+					bh.consume(match);
+				}
+			}
+		}
+		finally {
+			// the table returns all memory into the list it was given
+			table.close();
+		}
+	}
+}
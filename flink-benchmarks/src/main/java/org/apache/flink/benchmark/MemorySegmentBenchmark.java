@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark;
+
+import org.apache.flink.core.memory.HeapMemorySegment;
+import org.apache.flink.core.memory.HybridMemorySegment;
+import org.apache.flink.core.memory.MemorySegment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the access paths of the memory segment implementations: the pure heap segment, and
+ * the hybrid segment backed by heap and by off-heap memory. JMH runs every parameter in its own
+ * fork, so each run sees only one segment class, as a TaskManager does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MemorySegmentBenchmark {
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	private static final int NUM_LONGS = SEGMENT_SIZE / 8;
+
+	/** Length of the normalized keys compared by the sorter, see {@link #compareKeys()} */
+	private static final int KEY_LENGTH = 16;
+
+	private static final int NUM_KEY_COMPARISONS = 1024;
+
+	private static final int COPY_CHUNK_SIZE = 4096;
+
+	@Param({"HEAP", "HYBRID_HEAP", "HYBRID_OFF_HEAP"})
+	public String segmentType;
+
+	private MemorySegment source;
+
+	private MemorySegment target;
+
+	private int[] keyOffsets;
+
+	@Setup
+	public void setup() {
+		source = createSegment();
+		target = createSegment();
+
+		Random rnd = new Random(42);
+		for (int i = 0; i < SEGMENT_SIZE; i++) {
+			source.put(i, (byte) rnd.nextInt(4));
+		}
+
+		keyOffsets = new int[NUM_KEY_COMPARISONS + 1];
+		for (int i = 0; i < keyOffsets.length; i++) {
+			keyOffsets[i] = rnd.nextInt(SEGMENT_SIZE / KEY_LENGTH) * KEY_LENGTH;
+		}
+	}
+
+	private MemorySegment createSegment() {
+		switch (segmentType) {
+			case "HEAP":
+				return HeapMemorySegment.FACTORY.wrapPooledHeapMemory(new byte[SEGMENT_SIZE], null);
+			case "HYBRID_HEAP":
+				return HybridMemorySegment.FACTORY.wrapPooledHeapMemory(new byte[SEGMENT_SIZE], null);
+			case "HYBRID_OFF_HEAP":
+				return HybridMemorySegment.FACTORY.wrapPooledOffHeapMemory(ByteBuffer.allocateDirect(SEGMENT_SIZE), null);
+			default:
+				throw new IllegalArgumentException("Unknown segment type: " + segmentType);
+		}
+	}
+
+	/** Sequential long writes and reads, as done by serializers and hash table bucket scans */
+	@Benchmark
+	@OperationsPerInvocation(NUM_LONGS)
+	public long writeAndReadLongs() {
+		final MemorySegment segment = target;
+
+		for (int i = 0; i < NUM_LONGS; i++) {
+			segment.putLong(i << 3, i);
+		}
+
+		long sum = 0;
+		for (int i = 0; i < NUM_LONGS; i++) {
+			sum += segment.getLong(i << 3);
+		}
+		return sum;
+	}
+
+	/** Comparisons of normalized keys at random offsets, the inner loop of the in-memory sort */
+	@Benchmark
+	@OperationsPerInvocation(NUM_KEY_COMPARISONS)
+	public int compareKeys() {
+		final MemorySegment segment = source;
+		final int[] offsets = keyOffsets;
+
+		int result = 0;
+		for (int i = 0; i < NUM_KEY_COMPARISONS; i++) {
+			result += segment.compare(segment, offsets[i], offsets[i + 1], KEY_LENGTH);
+		}
+		return result;
+	}
+
+	/** Bulk copies between segments in chunks, as done when spilling and reading back pages */
+	@Benchmark
+	@OperationsPerInvocation(SEGMENT_SIZE / COPY_CHUNK_SIZE)
+	public MemorySegment copyChunks() {
+		for (int offset = 0; offset < SEGMENT_SIZE; offset += COPY_CHUNK_SIZE) {
+			source.copyTo(offset, target, offset, COPY_CHUNK_SIZE);
+		}
+		return target;
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.api.serialization.AdaptiveSpanningRecordDeserializer;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
+import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
+import org.apache.flink.runtime.io.network.api.serialization.RecordSerializer;
+import org.apache.flink.runtime.io.network.api.serialization.RecordSerializer.SerializationResult;
+import org.apache.flink.runtime.io.network.api.serialization.SpanningRecordSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.plugable.DeserializationDelegate;
+import org.apache.flink.runtime.plugable.ReusingDeserializationDelegate;
+import org.apache.flink.runtime.plugable.SerializationDelegate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the record (de)serialization path of the network stack: records are written by the
+ * {@link SpanningRecordSerializer} into network buffers and read back by the
+ * {@link AdaptiveSpanningRecordDeserializer}, including records that span buffer boundaries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RecordSerializationBenchmark {
+
+	private static final int NUM_RECORDS = 10_000;
+
+	private static final int NUM_KEYS = 1_000;
+
+	/** Length of the record payload (in characters) */
+	@Param({"16", "128", "1024"})
+	public int payloadLength;
+
+	/** Size of the network buffers, 32 KiB is the default segment size */
+	@Param({"32768"})
+	public int bufferSize;
+
+	private Tuple2<Long, String>[] records;
+
+	private RecordSerializer<SerializationDelegate<Tuple2<Long, String>>> serializer;
+
+	private RecordDeserializer<DeserializationDelegate<Tuple2<Long, String>>> deserializer;
+
+	private SerializationDelegate<Tuple2<Long, String>> serializationDelegate;
+
+	private DeserializationDelegate<Tuple2<Long, String>> deserializationDelegate;
+
+	private Buffer buffer;
+
+	@Setup
+	public void setup() {
+		TypeSerializer<Tuple2<Long, String>> typeSerializer = BenchmarkData.createSerializer();
+
+		records = BenchmarkData.createRecords(NUM_RECORDS, NUM_KEYS, payloadLength);
+
+		serializer = new SpanningRecordSerializer<>();
+		deserializer = new AdaptiveSpanningRecordDeserializer<>();
+
+		serializationDelegate = new SerializationDelegate<>(typeSerializer);
+		deserializationDelegate = new ReusingDeserializationDelegate<>(typeSerializer);
+		deserializationDelegate.setInstance(typeSerializer.createInstance());
+
+		MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(bufferSize);
+		buffer = new Buffer(segment, FreeingBufferRecycler.INSTANCE);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public void serialize(Blackhole bh) throws IOException {
+		serializer.clear();
+		serializer.setNextBuffer(resetBuffer());
+
+		for (Tuple2<Long, String> record : records) {
+			serializationDelegate.setInstance(record);
+
+			SerializationResult result = serializer.addRecord(serializationDelegate);
+			while (result.isFullBuffer()) {
+				bh.consume(serializer.getCurrentBuffer());
+				result = serializer.setNextBuffer(resetBuffer());
+			}
+		}
+		bh.consume(serializer.getCurrentBuffer());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public void serializeAndDeserialize(Blackhole bh) throws IOException {
+		serializer.clear();
+		deserializer.clear();
+		serializer.setNextBuffer(resetBuffer());
+
+		for (Tuple2<Long, String> record : records) {
+			serializationDelegate.setInstance(record);
+
+			SerializationResult result = serializer.addRecord(serializationDelegate);
+			while (result.isFullBuffer()) {
+				handOver(serializer.getCurrentBuffer(), bh);
+				result = serializer.setNextBuffer(resetBuffer());
+			}
+		}
+		handOver(serializer.getCurrentBuffer(), bh);
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Passes the bytes of a filled buffer to the deserializer and consumes all records that
+	 * are complete, like the input gate reader does for every received buffer.
+	 */
+	private void handOver(Buffer filled, Blackhole bh) throws IOException {
+		deserializer.setNextMemorySegment(filled.getMemorySegment(), filled.getSize());
+
+		DeserializationResult result;
+		do {
+			result = deserializer.getNextRecord(deserializationDelegate);
+			if (result.isFullRecord()) {
+				bh.consume(deserializationDelegate.getInstance());
+			}
+		}
+		while (!result.isBufferConsumed());
+	}
+
+	/**
+	 * The serializer shrinks the buffer to the written size when it hands it out, so the single
+	 * buffer that is cycled through needs to be reset to the full segment size before reuse.
+	 */
+	private Buffer resetBuffer() {
+		buffer.setSize(bufferSize);
+		return buffer;
+	}
+}
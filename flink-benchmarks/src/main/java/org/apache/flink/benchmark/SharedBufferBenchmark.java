@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.cep.nfa.CompactSharedBuffer;
+import org.apache.flink.cep.nfa.DeweyNumber;
+import org.apache.flink.cep.nfa.SharedBuffer;
+import org.apache.flink.cep.nfa.SharedBufferAccessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link SharedBuffer} of the CEP library, which keeps its entries in a graph of
+ * objects, with the array based {@link CompactSharedBuffer}. The buffers hold the partial matches
+ * of a pattern with a looping state: every run consists of a start event followed by events which
+ * are related to their predecessor and, in another version, to the start event.
+ *
+ * <p>The benchmarks cover building and releasing the partial matches, pruning them at once or
+ * after every event, extracting the matched sequences, and the serialization of the buffer for
+ * checkpoints.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SharedBufferBenchmark {
+
+	private static final String START = "start";
+
+	private static final String LOOP = "loop[]";
+
+	/** Number of events per run of the pattern */
+	private static final int RUN_LENGTH = 10;
+
+	private static final int PAYLOAD_LENGTH = 32;
+
+	/** Length of the time window of the pattern, in positions of the events */
+	private static final int WINDOW_LENGTH = 100;
+
+	@Param({"shared", "compact"})
+	public String bufferType;
+
+	@Param({"1000", "10000"})
+	public int numEntries;
+
+	private Tuple2<Long, String>[] events;
+
+	private TypeSerializer<Tuple2<Long, String>> serializer;
+
+	/** Buffer holding all runs, for the benchmarks which do not modify the buffer */
+	private SharedBufferAccessor<String, Tuple2<Long, String>> filledBuffer;
+
+	private byte[] serializedBuffer;
+
+	private ByteArrayOutputStream serializationTarget;
+
+	@Setup
+	public void setup() throws IOException {
+		events = BenchmarkData.createRecords(numEntries, numEntries, PAYLOAD_LENGTH);
+		serializer = BenchmarkData.createSerializer();
+
+		filledBuffer = createBuffer();
+		fill(filledBuffer);
+
+		serializationTarget = new ByteArrayOutputStream();
+		serializedBuffer = serialize(filledBuffer);
+	}
+
+	@Benchmark
+	public void putAndRemove(Blackhole bh) {
+		SharedBufferAccessor<String, Tuple2<Long, String>> buffer = createBuffer();
+		fill(buffer);
+
+		// release the runs from their last event on, as the NFA does once a run has been finished
+		for (int i = numEntries - 1; i >= 0; i--) {
+			String key = i % RUN_LENGTH == 0 ? START : LOOP;
+
+			buffer.release(key, events[i], i);
+			buffer.remove(key, events[i], i);
+		}
+
+		bh.consume(buffer);
+	}
+
+	@Benchmark
+	public void putAndPrune(Blackhole bh) {
+		SharedBufferAccessor<String, Tuple2<Long, String>> buffer = createBuffer();
+		fill(buffer);
+
+		// prune the runs in ten steps, as a time window would
+		for (long timestamp = numEntries / 10; timestamp <= numEntries; timestamp += numEntries / 10) {
+			buffer.prune(timestamp);
+		}
+
+		bh.consume(buffer);
+	}
+
+	/**
+	 * Prunes the buffer after every event, as the NFA does for a pattern with a time window. Most
+	 * of the prune calls expire a single entry.
+	 */
+	@Benchmark
+	public void putWithPruneOnEveryEvent(Blackhole bh) {
+		SharedBufferAccessor<String, Tuple2<Long, String>> buffer = createBuffer();
+
+		for (int start = 0; start < numEntries; start += RUN_LENGTH) {
+			DeweyNumber startVersion = new DeweyNumber(start / RUN_LENGTH + 1);
+			DeweyNumber loopVersion = startVersion.addStage();
+
+			buffer.put(START, events[start], start, startVersion);
+			buffer.prune(start - WINDOW_LENGTH);
+
+			String previousKey = START;
+
+			for (int i = start + 1; i < Math.min(start + RUN_LENGTH, numEntries); i++) {
+				buffer.put(LOOP, events[i], i, previousKey, events[i - 1], i - 1, loopVersion);
+				buffer.put(LOOP, events[i], i, START, events[start], start, loopVersion.increase());
+				buffer.prune(i - WINDOW_LENGTH);
+
+				previousKey = LOOP;
+			}
+		}
+
+		bh.consume(buffer);
+	}
+
+	@Benchmark
+	public void extractPatterns(Blackhole bh) {
+		for (int start = 0; start + RUN_LENGTH <= numEntries; start += RUN_LENGTH) {
+			int last = start + RUN_LENGTH - 1;
+			DeweyNumber version = new DeweyNumber(start / RUN_LENGTH + 1).addStage();
+
+			bh.consume(filledBuffer.extractPatterns(LOOP, events[last], last, version));
+		}
+	}
+
+	@Benchmark
+	public byte[] serializeBuffer() throws IOException {
+		serializationTarget.reset();
+
+		try (ObjectOutputStream oos = new ObjectOutputStream(serializationTarget)) {
+			oos.writeObject(filledBuffer);
+		}
+
+		return serializationTarget.toByteArray();
+	}
+
+	@Benchmark
+	public Object deserializeBuffer() throws IOException, ClassNotFoundException {
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serializedBuffer))) {
+			return ois.readObject();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private SharedBufferAccessor<String, Tuple2<Long, String>> createBuffer() {
+		switch (bufferType) {
+			case "shared":
+				return new SharedBuffer<>(serializer);
+			case "compact":
+				return new CompactSharedBuffer<>(serializer);
+			default:
+				throw new IllegalArgumentException("Unknown buffer type: " + bufferType);
+		}
+	}
+
+	/**
+	 * Puts all events into the buffer and locks them, like the computation states of the NFA which
+	 * refer to them. The timestamp of every event is its position.
+	 */
+	private void fill(SharedBufferAccessor<String, Tuple2<Long, String>> buffer) {
+		for (int start = 0; start < numEntries; start += RUN_LENGTH) {
+			DeweyNumber startVersion = new DeweyNumber(start / RUN_LENGTH + 1);
+			DeweyNumber loopVersion = startVersion.addStage();
+
+			buffer.put(START, events[start], start, startVersion);
+			buffer.lock(START, events[start], start);
+
+			String previousKey = START;
+
+			for (int i = start + 1; i < Math.min(start + RUN_LENGTH, numEntries); i++) {
+				buffer.put(LOOP, events[i], i, previousKey, events[i - 1], i - 1, loopVersion);
+				buffer.put(LOOP, events[i], i, START, events[start], start, loopVersion.increase());
+				buffer.lock(LOOP, events[i], i);
+
+				previousKey = LOOP;
+			}
+		}
+	}
+
+	private static byte[] serialize(Object object) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+			oos.writeObject(object);
+		}
+
+		return baos.toByteArray();
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark;
+
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.runtime.RuntimeSerializerFactory;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.sort.NormalizedKeySorter;
+import org.apache.flink.runtime.operators.sort.QuickSort;
+import org.apache.flink.runtime.operators.sort.UnilateralSortMerger;
+import org.apache.flink.runtime.operators.testutils.DummyInvokable;
+import org.apache.flink.util.MutableObjectIterator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the sort phase ({@link NormalizedKeySorter} with {@link QuickSort}) in isolation, and
+ * the complete external sort of the {@link UnilateralSortMerger} with too little memory to sort
+ * in memory, so that runs are spilled and merged.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SortBenchmark {
+
+	private static final int NUM_RECORDS = 200_000;
+
+	private static final int NUM_KEYS = 100_000;
+
+	private static final int PAGE_SIZE = MemoryManager.DEFAULT_PAGE_SIZE;
+
+	/** Memory for the in-memory sort, large enough to hold all records */
+	private static final int IN_MEMORY_SORT_PAGES = 2048;
+
+	/** Memory for the external sort, the records need several times that */
+	private static final long EXTERNAL_SORT_MEMORY = 8 * 1024 * 1024;
+
+	@Param({"16", "128"})
+	public int payloadLength;
+
+	private TypeSerializer<Tuple2<Long, String>> serializer;
+
+	private TypeComparator<Tuple2<Long, String>> comparator;
+
+	private BenchmarkData.ArrayRecordIterator<Tuple2<Long, String>> input;
+
+	private NormalizedKeySorter<Tuple2<Long, String>> sorter;
+
+	private MemoryManager memoryManager;
+
+	private IOManager ioManager;
+
+	@Setup
+	public void setup() {
+		serializer = BenchmarkData.createSerializer();
+		comparator = BenchmarkData.createComparator();
+		input = new BenchmarkData.ArrayRecordIterator<>(
+				BenchmarkData.createRecords(NUM_RECORDS, NUM_KEYS, payloadLength));
+
+		sorter = new NormalizedKeySorter<>(serializer, comparator,
+				BenchmarkData.allocateSegments(IN_MEMORY_SORT_PAGES, PAGE_SIZE));
+
+		memoryManager = new MemoryManager(EXTERNAL_SORT_MEMORY, 1);
+		ioManager = new IOManagerAsync();
+	}
+
+	@TearDown
+	public void tearDown() {
+		sorter.dispose();
+		ioManager.shutdown();
+		memoryManager.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public void sortInMemory(Blackhole bh) throws Exception {
+		sorter.reset();
+		input.reset();
+
+		Tuple2<Long, String> record;
+		while ((record = input.next()) != null) {
+			if (!sorter.write(record)) {
+				throw new IllegalStateException("Sort buffer is too small for the benchmark data.");
+			}
+		}
+
+		new QuickSort().sort(sorter);
+
+		consume(sorter.getIterator(), bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public void externalSortMerge(Blackhole bh) throws Exception {
+		input.reset();
+
+		UnilateralSortMerger<Tuple2<Long, String>> merger = new UnilateralSortMerger<>(
+				memoryManager, ioManager, input, new DummyInvokable(),
+				new RuntimeSerializerFactory<>(serializer, BenchmarkData.RECORD_TYPE.getTypeClass()),
+				comparator, 1.0, 64, 0.8f, false, true);
+		try {
+			consume(merger.getIterator(), bh);
+		}
+		finally {
+			merger.close();
+		}
+	}
+
+	private void consume(MutableObjectIterator<Tuple2<Long, String>> sorted, Blackhole bh) throws Exception {
+		Tuple2<Long, String> reuse = serializer.createInstance();
+		while ((reuse = sorted.next(reuse)) != null) {
+			bh.consume(reuse);
+		}
+	}
+}
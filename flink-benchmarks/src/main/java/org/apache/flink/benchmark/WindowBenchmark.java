@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.benchmark;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.streaming.api.functions.windowing.PassThroughWindowFunction;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.api.windowing.assigners.TumblingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.operators.windowing.KeyMap;
+import org.apache.flink.streaming.runtime.operators.windowing.WindowOperator;
+import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalSingleValueWindowFunction;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-record path of keyed window aggregations: the {@link KeyMap} that backs the
+ * aligned window panes, and the generic {@link WindowOperator} with a reducing window state and
+ * event time tumbling windows (state lookup, window assignment, trigger and timer handling).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WindowBenchmark {
+
+	private static final int NUM_RECORDS = 10_000;
+
+	/** Window size in milliseconds, every invocation covers ten windows */
+	private static final long WINDOW_SIZE = NUM_RECORDS / 10;
+
+	private static final int PAYLOAD_LENGTH = 32;
+
+	@Param({"100", "10000"})
+	public int numKeys;
+
+	private Tuple2<Long, String>[] records;
+
+	private MinPayloadReducer reducer;
+
+	private OneInputStreamOperatorTestHarness<Tuple2<Long, String>, Tuple2<Long, String>> harness;
+
+	/** Event time of the first record of the next invocation */
+	private long currentTime;
+
+	@Setup
+	public void setup() throws Exception {
+		records = BenchmarkData.createRecords(NUM_RECORDS, numKeys, PAYLOAD_LENGTH);
+		reducer = new MinPayloadReducer();
+
+		ExecutionConfig config = new ExecutionConfig();
+
+		ReducingStateDescriptor<Tuple2<Long, String>> stateDesc = new ReducingStateDescriptor<>(
+				"window-contents", reducer, BenchmarkData.createSerializer());
+
+		WindowOperator<Long, Tuple2<Long, String>, Tuple2<Long, String>, Tuple2<Long, String>, TimeWindow> operator =
+			new WindowOperator<>(
+				TumblingEventTimeWindows.of(Time.milliseconds(WINDOW_SIZE)),
+				new TimeWindow.Serializer(),
+				new RecordKeySelector(),
+				BasicTypeInfo.LONG_TYPE_INFO.createSerializer(config),
+				stateDesc,
+				new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<Long, TimeWindow, Tuple2<Long, String>>()),
+				EventTimeTrigger.create(),
+				0);
+
+		operator.setInputType(BenchmarkData.RECORD_TYPE, config);
+
+		harness = new OneInputStreamOperatorTestHarness<>(operator, config);
+		harness.configureForKeyedStream(new RecordKeySelector(), BasicTypeInfo.LONG_TYPE_INFO);
+		harness.setup();
+		harness.open();
+
+		currentTime = 0;
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		harness.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public void keyMapPutOrAggregate(Blackhole bh) throws Exception {
+		KeyMap<Long, Tuple2<Long, String>> map = new KeyMap<>();
+		for (Tuple2<Long, String> record : records) {
+			map.putOrAggregate(record.f0, record, reducer);
+		}
+		bh.consume(map);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public void windowOperatorProcessElement() throws Exception {
+		final long baseTime = currentTime;
+
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			harness.processElement(new StreamRecord<>(records[i], baseTime + i));
+		}
+
+		// fire and purge all windows of this invocation, so that the state does not grow
+		currentTime = baseTime + NUM_RECORDS;
+		harness.processWatermark(new Watermark(currentTime - 1));
+		harness.getOutput().clear();
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static final class RecordKeySelector implements KeySelector<Tuple2<Long, String>, Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Long getKey(Tuple2<Long, String> value) {
+			return value.f0;
+		}
+	}
+
+	/**
+	 * Keeps the record with the smallest payload. Does not create new objects, so that the
+	 * benchmark measures the state access rather than the garbage collector.
+	 */
+	private static final class MinPayloadReducer implements ReduceFunction<Tuple2<Long, String>> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Tuple2<Long, String> reduce(Tuple2<Long, String> value1, Tuple2<Long, String> value2) {
+			return value1.f1.compareTo(value2.f1) <= 0 ? value1 : value2;
+		}
+	}
+}
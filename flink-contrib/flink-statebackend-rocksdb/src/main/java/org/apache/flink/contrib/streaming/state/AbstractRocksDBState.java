@@ -102,6 +102,8 @@ public abstract class AbstractRocksDBState<K, N, S extends State, SD extends Sta
 	}
 
 	protected void writeKeyAndNamespace(DataOutputView out) throws IOException {
+		// the key group prefix groups the keys of a key group together in RocksDB
+		out.writeShort(backend.currentKeyGroup());
 		backend.keySerializer().serialize(backend.currentKey(), out);
 		out.writeByte(42);
 		namespaceSerializer.serialize(currentNamespace, out);
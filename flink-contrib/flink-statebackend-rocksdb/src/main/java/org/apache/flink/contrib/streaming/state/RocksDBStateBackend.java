@@ -25,10 +25,13 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.UUID;
 
 import org.apache.commons.io.FileUtils;
@@ -52,17 +55,22 @@ import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.fs.hdfs.HadoopFileSystem;
 import org.apache.flink.runtime.state.AbstractStateBackend;
 import org.apache.flink.runtime.state.AsynchronousKvStateSnapshot;
+import org.apache.flink.runtime.state.CompositeStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.KvState;
 import org.apache.flink.runtime.state.KvStateSnapshot;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.api.common.state.StateBackend;
 
+import org.apache.flink.runtime.state.filesystem.FileStreamStateHandle;
 import org.apache.flink.runtime.state.filesystem.FsStateBackend;
 import org.apache.flink.streaming.util.HDFSCopyFromLocal;
 import org.apache.flink.streaming.util.HDFSCopyToLocal;
 import org.apache.hadoop.fs.FileSystem;
 import org.rocksdb.BackupEngine;
 import org.rocksdb.BackupableDBOptions;
+import org.rocksdb.Checkpoint;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
@@ -90,12 +98,23 @@ import static java.util.Objects.requireNonNull;
  * <p>The behavior of the RocksDB instances can be parametrized by setting RocksDB Options
  * using the methods {@link #setPredefinedOptions(PredefinedOptions)} and
  * {@link #setOptions(OptionsFactory)}.
+ *
+ * <p>Every key in RocksDB is prefixed with the key group of the Flink key. In the fully
+ * asynchronous snapshot mode, this allows to snapshot the state by key group, so that the
+ * state can be redistributed when the parallelism changes. Semi-asynchronous and incremental
+ * snapshots cover the whole data base and can only be restored with the same parallelism.
  */
 public class RocksDBStateBackend extends AbstractStateBackend {
 	private static final long serialVersionUID = 1L;
 
 	private static final Logger LOG = LoggerFactory.getLogger(RocksDBStateBackend.class);
 
+	/** The file suffix of the immutable SST files that incremental checkpoints share */
+	private static final String SST_FILE_SUFFIX = ".sst";
+
+	/** The byte that ends each key group in a fully asynchronous snapshot by key group */
+	private static final byte END_OF_KEY_GROUP_MARK = -1;
+
 	// ------------------------------------------------------------------------
 	//  Static configuration values
 	// ------------------------------------------------------------------------
@@ -109,6 +128,9 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 	/** Whether we do snapshots fully asynchronous */
 	private boolean fullyAsyncBackup = false;
 
+	/** Whether we do incremental snapshots, which only copy the SST files created since the last checkpoint */
+	private boolean incrementalBackup = false;
+
 	/** Operator identifier that is used to uniqueify the RocksDB storage path. */
 	private String operatorIdentifier;
 
@@ -170,6 +192,22 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 	 */
 	private Map<String, Tuple2<ColumnFamilyHandle, StateDescriptor>> kvStateInformation;
 
+	/**
+	 * The SST files of the last completed incremental checkpoint, mapping the local file name
+	 * to the copy of the file in the checkpoint directory. Guarded by the map of pending
+	 * incremental checkpoints.
+	 */
+	private transient Map<String, String> completedSstFiles;
+
+	/** The key group of the current key, the prefix of all keys that are accessed */
+	private transient int currentKeyGroup;
+
+	/**
+	 * The incremental checkpoints that have been taken but not (yet) been confirmed as
+	 * completed, by checkpoint ID.
+	 */
+	private transient SortedMap<Long, PendingIncrementalCheckpoint> pendingIncrementalCheckpoints;
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -302,6 +340,9 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		}
 
 		kvStateInformation = new HashMap<>();
+
+		completedSstFiles = new HashMap<>();
+		pendingIncrementalCheckpoints = new TreeMap<>();
 	}
 
 	@Override
@@ -387,13 +428,81 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 			return new HashMap<>();
 		}
 
-		if (fullyAsyncBackup) {
+		if (incrementalBackup) {
+			return performIncrementalSnapshot(checkpointId, timestamp);
+		} else if (fullyAsyncBackup) {
 			return performFullyAsyncSnapshot(checkpointId, timestamp);
 		} else {
 			return performSemiAsyncSnapshot(checkpointId, timestamp);
 		}
 	}
 
+	/**
+	 * Snapshots by key group are only supported for fully asynchronous snapshots, the other
+	 * modes snapshot the files of the whole data base. In particular, the state of incremental
+	 * checkpoints cannot be redistributed when the parallelism changes.
+	 */
+	@Override
+	public boolean supportsKeyGroupSnapshots() {
+		return fullyAsyncBackup && !incrementalBackup;
+	}
+
+	/**
+	 * Performs a fully asynchronous snapshot for each key group of this backend. All key groups
+	 * share one RocksDB {@code Snapshot} and are written into one stream, when the first of them
+	 * is materialized. Key groups without state are not part of the checkpoint.
+	 */
+	@Override
+	public HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> snapshotPartitionedStateByKeyGroup(long checkpointId, long timestamp) throws Exception {
+		if (!supportsKeyGroupSnapshots()) {
+			throw new UnsupportedOperationException("Snapshots by key group require fully asynchronous snapshots.");
+		}
+		if (kvStateInformation.isEmpty()) {
+			return null;
+		}
+
+		final URI backupUri = new URI(instanceCheckpointPath + "/chk-" + checkpointId);
+
+		org.rocksdb.Snapshot snapshot = db.getSnapshot();
+
+		// draw a copy in case it get's changed while performing the async snapshot
+		Map<String, Tuple2<ColumnFamilyHandle, StateDescriptor>> columnFamiliesCopy = new HashMap<>();
+		columnFamiliesCopy.putAll(kvStateInformation);
+
+		KeyGroupsWriter writer = new KeyGroupsWriter(snapshot,
+				this,
+				backupUri,
+				columnFamiliesCopy,
+				checkpointId);
+
+		// which key groups hold state is only known once they are written
+		HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> result = new HashMap<>();
+		for (int keyGroup = keyGroupRange.getStartKeyGroup(); keyGroup <= keyGroupRange.getEndKeyGroup(); keyGroup++) {
+			FullyAsyncKeyGroupSnapshot dummySnapshot = new FullyAsyncKeyGroupSnapshot(writer, keyGroup);
+
+			HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroupResult = new HashMap<>();
+			keyGroupResult.put("dummy_state", dummySnapshot);
+			result.put(keyGroup, keyGroupResult);
+		}
+		return result;
+	}
+
+	@Override
+	public void notifyOfCompletedCheckpoint(long checkpointId) throws Exception {
+		super.notifyOfCompletedCheckpoint(checkpointId);
+
+		if (pendingIncrementalCheckpoints != null) {
+			synchronized (pendingIncrementalCheckpoints) {
+				PendingIncrementalCheckpoint completed = pendingIncrementalCheckpoints.get(checkpointId);
+				if (completed != null && completed.materializedSstFiles != null) {
+					completedSstFiles = completed.materializedSstFiles;
+				}
+				// older checkpoints are subsumed and will never complete
+				pendingIncrementalCheckpoints.headMap(checkpointId + 1).clear();
+			}
+		}
+	}
+
 	/**
 	 * Performs a checkpoint by using the RocksDB backup feature to backup to a directory.
 	 * This backup is the asynchronously copied to the final checkpoint location.
@@ -478,9 +587,78 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		return result;
 	}
 
+	/**
+	 * Performs an incremental checkpoint by creating a RocksDB {@link Checkpoint} in a local
+	 * directory, which hard links the immutable SST files of the data base. The asynchronous
+	 * part only copies the SST files that are not already part of the last completed
+	 * checkpoint to the checkpoint location, and references the SST files of earlier
+	 * checkpoints otherwise.
+	 */
+	private HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> performIncrementalSnapshot(long checkpointId, long timestamp) throws Exception {
+		final File localCheckpointPath = new File(instanceBasePath, "local-chk-" + checkpointId);
+		final URI backupUri = new URI(instanceCheckpointPath + "/chk-" + checkpointId);
+		final URI sharedUri = new URI(instanceCheckpointPath + "/shared");
+
+		// RocksDB creates the checkpoint directory itself and fails if it exists
+		if (localCheckpointPath.exists()) {
+			LOG.warn("Deleting already existing local checkpoint directory {}.", localCheckpointPath);
+			FileUtils.deleteDirectory(localCheckpointPath);
+		}
+
+		long startTime = System.currentTimeMillis();
+
+		Checkpoint checkpoint = Checkpoint.create(db);
+		try {
+			// this flushes the memtables, so all state is contained in the SST files
+			checkpoint.createCheckpoint(localCheckpointPath.getAbsolutePath());
+		} finally {
+			checkpoint.dispose();
+		}
+
+		long endTime = System.currentTimeMillis();
+		LOG.info("Incremental RocksDB (" + instanceRocksDBPath + ") checkpoint (synchronous part) took " + (endTime - startTime) + " ms.");
+
+		Map<String, String> baseSstFiles;
+		synchronized (pendingIncrementalCheckpoints) {
+			// An SST file of the last completed checkpoint may only be referenced if all
+			// pending checkpoints reference the same copy. Otherwise, a pending checkpoint that
+			// uploaded its own copy could subsume the completed one, which discards the file.
+			baseSstFiles = new HashMap<>(completedSstFiles);
+			for (PendingIncrementalCheckpoint pending : pendingIncrementalCheckpoints.values()) {
+				baseSstFiles.entrySet().retainAll(pending.baseSstFiles.entrySet());
+			}
+			pendingIncrementalCheckpoints.put(checkpointId, new PendingIncrementalCheckpoint(baseSstFiles));
+		}
+
+		// draw a copy in case it get's changed while performing the async snapshot
+		List<StateDescriptor> kvStateInformationCopy = new ArrayList<>();
+		for (Tuple2<ColumnFamilyHandle, StateDescriptor> state: kvStateInformation.values()) {
+			kvStateInformationCopy.add(state.f1);
+		}
+		IncrementalSnapshot dummySnapshot = new IncrementalSnapshot(localCheckpointPath,
+				backupUri,
+				sharedUri,
+				baseSstFiles,
+				kvStateInformationCopy,
+				checkpointId);
+
+		HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> result = new HashMap<>();
+		result.put("dummy_state", dummySnapshot);
+		return result;
+	}
+
+	private void setMaterializedSstFiles(long checkpointId, Map<String, String> sstFiles) {
+		synchronized (pendingIncrementalCheckpoints) {
+			PendingIncrementalCheckpoint pending = pendingIncrementalCheckpoints.get(checkpointId);
+			if (pending != null) {
+				pending.materializedSstFiles = sstFiles;
+			}
+		}
+	}
+
 	@Override
 	public final void injectKeyValueStateSnapshots(HashMap<String, KvStateSnapshot> keyValueStateSnapshots, long recoveryTimestamp) throws Exception {
-		if (keyValueStateSnapshots.size() == 0) {
+		if (keyValueStateSnapshots == null || keyValueStateSnapshots.size() == 0) {
 			return;
 		}
 
@@ -488,12 +666,33 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		if (dummyState instanceof FinalSemiAsyncSnapshot) {
 			restoreFromSemiAsyncSnapshot((FinalSemiAsyncSnapshot) dummyState);
 		} else if (dummyState instanceof FinalFullyAsyncSnapshot) {
+			// clear k/v state information before filling it
+			kvStateInformation.clear();
 			restoreFromFullyAsyncSnapshot((FinalFullyAsyncSnapshot) dummyState);
+		} else if (dummyState instanceof FinalIncrementalSnapshot) {
+			restoreFromIncrementalSnapshot((FinalIncrementalSnapshot) dummyState);
 		} else {
 			throw new RuntimeException("Unknown RocksDB snapshot: " + dummyState);
 		}
 	}
 
+	/**
+	 * Restores the fully asynchronous snapshots of several key groups into the data base. The
+	 * keys carry their key group as prefix, so the key groups do not overlap.
+	 */
+	@Override
+	@SuppressWarnings("rawtypes")
+	public final void injectKeyGroupStateSnapshots(Collection<HashMap<String, KvStateSnapshot>> keyGroupStateSnapshots, long recoveryTimestamp) throws Exception {
+		for (HashMap<String, KvStateSnapshot> keyValueStateSnapshots : keyGroupStateSnapshots) {
+			KvStateSnapshot dummyState = keyValueStateSnapshots.get("dummy_state");
+			if (dummyState instanceof FinalFullyAsyncKeyGroupSnapshot) {
+				restoreFromFullyAsyncKeyGroupSnapshot((FinalFullyAsyncKeyGroupSnapshot) dummyState);
+			} else {
+				throw new RuntimeException("Unknown RocksDB key group snapshot: " + dummyState);
+			}
+		}
+	}
+
 	private void restoreFromSemiAsyncSnapshot(FinalSemiAsyncSnapshot snapshot) throws Exception {
 		// This does mostly the same work as initializeForJob, we remove the existing RocksDB
 		// directory and create a new one from the backup.
@@ -544,20 +743,80 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		}
 
 
-		List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>(snapshot.stateDescriptors.size());
-		for (StateDescriptor stateDescriptor: snapshot.stateDescriptors) {
+		openRestoredDb(snapshot.stateDescriptors);
+	}
+
+	private void restoreFromIncrementalSnapshot(FinalIncrementalSnapshot snapshot) throws Exception {
+		if (!instanceBasePath.exists()) {
+			if (!instanceBasePath.mkdirs()) {
+				throw new RuntimeException("Could not create RocksDB data directory.");
+			}
+		}
+
+		db.dispose();
+
+		try {
+			if (instanceRocksDBPath.exists()) {
+				LOG.warn("Deleting already existing db directory {}.", instanceRocksDBPath);
+				FileUtils.deleteDirectory(instanceRocksDBPath);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error cleaning RocksDB data directory.", e);
+		}
+
+		final File localBackupPath = new File(instanceBasePath, "chk-" + snapshot.checkpointId);
+
+		if (localBackupPath.exists()) {
+			try {
+				LOG.warn("Deleting already existing local backup directory {}.", localBackupPath);
+				FileUtils.deleteDirectory(localBackupPath);
+			} catch (IOException e) {
+				throw new RuntimeException("Error cleaning RocksDB local backup directory.", e);
+			}
+		}
+
+		// the private files (MANIFEST, CURRENT, OPTIONS, ...) of the checkpoint become the new
+		// db directory, the SST files are then copied in from the shared directory
+		HDFSCopyToLocal.copyToLocal(snapshot.backupUri, instanceBasePath);
+
+		if (!localBackupPath.renameTo(instanceRocksDBPath)) {
+			throw new RuntimeException("Could not move restored RocksDB checkpoint " + localBackupPath + " to " + instanceRocksDBPath);
+		}
+
+		Map<String, String> sstFiles = snapshot.getSstFiles();
+		for (Map.Entry<String, String> sstFile : sstFiles.entrySet()) {
+			HDFSCopyToLocal.copyToLocal(new URI(sstFile.getValue()), new File(instanceRocksDBPath, sstFile.getKey()));
+		}
+
+		openRestoredDb(snapshot.stateDescriptors);
+
+		// the restored files already exist in the checkpoint directory, the next
+		// incremental checkpoint can reference them
+		synchronized (pendingIncrementalCheckpoints) {
+			pendingIncrementalCheckpoints.clear();
+			completedSstFiles = sstFiles;
+		}
+	}
+
+	/**
+	 * Opens the data base in the {@link #instanceRocksDBPath} with the column families of the
+	 * given state descriptors.
+	 */
+	private void openRestoredDb(List<StateDescriptor> stateDescriptors) {
+		List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>(stateDescriptors.size());
+		for (StateDescriptor stateDescriptor: stateDescriptors) {
 			columnFamilyDescriptors.add(new ColumnFamilyDescriptor(stateDescriptor.getName().getBytes(), getColumnOptions()));
 		}
 
 		// RocksDB seems to need this...
 		columnFamilyDescriptors.add(new ColumnFamilyDescriptor("default".getBytes()));
-		List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>(snapshot.stateDescriptors.size());
+		List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>(stateDescriptors.size());
 		try {
 
 			db = RocksDB.open(getDbOptions(), instanceRocksDBPath.getAbsolutePath(), columnFamilyDescriptors, columnFamilyHandles);
 			this.kvStateInformation = new HashMap<>();
-			for (int i = 0; i < snapshot.stateDescriptors.size(); i++) {
-				this.kvStateInformation.put(snapshot.stateDescriptors.get(i).getName(), new Tuple2<>(columnFamilyHandles.get(i), snapshot.stateDescriptors.get(i)));
+			for (int i = 0; i < stateDescriptors.size(); i++) {
+				this.kvStateInformation.put(stateDescriptors.get(i).getName(), new Tuple2<>(columnFamilyHandles.get(i), stateDescriptors.get(i)));
 			}
 
 		} catch (RocksDBException e) {
@@ -569,23 +828,7 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 
 		DataInputView inputView = snapshot.stateHandle.getState(userCodeClassLoader);
 
-		// clear k/v state information before filling it
-		kvStateInformation.clear();
-
-		// first get the column family mapping
-		int numColumns = inputView.readInt();
-		Map<Byte, StateDescriptor> columnFamilyMapping = new HashMap<>(numColumns);
-		for (int i = 0; i < numColumns; i++) {
-			byte mappingByte = inputView.readByte();
-
-			ObjectInputStream ooIn = new ObjectInputStream(new DataInputViewStream(inputView));
-			StateDescriptor stateDescriptor = (StateDescriptor) ooIn.readObject();
-
-			columnFamilyMapping.put(mappingByte, stateDescriptor);
-
-			// this will fill in the k/v state information
-			getColumnFamily(stateDescriptor);
-		}
+		Map<Byte, StateDescriptor> columnFamilyMapping = readColumnFamilyMapping(inputView);
 
 		// try and read until EOF
 		try {
@@ -602,6 +845,50 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		}
 	}
 
+	private void restoreFromFullyAsyncKeyGroupSnapshot(FinalFullyAsyncKeyGroupSnapshot snapshot) throws Exception {
+
+		DataInputView inputView = snapshot.stateHandle.getState(userCodeClassLoader);
+
+		Map<Byte, StateDescriptor> columnFamilyMapping = readColumnFamilyMapping(inputView);
+
+		// the offset of the key group is relative to the end of the column family mapping
+		long toSkip = snapshot.keyGroupOffset;
+		while (toSkip > 0) {
+			int skip = (int) Math.min(toSkip, Integer.MAX_VALUE);
+			inputView.skipBytesToRead(skip);
+			toSkip -= skip;
+		}
+
+		byte mappingByte;
+		while ((mappingByte = inputView.readByte()) != END_OF_KEY_GROUP_MARK) {
+			ColumnFamilyHandle handle = getColumnFamily(columnFamilyMapping.get(mappingByte));
+			byte[] key = BytePrimitiveArraySerializer.INSTANCE.deserialize(inputView);
+			byte[] value = BytePrimitiveArraySerializer.INSTANCE.deserialize(inputView);
+			db.put(handle, key, value);
+		}
+	}
+
+	/**
+	 * Reads the mapping from column family bytes to state descriptors at the beginning of a
+	 * fully asynchronous snapshot and creates the column families.
+	 */
+	private Map<Byte, StateDescriptor> readColumnFamilyMapping(DataInputView inputView) throws Exception {
+		int numColumns = inputView.readInt();
+		Map<Byte, StateDescriptor> columnFamilyMapping = new HashMap<>(numColumns);
+		for (int i = 0; i < numColumns; i++) {
+			byte mappingByte = inputView.readByte();
+
+			ObjectInputStream ooIn = new ObjectInputStream(new DataInputViewStream(inputView));
+			StateDescriptor stateDescriptor = (StateDescriptor) ooIn.readObject();
+
+			columnFamilyMapping.put(mappingByte, stateDescriptor);
+
+			// this will fill in the k/v state information
+			getColumnFamily(stateDescriptor);
+		}
+		return columnFamilyMapping;
+	}
+
 	// ------------------------------------------------------------------------
 	//  Semi-asynchronous Backup Classes
 	// ------------------------------------------------------------------------
@@ -692,6 +979,34 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 	//  Fully asynchronous Backup Classes
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Writes the mapping from column family bytes to state descriptors at the beginning of a
+	 * fully asynchronous snapshot. We don't know how many key/value pairs there are in each
+	 * column family. We prefix every written element with a byte that signifies to which
+	 * column family it belongs, this way we can restore the column families.
+	 */
+	private static Map<String, Byte> writeColumnFamilyMapping(
+			CheckpointStateOutputView outputView,
+			Map<String, Tuple2<ColumnFamilyHandle, StateDescriptor>> columnFamilies) throws IOException {
+
+		outputView.writeInt(columnFamilies.size());
+
+		byte count = 0;
+		Map<String, Byte> columnFamilyMapping = new HashMap<>();
+		for (Map.Entry<String, Tuple2<ColumnFamilyHandle, StateDescriptor>> column: columnFamilies.entrySet()) {
+			columnFamilyMapping.put(column.getKey(), count);
+
+			outputView.writeByte(count);
+
+			ObjectOutputStream ooOut = new ObjectOutputStream(outputView);
+			ooOut.writeObject(column.getValue().f1);
+			ooOut.flush();
+
+			count++;
+		}
+		return columnFamilyMapping;
+	}
+
 	/**
 	 * This does the snapshot using a RocksDB snapshot and an iterator over all keys
 	 * at the point of that snapshot.
@@ -725,24 +1040,7 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 
 				CheckpointStateOutputView outputView = backend.createCheckpointStateOutputView(checkpointId, startTime);
 
-				outputView.writeInt(columnFamilies.size());
-
-				// we don't know how many key/value pairs there are in each column family.
-				// We prefix every written element with a byte that signifies to which
-				// column family it belongs, this way we can restore the column families
-				byte count = 0;
-				Map<String, Byte> columnFamilyMapping = new HashMap<>();
-				for (Map.Entry<String, Tuple2<ColumnFamilyHandle, StateDescriptor>> column: columnFamilies.entrySet()) {
-					columnFamilyMapping.put(column.getKey(), count);
-
-					outputView.writeByte(count);
-
-					ObjectOutputStream ooOut = new ObjectOutputStream(outputView);
-					ooOut.writeObject(column.getValue().f1);
-					ooOut.flush();
-
-					count++;
-				}
+				Map<String, Byte> columnFamilyMapping = writeColumnFamilyMapping(outputView, columnFamilies);
 
 				ReadOptions readOptions = new ReadOptions();
 				readOptions.setSnapshot(snapshot);
@@ -823,6 +1121,456 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		}
 	}
 
+	/**
+	 * Writes all key groups of a RocksDB snapshot into one stream, when the first key group is
+	 * materialized. The stream starts with the column family mapping, followed by the key/value
+	 * pairs of each key group that holds state. Every key group ends with
+	 * {@link #END_OF_KEY_GROUP_MARK} and its offset is recorded, so that the key groups can be
+	 * restored individually. The RocksDB snapshot is released once the stream is written.
+	 */
+	private class KeyGroupsWriter {
+
+		private org.rocksdb.Snapshot snapshot;
+		private final AbstractStateBackend backend;
+		private final URI backupUri;
+		private final Map<String, Tuple2<ColumnFamilyHandle, StateDescriptor>> columnFamilies;
+		private final long checkpointId;
+
+		private Map<Integer, FinalFullyAsyncKeyGroupSnapshot> snapshots;
+		private Exception failure;
+
+		private KeyGroupsWriter(org.rocksdb.Snapshot snapshot,
+				AbstractStateBackend backend,
+				URI backupUri,
+				Map<String, Tuple2<ColumnFamilyHandle, StateDescriptor>> columnFamilies,
+				long checkpointId) {
+			this.snapshot = snapshot;
+			this.backend = backend;
+			this.backupUri = backupUri;
+			this.columnFamilies = columnFamilies;
+			this.checkpointId = checkpointId;
+		}
+
+		/**
+		 * Gets the snapshot of the given key group, or null if the key group holds no state.
+		 */
+		private synchronized FinalFullyAsyncKeyGroupSnapshot getKeyGroupSnapshot(int keyGroup) throws Exception {
+			if (snapshots == null && failure == null) {
+				try {
+					snapshots = writeKeyGroups();
+				}
+				catch (Exception e) {
+					failure = e;
+				}
+				finally {
+					synchronized (dbCleanupLock) {
+						if (db != null) {
+							db.releaseSnapshot(snapshot);
+						}
+					}
+					snapshot = null;
+				}
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+			return snapshots.get(keyGroup);
+		}
+
+		private Map<Integer, FinalFullyAsyncKeyGroupSnapshot> writeKeyGroups() throws Exception {
+			// the column family bytes must not collide with the end of key group mark
+			if (columnFamilies.size() > 255) {
+				throw new IOException("Fully asynchronous snapshots by key group support at most 255 states, but there are " +
+						columnFamilies.size() + '.');
+			}
+
+			long startTime = System.currentTimeMillis();
+
+			CheckpointStateOutputView outputView = backend.createCheckpointStateOutputView(checkpointId, startTime);
+
+			Map<Integer, Long> keyGroupOffsets = new HashMap<>();
+			Map<Integer, Long> keyGroupSizes = new HashMap<>();
+			StateHandle<DataInputView> stateHandle;
+
+			try {
+				writeKeyGroupsTo(outputView, keyGroupOffsets, keyGroupSizes);
+
+				if (keyGroupOffsets.isEmpty()) {
+					// the data base holds no state at all
+					outputView.close();
+					return new HashMap<>();
+				}
+
+				stateHandle = outputView.closeAndGetHandle();
+			}
+			catch (Exception e) {
+				// discards the partially written stream
+				outputView.close();
+				throw e;
+			}
+
+			Map<Integer, FinalFullyAsyncKeyGroupSnapshot> result = new HashMap<>(keyGroupOffsets.size());
+			for (Map.Entry<Integer, Long> keyGroupOffset : keyGroupOffsets.entrySet()) {
+				result.put(keyGroupOffset.getKey(), new FinalFullyAsyncKeyGroupSnapshot(stateHandle,
+						checkpointId,
+						keyGroupOffset.getValue(),
+						keyGroupSizes.get(keyGroupOffset.getKey())));
+			}
+
+			long endTime = System.currentTimeMillis();
+			LOG.info("Fully asynchronous RocksDB materialization of " + result.size() + " key groups to " + backupUri + " (asynchronous part) took " + (endTime - startTime) + " ms.");
+			return result;
+		}
+
+		/**
+		 * Writes the column family mapping and the key groups that hold state, and records the
+		 * offsets and sizes of the written key groups.
+		 */
+		private void writeKeyGroupsTo(
+				CheckpointStateOutputView outputView,
+				Map<Integer, Long> keyGroupOffsets,
+				Map<Integer, Long> keyGroupSizes) throws Exception {
+
+			Map<String, Byte> columnFamilyMapping = writeColumnFamilyMapping(outputView, columnFamilies);
+			long headerLength = outputView.getPos();
+
+			ReadOptions readOptions = new ReadOptions();
+			readOptions.setSnapshot(snapshot);
+
+			synchronized (dbCleanupLock) {
+				if (db == null) {
+					throw new RuntimeException("RocksDB instance was disposed. This happens " +
+							"when we are in the middle of a checkpoint and the job fails.");
+				}
+
+				// the keys are prefixed with their key group, so the iterators of all column
+				// families advance through the key groups in the same order
+				List<Tuple2<Byte, RocksIterator>> iterators = new ArrayList<>(columnFamilies.size());
+				for (Map.Entry<String, Tuple2<ColumnFamilyHandle, StateDescriptor>> column: columnFamilies.entrySet()) {
+					RocksIterator iterator = db.newIterator(column.getValue().f0, readOptions);
+					iterator.seek(keyGroupPrefix(keyGroupRange.getStartKeyGroup()));
+					iterators.add(new Tuple2<>(columnFamilyMapping.get(column.getKey()), iterator));
+				}
+
+				try {
+					for (int keyGroup = keyGroupRange.getStartKeyGroup(); keyGroup <= keyGroupRange.getEndKeyGroup(); keyGroup++) {
+						long offset = -1;
+
+						for (Tuple2<Byte, RocksIterator> column : iterators) {
+							RocksIterator iterator = column.f1;
+							while (iterator.isValid() && hasKeyGroupPrefix(iterator.key(), keyGroup)) {
+								if (offset < 0) {
+									offset = outputView.getPos();
+								}
+								outputView.writeByte(column.f0);
+								BytePrimitiveArraySerializer.INSTANCE.serialize(iterator.key(),
+										outputView);
+								BytePrimitiveArraySerializer.INSTANCE.serialize(iterator.value(),
+										outputView);
+								iterator.next();
+							}
+						}
+
+						// key groups without state are skipped
+						if (offset >= 0) {
+							outputView.writeByte(END_OF_KEY_GROUP_MARK);
+							keyGroupOffsets.put(keyGroup, offset - headerLength);
+							keyGroupSizes.put(keyGroup, outputView.getPos() - offset);
+						}
+					}
+				}
+				finally {
+					for (Tuple2<Byte, RocksIterator> column : iterators) {
+						column.f1.dispose();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Snapshot of a single key group, which is written together with the other key groups of
+	 * the data base by a shared {@link KeyGroupsWriter}.
+	 */
+	private class FullyAsyncKeyGroupSnapshot extends AsynchronousKvStateSnapshot<Object, Object, ValueState<Object>, ValueStateDescriptor<Object>, RocksDBStateBackend> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient KeyGroupsWriter writer;
+		private final int keyGroup;
+
+		private FullyAsyncKeyGroupSnapshot(KeyGroupsWriter writer, int keyGroup) {
+			this.writer = writer;
+			this.keyGroup = keyGroup;
+		}
+
+		@Override
+		public KvStateSnapshot<Object, Object, ValueState<Object>, ValueStateDescriptor<Object>, RocksDBStateBackend> materialize() throws Exception {
+			return writer.getKeyGroupSnapshot(keyGroup);
+		}
+	}
+
+	/**
+	 * Dummy {@link KvStateSnapshot} that holds the state of a single key group. The state handle
+	 * is shared by all key groups of the snapshot, discarding it discards all of them. This
+	 * results from {@link FullyAsyncKeyGroupSnapshot}.
+	 */
+	private static class FinalFullyAsyncKeyGroupSnapshot implements KvStateSnapshot<Object, Object, ValueState<Object>, ValueStateDescriptor<Object>, RocksDBStateBackend> {
+		private static final long serialVersionUID = 1L;
+
+		final StateHandle<DataInputView> stateHandle;
+		final long checkpointId;
+
+		/** The offset of the key group, relative to the end of the column family mapping */
+		final long keyGroupOffset;
+
+		/** The number of bytes of the key group */
+		final long keyGroupSize;
+
+		private FinalFullyAsyncKeyGroupSnapshot(StateHandle<DataInputView> stateHandle, long checkpointId, long keyGroupOffset, long keyGroupSize) {
+			this.stateHandle = stateHandle;
+			this.checkpointId = checkpointId;
+			this.keyGroupOffset = keyGroupOffset;
+			this.keyGroupSize = keyGroupSize;
+		}
+
+		@Override
+		public final KvState<Object, Object, ValueState<Object>, ValueStateDescriptor<Object>, RocksDBStateBackend> restoreState(
+				RocksDBStateBackend stateBackend,
+				TypeSerializer<Object> keySerializer,
+				ClassLoader classLoader,
+				long recoveryTimestamp) throws Exception {
+			throw new RuntimeException("Should never happen.");
+		}
+
+		@Override
+		public final void discardState() throws Exception {
+			stateHandle.discardState();
+		}
+
+		@Override
+		public final long getStateSize() throws Exception {
+			return keyGroupSize;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Incremental Backup Classes
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The SST files an in-flight incremental checkpoint references and, once its asynchronous
+	 * part is done, the SST files that make up the complete checkpoint.
+	 */
+	private static class PendingIncrementalCheckpoint {
+		final Map<String, String> baseSstFiles;
+		Map<String, String> materializedSstFiles;
+
+		PendingIncrementalCheckpoint(Map<String, String> baseSstFiles) {
+			this.baseSstFiles = baseSstFiles;
+		}
+	}
+
+	/**
+	 * Upon snapshotting a RocksDB checkpoint is created synchronously in a local directory. The
+	 * asynchronous part copies the files of this checkpoint to a (possibly) remote filesystem,
+	 * skipping the SST files that are already contained in the base checkpoint. This is done
+	 * in {@link #materialize()}.
+	 */
+	private class IncrementalSnapshot extends AsynchronousKvStateSnapshot<Object, Object, ValueState<Object>, ValueStateDescriptor<Object>, RocksDBStateBackend> {
+		private static final long serialVersionUID = 1L;
+		private final File localCheckpointPath;
+		private final URI backupUri;
+		private final URI sharedUri;
+		private final Map<String, String> baseSstFiles;
+		private final List<StateDescriptor> stateDescriptors;
+		private final long checkpointId;
+
+		private IncrementalSnapshot(File localCheckpointPath,
+				URI backupUri,
+				URI sharedUri,
+				Map<String, String> baseSstFiles,
+				List<StateDescriptor> columnFamilies,
+				long checkpointId) {
+			this.localCheckpointPath = localCheckpointPath;
+			this.backupUri = backupUri;
+			this.sharedUri = sharedUri;
+			this.baseSstFiles = baseSstFiles;
+			this.stateDescriptors = columnFamilies;
+			this.checkpointId = checkpointId;
+		}
+
+		@Override
+		public KvStateSnapshot<Object, Object, ValueState<Object>, ValueStateDescriptor<Object>, RocksDBStateBackend> materialize() throws Exception {
+			HashMap<String, String> uploadedSstFiles = new HashMap<>();
+			HashMap<String, String> referencedSstFiles = new HashMap<>();
+			try {
+				long startTime = System.currentTimeMillis();
+
+				File[] files = localCheckpointPath.listFiles();
+				if (files == null) {
+					throw new IOException("Could not list files of local RocksDB checkpoint " + localCheckpointPath);
+				}
+
+				for (File file : files) {
+					String fileName = file.getName();
+					if (fileName.endsWith(SST_FILE_SUFFIX)) {
+						String baseFile = baseSstFiles.get(fileName);
+						if (baseFile != null) {
+							referencedSstFiles.put(fileName, baseFile);
+						} else {
+							// prefix with the checkpoint id, a restored db may create SST files
+							// with the same name as files of earlier checkpoints
+							URI remoteFile = new URI(sharedUri + "/" + checkpointId + "-" + fileName);
+							HDFSCopyFromLocal.copyFromLocal(file, remoteFile);
+							uploadedSstFiles.put(fileName, remoteFile.toString());
+						}
+					} else {
+						HDFSCopyFromLocal.copyFromLocal(file, new URI(backupUri + "/" + fileName));
+					}
+				}
+
+				HashMap<String, String> sstFiles = new HashMap<>(referencedSstFiles);
+				sstFiles.putAll(uploadedSstFiles);
+				setMaterializedSstFiles(checkpointId, sstFiles);
+
+				long endTime = System.currentTimeMillis();
+				LOG.info("Incremental RocksDB materialization from " + localCheckpointPath + " to " + backupUri +
+						" (asynchronous part) took " + (endTime - startTime) + " ms. Uploaded " + uploadedSstFiles.size() +
+						" and referenced " + referencedSstFiles.size() + " SST files.");
+				return new FinalIncrementalSnapshot(backupUri, checkpointId, stateDescriptors, uploadedSstFiles, referencedSstFiles);
+			} catch (Exception e) {
+				FileSystem fs = FileSystem.get(backupUri, HadoopFileSystem.getHadoopConfiguration());
+				fs.delete(new org.apache.hadoop.fs.Path(backupUri), true);
+				for (String uploadedFile : uploadedSstFiles.values()) {
+					fs.delete(new org.apache.hadoop.fs.Path(uploadedFile), false);
+				}
+				throw e;
+			} finally {
+				FileUtils.deleteQuietly(localCheckpointPath);
+			}
+		}
+	}
+
+	/**
+	 * Dummy {@link KvStateSnapshot} that holds the state of our one RocksDB data base. The
+	 * private files of the checkpoint are stored in the backup directory, the SST files in a
+	 * directory that is shared between checkpoints. SST files are reference counted by the
+	 * {@link SharedStateRegistry} of the checkpoint coordinator once the checkpoint completed,
+	 * and are only ever deleted by that registry. This results from {@link IncrementalSnapshot}.
+	 *
+	 * <p>Tasks cannot tell savepoints from checkpoints, so a later checkpoint may reference the
+	 * SST files of a savepoint or of the snapshot the job was restored from. The registry owns
+	 * an SST file only if the checkpoint that uploaded it was registered, the files of snapshots
+	 * that were never registered are never deleted through the checkpoints that reference them.
+	 */
+	private static class FinalIncrementalSnapshot implements KvStateSnapshot<Object, Object, ValueState<Object>, ValueStateDescriptor<Object>, RocksDBStateBackend>, CompositeStateHandle {
+		private static final long serialVersionUID = 1L;
+
+		final URI backupUri;
+		final long checkpointId;
+		private final List<StateDescriptor> stateDescriptors;
+
+		/** The SST files created since the base checkpoint, by local file name */
+		private final HashMap<String, String> uploadedSstFiles;
+
+		/** The SST files of earlier checkpoints, by local file name */
+		private final HashMap<String, String> referencedSstFiles;
+
+		/**
+		 * Creates a new snapshot from the given state parameters.
+		 */
+		private FinalIncrementalSnapshot(URI backupUri,
+				long checkpointId,
+				List<StateDescriptor> stateDescriptors,
+				HashMap<String, String> uploadedSstFiles,
+				HashMap<String, String> referencedSstFiles) {
+			this.backupUri = backupUri;
+			this.checkpointId = checkpointId;
+			this.stateDescriptors = stateDescriptors;
+			this.uploadedSstFiles = uploadedSstFiles;
+			this.referencedSstFiles = referencedSstFiles;
+		}
+
+		Map<String, String> getSstFiles() {
+			Map<String, String> sstFiles = new HashMap<>(referencedSstFiles);
+			sstFiles.putAll(uploadedSstFiles);
+			return sstFiles;
+		}
+
+		@Override
+		public final KvState<Object, Object, ValueState<Object>, ValueStateDescriptor<Object>, RocksDBStateBackend> restoreState(
+				RocksDBStateBackend stateBackend,
+				TypeSerializer<Object> keySerializer,
+				ClassLoader classLoader,
+				long recoveryTimestamp) throws Exception {
+			throw new RuntimeException("Should never happen.");
+		}
+
+		@Override
+		public void registerSharedStates(SharedStateRegistry registry) throws Exception {
+			// the registry keeps the handle of the first registration. If this checkpoint only
+			// references a file that is not registered yet, the file was uploaded by a snapshot
+			// which the registry does not know, and the registry must not delete it.
+			for (String sstFile : uploadedSstFiles.values()) {
+				registry.register(sstFile, new FileStreamStateHandle(new Path(sstFile)));
+			}
+			for (String sstFile : referencedSstFiles.values()) {
+				registry.register(sstFile, new ReferencedSstFileHandle(new Path(sstFile)));
+			}
+		}
+
+		@Override
+		public void discardState(SharedStateRegistry registry) throws Exception {
+			for (String sstFile : getSstFiles().values()) {
+				registry.unregister(sstFile);
+			}
+			discardPrivateState();
+		}
+
+		/**
+		 * Discards the private files of a snapshot that was never registered, for example that
+		 * of a savepoint or of a checkpoint that did not complete. The SST files are kept,
+		 * because later checkpoints may reference them.
+		 */
+		@Override
+		public final void discardState() throws Exception {
+			discardPrivateState();
+		}
+
+		private void discardPrivateState() throws Exception {
+			FileSystem fs = FileSystem.get(backupUri, HadoopFileSystem.getHadoopConfiguration());
+			fs.delete(new org.apache.hadoop.fs.Path(backupUri), true);
+		}
+
+		@Override
+		public final long getStateSize() throws Exception {
+			FileSystem fs = FileSystem.get(backupUri, HadoopFileSystem.getHadoopConfiguration());
+			long size = fs.getContentSummary(new org.apache.hadoop.fs.Path(backupUri)).getLength();
+			for (String sstFile : uploadedSstFiles.values()) {
+				size += fs.getFileStatus(new org.apache.hadoop.fs.Path(sstFile)).getLen();
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Handle to an SST file that a checkpoint references but did not upload. Discarding the
+	 * handle keeps the file, see {@link FinalIncrementalSnapshot#registerSharedStates(SharedStateRegistry)}.
+	 */
+	private static class ReferencedSstFileHandle extends FileStreamStateHandle {
+		private static final long serialVersionUID = 1L;
+
+		ReferencedSstFileHandle(Path filePath) {
+			super(filePath);
+		}
+
+		@Override
+		public void discardState() {
+			// the file belongs to a snapshot that is not registered
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	//  State factories
 	// ------------------------------------------------------------------------
@@ -858,6 +1606,12 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		}
 	}
 
+	@Override
+	public void setCurrentKey(Object currentKey) {
+		super.setCurrentKey(currentKey);
+		this.currentKeyGroup = KeyGroupRangeAssignment.assignToKeyGroup(currentKey, numberOfKeyGroups);
+	}
+
 	/**
 	 * Used by k/v states to access the current key.
 	 */
@@ -865,6 +1619,26 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		return currentKey;
 	}
 
+	/**
+	 * Used by k/v states to access the key group of the current key, which prefixes the keys
+	 * in RocksDB.
+	 */
+	public int currentKeyGroup() {
+		return currentKeyGroup;
+	}
+
+	/**
+	 * Returns the prefix of all keys in the given key group, as written by
+	 * {@link AbstractRocksDBState#writeKeyAndNamespace(org.apache.flink.core.memory.DataOutputView)}.
+	 */
+	static byte[] keyGroupPrefix(int keyGroup) {
+		return new byte[] {(byte) (keyGroup >>> 8), (byte) keyGroup};
+	}
+
+	static boolean hasKeyGroupPrefix(byte[] key, int keyGroup) {
+		return key.length >= 2 && key[0] == (byte) (keyGroup >>> 8) && key[1] == (byte) keyGroup;
+	}
+
 	/**
 	 * Used by k/v states to access the key serializer.
 	 */
@@ -952,6 +1726,37 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		this.fullyAsyncBackup = false;
 	}
 
+	/**
+	 * Enables incremental checkpointing of the partitioned state held in RocksDB. A checkpoint
+	 * then only copies the SST files that were created since the last completed checkpoint
+	 * and references the files of earlier checkpoints otherwise. The synchronous part of a
+	 * checkpoint creates hard links of the data base files and is therefore cheap.
+	 *
+	 * <p>Files that are shared between checkpoints are only deleted once no retained
+	 * checkpoint references them anymore. Savepoints taken in this mode are not
+	 * self-contained, they reference the files of earlier checkpoints. The files that a
+	 * savepoint uploaded itself are not deleted when the savepoint is disposed.
+	 *
+	 * <p>Incremental checkpoints snapshot the whole data base instead of the individual key
+	 * groups, so a job that uses them cannot be restarted with a different parallelism.
+	 *
+	 * <p>This takes precedence over fully asynchronous snapshots.
+	 */
+	public void enableIncrementalCheckpointing() {
+		LOG.warn("Incremental checkpoints of RocksDB cannot be restored with a different parallelism, " +
+				"because they do not snapshot the state by key group.");
+		this.incrementalBackup = true;
+	}
+
+	/**
+	 * Disables incremental checkpointing of the partitioned state held in RocksDB.
+	 *
+	 * <p>By default, this is disabled.
+	 */
+	public void disableIncrementalCheckpointing() {
+		this.incrementalBackup = false;
+	}
+
 	/**
 	 * Sets the path where the RocksDB local database files should be stored on the local
 	 * file system. Setting this path overrides the default behavior, where the
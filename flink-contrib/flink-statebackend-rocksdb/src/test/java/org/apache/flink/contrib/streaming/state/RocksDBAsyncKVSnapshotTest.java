@@ -29,6 +29,7 @@ import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.core.testutils.OneShotLatch;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.operators.testutils.MockInputSplitProvider;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.runtime.state.memory.MemoryStateBackend;
 import org.apache.flink.streaming.api.graph.StreamConfig;
@@ -58,9 +59,11 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.net.URI;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -232,8 +235,8 @@ public class RocksDBAsyncKVSnapshotTest {
 			}
 
 			@Override
-			public void acknowledgeCheckpoint(long checkpointId, StateHandle<?> state) {
-				super.acknowledgeCheckpoint(checkpointId, state);
+			public void acknowledgeCheckpoint(long checkpointId, StateHandle<?> state, Map<Integer, StateHandle<?>> keyGroupStates) {
+				super.acknowledgeCheckpoint(checkpointId, state, keyGroupStates);
 
 				// block on the latch, to verify that triggerCheckpoint returns below,
 				// even though the async checkpoint would not finish
@@ -243,12 +246,22 @@ public class RocksDBAsyncKVSnapshotTest {
 					e.printStackTrace();
 				}
 
-				assertTrue(state instanceof StreamTaskStateList);
-				StreamTaskStateList stateList = (StreamTaskStateList) state;
+				// the operator has no non-keyed state
+				assertNull(state);
 
-				// should be only one k/v state
-				StreamTaskState taskState = stateList.getState(this.getUserClassLoader())[0];
-				assertEquals(1, taskState.getKvStates().size());
+				// fully asynchronous snapshots are taken per key group, empty key groups are skipped
+				assertEquals(1, keyGroupStates.size());
+				assertTrue(keyGroupStates.containsKey(
+					KeyGroupRangeAssignment.assignToKeyGroup("Wohoo", KeyGroupRangeAssignment.DEFAULT_MAX_PARALLELISM)));
+
+				for (StateHandle<?> keyGroupState : keyGroupStates.values()) {
+					assertTrue(keyGroupState instanceof StreamTaskStateList);
+					StreamTaskStateList stateList = (StreamTaskStateList) keyGroupState;
+
+					// should be only one k/v state
+					StreamTaskState taskState = stateList.getState(this.getUserClassLoader())[0];
+					assertEquals(1, taskState.getKvStates().size());
+				}
 
 				// we now know that the checkpoint went through
 				ensureCheckpointLatch.trigger();
@@ -85,6 +85,8 @@ public class ExecutionConfig implements Serializable {
 
 	private int parallelism = PARALLELISM_DEFAULT;
 
+	private int maxParallelism = PARALLELISM_DEFAULT;
+
 	/**
 	 * @deprecated Should no longer be used because it is subsumed by RestartStrategyConfiguration
 	 */
@@ -95,10 +97,14 @@ public class ExecutionConfig implements Serializable {
 
 	private boolean objectReuse = false;
 
+	private boolean localObjectHandOver = false;
+
 	private boolean autoTypeRegistrationEnabled = true;
 
 	private boolean forceAvro = false;
 
+	private boolean pojoCodeGeneration = true;
+
 	private CodeAnalysisMode codeAnalysisMode = CodeAnalysisMode.DISABLE;
 
 	/** If set to true, progress updates are printed to System.out during execution */
@@ -106,6 +112,9 @@ public class ExecutionConfig implements Serializable {
 
 	private long autoWatermarkInterval = 0;
 
+	/** Interval in milliseconds between latency markers emitted by the sources, 0 disables them */
+	private long latencyTrackingInterval = 0;
+
 	/**
 	 * @deprecated Should no longer be used because it is subsumed by RestartStrategyConfiguration
 	 */
@@ -190,6 +199,43 @@ public class ExecutionConfig implements Serializable {
 		return this.autoWatermarkInterval;
 	}
 
+	/**
+	 * Sets the interval in which the sources emit latency markers. Latency markers carry the
+	 * wall-clock time of their creation and bypass the user functions, so that each operator can
+	 * track the time it takes records to get from the sources to it. Setting the interval to zero
+	 * (the default) disables latency tracking.
+	 *
+	 * @param interval The interval between latency markers in milliseconds.
+	 */
+	@PublicEvolving
+	public ExecutionConfig setLatencyTrackingInterval(long interval) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("The latency tracking interval must not be negative.");
+		}
+		this.latencyTrackingInterval = interval;
+		return this;
+	}
+
+	/**
+	 * Returns the interval in which the sources emit latency markers.
+	 *
+	 * @see #setLatencyTrackingInterval(long)
+	 */
+	@PublicEvolving
+	public long getLatencyTrackingInterval() {
+		return latencyTrackingInterval;
+	}
+
+	/**
+	 * Returns whether the sources emit latency markers.
+	 *
+	 * @see #setLatencyTrackingInterval(long)
+	 */
+	@PublicEvolving
+	public boolean isLatencyTrackingEnabled() {
+		return latencyTrackingInterval > 0;
+	}
+
 	/**
 	 * Gets the parallelism with which operation are executed by default. Operations can
 	 * individually override this value to use a specific parallelism.
@@ -227,6 +273,38 @@ public class ExecutionConfig implements Serializable {
 		return this;
 	}
 
+	/**
+	 * Gets the maximum parallelism of the program, i.e., the number of key groups into which
+	 * keyed state is partitioned.
+	 *
+	 * @return The maximum parallelism, or {@link #PARALLELISM_DEFAULT} if the system should
+	 *         determine it.
+	 */
+	@PublicEvolving
+	public int getMaxParallelism() {
+		return maxParallelism;
+	}
+
+	/**
+	 * Sets the maximum parallelism of the program. Keyed state is partitioned into this many
+	 * key groups, which are assigned to the parallel subtasks in contiguous ranges. A job that
+	 * is restored from a checkpoint or savepoint may run with any parallelism up to the maximum
+	 * parallelism, but the maximum parallelism itself must stay the same.
+	 *
+	 * @param maxParallelism The maximum parallelism to use
+	 */
+	@PublicEvolving
+	public ExecutionConfig setMaxParallelism(int maxParallelism) {
+		Preconditions.checkArgument(maxParallelism > 0 || maxParallelism == PARALLELISM_DEFAULT,
+			"The maximum parallelism must be at least 1.");
+		Preconditions.checkArgument(maxParallelism <= Short.MAX_VALUE + 1,
+			"The maximum parallelism must be at most " + (Short.MAX_VALUE + 1) + '.');
+
+		this.maxParallelism = maxParallelism;
+
+		return this;
+	}
+
 	/**
 	 * Gets the interval (in milliseconds) between consecutive attempts to cancel a running task.
 	 */
@@ -437,6 +515,38 @@ public class ExecutionConfig implements Serializable {
 	public boolean isObjectReuseEnabled() {
 		return objectReuse;
 	}
+
+	/**
+	 * Enables handing over records as objects between streaming tasks that run in the same
+	 * TaskManager and are connected by a pipelined exchange, but could not be chained (for
+	 * example because of a re-partitioning or a different parallelism). Records handed over
+	 * this way skip serialization and deserialization; they are copied with their type
+	 * serializer instead, so the consumer never sees an object that the producer may still modify.
+	 */
+	@PublicEvolving
+	public ExecutionConfig enableLocalObjectHandOver() {
+		localObjectHandOver = true;
+		return this;
+	}
+
+	/**
+	 * Disables handing over records as objects between local streaming tasks.
+	 * @see #enableLocalObjectHandOver()
+	 */
+	@PublicEvolving
+	public ExecutionConfig disableLocalObjectHandOver() {
+		localObjectHandOver = false;
+		return this;
+	}
+
+	/**
+	 * Returns whether local object hand-over has been enabled or disabled.
+	 * @see #enableLocalObjectHandOver()
+	 */
+	@PublicEvolving
+	public boolean isLocalObjectHandOverEnabled() {
+		return localObjectHandOver;
+	}
 	
 	/**
 	 * Sets the {@link CodeAnalysisMode} of the program. Specifies to which extent user-defined
@@ -460,6 +570,41 @@ public class ExecutionConfig implements Serializable {
 		return codeAnalysisMode;
 	}
 
+	/**
+	 * Enables generating specialized code for the serializers and comparators of POJO types.
+	 * The generated code accesses the fields of the POJOs directly or through their getters
+	 * and setters, instead of through reflection. Code generation is enabled by default.
+	 * POJO types for which no code can be generated are handled through reflection.
+	 *
+	 * <p>The code is compiled with Janino, which is an optional dependency of flink-core. If
+	 * Janino is not on the classpath, all POJO types are handled through reflection.
+	 */
+	@PublicEvolving
+	public ExecutionConfig enablePojoCodeGeneration() {
+		pojoCodeGeneration = true;
+		return this;
+	}
+
+	/**
+	 * Disables generating code for the serializers and comparators of POJO types, so that
+	 * they access the fields of the POJOs through reflection.
+	 * @see #enablePojoCodeGeneration()
+	 */
+	@PublicEvolving
+	public ExecutionConfig disablePojoCodeGeneration() {
+		pojoCodeGeneration = false;
+		return this;
+	}
+
+	/**
+	 * Returns whether code generation for POJO types has been enabled or disabled.
+	 * @see #enablePojoCodeGeneration()
+	 */
+	@PublicEvolving
+	public boolean isPojoCodeGenerationEnabled() {
+		return pojoCodeGeneration;
+	}
+
 	/**
 	 * Enables the printing of progress update messages to {@code System.out}
 	 * 
@@ -676,16 +821,20 @@ public class ExecutionConfig implements Serializable {
 				Objects.equals(executionMode, other.executionMode) &&
 				useClosureCleaner == other.useClosureCleaner &&
 				parallelism == other.parallelism &&
+				maxParallelism == other.maxParallelism &&
 				((restartStrategyConfiguration == null && other.restartStrategyConfiguration == null) ||
 					(null != restartStrategyConfiguration && restartStrategyConfiguration.equals(other.restartStrategyConfiguration))) &&
 				forceKryo == other.forceKryo &&
 				objectReuse == other.objectReuse &&
+				localObjectHandOver == other.localObjectHandOver &&
 				autoTypeRegistrationEnabled == other.autoTypeRegistrationEnabled &&
 				forceAvro == other.forceAvro &&
+				pojoCodeGeneration == other.pojoCodeGeneration &&
 				Objects.equals(codeAnalysisMode, other.codeAnalysisMode) &&
 				printProgressDuringExecution == other.printProgressDuringExecution &&
 				Objects.equals(globalJobParameters, other.globalJobParameters) &&
 				autoWatermarkInterval == other.autoWatermarkInterval &&
+				latencyTrackingInterval == other.latencyTrackingInterval &&
 				registeredTypesWithKryoSerializerClasses.equals(other.registeredTypesWithKryoSerializerClasses) &&
 				defaultKryoSerializerClasses.equals(other.defaultKryoSerializerClasses) &&
 				registeredKryoTypes.equals(other.registeredKryoTypes) &&
@@ -703,15 +852,19 @@ public class ExecutionConfig implements Serializable {
 			executionMode,
 			useClosureCleaner,
 			parallelism,
+			maxParallelism,
 			restartStrategyConfiguration,
 			forceKryo,
 			objectReuse,
+			localObjectHandOver,
 			autoTypeRegistrationEnabled,
 			forceAvro,
+			pojoCodeGeneration,
 			codeAnalysisMode,
 			printProgressDuringExecution,
 			globalJobParameters,
 			autoWatermarkInterval,
+			latencyTrackingInterval,
 			registeredTypesWithKryoSerializerClasses,
 			defaultKryoSerializerClasses,
 			registeredKryoTypes,
@@ -54,6 +54,32 @@ import java.util.Map;
 @Internal
 public class ReduceOperatorBase<T, FT extends ReduceFunction<T>> extends SingleInputOperator<T, T, FT> {
 
+	/**
+	 * An enumeration of hints, optionally usable to tell the system exactly how to execute the combiner phase
+	 * of a reduce.
+	 * (Note: The final reduce phase (after combining) is currently always executed by a sort-based strategy.)
+	 */
+	public static enum CombineHint {
+
+		/**
+		 * Leave the choice how to do the combine to the optimizer.
+		 */
+		OPTIMIZER_CHOOSES,
+
+		/**
+		 * Use a sort-based strategy.
+		 */
+		SORT,
+
+		/**
+		 * Use a hash-based strategy. This should be faster in most cases, especially if the number
+		 * of different keys is small compared to the number of input elements (eg. 1/10).
+		 */
+		HASH
+	}
+
+	private CombineHint hint = CombineHint.OPTIMIZER_CHOOSES;
+
 	private Partitioner<?> customPartitioner;
 	
 	
@@ -149,6 +175,14 @@ public class ReduceOperatorBase<T, FT extends ReduceFunction<T>> extends SingleI
 		return customPartitioner;
 	}
 
+	public void setCombineHint(CombineHint hint) {
+		this.hint = hint == null ? CombineHint.OPTIMIZER_CHOOSES : hint;
+	}
+
+	public CombineHint getCombineHint() {
+		return hint;
+	}
+
 	// --------------------------------------------------------------------------------------------
 	
 	@Override
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.flink.api.common.typeutils;
+
+import org.apache.flink.annotation.Internal;
+
+/**
+ * A {@link TypePairComparator} for two records of the same type, which simply delegates to
+ * the {@link TypeComparator} of that type.
+ *
+ * @param <T> The type of the compared records.
+ */
+@Internal
+public class SameTypePairComparator<T> extends TypePairComparator<T, T> {
+
+	private final TypeComparator<T> comparator;
+
+	private final TypeComparator<T> candidateComparator;
+
+	public SameTypePairComparator(TypeComparator<T> comparator) {
+		this.comparator = comparator;
+		this.candidateComparator = comparator.duplicate();
+	}
+
+	@Override
+	public void setReference(T reference) {
+		this.comparator.setReference(reference);
+	}
+
+	@Override
+	public boolean equalToReference(T candidate) {
+		return this.comparator.equalToReference(candidate);
+	}
+
+	@Override
+	public int compareToReference(T candidate) {
+		this.candidateComparator.setReference(candidate);
+		return this.comparator.compareToReference(this.candidateComparator);
+	}
+}
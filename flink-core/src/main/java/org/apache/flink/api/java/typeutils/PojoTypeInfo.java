@@ -397,7 +397,8 @@ public class PojoTypeInfo<T> extends CompositeType<T> {
 				keyFields.toArray(new Field[keyFields.size()]),
 				fieldComparators.toArray(new TypeComparator[fieldComparators.size()]),
 				createSerializer(config),
-				getTypeClass());
+				getTypeClass(),
+				config.isPojoCodeGenerationEnabled());
 		}
 	}
 
@@ -0,0 +1,782 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.java.typeutils.runtime;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.BooleanSerializer;
+import org.apache.flink.api.common.typeutils.base.ByteSerializer;
+import org.apache.flink.api.common.typeutils.base.CharSerializer;
+import org.apache.flink.api.common.typeutils.base.DoubleSerializer;
+import org.apache.flink.api.common.typeutils.base.FloatSerializer;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.ShortSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.types.StringValue;
+import org.codehaus.janino.SimpleCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Generates the {@link PojoFieldSerializer} and {@link PojoFieldComparator} classes for POJO
+ * types, and compiles them with Janino.
+ *
+ * <p>The generated code accesses public fields directly and the other fields through their
+ * public getters and setters. Fields that can be accessed in neither way are accessed through
+ * reflection. Fields of primitive types, their wrappers and strings are written and read inline;
+ * all other fields are handed to their serializers. Each generated class only sees the field
+ * serializers and comparators of one POJO type, so the JIT compiler can inline their calls.
+ *
+ * <p>The generated classes are cached per class loader of the POJO types. If no class can be
+ * generated for a type, the factory methods return null, and the {@link PojoSerializer} and
+ * {@link PojoComparator} fall back to reflection.
+ *
+ * <p>Janino is an optional dependency of this module. If it is not on the classpath, no code is
+ * generated at all. Only the method {@code compile()} refers to Janino, so that this class can
+ * be loaded without it.
+ */
+@Internal
+public final class PojoCodeGenerator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PojoCodeGenerator.class);
+
+	/** The serializers whose format is written and read inline, for primitives and their wrappers */
+	private static final Map<Class<?>, InlinedType> INLINED_TYPES = new HashMap<>();
+
+	static {
+		INLINED_TYPES.put(BooleanSerializer.class, new InlinedType(boolean.class, "writeBoolean", "readBoolean"));
+		INLINED_TYPES.put(ByteSerializer.class, new InlinedType(byte.class, "writeByte", "readByte"));
+		INLINED_TYPES.put(ShortSerializer.class, new InlinedType(short.class, "writeShort", "readShort"));
+		INLINED_TYPES.put(CharSerializer.class, new InlinedType(char.class, "writeChar", "readChar"));
+		INLINED_TYPES.put(IntSerializer.class, new InlinedType(int.class, "writeInt", "readInt"));
+		INLINED_TYPES.put(LongSerializer.class, new InlinedType(long.class, "writeLong", "readLong"));
+		INLINED_TYPES.put(FloatSerializer.class, new InlinedType(float.class, "writeFloat", "readFloat"));
+		INLINED_TYPES.put(DoubleSerializer.class, new InlinedType(double.class, "writeDouble", "readDouble"));
+	}
+
+	/** The compiled classes per class loader of the POJO types, by their code */
+	private static final Map<ClassLoader, Map<String, WeakReference<Class<?>>>> GENERATED_CLASSES = new WeakHashMap<>();
+
+	/** Whether Janino is on the classpath, so that generated code can be compiled */
+	private static final boolean COMPILER_AVAILABLE = isCompilerAvailable();
+
+	// ------------------------------------------------------------------------
+	//  Factories
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a {@link PojoFieldSerializer} for objects of exactly the given type.
+	 *
+	 * @return The generated field serializer, or null, if no code could be generated.
+	 */
+	public static <T> PojoFieldSerializer<T> createFieldSerializer(
+			Class<T> clazz,
+			Field[] fields,
+			TypeSerializer<?>[] fieldSerializers) {
+
+		if (!COMPILER_AVAILABLE) {
+			return null;
+		}
+
+		try {
+			if (!isAccessible(clazz)) {
+				LOG.debug("Not generating serialization code for {}, because the class is not public.", clazz);
+				return null;
+			}
+
+			final String className = "GeneratedPojoSerializer_" + clazz.getSimpleName();
+			final String code = generateSerializerCode(className, getFieldAccess(clazz, fields), fieldSerializers);
+
+			Class<?> generatedClass = compile(clazz, className, code);
+			if (generatedClass == null) {
+				return null;
+			}
+
+			@SuppressWarnings("unchecked")
+			PojoFieldSerializer<T> fieldSerializer = (PojoFieldSerializer<T>) generatedClass
+					.getConstructor(TypeSerializer[].class, Field[].class)
+					.newInstance(fieldSerializers, fields);
+			return fieldSerializer;
+		}
+		catch (Exception | LinkageError e) {
+			LOG.warn("Could not generate the serialization code for " + clazz + ". Using reflection instead.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a {@link PojoFieldComparator} for the given key fields of the given type.
+	 *
+	 * @return The generated field comparator, or null, if no code could be generated.
+	 */
+	public static <T> PojoFieldComparator<T> createFieldComparator(
+			Class<T> clazz,
+			Field[] keyFields,
+			TypeComparator<?>[] comparators,
+			int[] normalizedKeyLengths,
+			int numLeadingNormalizableKeys) {
+
+		if (!COMPILER_AVAILABLE) {
+			return null;
+		}
+
+		try {
+			if (!isAccessible(clazz)) {
+				LOG.debug("Not generating comparison code for {}, because the class is not public.", clazz);
+				return null;
+			}
+
+			final String className = "GeneratedPojoComparator_" + clazz.getSimpleName();
+			final String code = generateComparatorCode(
+					className, getFieldAccess(clazz, keyFields), normalizedKeyLengths, numLeadingNormalizableKeys);
+
+			Class<?> generatedClass = compile(clazz, className, code);
+			if (generatedClass == null) {
+				return null;
+			}
+
+			@SuppressWarnings("unchecked")
+			PojoFieldComparator<T> fieldComparator = (PojoFieldComparator<T>) generatedClass
+					.getConstructor(TypeComparator[].class, Field[].class)
+					.newInstance(comparators, keyFields);
+			return fieldComparator;
+		}
+		catch (Exception | LinkageError e) {
+			LOG.warn("Could not generate the comparison code for " + clazz + ". Using reflection instead.", e);
+			return null;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Reflective access, for fields that the generated code cannot access
+	// ------------------------------------------------------------------------
+
+	public static Object getField(Field field, Object object) {
+		try {
+			return field.get(object);
+		}
+		catch (IllegalAccessException e) {
+			throw new RuntimeException("Cannot access field " + field + ".", e);
+		}
+	}
+
+	public static void setField(Field field, Object object, Object value) {
+		try {
+			field.set(object, value);
+		}
+		catch (IllegalAccessException e) {
+			throw new RuntimeException("Cannot access field " + field + ".", e);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Code generation
+	// ------------------------------------------------------------------------
+
+	private static String generateSerializerCode(
+			String className,
+			FieldAccess[] fields,
+			TypeSerializer<?>[] fieldSerializers) {
+
+		final String outputView = DataOutputView.class.getName();
+		final String inputView = DataInputView.class.getName();
+		final String ioException = IOException.class.getName();
+		final String stringValue = StringValue.class.getName();
+
+		CodeBuilder code = new CodeBuilder();
+
+		code.line("public final class " + className + " extends " + PojoFieldSerializer.class.getName() + " {");
+		code.line();
+		for (FieldAccess field : fields) {
+			code.line("private final " + TypeSerializer.class.getName() + " s" + field.index + ";");
+			if (field.isReflective()) {
+				code.line("private final " + Field.class.getName() + " f" + field.index + ";");
+			}
+		}
+		code.line();
+
+		code.line("public " + className + "(" + TypeSerializer.class.getName() + "[] serializers, " +
+				Field.class.getName() + "[] fields) {");
+		for (FieldAccess field : fields) {
+			code.line("this.s" + field.index + " = serializers[" + field.index + "];");
+			if (field.isReflective()) {
+				code.line("this.f" + field.index + " = fields[" + field.index + "];");
+			}
+		}
+		code.line("}");
+		code.line();
+
+		// initializeFields()
+		code.line("public void initializeFields(Object target) {");
+		for (FieldAccess field : fields) {
+			code.line(field.writeObject("target", "s" + field.index + ".createInstance()"));
+		}
+		code.line("}");
+		code.line();
+
+		// copyFields()
+		code.line("public void copyFields(Object from, Object target) {");
+		for (FieldAccess field : fields) {
+			final String s = "s" + field.index;
+
+			if (isInlined(field, fieldSerializers[field.index])) {
+				code.line(field.write("target", field.read("from")));
+			}
+			else {
+				code.line("{");
+				code.line("Object v = " + field.readObject("from") + ";");
+				code.line(field.writeObject("target", "v != null ? " + s + ".copy(v) : null"));
+				code.line("}");
+			}
+		}
+		code.line("}");
+		code.line();
+
+		// copyFieldsWithReuse()
+		code.line("public void copyFieldsWithReuse(Object from, Object reuse) {");
+		for (FieldAccess field : fields) {
+			final String s = "s" + field.index;
+
+			if (isInlined(field, fieldSerializers[field.index])) {
+				code.line(field.write("reuse", field.read("from")));
+			}
+			else {
+				code.line("{");
+				code.line("Object v = " + field.readObject("from") + ";");
+				code.line("if (v != null) {");
+				code.line("Object r = " + field.readObject("reuse") + ";");
+				code.line(field.writeObject("reuse", "r != null ? " + s + ".copy(v, r) : " + s + ".copy(v)"));
+				code.line("} else {");
+				code.line(field.writeObject("reuse", "null"));
+				code.line("}");
+				code.line("}");
+			}
+		}
+		code.line("}");
+		code.line();
+
+		// serializeFields()
+		code.line("public void serializeFields(Object value, " + outputView + " target) throws " + ioException + " {");
+		for (FieldAccess field : fields) {
+			final TypeSerializer<?> serializer = fieldSerializers[field.index];
+			final InlinedType inlinedType = INLINED_TYPES.get(serializer.getClass());
+
+			if (isInlined(field, serializer) && field.getType().isPrimitive()) {
+				code.line("target.writeBoolean(false);");
+				code.line("target." + inlinedType.write + "(" + field.read("value") + ");");
+			}
+			else if (isInlined(field, serializer)) {
+				code.line("{");
+				code.line(field.getType().getName() + " v = " + field.read("value") + ";");
+				code.line("if (v == null) {");
+				code.line("target.writeBoolean(true);");
+				code.line("} else {");
+				code.line("target.writeBoolean(false);");
+				if (inlinedType != null) {
+					code.line("target." + inlinedType.write + "(v." + inlinedType.primitive.getName() + "Value());");
+				}
+				else {
+					code.line(stringValue + ".writeString(v, target);");
+				}
+				code.line("}");
+				code.line("}");
+			}
+			else {
+				code.line("{");
+				code.line("Object v = " + field.readObject("value") + ";");
+				code.line("if (v == null) {");
+				code.line("target.writeBoolean(true);");
+				code.line("} else {");
+				code.line("target.writeBoolean(false);");
+				code.line("s" + field.index + ".serialize(v, target);");
+				code.line("}");
+				code.line("}");
+			}
+		}
+		code.line("}");
+		code.line();
+
+		// deserializeFields() and deserializeFieldsWithReuse()
+		for (boolean withReuse : new boolean[] {false, true}) {
+			final String target = withReuse ? "reuse" : "target";
+
+			code.line("public void " + (withReuse ? "deserializeFieldsWithReuse" : "deserializeFields") +
+					"(Object " + target + ", " + inputView + " source) throws " + ioException + " {");
+
+			for (FieldAccess field : fields) {
+				final String s = "s" + field.index;
+				final TypeSerializer<?> serializer = fieldSerializers[field.index];
+				final InlinedType inlinedType = INLINED_TYPES.get(serializer.getClass());
+
+				if (isInlined(field, serializer) && field.getType().isPrimitive()) {
+					// primitive fields are never null
+					code.line("if (!source.readBoolean()) {");
+					code.line(field.write(target, "source." + inlinedType.read + "()"));
+					code.line("}");
+				}
+				else if (isInlined(field, serializer)) {
+					code.line("if (source.readBoolean()) {");
+					code.line(field.write(target, "null"));
+					code.line("} else {");
+					if (inlinedType != null) {
+						code.line(field.write(target, field.getType().getName() + ".valueOf(source." + inlinedType.read + "())"));
+					}
+					else {
+						code.line(field.write(target, stringValue + ".readString(source)"));
+					}
+					code.line("}");
+				}
+				else {
+					code.line("if (source.readBoolean()) {");
+					code.line(field.writeObject(target, "null"));
+					code.line("} else {");
+					if (withReuse) {
+						code.line("Object r = " + field.readObject(target) + ";");
+						code.line(field.writeObject(target,
+								"r != null ? " + s + ".deserialize(r, source) : " + s + ".deserialize(source)"));
+					}
+					else {
+						code.line(field.writeObject(target, s + ".deserialize(source)"));
+					}
+					code.line("}");
+				}
+			}
+			code.line("}");
+			code.line();
+		}
+
+		code.line("}");
+
+		return code.toString();
+	}
+
+	private static String generateComparatorCode(
+			String className,
+			FieldAccess[] keyFields,
+			int[] normalizedKeyLengths,
+			int numLeadingNormalizableKeys) {
+
+		CodeBuilder code = new CodeBuilder();
+
+		code.line("public final class " + className + " extends " + PojoFieldComparator.class.getName() + " {");
+		code.line();
+		for (FieldAccess field : keyFields) {
+			code.line("private final " + TypeComparator.class.getName() + " c" + field.index + ";");
+			if (field.isReflective()) {
+				code.line("private final " + Field.class.getName() + " f" + field.index + ";");
+			}
+		}
+		code.line();
+
+		code.line("public " + className + "(" + TypeComparator.class.getName() + "[] comparators, " +
+				Field.class.getName() + "[] fields) {");
+		for (FieldAccess field : keyFields) {
+			code.line("this.c" + field.index + " = comparators[" + field.index + "];");
+			if (field.isReflective()) {
+				code.line("this.f" + field.index + " = fields[" + field.index + "];");
+			}
+		}
+		code.line("}");
+		code.line();
+
+		// hash(), with the same salts as the reflective comparator
+		code.line("public int hash(Object value) {");
+		code.line("int code = 0;");
+		for (FieldAccess field : keyFields) {
+			code.line("code *= " + TupleComparatorBase.HASH_SALT[field.index & 0x1F] + ";");
+			code.line("code += c" + field.index + ".hash(" + field.readObject("value") + ");");
+		}
+		code.line("return code;");
+		code.line("}");
+		code.line();
+
+		// setReference()
+		code.line("public void setReference(Object toCompare) {");
+		for (FieldAccess field : keyFields) {
+			code.line("c" + field.index + ".setReference(" + field.readObject("toCompare") + ");");
+		}
+		code.line("}");
+		code.line();
+
+		// equalToReference()
+		code.line("public boolean equalToReference(Object candidate) {");
+		for (FieldAccess field : keyFields) {
+			code.line("if (!c" + field.index + ".equalToReference(" + field.readObject("candidate") + ")) {");
+			code.line("return false;");
+			code.line("}");
+		}
+		code.line("return true;");
+		code.line("}");
+		code.line();
+
+		// compare()
+		code.line("public int compare(Object first, Object second) {");
+		code.line("int cmp;");
+		for (FieldAccess field : keyFields) {
+			code.line("cmp = c" + field.index + ".compare(" + field.readObject("first") + ", " +
+					field.readObject("second") + ");");
+			code.line("if (cmp != 0) {");
+			code.line("return cmp;");
+			code.line("}");
+		}
+		code.line("return 0;");
+		code.line("}");
+		code.line();
+
+		// putNormalizedKey(), for the leading keys that support normalized keys
+		code.line("public void putNormalizedKey(Object value, " + MemorySegment.class.getName() +
+				" target, int offset, int numBytes) {");
+		for (int i = 0; i < numLeadingNormalizableKeys; i++) {
+			final int len = normalizedKeyLengths[i];
+
+			code.line("if (numBytes > 0) {");
+			code.line("int len = numBytes >= " + len + " ? " + len + " : numBytes;");
+			code.line("c" + i + ".putNormalizedKey(" + keyFields[i].readObject("value") + ", target, offset, len);");
+			code.line("numBytes -= len;");
+			code.line("offset += len;");
+			code.line("}");
+		}
+		code.line("}");
+		code.line();
+
+		// extractKeys()
+		code.line("public int extractKeys(Object record, Object[] target, int index) {");
+		code.line("int localIndex = index;");
+		for (FieldAccess field : keyFields) {
+			code.line("localIndex += c" + field.index + ".extractKeys(" + field.readObject("record") +
+					", target, localIndex);");
+		}
+		code.line("return localIndex - index;");
+		code.line("}");
+
+		code.line("}");
+
+		return code.toString();
+	}
+
+	private static boolean isInlined(FieldAccess field, TypeSerializer<?> serializer) {
+		if (field.isReflective()) {
+			return false;
+		}
+
+		final Class<?> type = field.getType();
+
+		if (serializer.getClass() == StringSerializer.class) {
+			return type == String.class;
+		}
+
+		final InlinedType inlinedType = INLINED_TYPES.get(serializer.getClass());
+		return inlinedType != null &&
+				(type == inlinedType.primitive || type == ClassUtils.primitiveToWrapper(inlinedType.primitive));
+	}
+
+	// ------------------------------------------------------------------------
+	//  Compilation
+	// ------------------------------------------------------------------------
+
+	private static boolean isCompilerAvailable() {
+		try {
+			Class.forName("org.codehaus.janino.SimpleCompiler", false, PojoCodeGenerator.class.getClassLoader());
+			return true;
+		}
+		catch (ClassNotFoundException | LinkageError e) {
+			LOG.info("Janino is not on the classpath. The fields of POJO types are accessed through reflection.");
+			return false;
+		}
+	}
+
+	private static Class<?> compile(Class<?> pojoClass, String className, String code) throws Exception {
+		final ClassLoader classLoader = pojoClass.getClassLoader() != null
+				? pojoClass.getClassLoader()
+				: PojoCodeGenerator.class.getClassLoader();
+
+		// the generated classes must extend our base classes, not the ones of another class loader
+		if (Class.forName(PojoCodeGenerator.class.getName(), false, classLoader) != PojoCodeGenerator.class) {
+			LOG.debug("Not generating code for {}, because its class loader does not share the Flink classes.", pojoClass);
+			return null;
+		}
+
+		synchronized (GENERATED_CLASSES) {
+			Map<String, WeakReference<Class<?>>> classes = GENERATED_CLASSES.get(classLoader);
+			if (classes == null) {
+				classes = new HashMap<>();
+				GENERATED_CLASSES.put(classLoader, classes);
+			}
+
+			WeakReference<Class<?>> cached = classes.get(code);
+			Class<?> generatedClass = cached != null ? cached.get() : null;
+
+			if (generatedClass == null) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Compiling generated class {} for {}:\n{}", className, pojoClass, code);
+				}
+
+				SimpleCompiler compiler = new SimpleCompiler();
+				compiler.setParentClassLoader(classLoader);
+				compiler.cook(code);
+
+				generatedClass = compiler.getClassLoader().loadClass(className);
+				classes.put(code, new WeakReference<Class<?>>(generatedClass));
+			}
+
+			return generatedClass;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Field access
+	// ------------------------------------------------------------------------
+
+	private static FieldAccess[] getFieldAccess(Class<?> clazz, Field[] fields) {
+		final String pojoType = clazz.getCanonicalName();
+		FieldAccess[] access = new FieldAccess[fields.length];
+
+		for (int i = 0; i < fields.length; i++) {
+			final Field field = fields[i];
+			final int modifiers = field.getModifiers();
+
+			if (!isAccessible(field.getType())) {
+				access[i] = new FieldAccess(i, field, pojoType, null, null, false);
+			}
+			else if (Modifier.isPublic(modifiers) && !Modifier.isFinal(modifiers) &&
+					isAccessible(field.getDeclaringClass())) {
+				access[i] = new FieldAccess(i, field, pojoType, null, null, true);
+			}
+			else {
+				Method getter = findGetter(clazz, field);
+				Method setter = findSetter(clazz, field);
+
+				if (getter != null && setter != null) {
+					access[i] = new FieldAccess(i, field, pojoType, getter, setter, false);
+				}
+				else {
+					access[i] = new FieldAccess(i, field, pojoType, null, null, false);
+				}
+			}
+		}
+
+		return access;
+	}
+
+	/**
+	 * Finds a public getter with the naming conventions that the
+	 * {@link org.apache.flink.api.java.typeutils.TypeExtractor} accepts, and exactly the type of the field.
+	 */
+	private static Method findGetter(Class<?> clazz, Field field) {
+		final String fieldName = field.getName().toLowerCase().replaceAll("_", "");
+
+		for (Method method : clazz.getMethods()) {
+			final String methodName = method.getName().toLowerCase().replaceAll("_", "");
+
+			if ((methodName.equals("get" + fieldName) || methodName.equals("is" + fieldName) || methodName.equals(fieldName)) &&
+					method.getParameterTypes().length == 0 &&
+					method.getReturnType() == field.getType() &&
+					isAccessible(method.getDeclaringClass())) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds a public setter with the naming conventions that the
+	 * {@link org.apache.flink.api.java.typeutils.TypeExtractor} accepts, and exactly the type of the field.
+	 */
+	private static Method findSetter(Class<?> clazz, Field field) {
+		final String fieldName = field.getName().toLowerCase().replaceAll("_", "");
+
+		for (Method method : clazz.getMethods()) {
+			final String methodName = method.getName().endsWith("_$eq")
+					? method.getName().toLowerCase().replaceAll("_", "").replaceFirst("\\$eq$", "_\\$eq")
+					: method.getName().toLowerCase().replaceAll("_", "");
+
+			if ((methodName.equals("set" + fieldName) || methodName.equals(fieldName + "_$eq")) &&
+					method.getParameterTypes().length == 1 &&
+					method.getParameterTypes()[0] == field.getType() &&
+					method.getReturnType() == Void.TYPE &&
+					isAccessible(method.getDeclaringClass())) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether generated code can refer to the given type by its name.
+	 */
+	private static boolean isAccessible(Class<?> type) {
+		if (type.isPrimitive()) {
+			return true;
+		}
+		else if (type.isArray()) {
+			return isAccessible(type.getComponentType());
+		}
+		else {
+			return Modifier.isPublic(type.getModifiers()) &&
+					type.getCanonicalName() != null &&
+					(type.getEnclosingClass() == null || isAccessible(type.getEnclosingClass()));
+		}
+	}
+
+	/**
+	 * The code to access one field of a POJO in the generated code, directly, through the
+	 * getter and setter, or through reflection.
+	 */
+	private static final class FieldAccess {
+
+		final int index;
+
+		final Field field;
+
+		final String pojoType;
+
+		/** Whether the field is public, and accessed directly */
+		final boolean direct;
+
+		/** The getter of a non-public field, null if the field is accessed directly or through reflection */
+		final Method getter;
+
+		/** The setter of a non-public field, null if the field is accessed directly or through reflection */
+		final Method setter;
+
+		FieldAccess(int index, Field field, String pojoType, Method getter, Method setter, boolean direct) {
+			this.index = index;
+			this.field = field;
+			this.pojoType = pojoType;
+			this.getter = getter;
+			this.setter = setter;
+			this.direct = direct;
+		}
+
+		boolean isReflective() {
+			return !direct && getter == null;
+		}
+
+		Class<?> getType() {
+			return field.getType();
+		}
+
+		/** Expression with the value of the field, with the type of the field */
+		String read(String object) {
+			return "((" + pojoType + ") " + object + ")." + (direct ? field.getName() : getter.getName() + "()");
+		}
+
+		/** Statement that sets the field to the given expression of the field's type */
+		String write(String object, String value) {
+			if (direct) {
+				return "((" + pojoType + ") " + object + ")." + field.getName() + " = " + value + ";";
+			}
+			else {
+				return "((" + pojoType + ") " + object + ")." + setter.getName() + "(" + value + ");";
+			}
+		}
+
+		/** Expression with the value of the field as an object */
+		String readObject(String object) {
+			if (isReflective()) {
+				return PojoCodeGenerator.class.getName() + ".getField(f" + index + ", " + object + ")";
+			}
+			else if (getType().isPrimitive()) {
+				return ClassUtils.primitiveToWrapper(getType()).getName() + ".valueOf(" + read(object) + ")";
+			}
+			else {
+				return read(object);
+			}
+		}
+
+		/** Statement that sets the field to the given object expression */
+		String writeObject(String object, String value) {
+			if (isReflective()) {
+				return PojoCodeGenerator.class.getName() + ".setField(f" + index + ", " + object + ", " + value + ");";
+			}
+			else if (getType().isPrimitive()) {
+				return write(object, "((" + ClassUtils.primitiveToWrapper(getType()).getName() + ") (" + value + "))." +
+						getType().getName() + "Value()");
+			}
+			else if (getType() == Object.class) {
+				return write(object, value);
+			}
+			else {
+				return write(object, "(" + getType().getCanonicalName() + ") (" + value + ")");
+			}
+		}
+	}
+
+	/**
+	 * A primitive type whose serializer is inlined, with the methods of the data views that
+	 * write and read it.
+	 */
+	private static final class InlinedType {
+
+		final Class<?> primitive;
+
+		final String write;
+
+		final String read;
+
+		InlinedType(Class<?> primitive, String write, String read) {
+			this.primitive = primitive;
+			this.write = write;
+			this.read = read;
+		}
+	}
+
+	/**
+	 * Builds the code of a generated class, one line at a time.
+	 */
+	private static final class CodeBuilder {
+
+		private final StringBuilder code = new StringBuilder();
+
+		void line(String line) {
+			code.append(line).append('\n');
+		}
+
+		void line() {
+			code.append('\n');
+		}
+
+		@Override
+		public String toString() {
+			return code.toString();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private PojoCodeGenerator() {}
+}
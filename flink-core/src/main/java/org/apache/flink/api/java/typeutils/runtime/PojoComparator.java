@@ -55,8 +55,23 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 
 	private final Class<T> type;
 
-	@SuppressWarnings("unchecked")
+	private final boolean codeGenerationEnabled;
+
+	/** The generated code for the key fields, null if the key fields are accessed through reflection */
+	private transient PojoFieldComparator<T> generatedFieldComparator;
+
 	public PojoComparator(Field[] keyFields, TypeComparator<?>[] comparators, TypeSerializer<T> serializer, Class<T> type) {
+		this(keyFields, comparators, serializer, type, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	public PojoComparator(
+			Field[] keyFields,
+			TypeComparator<?>[] comparators,
+			TypeSerializer<T> serializer,
+			Class<T> type,
+			boolean codeGenerationEnabled) {
+
 		this.keyFields = keyFields;
 		this.comparators = (TypeComparator<Object>[]) comparators;
 
@@ -109,6 +124,9 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 		this.numLeadingNormalizableKeys = nKeys;
 		this.normalizableKeyPrefixLen = nKeyLen;
 		this.invertNormKey = inverted;
+
+		this.codeGenerationEnabled = codeGenerationEnabled;
+		this.generatedFieldComparator = createGeneratedFieldComparator();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -127,6 +145,11 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 
 		this.type = toClone.type;
 
+		this.codeGenerationEnabled = toClone.codeGenerationEnabled;
+		this.generatedFieldComparator = toClone.generatedFieldComparator != null
+				? toClone.generatedFieldComparator.duplicate(this.comparators, this.keyFields)
+				: null;
+
 		try {
 			this.serializer = (TypeSerializer<T>) InstantiationUtil.deserializeObject(
 					InstantiationUtil.serializeObject(toClone.serializer), Thread.currentThread().getContextClassLoader());
@@ -171,6 +194,22 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 						+ " (" + fieldName + ")");
 			}
 		}
+
+		generatedFieldComparator = createGeneratedFieldComparator();
+	}
+
+	private PojoFieldComparator<T> createGeneratedFieldComparator() {
+		return codeGenerationEnabled
+				? PojoCodeGenerator.createFieldComparator(
+						type, keyFields, comparators, normalizedKeyLengths, numLeadingNormalizableKeys)
+				: null;
+	}
+
+	/**
+	 * Checks whether the key fields are accessed through generated code, rather than reflection.
+	 */
+	boolean isCodeGenerated() {
+		return generatedFieldComparator != null;
 	}
 
 	public Field[] getKeyFields() {
@@ -206,6 +245,15 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 
 	@Override
 	public int hash(T value) {
+		if (generatedFieldComparator != null) {
+			try {
+				return generatedFieldComparator.hash(value);
+			} catch (NullPointerException npe) {
+				throw new RuntimeException("A NullPointerException occured while accessing a key field in a POJO. " +
+						"Most likely, the value grouped/joined on is null.", npe);
+			}
+		}
+
 		int i = 0;
 		int code = 0;
 		for (; i < this.keyFields.length; i++) {
@@ -223,6 +271,11 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 
 	@Override
 	public void setReference(T toCompare) {
+		if (generatedFieldComparator != null) {
+			generatedFieldComparator.setReference(toCompare);
+			return;
+		}
+
 		int i = 0;
 		for (; i < this.keyFields.length; i++) {
 			this.comparators[i].setReference(accessField(keyFields[i], toCompare));
@@ -231,6 +284,10 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 
 	@Override
 	public boolean equalToReference(T candidate) {
+		if (generatedFieldComparator != null) {
+			return generatedFieldComparator.equalToReference(candidate);
+		}
+
 		int i = 0;
 		for (; i < this.keyFields.length; i++) {
 			if (!this.comparators[i].equalToReference(accessField(keyFields[i], candidate))) {
@@ -261,6 +318,10 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 
 	@Override
 	public int compare(T first, T second) {
+		if (generatedFieldComparator != null) {
+			return generatedFieldComparator.compare(first, second);
+		}
+
 		int i = 0;
 		for (; i < keyFields.length; i++) {
 			int cmp = comparators[i].compare(accessField(keyFields[i], first), accessField(keyFields[i], second));
@@ -303,6 +364,11 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 
 	@Override
 	public void putNormalizedKey(T value, MemorySegment target, int offset, int numBytes) {
+		if (generatedFieldComparator != null) {
+			generatedFieldComparator.putNormalizedKey(value, target, offset, numBytes);
+			return;
+		}
+
 		int i = 0;
 		for (; i < this.numLeadingNormalizableKeys & numBytes > 0; i++)
 		{
@@ -342,6 +408,10 @@ public final class PojoComparator<T> extends CompositeTypeComparator<T> implemen
 
 	@Override
 	public int extractKeys(Object record, Object[] target, int index) {
+		if (generatedFieldComparator != null) {
+			return generatedFieldComparator.extractKeys(record, target, index);
+		}
+
 		int localIndex = index;
 		for (int i = 0; i < comparators.length; i++) {
 			localIndex += comparators[i].extractKeys(accessField(keyFields[i], record), target, localIndex);
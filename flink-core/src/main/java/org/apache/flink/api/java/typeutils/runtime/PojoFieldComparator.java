@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.java.typeutils.runtime;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.core.memory.MemorySegment;
+
+import java.lang.reflect.Field;
+
+/**
+ * The key field operations of the {@link PojoComparator}. Subclasses are generated by the
+ * {@link PojoCodeGenerator} per POJO type and key fields, and access the key fields directly,
+ * instead of through reflection.
+ *
+ * <p>An instance holds the field comparators it was created with, which are stateful.
+ *
+ * @param <T> The POJO type.
+ */
+@Internal
+public abstract class PojoFieldComparator<T> {
+
+	public abstract int hash(T value);
+
+	public abstract void setReference(T toCompare);
+
+	public abstract boolean equalToReference(T candidate);
+
+	public abstract int compare(T first, T second);
+
+	public abstract void putNormalizedKey(T value, MemorySegment target, int offset, int numBytes);
+
+	public abstract int extractKeys(Object record, Object[] target, int index);
+
+	/**
+	 * Creates an instance of the same generated class for the given field comparators.
+	 */
+	public PojoFieldComparator<T> duplicate(TypeComparator<?>[] comparators, Field[] keyFields) {
+		try {
+			@SuppressWarnings("unchecked")
+			PojoFieldComparator<T> duplicate = getClass()
+					.getConstructor(TypeComparator[].class, Field[].class)
+					.newInstance(comparators, keyFields);
+			return duplicate;
+		}
+		catch (Exception e) {
+			throw new RuntimeException("Cannot instantiate the generated comparator.", e);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.java.typeutils.runtime;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+import java.io.IOException;
+
+/**
+ * The field-level operations of the {@link PojoSerializer} for objects of exactly the POJO type,
+ * i.e., not of a subclass. Subclasses are generated by the {@link PojoCodeGenerator} per POJO type
+ * and access the fields directly, instead of through reflection.
+ *
+ * <p>The generated code writes and reads exactly the same binary format as the reflective code
+ * of the {@link PojoSerializer}.
+ *
+ * @param <T> The POJO type.
+ */
+@Internal
+public abstract class PojoFieldSerializer<T> {
+
+	/**
+	 * Sets all fields to new instances of the field serializers.
+	 */
+	public abstract void initializeFields(T target);
+
+	/**
+	 * Sets the fields of the target to copies of the fields of the given object.
+	 */
+	public abstract void copyFields(T from, T target);
+
+	/**
+	 * Sets the fields of the target to copies of the fields of the given object, reusing the
+	 * current field values of the target where possible.
+	 */
+	public abstract void copyFieldsWithReuse(T from, T reuse);
+
+	/**
+	 * Writes the null flag and the value of each field.
+	 */
+	public abstract void serializeFields(T value, DataOutputView target) throws IOException;
+
+	/**
+	 * Reads the fields written by {@link #serializeFields(Object, DataOutputView)} into the target.
+	 */
+	public abstract void deserializeFields(T target, DataInputView source) throws IOException;
+
+	/**
+	 * Reads the fields written by {@link #serializeFields(Object, DataOutputView)} into the target,
+	 * reusing the current field values of the target where possible.
+	 */
+	public abstract void deserializeFieldsWithReuse(T reuse, DataInputView source) throws IOException;
+}
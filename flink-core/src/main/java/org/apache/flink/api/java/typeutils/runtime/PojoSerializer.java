@@ -68,6 +68,9 @@ public final class PojoSerializer<T> extends TypeSerializer<T> {
 	// We need to handle these ourselves in writeObject()/readObject()
 	private transient Field[] fields;
 
+	/** The generated code for the fields, null if the fields are accessed through reflection */
+	private transient PojoFieldSerializer<T> generatedFieldSerializer;
+
 	@SuppressWarnings("unchecked")
 	public PojoSerializer(
 			Class<T> clazz,
@@ -114,6 +117,8 @@ public final class PojoSerializer<T> extends TypeSerializer<T> {
 
 			id++;
 		}
+
+		generatedFieldSerializer = createGeneratedFieldSerializer();
 	}
 
 	private void writeObject(ObjectOutputStream out)
@@ -153,6 +158,21 @@ public final class PojoSerializer<T> extends TypeSerializer<T> {
 
 		cl = Thread.currentThread().getContextClassLoader();
 		subclassSerializerCache = new HashMap<Class<?>, TypeSerializer<?>>();
+
+		generatedFieldSerializer = createGeneratedFieldSerializer();
+	}
+
+	private PojoFieldSerializer<T> createGeneratedFieldSerializer() {
+		return executionConfig.isPojoCodeGenerationEnabled()
+				? PojoCodeGenerator.createFieldSerializer(clazz, fields, fieldSerializers)
+				: null;
+	}
+
+	/**
+	 * Checks whether the fields are accessed through generated code, rather than reflection.
+	 */
+	boolean isCodeGenerated() {
+		return generatedFieldSerializer != null;
 	}
 
 	private TypeSerializer<?> getSubclassSerializer(Class<?> subclass) {
@@ -229,6 +249,11 @@ public final class PojoSerializer<T> extends TypeSerializer<T> {
 	}
 
 	protected void initializeFields(T t) {
+		if (generatedFieldSerializer != null) {
+			generatedFieldSerializer.initializeFields(t);
+			return;
+		}
+
 		for (int i = 0; i < numFields; i++) {
 			try {
 				fields[i].set(t, fieldSerializers[i].createInstance());
@@ -255,6 +280,11 @@ public final class PojoSerializer<T> extends TypeSerializer<T> {
 				throw new RuntimeException("Cannot instantiate class.", t);
 			}
 			// no subclass
+			if (generatedFieldSerializer != null) {
+				generatedFieldSerializer.copyFields(from, target);
+				return target;
+			}
+
 			try {
 				for (int i = 0; i < numFields; i++) {
 					Object value = fields[i].get(from);
@@ -291,7 +321,9 @@ public final class PojoSerializer<T> extends TypeSerializer<T> {
 			return copy(from);
 		}
 
-		if (actualType == clazz) {
+		if (actualType == clazz && generatedFieldSerializer != null) {
+			generatedFieldSerializer.copyFieldsWithReuse(from, reuse);
+		} else if (actualType == clazz) {
 			try {
 				for (int i = 0; i < numFields; i++) {
 					Object value = fields[i].get(from);
@@ -363,7 +395,9 @@ public final class PojoSerializer<T> extends TypeSerializer<T> {
 		}
 
 
-		if ((flags & NO_SUBCLASS) != 0) {
+		if ((flags & NO_SUBCLASS) != 0 && generatedFieldSerializer != null) {
+			generatedFieldSerializer.serializeFields(value, target);
+		} else if ((flags & NO_SUBCLASS) != 0) {
 			try {
 				for (int i = 0; i < numFields; i++) {
 					Object o = fields[i].get(value);
@@ -421,7 +455,9 @@ public final class PojoSerializer<T> extends TypeSerializer<T> {
 			target = createInstance();
 		}
 
-		if ((flags & NO_SUBCLASS) != 0) {
+		if ((flags & NO_SUBCLASS) != 0 && generatedFieldSerializer != null) {
+			generatedFieldSerializer.deserializeFields(target, source);
+		} else if ((flags & NO_SUBCLASS) != 0) {
 			try {
 				for (int i = 0; i < numFields; i++) {
 					boolean isNull = source.readBoolean();
@@ -487,7 +523,9 @@ public final class PojoSerializer<T> extends TypeSerializer<T> {
 			}
 		}
 
-		if ((flags & NO_SUBCLASS) != 0) {
+		if ((flags & NO_SUBCLASS) != 0 && generatedFieldSerializer != null) {
+			generatedFieldSerializer.deserializeFieldsWithReuse(reuse, source);
+		} else if ((flags & NO_SUBCLASS) != 0) {
 			try {
 				for (int i = 0; i < numFields; i++) {
 					boolean isNull = source.readBoolean();
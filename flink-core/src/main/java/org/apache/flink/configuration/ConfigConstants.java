@@ -188,6 +188,20 @@ public final class ConfigConstants {
 	 */
 	public static final String TASK_MANAGER_MEMORY_PRE_ALLOCATE_KEY = "taskmanager.memory.preallocate";
 
+	/**
+	 * The config parameter defining whether the network buffers and the managed memory are drawn
+	 * from one unified pool of direct memory, if the memory is allocated off-heap. The unified pool
+	 * is always preallocated.
+	 */
+	public static final String TASK_MANAGER_MEMORY_UNIFIED_POOL_KEY = "taskmanager.memory.off-heap.unified-pool";
+
+	/**
+	 * The config parameter defining the fraction of the network buffers and the managed memory, which
+	 * is added to the unified memory pool on top of them. These segments are not guaranteed to either
+	 * the network stack or the memory manager, but can be leased by whichever needs it.
+	 */
+	public static final String TASK_MANAGER_MEMORY_UNIFIED_POOL_FLOATING_FRACTION_KEY = "taskmanager.memory.off-heap.floating-fraction";
+
 	/**
 	 * The config parameter defining the number of buffers used in the network stack. This defines the
 	 * number of possible tasks and shuffles.
@@ -205,6 +219,24 @@ public final class ConfigConstants {
 	 */
 	public static final String TASK_MANAGER_NETWORK_DEFAULT_IO_MODE = "taskmanager.network.defaultIOMode";
 
+	/**
+	 * Flag indicating whether data buffers are compressed (LZ4) before they are handed to the
+	 * network stack and decompressed again by the receiving input gate.
+	 */
+	public static final String TASK_MANAGER_NETWORK_COMPRESSION_ENABLED = "taskmanager.network.compression.enabled";
+
+	/**
+	 * Flag indicating whether buffers of blocking intermediate results are compressed (LZ4)
+	 * before they are spilled to disk.
+	 */
+	public static final String TASK_MANAGER_NETWORK_SPILL_COMPRESSION_ENABLED = "taskmanager.network.compression.spilled-partitions";
+
+	/**
+	 * The minimum number of subpartitions of a blocking intermediate result partition, from which
+	 * on the partition writes a single sorted data file instead of one spill file per subpartition.
+	 */
+	public static final String TASK_MANAGER_NETWORK_SORT_SHUFFLE_MIN_PARALLELISM = "taskmanager.network.sort-shuffle.min-parallelism";
+
 	/**
 	 * The config parameter defining the number of task slots of a task manager.
 	 */
@@ -716,6 +748,21 @@ public final class ConfigConstants {
 	 */
 	public static final String DEFAULT_TASK_MANAGER_NETWORK_DEFAULT_IO_MODE = "sync";
 
+	/**
+	 * Network buffers are not compressed by default.
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_NETWORK_COMPRESSION_ENABLED = false;
+
+	/**
+	 * Spilled intermediate results are not compressed by default.
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_NETWORK_SPILL_COMPRESSION_ENABLED = false;
+
+	/**
+	 * Blocking intermediate results spill per subpartition by default.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_NETWORK_SORT_SHUFFLE_MIN_PARALLELISM = Integer.MAX_VALUE;
+
 	/**
 	 * Flag indicating whether to start a thread, which repeatedly logs the memory usage of the JVM.
 	 */
@@ -736,6 +783,17 @@ public final class ConfigConstants {
 	 */
 	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_PRE_ALLOCATE = false;
 
+	/**
+	 * The default setting for drawing network buffers and off-heap managed memory from one pool
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_UNIFIED_POOL = true;
+
+	/**
+	 * The default fraction of additional memory in the unified memory pool, which floats between the
+	 * network stack and the memory manager
+	 */
+	public static final float DEFAULT_TASK_MANAGER_MEMORY_UNIFIED_POOL_FLOATING_FRACTION = 0.0f;
+
 	/**
 	 * The default interval (in milliseconds) to wait between consecutive task cancellation attempts (= 30000 msec).
 	 * */
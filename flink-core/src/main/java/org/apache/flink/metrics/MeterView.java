@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.metrics;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link Meter} that computes the rate of the events counted by a {@link Counter} over a
+ * sliding window of time.
+ *
+ * <p>Marking events only increments the counter, so the meter adds no overhead to the measured
+ * code beyond that of the counter. The rate is computed when it is requested: the meter samples
+ * the counter at most once per second into a ring of time buckets that spans the window, and
+ * divides the events counted since the oldest sample within the window by the time elapsed since
+ * then. The first rate is computed against the time at which the meter was created.
+ *
+ * <p>Events may be marked concurrently to requesting the rate, as long as the counter allows its
+ * count to be read concurrently to it being incremented. The events themselves must be marked
+ * by a single thread if the counter is not thread-safe, like the {@link SimpleCounter}.
+ */
+@PublicEvolving
+public class MeterView implements Meter {
+
+	/** The default time span of the window, in seconds */
+	public static final int DEFAULT_TIME_SPAN_IN_SECONDS = 60;
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	/** The counter holding the marked events */
+	private final Counter counter;
+
+	/** The time span of the window, in nanoseconds */
+	private final long timeSpanNanos;
+
+	/** The times of the samples in the ring, in nanoseconds */
+	private final long[] sampleTimes;
+
+	/** The counts of the samples in the ring */
+	private final long[] sampleCounts;
+
+	/** The position of the most recent sample in the ring */
+	private int newest;
+
+	/** The number of samples in the ring */
+	private int numSamples;
+
+	public MeterView() {
+		this(DEFAULT_TIME_SPAN_IN_SECONDS);
+	}
+
+	public MeterView(int timeSpanInSeconds) {
+		this(new SimpleCounter(), timeSpanInSeconds);
+	}
+
+	public MeterView(Counter counter) {
+		this(counter, DEFAULT_TIME_SPAN_IN_SECONDS);
+	}
+
+	public MeterView(Counter counter, int timeSpanInSeconds) {
+		checkArgument(timeSpanInSeconds > 0, "The time span must be positive.");
+
+		this.counter = checkNotNull(counter);
+		this.timeSpanNanos = timeSpanInSeconds * NANOS_PER_SECOND;
+
+		// samples are taken at least one second apart, so one sample more than the window has
+		// seconds always reaches back over the full window
+		this.sampleTimes = new long[timeSpanInSeconds + 1];
+		this.sampleCounts = new long[timeSpanInSeconds + 1];
+
+		this.sampleTimes[0] = nanoTime();
+		this.sampleCounts[0] = counter.getCount();
+		this.numSamples = 1;
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void markEvent() {
+		counter.inc();
+	}
+
+	@Override
+	public void markEvent(long n) {
+		counter.inc(n);
+	}
+
+	@Override
+	public long getCount() {
+		return counter.getCount();
+	}
+
+	@Override
+	public synchronized double getRate() {
+		final long now = nanoTime();
+		final long count = counter.getCount();
+
+		if (now - sampleTimes[newest] >= NANOS_PER_SECOND) {
+			newest = (newest + 1) % sampleTimes.length;
+			sampleTimes[newest] = now;
+			sampleCounts[newest] = count;
+			numSamples = Math.min(numSamples + 1, sampleTimes.length);
+		}
+
+		// the rate is computed against the most recent sample that is at least as old as the
+		// window, or against the oldest sample if none is old enough yet
+		int reference = newest;
+		for (int i = 1; i < numSamples; i++) {
+			reference = reference == 0 ? sampleTimes.length - 1 : reference - 1;
+			if (now - sampleTimes[reference] >= timeSpanNanos) {
+				break;
+			}
+		}
+
+		final long elapsed = now - sampleTimes[reference];
+		if (elapsed <= 0) {
+			return 0.0;
+		}
+
+		return (count - sampleCounts[reference]) * (double) NANOS_PER_SECOND / elapsed;
+	}
+
+	/**
+	 * Returns the current value of the time source that the rate is computed with.
+	 * Overridden by tests to control the time.
+	 */
+	long nanoTime() {
+		return System.nanoTime();
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.metrics;
+
+import java.util.Arrays;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * {@link HistogramStatistics} computed from a sample of values. Quantiles are interpolated
+ * linearly between the two closest values of the sample.
+ */
+class SampleHistogramStatistics extends HistogramStatistics {
+
+	/** The sorted values of the sample */
+	private final long[] values;
+
+	/**
+	 * Creates the statistics for the given sample. The array is sorted in place and must not be
+	 * modified afterwards.
+	 *
+	 * @param values Values of the sample
+	 */
+	SampleHistogramStatistics(long[] values) {
+		Arrays.sort(values);
+		this.values = values;
+	}
+
+	@Override
+	public double getQuantile(double quantile) {
+		checkArgument(quantile >= 0.0 && quantile <= 1.0, "The quantile must be in [0, 1].");
+
+		if (values.length == 0) {
+			return 0.0;
+		}
+
+		final double position = quantile * (values.length + 1);
+		final int index = (int) position;
+
+		if (index < 1) {
+			return values[0];
+		}
+		if (index >= values.length) {
+			return values[values.length - 1];
+		}
+
+		final long lower = values[index - 1];
+		final long upper = values[index];
+		return lower + (position - index) * (upper - lower);
+	}
+
+	@Override
+	public long[] getValues() {
+		return Arrays.copyOf(values, values.length);
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	@Override
+	public double getMean() {
+		if (values.length == 0) {
+			return 0.0;
+		}
+
+		double sum = 0.0;
+		for (long value : values) {
+			sum += value;
+		}
+		return sum / values.length;
+	}
+
+	@Override
+	public double getStdDev() {
+		if (values.length <= 1) {
+			return 0.0;
+		}
+
+		final double mean = getMean();
+		double sum = 0.0;
+		for (long value : values) {
+			final double diff = value - mean;
+			sum += diff * diff;
+		}
+		return Math.sqrt(sum / (values.length - 1));
+	}
+
+	@Override
+	public long getMax() {
+		return values.length == 0 ? 0L : values[values.length - 1];
+	}
+
+	@Override
+	public long getMin() {
+		return values.length == 0 ? 0L : values[0];
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.metrics;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A {@link Histogram} over the most recently recorded values.
+ *
+ * <p>The values are kept in a fixed size ring, so the histogram never allocates after it was
+ * created. Recording a value is lock-free: it claims a slot in the ring by incrementing an
+ * atomic counter and writes the value into the slot. Values may therefore be recorded by
+ * multiple threads, and concurrently to computing the statistics.
+ *
+ * <p>The statistics are computed from a copy of the ring. If values are recorded while the copy
+ * is taken, the copy may contain a value that was overwritten, or miss a value whose slot was
+ * claimed but not yet written. This is sufficient for monitoring purposes.
+ */
+@PublicEvolving
+public class SlidingWindowHistogram implements Histogram {
+
+	/** The default number of values in the window */
+	public static final int DEFAULT_WINDOW_SIZE = 1024;
+
+	/** The ring holding the most recent values */
+	private final AtomicLongArray values;
+
+	/** The number of values recorded so far, also determines the next slot in the ring */
+	private final AtomicLong count = new AtomicLong();
+
+	public SlidingWindowHistogram() {
+		this(DEFAULT_WINDOW_SIZE);
+	}
+
+	public SlidingWindowHistogram(int windowSize) {
+		checkArgument(windowSize > 0, "The window size must be positive.");
+		this.values = new AtomicLongArray(windowSize);
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void update(long value) {
+		final long position = count.getAndIncrement();
+		values.lazySet((int) (position % values.length()), value);
+	}
+
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+
+	@Override
+	public HistogramStatistics getStatistics() {
+		final int size = (int) Math.min(count.get(), values.length());
+		final long[] sample = new long[size];
+
+		for (int i = 0; i < size; i++) {
+			sample[i] = values.get(i);
+		}
+
+		return new SampleHistogramStatistics(sample);
+	}
+}
@@ -22,6 +22,7 @@ import org.apache.flink.annotation.Internal;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.Metric;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.MetricRegistry;
@@ -184,6 +185,17 @@ public abstract class AbstractMetricGroup implements MetricGroup {
 		return histogram;
 	}
 
+	@Override
+	public <M extends Meter> M meter(int name, M meter) {
+		return meter(String.valueOf(name), meter);
+	}
+
+	@Override
+	public <M extends Meter> M meter(String name, M meter) {
+		addMetric(name, meter);
+		return meter;
+	}
+
 	/**
 	 * Adds the given metric to the group and registers it at the registry, if the group
 	 * is not yet closed, and if no metric with the same name has been registered before.
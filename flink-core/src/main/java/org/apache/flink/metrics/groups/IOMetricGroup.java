@@ -19,10 +19,18 @@
 package org.apache.flink.metrics.groups;
 
 import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Meter;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.MetricRegistry;
 
 /**
  * Special {@link org.apache.flink.metrics.MetricGroup} that contains shareable pre-defined IO-related metrics.
+ *
+ * <p>Besides the counters for the records and bytes that the task reads and writes, the group
+ * registers a {@link MeterView} per counter that reports the respective rate per second. The
+ * network stack registers the usage of the task's buffer pools in the {@link #getBuffersGroup()
+ * buffers group}.
  */
 public class IOMetricGroup extends AbstractMetricGroup {
 
@@ -30,12 +38,36 @@ public class IOMetricGroup extends AbstractMetricGroup {
 	private final Counter numBytesInLocal;
 	private final Counter numBytesInRemote;
 
+	private final Counter numRecordsIn;
+	private final Counter numRecordsOut;
+
+	private final Meter numBytesOutRate;
+	private final Meter numBytesInRateLocal;
+	private final Meter numBytesInRateRemote;
+
+	private final Meter numRecordsInRate;
+	private final Meter numRecordsOutRate;
+
+	private final MetricGroup buffers;
+
 	public IOMetricGroup(MetricRegistry registry, TaskMetricGroup parent) {
 		super(registry, parent.getScopeComponents());
 		this.numBytesOut = parent.counter("numBytesOut");
 
 		this.numBytesInLocal = parent.counter("numBytesInLocal");
 		this.numBytesInRemote = parent.counter("numBytesInRemote");
+
+		this.numRecordsIn = parent.counter("numRecordsIn");
+		this.numRecordsOut = parent.counter("numRecordsOut");
+
+		this.numBytesOutRate = parent.meter("numBytesOutPerSecond", new MeterView(numBytesOut));
+		this.numBytesInRateLocal = parent.meter("numBytesInLocalPerSecond", new MeterView(numBytesInLocal));
+		this.numBytesInRateRemote = parent.meter("numBytesInRemotePerSecond", new MeterView(numBytesInRemote));
+
+		this.numRecordsInRate = parent.meter("numRecordsInPerSecond", new MeterView(numRecordsIn));
+		this.numRecordsOutRate = parent.meter("numRecordsOutPerSecond", new MeterView(numRecordsOut));
+
+		this.buffers = parent.addGroup("buffers");
 	}
 
 	public Counter getBytesOutCounter() {
@@ -49,4 +81,42 @@ public class IOMetricGroup extends AbstractMetricGroup {
 	public Counter getNumBytesInRemoteCounter() {
 		return numBytesInRemote;
 	}
+
+	public Counter getNumRecordsInCounter() {
+		return numRecordsIn;
+	}
+
+	public Counter getNumRecordsOutCounter() {
+		return numRecordsOut;
+	}
+
+	public Meter getNumBytesOutRateMeter() {
+		return numBytesOutRate;
+	}
+
+	public Meter getNumBytesInLocalRateMeter() {
+		return numBytesInRateLocal;
+	}
+
+	public Meter getNumBytesInRemoteRateMeter() {
+		return numBytesInRateRemote;
+	}
+
+	public Meter getNumRecordsInRateMeter() {
+		return numRecordsInRate;
+	}
+
+	public Meter getNumRecordsOutRateMeter() {
+		return numRecordsOutRate;
+	}
+
+	/**
+	 * Returns the group for the metrics of the task's network buffers, for example the usage
+	 * of its input and output buffer pools.
+	 *
+	 * @return group for the metrics of the task's network buffers
+	 */
+	public MetricGroup getBuffersGroup() {
+		return buffers;
+	}
 }
@@ -22,6 +22,7 @@ import org.apache.flink.annotation.Internal;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.SimpleCounter;
 
@@ -82,6 +83,16 @@ public class UnregisteredMetricsGroup implements MetricGroup {
 		return histogram;
 	}
 
+	@Override
+	public <M extends Meter> M meter(int name, M meter) {
+		return meter;
+	}
+
+	@Override
+	public <M extends Meter> M meter(String name, M meter) {
+		return meter;
+	}
+
 	@Override
 	public MetricGroup addGroup(int name) {
 		return addGroup(String.valueOf(name));
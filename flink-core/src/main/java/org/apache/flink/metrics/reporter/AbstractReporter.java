@@ -22,6 +22,7 @@ import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.Metric;
 import org.apache.flink.metrics.groups.AbstractMetricGroup;
 import org.slf4j.Logger;
@@ -40,6 +41,7 @@ public abstract class AbstractReporter implements MetricReporter {
 	protected final Map<Gauge<?>, String> gauges = new HashMap<>();
 	protected final Map<Counter, String> counters = new HashMap<>();
 	protected final Map<Histogram, String> histograms = new HashMap<>();
+	protected final Map<Meter, String> meters = new HashMap<>();
 
 	@Override
 	public void notifyOfAddedMetric(Metric metric, String metricName, AbstractMetricGroup group) {
@@ -52,6 +54,8 @@ public abstract class AbstractReporter implements MetricReporter {
 				gauges.put((Gauge<?>) metric, name);
 			} else if (metric instanceof Histogram) {
 				histograms.put((Histogram) metric, name);
+			} else if (metric instanceof Meter) {
+				meters.put((Meter) metric, name);
 			} else {
 				log.warn("Cannot add unknown metric type {}. This indicates that the reporter " +
 					"does not support this metric type.", metric.getClass().getName());
@@ -68,6 +72,8 @@ public abstract class AbstractReporter implements MetricReporter {
 				gauges.remove(metric);
 			} else if (metric instanceof Histogram) {
 				histograms.remove(metric);
+			} else if (metric instanceof Meter) {
+				meters.remove(metric);
 			} else {
 				log.warn("Cannot remove unknown metric type {}. This indicates that the reporter " +
 					"does not support this metric type.", metric.getClass().getName());
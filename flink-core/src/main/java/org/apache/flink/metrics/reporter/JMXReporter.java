@@ -23,6 +23,7 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.Metric;
 import org.apache.flink.metrics.groups.AbstractMetricGroup;
 import org.apache.flink.util.NetUtils;
@@ -153,6 +154,8 @@ public class JMXReporter implements MetricReporter {
 			jmxMetric = new JmxCounter((Counter) metric);
 		} else if (metric instanceof Histogram) {
 			jmxMetric = new JmxHistogram((Histogram) metric);
+		} else if (metric instanceof Meter) {
+			jmxMetric = new JmxMeter((Meter) metric);
 		} else {
 			LOG.error("Cannot add unknown metric type: {}. This indicates that the metric type " +
 				"is not supported by this reporter.", metric.getClass().getName());
@@ -409,6 +412,31 @@ public class JMXReporter implements MetricReporter {
 		}
 	}
 
+	public interface JmxMeterMBean extends MetricMBean {
+		double getRate();
+
+		long getCount();
+	}
+
+	private static class JmxMeter extends AbstractBean implements JmxMeterMBean {
+
+		private final Meter meter;
+
+		JmxMeter(Meter meter) {
+			this.meter = meter;
+		}
+
+		@Override
+		public double getRate() {
+			return meter.getRate();
+		}
+
+		@Override
+		public long getCount() {
+			return meter.getCount();
+		}
+	}
+
 	/**
 	 * JMX Server implementation that JMX clients can connect to.
 	 *
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.java.typeutils.runtime;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.operators.Keys.ExpressionKeys;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.ComparatorTestBase;
+import org.apache.flink.api.common.typeutils.CompositeType;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.typeutils.TypeExtractor;
+import org.apache.flink.api.java.typeutils.runtime.GeneratedPojoSerializerTest.NestedPojo;
+import org.apache.flink.api.java.typeutils.runtime.GeneratedPojoSerializerTest.TestPojo;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A test for the {@link PojoComparator} with generated code for the key fields.
+ */
+public class GeneratedPojoComparatorTest extends ComparatorTestBase<TestPojo> {
+
+	private final TypeInformation<TestPojo> type = TypeExtractor.getForClass(TestPojo.class);
+
+	private final TestPojo[] data = new TestPojo[] {
+		new TestPojo(1, 5L, "x", 1.0, true, "a", null, null),
+		new TestPojo(2, null, "y", 2.0, false, "a", new int[] {1}, new NestedPojo(1L, "z")),
+		new TestPojo(-5, 3L, "z", 3.0, true, "b", null, null),
+		new TestPojo(0, 3L, null, 4.0, true, "b", null, null),
+		new TestPojo(-100, 1L, "w", 5.0, false, "c", null, null)
+	};
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected TypeComparator<TestPojo> createComparator(boolean ascending) {
+		CompositeType<TestPojo> cType = (CompositeType<TestPojo>) type;
+		ExpressionKeys<TestPojo> keys = new ExpressionKeys<>(new String[] {"label", "id"}, cType);
+		boolean[] orders = new boolean[keys.getNumberOfKeyFields()];
+		Arrays.fill(orders, ascending);
+
+		PojoComparator<TestPojo> comparator = (PojoComparator<TestPojo>)
+				cType.createComparator(keys.computeLogicalKeyPositions(), orders, 0, new ExecutionConfig());
+		assertTrue(comparator.isCodeGenerated());
+		return comparator;
+	}
+
+	@Override
+	protected TypeSerializer<TestPojo> createSerializer() {
+		return type.createSerializer(new ExecutionConfig());
+	}
+
+	@Override
+	protected TestPojo[] getSortedTestData() {
+		return data;
+	}
+}
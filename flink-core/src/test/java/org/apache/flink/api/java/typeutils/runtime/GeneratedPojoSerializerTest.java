@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.java.typeutils.runtime;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.SerializerTestBase;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.typeutils.TypeExtractor;
+import org.apache.flink.util.InstantiationUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A test for the {@link PojoSerializer} with generated code for the fields.
+ */
+public class GeneratedPojoSerializerTest extends SerializerTestBase<GeneratedPojoSerializerTest.TestPojo> {
+
+	private final TypeInformation<TestPojo> type = TypeExtractor.getForClass(TestPojo.class);
+
+	@Override
+	protected TypeSerializer<TestPojo> createSerializer() {
+		PojoSerializer<TestPojo> serializer = (PojoSerializer<TestPojo>) type.createSerializer(new ExecutionConfig());
+		assertTrue(serializer.isCodeGenerated());
+		return serializer;
+	}
+
+	@Override
+	protected int getLength() {
+		return -1;
+	}
+
+	@Override
+	protected Class<TestPojo> getTypeClass() {
+		return TestPojo.class;
+	}
+
+	@Override
+	protected TestPojo[] getTestData() {
+		return new TestPojo[] {
+				new TestPojo(1, 42L, "foo", 0.5, true, "bar", new int[] {1, 2, 3}, new NestedPojo(7L, "nested")),
+				new TestPojo(-17, null, null, -3.25, false, null, null, null),
+				new TestPojo(Integer.MAX_VALUE, Long.MIN_VALUE, "", Double.NaN, true, "baz", new int[0], new NestedPojo(0L, null))
+		};
+	}
+
+	/**
+	 * Checks that the generated code writes and reads the same format as the reflective code,
+	 * so that both can read the data written by the other, for example in checkpoints.
+	 */
+	@Test
+	public void testSameFormatAsReflection() throws Exception {
+		TypeSerializer<TestPojo> generated = createSerializer();
+		PojoSerializer<TestPojo> reflective = (PojoSerializer<TestPojo>)
+				type.createSerializer(new ExecutionConfig().disablePojoCodeGeneration());
+
+		assertFalse(reflective.isCodeGenerated());
+
+		for (TestPojo value : getTestData()) {
+			byte[] generatedBytes = InstantiationUtil.serializeToByteArray(generated, value);
+			byte[] reflectiveBytes = InstantiationUtil.serializeToByteArray(reflective, value);
+
+			assertArrayEquals(reflectiveBytes, generatedBytes);
+			deepEquals("Deserialized value is wrong.", value,
+					InstantiationUtil.deserializeFromByteArray(reflective, generatedBytes));
+			deepEquals("Deserialized value is wrong.", value,
+					InstantiationUtil.deserializeFromByteArray(generated, reflectiveBytes));
+		}
+	}
+
+	@Test
+	public void testCodeIsGeneratedAfterDeserialization() throws Exception {
+		PojoSerializer<TestPojo> serializer = (PojoSerializer<TestPojo>) createSerializer();
+		PojoSerializer<TestPojo> copy = InstantiationUtil.deserializeObject(
+				InstantiationUtil.serializeObject(serializer), getClass().getClassLoader());
+
+		assertTrue(copy.isCodeGenerated());
+		assertTrue(serializer.equals(copy));
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * POJO with public fields, and private fields with getters and setters.
+	 */
+	public static class TestPojo {
+
+		public int id;
+
+		public Long count;
+
+		public String name;
+
+		private double score;
+
+		private boolean valid;
+
+		private String label;
+
+		public int[] values;
+
+		public NestedPojo nested;
+
+		public TestPojo() {}
+
+		public TestPojo(int id, Long count, String name, double score, boolean valid, String label, int[] values, NestedPojo nested) {
+			this.id = id;
+			this.count = count;
+			this.name = name;
+			this.score = score;
+			this.valid = valid;
+			this.label = label;
+			this.values = values;
+			this.nested = nested;
+		}
+
+		public double getScore() {
+			return score;
+		}
+
+		public void setScore(double score) {
+			this.score = score;
+		}
+
+		public boolean isValid() {
+			return valid;
+		}
+
+		public void setValid(boolean valid) {
+			this.valid = valid;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public void setLabel(String label) {
+			this.label = label;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof TestPojo)) {
+				return false;
+			}
+			TestPojo other = (TestPojo) obj;
+			return id == other.id &&
+					Objects.equals(count, other.count) &&
+					Objects.equals(name, other.name) &&
+					Double.compare(score, other.score) == 0 &&
+					valid == other.valid &&
+					Objects.equals(label, other.label) &&
+					Arrays.equals(values, other.values) &&
+					Objects.equals(nested, other.nested);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(id, count, name, score, valid, label, Arrays.hashCode(values), nested);
+		}
+
+		@Override
+		public String toString() {
+			return "TestPojo(" + id + ", " + count + ", " + name + ", " + score + ", " + valid + ", " + label + ")";
+		}
+	}
+
+	/**
+	 * POJO nested in the {@link TestPojo}.
+	 */
+	public static class NestedPojo {
+
+		public long a;
+
+		public String b;
+
+		public NestedPojo() {}
+
+		public NestedPojo(long a, String b) {
+			this.a = a;
+			this.b = b;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof NestedPojo)) {
+				return false;
+			}
+			NestedPojo other = (NestedPojo) obj;
+			return a == other.a && Objects.equals(b, other.b);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(a, b);
+		}
+	}
+}
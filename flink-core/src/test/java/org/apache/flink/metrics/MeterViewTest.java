@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MeterViewTest {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	public void testMarkEvent() {
+		Counter counter = new SimpleCounter();
+		MeterView meter = new MeterView(counter);
+
+		meter.markEvent();
+		meter.markEvent(4);
+
+		assertEquals(5, meter.getCount());
+		assertEquals(5, counter.getCount());
+	}
+
+	@Test
+	public void testRateBeforeFirstSecond() {
+		ManualClockMeterView meter = new ManualClockMeterView(new SimpleCounter(), 10);
+
+		assertEquals(0.0, meter.getRate(), 0.0);
+
+		meter.markEvent(10);
+		meter.time = SECOND / 2;
+
+		assertEquals(20.0, meter.getRate(), 0.0);
+	}
+
+	@Test
+	public void testRateOverWindow() {
+		ManualClockMeterView meter = new ManualClockMeterView(new SimpleCounter(), 10);
+
+		// 100 events per second for 10 seconds, requesting the rate every second
+		for (int i = 1; i <= 10; i++) {
+			meter.markEvent(100);
+			meter.time = i * SECOND;
+			assertEquals(100.0, meter.getRate(), 0.0);
+		}
+
+		// no more events: the rate decays as the window slides past the events
+		meter.time = 15 * SECOND;
+		assertEquals(50.0, meter.getRate(), 0.0);
+
+		meter.time = 20 * SECOND;
+		assertEquals(0.0, meter.getRate(), 0.0);
+	}
+
+	@Test
+	public void testRateWithInfrequentRequests() {
+		ManualClockMeterView meter = new ManualClockMeterView(new SimpleCounter(), 5);
+
+		meter.markEvent(500);
+		meter.time = 50 * SECOND;
+
+		// the only sample is older than the window, the rate is computed against it
+		assertEquals(10.0, meter.getRate(), 0.0);
+
+		meter.markEvent(300);
+		meter.time = 60 * SECOND;
+
+		// the previous request is older than the window, the rate is computed against it
+		assertEquals(30.0, meter.getRate(), 0.0);
+	}
+
+	@Test
+	public void testRateOfSharedCounter() {
+		Counter counter = new SimpleCounter();
+		ManualClockMeterView meter = new ManualClockMeterView(counter, 60);
+
+		counter.inc(300);
+		meter.time = 3 * SECOND;
+
+		assertEquals(100.0, meter.getRate(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidTimeSpan() {
+		new MeterView(0);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static class ManualClockMeterView extends MeterView {
+
+		/** The current time in nanoseconds, zero when the meter is created */
+		long time;
+
+		ManualClockMeterView(Counter counter, int timeSpanInSeconds) {
+			super(counter, timeSpanInSeconds);
+		}
+
+		@Override
+		long nanoTime() {
+			return time;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SlidingWindowHistogramTest {
+
+	@Test
+	public void testEmptyHistogram() {
+		SlidingWindowHistogram histogram = new SlidingWindowHistogram(10);
+		HistogramStatistics statistics = histogram.getStatistics();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, statistics.size());
+		assertEquals(0.0, statistics.getMean(), 0.0);
+		assertEquals(0.0, statistics.getStdDev(), 0.0);
+		assertEquals(0.0, statistics.getQuantile(0.5), 0.0);
+		assertEquals(0, statistics.getMin());
+		assertEquals(0, statistics.getMax());
+	}
+
+	@Test
+	public void testStatistics() {
+		SlidingWindowHistogram histogram = new SlidingWindowHistogram(10);
+
+		for (int i = 10; i >= 1; i--) {
+			histogram.update(i);
+		}
+
+		HistogramStatistics statistics = histogram.getStatistics();
+
+		assertEquals(10, histogram.getCount());
+		assertEquals(10, statistics.size());
+		assertArrayEquals(new long[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, statistics.getValues());
+
+		assertEquals(1, statistics.getMin());
+		assertEquals(10, statistics.getMax());
+		assertEquals(5.5, statistics.getMean(), 1e-10);
+		assertEquals(3.0276503540974917, statistics.getStdDev(), 1e-10);
+
+		assertEquals(1.0, statistics.getQuantile(0.0), 1e-10);
+		assertEquals(5.5, statistics.getQuantile(0.5), 1e-10);
+		assertEquals(8.25, statistics.getQuantile(0.75), 1e-10);
+		assertEquals(10.0, statistics.getQuantile(0.99), 1e-10);
+		assertEquals(10.0, statistics.getQuantile(1.0), 1e-10);
+	}
+
+	@Test
+	public void testWindowSlides() {
+		SlidingWindowHistogram histogram = new SlidingWindowHistogram(5);
+
+		for (int i = 1; i <= 12; i++) {
+			histogram.update(i);
+		}
+
+		HistogramStatistics statistics = histogram.getStatistics();
+
+		assertEquals(12, histogram.getCount());
+		assertEquals(5, statistics.size());
+		assertArrayEquals(new long[] {8, 9, 10, 11, 12}, statistics.getValues());
+		assertEquals(8, statistics.getMin());
+		assertEquals(12, statistics.getMax());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidQuantile() {
+		SlidingWindowHistogram histogram = new SlidingWindowHistogram(5);
+		histogram.update(1);
+
+		histogram.getStatistics().getQuantile(1.5);
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		final int numThreads = 4;
+		final int numUpdates = 10_000;
+
+		final SlidingWindowHistogram histogram = new SlidingWindowHistogram(100);
+		final CountDownLatch start = new CountDownLatch(1);
+
+		List<Thread> threads = new ArrayList<>(numThreads);
+		for (int i = 0; i < numThreads; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int j = 0; j < numUpdates; j++) {
+						histogram.update(42);
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		HistogramStatistics statistics = histogram.getStatistics();
+
+		assertEquals(numThreads * numUpdates, histogram.getCount());
+		assertEquals(100, statistics.size());
+		assertEquals(42, statistics.getMin());
+		assertEquals(42, statistics.getMax());
+	}
+}
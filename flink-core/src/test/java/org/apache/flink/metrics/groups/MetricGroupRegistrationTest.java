@@ -22,6 +22,8 @@ import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Histogram;
 import org.apache.flink.metrics.HistogramStatistics;
+import org.apache.flink.metrics.Meter;
+import org.apache.flink.metrics.MeterView;
 import org.apache.flink.metrics.Metric;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.MetricRegistry;
@@ -78,6 +80,11 @@ public class MetricGroupRegistrationTest {
 
 		Assert.assertEquals(histogram, TestReporter1.lastPassedMetric);
 		assertEquals("histogram", TestReporter1.lastPassedName);
+
+		Meter meter = root.meter("meter", new MeterView());
+
+		Assert.assertEquals(meter, TestReporter1.lastPassedMetric);
+		assertEquals("meter", TestReporter1.lastPassedName);
 		registry.shutdown();
 	}
 
@@ -22,6 +22,7 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Histogram;
 import org.apache.flink.metrics.HistogramStatistics;
+import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.MetricRegistry;
 import org.apache.flink.metrics.groups.TaskManagerMetricGroup;
 import org.apache.flink.metrics.util.TestReporter;
@@ -236,6 +237,45 @@ public class JMXReporterTest extends TestLogger {
 		}
 	}
 
+	/**
+	 * Tests that meters are properly reported via the JMXReporter.
+	 */
+	@Test
+	public void testMeterReporting() throws Exception {
+		MetricRegistry registry = null;
+		String meterName = "meter";
+
+		try {
+			Configuration config = new Configuration();
+
+			registry = new MetricRegistry(config);
+
+			TaskManagerMetricGroup metricGroup = new TaskManagerMetricGroup(registry, "localhost", "tmId");
+
+			TestingMeter meter = new TestingMeter();
+
+			metricGroup.meter(meterName, meter);
+
+			MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+			ObjectName objectName = new ObjectName(JMXReporter.generateJmxName(meterName, metricGroup.getScopeComponents()));
+
+			MBeanInfo info = mBeanServer.getMBeanInfo(objectName);
+
+			MBeanAttributeInfo[] attributeInfos = info.getAttributes();
+
+			assertEquals(2, attributeInfos.length);
+
+			assertEquals(meter.getRate(), mBeanServer.getAttribute(objectName, "Rate"));
+			assertEquals(meter.getCount(), mBeanServer.getAttribute(objectName, "Count"));
+
+		} finally {
+			if (registry != null) {
+				registry.shutdown();
+			}
+		}
+	}
+
 	static class TestingHistogram implements Histogram {
 
 		@Override
@@ -288,4 +328,27 @@ public class JMXReporterTest extends TestLogger {
 			};
 		}
 	}
+
+	static class TestingMeter implements Meter {
+
+		@Override
+		public void markEvent() {
+
+		}
+
+		@Override
+		public void markEvent(long n) {
+
+		}
+
+		@Override
+		public double getRate() {
+			return 5;
+		}
+
+		@Override
+		public long getCount() {
+			return 100;
+		}
+	}
 }
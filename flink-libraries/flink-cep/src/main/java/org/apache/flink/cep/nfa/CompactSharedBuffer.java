@@ -0,0 +1,982 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.cep.nfa;
+
+import com.google.common.collect.LinkedHashMultimap;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Stack;
+
+/**
+ * A shared buffer implementation with the same semantics as the {@link SharedBuffer}, which keeps
+ * its entries and their relations in arrays instead of a graph of objects.
+ * <p>
+ * Every entry is identified by an integer id, which is the index of its key, value, timestamp and
+ * reference counter in the entry arrays. The ids of removed entries are kept in a free list and are
+ * reused by subsequently added entries. The versioned relations between the entries are stored as
+ * array-backed linked lists of edges, which refer to their target entries by id. An open
+ * addressing hash table of entry ids is used to look up the entry of a key, value, timestamp
+ * triple, such that no wrapper objects have to be created per entry.
+ * <p>
+ * The ids of the entries are additionally kept in a min-heap by timestamp, such that pruning only
+ * visits the expired entries. Every id has a generation, which is increased when its entry is
+ * removed. An edge remembers the generation of its target, so that edges to removed entries are
+ * recognized as stale and skipped, instead of searching all edges for them upon removal.
+ * <p>
+ * Since the entries and edges refer to each other by id, the buffer is serialized in a single pass
+ * over its entries without having to assign ids first. Upon deserialization, the entries are
+ * restored under their original ids.
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the values
+ */
+public class CompactSharedBuffer<K extends Serializable, V> implements SharedBufferAccessor<K, V>, Serializable {
+	private static final long serialVersionUID = -7335424011424003384L;
+
+	/** Id which denotes a missing entry or edge, as well as an unused index slot */
+	private static final int NONE = -1;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final TypeSerializer<V> valueSerializer;
+
+	/** Distinct keys of the buffer, entries refer to their key by its position in this list */
+	private transient ArrayList<K> keys;
+
+	// ------------------------------------------------------------------------
+	//  entries, indexed by entry id
+	// ------------------------------------------------------------------------
+
+	/** Key index of each entry, or NONE if the id is currently not in use */
+	private transient int[] entryKeys;
+
+	private transient Object[] entryValues;
+
+	private transient long[] entryTimestamps;
+
+	private transient int[] entryHashes;
+
+	private transient int[] referenceCounters;
+
+	/** First edge of each entry. For unused ids, this is the next id of the free list instead. */
+	private transient int[] firstEdges;
+
+	/** Generation of each id, which is increased whenever the entry of the id is removed */
+	private transient int[] entryGenerations;
+
+	/** Position of each entry in the timestamp heap */
+	private transient int[] heapPositions;
+
+	/** Number of ids which have been handed out so far, all higher ids have never been used */
+	private transient int entryLimit;
+
+	private transient int freeEntries;
+
+	private transient int numberEntries;
+
+	// ------------------------------------------------------------------------
+	//  edges, indexed by edge id
+	// ------------------------------------------------------------------------
+
+	private transient int[] edgeTargets;
+
+	/** Generation of the target of each edge at the time the edge was added */
+	private transient int[] edgeTargetGenerations;
+
+	private transient DeweyNumber[] edgeVersions;
+
+	/** Next edge of the same entry. For unused edges, this is the next edge of the free list. */
+	private transient int[] nextEdges;
+
+	private transient int edgeLimit;
+
+	private transient int freeEdges;
+
+	// ------------------------------------------------------------------------
+	//  hash index of the entries, using linear probing
+	// ------------------------------------------------------------------------
+
+	private transient int[] index;
+
+	// ------------------------------------------------------------------------
+	//  min-heap of the entry ids by timestamp, holding numberEntries ids
+	// ------------------------------------------------------------------------
+
+	private transient int[] timestampHeap;
+
+	public CompactSharedBuffer(final TypeSerializer<V> valueSerializer) {
+		this.valueSerializer = valueSerializer;
+
+		initialize(INITIAL_CAPACITY, INITIAL_CAPACITY);
+	}
+
+	@Override
+	public void put(
+			final K key,
+			final V value,
+			final long timestamp,
+			final K previousKey,
+			final V previousValue,
+			final long previousTimestamp,
+			final DeweyNumber version) {
+		int previousId = previousValue != null ? get(previousKey, previousValue, previousTimestamp) : NONE;
+
+		// sanity check whether we've found the previous element
+		if (previousId == NONE && previousValue != null) {
+			throw new IllegalStateException("Could not find previous shared buffer entry with " +
+				"key: " + previousKey + ", value: " + previousValue + " and timestamp: " +
+				previousTimestamp + ". This can indicate that the element belonging to the previous " +
+				"relation has been already pruned, even though you expect it to be still there.");
+		}
+
+		add(key, value, timestamp, previousId, version);
+	}
+
+	@Override
+	public void put(
+			final K key,
+			final V value,
+			final long timestamp,
+			final DeweyNumber version) {
+		add(key, value, timestamp, NONE, version);
+	}
+
+	/**
+	 * Checks whether the given key, value, timestamp triple is contained in the shared buffer
+	 *
+	 * @param key Key of the value
+	 * @param value Value
+	 * @param timestamp Timestamp of the value
+	 * @return Whether a value with the given timestamp is registered under the given key
+	 */
+	public boolean contains(final K key, final V value, final long timestamp) {
+		return get(key, value, timestamp) != NONE;
+	}
+
+	public boolean isEmpty() {
+		return numberEntries == 0;
+	}
+
+	/**
+	 * Deletes all entries which have expired with respect to given pruning timestamp. The expired
+	 * entries are taken from the timestamp heap, so pruning costs nothing if no entry has expired.
+	 * Edges of the remaining entries which point to expired entries become stale and are skipped.
+	 *
+	 * @param pruningTimestamp The time which is used for pruning. All elements whose timestamp is
+	 *                         lower than the pruning timestamp will be removed.
+	 */
+	@Override
+	public void prune(long pruningTimestamp) {
+		while (numberEntries > 0 && entryTimestamps[timestampHeap[0]] <= pruningTimestamp) {
+			freeEntry(timestampHeap[0]);
+		}
+	}
+
+	@Override
+	public Collection<LinkedHashMultimap<K, V>> extractPatterns(
+			final K key,
+			final V value,
+			final long timestamp,
+			final DeweyNumber version) {
+		Collection<LinkedHashMultimap<K, V>> result = new ArrayList<>();
+
+		// stack to remember the current extraction states
+		Stack<ExtractionState> extractionStates = new Stack<>();
+
+		// get the starting shared buffer entry for the previous relation
+		int entry = get(key, value, timestamp);
+
+		if (entry != NONE) {
+			extractionStates.add(new ExtractionState(entry, version, new IntStack()));
+
+			// use a depth first search to reconstruct the previous relations
+			while (!extractionStates.isEmpty()) {
+				ExtractionState extractionState = extractionStates.pop();
+				DeweyNumber currentVersion = extractionState.version;
+				// current path of the depth first search
+				IntStack currentPath = extractionState.path;
+
+				// termination criterion
+				if (currentVersion.length() == 1) {
+					LinkedHashMultimap<K, V> completePath = LinkedHashMultimap.create();
+
+					while (!currentPath.isEmpty()) {
+						int currentEntry = currentPath.pop();
+
+						completePath.put(keys.get(entryKeys[currentEntry]), value(currentEntry));
+					}
+
+					result.add(completePath);
+				} else {
+					int currentEntry = extractionState.entry;
+
+					// append state to the path
+					currentPath.push(currentEntry);
+
+					boolean firstMatch = true;
+					for (int edge = nextLiveEdge(firstEdges[currentEntry]); edge != NONE; edge = nextLiveEdge(nextEdges[edge])) {
+						// we can only proceed if the current version is compatible to the version
+						// of this previous relation
+						if (currentVersion.isCompatibleWith(edgeVersions[edge])) {
+							if (firstMatch) {
+								// for the first match we don't have to copy the current path
+								extractionStates.push(new ExtractionState(edgeTargets[edge], edgeVersions[edge], currentPath));
+								firstMatch = false;
+							} else {
+								extractionStates.push(new ExtractionState(edgeTargets[edge], edgeVersions[edge], currentPath.copy()));
+							}
+						}
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	public void lock(final K key, final V value, final long timestamp) {
+		int entry = get(key, value, timestamp);
+
+		if (entry != NONE) {
+			referenceCounters[entry]++;
+		}
+	}
+
+	@Override
+	public void release(final K key, final V value, final long timestamp) {
+		int entry = get(key, value, timestamp);
+
+		if (entry != NONE) {
+			decreaseReferenceCounter(entry);
+		}
+	}
+
+	@Override
+	public void remove(final K key, final V value, final long timestamp) {
+		int entry = get(key, value, timestamp);
+
+		if (entry != NONE) {
+			IntStack entriesToRemove = new IntStack();
+			entriesToRemove.push(entry);
+
+			while (!entriesToRemove.isEmpty()) {
+				int currentEntry = entriesToRemove.pop();
+
+				// an entry can be pushed several times if it was the target of several removed entries
+				if (entryKeys[currentEntry] != NONE && referenceCounters[currentEntry] == 0) {
+					for (int edge = nextLiveEdge(firstEdges[currentEntry]); edge != NONE; edge = nextLiveEdge(nextEdges[edge])) {
+						int target = edgeTargets[edge];
+
+						if (target != NONE) {
+							decreaseReferenceCounter(target);
+							entriesToRemove.push(target);
+						}
+					}
+
+					freeEntry(currentEntry);
+				}
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  entry and edge management
+	// ------------------------------------------------------------------------
+
+	private void initialize(final int entryCapacity, final int edgeCapacity) {
+		keys = new ArrayList<>();
+
+		entryKeys = new int[entryCapacity];
+		Arrays.fill(entryKeys, NONE);
+		entryValues = new Object[entryCapacity];
+		entryTimestamps = new long[entryCapacity];
+		entryHashes = new int[entryCapacity];
+		referenceCounters = new int[entryCapacity];
+		firstEdges = new int[entryCapacity];
+		entryGenerations = new int[entryCapacity];
+		heapPositions = new int[entryCapacity];
+		entryLimit = 0;
+		freeEntries = NONE;
+		numberEntries = 0;
+
+		edgeTargets = new int[edgeCapacity];
+		edgeTargetGenerations = new int[edgeCapacity];
+		edgeVersions = new DeweyNumber[edgeCapacity];
+		nextEdges = new int[edgeCapacity];
+		edgeLimit = 0;
+		freeEdges = NONE;
+
+		index = new int[indexCapacity(entryCapacity)];
+		Arrays.fill(index, NONE);
+
+		timestampHeap = new int[entryCapacity];
+	}
+
+	/**
+	 * Adds the given value to the buffer, if it is not yet contained, and links it to the given
+	 * previous entry. Like the {@link SharedBuffer}, the previous entry is referenced once more
+	 * for every put, even if the relation already existed.
+	 */
+	private void add(final K key, final V value, final long timestamp, final int previousId, final DeweyNumber version) {
+		int keyIndex = keys.indexOf(key);
+
+		if (keyIndex == NONE) {
+			keyIndex = keys.size();
+			keys.add(key);
+		}
+
+		int hash = hash(keyIndex, value, timestamp);
+		int entry = find(keyIndex, value, timestamp, hash);
+
+		if (entry == NONE) {
+			entry = allocateEntry(keyIndex, value, timestamp, hash);
+		}
+
+		if (previousId != NONE) {
+			referenceCounters[previousId]++;
+		}
+
+		removeStaleEdges(entry);
+
+		// the edges of an entry form a set
+		for (int edge = firstEdges[entry]; edge != NONE; edge = nextEdges[edge]) {
+			if (edgeTargets[edge] == previousId && edgeVersions[edge].equals(version)) {
+				return;
+			}
+		}
+
+		int edge = allocateEdge();
+		edgeTargets[edge] = previousId;
+		edgeTargetGenerations[edge] = previousId != NONE ? entryGenerations[previousId] : 0;
+		edgeVersions[edge] = version;
+		nextEdges[edge] = firstEdges[entry];
+		firstEdges[entry] = edge;
+	}
+
+	private int get(final K key, final V value, final long timestamp) {
+		int keyIndex = keys.indexOf(key);
+
+		if (keyIndex == NONE) {
+			return NONE;
+		} else {
+			return find(keyIndex, value, timestamp, hash(keyIndex, value, timestamp));
+		}
+	}
+
+	private int find(final int keyIndex, final V value, final long timestamp, final int hash) {
+		int mask = index.length - 1;
+
+		for (int slot = hash & mask; index[slot] != NONE; slot = (slot + 1) & mask) {
+			int entry = index[slot];
+
+			if (entryHashes[entry] == hash &&
+				entryKeys[entry] == keyIndex &&
+				entryTimestamps[entry] == timestamp &&
+				value.equals(entryValues[entry])) {
+				return entry;
+			}
+		}
+
+		return NONE;
+	}
+
+	private int allocateEntry(final int keyIndex, final V value, final long timestamp, final int hash) {
+		int entry;
+
+		if (freeEntries != NONE) {
+			entry = freeEntries;
+			freeEntries = firstEdges[entry];
+		} else {
+			if (entryLimit == entryKeys.length) {
+				growEntries(entryKeys.length * 2);
+			}
+
+			entry = entryLimit++;
+		}
+
+		entryKeys[entry] = keyIndex;
+		entryValues[entry] = value;
+		entryTimestamps[entry] = timestamp;
+		entryHashes[entry] = hash;
+		referenceCounters[entry] = 0;
+		firstEdges[entry] = NONE;
+
+		int heapPosition = numberEntries++;
+		timestampHeap[heapPosition] = entry;
+		siftUp(heapPosition);
+
+		if (indexCapacity(numberEntries) > index.length) {
+			rebuildIndex(indexCapacity(numberEntries));
+		} else {
+			insertIntoIndex(entry);
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Removes the given entry together with its edges. The id of the entry is put on the free list,
+	 * and its generation is increased, such that the edges which point to it become stale.
+	 */
+	private void freeEntry(final int entry) {
+		int edge = firstEdges[entry];
+
+		while (edge != NONE) {
+			int nextEdge = nextEdges[edge];
+			freeEdge(edge);
+			edge = nextEdge;
+		}
+
+		removeFromIndex(entry);
+		removeFromHeap(entry);
+
+		entryKeys[entry] = NONE;
+		entryValues[entry] = null;
+		entryGenerations[entry]++;
+		firstEdges[entry] = freeEntries;
+		freeEntries = entry;
+	}
+
+	/**
+	 * Returns whether the given edge points to an entry which has been removed since the edge was
+	 * added. The id of the target may have been reused by another entry in the meantime.
+	 */
+	private boolean isStale(final int edge) {
+		int target = edgeTargets[edge];
+
+		return target != NONE && edgeTargetGenerations[edge] != entryGenerations[target];
+	}
+
+	/**
+	 * Returns the given edge, or the next one of the same entry if it is stale.
+	 */
+	private int nextLiveEdge(int edge) {
+		while (edge != NONE && isStale(edge)) {
+			edge = nextEdges[edge];
+		}
+
+		return edge;
+	}
+
+	private void removeStaleEdges(final int entry) {
+		int previousEdge = NONE;
+		int edge = firstEdges[entry];
+
+		while (edge != NONE) {
+			int nextEdge = nextEdges[edge];
+
+			if (isStale(edge)) {
+				if (previousEdge == NONE) {
+					firstEdges[entry] = nextEdge;
+				} else {
+					nextEdges[previousEdge] = nextEdge;
+				}
+
+				freeEdge(edge);
+			} else {
+				previousEdge = edge;
+			}
+
+			edge = nextEdge;
+		}
+	}
+
+	private int allocateEdge() {
+		int edge;
+
+		if (freeEdges != NONE) {
+			edge = freeEdges;
+			freeEdges = nextEdges[edge];
+		} else {
+			if (edgeLimit == edgeTargets.length) {
+				int capacity = edgeTargets.length * 2;
+
+				edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+				edgeTargetGenerations = Arrays.copyOf(edgeTargetGenerations, capacity);
+				edgeVersions = Arrays.copyOf(edgeVersions, capacity);
+				nextEdges = Arrays.copyOf(nextEdges, capacity);
+			}
+
+			edge = edgeLimit++;
+		}
+
+		return edge;
+	}
+
+	private void freeEdge(final int edge) {
+		edgeVersions[edge] = null;
+		nextEdges[edge] = freeEdges;
+		freeEdges = edge;
+	}
+
+	private void growEntries(final int capacity) {
+		int oldCapacity = entryKeys.length;
+
+		entryKeys = Arrays.copyOf(entryKeys, capacity);
+		Arrays.fill(entryKeys, oldCapacity, capacity, NONE);
+		entryValues = Arrays.copyOf(entryValues, capacity);
+		entryTimestamps = Arrays.copyOf(entryTimestamps, capacity);
+		entryHashes = Arrays.copyOf(entryHashes, capacity);
+		referenceCounters = Arrays.copyOf(referenceCounters, capacity);
+		firstEdges = Arrays.copyOf(firstEdges, capacity);
+		entryGenerations = Arrays.copyOf(entryGenerations, capacity);
+		heapPositions = Arrays.copyOf(heapPositions, capacity);
+		timestampHeap = Arrays.copyOf(timestampHeap, capacity);
+	}
+
+	private void decreaseReferenceCounter(final int entry) {
+		if (referenceCounters[entry] > 0) {
+			referenceCounters[entry]--;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private V value(final int entry) {
+		return (V) entryValues[entry];
+	}
+
+	// ------------------------------------------------------------------------
+	//  hash index
+	// ------------------------------------------------------------------------
+
+	private static int hash(final int keyIndex, final Object value, final long timestamp) {
+		int hash = 31 * (31 * keyIndex + value.hashCode()) + (int) (timestamp ^ (timestamp >>> 32));
+
+		// spread the higher bits, because the index only uses the lower bits
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the index capacity for the given number of entries, which keeps the load factor of
+	 * the index at or below 0.5.
+	 */
+	private static int indexCapacity(final int numberEntries) {
+		return Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(numberEntries, 1) * 2 - 1) << 1);
+	}
+
+	private void rebuildIndex(final int capacity) {
+		index = new int[capacity];
+		Arrays.fill(index, NONE);
+
+		for (int entry = 0; entry < entryLimit; entry++) {
+			if (entryKeys[entry] != NONE) {
+				insertIntoIndex(entry);
+			}
+		}
+	}
+
+	private void insertIntoIndex(final int entry) {
+		int mask = index.length - 1;
+		int slot = entryHashes[entry] & mask;
+
+		while (index[slot] != NONE) {
+			slot = (slot + 1) & mask;
+		}
+
+		index[slot] = entry;
+	}
+
+	/**
+	 * Removes the given entry from the index. The subsequent entries of the probe sequence are
+	 * shifted back into the freed slot if they would otherwise not be found anymore.
+	 */
+	private void removeFromIndex(final int entry) {
+		int mask = index.length - 1;
+		int slot = entryHashes[entry] & mask;
+
+		while (index[slot] != entry) {
+			slot = (slot + 1) & mask;
+		}
+
+		int next = (slot + 1) & mask;
+
+		while (index[next] != NONE) {
+			int home = entryHashes[index[next]] & mask;
+
+			// the entry can be moved if the freed slot lies between its home slot and its slot
+			if (((next - home) & mask) >= ((next - slot) & mask)) {
+				index[slot] = index[next];
+				slot = next;
+			}
+
+			next = (next + 1) & mask;
+		}
+
+		index[slot] = NONE;
+	}
+
+	// ------------------------------------------------------------------------
+	//  timestamp heap
+	// ------------------------------------------------------------------------
+
+	private void removeFromHeap(final int entry) {
+		int position = heapPositions[entry];
+		int last = --numberEntries;
+
+		if (position != last) {
+			// move the last entry into the gap and restore the heap property
+			timestampHeap[position] = timestampHeap[last];
+			heapPositions[timestampHeap[position]] = position;
+
+			siftDown(position);
+			siftUp(position);
+		}
+	}
+
+	private void siftUp(int position) {
+		final int entry = timestampHeap[position];
+		final long timestamp = entryTimestamps[entry];
+
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			int parentEntry = timestampHeap[parent];
+
+			if (entryTimestamps[parentEntry] <= timestamp) {
+				break;
+			}
+
+			timestampHeap[position] = parentEntry;
+			heapPositions[parentEntry] = position;
+			position = parent;
+		}
+
+		timestampHeap[position] = entry;
+		heapPositions[entry] = position;
+	}
+
+	private void siftDown(int position) {
+		final int entry = timestampHeap[position];
+		final long timestamp = entryTimestamps[entry];
+		final int half = numberEntries >>> 1;
+
+		while (position < half) {
+			int child = 2 * position + 1;
+			int right = child + 1;
+
+			if (right < numberEntries && entryTimestamps[timestampHeap[right]] < entryTimestamps[timestampHeap[child]]) {
+				child = right;
+			}
+
+			int childEntry = timestampHeap[child];
+
+			if (timestamp <= entryTimestamps[childEntry]) {
+				break;
+			}
+
+			timestampHeap[position] = childEntry;
+			heapPositions[childEntry] = position;
+			position = child;
+		}
+
+		timestampHeap[position] = entry;
+		heapPositions[entry] = position;
+	}
+
+	// ------------------------------------------------------------------------
+	//  serialization
+	// ------------------------------------------------------------------------
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		DataOutputViewStreamWrapper target = new DataOutputViewStreamWrapper(oos);
+
+		oos.defaultWriteObject();
+
+		oos.writeInt(keys.size());
+
+		for (K key: keys) {
+			oos.writeObject(key);
+		}
+
+		oos.writeInt(entryLimit);
+		oos.writeInt(numberEntries);
+
+		for (int entry = 0; entry < entryLimit; entry++) {
+			if (entryKeys[entry] != NONE) {
+				oos.writeInt(entry);
+				oos.writeInt(entryKeys[entry]);
+				valueSerializer.serialize(value(entry), target);
+				oos.writeLong(entryTimestamps[entry]);
+				oos.writeInt(referenceCounters[entry]);
+
+				int numberEdges = 0;
+
+				for (int edge = nextLiveEdge(firstEdges[entry]); edge != NONE; edge = nextLiveEdge(nextEdges[edge])) {
+					numberEdges++;
+				}
+
+				oos.writeInt(numberEdges);
+
+				// the edges refer to the ids of their targets, which are retained upon deserialization
+				for (int edge = nextLiveEdge(firstEdges[entry]); edge != NONE; edge = nextLiveEdge(nextEdges[edge])) {
+					oos.writeInt(edgeTargets[edge]);
+					DeweyNumber.DeweyNumberSerializer.INSTANCE.serialize(edgeVersions[edge], target);
+				}
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		DataInputViewStreamWrapper source = new DataInputViewStreamWrapper(ois);
+
+		ois.defaultReadObject();
+
+		int numberKeys = ois.readInt();
+		ArrayList<K> restoredKeys = new ArrayList<>(numberKeys);
+
+		for (int i = 0; i < numberKeys; i++) {
+			@SuppressWarnings("unchecked")
+			K key = (K) ois.readObject();
+
+			restoredKeys.add(key);
+		}
+
+		int limit = ois.readInt();
+		int entries = ois.readInt();
+
+		initialize(Math.max(INITIAL_CAPACITY, limit), INITIAL_CAPACITY);
+
+		keys = restoredKeys;
+		entryLimit = limit;
+
+		for (int i = 0; i < entries; i++) {
+			int entry = ois.readInt();
+
+			if (entry < 0 || entry >= limit) {
+				throw new RuntimeException("Could not restore entry with id " + entry +
+					". This indicates a corrupted state.");
+			}
+
+			int keyIndex = ois.readInt();
+			V value = valueSerializer.deserialize(source);
+			long timestamp = ois.readLong();
+
+			entryKeys[entry] = keyIndex;
+			entryValues[entry] = value;
+			entryTimestamps[entry] = timestamp;
+			entryHashes[entry] = hash(keyIndex, value, timestamp);
+			referenceCounters[entry] = ois.readInt();
+			firstEdges[entry] = NONE;
+
+			int numberEdges = ois.readInt();
+			int lastEdge = NONE;
+
+			// append the edges to retain their order
+			for (int j = 0; j < numberEdges; j++) {
+				int edge = allocateEdge();
+
+				// all restored ids are in their first generation
+				edgeTargets[edge] = ois.readInt();
+				edgeTargetGenerations[edge] = 0;
+				edgeVersions[edge] = DeweyNumber.DeweyNumberSerializer.INSTANCE.deserialize(source);
+				nextEdges[edge] = NONE;
+
+				if (lastEdge == NONE) {
+					firstEdges[entry] = edge;
+				} else {
+					nextEdges[lastEdge] = edge;
+				}
+
+				lastEdge = edge;
+			}
+		}
+
+		numberEntries = entries;
+
+		// put the unused ids on the free list, such that the lowest ids are reused first
+		int heapPosition = entries;
+		for (int entry = limit - 1; entry >= 0; entry--) {
+			if (entryKeys[entry] == NONE) {
+				firstEdges[entry] = freeEntries;
+				freeEntries = entry;
+			} else {
+				timestampHeap[--heapPosition] = entry;
+				heapPositions[entry] = heapPosition;
+			}
+		}
+
+		for (int position = (entries >>> 1) - 1; position >= 0; position--) {
+			siftDown(position);
+		}
+
+		rebuildIndex(indexCapacity(numberEntries));
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("CompactSharedBuffer(\n");
+
+		for (int entry = 0; entry < entryLimit; entry++) {
+			if (entryKeys[entry] != NONE) {
+				builder.append(entry).append(": ")
+					.append(keys.get(entryKeys[entry])).append(", ")
+					.append(entryValues[entry]).append(", ")
+					.append(entryTimestamps[entry]).append(", ")
+					.append(referenceCounters[entry]).append(", [");
+
+				for (int edge = nextLiveEdge(firstEdges[entry]); edge != NONE; edge = nextLiveEdge(nextEdges[edge])) {
+					builder.append("(").append(edgeTargets[edge]).append(", ").append(edgeVersions[edge]).append(")");
+
+					if (nextLiveEdge(nextEdges[edge]) != NONE) {
+						builder.append(", ");
+					}
+				}
+
+				builder.append("])\n");
+			}
+		}
+
+		return builder.append(")").toString();
+	}
+
+	/**
+	 * Two compact shared buffers are equal if they store the same entries under the same ids and
+	 * the same relations between them.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof CompactSharedBuffer) {
+			@SuppressWarnings("unchecked")
+			CompactSharedBuffer<K, V> other = (CompactSharedBuffer<K, V>) obj;
+
+			if (!valueSerializer.equals(other.valueSerializer) || numberEntries != other.numberEntries) {
+				return false;
+			}
+
+			for (int entry = 0; entry < Math.max(entryLimit, other.entryLimit); entry++) {
+				boolean inUse = entry < entryLimit && entryKeys[entry] != NONE;
+				boolean otherInUse = entry < other.entryLimit && other.entryKeys[entry] != NONE;
+
+				if (inUse != otherInUse) {
+					return false;
+				} else if (inUse && !entryEquals(entry, other)) {
+					return false;
+				}
+			}
+
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	private boolean entryEquals(final int entry, final CompactSharedBuffer<K, V> other) {
+		if (!keys.get(entryKeys[entry]).equals(other.keys.get(other.entryKeys[entry])) ||
+			entryTimestamps[entry] != other.entryTimestamps[entry] ||
+			referenceCounters[entry] != other.referenceCounters[entry] ||
+			!entryValues[entry].equals(other.entryValues[entry])) {
+			return false;
+		}
+
+		int edge = nextLiveEdge(firstEdges[entry]);
+		int otherEdge = other.nextLiveEdge(other.firstEdges[entry]);
+
+		while (edge != NONE && otherEdge != NONE) {
+			if (edgeTargets[edge] != other.edgeTargets[otherEdge] ||
+				!edgeVersions[edge].equals(other.edgeVersions[otherEdge])) {
+				return false;
+			}
+
+			edge = nextLiveEdge(nextEdges[edge]);
+			otherEdge = other.nextLiveEdge(other.nextEdges[otherEdge]);
+		}
+
+		return edge == NONE && otherEdge == NONE;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = valueSerializer.hashCode();
+
+		for (int entry = 0; entry < entryLimit; entry++) {
+			if (entryKeys[entry] != NONE) {
+				result = 31 * result + entry;
+				result = 31 * result + keys.get(entryKeys[entry]).hashCode();
+				result = 31 * result + entryValues[entry].hashCode();
+				result = 31 * result + (int) (entryTimestamps[entry] ^ (entryTimestamps[entry] >>> 32));
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Growable stack of entry ids.
+	 */
+	private static class IntStack {
+		private int[] elements;
+		private int size;
+
+		IntStack() {
+			this(new int[INITIAL_CAPACITY], 0);
+		}
+
+		private IntStack(final int[] elements, final int size) {
+			this.elements = elements;
+			this.size = size;
+		}
+
+		void push(final int element) {
+			if (size == elements.length) {
+				elements = Arrays.copyOf(elements, size * 2);
+			}
+
+			elements[size++] = element;
+		}
+
+		int pop() {
+			return elements[--size];
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		IntStack copy() {
+			return new IntStack(Arrays.copyOf(elements, elements.length), size);
+		}
+	}
+
+	/**
+	 * Helper class to store the extraction state while extracting a sequence of values following
+	 * the versioned entry edges.
+	 */
+	private static class ExtractionState {
+		private final int entry;
+		private final DeweyNumber version;
+		private final IntStack path;
+
+		ExtractionState(final int entry, final DeweyNumber version, final IntStack path) {
+			this.entry = entry;
+			this.version = version;
+			this.path = path;
+		}
+	}
+}
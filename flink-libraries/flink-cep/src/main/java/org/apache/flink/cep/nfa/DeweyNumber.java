@@ -18,6 +18,11 @@
 
 package org.apache.flink.cep.nfa;
 
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Arrays;
 
@@ -160,4 +165,99 @@ public class DeweyNumber implements Serializable {
 			return new DeweyNumber(deweyNumber);
 		}
 	}
+
+	/**
+	 * Type serializer for {@link DeweyNumber}. A dewey number is written as the number of its
+	 * digits followed by the digits themselves.
+	 */
+	public static class DeweyNumberSerializer extends TypeSerializer<DeweyNumber> {
+
+		private static final long serialVersionUID = -5086792497034943656L;
+
+		public static final DeweyNumberSerializer INSTANCE = new DeweyNumberSerializer();
+
+		private DeweyNumberSerializer() {}
+
+		@Override
+		public boolean isImmutableType() {
+			// increasing a dewey number or adding a stage always creates a new instance
+			return true;
+		}
+
+		@Override
+		public TypeSerializer<DeweyNumber> duplicate() {
+			return this;
+		}
+
+		@Override
+		public DeweyNumber createInstance() {
+			return new DeweyNumber(1);
+		}
+
+		@Override
+		public DeweyNumber copy(DeweyNumber from) {
+			return from;
+		}
+
+		@Override
+		public DeweyNumber copy(DeweyNumber from, DeweyNumber reuse) {
+			return from;
+		}
+
+		@Override
+		public int getLength() {
+			return -1;
+		}
+
+		@Override
+		public void serialize(DeweyNumber record, DataOutputView target) throws IOException {
+			target.writeInt(record.deweyNumber.length);
+
+			for (int digit: record.deweyNumber) {
+				target.writeInt(digit);
+			}
+		}
+
+		@Override
+		public DeweyNumber deserialize(DataInputView source) throws IOException {
+			int length = source.readInt();
+			int[] deweyNumber = new int[length];
+
+			for (int i = 0; i < length; i++) {
+				deweyNumber[i] = source.readInt();
+			}
+
+			return new DeweyNumber(deweyNumber);
+		}
+
+		@Override
+		public DeweyNumber deserialize(DeweyNumber reuse, DataInputView source) throws IOException {
+			return deserialize(source);
+		}
+
+		@Override
+		public void copy(DataInputView source, DataOutputView target) throws IOException {
+			int length = source.readInt();
+			target.writeInt(length);
+
+			for (int i = 0; i < length; i++) {
+				target.writeInt(source.readInt());
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof DeweyNumberSerializer;
+		}
+
+		@Override
+		public boolean canEqual(Object obj) {
+			return obj instanceof DeweyNumberSerializer;
+		}
+
+		@Override
+		public int hashCode() {
+			return DeweyNumberSerializer.class.hashCode();
+		}
+	}
 }
@@ -58,12 +58,14 @@ import java.util.regex.Pattern;
 public class NFA<T> implements Serializable {
 
 	private static final Pattern namePattern = Pattern.compile("^(.*\\[)(\\])$");
-	private static final long serialVersionUID = 2957674889294717265L;
+	// Changed when the matched events were moved behind a SharedBufferAccessor, which is keyed by
+	// the state names. NFAs that were serialized before can not be read with the current layout.
+	private static final long serialVersionUID = 5466719735734402436L;
 
 	private final NonDuplicatingTypeSerializer<T> nonDuplicatingTypeSerializer;
 
-	// Buffer used to store the matched events
-	private final SharedBuffer<State<T>, T> sharedBuffer;
+	// Buffer used to store the matched events under the names of their states
+	private SharedBufferAccessor<String, T> sharedBuffer;
 
 	// Set of all NFA states
 	private final Set<State<T>> states;
@@ -73,11 +75,8 @@ public class NFA<T> implements Serializable {
 
 	private final boolean handleTimeout;
 
-	// Current starting index for the next dewey version number
-	private int startEventCounter;
-
-	// Current set of computation states within the state machine
-	private transient Queue<ComputationState<T>> computationStates;
+	// Current set of computation states and the starting index for the next dewey version number
+	private transient NFAState<T> nfaState;
 
 	public NFA(
 		final TypeSerializer<T> eventSerializer,
@@ -87,17 +86,62 @@ public class NFA<T> implements Serializable {
 		this.nonDuplicatingTypeSerializer = new NonDuplicatingTypeSerializer<>(eventSerializer);
 		this.windowTime = windowTime;
 		this.handleTimeout = handleTimeout;
-		sharedBuffer = new SharedBuffer<>(nonDuplicatingTypeSerializer);
-		computationStates = new LinkedList<>();
+		sharedBuffer = new CompactSharedBuffer<>(nonDuplicatingTypeSerializer);
+		nfaState = new NFAState<>();
 
 		states = new HashSet<>();
-		startEventCounter = 1;
 	}
 
 	public Set<State<T>> getStates() {
 		return states;
 	}
 
+	public long getWindowTime() {
+		return windowTime;
+	}
+
+	/**
+	 * Replaces the buffer which is used to store the matched events. By default, the NFA keeps
+	 * its matched events in a {@link CompactSharedBuffer} which is serialized together with the NFA.
+	 *
+	 * @param sharedBuffer Buffer to store the matched events under the names of their states
+	 */
+	public void setSharedBuffer(final SharedBufferAccessor<String, T> sharedBuffer) {
+		this.sharedBuffer = sharedBuffer;
+	}
+
+	public NFAState<T> getNFAState() {
+		return nfaState;
+	}
+
+	/**
+	 * Sets the state of the ongoing computation, e.g. the state of the current key. Subsequent
+	 * calls to {@link #process(Object, long)} and {@link #prune(long)} operate on the given state.
+	 *
+	 * @param nfaState State of the ongoing computation
+	 */
+	public void setNFAState(final NFAState<T> nfaState) {
+		this.nfaState = nfaState;
+	}
+
+	/**
+	 * Creates the state of a new computation, which consists of a computation state for each
+	 * starting state of the NFA.
+	 *
+	 * @return State of a computation which has not processed any events yet
+	 */
+	public NFAState<T> createInitialNFAState() {
+		NFAState<T> initialState = new NFAState<>();
+
+		for (State<T> state: states) {
+			if (state.isStart()) {
+				initialState.getComputationStates().add(new ComputationState<>(state, null, -1L, null, -1L));
+			}
+		}
+
+		return initialState;
+	}
+
 	public void addStates(final Collection<State<T>> newStates) {
 		for (State<T> state: newStates) {
 			addState(state);
@@ -108,7 +152,7 @@ public class NFA<T> implements Serializable {
 		states.add(state);
 
 		if (state.isStart()) {
-			computationStates.add(new ComputationState<>(state, null, -1L, null, -1L));
+			nfaState.getComputationStates().add(new ComputationState<>(state, null, -1L, null, -1L));
 		}
 	}
 
@@ -124,6 +168,7 @@ public class NFA<T> implements Serializable {
 	 * activated)
 	 */
 	public Tuple2<Collection<Map<String, T>>, Collection<Tuple2<Map<String, T>, Long>>> process(final T event, final long timestamp) {
+		final Queue<ComputationState<T>> computationStates = nfaState.getComputationStates();
 		final int numberComputationStates = computationStates.size();
 		final Collection<Map<String, T>> result = new ArrayList<>();
 		final Collection<Tuple2<Map<String, T>, Long>> timeoutResult = new ArrayList<>();
@@ -134,22 +179,8 @@ public class NFA<T> implements Serializable {
 
 			final Collection<ComputationState<T>> newComputationStates;
 
-			if (!computationState.isStartState() &&
-				windowTime > 0 &&
-				timestamp - computationState.getStartTimestamp() >= windowTime) {
-
-				if (handleTimeout) {
-					// extract the timed out event patterns
-					Collection<Map<String, T>> timeoutPatterns = extractPatternMatches(computationState);
-
-					for (Map<String, T> timeoutPattern : timeoutPatterns) {
-						timeoutResult.add(Tuple2.of(timeoutPattern, timestamp));
-					}
-				}
-
-				// remove computation state which has exceeded the window length
-				sharedBuffer.release(computationState.getState(), computationState.getEvent(), computationState.getTimestamp());
-				sharedBuffer.remove(computationState.getState(), computationState.getEvent(), computationState.getTimestamp());
+			if (isTimedOut(computationState, timestamp)) {
+				timeOut(computationState, timestamp, timeoutResult);
 
 				newComputationStates = Collections.emptyList();
 			} else {
@@ -163,8 +194,8 @@ public class NFA<T> implements Serializable {
 					result.addAll(matches);
 
 					// remove found patterns because they are no longer needed
-					sharedBuffer.release(newComputationState.getState(), newComputationState.getEvent(), newComputationState.getTimestamp());
-					sharedBuffer.remove(newComputationState.getState(), newComputationState.getEvent(), newComputationState.getTimestamp());
+					sharedBuffer.release(newComputationState.getState().getName(), newComputationState.getEvent(), newComputationState.getTimestamp());
+					sharedBuffer.remove(newComputationState.getState().getName(), newComputationState.getEvent(), newComputationState.getTimestamp());
 				} else {
 					// add new computation state; it will be processed once the next event arrives
 					computationStates.add(newComputationState);
@@ -172,22 +203,38 @@ public class NFA<T> implements Serializable {
 			}
 		}
 
-		// prune shared buffer based on window length
-		if(windowTime > 0) {
-			long pruningTimestamp = timestamp - windowTime;
+		pruneSharedBuffer(timestamp);
 
-			// sanity check to guard against underflows
-			if (pruningTimestamp >= timestamp) {
-				throw new IllegalStateException("Detected an underflow in the pruning timestamp. This indicates that" +
-					" either the window length is too long (" + windowTime + ") or that the timestamp has not been" +
-					" set correctly (e.g. Long.MIN_VALUE).");
-			}
+		return Tuple2.of(result, timeoutResult);
+	}
 
-			// remove all elements which are expired with respect to the window length
-			sharedBuffer.prune(pruningTimestamp);
+	/**
+	 * Prunes the computations which have exceeded the window length with respect to the given
+	 * timestamp, without processing a new event. This allows to discard the partial matches of
+	 * computations which don't receive any further events. If timeout handling is activated,
+	 * then the timed out event patterns are returned.
+	 *
+	 * @param timestamp The timestamp with respect to which the computations are pruned
+	 * @return Collection of the timed out patterns (if timeout handling is activated)
+	 */
+	public Collection<Tuple2<Map<String, T>, Long>> prune(final long timestamp) {
+		final Queue<ComputationState<T>> computationStates = nfaState.getComputationStates();
+		final int numberComputationStates = computationStates.size();
+		final Collection<Tuple2<Map<String, T>, Long>> timeoutResult = new ArrayList<>();
+
+		for (int i = 0; i < numberComputationStates; i++) {
+			ComputationState<T> computationState = computationStates.poll();
+
+			if (isTimedOut(computationState, timestamp)) {
+				timeOut(computationState, timestamp, timeoutResult);
+			} else {
+				computationStates.add(computationState);
+			}
 		}
 
-		return Tuple2.of(result, timeoutResult);
+		pruneSharedBuffer(timestamp);
+
+		return timeoutResult;
 	}
 
 	@Override
@@ -200,7 +247,7 @@ public class NFA<T> implements Serializable {
 				sharedBuffer.equals(other.sharedBuffer) &&
 				states.equals(other.states) &&
 				windowTime == other.windowTime &&
-				startEventCounter == other.startEventCounter;
+				nfaState.getStartEventCounter() == other.nfaState.getStartEventCounter();
 		} else {
 			return false;
 		}
@@ -208,7 +255,61 @@ public class NFA<T> implements Serializable {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(nonDuplicatingTypeSerializer, sharedBuffer, states, windowTime, startEventCounter);
+		return Objects.hash(nonDuplicatingTypeSerializer, sharedBuffer, states, windowTime, nfaState.getStartEventCounter());
+	}
+
+	private boolean isTimedOut(final ComputationState<T> computationState, final long timestamp) {
+		return !computationState.isStartState() &&
+			windowTime > 0 &&
+			timestamp - computationState.getStartTimestamp() >= windowTime;
+	}
+
+	/**
+	 * Removes the given computation state which has exceeded the window length. If timeout handling
+	 * is activated, the timed out event patterns are extracted before.
+	 *
+	 * @param computationState Computation state which has timed out
+	 * @param timestamp Timestamp at which the computation state has timed out
+	 * @param timeoutResult Collection to which the timed out patterns are added
+	 */
+	private void timeOut(
+			final ComputationState<T> computationState,
+			final long timestamp,
+			final Collection<Tuple2<Map<String, T>, Long>> timeoutResult) {
+
+		if (handleTimeout) {
+			// extract the timed out event patterns
+			Collection<Map<String, T>> timeoutPatterns = extractPatternMatches(computationState);
+
+			for (Map<String, T> timeoutPattern : timeoutPatterns) {
+				timeoutResult.add(Tuple2.of(timeoutPattern, timestamp));
+			}
+		}
+
+		// remove computation state which has exceeded the window length
+		sharedBuffer.release(computationState.getState().getName(), computationState.getEvent(), computationState.getTimestamp());
+		sharedBuffer.remove(computationState.getState().getName(), computationState.getEvent(), computationState.getTimestamp());
+	}
+
+	/**
+	 * Prunes the shared buffer based on the window length.
+	 *
+	 * @param timestamp The current timestamp
+	 */
+	private void pruneSharedBuffer(final long timestamp) {
+		if(windowTime > 0) {
+			long pruningTimestamp = timestamp - windowTime;
+
+			// sanity check to guard against underflows
+			if (pruningTimestamp >= timestamp) {
+				throw new IllegalStateException("Detected an underflow in the pruning timestamp. This indicates that" +
+					" either the window length is too long (" + windowTime + ") or that the timestamp has not been" +
+					" set correctly (e.g. Long.MIN_VALUE).");
+			}
+
+			// remove all elements which are expired with respect to the window length
+			sharedBuffer.prune(pruningTimestamp);
+		}
 	}
 
 	/**
@@ -250,7 +351,7 @@ public class NFA<T> implements Serializable {
 
 								// we have a new computation state referring to the same the shared entry
 								// the lock of the current computation is released later on
-								sharedBuffer.lock(computationState.getState(), computationState.getEvent(), computationState.getTimestamp());
+								sharedBuffer.lock(computationState.getState().getName(), computationState.getEvent(), computationState.getTimestamp());
 								break;
 							case TAKE:
 								final State<T> newState = stateTransition.getTargetState();
@@ -262,7 +363,7 @@ public class NFA<T> implements Serializable {
 								final long startTimestamp;
 
 								if (computationState.isStartState()) {
-									oldVersion = new DeweyNumber(startEventCounter++);
+									oldVersion = new DeweyNumber(nfaState.getAndIncrementStartEventCounter());
 									newComputationStateVersion = oldVersion.addStage();
 									startTimestamp = timestamp;
 									previousTimestamp = -1L;
@@ -281,23 +382,23 @@ public class NFA<T> implements Serializable {
 
 								if (previousState.isStart()) {
 									sharedBuffer.put(
-										newState,
+										newState.getName(),
 										event,
 										timestamp,
 										oldVersion);
 								} else {
 									sharedBuffer.put(
-										newState,
+										newState.getName(),
 										event,
 										timestamp,
-										previousState,
+										previousState.getName(),
 										previousEvent,
 										previousTimestamp,
 										oldVersion);
 								}
 
 								// a new computation state is referring to the shared entry
-								sharedBuffer.lock(newState, event, timestamp);
+								sharedBuffer.lock(newState.getName(), event, timestamp);
 
 								resultingComputationStates.add(new ComputationState<T>(
 									newState,
@@ -320,9 +421,9 @@ public class NFA<T> implements Serializable {
 			resultingComputationStates.add(computationState);
 		} else {
 			// release the shared entry referenced by the current computation state.
-			sharedBuffer.release(computationState.getState(), computationState.getEvent(), computationState.getTimestamp());
+			sharedBuffer.release(computationState.getState().getName(), computationState.getEvent(), computationState.getTimestamp());
 			// try to remove unnecessary shared buffer entries
-			sharedBuffer.remove(computationState.getState(), computationState.getEvent(), computationState.getTimestamp());
+			sharedBuffer.remove(computationState.getState().getName(), computationState.getEvent(), computationState.getTimestamp());
 		}
 
 		return resultingComputationStates;
@@ -337,8 +438,8 @@ public class NFA<T> implements Serializable {
 	 * @return Collection of event sequences which end in the given computation state
 	 */
 	private Collection<Map<String, T>> extractPatternMatches(final ComputationState<T> computationState) {
-		Collection<LinkedHashMultimap<State<T>, T>> paths = sharedBuffer.extractPatterns(
-			computationState.getState(),
+		Collection<LinkedHashMultimap<String, T>> paths = sharedBuffer.extractPatterns(
+			computationState.getState().getName(),
 			computationState.getEvent(),
 			computationState.getTimestamp(),
 			computationState.getVersion());
@@ -348,16 +449,16 @@ public class NFA<T> implements Serializable {
 		TypeSerializer<T> serializer = nonDuplicatingTypeSerializer.getTypeSerializer();
 
 		// generate the correct names from the collection of LinkedHashMultimaps
-		for (LinkedHashMultimap<State<T>, T> path: paths) {
+		for (LinkedHashMultimap<String, T> path: paths) {
 			Map<String, T> resultPath = new HashMap<>();
-			for (State<T> key: path.keySet()) {
+			for (String key: path.keySet()) {
 				int counter = 0;
 				Set<T> events = path.get(key);
 
 				// we iterate over the elements in insertion order
 				for (T event: events) {
 					resultPath.put(
-						events.size() > 1 ? generateStateName(key.getName(), counter): key.getName(),
+						events.size() > 1 ? generateStateName(key, counter): key,
 						// copy the element so that the user can change it
 						serializer.isImmutableType() ? event : serializer.copy(event)
 					);
@@ -373,9 +474,10 @@ public class NFA<T> implements Serializable {
 	private void writeObject(ObjectOutputStream oos) throws IOException {
 		oos.defaultWriteObject();
 
-		oos.writeInt(computationStates.size());
+		oos.writeInt(nfaState.getStartEventCounter());
+		oos.writeInt(nfaState.getComputationStates().size());
 
-		for(ComputationState<T> computationState: computationStates) {
+		for(ComputationState<T> computationState: nfaState.getComputationStates()) {
 			writeComputationState(computationState, oos);
 		}
 
@@ -385,9 +487,10 @@ public class NFA<T> implements Serializable {
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
 
+		int startEventCounter = ois.readInt();
 		int numberComputationStates = ois.readInt();
 
-		computationStates = new LinkedList<>();
+		Queue<ComputationState<T>> computationStates = new LinkedList<>();
 
 		for (int i = 0; i < numberComputationStates; i++) {
 			ComputationState<T> computationState = readComputationState(ois);
@@ -395,6 +498,8 @@ public class NFA<T> implements Serializable {
 			computationStates.offer(computationState);
 		}
 
+		nfaState = new NFAState<>(computationStates, startEventCounter);
+
 		nonDuplicatingTypeSerializer.clearReferences();
 	}
 
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.cep.nfa;
+
+import java.util.LinkedList;
+import java.util.Queue;
+
+/**
+ * State of an ongoing {@link NFA} computation. It consists of the current set of computation
+ * states and the starting index for the next dewey version number.
+ * <p>
+ * The state is kept apart from the NFA's states and transitions. This allows to store it per
+ * key without serializing the complete state machine every time it is accessed.
+ *
+ * @param <T> Type of the processed events
+ */
+public class NFAState<T> {
+
+	// Current set of computation states within the state machine
+	private final Queue<ComputationState<T>> computationStates;
+
+	// Current starting index for the next dewey version number
+	private int startEventCounter;
+
+	public NFAState(final Queue<ComputationState<T>> computationStates, final int startEventCounter) {
+		this.computationStates = computationStates;
+		this.startEventCounter = startEventCounter;
+	}
+
+	public NFAState() {
+		this(new LinkedList<ComputationState<T>>(), 1);
+	}
+
+	public Queue<ComputationState<T>> getComputationStates() {
+		return computationStates;
+	}
+
+	public int getStartEventCounter() {
+		return startEventCounter;
+	}
+
+	int getAndIncrementStartEventCounter() {
+		return startEventCounter++;
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.cep.nfa;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+
+/**
+ * Type serializer for {@link NFAState}. The computation states only refer to the name of their
+ * NFA state. Upon deserialization, the names are resolved against the states of the NFA for which
+ * the serializer was created.
+ *
+ * @param <T> Type of the processed events
+ */
+public class NFAStateSerializer<T> extends TypeSerializer<NFAState<T>> {
+
+	private static final long serialVersionUID = -1318127604604549734L;
+
+	private final TypeSerializer<T> eventSerializer;
+
+	private final Map<String, State<T>> states;
+
+	public NFAStateSerializer(final TypeSerializer<T> eventSerializer, final Collection<State<T>> states) {
+		this(eventSerializer, indexByName(states));
+	}
+
+	private NFAStateSerializer(final TypeSerializer<T> eventSerializer, final Map<String, State<T>> states) {
+		this.eventSerializer = eventSerializer;
+		this.states = states;
+	}
+
+	@Override
+	public boolean isImmutableType() {
+		return false;
+	}
+
+	@Override
+	public TypeSerializer<NFAState<T>> duplicate() {
+		return new NFAStateSerializer<>(eventSerializer.duplicate(), states);
+	}
+
+	@Override
+	public NFAState<T> createInstance() {
+		return new NFAState<>();
+	}
+
+	@Override
+	public NFAState<T> copy(NFAState<T> from) {
+		Queue<ComputationState<T>> computationStates = new LinkedList<>();
+
+		for (ComputationState<T> computationState: from.getComputationStates()) {
+			T event = computationState.getEvent();
+
+			computationStates.add(new ComputationState<>(
+				computationState.getState(),
+				event == null ? null : eventSerializer.copy(event),
+				computationState.getTimestamp(),
+				computationState.getVersion(),
+				computationState.getStartTimestamp()));
+		}
+
+		return new NFAState<>(computationStates, from.getStartEventCounter());
+	}
+
+	@Override
+	public NFAState<T> copy(NFAState<T> from, NFAState<T> reuse) {
+		return copy(from);
+	}
+
+	@Override
+	public int getLength() {
+		return -1;
+	}
+
+	@Override
+	public void serialize(NFAState<T> record, DataOutputView target) throws IOException {
+		target.writeInt(record.getStartEventCounter());
+		target.writeInt(record.getComputationStates().size());
+
+		for (ComputationState<T> computationState: record.getComputationStates()) {
+			target.writeUTF(computationState.getState().getName());
+			target.writeLong(computationState.getTimestamp());
+			target.writeLong(computationState.getStartTimestamp());
+
+			if (computationState.getVersion() == null) {
+				target.writeBoolean(false);
+			} else {
+				target.writeBoolean(true);
+				DeweyNumber.DeweyNumberSerializer.INSTANCE.serialize(computationState.getVersion(), target);
+			}
+
+			if (computationState.getEvent() == null) {
+				target.writeBoolean(false);
+			} else {
+				target.writeBoolean(true);
+				eventSerializer.serialize(computationState.getEvent(), target);
+			}
+		}
+	}
+
+	@Override
+	public NFAState<T> deserialize(DataInputView source) throws IOException {
+		int startEventCounter = source.readInt();
+		int numberComputationStates = source.readInt();
+
+		Queue<ComputationState<T>> computationStates = new LinkedList<>();
+
+		for (int i = 0; i < numberComputationStates; i++) {
+			String stateName = source.readUTF();
+			State<T> state = states.get(stateName);
+
+			if (state == null) {
+				throw new IOException("Could not find the NFA state " + stateName + ". This indicates " +
+					"that the state has been created for a different pattern.");
+			}
+
+			long timestamp = source.readLong();
+			long startTimestamp = source.readLong();
+			DeweyNumber version = source.readBoolean() ? DeweyNumber.DeweyNumberSerializer.INSTANCE.deserialize(source) : null;
+			T event = source.readBoolean() ? eventSerializer.deserialize(source) : null;
+
+			computationStates.add(new ComputationState<>(state, event, timestamp, version, startTimestamp));
+		}
+
+		return new NFAState<>(computationStates, startEventCounter);
+	}
+
+	@Override
+	public NFAState<T> deserialize(NFAState<T> reuse, DataInputView source) throws IOException {
+		return deserialize(source);
+	}
+
+	@Override
+	public void copy(DataInputView source, DataOutputView target) throws IOException {
+		serialize(deserialize(source), target);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof NFAStateSerializer) {
+			@SuppressWarnings("unchecked")
+			NFAStateSerializer<T> other = (NFAStateSerializer<T>) obj;
+
+			return other.canEqual(this) && eventSerializer.equals(other.eventSerializer) && states.equals(other.states);
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public boolean canEqual(Object obj) {
+		return obj instanceof NFAStateSerializer;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(eventSerializer, states);
+	}
+
+	private static <T> Map<String, State<T>> indexByName(final Collection<State<T>> states) {
+		Map<String, State<T>> result = new HashMap<>();
+
+		for (State<T> state: states) {
+			result.put(state.getName(), state);
+		}
+
+		return result;
+	}
+}
@@ -56,7 +56,7 @@ import java.util.Stack;
  * @param <K> Type of the keys
  * @param <V> Type of the values
  */
-public class SharedBuffer<K extends Serializable, V> implements Serializable {
+public class SharedBuffer<K extends Serializable, V> implements SharedBufferAccessor<K, V>, Serializable {
 	private static final long serialVersionUID = 9213251042562206495L;
 
 	private final TypeSerializer<V> valueSerializer;
@@ -80,6 +80,7 @@ public class SharedBuffer<K extends Serializable, V> implements Serializable {
 	 * @param previousTimestamp Timestamp of the value for the previous relation
 	 * @param version Version of the previous relation
 	 */
+	@Override
 	public void put(
 			final K key,
 			final V value,
@@ -122,6 +123,7 @@ public class SharedBuffer<K extends Serializable, V> implements Serializable {
 	 * @param timestamp Timestamp of the current value (a value requires always a timestamp to make it uniquely referable))
 	 * @param version Version of the previous relation
 	 */
+	@Override
 	public void put(
 		final K key,
 		final V value,
@@ -173,6 +175,7 @@ public class SharedBuffer<K extends Serializable, V> implements Serializable {
 	 * @param pruningTimestamp The time which is used for pruning. All elements whose timestamp is
 	 *                         lower than the pruning timestamp will be removed.
 	 */
+	@Override
 	public void prune(long pruningTimestamp) {
 		Iterator<Map.Entry<K, SharedBufferPage<K, V>>> iter = pages.entrySet().iterator();
 
@@ -198,6 +201,7 @@ public class SharedBuffer<K extends Serializable, V> implements Serializable {
 	 * @param version Version of the previous relation which shall be extracted
 	 * @return Collection of previous relations starting with the given value
 	 */
+	@Override
 	public Collection<LinkedHashMultimap<K, V>> extractPatterns(
 		final K key,
 		final V value,
@@ -274,6 +278,7 @@ public class SharedBuffer<K extends Serializable, V> implements Serializable {
 	 * @param value Value to lock
 	 * @param timestamp Timestamp of the value to lock
 	 */
+	@Override
 	public void lock(final K key, final V value, final long timestamp) {
 		SharedBufferEntry<K, V> entry = get(key, value, timestamp);
 
@@ -290,6 +295,7 @@ public class SharedBuffer<K extends Serializable, V> implements Serializable {
 	 * @param value Value to release
 	 * @param timestamp Timestamp of the value to release
 	 */
+	@Override
 	public void release(final K key, final V value, final long timestamp) {
 		SharedBufferEntry<K, V> entry = get(key, value, timestamp);
 
@@ -307,6 +313,7 @@ public class SharedBuffer<K extends Serializable, V> implements Serializable {
 	 * @param value Value to remove
 	 * @param timestamp Timestamp of the value to remvoe
 	 */
+	@Override
 	public void remove(final K key, final V value, final long timestamp) {
 		SharedBufferEntry<K, V> entry = get(key, value, timestamp);
 
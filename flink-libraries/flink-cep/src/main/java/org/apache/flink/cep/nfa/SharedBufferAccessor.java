@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.cep.nfa;
+
+import com.google.common.collect.LinkedHashMultimap;
+
+import java.util.Collection;
+
+/**
+ * Access to the buffer which stores the matched events of a {@link NFA}. The values are stored
+ * under a key (the name of the state they were matched to) and a timestamp. Furthermore, they are
+ * related to their preceding element by a versioned relation, which allows to extract the event
+ * sequences of the different computations sharing the buffer.
+ * <p>
+ * The {@link SharedBuffer} and the {@link CompactSharedBuffer} keep all entries in memory and are
+ * serialized as a whole together with the NFA. Other implementations can store the entries
+ * individually, e.g. in key/value state.
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the values
+ */
+public interface SharedBufferAccessor<K, V> {
+
+	/**
+	 * Stores given value (value + timestamp) under the given key. It assigns a preceding element
+	 * relation to the entry which is defined by the previous key, value (value + timestamp).
+	 *
+	 * @param key Key of the current value
+	 * @param value Current value
+	 * @param timestamp Timestamp of the current value
+	 * @param previousKey Key of the value for the previous relation
+	 * @param previousValue Value for the previous relation
+	 * @param previousTimestamp Timestamp of the value for the previous relation
+	 * @param version Version of the previous relation
+	 */
+	void put(K key, V value, long timestamp, K previousKey, V previousValue, long previousTimestamp, DeweyNumber version);
+
+	/**
+	 * Stores given value (value + timestamp) under the given key. It assigns no preceding element
+	 * relation to the entry.
+	 *
+	 * @param key Key of the current value
+	 * @param value Current value
+	 * @param timestamp Timestamp of the current value
+	 * @param version Version of the previous relation
+	 */
+	void put(K key, V value, long timestamp, DeweyNumber version);
+
+	/**
+	 * Returns all elements from the previous relation starting at the given value with the
+	 * given key and timestamp.
+	 *
+	 * @param key Key of the starting value
+	 * @param value Value of the starting element
+	 * @param timestamp Timestamp of the starting value
+	 * @param version Version of the previous relation which shall be extracted
+	 * @return Collection of previous relations starting with the given value
+	 */
+	Collection<LinkedHashMultimap<K, V>> extractPatterns(K key, V value, long timestamp, DeweyNumber version);
+
+	/**
+	 * Increases the reference counter for the given value, key, timestamp entry so that it is not
+	 * accidentally removed.
+	 *
+	 * @param key Key of the value to lock
+	 * @param value Value to lock
+	 * @param timestamp Timestamp of the value to lock
+	 */
+	void lock(K key, V value, long timestamp);
+
+	/**
+	 * Decreases the reference counter for the given value, key, timestamp entry so that it can be
+	 * removed once the reference counter reaches 0.
+	 *
+	 * @param key Key of the value to release
+	 * @param value Value to release
+	 * @param timestamp Timestamp of the value to release
+	 */
+	void release(K key, V value, long timestamp);
+
+	/**
+	 * Removes the given value, key, timestamp entry if its reference counter is 0. It will also
+	 * release the next element in its previous relation and apply remove to this element
+	 * recursively.
+	 *
+	 * @param key Key of the value to remove
+	 * @param value Value to remove
+	 * @param timestamp Timestamp of the value to remove
+	 */
+	void remove(K key, V value, long timestamp);
+
+	/**
+	 * Deletes all entries which have expired with respect to given pruning timestamp.
+	 * Implementations which remove expired entries by other means, e.g. timers, may ignore
+	 * this call.
+	 *
+	 * @param pruningTimestamp The time which is used for pruning. All elements whose timestamp is
+	 *                         lower than the pruning timestamp will be removed.
+	 */
+	void prune(long pruningTimestamp);
+}
@@ -25,7 +25,6 @@ import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 import java.io.IOException;
-import java.util.PriorityQueue;
 
 /**
  * Base class for CEP pattern operator. The operator uses a {@link NFA} to detect complex event
@@ -56,9 +55,20 @@ public abstract class AbstractCEPBasePatternOperator<IN, OUT>
 		return inputSerializer;
 	}
 
+	public boolean isProcessingTime() {
+		return isProcessingTime;
+	}
+
 	protected abstract NFA<IN> getNFA() throws IOException;
 
-	protected abstract PriorityQueue<StreamRecord<IN>> getPriorityQueue() throws IOException;
+	/**
+	 * Buffers the given event until a watermark passes its timestamp. This is only used for event
+	 * time processing.
+	 *
+	 * @param event The event to buffer
+	 * @param timestamp The timestamp of the event
+	 */
+	protected abstract void bufferEvent(IN event, long timestamp) throws Exception;
 
 	@Override
 	public void processElement(StreamRecord<IN> element) throws Exception {
@@ -67,15 +77,13 @@ public abstract class AbstractCEPBasePatternOperator<IN, OUT>
 			NFA<IN> nfa = getNFA();
 			processEvent(nfa, element.getValue(), System.currentTimeMillis());
 		} else {
-			PriorityQueue<StreamRecord<IN>> priorityQueue = getPriorityQueue();
-
 			// event time processing
 			// we have to buffer the elements until we receive the proper watermark
 			if (getExecutionConfig().isObjectReuseEnabled()) {
-				// copy the StreamRecord so that it cannot be changed
-				priorityQueue.offer(new StreamRecord<IN>(inputSerializer.copy(element.getValue()), element.getTimestamp()));
+				// copy the element so that it cannot be changed
+				bufferEvent(inputSerializer.copy(element.getValue()), element.getTimestamp());
 			} else {
-				priorityQueue.offer(element);
+				bufferEvent(element.getValue(), element.getTimestamp());
 			}
 		}
 	}
@@ -31,6 +31,7 @@ import org.apache.flink.streaming.runtime.tasks.StreamTaskState;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InvalidClassException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.PriorityQueue;
@@ -77,8 +78,8 @@ abstract public class AbstractCEPPatternOperator<IN, OUT> extends AbstractCEPBas
 	}
 
 	@Override
-	protected PriorityQueue<StreamRecord<IN>> getPriorityQueue() throws IOException {
-		return priorityQueue;
+	protected void bufferEvent(IN event, long timestamp) {
+		priorityQueue.offer(new StreamRecord<IN>(event, timestamp));
 	}
 
 	@Override
@@ -127,7 +128,16 @@ abstract public class AbstractCEPPatternOperator<IN, OUT> extends AbstractCEPBas
 		final ObjectInputStream ois = new ObjectInputStream(is);
 		final DataInputViewStreamWrapper div = new DataInputViewStreamWrapper(is);
 
-		nfa = (NFA<IN>)ois.readObject();
+		try {
+			nfa = (NFA<IN>)ois.readObject();
+		}
+		catch (InvalidClassException e) {
+			if (NFA.class.getName().equals(e.classname)) {
+				throw new IOException("The snapshot of the CEP operator was taken by an earlier " +
+					"version with an incompatible NFA layout and cannot be restored.", e);
+			}
+			throw e;
+		}
 
 		int numberPriorityQueueEntries = div.readInt();
 
@@ -18,35 +18,48 @@
 
 package org.apache.flink.cep.operator;
 
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.state.ValueState;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.VoidSerializer;
 import org.apache.flink.api.java.functions.KeySelector;
-import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.cep.nfa.NFA;
+import org.apache.flink.cep.nfa.NFAState;
+import org.apache.flink.cep.nfa.NFAStateSerializer;
 import org.apache.flink.cep.nfa.compiler.NFACompiler;
 import org.apache.flink.core.memory.DataInputView;
-import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.runtime.state.AbstractStateBackend;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.operators.InternalTimerQueue;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
-import org.apache.flink.streaming.runtime.streamrecord.StreamRecordSerializer;
 import org.apache.flink.streaming.runtime.tasks.StreamTaskState;
 
 import java.io.IOException;
-import java.io.Serializable;
-import java.util.HashSet;
-import java.util.Objects;
-import java.util.PriorityQueue;
-import java.util.Set;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 
 /**
- * Abstract CEP pattern operator for a keyed input stream. For each key, the operator creates
- * a {@link NFA} and a priority queue to buffer out of order elements. Both data structures are
- * stored using the key value state. Additionally, the set of all seen keys is kept as part of the
- * operator state. This is necessary to trigger the execution for all keys upon receiving a new
- * watermark.
+ * Abstract CEP pattern operator for a keyed input stream. The operator uses a single {@link NFA}
+ * for all keys, whose {@link NFAState} is stored per key using the key value state. The events
+ * matched by the NFA are stored in a {@link KeyedSharedBuffer}, which keeps the shared buffer
+ * entries of each key and timestamp separately. Thus, processing an element only reads and
+ * writes the state it actually touches.
+ * <p>
+ * In event time, out of order elements are buffered in a list state per key whose namespace is
+ * their timestamp. Additionally, an event time timer is registered for the key and timestamp of
+ * each buffered element, and kept as part of the operator state. This is necessary to trigger the
+ * execution for exactly the keys with due elements upon receiving a new watermark.
+ * <p>
+ * If the pattern has a window, a pruning timer is registered for the key and timestamp of the
+ * processed elements, which is due once the window has expired. Then, the operator discards the
+ * timed out computations of the key and removes its shared buffer entries of that timestamp, even
+ * if the key does not receive any further elements.
  *
  * @param <IN> Type of the input elements
  * @param <KEY> Type of the key on which the input stream is keyed
@@ -55,25 +68,37 @@ import java.util.Set;
 abstract public class AbstractKeyedCEPPatternOperator<IN, KEY, OUT> extends AbstractCEPBasePatternOperator<IN, OUT> {
 	private static final long serialVersionUID = -7234999752950159178L;
 
-	private static final String NFA_OPERATOR_STATE_NAME = "nfaOperatorState";
-	private static final String PRIORIRY_QUEUE_STATE_NAME = "priorityQueueStateName";
+	/**
+	 * Written in front of the timers of a snapshot. Snapshots of earlier versions start with
+	 * the number of seen keys instead, which is never negative.
+	 */
+	private static final int TIMERS_SNAPSHOT_VERSION = -2;
+
+	private static final String NFA_STATE_NAME = "nfaState";
+	private static final String ELEMENT_QUEUE_STATE_NAME = "elementQueueState";
 
 	// necessary to extract the key from the input elements
 	private final KeySelector<IN, KEY> keySelector;
 
-	// necessary to serialize the set of seen keys
+	// necessary to serialize the timers
 	private final TypeSerializer<KEY> keySerializer;
 
-	private final PriorityQueueFactory<StreamRecord<IN>> priorityQueueFactory = new PriorityQueueStreamRecordFactory<>();
 	private final NFACompiler.NFAFactory<IN> nfaFactory;
 
-	// stores the keys we've already seen to trigger execution upon receiving a watermark
-	// this can be problematic, since it is never cleared
-	// TODO: fix once the state refactoring is completed
-	private transient Set<KEY> keys;
+	// timers for the keys with buffered elements, to trigger execution upon receiving a watermark
+	private transient InternalTimerQueue<KEY, Void> eventTimeTimers;
+
+	// timers for the keys and timestamps whose window expires, to prune the expired computations
+	private transient InternalTimerQueue<KEY, Void> pruningTimers;
+
+	// nfa which is shared by all keys, the state of the current key is set before processing
+	private transient NFA<IN> nfa;
+
+	private transient KeyedSharedBuffer<IN> sharedBuffer;
+
+	private transient ValueState<NFAState<IN>> nfaOperatorState;
 
-	private transient ValueState<NFA<IN>> nfaOperatorState;
-	private transient ValueState<PriorityQueue<StreamRecord<IN>>> priorityQueueOperatorState;
+	private transient ListStateDescriptor<IN> elementQueueStateDescriptor;
 
 	public AbstractKeyedCEPPatternOperator(
 			TypeSerializer<IN> inputSerializer,
@@ -90,248 +115,200 @@ abstract public class AbstractKeyedCEPPatternOperator<IN, KEY, OUT> extends Abst
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
 	public void open() throws Exception {
-		if (keys == null) {
-			keys = new HashSet<>();
+		if (eventTimeTimers == null) {
+			eventTimeTimers = new InternalTimerQueue<>(INITIAL_PRIORITY_QUEUE_CAPACITY);
 		}
 
-		if (nfaOperatorState == null) {
-			nfaOperatorState = getPartitionedState(
-					new ValueStateDescriptor<NFA<IN>>(
-						NFA_OPERATOR_STATE_NAME,
-						new KryoSerializer<NFA<IN>>((Class<NFA<IN>>) (Class<?>) NFA.class, getExecutionConfig()),
-						null));
+		if (pruningTimers == null) {
+			pruningTimers = new InternalTimerQueue<>(INITIAL_PRIORITY_QUEUE_CAPACITY);
 		}
 
-		if (priorityQueueOperatorState == null) {
-			priorityQueueOperatorState = getPartitionedState(
-					new ValueStateDescriptor<PriorityQueue<StreamRecord<IN>>>(
-						PRIORIRY_QUEUE_STATE_NAME,
-						new PriorityQueueSerializer<StreamRecord<IN>>(
-							new StreamRecordSerializer<IN>(getInputSerializer()),
-							new PriorityQueueStreamRecordFactory<IN>()),
-						null));
-		}
+		nfa = nfaFactory.createNFA();
+		sharedBuffer = new KeyedSharedBuffer<>(getStateBackend(), getInputSerializer());
+		nfa.setSharedBuffer(sharedBuffer);
+
+		nfaOperatorState = getPartitionedState(
+				new ValueStateDescriptor<NFAState<IN>>(
+					NFA_STATE_NAME,
+					new NFAStateSerializer<>(getInputSerializer(), nfa.getStates()),
+					null));
+
+		elementQueueStateDescriptor = new ListStateDescriptor<>(ELEMENT_QUEUE_STATE_NAME, getInputSerializer());
 	}
 
 	@Override
 	protected NFA<IN> getNFA() throws IOException {
-		NFA<IN> nfa = nfaOperatorState.value();
+		NFAState<IN> nfaState = nfaOperatorState.value();
 
-		if (nfa == null) {
-			nfa = nfaFactory.createNFA();
-
-			nfaOperatorState.update(nfa);
-		}
+		nfa.setNFAState(nfaState == null ? nfa.createInitialNFAState() : nfaState);
 
 		return nfa;
 	}
 
-	@Override
-	protected PriorityQueue<StreamRecord<IN>> getPriorityQueue() throws IOException {
-		PriorityQueue<StreamRecord<IN>> priorityQueue = priorityQueueOperatorState.value();
-
-		if (priorityQueue == null) {
-			priorityQueue = priorityQueueFactory.createPriorityQueue();
-
-			priorityQueueOperatorState.update(priorityQueue);
-		}
-
-		return priorityQueue;
+	private void updateNFA(NFA<IN> nfa) throws IOException {
+		nfaOperatorState.update(nfa.getNFAState());
 	}
 
 	@Override
-	public void processElement(StreamRecord<IN> element) throws Exception {
-		keys.add(keySelector.getKey(element.getValue()));
-
-		super.processElement(element);
+	protected void bufferEvent(IN event, long timestamp) throws Exception {
+		getPartitionedState(timestamp, LongSerializer.INSTANCE, elementQueueStateDescriptor).add(event);
 	}
 
 	@Override
-	public void processWatermark(Watermark mark) throws Exception {
-		// iterate over all keys to trigger the execution of the buffered elements
-		for (KEY key: keys) {
-			setKeyContext(key);
-
-			PriorityQueue<StreamRecord<IN>> priorityQueue = getPriorityQueue();
-
-			NFA<IN> nfa = getNFA();
-
-			while (!priorityQueue.isEmpty() && priorityQueue.peek().getTimestamp() <= mark.getTimestamp()) {
-				StreamRecord<IN> streamRecord = priorityQueue.poll();
-
-				processEvent(nfa, streamRecord.getValue(), streamRecord.getTimestamp());
-			}
-		}
+	public void processElement(StreamRecord<IN> element) throws Exception {
+		KEY key = keySelector.getKey(element.getValue());
 
-		output.emitWatermark(mark);
-	}
+		if (isProcessingTime()) {
+			// there can be no out of order elements in processing time
+			long currentTime = System.currentTimeMillis();
 
-	@Override
-	public StreamTaskState snapshotOperatorState(long checkpointId, long timestamp) throws Exception {
-		StreamTaskState taskState = super.snapshotOperatorState(checkpointId, timestamp);
-
-		AbstractStateBackend.CheckpointStateOutputView ov = getStateBackend().createCheckpointStateOutputView(checkpointId, timestamp);
+			pruneExpiredWindows(currentTime);
+			setKeyContext(key);
 
-		ov.writeInt(keys.size());
+			processEvents(key, Collections.singleton(element.getValue()), currentTime);
+		} else {
+			// the buffered element is processed once the watermark passes its timestamp
+			eventTimeTimers.add(element.getTimestamp(), key, null);
 
-		for (KEY key: keys) {
-			keySerializer.serialize(key, ov);
+			super.processElement(element);
 		}
-
-		taskState.setOperatorState(ov.closeAndGetHandle());
-
-		return taskState;
 	}
 
 	@Override
-	public void restoreState(StreamTaskState state, long recoveryTimestamp) throws Exception {
-		super.restoreState(state, recoveryTimestamp);
-
-		@SuppressWarnings("unchecked")
-		StateHandle<DataInputView> stateHandle = (StateHandle<DataInputView>) state.getOperatorState();
-
-		DataInputView inputView = stateHandle.getState(getUserCodeClassloader());
-
-		if (keys == null) {
-			keys = new HashSet<>();
+	public void processWatermark(Watermark mark) throws Exception {
+		// trigger the execution of the buffered elements and the pruning of the expired windows
+		// for all keys with due timers in timestamp order. Elements are processed before the windows
+		// expiring at the same timestamp.
+		while (true) {
+			boolean hasDueElements = !eventTimeTimers.isEmpty() &&
+				eventTimeTimers.getHeadTimestamp() <= mark.getTimestamp();
+			boolean hasDuePruning = !isProcessingTime() && !pruningTimers.isEmpty() &&
+				pruningTimers.getHeadTimestamp() <= mark.getTimestamp();
+
+			if (hasDueElements && (!hasDuePruning || eventTimeTimers.getHeadTimestamp() <= pruningTimers.getHeadTimestamp())) {
+				long timestamp = eventTimeTimers.getHeadTimestamp();
+				KEY key = eventTimeTimers.getHeadKey();
+				eventTimeTimers.poll();
+
+				setKeyContext(key);
+
+				ListState<IN> elementQueue = getPartitionedState(timestamp, LongSerializer.INSTANCE, elementQueueStateDescriptor);
+				Iterable<IN> elements = elementQueue.get();
+
+				if (elements != null) {
+					processEvents(key, elements, timestamp);
+				}
+
+				elementQueue.clear();
+			} else if (hasDuePruning) {
+				pruneExpiredWindow(pruningTimers.getHeadKey(), pruningTimers.getHeadTimestamp());
+				pruningTimers.poll();
+			} else {
+				break;
+			}
 		}
 
-		int numberEntries = inputView.readInt();
-
-		for (int i = 0; i <numberEntries; i++) {
-			keys.add(keySerializer.deserialize(inputView));
-		}
+		output.emitWatermark(mark);
 	}
 
 	/**
-	 * Custom type serializer implementation to serialize priority queues.
+	 * Processes the given events of the current key, which all have the same timestamp. Afterwards,
+	 * the state of the NFA is updated and the pruning timer for the timestamp is registered.
 	 *
-	 * @param <T> Type of the priority queue's elements
+	 * @param key The current key
+	 * @param events The events to be processed
+	 * @param timestamp The timestamp of the events
 	 */
-	private static class PriorityQueueSerializer<T> extends TypeSerializer<PriorityQueue<T>> {
-
-		private static final long serialVersionUID = -231980397616187715L;
-
-		private final TypeSerializer<T> elementSerializer;
-		private final PriorityQueueFactory<T> factory;
+	private void processEvents(KEY key, Iterable<IN> events, long timestamp) throws Exception {
+		NFA<IN> nfa = getNFA();
 
-		public PriorityQueueSerializer(final TypeSerializer<T> elementSerializer, final PriorityQueueFactory<T> factory) {
-			this.elementSerializer = elementSerializer;
-			this.factory = factory;
+		for (IN event: events) {
+			processEvent(nfa, event, timestamp);
 		}
 
-		@Override
-		public boolean isImmutableType() {
-			return false;
-		}
+		updateNFA(nfa);
 
-		@Override
-		public TypeSerializer<PriorityQueue<T>> duplicate() {
-			return new PriorityQueueSerializer<>(elementSerializer.duplicate(), factory);
-		}
+		long windowTime = nfa.getWindowTime();
 
-		@Override
-		public PriorityQueue<T> createInstance() {
-			return factory.createPriorityQueue();
+		// guard against overflows, the window of such timestamps never expires
+		if (windowTime > 0 && timestamp + windowTime > timestamp) {
+			pruningTimers.add(timestamp + windowTime, key, null);
 		}
+	}
 
-		@Override
-		public PriorityQueue<T> copy(PriorityQueue<T> from) {
-			PriorityQueue<T> result = factory.createPriorityQueue();
-
-			for (T element: from) {
-				result.offer(elementSerializer.copy(element));
-			}
-
-			return result;
-		}
-
-		@Override
-		public PriorityQueue<T> copy(PriorityQueue<T> from, PriorityQueue<T> reuse) {
-			reuse.clear();
-
-			for (T element: from) {
-				reuse.offer(elementSerializer.copy(element));
-			}
-
-			return reuse;
+	private void pruneExpiredWindows(long time) throws Exception {
+		while (!pruningTimers.isEmpty() && pruningTimers.getHeadTimestamp() <= time) {
+			pruneExpiredWindow(pruningTimers.getHeadKey(), pruningTimers.getHeadTimestamp());
+			pruningTimers.poll();
 		}
+	}
 
-		@Override
-		public int getLength() {
-			return 0;
-		}
+	/**
+	 * Prunes the computations of the given key which have timed out at the given time. Afterwards,
+	 * no computation can refer to the shared buffer entries whose window ends at the given time,
+	 * so that they are removed.
+	 *
+	 * @param key The key whose window expired
+	 * @param time The time at which the window expired
+	 */
+	private void pruneExpiredWindow(KEY key, long time) throws Exception {
+		setKeyContext(key);
 
-		@Override
-		public void serialize(PriorityQueue<T> record, DataOutputView target) throws IOException {
-			target.writeInt(record.size());
+		NFA<IN> nfa = getNFA();
 
-			for (T element: record) {
-				elementSerializer.serialize(element, target);
-			}
-		}
+		processTimedOutSequences(nfa.prune(time), time);
 
-		@Override
-		public PriorityQueue<T> deserialize(DataInputView source) throws IOException {
-			PriorityQueue<T> result = factory.createPriorityQueue();
+		updateNFA(nfa);
 
-			return deserialize(result, source);
-		}
+		sharedBuffer.removeEntries(time - nfa.getWindowTime());
+	}
 
-		@Override
-		public PriorityQueue<T> deserialize(PriorityQueue<T> reuse, DataInputView source) throws IOException {
-			reuse.clear();
+	/**
+	 * Outputs the event patterns which timed out because their window expired before the key
+	 * received further elements.
+	 *
+	 * @param timedOutSequences The timed out event patterns and their timeout timestamps
+	 * @param timestamp The time at which the window expired
+	 */
+	protected abstract void processTimedOutSequences(Collection<Tuple2<Map<String, IN>, Long>> timedOutSequences, long timestamp);
 
-			int numberEntries = source.readInt();
+	@Override
+	public StreamTaskState snapshotOperatorState(long checkpointId, long timestamp) throws Exception {
+		StreamTaskState taskState = super.snapshotOperatorState(checkpointId, timestamp);
 
-			for (int i = 0; i < numberEntries; i++) {
-				reuse.offer(elementSerializer.deserialize(source));
-			}
+		AbstractStateBackend.CheckpointStateOutputView ov = getStateBackend().createCheckpointStateOutputView(checkpointId, timestamp);
 
-			return reuse;
-		}
+		ov.writeInt(TIMERS_SNAPSHOT_VERSION);
+		eventTimeTimers.write(ov, keySerializer, VoidSerializer.INSTANCE);
+		pruningTimers.write(ov, keySerializer, VoidSerializer.INSTANCE);
 
-		@Override
-		public void copy(DataInputView source, DataOutputView target) throws IOException {
+		taskState.setOperatorState(ov.closeAndGetHandle());
 
-		}
+		return taskState;
+	}
 
-		@Override
-		public boolean equals(Object obj) {
-			if (obj instanceof PriorityQueueSerializer) {
-				@SuppressWarnings("unchecked")
-				PriorityQueueSerializer<T> other = (PriorityQueueSerializer<T>) obj;
+	@Override
+	public void restoreState(StreamTaskState state, long recoveryTimestamp) throws Exception {
+		super.restoreState(state, recoveryTimestamp);
 
-				return factory.equals(other.factory) && elementSerializer.equals(other.elementSerializer);
-			} else {
-				return false;
-			}
-		}
+		@SuppressWarnings("unchecked")
+		StateHandle<DataInputView> stateHandle = (StateHandle<DataInputView>) state.getOperatorState();
 
-		@Override
-		public boolean canEqual(Object obj) {
-			return obj instanceof PriorityQueueSerializer;
-		}
+		DataInputView inputView = stateHandle.getState(getUserCodeClassloader());
 
-		@Override
-		public int hashCode() {
-			return Objects.hash(factory, elementSerializer);
+		int version = inputView.readInt();
+		if (version != TIMERS_SNAPSHOT_VERSION) {
+			// earlier versions kept the set of seen keys and a priority queue of elements per
+			// key, from which the timers and the per timestamp state cannot be rebuilt
+			throw new IOException("The snapshot of the keyed CEP operator was taken by an earlier " +
+				"version with an incompatible state layout and cannot be restored.");
 		}
-	}
-
-	private interface PriorityQueueFactory<T> extends Serializable {
-		PriorityQueue<T> createPriorityQueue();
-	}
-
-	private static class PriorityQueueStreamRecordFactory<T> implements PriorityQueueFactory<StreamRecord<T>> {
 
-		private static final long serialVersionUID = 1254766984454616593L;
+		eventTimeTimers = new InternalTimerQueue<>(0);
+		eventTimeTimers.read(inputView, keySerializer, VoidSerializer.INSTANCE);
 
-		@Override
-		public PriorityQueue<StreamRecord<T>> createPriorityQueue() {
-			return new PriorityQueue<StreamRecord<T>>(INITIAL_PRIORITY_QUEUE_CAPACITY, new StreamRecordComparator<T>());
-		}
+		pruningTimers = new InternalTimerQueue<>(0);
+		pruningTimers.read(inputView, keySerializer, VoidSerializer.INSTANCE);
 	}
 }
@@ -62,4 +62,9 @@ public class KeyedCEPPatternOperator<IN, KEY> extends AbstractKeyedCEPPatternOpe
 			}
 		}
 	}
+
+	@Override
+	protected void processTimedOutSequences(Collection<Tuple2<Map<String, IN>, Long>> timedOutSequences, long timestamp) {
+		// timed out event patterns are not handled by this operator
+	}
 }
@@ -0,0 +1,718 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.cep.operator;
+
+import com.google.common.collect.LinkedHashMultimap;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.cep.nfa.DeweyNumber;
+import org.apache.flink.cep.nfa.SharedBufferAccessor;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Stack;
+
+/**
+ * {@link SharedBufferAccessor} which stores the shared buffer entries of the current key in the
+ * key/value state. The entries are grouped by their timestamp: All entries with the same timestamp
+ * are kept in a {@link ValueState} whose namespace is the timestamp. Consequently, an operation
+ * only reads and writes the entries of the timestamps it actually touches, instead of the complete
+ * shared buffer of the key.
+ * <p>
+ * An entry refers to its preceding entries by their timestamp and an id, which is unique among
+ * the entries with the same timestamp. Entries are removed individually once their reference
+ * counter drops to 0. Since a computation never reaches back further than the window length,
+ * the remaining entries of a timestamp can be dropped as a whole once the window has expired,
+ * see {@link #removeEntries(long)}. This is triggered by the owning operator; pruning requests
+ * of the {@link org.apache.flink.cep.nfa.NFA} are ignored.
+ *
+ * @param <T> Type of the values
+ */
+class KeyedSharedBuffer<T> implements SharedBufferAccessor<String, T> {
+
+	private static final String SHARED_BUFFER_STATE_NAME = "sharedBufferEntries";
+
+	private final AbstractStateBackend stateBackend;
+
+	private final ValueStateDescriptor<SharedBufferEntries<T>> entriesStateDescriptor;
+
+	KeyedSharedBuffer(final AbstractStateBackend stateBackend, final TypeSerializer<T> valueSerializer) {
+		this.stateBackend = stateBackend;
+		this.entriesStateDescriptor = new ValueStateDescriptor<>(
+			SHARED_BUFFER_STATE_NAME,
+			new SharedBufferEntriesSerializer<>(valueSerializer),
+			null);
+	}
+
+	@Override
+	public void put(
+			final String key,
+			final T value,
+			final long timestamp,
+			final String previousKey,
+			final T previousValue,
+			final long previousTimestamp,
+			final DeweyNumber version) {
+		try {
+			SharedBufferEntries<T> entries = getOrCreateEntries(timestamp);
+			SharedBufferEntries<T> previousEntries = previousTimestamp == timestamp ? entries : readEntries(previousTimestamp);
+			SharedBufferEntry<T> previousEntry = previousEntries == null ? null : previousEntries.get(previousKey, previousValue);
+
+			// sanity check whether we've found the previous element
+			if (previousEntry == null && previousValue != null) {
+				throw new IllegalStateException("Could not find previous shared buffer entry with " +
+					"key: " + previousKey + ", value: " + previousValue + " and timestamp: " +
+					previousTimestamp + ". This can indicate that the element belonging to the previous " +
+					"relation has been already pruned, even though you expect it to be still there.");
+			}
+
+			SharedBufferEntry<T> entry = entries.getOrCreate(key, value);
+
+			if (previousEntry != null) {
+				entry.addEdge(new SharedBufferEdge(previousTimestamp, previousEntry.getId(), version));
+				previousEntry.increaseReferenceCounter();
+
+				if (previousEntries != entries) {
+					writeEntries(previousTimestamp, previousEntries);
+				}
+			} else {
+				entry.addEdge(new SharedBufferEdge(version));
+			}
+
+			writeEntries(timestamp, entries);
+		} catch (IOException e) {
+			throw new RuntimeException("Could not access the shared buffer state.", e);
+		}
+	}
+
+	@Override
+	public void put(final String key, final T value, final long timestamp, final DeweyNumber version) {
+		try {
+			SharedBufferEntries<T> entries = getOrCreateEntries(timestamp);
+
+			entries.getOrCreate(key, value).addEdge(new SharedBufferEdge(version));
+
+			writeEntries(timestamp, entries);
+		} catch (IOException e) {
+			throw new RuntimeException("Could not access the shared buffer state.", e);
+		}
+	}
+
+	@Override
+	public Collection<LinkedHashMultimap<String, T>> extractPatterns(
+			final String key,
+			final T value,
+			final long timestamp,
+			final DeweyNumber version) {
+		Collection<LinkedHashMultimap<String, T>> result = new ArrayList<>();
+
+		// the entries which have been read so far, indexed by their timestamp
+		Map<Long, SharedBufferEntries<T>> readEntries = new HashMap<>();
+
+		// stack to remember the current extraction states
+		Stack<ExtractionState<T>> extractionStates = new Stack<>();
+
+		try {
+			// get the starting shared buffer entry for the previous relation
+			SharedBufferEntries<T> entries = readEntries(timestamp);
+			SharedBufferEntry<T> entry = entries == null ? null : entries.get(key, value);
+
+			if (entry == null) {
+				return result;
+			}
+
+			readEntries.put(timestamp, entries);
+			extractionStates.add(new ExtractionState<>(entry, version, new Stack<SharedBufferEntry<T>>()));
+
+			// use a depth first search to reconstruct the previous relations
+			while (!extractionStates.isEmpty()) {
+				ExtractionState<T> extractionState = extractionStates.pop();
+				DeweyNumber currentVersion = extractionState.getVersion();
+				// current path of the depth first search
+				Stack<SharedBufferEntry<T>> currentPath = extractionState.getPath();
+
+				// termination criterion
+				if (currentVersion.length() == 1) {
+					LinkedHashMultimap<String, T> completePath = LinkedHashMultimap.create();
+
+					while (!currentPath.isEmpty()) {
+						SharedBufferEntry<T> currentEntry = currentPath.pop();
+
+						completePath.put(currentEntry.getKey(), currentEntry.getValue());
+					}
+
+					result.add(completePath);
+				} else {
+					SharedBufferEntry<T> currentEntry = extractionState.getEntry();
+
+					if (currentEntry == null) {
+						// the path has already been removed, e.g. because its window expired
+						continue;
+					}
+
+					// append state to the path
+					currentPath.push(currentEntry);
+
+					boolean firstMatch = true;
+					for (SharedBufferEdge edge : currentEntry.getEdges()) {
+						// we can only proceed if the current version is compatible to the version
+						// of this previous relation
+						if (currentVersion.isCompatibleWith(edge.getVersion())) {
+							SharedBufferEntry<T> target = getTarget(edge, readEntries);
+
+							if (firstMatch) {
+								// for the first match we don't have to copy the current path
+								extractionStates.push(new ExtractionState<>(target, edge.getVersion(), currentPath));
+								firstMatch = false;
+							} else {
+								Stack<SharedBufferEntry<T>> copy = new Stack<>();
+								copy.addAll(currentPath);
+
+								extractionStates.push(new ExtractionState<>(target, edge.getVersion(), copy));
+							}
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Could not access the shared buffer state.", e);
+		}
+
+		return result;
+	}
+
+	@Override
+	public void lock(final String key, final T value, final long timestamp) {
+		try {
+			SharedBufferEntries<T> entries = readEntries(timestamp);
+			SharedBufferEntry<T> entry = entries == null ? null : entries.get(key, value);
+
+			if (entry != null) {
+				entry.increaseReferenceCounter();
+
+				writeEntries(timestamp, entries);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Could not access the shared buffer state.", e);
+		}
+	}
+
+	@Override
+	public void release(final String key, final T value, final long timestamp) {
+		try {
+			SharedBufferEntries<T> entries = readEntries(timestamp);
+			SharedBufferEntry<T> entry = entries == null ? null : entries.get(key, value);
+
+			if (entry != null) {
+				entry.decreaseReferenceCounter();
+
+				writeEntries(timestamp, entries);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Could not access the shared buffer state.", e);
+		}
+	}
+
+	@Override
+	public void remove(final String key, final T value, final long timestamp) {
+		try {
+			SharedBufferEntries<T> entries = readEntries(timestamp);
+			SharedBufferEntry<T> entry = entries == null ? null : entries.get(key, value);
+
+			if (entry == null) {
+				return;
+			}
+
+			Stack<Tuple2<Long, Integer>> entriesToRemove = new Stack<>();
+			entriesToRemove.add(Tuple2.of(timestamp, entry.getId()));
+
+			while (!entriesToRemove.isEmpty()) {
+				Tuple2<Long, Integer> current = entriesToRemove.pop();
+
+				SharedBufferEntries<T> currentEntries = readEntries(current.f0);
+				SharedBufferEntry<T> currentEntry = currentEntries == null ? null : currentEntries.get(current.f1);
+
+				if (currentEntry != null && currentEntry.getReferenceCounter() == 0) {
+					currentEntries.remove(currentEntry);
+					writeEntries(current.f0, currentEntries);
+
+					for (SharedBufferEdge edge: currentEntry.getEdges()) {
+						if (edge.hasTarget()) {
+							SharedBufferEntries<T> targetEntries = readEntries(edge.getTargetTimestamp());
+							SharedBufferEntry<T> target = targetEntries == null ? null : targetEntries.get(edge.getTargetId());
+
+							if (target != null) {
+								target.decreaseReferenceCounter();
+								writeEntries(edge.getTargetTimestamp(), targetEntries);
+
+								entriesToRemove.push(Tuple2.of(edge.getTargetTimestamp(), edge.getTargetId()));
+							}
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Could not access the shared buffer state.", e);
+		}
+	}
+
+	@Override
+	public void prune(final long pruningTimestamp) {
+		// expired entries are removed per timestamp by the operator, see removeEntries(long)
+	}
+
+	/**
+	 * Removes all entries of the current key with the given timestamp, regardless of their
+	 * reference counters. This must only be called once no computation can refer to the entries
+	 * anymore, i.e. after the window of the timestamp has expired.
+	 *
+	 * @param timestamp Timestamp of the entries to remove
+	 */
+	void removeEntries(final long timestamp) {
+		try {
+			getEntriesState(timestamp).clear();
+		} catch (Exception e) {
+			throw new RuntimeException("Could not access the shared buffer state.", e);
+		}
+	}
+
+	private SharedBufferEntry<T> getTarget(
+			final SharedBufferEdge edge,
+			final Map<Long, SharedBufferEntries<T>> readEntries) throws IOException {
+		if (!edge.hasTarget()) {
+			return null;
+		}
+
+		SharedBufferEntries<T> entries = readEntries.get(edge.getTargetTimestamp());
+
+		if (entries == null) {
+			entries = readEntries(edge.getTargetTimestamp());
+
+			if (entries == null) {
+				return null;
+			}
+
+			readEntries.put(edge.getTargetTimestamp(), entries);
+		}
+
+		return entries.get(edge.getTargetId());
+	}
+
+	private ValueState<SharedBufferEntries<T>> getEntriesState(final long timestamp) throws IOException {
+		try {
+			return stateBackend.getPartitionedState(timestamp, LongSerializer.INSTANCE, entriesStateDescriptor);
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Could not retrieve the shared buffer state.", e);
+		}
+	}
+
+	private SharedBufferEntries<T> readEntries(final long timestamp) throws IOException {
+		return getEntriesState(timestamp).value();
+	}
+
+	private SharedBufferEntries<T> getOrCreateEntries(final long timestamp) throws IOException {
+		SharedBufferEntries<T> entries = readEntries(timestamp);
+
+		return entries == null ? new SharedBufferEntries<T>() : entries;
+	}
+
+	private void writeEntries(final long timestamp, final SharedBufferEntries<T> entries) throws IOException {
+		if (entries.isEmpty()) {
+			getEntriesState(timestamp).clear();
+		} else {
+			getEntriesState(timestamp).update(entries);
+		}
+	}
+
+	/**
+	 * The entries of a key which share the same timestamp. Each entry is assigned an id which is
+	 * unique among these entries.
+	 *
+	 * @param <T> Type of the values
+	 */
+	static class SharedBufferEntries<T> {
+
+		private final List<SharedBufferEntry<T>> entries;
+
+		// id of the next entry to be added
+		private int nextId;
+
+		SharedBufferEntries() {
+			this(new ArrayList<SharedBufferEntry<T>>(), 0);
+		}
+
+		SharedBufferEntries(final List<SharedBufferEntry<T>> entries, final int nextId) {
+			this.entries = entries;
+			this.nextId = nextId;
+		}
+
+		SharedBufferEntry<T> get(final String key, final T value) {
+			for (SharedBufferEntry<T> entry: entries) {
+				if (entry.getKey().equals(key) && entry.getValue().equals(value)) {
+					return entry;
+				}
+			}
+
+			return null;
+		}
+
+		SharedBufferEntry<T> get(final int id) {
+			for (SharedBufferEntry<T> entry: entries) {
+				if (entry.getId() == id) {
+					return entry;
+				}
+			}
+
+			return null;
+		}
+
+		SharedBufferEntry<T> getOrCreate(final String key, final T value) {
+			SharedBufferEntry<T> entry = get(key, value);
+
+			if (entry == null) {
+				entry = new SharedBufferEntry<>(key, value, nextId++, 0, new ArrayList<SharedBufferEdge>());
+				entries.add(entry);
+			}
+
+			return entry;
+		}
+
+		void remove(final SharedBufferEntry<T> entry) {
+			entries.remove(entry);
+		}
+
+		boolean isEmpty() {
+			return entries.isEmpty();
+		}
+
+		List<SharedBufferEntry<T>> getEntries() {
+			return entries;
+		}
+
+		int getNextId() {
+			return nextId;
+		}
+	}
+
+	/**
+	 * Entry of the shared buffer. The entry contains the key and the value, its id, a list of
+	 * edges to its preceding entries and a reference counter.
+	 *
+	 * @param <T> Type of the values
+	 */
+	static class SharedBufferEntry<T> {
+
+		private final String key;
+		private final T value;
+		private final int id;
+		private final List<SharedBufferEdge> edges;
+		private int referenceCounter;
+
+		SharedBufferEntry(
+				final String key,
+				final T value,
+				final int id,
+				final int referenceCounter,
+				final List<SharedBufferEdge> edges) {
+			this.key = key;
+			this.value = value;
+			this.id = id;
+			this.referenceCounter = referenceCounter;
+			this.edges = edges;
+		}
+
+		String getKey() {
+			return key;
+		}
+
+		T getValue() {
+			return value;
+		}
+
+		int getId() {
+			return id;
+		}
+
+		List<SharedBufferEdge> getEdges() {
+			return edges;
+		}
+
+		void addEdge(final SharedBufferEdge edge) {
+			if (!edges.contains(edge)) {
+				edges.add(edge);
+			}
+		}
+
+		int getReferenceCounter() {
+			return referenceCounter;
+		}
+
+		void increaseReferenceCounter() {
+			referenceCounter++;
+		}
+
+		void decreaseReferenceCounter() {
+			if (referenceCounter > 0) {
+				referenceCounter--;
+			}
+		}
+	}
+
+	/**
+	 * Versioned edge to a preceding shared buffer entry, which is referred to by its timestamp
+	 * and id.
+	 */
+	static class SharedBufferEdge {
+
+		private static final int NO_TARGET = -1;
+
+		private final long targetTimestamp;
+		private final int targetId;
+		private final DeweyNumber version;
+
+		SharedBufferEdge(final DeweyNumber version) {
+			this(-1L, NO_TARGET, version);
+		}
+
+		SharedBufferEdge(final long targetTimestamp, final int targetId, final DeweyNumber version) {
+			this.targetTimestamp = targetTimestamp;
+			this.targetId = targetId;
+			this.version = version;
+		}
+
+		boolean hasTarget() {
+			return targetId != NO_TARGET;
+		}
+
+		long getTargetTimestamp() {
+			return targetTimestamp;
+		}
+
+		int getTargetId() {
+			return targetId;
+		}
+
+		DeweyNumber getVersion() {
+			return version;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof SharedBufferEdge) {
+				SharedBufferEdge other = (SharedBufferEdge) obj;
+
+				return targetTimestamp == other.targetTimestamp &&
+					targetId == other.targetId &&
+					version.equals(other.version);
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(targetTimestamp, targetId, version);
+		}
+	}
+
+	/**
+	 * Helper class to store the extraction state while extracting a sequence of values following
+	 * the versioned entry edges.
+	 *
+	 * @param <T> Type of the values
+	 */
+	private static class ExtractionState<T> {
+		private final SharedBufferEntry<T> entry;
+		private final DeweyNumber version;
+		private final Stack<SharedBufferEntry<T>> path;
+
+		ExtractionState(
+				final SharedBufferEntry<T> entry,
+				final DeweyNumber version,
+				final Stack<SharedBufferEntry<T>> path) {
+			this.entry = entry;
+			this.version = version;
+			this.path = path;
+		}
+
+		SharedBufferEntry<T> getEntry() {
+			return entry;
+		}
+
+		DeweyNumber getVersion() {
+			return version;
+		}
+
+		Stack<SharedBufferEntry<T>> getPath() {
+			return path;
+		}
+	}
+
+	/**
+	 * Type serializer for the {@link SharedBufferEntries} of a timestamp.
+	 *
+	 * @param <T> Type of the values
+	 */
+	static class SharedBufferEntriesSerializer<T> extends TypeSerializer<SharedBufferEntries<T>> {
+
+		private static final long serialVersionUID = 4574298712693618428L;
+
+		private final TypeSerializer<T> valueSerializer;
+
+		SharedBufferEntriesSerializer(final TypeSerializer<T> valueSerializer) {
+			this.valueSerializer = valueSerializer;
+		}
+
+		@Override
+		public boolean isImmutableType() {
+			return false;
+		}
+
+		@Override
+		public TypeSerializer<SharedBufferEntries<T>> duplicate() {
+			return new SharedBufferEntriesSerializer<>(valueSerializer.duplicate());
+		}
+
+		@Override
+		public SharedBufferEntries<T> createInstance() {
+			return new SharedBufferEntries<>();
+		}
+
+		@Override
+		public SharedBufferEntries<T> copy(SharedBufferEntries<T> from) {
+			List<SharedBufferEntry<T>> entries = new ArrayList<>(from.getEntries().size());
+
+			for (SharedBufferEntry<T> entry: from.getEntries()) {
+				entries.add(new SharedBufferEntry<>(
+					entry.getKey(),
+					valueSerializer.copy(entry.getValue()),
+					entry.getId(),
+					entry.getReferenceCounter(),
+					new ArrayList<>(entry.getEdges())));
+			}
+
+			return new SharedBufferEntries<>(entries, from.getNextId());
+		}
+
+		@Override
+		public SharedBufferEntries<T> copy(SharedBufferEntries<T> from, SharedBufferEntries<T> reuse) {
+			return copy(from);
+		}
+
+		@Override
+		public int getLength() {
+			return -1;
+		}
+
+		@Override
+		public void serialize(SharedBufferEntries<T> record, DataOutputView target) throws IOException {
+			target.writeInt(record.getNextId());
+			target.writeInt(record.getEntries().size());
+
+			for (SharedBufferEntry<T> entry: record.getEntries()) {
+				target.writeUTF(entry.getKey());
+				target.writeInt(entry.getId());
+				target.writeInt(entry.getReferenceCounter());
+				valueSerializer.serialize(entry.getValue(), target);
+
+				target.writeInt(entry.getEdges().size());
+
+				for (SharedBufferEdge edge: entry.getEdges()) {
+					target.writeLong(edge.getTargetTimestamp());
+					target.writeInt(edge.getTargetId());
+					DeweyNumber.DeweyNumberSerializer.INSTANCE.serialize(edge.getVersion(), target);
+				}
+			}
+		}
+
+		@Override
+		public SharedBufferEntries<T> deserialize(DataInputView source) throws IOException {
+			int nextId = source.readInt();
+			int numberEntries = source.readInt();
+			List<SharedBufferEntry<T>> entries = new ArrayList<>(numberEntries);
+
+			for (int i = 0; i < numberEntries; i++) {
+				String key = source.readUTF();
+				int id = source.readInt();
+				int referenceCounter = source.readInt();
+				T value = valueSerializer.deserialize(source);
+
+				int numberEdges = source.readInt();
+				List<SharedBufferEdge> edges = new ArrayList<>(numberEdges);
+
+				for (int j = 0; j < numberEdges; j++) {
+					long targetTimestamp = source.readLong();
+					int targetId = source.readInt();
+					DeweyNumber version = DeweyNumber.DeweyNumberSerializer.INSTANCE.deserialize(source);
+
+					edges.add(new SharedBufferEdge(targetTimestamp, targetId, version));
+				}
+
+				entries.add(new SharedBufferEntry<>(key, value, id, referenceCounter, edges));
+			}
+
+			return new SharedBufferEntries<>(entries, nextId);
+		}
+
+		@Override
+		public SharedBufferEntries<T> deserialize(SharedBufferEntries<T> reuse, DataInputView source) throws IOException {
+			return deserialize(source);
+		}
+
+		@Override
+		public void copy(DataInputView source, DataOutputView target) throws IOException {
+			serialize(deserialize(source), target);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof SharedBufferEntriesSerializer) {
+				@SuppressWarnings("unchecked")
+				SharedBufferEntriesSerializer<T> other = (SharedBufferEntriesSerializer<T>) obj;
+
+				return other.canEqual(this) && valueSerializer.equals(other.valueSerializer);
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		public boolean canEqual(Object obj) {
+			return obj instanceof SharedBufferEntriesSerializer;
+		}
+
+		@Override
+		public int hashCode() {
+			return valueSerializer.hashCode();
+		}
+	}
+}
@@ -69,4 +69,16 @@ public class TimeoutKeyedCEPPatternOperator<IN, KEY> extends AbstractKeyedCEPPat
 			}
 		}
 	}
+
+	@Override
+	protected void processTimedOutSequences(Collection<Tuple2<Map<String, IN>, Long>> timedOutSequences, long timestamp) {
+		StreamRecord<Either<Tuple2<Map<String, IN>, Long>, Map<String, IN>>> streamRecord = new StreamRecord<Either<Tuple2<Map<String, IN>, Long>, Map<String, IN>>>(
+			null,
+			timestamp);
+
+		for (Tuple2<Map<String, IN>, Long> timedOutSequence: timedOutSequences) {
+			streamRecord.replace(Either.Left(timedOutSequence));
+			output.collect(streamRecord);
+		}
+	}
 }
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.cep.nfa;
+
+import com.google.common.collect.LinkedHashMultimap;
+import org.apache.flink.cep.Event;
+import org.apache.flink.util.TestLogger;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompactSharedBufferTest extends TestLogger {
+
+	@Test
+	public void testCompactSharedBuffer() {
+		CompactSharedBuffer<String, Event> sharedBuffer = new CompactSharedBuffer<>(Event.createTypeSerializer());
+		Event[] events = createEvents(8);
+		final long timestamp = 1L;
+
+		LinkedHashMultimap<String, Event> expectedPattern1 = LinkedHashMultimap.create();
+		expectedPattern1.put("a1", events[2]);
+		expectedPattern1.put("a[]", events[3]);
+		expectedPattern1.put("b", events[5]);
+
+		LinkedHashMultimap<String, Event> expectedPattern2 = LinkedHashMultimap.create();
+		expectedPattern2.put("a1", events[0]);
+		expectedPattern2.put("a[]", events[1]);
+		expectedPattern2.put("a[]", events[2]);
+		expectedPattern2.put("a[]", events[3]);
+		expectedPattern2.put("a[]", events[4]);
+		expectedPattern2.put("b", events[5]);
+
+		LinkedHashMultimap<String, Event> expectedPattern3 = LinkedHashMultimap.create();
+		expectedPattern3.put("a1", events[0]);
+		expectedPattern3.put("a[]", events[1]);
+		expectedPattern3.put("a[]", events[2]);
+		expectedPattern3.put("a[]", events[3]);
+		expectedPattern3.put("a[]", events[4]);
+		expectedPattern3.put("a[]", events[5]);
+		expectedPattern3.put("a[]", events[6]);
+		expectedPattern3.put("b", events[7]);
+
+		fill(sharedBuffer, events, timestamp);
+
+		Collection<LinkedHashMultimap<String, Event>> patterns3 = sharedBuffer.extractPatterns("b", events[7], timestamp, DeweyNumber.fromString("1.1.0"));
+		sharedBuffer.remove("b", events[7], timestamp);
+		Collection<LinkedHashMultimap<String, Event>> patterns4 = sharedBuffer.extractPatterns("b", events[7], timestamp, DeweyNumber.fromString("1.1.0"));
+		Collection<LinkedHashMultimap<String, Event>> patterns1 = sharedBuffer.extractPatterns("b", events[5], timestamp, DeweyNumber.fromString("2.0.0"));
+		Collection<LinkedHashMultimap<String, Event>> patterns2 = sharedBuffer.extractPatterns("b", events[5], timestamp, DeweyNumber.fromString("1.0.0"));
+		sharedBuffer.remove("b", events[5], timestamp);
+
+		assertTrue(sharedBuffer.isEmpty());
+		assertTrue(patterns4.isEmpty());
+		assertEquals(Collections.singletonList(expectedPattern1), patterns1);
+		assertEquals(Collections.singletonList(expectedPattern2), patterns2);
+		assertEquals(Collections.singletonList(expectedPattern3), patterns3);
+	}
+
+	@Test
+	public void testCompactSharedBufferSerialization() throws IOException, ClassNotFoundException {
+		CompactSharedBuffer<String, Event> sharedBuffer = new CompactSharedBuffer<>(Event.createTypeSerializer());
+		Event[] events = createEvents(8);
+		final long timestamp = 1L;
+
+		fill(sharedBuffer, events, timestamp);
+
+		// free some ids so that the serialized buffer has gaps
+		sharedBuffer.remove("b", events[7], timestamp);
+
+		CompactSharedBuffer<String, Event> copy = copy(sharedBuffer);
+
+		assertEquals(sharedBuffer, copy);
+		assertEquals(
+			sharedBuffer.extractPatterns("b", events[5], timestamp, DeweyNumber.fromString("1.0.0")),
+			copy.extractPatterns("b", events[5], timestamp, DeweyNumber.fromString("1.0.0")));
+
+		// the copy reuses the freed ids in the same way as the original buffer
+		Event event = new Event(9, "e9", 8);
+		sharedBuffer.put("b", event, timestamp, "a[]", events[4], timestamp, DeweyNumber.fromString("1.0.0"));
+		copy.put("b", event, timestamp, "a[]", events[4], timestamp, DeweyNumber.fromString("1.0.0"));
+
+		assertEquals(sharedBuffer, copy);
+	}
+
+	@Test
+	public void testCompactSharedBufferPruning() throws IOException, ClassNotFoundException {
+		CompactSharedBuffer<String, Event> sharedBuffer = new CompactSharedBuffer<>(Event.createTypeSerializer());
+		Event[] events = createEvents(100);
+
+		sharedBuffer.put("a", events[0], 0L, DeweyNumber.fromString("1"));
+
+		for (int i = 1; i < events.length; i++) {
+			sharedBuffer.put("a", events[i], i, "a", events[i - 1], i - 1, DeweyNumber.fromString("1.0"));
+		}
+
+		sharedBuffer.prune(49L);
+
+		for (int i = 0; i < events.length; i++) {
+			assertEquals(i >= 50, sharedBuffer.contains("a", events[i], i));
+		}
+
+		// the relation of the oldest remaining entry to its pruned predecessor has been removed
+		assertTrue(sharedBuffer.extractPatterns("a", events[50], 50L, DeweyNumber.fromString("1.0")).isEmpty());
+
+		// new entries reuse the ids of the pruned entries
+		for (int i = 0; i < 50; i++) {
+			sharedBuffer.put("b", events[i], 100L + i, DeweyNumber.fromString("2"));
+		}
+
+		for (int i = 0; i < 50; i++) {
+			assertTrue(sharedBuffer.contains("b", events[i], 100L + i));
+			assertFalse(sharedBuffer.contains("a", events[i], i));
+		}
+
+		// the stale relation does not lead to the new entry of the reused id
+		assertTrue(sharedBuffer.extractPatterns("a", events[50], 50L, DeweyNumber.fromString("1.0")).isEmpty());
+		assertEquals(sharedBuffer, copy(sharedBuffer));
+
+		// pruning without expired entries is a no-op
+		sharedBuffer.prune(49L);
+
+		for (int i = 50; i < events.length; i++) {
+			assertTrue(sharedBuffer.contains("a", events[i], i));
+		}
+
+		sharedBuffer.prune(200L);
+
+		assertTrue(sharedBuffer.isEmpty());
+	}
+
+	@Test
+	public void testCompactSharedBufferPruningOutOfOrder() {
+		CompactSharedBuffer<String, Event> sharedBuffer = new CompactSharedBuffer<>(Event.createTypeSerializer());
+		Event[] events = createEvents(100);
+
+		// the timestamps 0, 99, 1, 98, ... are not added in order
+		for (int i = 0; i < events.length; i++) {
+			long timestamp = i % 2 == 0 ? i / 2 : events.length - 1 - i / 2;
+			sharedBuffer.put("a", events[i], timestamp, DeweyNumber.fromString("1"));
+		}
+
+		// removing entries in between keeps the remaining ones in timestamp order
+		sharedBuffer.remove("a", events[10], 5L);
+		sharedBuffer.remove("a", events[11], 94L);
+
+		for (long pruningTimestamp = 0; pruningTimestamp < events.length; pruningTimestamp += 10) {
+			sharedBuffer.prune(pruningTimestamp);
+
+			for (int i = 0; i < events.length; i++) {
+				long timestamp = i % 2 == 0 ? i / 2 : events.length - 1 - i / 2;
+				boolean removed = i == 10 || i == 11;
+
+				assertEquals(!removed && timestamp > pruningTimestamp, sharedBuffer.contains("a", events[i], timestamp));
+			}
+		}
+	}
+
+	private static Event[] createEvents(int numberEvents) {
+		Event[] events = new Event[numberEvents];
+
+		for (int i = 0; i < numberEvents; i++) {
+			events[i] = new Event(i + 1, "e" + (i + 1), i);
+		}
+
+		return events;
+	}
+
+	private static void fill(CompactSharedBuffer<String, Event> sharedBuffer, Event[] events, long timestamp) {
+		sharedBuffer.put("a1", events[0], timestamp, null, null, 0, DeweyNumber.fromString("1"));
+		sharedBuffer.put("a[]", events[1], timestamp, "a1", events[0], timestamp, DeweyNumber.fromString("1.0"));
+		sharedBuffer.put("a1", events[2], timestamp, null, null, 0, DeweyNumber.fromString("2"));
+		sharedBuffer.put("a[]", events[2], timestamp, "a[]", events[1], timestamp, DeweyNumber.fromString("1.0"));
+		sharedBuffer.put("a[]", events[3], timestamp, "a[]", events[2], timestamp, DeweyNumber.fromString("1.0"));
+		sharedBuffer.put("a[]", events[3], timestamp, "a1", events[2], timestamp, DeweyNumber.fromString("2.0"));
+		sharedBuffer.put("a[]", events[4], timestamp, "a[]", events[3], timestamp, DeweyNumber.fromString("1.0"));
+		sharedBuffer.put("a[]", events[5], timestamp, "a[]", events[4], timestamp, DeweyNumber.fromString("1.1"));
+		sharedBuffer.put("b", events[5], timestamp, "a[]", events[3], timestamp, DeweyNumber.fromString("2.0.0"));
+		sharedBuffer.put("b", events[5], timestamp, "a[]", events[4], timestamp, DeweyNumber.fromString("1.0.0"));
+		sharedBuffer.put("a[]", events[6], timestamp, "a[]", events[5], timestamp, DeweyNumber.fromString("1.1"));
+		sharedBuffer.put("b", events[7], timestamp, "a[]", events[6], timestamp, DeweyNumber.fromString("1.1.0"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static CompactSharedBuffer<String, Event> copy(CompactSharedBuffer<String, Event> sharedBuffer) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+
+		oos.writeObject(sharedBuffer);
+
+		ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+		ObjectInputStream ois = new ObjectInputStream(bais);
+
+		return (CompactSharedBuffer<String, Event>) ois.readObject();
+	}
+}
@@ -18,18 +18,28 @@
 
 package org.apache.flink.cep.operator;
 
+import org.apache.flink.api.common.functions.FilterFunction;
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.cep.Event;
 import org.apache.flink.cep.nfa.NFA;
 import org.apache.flink.cep.nfa.compiler.NFACompiler;
+import org.apache.flink.cep.pattern.Pattern;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.StreamTaskState;
 import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.types.Either;
 import org.apache.flink.util.TestLogger;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class CEPOperatorTest extends TestLogger {
@@ -93,6 +103,175 @@ public class CEPOperatorTest extends TestLogger {
 		harness.close();
 	}
 
+	/**
+	 * Tests that out of order elements are matched once the watermark passes their timestamps
+	 * and that the per key state survives a snapshot and restore cycle.
+	 */
+	@Test
+	public void testKeyedCEPOperatorEventTimeSnapshotRestore() throws Exception {
+		KeySelector<Event, Integer> keySelector = new EventIdKeySelector();
+
+		OneInputStreamOperatorTestHarness<Event, Map<String, Event>> harness = new OneInputStreamOperatorTestHarness<>(
+			new KeyedCEPPatternOperator<Event, Integer>(
+				Event.createTypeSerializer(),
+				false,
+				keySelector,
+				IntSerializer.INSTANCE,
+				new NFAFactory()));
+
+		harness.configureForKeyedStream(keySelector, BasicTypeInfo.INT_TYPE_INFO);
+		harness.open();
+
+		Event startEvent1 = new Event(42, "start", 1.0);
+		Event endEvent1 = new Event(42, "end", 1.0);
+		Event startEvent2 = new Event(43, "start", 2.0);
+		Event endEvent2 = new Event(43, "end", 2.0);
+
+		// the end event arrives before the start event
+		harness.processElement(new StreamRecord<>(endEvent1, 5L));
+		harness.processElement(new StreamRecord<>(startEvent1, 3L));
+		harness.processElement(new StreamRecord<>(startEvent2, 4L));
+		harness.processWatermark(new Watermark(6L));
+
+		List<Map<String, Event>> result = extractPatterns(harness.getOutput());
+
+		assertEquals(1, result.size());
+		assertEquals(startEvent1, result.get(0).get("start"));
+		assertEquals(endEvent1, result.get(0).get("end"));
+
+		StreamTaskState snapshot = harness.snapshot(0L, 0L);
+		harness.close();
+
+		harness = new OneInputStreamOperatorTestHarness<>(
+			new KeyedCEPPatternOperator<Event, Integer>(
+				Event.createTypeSerializer(),
+				false,
+				keySelector,
+				IntSerializer.INSTANCE,
+				new NFAFactory()));
+
+		harness.configureForKeyedStream(keySelector, BasicTypeInfo.INT_TYPE_INFO);
+		harness.setup();
+		harness.restore(snapshot, 1L);
+		harness.open();
+
+		harness.processElement(new StreamRecord<>(endEvent2, 7L));
+		harness.processWatermark(new Watermark(8L));
+
+		result = extractPatterns(harness.getOutput());
+
+		assertEquals(1, result.size());
+		assertEquals(startEvent2, result.get(0).get("start"));
+		assertEquals(endEvent2, result.get(0).get("end"));
+
+		harness.close();
+	}
+
+	/**
+	 * Tests that partial matches of a key which does not receive any further elements are
+	 * timed out once the watermark passes the end of their window.
+	 */
+	@Test
+	public void testKeyedCEPOperatorTimeoutWithoutFurtherElements() throws Exception {
+		KeySelector<Event, Integer> keySelector = new EventIdKeySelector();
+
+		OneInputStreamOperatorTestHarness<Event, Either<Tuple2<Map<String, Event>, Long>, Map<String, Event>>> harness = new OneInputStreamOperatorTestHarness<>(
+			new TimeoutKeyedCEPPatternOperator<Event, Integer>(
+				Event.createTypeSerializer(),
+				false,
+				keySelector,
+				IntSerializer.INSTANCE,
+				new NFAFactory()));
+
+		harness.configureForKeyedStream(keySelector, BasicTypeInfo.INT_TYPE_INFO);
+		harness.open();
+
+		Event startEvent = new Event(42, "start", 1.0);
+
+		harness.processElement(new StreamRecord<>(startEvent, 3L));
+		harness.processWatermark(new Watermark(20L));
+
+		List<Tuple2<Map<String, Event>, Long>> timeouts = new ArrayList<>();
+
+		for (Object record : harness.getOutput()) {
+			if (record instanceof StreamRecord) {
+				@SuppressWarnings("unchecked")
+				Either<Tuple2<Map<String, Event>, Long>, Map<String, Event>> value =
+					((StreamRecord<Either<Tuple2<Map<String, Event>, Long>, Map<String, Event>>>) record).getValue();
+
+				assertTrue(value.isLeft());
+				timeouts.add(value.left());
+			}
+		}
+
+		assertEquals(1, timeouts.size());
+		assertEquals(startEvent, timeouts.get(0).f0.get("start"));
+
+		// the timed out partial match must not be completed anymore
+		harness.getOutput().clear();
+		harness.processElement(new StreamRecord<>(new Event(42, "end", 1.0), 21L));
+		harness.processWatermark(new Watermark(22L));
+
+		for (Object record : harness.getOutput()) {
+			assertFalse(record instanceof StreamRecord);
+		}
+
+		harness.close();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, Event>> extractPatterns(Iterable<Object> output) {
+		List<Map<String, Event>> result = new ArrayList<>();
+
+		for (Object record : output) {
+			if (record instanceof StreamRecord) {
+				result.add(((StreamRecord<Map<String, Event>>) record).getValue());
+			}
+		}
+
+		return result;
+	}
+
+	private static class EventIdKeySelector implements KeySelector<Event, Integer> {
+		private static final long serialVersionUID = -1735210427009219417L;
+
+		@Override
+		public Integer getKey(Event value) throws Exception {
+			return value.getId();
+		}
+	}
+
+	/**
+	 * Matches a "start" event followed by an "end" event within 10 milliseconds.
+	 */
+	private static class NFAFactory implements NFACompiler.NFAFactory<Event> {
+
+		private static final long serialVersionUID = 1916208263446785547L;
+
+		@Override
+		public NFA<Event> createNFA() {
+			Pattern<Event, ?> pattern = Pattern.<Event>begin("start").where(new FilterFunction<Event>() {
+				private static final long serialVersionUID = 5726188262756267490L;
+
+				@Override
+				public boolean filter(Event value) throws Exception {
+					return value.getName().equals("start");
+				}
+			})
+			.followedBy("end").where(new FilterFunction<Event>() {
+				private static final long serialVersionUID = 5726188262756267491L;
+
+				@Override
+				public boolean filter(Event value) throws Exception {
+					return value.getName().equals("end");
+				}
+			})
+			.within(Time.milliseconds(10L));
+
+			return NFACompiler.compile(pattern, Event.createTypeSerializer(), true);
+		}
+	}
+
 	public static class DummyNFAFactory<T> implements NFACompiler.NFAFactory<T> {
 
 		private static final long serialVersionUID = 1173020762472766713L;
@@ -0,0 +1,515 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.codegen
+
+import org.apache.flink.api.common.functions.{CombineFunction, GroupReduceFunction, MapFunction}
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo._
+import org.apache.flink.api.common.typeinfo.TypeInformation
+import org.apache.flink.api.table.TableConfig
+import org.apache.flink.api.table.codegen.AggregationCodeGenerator._
+import org.apache.flink.api.table.codegen.CodeGenUtils._
+import org.apache.flink.api.table.runtime.aggregate._
+import org.apache.flink.api.table.typeutils.RowTypeInfo
+
+/**
+  * A code generator for the [[MapFunction]], [[GroupReduceFunction]] and [[CombineFunction]]
+  * that evaluate a set of [[Aggregate]]s.
+  *
+  * The generated functions produce and consume the same intermediate aggregate Row as
+  * [[AggregateMapFunction]] and [[AggregateReduceGroupFunction]]. However, instead of calling
+  * every aggregate for every record and boxing each partial result into an aggregate buffer Row,
+  * the reduce and combine functions merge all aggregates in a single loop into primitive local
+  * variables. Only the aggregates for which [[isSupported]] returns true can be generated.
+  *
+  * A generator instance generates exactly one function.
+  *
+  * @param config configuration that determines runtime behavior
+  * @param input type information about the input Rows of the Function
+  */
+class AggregationCodeGenerator(
+    config: TableConfig,
+    input: TypeInformation[Any])
+  extends CodeGenerator(config, false, input) {
+
+  /**
+    * Generates the body of a [[MapFunction]] that converts an input Row into an intermediate
+    * aggregate Row. The group keys are moved to the front of the intermediate Row, followed by
+    * the intermediate fields of all aggregates.
+    *
+    * @param aggregates the aggregates to prepare
+    * @param aggFields the input field index of each aggregate
+    * @param groupings the input field indexes of the group keys
+    * @param intermediateType the type of the intermediate aggregate Row
+    * @return code of the function body
+    */
+  def generatePrepareCode(
+      aggregates: Array[Aggregate[_ <: Any]],
+      aggFields: Array[Int],
+      groupings: Array[Int],
+      intermediateType: RowTypeInfo)
+    : String = {
+    addReusableOutRecord(intermediateType)
+
+    val groupingCode = groupings.zipWithIndex.map {
+      case (field, i) => s"$outRecordTerm.setField($i, $input1Term.productElement($field));"
+    }
+
+    val aggregateCode = accumulators(aggregates, groupings.length).zip(aggFields).map {
+      case (acc, field) =>
+        val valueTerm = newName("value")
+        val offset = acc.offset
+        val prepare = acc.kind match {
+          case Count =>
+            s"""
+              |$outRecordTerm.setField($offset,
+              |  java.lang.Long.valueOf($valueTerm == null ? 0L : 1L));
+              |""".stripMargin
+
+          case Sum(_) | Min(_) | Max(_) =>
+            s"$outRecordTerm.setField($offset, $valueTerm);"
+
+          case Avg(sumType) =>
+            val sumTypeTerm = primitiveTypeTermForTypeInfo(sumType)
+            val zeroSum = box(sumType, s"($sumTypeTerm) 0")
+            val inputSum = box(sumType, s"((java.lang.Number) $valueTerm).${sumTypeTerm}Value()")
+            s"""
+              |if ($valueTerm == null) {
+              |  $outRecordTerm.setField($offset, $zeroSum);
+              |  $outRecordTerm.setField(${offset + 1}, java.lang.Long.valueOf(0L));
+              |}
+              |else {
+              |  $outRecordTerm.setField($offset, $inputSum);
+              |  $outRecordTerm.setField(${offset + 1}, java.lang.Long.valueOf(1L));
+              |}
+              |""".stripMargin
+        }
+        s"""
+          |Object $valueTerm = $input1Term.productElement($field);
+          |$prepare
+          |""".stripMargin
+    }
+
+    s"""
+      |${groupingCode.mkString("\n")}
+      |${aggregateCode.mkString("\n")}
+      |return $outRecordTerm;
+      |""".stripMargin
+  }
+
+  /**
+    * Generates the body of a [[GroupReduceFunction]] that merges a group of intermediate
+    * aggregate Rows and emits the final aggregated values.
+    *
+    * @param aggregates the aggregates to evaluate
+    * @param groupKeysMapping the index mapping of group keys between intermediate aggregate Row
+    *                         and output Row
+    * @param aggregateMapping the index mapping between aggregate list and aggregated value
+    *                         index in output Row
+    * @param outputType the type of the output Row
+    * @return code of the function body
+    */
+  def generateReduceCode(
+      aggregates: Array[Aggregate[_ <: Any]],
+      groupKeysMapping: Array[(Int, Int)],
+      aggregateMapping: Array[(Int, Int)],
+      outputType: RowTypeInfo)
+    : String = {
+    addReusableOutRecord(outputType)
+
+    val accs = accumulators(aggregates, groupKeysMapping.length)
+
+    val groupingCode = groupKeysMapping.map {
+      case (after, previous) =>
+        s"$outRecordTerm.setField($after, $input1Term.productElement($previous));"
+    }
+
+    val evaluateCode = aggregateMapping.map {
+      case (after, previous) =>
+        val acc = accs(previous)
+        acc.kind match {
+          case Count =>
+            s"$outRecordTerm.setField($after, java.lang.Long.valueOf(${acc.valueTerm}));"
+
+          case Sum(_) | Min(_) | Max(_) =>
+            setNullable(after, acc.nullTerm, box(acc.kind.tpe, acc.valueTerm))
+
+          case Avg(_) =>
+            val resultType: TypeInformation[_] = outputType.getTypeAt(after)
+            val avg = s"(${primitiveTypeTermForTypeInfo(resultType)}) " +
+              s"(${acc.valueTerm} / ${acc.countTerm})"
+            setNullable(after, s"${acc.countTerm} == 0L", box(resultType, avg))
+        }
+    }
+
+    s"""
+      |${mergeCode(accs)}
+      |${groupingCode.mkString("\n")}
+      |${evaluateCode.mkString("\n")}
+      |$collectorTerm.collect($outRecordTerm);
+      |""".stripMargin
+  }
+
+  /**
+    * Generates the body of a [[CombineFunction]] that merges a group of intermediate aggregate
+    * Rows into a single intermediate aggregate Row.
+    *
+    * @param aggregates the aggregates to combine
+    * @param groupingCount the number of group keys at the front of the intermediate Row
+    * @param intermediateType the type of the intermediate aggregate Row
+    * @return code of the function body
+    */
+  def generateCombineCode(
+      aggregates: Array[Aggregate[_ <: Any]],
+      groupingCount: Int,
+      intermediateType: RowTypeInfo)
+    : String = {
+    addReusableOutRecord(intermediateType)
+
+    val accs = accumulators(aggregates, groupingCount)
+
+    val groupingCode = for (i <- 0 until groupingCount)
+      yield s"$outRecordTerm.setField($i, $input1Term.productElement($i));"
+
+    val writeBackCode = accs.map { acc =>
+      acc.kind match {
+        case Count =>
+          s"$outRecordTerm.setField(${acc.offset}, java.lang.Long.valueOf(${acc.valueTerm}));"
+
+        case Sum(_) | Min(_) | Max(_) =>
+          setNullable(acc.offset, acc.nullTerm, box(acc.kind.tpe, acc.valueTerm))
+
+        case Avg(sumType) =>
+          s"""
+            |$outRecordTerm.setField(${acc.offset}, ${box(sumType, acc.valueTerm)});
+            |$outRecordTerm.setField(${acc.offset + 1}, java.lang.Long.valueOf(${acc.countTerm}));
+            |""".stripMargin
+      }
+    }
+
+    s"""
+      |${mergeCode(accs)}
+      |${groupingCode.mkString("\n")}
+      |${writeBackCode.mkString("\n")}
+      |return $outRecordTerm;
+      |""".stripMargin
+  }
+
+  /**
+    * Generates the body of a [[org.apache.flink.api.common.functions.ReduceFunction]] that
+    * merges the intermediate aggregate values of the second input Row into the first input Row.
+    * Both Rows must belong to the same group.
+    *
+    * @param aggregates the aggregates to merge
+    * @param groupingCount the number of group keys at the front of the intermediate Row
+    * @return code of the function body
+    */
+  def generateIncrementalReduceCode(
+      aggregates: Array[Aggregate[_ <: Any]],
+      groupingCount: Int)
+    : String = {
+
+    val merges = accumulators(aggregates, groupingCount).map { acc =>
+      val offset = acc.offset
+      val partialTerm = newName("partial")
+      val bufferTerm = newName("buffer")
+      acc.kind match {
+        case Count =>
+          val count = s"${unbox(LONG_TYPE_INFO, s"$input1Term.productElement($offset)")} + " +
+            s"${unbox(LONG_TYPE_INFO, s"$input2Term.productElement($offset)")}"
+          s"$input1Term.setField($offset, ${box(LONG_TYPE_INFO, count)});"
+
+        case Sum(_) | Min(_) | Max(_) =>
+          val tpe = acc.kind.tpe
+          val typeTerm = primitiveTypeTermForTypeInfo(tpe)
+          val partialValue = unbox(tpe, partialTerm)
+          val bufferValue = unbox(tpe, bufferTerm)
+          val merge = acc.kind match {
+            case Sum(_) =>
+              s"$input1Term.setField($offset, " +
+                s"${box(tpe, s"($typeTerm) ($partialValue + $bufferValue)")});"
+            case Min(_) =>
+              s"""
+                |if (${compare(tpe, partialValue, bufferValue)} < 0) {
+                |  $input1Term.setField($offset, $partialTerm);
+                |}
+                |""".stripMargin
+            case _ =>
+              s"""
+                |if (${compare(tpe, partialValue, bufferValue)} > 0) {
+                |  $input1Term.setField($offset, $partialTerm);
+                |}
+                |""".stripMargin
+          }
+          s"""
+            |Object $partialTerm = $input2Term.productElement($offset);
+            |if ($partialTerm != null) {
+            |  Object $bufferTerm = $input1Term.productElement($offset);
+            |  if ($bufferTerm == null) {
+            |    $input1Term.setField($offset, $partialTerm);
+            |  }
+            |  else {
+            |    $merge
+            |  }
+            |}
+            |""".stripMargin
+
+        case Avg(sumType) =>
+          val sumTerm = newName("sum")
+          val countTerm = newName("count")
+          val sumTypeTerm = primitiveTypeTermForTypeInfo(sumType)
+          val bufferSum = unbox(sumType, s"$input1Term.productElement($offset)")
+          val bufferCount = unbox(LONG_TYPE_INFO, s"$input1Term.productElement(${offset + 1})")
+          val partialSum = unbox(sumType, s"$input2Term.productElement($offset)")
+          val partialCount = unbox(LONG_TYPE_INFO, s"$input2Term.productElement(${offset + 1})")
+          val merge = if (sumType == LONG_TYPE_INFO) {
+            s"""
+              |${checkedAdd(sumTerm, partialSum)}
+              |${checkedAdd(countTerm, partialCount)}
+              |""".stripMargin
+          } else {
+            s"""
+              |$sumTerm += $partialSum;
+              |$countTerm += $partialCount;
+              |""".stripMargin
+          }
+          s"""
+            |$sumTypeTerm $sumTerm = $bufferSum;
+            |long $countTerm = $bufferCount;
+            |$merge
+            |$input1Term.setField($offset, ${box(sumType, sumTerm)});
+            |$input1Term.setField(${offset + 1}, ${box(LONG_TYPE_INFO, countTerm)});
+            |""".stripMargin
+      }
+    }
+
+    s"""
+      |${merges.mkString("\n")}
+      |return $input1Term;
+      |""".stripMargin
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  private case class Accumulator(
+      kind: AggregateKind,
+      offset: Int,
+      valueTerm: String,
+      nullTerm: String,
+      countTerm: String)
+
+  private def accumulators(
+      aggregates: Array[Aggregate[_ <: Any]],
+      groupingCount: Int)
+    : Array[Accumulator] = {
+    var offset = groupingCount
+    aggregates.map { agg =>
+      val acc = Accumulator(
+        aggregateKind(agg).getOrElse(
+          throw new CodeGenException(s"Unsupported aggregate: ${agg.getClass.getName}")),
+        offset,
+        newName("acc"),
+        newName("accIsNull"),
+        newName("accCount"))
+      offset += agg.intermediateDataType.length
+      acc
+    }
+  }
+
+  /**
+    * Generates the loop that merges all records of the group into the accumulators. After the
+    * loop, the input term refers to the last record of the group.
+    */
+  private def mergeCode(accs: Array[Accumulator]): String = {
+    val inputTypeTerm = boxedTypeTermForTypeInfo(input)
+
+    val declarations = accs.map { acc =>
+      acc.kind match {
+        case Count =>
+          s"long ${acc.valueTerm} = 0L;"
+
+        case Sum(_) | Min(_) | Max(_) =>
+          val tpe = acc.kind.tpe
+          s"""
+            |${primitiveTypeTermForTypeInfo(tpe)} ${acc.valueTerm} = ${primitiveDefaultValue(tpe)};
+            |boolean ${acc.nullTerm} = true;
+            |""".stripMargin
+
+        case Avg(sumType) =>
+          s"""
+            |${primitiveTypeTermForTypeInfo(sumType)} ${acc.valueTerm} = 0;
+            |long ${acc.countTerm} = 0L;
+            |""".stripMargin
+      }
+    }
+
+    val merges = accs.map { acc =>
+      val fieldTerm = s"$input1Term.productElement(${acc.offset})"
+      acc.kind match {
+        case Count =>
+          s"${acc.valueTerm} += ${unbox(LONG_TYPE_INFO, fieldTerm)};"
+
+        case Sum(tpe) =>
+          val typeTerm = primitiveTypeTermForTypeInfo(tpe)
+          mergeNullable(acc, fieldTerm, (partial) =>
+            s"${acc.valueTerm} = ($typeTerm) (${acc.valueTerm} + $partial);")
+
+        case Min(tpe) =>
+          mergeNullable(acc, fieldTerm, (partial) =>
+            s"""
+              |if (${compare(tpe, partial, acc.valueTerm)} < 0) {
+              |  ${acc.valueTerm} = $partial;
+              |}
+              |""".stripMargin)
+
+        case Max(tpe) =>
+          mergeNullable(acc, fieldTerm, (partial) =>
+            s"""
+              |if (${compare(tpe, partial, acc.valueTerm)} > 0) {
+              |  ${acc.valueTerm} = $partial;
+              |}
+              |""".stripMargin)
+
+        case Avg(LONG_TYPE_INFO) =>
+          val countFieldTerm = s"$input1Term.productElement(${acc.offset + 1})"
+          s"""
+            |${checkedAdd(acc.valueTerm, unbox(LONG_TYPE_INFO, fieldTerm))}
+            |${checkedAdd(acc.countTerm, unbox(LONG_TYPE_INFO, countFieldTerm))}
+            |""".stripMargin
+
+        case Avg(sumType) =>
+          val countFieldTerm = s"$input1Term.productElement(${acc.offset + 1})"
+          s"""
+            |${acc.valueTerm} += ${unbox(sumType, fieldTerm)};
+            |${acc.countTerm} += ${unbox(LONG_TYPE_INFO, countFieldTerm)};
+            |""".stripMargin
+      }
+    }
+
+    s"""
+      |${declarations.mkString("\n")}
+      |$inputTypeTerm $input1Term = null;
+      |while ($input1IteratorTerm.hasNext()) {
+      |  $input1Term = ($inputTypeTerm) $input1IteratorTerm.next();
+      |  ${merges.mkString("\n")}
+      |}
+      |""".stripMargin
+  }
+
+  private def mergeNullable(
+      acc: Accumulator,
+      fieldTerm: String,
+      merge: (String) => String)
+    : String = {
+    val partialTerm = newName("partial")
+    val partialValueTerm = newName("partialValue")
+    s"""
+      |Object $partialTerm = $fieldTerm;
+      |if ($partialTerm != null) {
+      |  ${primitiveTypeTermForTypeInfo(acc.kind.tpe)} $partialValueTerm =
+      |    ${unbox(acc.kind.tpe, partialTerm)};
+      |  if (${acc.nullTerm}) {
+      |    ${acc.valueTerm} = $partialValueTerm;
+      |    ${acc.nullTerm} = false;
+      |  }
+      |  else {
+      |    ${merge(partialValueTerm)}
+      |  }
+      |}
+      |""".stripMargin
+  }
+
+  private def setNullable(index: Int, nullTerm: String, valueTerm: String): String = {
+    s"""
+      |if ($nullTerm) {
+      |  $outRecordTerm.setField($index, null);
+      |}
+      |else {
+      |  $outRecordTerm.setField($index, $valueTerm);
+      |}
+      |""".stripMargin
+  }
+
+  // overflow check of com.google.common.math.LongMath.checkedAdd, which is not available to
+  // generated code as Guava is shaded
+  private def checkedAdd(accTerm: String, partial: String): String = {
+    val partialTerm = newName("partial")
+    val resultTerm = newName("result")
+    s"""
+      |long $partialTerm = $partial;
+      |long $resultTerm = $partialTerm + $accTerm;
+      |if ((($partialTerm ^ $resultTerm) & ($accTerm ^ $resultTerm)) < 0) {
+      |  throw new java.lang.ArithmeticException(
+      |    "overflow: checkedAdd(" + $partialTerm + ", " + $accTerm + ")");
+      |}
+      |$accTerm = $resultTerm;
+      |""".stripMargin
+  }
+
+  private def compare(tpe: TypeInformation[_], left: String, right: String): String = tpe match {
+    case FLOAT_TYPE_INFO | DOUBLE_TYPE_INFO | BOOLEAN_TYPE_INFO =>
+      s"${boxedTypeTermForTypeInfo(tpe)}.compare($left, $right)"
+    case _ =>
+      s"($left < $right ? -1 : ($left > $right ? 1 : 0))"
+  }
+
+  private def unbox(tpe: TypeInformation[_], term: String): String =
+    s"((${boxedTypeTermForTypeInfo(tpe)}) $term).${primitiveTypeTermForTypeInfo(tpe)}Value()"
+
+  private def box(tpe: TypeInformation[_], term: String): String =
+    s"${boxedTypeTermForTypeInfo(tpe)}.valueOf($term)"
+}
+
+object AggregationCodeGenerator {
+
+  /**
+    * Describes how an [[Aggregate]] is merged by generated code.
+    *
+    * @param tpe type of the accumulated value
+    */
+  private[codegen] sealed abstract class AggregateKind(val tpe: TypeInformation[_])
+
+  private[codegen] case object Count extends AggregateKind(LONG_TYPE_INFO)
+
+  private[codegen] case class Sum(override val tpe: TypeInformation[_]) extends AggregateKind(tpe)
+
+  private[codegen] case class Min(override val tpe: TypeInformation[_]) extends AggregateKind(tpe)
+
+  private[codegen] case class Max(override val tpe: TypeInformation[_]) extends AggregateKind(tpe)
+
+  private[codegen] case class Avg(override val tpe: TypeInformation[_]) extends AggregateKind(tpe)
+
+  private def aggregateKind(aggregate: Aggregate[_ <: Any]): Option[AggregateKind] =
+    aggregate match {
+      case _: CountAggregate => Some(Count)
+      case _: SumAggregate[_] => Some(Sum(aggregate.intermediateDataType(0)))
+      case _: MinAggregate[_] => Some(Min(aggregate.intermediateDataType(0)))
+      case _: MaxAggregate[_] => Some(Max(aggregate.intermediateDataType(0)))
+      // the sum of a long average is a BigInteger
+      case _: LongAvgAggregate => None
+      case _: IntegralAvgAggregate[_] => Some(Avg(LONG_TYPE_INFO))
+      case _: FloatingAvgAggregate[_] => Some(Avg(DOUBLE_TYPE_INFO))
+      case _ => None
+    }
+
+  /**
+    * Returns true if code can be generated for all of the given aggregates.
+    */
+  def isSupported(aggregates: Array[Aggregate[_ <: Any]]): Boolean =
+    aggregates.forall(aggregateKind(_).isDefined)
+}
@@ -24,7 +24,7 @@ import org.apache.calcite.rex._
 import org.apache.calcite.sql.`type`.SqlTypeName._
 import org.apache.calcite.sql.fun.SqlStdOperatorTable._
 import org.apache.calcite.sql.{SqlLiteral, SqlOperator}
-import org.apache.flink.api.common.functions.{FlatJoinFunction, FlatMapFunction, Function, MapFunction}
+import org.apache.flink.api.common.functions.{CombineFunction, FlatJoinFunction, FlatMapFunction, Function, GroupReduceFunction, MapFunction, ReduceFunction}
 import org.apache.flink.api.common.typeinfo.{AtomicType, SqlTimeTypeInfo, TypeInformation}
 import org.apache.flink.api.common.typeutils.CompositeType
 import org.apache.flink.api.java.typeutils.{PojoTypeInfo, TupleTypeInfo}
@@ -143,6 +143,11 @@ class CodeGenerator(
     */
   def input2Term = "in2"
 
+  /**
+    * @return term of the iterator over the grouped first input
+    */
+  def input1IteratorTerm = "in1Iterator"
+
   /**
     * @return term of the (casted) output collector
     */
@@ -216,6 +221,26 @@ class CodeGenerator(
           List(s"$inputTypeTerm1 $input1Term = ($inputTypeTerm1) _in1;",
           s"$inputTypeTerm2 $input2Term = ($inputTypeTerm2) _in2;"))
       }
+
+      // GroupReduceFunction
+      else if (clazz == classOf[GroupReduceFunction[_,_]]) {
+        (s"void reduce(java.lang.Iterable _in1, org.apache.flink.util.Collector $collectorTerm)",
+          List(s"java.util.Iterator $input1IteratorTerm = _in1.iterator();"))
+      }
+
+      // CombineFunction
+      else if (clazz == classOf[CombineFunction[_,_]]) {
+        ("Object combine(java.lang.Iterable _in1)",
+          List(s"java.util.Iterator $input1IteratorTerm = _in1.iterator();"))
+      }
+
+      // ReduceFunction
+      else if (clazz == classOf[ReduceFunction[_]]) {
+        val inputTypeTerm = boxedTypeTermForTypeInfo(input1)
+        ("Object reduce(Object _in1, Object _in2)",
+          List(s"$inputTypeTerm $input1Term = ($inputTypeTerm) _in1;",
+          s"$inputTypeTerm $input2Term = ($inputTypeTerm) _in2;"))
+      }
       else {
         // TODO more functions
         throw new CodeGenException("Unsupported Function.")
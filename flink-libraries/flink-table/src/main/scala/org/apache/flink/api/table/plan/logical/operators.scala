@@ -22,7 +22,7 @@ import scala.collection.mutable
 import org.apache.calcite.rel.RelNode
 import org.apache.calcite.rel.`type`.RelDataType
 import org.apache.calcite.rel.core.JoinRelType
-import org.apache.calcite.rel.logical.LogicalProject
+import org.apache.calcite.rel.logical.{LogicalAggregate, LogicalProject}
 import org.apache.calcite.rex.{RexInputRef, RexNode}
 import org.apache.calcite.tools.RelBuilder
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo._
@@ -30,6 +30,7 @@ import org.apache.flink.api.common.typeinfo.TypeInformation
 import org.apache.flink.api.java.operators.join.JoinType
 import org.apache.flink.api.table._
 import org.apache.flink.api.table.expressions._
+import org.apache.flink.api.table.plan.logical.rel.LogicalWindowAggregate
 import org.apache.flink.api.table.typeutils.TypeConverter
 
 case class Project(projectList: Seq[NamedExpression], child: LogicalNode) extends UnaryNode {
@@ -196,12 +197,18 @@ case class Aggregate(
 
   override def validate(tableEnv: TableEnvironment): LogicalNode = {
     if (tableEnv.isInstanceOf[StreamTableEnvironment]) {
-      throw new TableException(s"Aggregate on stream tables is currently not supported.")
+      throw new TableException(s"Aggregate on stream tables is currently only supported " +
+        s"on group windows.")
     }
 
     val resolvedAggregate = super.validate(tableEnv).asInstanceOf[Aggregate]
-    val groupingExprs = resolvedAggregate.groupingExpressions
-    val aggregateExprs = resolvedAggregate.aggregateExpressions
+    resolvedAggregate.validateAggregation()
+    resolvedAggregate
+  }
+
+  private[logical] def validateAggregation(): Unit = {
+    val groupingExprs = groupingExpressions
+    val aggregateExprs = aggregateExpressions
     aggregateExprs.foreach(validateAggregateExpression)
     groupingExprs.foreach(validateGroupingExpression)
 
@@ -232,7 +239,45 @@ case class Aggregate(
             "because it's not a valid key type")
       }
     }
-    resolvedAggregate
+  }
+}
+
+case class WindowAggregate(
+    groupingExpressions: Seq[Expression],
+    window: GroupWindow,
+    aggregateExpressions: Seq[NamedExpression],
+    child: LogicalNode) extends UnaryNode {
+
+  override def output: Seq[Attribute] = {
+    (groupingExpressions ++ aggregateExpressions) map { agg =>
+      agg match {
+        case ne: NamedExpression => ne.toAttribute
+        case e => Alias(e, e.toString).toAttribute
+      }
+    }
+  }
+
+  override protected[logical] def construct(relBuilder: RelBuilder): RelBuilder = {
+    Aggregate(groupingExpressions, aggregateExpressions, child).construct(relBuilder)
+    relBuilder.build() match {
+      case aggregate: LogicalAggregate =>
+        relBuilder.push(LogicalWindowAggregate.create(window, aggregate))
+      case _ => throw new RuntimeException("This should never happen.")
+    }
+  }
+
+  override def validate(tableEnv: TableEnvironment): LogicalNode = {
+    if (!tableEnv.isInstanceOf[StreamTableEnvironment]) {
+      throw new TableException(s"Group windows are only supported on stream tables.")
+    }
+
+    val resolvedWindowAggregate = super.validate(tableEnv).asInstanceOf[WindowAggregate]
+    // a window aggregate is validated like an aggregate on each window
+    Aggregate(
+      resolvedWindowAggregate.groupingExpressions,
+      resolvedWindowAggregate.aggregateExpressions,
+      resolvedWindowAggregate.child).validateAggregation()
+    resolvedWindowAggregate
   }
 }
 
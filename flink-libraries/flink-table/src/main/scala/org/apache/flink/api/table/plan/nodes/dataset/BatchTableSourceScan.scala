@@ -19,34 +19,52 @@
 package org.apache.flink.api.table.plan.nodes.dataset
 
 import org.apache.calcite.plan._
-import org.apache.calcite.rel.RelNode
 import org.apache.calcite.rel.`type`.RelDataType
+import org.apache.calcite.rel.{RelNode, RelWriter}
 import org.apache.flink.api.common.typeinfo.TypeInformation
 import org.apache.flink.api.java.DataSet
 import org.apache.flink.api.table.BatchTableEnvironment
 import org.apache.flink.api.table.plan.schema.TableSourceTable
-import org.apache.flink.api.table.sources.BatchTableSource
+import org.apache.flink.api.table.sources.{BatchTableSource, FilterableTableSource}
 
-/** Flink RelNode to read data from an external source defined by a [[BatchTableSource]]. */
+import scala.collection.JavaConverters._
+
+/**
+  * Flink RelNode to read data from an external source defined by a [[BatchTableSource]].
+  * The [[BatchTableSource]] of the scan might differ from the source of the scanned table if
+  * fields or predicates have been pushed into it.
+  */
 class BatchTableSourceScan(
     cluster: RelOptCluster,
     traitSet: RelTraitSet,
     table: RelOptTable,
-    rowType: RelDataType)
+    rowType: RelDataType,
+    val tableSource: BatchTableSource[_])
   extends BatchScan(cluster, traitSet, table, rowType) {
 
-  val tableSourceTable = table.unwrap(classOf[TableSourceTable])
-  val tableSource = tableSourceTable.tableSource.asInstanceOf[BatchTableSource[_]]
+  val tableSourceTable = new TableSourceTable(tableSource)
 
   override def copy(traitSet: RelTraitSet, inputs: java.util.List[RelNode]): RelNode = {
     new BatchTableSourceScan(
       cluster,
       traitSet,
       table,
-      rowType
+      rowType,
+      tableSource
     )
   }
 
+  override def explainTerms(pw: RelWriter): RelWriter = {
+    val predicates = tableSource match {
+      case filterable: FilterableTableSource[_] => filterable.getPredicates.toSeq
+      case _ => Seq()
+    }
+
+    super.explainTerms(pw)
+      .item("fields", rowType.getFieldNames.asScala.mkString(", "))
+      .itemIf("filter", predicates.mkString(" && "), predicates.nonEmpty)
+  }
+
   override def translateToPlan(
       tableEnv: BatchTableEnvironment,
       expectedType: Option[TypeInformation[Any]]): DataSet[Any] = {
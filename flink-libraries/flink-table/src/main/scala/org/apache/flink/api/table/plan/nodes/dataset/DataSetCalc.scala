@@ -41,7 +41,7 @@ class DataSetCalc(
     traitSet: RelTraitSet,
     input: RelNode,
     rowType: RelDataType,
-    calcProgram: RexProgram,
+    val calcProgram: RexProgram,
     ruleDescription: String)
   extends SingleRel(cluster, traitSet, input)
   with FlinkCalc
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.plan.nodes.datastream
+
+import org.apache.calcite.plan.{RelOptCluster, RelTraitSet}
+import org.apache.calcite.rel.`type`.RelDataType
+import org.apache.calcite.rel.core.AggregateCall
+import org.apache.calcite.rel.{RelNode, RelWriter, SingleRel}
+import org.apache.flink.api.common.typeinfo.TypeInformation
+import org.apache.flink.api.table.runtime.aggregate.AggregateUtil
+import org.apache.flink.api.table.runtime.aggregate.AggregateUtil.CalcitePair
+import org.apache.flink.api.table.typeutils.{RowTypeInfo, TypeConverter}
+import org.apache.flink.api.table._
+import org.apache.flink.streaming.api.TimeCharacteristic
+import org.apache.flink.streaming.api.datastream.DataStream
+import org.apache.flink.streaming.api.windowing.assigners._
+import org.apache.flink.streaming.api.windowing.time.Time
+import org.apache.flink.streaming.api.windowing.windows.Window
+
+import scala.collection.JavaConverters._
+
+/**
+  * Flink RelNode which matches along with a LogicalWindowAggregate. The aggregates are
+  * incrementally pre-aggregated by the WindowOperator and evaluated once per window.
+  */
+class DataStreamAggregate(
+    window: GroupWindow,
+    cluster: RelOptCluster,
+    traitSet: RelTraitSet,
+    input: RelNode,
+    namedAggregates: Seq[CalcitePair[AggregateCall, String]],
+    rowType: RelDataType,
+    inputType: RelDataType,
+    grouping: Array[Int])
+  extends SingleRel(cluster, traitSet, input)
+  with DataStreamRel {
+
+  override def deriveRowType() = rowType
+
+  override def copy(traitSet: RelTraitSet, inputs: java.util.List[RelNode]): RelNode = {
+    new DataStreamAggregate(
+      window,
+      cluster,
+      traitSet,
+      inputs.get(0),
+      namedAggregates,
+      rowType,
+      inputType,
+      grouping)
+  }
+
+  override def toString: String = {
+    s"Aggregate(${ if (!grouping.isEmpty) {
+      s"groupBy: ($groupingToString), "
+    } else {
+      ""
+    }}window: ($window), select: ($aggregationToString))"
+  }
+
+  override def explainTerms(pw: RelWriter): RelWriter = {
+    super.explainTerms(pw)
+      .itemIf("groupBy", groupingToString, !grouping.isEmpty)
+      .item("window", window)
+      .item("select", aggregationToString)
+  }
+
+  override def translateToPlan(
+      tableEnv: StreamTableEnvironment,
+      expectedType: Option[TypeInformation[Any]]): DataStream[Any] = {
+
+    val config = tableEnv.getConfig
+
+    val groupingKeys = grouping.indices.toArray
+    // add grouping fields, position keys in the input, and input type
+    val (mapFunction, reduceFunction, windowFunction) =
+      AggregateUtil.createOperatorFunctionsForWindowAggregates(namedAggregates,
+        inputType, rowType, grouping, config)
+
+    val inputDS = input.asInstanceOf[DataStreamRel].translateToPlan(
+      tableEnv,
+      // tell the input operator that this operator currently only supports Rows as input
+      Some(TypeConverter.DEFAULT_ROW_TYPE))
+
+    // get the output types
+    val fieldTypes: Array[TypeInformation[_]] = rowType.getFieldList.asScala
+    .map(f => f.getType.getSqlTypeName)
+    .map(n => TypeConverter.sqlTypeToTypeInfo(n))
+    .toArray
+
+    val aggString = aggregationToString
+    val prepareOpName = s"prepare select: ($aggString)"
+    val mappedInput = inputDS
+      .map(mapFunction)
+      .name(prepareOpName)
+
+    val rowTypeInfo = new RowTypeInfo(fieldTypes, rowType.getFieldNames.asScala)
+    val windowAssigner = createWindowAssigner(tableEnv.execEnv.getStreamTimeCharacteristic)
+
+    val result = {
+      if (groupingKeys.length > 0) {
+        // grouped window aggregation
+        val aggOpName = s"groupBy: ($groupingToString), window: ($window), select: ($aggString)"
+        mappedInput
+          .keyBy(groupingKeys: _*)
+          .window(windowAssigner)
+          .apply(reduceFunction, windowFunction, rowTypeInfo)
+          .name(aggOpName)
+          .asInstanceOf[DataStream[Any]]
+      }
+      else {
+        // global window aggregation
+        val aggOpName = s"window: ($window), select: ($aggString)"
+        mappedInput
+          .windowAll(windowAssigner)
+          .apply(reduceFunction, windowFunction, rowTypeInfo)
+          .name(aggOpName)
+          .asInstanceOf[DataStream[Any]]
+      }
+    }
+
+    // if the expected type is not a Row, inject a mapper to convert to the expected type
+    expectedType match {
+      case Some(typeInfo) if typeInfo.getTypeClass != classOf[Row] =>
+        val mapName = s"convert: (${rowType.getFieldNames.asScala.toList.mkString(", ")})"
+        result.map(getConversionMapper(
+          config,
+          rowTypeInfo.asInstanceOf[TypeInformation[Any]],
+          expectedType.get,
+          "AggregateOutputConversion",
+          rowType.getFieldNames.asScala
+        ))
+        .name(mapName)
+      case _ => result
+    }
+  }
+
+  /**
+    * Creates the assigner of the group window. Windows are based on event time unless the
+    * program runs on processing time.
+    */
+  private def createWindowAssigner(
+      timeCharacteristic: TimeCharacteristic): WindowAssigner[Object, Window] = {
+
+    val processingTime = timeCharacteristic == TimeCharacteristic.ProcessingTime
+
+    val assigner: WindowAssigner[_, _] = window match {
+      case TumblingWindow(size) if processingTime =>
+        TumblingProcessingTimeWindows.of(Time.milliseconds(size))
+      case TumblingWindow(size) =>
+        TumblingEventTimeWindows.of(Time.milliseconds(size))
+      case SlidingWindow(size, slide) if processingTime =>
+        SlidingProcessingTimeWindows.of(Time.milliseconds(size), Time.milliseconds(slide))
+      case SlidingWindow(size, slide) =>
+        SlidingEventTimeWindows.of(Time.milliseconds(size), Time.milliseconds(slide))
+      case SessionWindow(gap) if processingTime =>
+        ProcessingTimeSessionWindows.withGap(Time.milliseconds(gap))
+      case SessionWindow(gap) =>
+        EventTimeSessionWindows.withGap(Time.milliseconds(gap))
+    }
+    assigner.asInstanceOf[WindowAssigner[Object, Window]]
+  }
+
+  private def groupingToString: String = {
+
+    val inFields = inputType.getFieldNames.asScala
+    grouping.map( inFields(_) ).mkString(", ")
+  }
+
+  private def aggregationToString: String = {
+
+    val inFields = inputType.getFieldNames.asScala
+    val outFields = rowType.getFieldNames.asScala
+
+    val groupStrings = grouping.map( inFields(_) )
+
+    val aggs = namedAggregates.map(_.getKey)
+    val aggStrings = aggs.map( a => s"${a.getAggregation}(${
+      if (a.getArgList.size() > 0) {
+        inFields(a.getArgList.get(0))
+      } else {
+        "*"
+      }
+    })")
+
+    (groupStrings ++ aggStrings).zip(outFields).map {
+      case (f, o) => if (f == o) {
+        f
+      } else {
+        s"$f AS $o"
+      }
+    }.mkString(", ")
+  }
+
+}
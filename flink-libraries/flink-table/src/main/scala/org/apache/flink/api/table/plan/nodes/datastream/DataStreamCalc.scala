@@ -18,8 +18,9 @@
 
 package org.apache.flink.api.table.plan.nodes.datastream
 
-import org.apache.calcite.plan.{RelOptCluster, RelTraitSet}
+import org.apache.calcite.plan.{RelOptCluster, RelOptCost, RelOptPlanner, RelTraitSet}
 import org.apache.calcite.rel.`type`.RelDataType
+import org.apache.calcite.rel.metadata.RelMetadataQuery
 import org.apache.calcite.rel.{RelNode, RelWriter, SingleRel}
 import org.apache.calcite.rex.RexProgram
 import org.apache.flink.api.common.typeinfo.TypeInformation
@@ -39,7 +40,7 @@ class DataStreamCalc(
     traitSet: RelTraitSet,
     input: RelNode,
     rowType: RelDataType,
-    calcProgram: RexProgram,
+    val calcProgram: RexProgram,
     ruleDescription: String)
   extends SingleRel(cluster, traitSet, input)
   with FlinkCalc
@@ -68,6 +69,14 @@ class DataStreamCalc(
         calcProgram.getCondition != null)
   }
 
+  override def computeSelfCost (planner: RelOptPlanner, metadata: RelMetadataQuery): RelOptCost = {
+
+    val child = this.getInput
+    val rowCnt = metadata.getRowCount(child)
+    val exprCnt = calcProgram.getExprCount
+    planner.getCostFactory.makeCost(rowCnt, rowCnt * exprCnt, 0)
+  }
+
   override def translateToPlan(
       tableEnv: StreamTableEnvironment,
       expectedType: Option[TypeInformation[Any]]): DataStream[Any] = {
@@ -19,34 +19,52 @@
 package org.apache.flink.api.table.plan.nodes.datastream
 
 import org.apache.calcite.plan._
-import org.apache.calcite.rel.RelNode
 import org.apache.calcite.rel.`type`.RelDataType
+import org.apache.calcite.rel.{RelNode, RelWriter}
 import org.apache.flink.api.common.typeinfo.TypeInformation
 import org.apache.flink.api.table.StreamTableEnvironment
-import org.apache.flink.api.table.plan.schema.StreamableTableSourceTable
-import org.apache.flink.api.table.sources.StreamTableSource
+import org.apache.flink.api.table.plan.schema.TableSourceTable
+import org.apache.flink.api.table.sources.{FilterableTableSource, StreamTableSource}
 import org.apache.flink.streaming.api.datastream.DataStream
 
-/** Flink RelNode to read data from an external source defined by a [[StreamTableSource]]. */
+import scala.collection.JavaConverters._
+
+/**
+  * Flink RelNode to read data from an external source defined by a [[StreamTableSource]].
+  * The [[StreamTableSource]] of the scan might differ from the source of the scanned table if
+  * fields or predicates have been pushed into it.
+  */
 class StreamTableSourceScan(
     cluster: RelOptCluster,
     traitSet: RelTraitSet,
     table: RelOptTable,
-    rowType: RelDataType)
+    rowType: RelDataType,
+    val tableSource: StreamTableSource[_])
   extends StreamScan(cluster, traitSet, table, rowType) {
 
-  val tableSourceTable = table.unwrap(classOf[StreamableTableSourceTable])
-  val tableSource = tableSourceTable.tableSource.asInstanceOf[StreamTableSource[_]]
+  val tableSourceTable = new TableSourceTable(tableSource)
 
   override def copy(traitSet: RelTraitSet, inputs: java.util.List[RelNode]): RelNode = {
     new StreamTableSourceScan(
       cluster,
       traitSet,
       table,
-      rowType
+      rowType,
+      tableSource
     )
   }
 
+  override def explainTerms(pw: RelWriter): RelWriter = {
+    val predicates = tableSource match {
+      case filterable: FilterableTableSource[_] => filterable.getPredicates.toSeq
+      case _ => Seq()
+    }
+
+    super.explainTerms(pw)
+      .item("fields", rowType.getFieldNames.asScala.mkString(", "))
+      .itemIf("filter", predicates.mkString(" && "), predicates.nonEmpty)
+  }
+
   override def translateToPlan(
       tableEnv: StreamTableEnvironment,
       expectedType: Option[TypeInformation[Any]]): DataStream[Any] = {
@@ -56,12 +56,14 @@ class BatchTableSourceScanRule
   def convert(rel: RelNode): RelNode = {
     val scan: TableScan = rel.asInstanceOf[TableScan]
     val traitSet: RelTraitSet = rel.getTraitSet.replace(DataSetConvention.INSTANCE)
+    val tableSource = scan.getTable.unwrap(classOf[TableSourceTable]).tableSource
 
     new BatchTableSourceScan(
       rel.getCluster,
       traitSet,
       scan.getTable,
-      rel.getRowType
+      rel.getRowType,
+      tableSource.asInstanceOf[BatchTableSource[_]]
     )
   }
 }
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.plan.rules.dataSet
+
+import org.apache.calcite.plan.{RelOptRule, RelOptRuleCall}
+import org.apache.calcite.plan.RelOptRule.{none, operand}
+import org.apache.flink.api.table.plan.nodes.dataset.{DataSetCalc, BatchTableSourceScan}
+import org.apache.flink.api.table.plan.rules.util.TableSourcePushDownUtil._
+import org.apache.flink.api.table.sources.{BatchTableSource, FilterableTableSource}
+
+/**
+  * Rule to push the supported conjunctive terms of the condition of a [[DataSetCalc]] into the
+  * [[FilterableTableSource]] of a [[BatchTableSourceScan]].
+  */
+class PushFilterIntoBatchTableSourceScanRule extends RelOptRule(
+  operand(classOf[DataSetCalc],
+    operand(classOf[BatchTableSourceScan], none)),
+  "PushFilterIntoBatchTableSourceScanRule") {
+
+  /** Rule must only match if the Calc has a condition and scans a [[FilterableTableSource]] */
+  override def matches(call: RelOptRuleCall): Boolean = {
+    val calc: DataSetCalc = call.rel(0).asInstanceOf[DataSetCalc]
+    val scan: BatchTableSourceScan = call.rel(1).asInstanceOf[BatchTableSourceScan]
+    scan.tableSource match {
+      case _: FilterableTableSource[_] => calc.calcProgram.getCondition != null
+      case _ => false
+    }
+  }
+
+  override def onMatch(call: RelOptRuleCall): Unit = {
+    val calc: DataSetCalc = call.rel(0).asInstanceOf[DataSetCalc]
+    val scan: BatchTableSourceScan = call.rel(1).asInstanceOf[BatchTableSourceScan]
+    val tableSource = scan.tableSource.asInstanceOf[FilterableTableSource[_]]
+
+    val (pushed, remaining) = extractConjunctions(calc.calcProgram).partition {
+      case (_, Some(predicate)) => tableSource.supportsPredicate(predicate)
+      case _ => false
+    }
+
+    // only transform the plan if the source evaluates at least one predicate
+    if (pushed.nonEmpty) {
+      val newTableSource = tableSource.applyPredicates(pushed.map(_._2.get).toArray)
+
+      val newScan = new BatchTableSourceScan(
+        scan.getCluster,
+        scan.getTraitSet,
+        scan.getTable,
+        scan.getRowType,
+        newTableSource.asInstanceOf[BatchTableSource[_]])
+
+      val newCalcProgram = rewriteCondition(
+        calc.calcProgram,
+        remaining.map(_._1),
+        calc.getCluster.getRexBuilder)
+
+      val newCalc = new DataSetCalc(
+        calc.getCluster,
+        calc.getTraitSet,
+        newScan,
+        calc.getRowType,
+        newCalcProgram,
+        description)
+
+      call.transformTo(newCalc)
+    }
+  }
+}
+
+object PushFilterIntoBatchTableSourceScanRule {
+  val INSTANCE: RelOptRule = new PushFilterIntoBatchTableSourceScanRule
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.plan.rules.dataSet
+
+import org.apache.calcite.plan.{RelOptRule, RelOptRuleCall}
+import org.apache.calcite.plan.RelOptRule.{none, operand}
+import org.apache.flink.api.table.plan.nodes.dataset.{DataSetCalc, BatchTableSourceScan}
+import org.apache.flink.api.table.plan.rules.util.TableSourcePushDownUtil._
+import org.apache.flink.api.table.sources.{BatchTableSource, ProjectableTableSource}
+
+/**
+  * Rule to push the fields which are accessed by a [[DataSetCalc]] into the
+  * [[ProjectableTableSource]] of a [[BatchTableSourceScan]].
+  */
+class PushProjectIntoBatchTableSourceScanRule extends RelOptRule(
+  operand(classOf[DataSetCalc],
+    operand(classOf[BatchTableSourceScan], none)),
+  "PushProjectIntoBatchTableSourceScanRule") {
+
+  /** Rule must only match if the scanned source is a [[ProjectableTableSource]] */
+  override def matches(call: RelOptRuleCall): Boolean = {
+    val scan: BatchTableSourceScan = call.rel(1).asInstanceOf[BatchTableSourceScan]
+    scan.tableSource match {
+      case _: ProjectableTableSource[_] => true
+      case _ => false
+    }
+  }
+
+  override def onMatch(call: RelOptRuleCall): Unit = {
+    val calc: DataSetCalc = call.rel(0).asInstanceOf[DataSetCalc]
+    val scan: BatchTableSourceScan = call.rel(1).asInstanceOf[BatchTableSourceScan]
+
+    val accessedFields = extractRefInputFields(calc.calcProgram)
+    // a source must produce at least one field
+    val usedFields = if (accessedFields.isEmpty) Array(0) else accessedFields
+
+    // only push the projection if it removes fields
+    if (usedFields.length < scan.getRowType.getFieldCount) {
+      val tableSource = scan.tableSource.asInstanceOf[ProjectableTableSource[_]]
+      val newTableSource = tableSource.projectFields(usedFields)
+
+      val newScan = new BatchTableSourceScan(
+        scan.getCluster,
+        scan.getTraitSet,
+        scan.getTable,
+        getTableSourceRowType(scan.getCluster, newTableSource),
+        newTableSource.asInstanceOf[BatchTableSource[_]])
+
+      val newCalcProgram = rewriteRexProgram(
+        calc.calcProgram,
+        newScan.getRowType,
+        usedFields,
+        calc.getCluster.getRexBuilder)
+
+      val newCalc = new DataSetCalc(
+        calc.getCluster,
+        calc.getTraitSet,
+        newScan,
+        calc.getRowType,
+        newCalcProgram,
+        description)
+
+      call.transformTo(newCalc)
+    }
+  }
+}
+
+object PushProjectIntoBatchTableSourceScanRule {
+  val INSTANCE: RelOptRule = new PushProjectIntoBatchTableSourceScanRule
+}
@@ -57,12 +57,14 @@ class StreamTableSourceScanRule
   def convert(rel: RelNode): RelNode = {
     val scan: LogicalTableScan = rel.asInstanceOf[LogicalTableScan]
     val traitSet: RelTraitSet = rel.getTraitSet.replace(DataStreamConvention.INSTANCE)
+    val tableSource = scan.getTable.unwrap(classOf[StreamableTableSourceTable]).tableSource
 
     new StreamTableSourceScan(
       rel.getCluster,
       traitSet,
       scan.getTable,
-      rel.getRowType
+      rel.getRowType,
+      tableSource.asInstanceOf[StreamTableSource[_]]
     )
   }
 }
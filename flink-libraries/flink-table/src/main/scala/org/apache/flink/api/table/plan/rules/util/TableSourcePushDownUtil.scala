@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.plan.rules.util
+
+import org.apache.calcite.plan.{RelOptCluster, RelOptUtil}
+import org.apache.calcite.rel.`type`.RelDataType
+import org.apache.calcite.rex._
+import org.apache.calcite.sql.SqlKind
+import org.apache.calcite.sql.`type`.SqlTypeName
+import org.apache.flink.api.table.expressions._
+import org.apache.flink.api.table.plan.schema.TableSourceTable
+import org.apache.flink.api.table.sources.TableSource
+import org.apache.flink.api.table.typeutils.TypeConverter
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+
+/**
+  * Utility methods to push projections and filters of a Calc into a table source scan.
+  */
+object TableSourcePushDownUtil {
+
+  /**
+    * Returns the row type of the fields which are produced by a [[TableSource]].
+    */
+  def getTableSourceRowType(cluster: RelOptCluster, tableSource: TableSource[_]): RelDataType = {
+    new TableSourceTable(tableSource).getRowType(cluster.getTypeFactory)
+  }
+
+  /**
+    * Extracts the indexes of all input fields which are accessed by the projections and the
+    * condition of the [[RexProgram]].
+    *
+    * @param rexProgram The [[RexProgram]] to analyze.
+    * @return The sorted indexes of the accessed input fields.
+    */
+  def extractRefInputFields(rexProgram: RexProgram): Array[Int] = {
+    val visitor = new RefFieldsVisitor
+
+    // extract input fields from project expressions
+    rexProgram.getProjectList.asScala.foreach(p => rexProgram.expandLocalRef(p).accept(visitor))
+
+    // extract input fields from condition expression
+    val condition = rexProgram.getCondition
+    if (condition != null) {
+      rexProgram.expandLocalRef(condition).accept(visitor)
+    }
+
+    visitor.getFields
+  }
+
+  /**
+    * Rewrites a [[RexProgram]] such that it only accesses the given input fields.
+    *
+    * @param rexProgram The [[RexProgram]] to rewrite.
+    * @param inputRowType The row type of the projected input.
+    * @param usedInputFields The indexes of the original input fields which are retained.
+    * @param rexBuilder The [[RexBuilder]] to create the new [[RexProgram]].
+    * @return A [[RexProgram]] which accesses the projected input.
+    */
+  def rewriteRexProgram(
+      rexProgram: RexProgram,
+      inputRowType: RelDataType,
+      usedInputFields: Array[Int],
+      rexBuilder: RexBuilder): RexProgram = {
+
+    val inputRewriter = new InputRewriter(usedInputFields.zipWithIndex.toMap)
+
+    val newProjectExpressions = rexProgram.getProjectList.asScala
+      .map(p => rexProgram.expandLocalRef(p).accept(inputRewriter))
+
+    val condition = rexProgram.getCondition
+    val newConditionExpression = if (condition != null) {
+      rexProgram.expandLocalRef(condition).accept(inputRewriter)
+    } else {
+      null
+    }
+
+    RexProgram.create(
+      inputRowType,
+      newProjectExpressions.asJava,
+      newConditionExpression,
+      rexProgram.getOutputRowType,
+      rexBuilder)
+  }
+
+  /**
+    * Splits the condition of a [[RexProgram]] into its conjunctive terms and translates each
+    * term into an [[Expression]]. Terms which cannot be translated are paired with None.
+    *
+    * @param rexProgram The [[RexProgram]] whose condition is split.
+    * @return The conjunctive terms of the condition and their translated [[Expression]]s.
+    */
+  def extractConjunctions(rexProgram: RexProgram): Seq[(RexNode, Option[Expression])] = {
+    val condition = rexProgram.getCondition
+    if (condition == null) {
+      Seq()
+    } else {
+      val inputRowType = rexProgram.getInputRowType
+      RelOptUtil.conjunctions(rexProgram.expandLocalRef(condition)).asScala
+        .map(c => (c, toExpression(c, inputRowType)))
+    }
+  }
+
+  /**
+    * Replaces the condition of a [[RexProgram]] by the conjunction of the given terms.
+    *
+    * @param rexProgram The [[RexProgram]] to rewrite.
+    * @param conjunctions The remaining conjunctive terms of the condition.
+    * @param rexBuilder The [[RexBuilder]] to create the new [[RexProgram]].
+    * @return A [[RexProgram]] with the new condition.
+    */
+  def rewriteCondition(
+      rexProgram: RexProgram,
+      conjunctions: Seq[RexNode],
+      rexBuilder: RexBuilder): RexProgram = {
+
+    val projectExpressions = rexProgram.getProjectList.asScala
+      .map(p => rexProgram.expandLocalRef(p))
+
+    // the condition is null if no conjunctions remain
+    val newConditionExpression = RexUtil.composeConjunction(rexBuilder, conjunctions.asJava, true)
+
+    RexProgram.create(
+      rexProgram.getInputRowType,
+      projectExpressions.asJava,
+      newConditionExpression,
+      rexProgram.getOutputRowType,
+      rexBuilder)
+  }
+
+  /**
+    * Translates a simple predicate into an [[Expression]]. Only field references, literals,
+    * comparisons, null checks, and logical connectives are supported.
+    */
+  private def toExpression(rex: RexNode, inputRowType: RelDataType): Option[Expression] = {
+    rex match {
+      case inputRef: RexInputRef =>
+        val field = inputRowType.getFieldList.get(inputRef.getIndex)
+        val fieldType = TypeConverter.sqlTypeToTypeInfo(field.getType.getSqlTypeName)
+        Some(ResolvedFieldReference(field.getName, fieldType))
+
+      case literal: RexLiteral =>
+        toLiteral(literal)
+
+      case call: RexCall =>
+        val operands = call.getOperands.asScala.map(toExpression(_, inputRowType))
+        if (operands.exists(_.isEmpty)) {
+          None
+        } else {
+          val args = operands.map(_.get)
+          call.getOperator.getKind match {
+            case SqlKind.EQUALS => Some(EqualTo(args.head, args(1)))
+            case SqlKind.NOT_EQUALS => Some(NotEqualTo(args.head, args(1)))
+            case SqlKind.GREATER_THAN => Some(GreaterThan(args.head, args(1)))
+            case SqlKind.GREATER_THAN_OR_EQUAL => Some(GreaterThanOrEqual(args.head, args(1)))
+            case SqlKind.LESS_THAN => Some(LessThan(args.head, args(1)))
+            case SqlKind.LESS_THAN_OR_EQUAL => Some(LessThanOrEqual(args.head, args(1)))
+            case SqlKind.IS_NULL => Some(IsNull(args.head))
+            case SqlKind.IS_NOT_NULL => Some(IsNotNull(args.head))
+            case SqlKind.NOT => Some(Not(args.head))
+            case SqlKind.AND => Some(args.reduceLeft[Expression](And(_, _)))
+            case SqlKind.OR => Some(args.reduceLeft[Expression](Or(_, _)))
+            case _ => None
+          }
+        }
+
+      case _ => None
+    }
+  }
+
+  private def toLiteral(literal: RexLiteral): Option[Expression] = {
+    literal.getType.getSqlTypeName match {
+      case SqlTypeName.TINYINT => Some(Literal(decimalValue(literal).byteValue()))
+      case SqlTypeName.SMALLINT => Some(Literal(decimalValue(literal).shortValue()))
+      case SqlTypeName.INTEGER => Some(Literal(decimalValue(literal).intValue()))
+      case SqlTypeName.BIGINT => Some(Literal(decimalValue(literal).longValue()))
+      case SqlTypeName.FLOAT => Some(Literal(decimalValue(literal).floatValue()))
+      case SqlTypeName.DOUBLE => Some(Literal(decimalValue(literal).doubleValue()))
+      case SqlTypeName.DECIMAL => Some(Literal(decimalValue(literal)))
+      case SqlTypeName.BOOLEAN =>
+        Some(Literal(literal.getValue.asInstanceOf[java.lang.Boolean].booleanValue()))
+      case SqlTypeName.CHAR | SqlTypeName.VARCHAR =>
+        Some(Literal(literal.getValue2.asInstanceOf[String]))
+      case _ => None
+    }
+  }
+
+  private def decimalValue(literal: RexLiteral): java.math.BigDecimal =
+    literal.getValue.asInstanceOf[java.math.BigDecimal]
+
+}
+
+/**
+  * Collects the indexes of all accessed input fields.
+  */
+class RefFieldsVisitor extends RexVisitorImpl[Unit](true) {
+
+  private val fields = mutable.LinkedHashSet[Int]()
+
+  def getFields: Array[Int] = fields.toArray.sorted
+
+  override def visitInputRef(inputRef: RexInputRef): Unit = fields += inputRef.getIndex
+
+  override def visitCall(call: RexCall): Unit =
+    call.getOperands.asScala.foreach(operand => operand.accept(this))
+}
+
+/**
+  * Maps the accessed input fields to their index in the projected input.
+  *
+  * @param fieldMap Maps the original index of an input field to its new index.
+  */
+class InputRewriter(fieldMap: Map[Int, Int]) extends RexShuttle {
+
+  override def visitInputRef(inputRef: RexInputRef): RexNode =
+    new RexInputRef(relNodeIndex(inputRef), inputRef.getType)
+
+  override def visitLocalRef(localRef: RexLocalRef): RexNode =
+    new RexInputRef(relNodeIndex(localRef), localRef.getType)
+
+  private def relNodeIndex(ref: RexSlot): Int =
+    fieldMap.getOrElse(ref.getIndex,
+      throw new IllegalArgumentException(s"Input field ${ref.getIndex} is not projected."))
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.runtime
+
+import java.lang.Iterable
+
+import org.apache.flink.api.common.functions.{CombineFunction, Function, GroupReduceFunction, RichGroupReduceFunction}
+import org.apache.flink.api.common.typeinfo.TypeInformation
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable
+import org.apache.flink.configuration.Configuration
+import org.apache.flink.util.Collector
+import org.slf4j.LoggerFactory
+
+/**
+  * A [[GroupReduceFunction]] that is also a [[CombineFunction]]. The reduce and the combine
+  * logic are generated as two separate classes that are compiled when the function is opened.
+  */
+class GroupReduceCombineRunner[IN, OUT](
+    reduceName: String,
+    reduceCode: String,
+    combineName: String,
+    combineCode: String,
+    @transient returnType: TypeInformation[OUT])
+  extends RichGroupReduceFunction[IN, OUT]
+  with CombineFunction[IN, IN]
+  with ResultTypeQueryable[OUT]
+  with FunctionCompiler[Function] {
+
+  val LOG = LoggerFactory.getLogger(this.getClass)
+
+  private var reduceFunction: GroupReduceFunction[IN, OUT] = null
+
+  private var combineFunction: CombineFunction[IN, IN] = null
+
+  override def open(parameters: Configuration): Unit = {
+    val cl = getRuntimeContext.getUserCodeClassLoader
+    LOG.debug(s"Compiling GroupReduceFunction: $reduceName \n\n Code:\n$reduceCode")
+    val reduceClazz = compile(cl, reduceName, reduceCode)
+    LOG.debug(s"Compiling CombineFunction: $combineName \n\n Code:\n$combineCode")
+    val combineClazz = compile(cl, combineName, combineCode)
+    LOG.debug("Instantiating GroupReduceFunction and CombineFunction.")
+    reduceFunction = reduceClazz.newInstance().asInstanceOf[GroupReduceFunction[IN, OUT]]
+    combineFunction = combineClazz.newInstance().asInstanceOf[CombineFunction[IN, IN]]
+  }
+
+  override def reduce(values: Iterable[IN], out: Collector[OUT]): Unit =
+    reduceFunction.reduce(values, out)
+
+  override def combine(values: Iterable[IN]): IN =
+    combineFunction.combine(values)
+
+  override def getProducedType: TypeInformation[OUT] = returnType
+}
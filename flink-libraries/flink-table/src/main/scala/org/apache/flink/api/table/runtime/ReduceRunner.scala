@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.runtime
+
+import org.apache.flink.api.common.functions.ReduceFunction
+import org.slf4j.LoggerFactory
+
+/**
+  * Runs a generated [[ReduceFunction]]. Window operators do not accept rich pre-aggregation
+  * functions, so the generated code is compiled when the first two values are reduced.
+  */
+class ReduceRunner[T](
+    name: String,
+    code: String)
+  extends ReduceFunction[T]
+  with FunctionCompiler[ReduceFunction[T]] {
+
+  val LOG = LoggerFactory.getLogger(this.getClass)
+
+  @transient private var function: ReduceFunction[T] = null
+
+  override def reduce(value1: T, value2: T): T = {
+    if (function == null) {
+      LOG.debug(s"Compiling ReduceFunction: $name \n\n Code:\n$code")
+      val clazz = compile(getClass.getClassLoader, name, code)
+      LOG.debug("Instantiating ReduceFunction.")
+      function = clazz.newInstance()
+    }
+    function.reduce(value1, value2)
+  }
+}
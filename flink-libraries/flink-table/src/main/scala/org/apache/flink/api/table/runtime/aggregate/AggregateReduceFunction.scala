@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.runtime.aggregate
+
+import org.apache.flink.api.common.functions.ReduceFunction
+import org.apache.flink.api.table.Row
+import org.apache.flink.util.Preconditions
+
+/**
+ * It merges two intermediate aggregate Rows incrementally, for example as pre-aggregation of a
+ * [[org.apache.flink.streaming.api.datastream.WindowedStream]].
+ *
+ * @param aggregates   The aggregate functions.
+ */
+class AggregateReduceFunction(
+    private val aggregates: Array[Aggregate[_ <: Any]])
+    extends ReduceFunction[Row] {
+
+  Preconditions.checkNotNull(aggregates)
+
+  /**
+   * Merges the intermediate aggregate values of the second Row into the first Row. Both Rows
+   * belong to the same group and hence have the same group keys.
+   *
+   * @param value1 The intermediate aggregate Row that accumulates the values.
+   * @param value2 The intermediate aggregate Row to merge.
+   * @return The first Row holding the merged values.
+   */
+  override def reduce(value1: Row, value2: Row): Row = {
+    aggregates.foreach(_.merge(value2, value1))
+    value1
+  }
+}
@@ -25,8 +25,10 @@ import org.apache.calcite.sql.SqlAggFunction
 import org.apache.calcite.sql.`type`.SqlTypeName._
 import org.apache.calcite.sql.`type`.{SqlTypeFactoryImpl, SqlTypeName}
 import org.apache.calcite.sql.fun._
-import org.apache.flink.api.common.functions.{GroupReduceFunction, MapFunction}
+import org.apache.flink.api.common.functions.{CombineFunction, GroupReduceFunction, MapFunction, ReduceFunction}
 import org.apache.flink.api.common.typeinfo.TypeInformation
+import org.apache.flink.api.table.codegen.AggregationCodeGenerator
+import org.apache.flink.api.table.runtime.{GroupReduceCombineRunner, MapRunner, ReduceRunner}
 import org.apache.flink.api.table.typeutils.TypeConverter
 import org.apache.flink.api.table.typeutils.RowTypeInfo
 import org.apache.flink.api.table.{TableException, Row, TableConfig}
@@ -76,10 +78,6 @@ object AggregateUtil {
     val mapReturnType: RowTypeInfo =
       createAggregateBufferDataType(groupings, aggregates, inputType)
 
-    val mapFunction = new AggregateMapFunction[Row, Row](
-        aggregates, aggFieldIndexes, groupings,
-        mapReturnType.asInstanceOf[RowTypeInfo]).asInstanceOf[MapFunction[Any, Row]]
-
     // the mapping relation between field index of intermediate aggregate Row and output Row.
     val groupingOffsetMapping = getGroupKeysMapping(inputType, outputType, groupings)
 
@@ -93,6 +91,31 @@ object AggregateUtil {
           "or aggregate functions.")
     }
 
+    if (AggregationCodeGenerator.isSupported(aggregates)) {
+      createGeneratedFunctionsForAggregates(aggregates, aggFieldIndexes, groupings,
+        groupingOffsetMapping, aggOffsetMapping, mapReturnType, outputType, config)
+    }
+    else {
+      createInterpretedFunctionsForAggregates(aggregates, aggFieldIndexes, groupings,
+        groupingOffsetMapping, aggOffsetMapping, mapReturnType)
+    }
+  }
+
+  /**
+   * Create Flink operator functions that call the aggregate functions for every record.
+   */
+  private def createInterpretedFunctionsForAggregates(
+      aggregates: Array[Aggregate[_ <: Any]],
+      aggFieldIndexes: Array[Int],
+      groupings: Array[Int],
+      groupingOffsetMapping: Array[(Int, Int)],
+      aggOffsetMapping: Array[(Int, Int)],
+      mapReturnType: RowTypeInfo): (MapFunction[Any, Row], GroupReduceFunction[Row, Row]) = {
+
+    val mapFunction = new AggregateMapFunction[Row, Row](
+        aggregates, aggFieldIndexes, groupings,
+        mapReturnType.asInstanceOf[RowTypeInfo]).asInstanceOf[MapFunction[Any, Row]]
+
     val allPartialAggregate = aggregates.map(_.supportPartial).forall(x => x)
 
     val intermediateRowArity = groupings.length + aggregates.map(_.intermediateDataType.length).sum
@@ -110,6 +133,137 @@ object AggregateUtil {
     (mapFunction, reduceGroupFunction)
   }
 
+  /**
+   * Create Flink operator functions whose code is generated for the given aggregates. The
+   * reduce function merges all aggregates of a group in a single loop over primitive values
+   * and is also used as combiner, as all generated aggregates support partial aggregation.
+   */
+  private def createGeneratedFunctionsForAggregates(
+      aggregates: Array[Aggregate[_ <: Any]],
+      aggFieldIndexes: Array[Int],
+      groupings: Array[Int],
+      groupingOffsetMapping: Array[(Int, Int)],
+      aggOffsetMapping: Array[(Int, Int)],
+      mapReturnType: RowTypeInfo,
+      outputType: RelDataType,
+      config: TableConfig): (MapFunction[Any, Row], GroupReduceFunction[Row, Row]) = {
+
+    val intermediateType = mapReturnType.asInstanceOf[TypeInformation[Any]]
+    val reduceReturnType = new RowTypeInfo(outputType.getFieldList
+      .map(_.getType.getSqlTypeName)
+      .map(TypeConverter.sqlTypeToTypeInfo))
+
+    val mapGenerator = new AggregationCodeGenerator(config, TypeConverter.DEFAULT_ROW_TYPE)
+    val mapFunction = mapGenerator.generateFunction(
+      "AggregateMapFunction",
+      classOf[MapFunction[Any, Row]],
+      mapGenerator.generatePrepareCode(aggregates, aggFieldIndexes, groupings, mapReturnType),
+      intermediateType)
+
+    val reduceGenerator = new AggregationCodeGenerator(config, intermediateType)
+    val reduceFunction = reduceGenerator.generateFunction(
+      "AggregateReduceFunction",
+      classOf[GroupReduceFunction[Row, Row]],
+      reduceGenerator.generateReduceCode(aggregates, groupingOffsetMapping, aggOffsetMapping,
+        reduceReturnType),
+      reduceReturnType.asInstanceOf[TypeInformation[Any]])
+
+    val combineGenerator = new AggregationCodeGenerator(config, intermediateType)
+    val combineFunction = combineGenerator.generateFunction(
+      "AggregateCombineFunction",
+      classOf[CombineFunction[Row, Row]],
+      combineGenerator.generateCombineCode(aggregates, groupings.length, mapReturnType),
+      intermediateType)
+
+    val mapRunner = new MapRunner[Any, Row](
+      mapFunction.name,
+      mapFunction.code,
+      mapReturnType)
+
+    val reduceRunner = new GroupReduceCombineRunner[Row, Row](
+      reduceFunction.name,
+      reduceFunction.code,
+      combineFunction.name,
+      combineFunction.code,
+      reduceReturnType)
+
+    (mapRunner, reduceRunner)
+  }
+
+  /**
+   * Create Flink operator functions for aggregates that are incrementally evaluated on windows.
+   * It includes a [[org.apache.flink.api.common.functions.MapFunction]] that prepares the same
+   * intermediate aggregate Row as for createOperatorFunctionsForAggregates, a
+   * [[org.apache.flink.api.common.functions.ReduceFunction]] that merges the intermediate
+   * aggregate Rows of a window as they arrive, and an [[AggregateWindowFunction]] that evaluates
+   * the final aggregate values when the window is emitted.
+   */
+  def createOperatorFunctionsForWindowAggregates(
+      namedAggregates: Seq[CalcitePair[AggregateCall, String]],
+      inputType: RelDataType, outputType: RelDataType,
+      groupings: Array[Int],
+      config: TableConfig)
+    : (MapFunction[Any, Row], ReduceFunction[Row], AggregateWindowFunction) = {
+
+    val aggregateFunctionsAndFieldIndexes =
+      transformToAggregateFunctions(namedAggregates.map(_.getKey), inputType, groupings.length)
+    // store the aggregate fields of each aggregate function, by the same order of aggregates.
+    val aggFieldIndexes = aggregateFunctionsAndFieldIndexes._1
+    val aggregates = aggregateFunctionsAndFieldIndexes._2
+
+    if (!aggregates.forall(_.supportPartial)) {
+      throw new TableException("Window aggregates must support partial aggregation.")
+    }
+
+    val mapReturnType: RowTypeInfo =
+      createAggregateBufferDataType(groupings, aggregates, inputType)
+
+    // the mapping relation between field index of intermediate aggregate Row and output Row.
+    val groupingOffsetMapping = getGroupKeysMapping(inputType, outputType, groupings)
+
+    // the mapping relation between aggregate function index in list and its corresponding
+    // field index in output Row.
+    val aggOffsetMapping = getAggregateMapping(namedAggregates, outputType)
+
+    if (groupingOffsetMapping.length != groupings.length ||
+        aggOffsetMapping.length != namedAggregates.length) {
+      throw new TableException("Could not find output field in input data type " +
+          "or aggregate functions.")
+    }
+
+    val windowFunction =
+      new AggregateWindowFunction(aggregates, groupingOffsetMapping, aggOffsetMapping)
+
+    if (AggregationCodeGenerator.isSupported(aggregates)) {
+      val intermediateType = mapReturnType.asInstanceOf[TypeInformation[Any]]
+
+      val mapGenerator = new AggregationCodeGenerator(config, TypeConverter.DEFAULT_ROW_TYPE)
+      val mapFunction = mapGenerator.generateFunction(
+        "AggregateMapFunction",
+        classOf[MapFunction[Any, Row]],
+        mapGenerator.generatePrepareCode(aggregates, aggFieldIndexes, groupings, mapReturnType),
+        intermediateType)
+
+      val reduceGenerator = new AggregationCodeGenerator(config, intermediateType)
+      val reduceFunction = reduceGenerator.generateFunction(
+        "AggregateReduceFunction",
+        classOf[ReduceFunction[Row]],
+        reduceGenerator.generateIncrementalReduceCode(aggregates, groupings.length),
+        intermediateType)
+
+      (new MapRunner[Any, Row](mapFunction.name, mapFunction.code, mapReturnType),
+        new ReduceRunner[Row](reduceFunction.name, reduceFunction.code),
+        windowFunction)
+    }
+    else {
+      val mapFunction = new AggregateMapFunction[Row, Row](
+        aggregates, aggFieldIndexes, groupings,
+        mapReturnType.asInstanceOf[RowTypeInfo]).asInstanceOf[MapFunction[Any, Row]]
+
+      (mapFunction, new AggregateReduceFunction(aggregates), windowFunction)
+    }
+  }
+
   private def transformToAggregateFunctions(
       aggregateCalls: Seq[AggregateCall],
       inputType: RelDataType,
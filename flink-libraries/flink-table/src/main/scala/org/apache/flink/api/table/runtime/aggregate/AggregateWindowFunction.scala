@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.runtime.aggregate
+
+import java.lang.Iterable
+
+import org.apache.flink.api.java.tuple.Tuple
+import org.apache.flink.api.table.Row
+import org.apache.flink.streaming.api.functions.windowing.{AllWindowFunction, WindowFunction}
+import org.apache.flink.streaming.api.windowing.windows.Window
+import org.apache.flink.util.{Collector, Preconditions}
+
+import scala.collection.JavaConversions._
+
+/**
+ * It evaluates the final aggregate values of a window from the intermediate aggregate Row that
+ * was pre-aggregated by an [[AggregateReduceFunction]] or a generated
+ * [[org.apache.flink.api.common.functions.ReduceFunction]].
+ *
+ * @param aggregates   The aggregate functions.
+ * @param groupKeysMapping The index mapping of group keys between intermediate aggregate Row
+ *                         and output Row.
+ * @param aggregateMapping The index mapping between aggregate function list and aggregated value
+ *                         index in output Row.
+ */
+class AggregateWindowFunction(
+    private val aggregates: Array[Aggregate[_ <: Any]],
+    private val groupKeysMapping: Array[(Int, Int)],
+    private val aggregateMapping: Array[(Int, Int)])
+    extends WindowFunction[Row, Row, Tuple, Window]
+    with AllWindowFunction[Row, Row, Window] {
+
+  Preconditions.checkNotNull(aggregates)
+  Preconditions.checkNotNull(groupKeysMapping)
+
+  override def apply(key: Tuple, window: Window, records: Iterable[Row], out: Collector[Row])
+    : Unit = {
+    apply(window, records, out)
+  }
+
+  /**
+   * Evaluates the pre-aggregated intermediate aggregate Row of a window and sets the aggregated
+   * values and group keys into the output Row.
+   *
+   * @param window The window that is evaluated.
+   * @param records The pre-aggregated intermediate aggregate Row of the window.
+   * @param out The collector to hand results to.
+   */
+  override def apply(window: Window, records: Iterable[Row], out: Collector[Row]): Unit = {
+    val finalRowLength: Int = groupKeysMapping.length + aggregateMapping.length
+
+    records.foreach { record =>
+      val output = new Row(finalRowLength)
+
+      // Set group keys value to final output.
+      groupKeysMapping.foreach {
+        case (after, previous) =>
+          output.setField(after, record.productElement(previous))
+      }
+
+      // Evaluate final aggregate value and set to output.
+      aggregateMapping.foreach {
+        case (after, previous) =>
+          output.setField(after, aggregates(previous).evaluate(record))
+      }
+
+      out.collect(output)
+    }
+  }
+}
@@ -29,6 +29,9 @@ import org.apache.flink.core.fs.Path
 /**
   * A [[TableSource]] for simple CSV files with up to 25 fields.
   *
+  * The [[CsvTableSource]] supports projection push-down. Fields which are not accessed by a
+  * query are skipped while reading the file and not parsed.
+  *
   * @param path The path to the CSV file.
   * @param fieldNames The names of the table fields.
   * @param fieldTypes The types of the table fields.
@@ -49,7 +52,8 @@ class CsvTableSource(
     ignoreFirstLine: Boolean = false,
     ignoreComments: String = null,
     lenient: Boolean = false)
-  extends BatchTableSource[Tuple] {
+  extends BatchTableSource[Tuple]
+  with ProjectableTableSource[Tuple] {
 
   if (fieldNames.length != fieldTypes.length) {
     throw new TableException("Number of field names and field types must be equal.")
@@ -59,11 +63,19 @@ class CsvTableSource(
     throw new TableException("Only up to 25 fields supported with this CsvTableSource.")
   }
 
+  /** The indexes of the fields of the CSV file which are produced by this source. */
+  private var selectedFields: Array[Int] = fieldTypes.indices.toArray
+
   /** Returns the data of the table as a [[DataSet]] of [[Row]]. */
   override def getDataSet(execEnv: ExecutionEnvironment): DataSet[Tuple] = {
 
     val typeInfo = getReturnType.asInstanceOf[TupleTypeInfoBase[Tuple]]
-    val inputFormat = new TupleCsvInputFormat(new Path(path), rowDelim, fieldDelim, typeInfo)
+    val inputFormat = new TupleCsvInputFormat(
+      new Path(path),
+      rowDelim,
+      fieldDelim,
+      typeInfo,
+      selectedFields)
 
     inputFormat.setSkipFirstLineAsHeader(ignoreFirstLine)
     inputFormat.setLenient(lenient)
@@ -78,16 +90,32 @@ class CsvTableSource(
   }
 
   /** Returns the types of the table fields. */
-  override def getFieldTypes: Array[TypeInformation[_]] = fieldTypes
+  override def getFieldTypes: Array[TypeInformation[_]] = selectedFields.map(fieldTypes(_))
 
   /** Returns the names of the table fields. */
-  override def getFieldsNames: Array[String] = fieldNames
+  override def getFieldsNames: Array[String] = selectedFields.map(fieldNames(_))
 
   /** Returns the number of fields of the table. */
-  override def getNumberOfFields: Int = fieldNames.length
+  override def getNumberOfFields: Int = selectedFields.length
 
   /** Returns the [[TypeInformation]] for the return type of the [[CsvTableSource]]. */
   override def getReturnType: TypeInformation[Tuple] = {
-    new TupleTypeInfo(fieldTypes.toArray:_*)
+    new TupleTypeInfo(getFieldTypes:_*)
+  }
+
+  /** Returns a copy of the [[CsvTableSource]] which only reads the given fields. */
+  override def projectFields(fields: Array[Int]): CsvTableSource = {
+    val source = new CsvTableSource(
+      path,
+      fieldNames,
+      fieldTypes,
+      fieldDelim,
+      rowDelim,
+      quoteCharacter,
+      ignoreFirstLine,
+      ignoreComments,
+      lenient)
+    source.selectedFields = fields.map(selectedFields(_))
+    source
   }
 }
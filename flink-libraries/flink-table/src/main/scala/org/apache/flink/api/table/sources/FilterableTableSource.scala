@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.sources
+
+import org.apache.flink.api.table.expressions.Expression
+
+/** Adds support for filter push-down to a [[TableSource]].
+  * A [[TableSource]] extending this interface is able to filter its records and only produce
+  * those which satisfy a set of predicates.
+  *
+  * The planner splits the filter condition of a query into its conjunctive terms and offers
+  * each of them to the [[TableSource]]. Predicates reference fields by name, using
+  * [[org.apache.flink.api.table.expressions.ResolvedFieldReference]]s, and may reference fields
+  * which are not produced by the source due to a projection.
+  *
+  * @tparam T The return type of the [[FilterableTableSource]].
+  */
+trait FilterableTableSource[T] extends TableSource[T] {
+
+  /** Returns true if the [[TableSource]] is able to evaluate the given predicate. */
+  def supportsPredicate(predicate: Expression): Boolean
+
+  /** Creates a copy of the [[FilterableTableSource]] which only produces records that satisfy
+    * the given predicates in addition to all predicates which have been applied before.
+    *
+    * @param predicates The supported predicates to apply.
+    * @return A copy of the [[FilterableTableSource]] which applies the predicates.
+    */
+  def applyPredicates(predicates: Array[Expression]): FilterableTableSource[T]
+
+  /** Returns all predicates which have been applied to the [[TableSource]]. */
+  def getPredicates: Array[Expression]
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table.sources
+
+/** Adds support for projection push-down to a [[TableSource]].
+  * A [[TableSource]] extending this interface is able to project the fields of its return
+  * type and only produce the fields which are accessed by a query.
+  *
+  * @tparam T The return type of the [[ProjectableTableSource]].
+  */
+trait ProjectableTableSource[T] extends TableSource[T] {
+
+  /** Creates a copy of the [[ProjectableTableSource]] which only produces the given fields.
+    *
+    * The fields are given as indexes into the current fields of the [[TableSource]] and are
+    * sorted in ascending order. The copy returns the fields in the given order.
+    *
+    * @param fields The indexes of the fields to produce.
+    * @return A copy of the [[ProjectableTableSource]] which produces the projected fields.
+    */
+  def projectFields(fields: Array[Int]): ProjectableTableSource[T]
+
+}
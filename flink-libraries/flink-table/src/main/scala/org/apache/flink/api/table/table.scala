@@ -201,9 +201,6 @@ class Table(
     * }}}
     */
   def groupBy(fields: Expression*): GroupedTable = {
-    if (tableEnv.isInstanceOf[StreamTableEnvironment]) {
-      throw new TableException(s"Group by on stream tables is currently not supported.")
-    }
     new GroupedTable(this, fields)
   }
 
@@ -222,6 +219,21 @@ class Table(
     groupBy(fieldsExpr: _*)
   }
 
+  /**
+    * Groups the elements of a stream table into windows. Use this before a selection with
+    * aggregations to evaluate the aggregations once per window. Group windows are only supported
+    * on stream tables.
+    *
+    * Example:
+    *
+    * {{{
+    *   tab.window(Tumble over Time.minutes(10)).select('value.avg)
+    * }}}
+    */
+  def window(window: GroupWindow): GroupWindowedTable = {
+    new GroupWindowedTable(this, Nil, window)
+  }
+
   /**
     * Removes duplicate values and returns only distinct (different) values.
     *
@@ -554,4 +566,67 @@ class GroupedTable(
     val fieldExprs = ExpressionParser.parseExpressionList(fields)
     select(fieldExprs: _*)
   }
+
+  /**
+    * Groups the elements of each group into windows. Use this before a selection with
+    * aggregations to evaluate the aggregations once per group and window. Group windows are only
+    * supported on stream tables.
+    *
+    * Example:
+    *
+    * {{{
+    *   tab.groupBy('key).window(Tumble over Time.minutes(10)).select('key, 'value.avg)
+    * }}}
+    */
+  def window(window: GroupWindow): GroupWindowedTable = {
+    new GroupWindowedTable(table, groupKey, window)
+  }
+}
+
+/**
+  * A table that has been grouped on a set of grouping keys and a group window.
+  */
+class GroupWindowedTable(
+  private[flink] val table: Table,
+  private[flink] val groupKey: Seq[Expression],
+  private[flink] val window: GroupWindow) {
+
+  /**
+    * Performs a selection operation on a windowed table. Similar to an SQL SELECT statement.
+    * The field expressions can contain complex expressions and aggregations.
+    *
+    * Example:
+    *
+    * {{{
+    *   tab.groupBy('key).window(Tumble over Time.minutes(10))
+    *     .select('key, 'value.avg + " The average" as 'average)
+    * }}}
+    */
+  def select(fields: Expression*): Table = {
+
+    val projectionOnAggregates = fields.map(extractAggregations(_, table.tableEnv))
+    val aggregations = projectionOnAggregates.flatMap(_._2)
+
+    val logical = Project(projectionOnAggregates.map(e => UnresolvedAlias(e._1)),
+      WindowAggregate(groupKey, window, aggregations, table.logicalPlan)
+        .validate(table.tableEnv))
+
+    new Table(table.tableEnv, logical.validate(table.tableEnv))
+  }
+
+  /**
+    * Performs a selection operation on a windowed table. Similar to an SQL SELECT statement.
+    * The field expressions can contain complex expressions and aggregations.
+    *
+    * Example:
+    *
+    * {{{
+    *   tab.groupBy("key").window(Tumble over Time.minutes(10))
+    *     .select("key, value.avg + " The average" as average")
+    * }}}
+    */
+  def select(fields: String): Table = {
+    val fieldExprs = ExpressionParser.parseExpressionList(fields)
+    select(fieldExprs: _*)
+  }
 }
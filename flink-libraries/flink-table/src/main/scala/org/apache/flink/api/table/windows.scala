@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.api.table
+
+import org.apache.flink.streaming.api.windowing.time.Time
+
+/**
+  * A group window specification for aggregations on stream tables.
+  *
+  * Group windows group rows of a stream table into finite groups based on time and evaluate the
+  * aggregations of each group once the window is complete. Whether windows are based on event
+  * time or processing time is determined by the
+  * [[org.apache.flink.streaming.api.TimeCharacteristic]] of the
+  * [[org.apache.flink.streaming.api.environment.StreamExecutionEnvironment]].
+  *
+  * Example:
+  *
+  * {{{
+  *   tab.groupBy('key).window(Tumble over Time.minutes(10)).select('key, 'value.avg)
+  * }}}
+  */
+sealed abstract class GroupWindow
+
+/**
+  * A tumbling group window of fixed size. Tumbling windows do not overlap.
+  *
+  * @param size the size of the window in milliseconds
+  */
+case class TumblingWindow(size: Long) extends GroupWindow {
+  override def toString: String = s"TumblingWindow($size ms)"
+}
+
+/**
+  * A sliding group window of fixed size that is evaluated every slide interval. Sliding windows
+  * overlap if the slide is smaller than the size of the window.
+  *
+  * @param size the size of the window in milliseconds
+  * @param slide the slide interval of the window in milliseconds
+  */
+case class SlidingWindow(size: Long, slide: Long) extends GroupWindow {
+  override def toString: String = s"SlidingWindow($size ms, $slide ms)"
+}
+
+/**
+  * A session group window. A session window closes when no row arrived within the session gap.
+  *
+  * @param gap the session gap in milliseconds
+  */
+case class SessionWindow(gap: Long) extends GroupWindow {
+  override def toString: String = s"SessionWindow($gap ms)"
+}
+
+/**
+  * Helper object for creating a [[TumblingWindow]].
+  */
+object Tumble {
+
+  /**
+    * Creates a tumbling window of the given size.
+    *
+    * {{{
+    *   tab.window(Tumble over Time.minutes(10))
+    * }}}
+    */
+  def over(size: Time): TumblingWindow = TumblingWindow(size.toMilliseconds)
+}
+
+/**
+  * Helper object for creating a [[SlidingWindow]].
+  */
+object Slide {
+
+  /**
+    * Specifies the size of a sliding window. The slide of the window is set with
+    * [[SlideWithSize.every]].
+    *
+    * {{{
+    *   tab.window(Slide over Time.minutes(10) every Time.minutes(5))
+    * }}}
+    */
+  def over(size: Time): SlideWithSize = new SlideWithSize(size)
+}
+
+/**
+  * A sliding window of which only the size has been specified.
+  */
+class SlideWithSize(size: Time) {
+
+  /**
+    * Creates a sliding window that is evaluated every given slide interval.
+    */
+  def every(slide: Time): SlidingWindow =
+    SlidingWindow(size.toMilliseconds, slide.toMilliseconds)
+}
+
+/**
+  * Helper object for creating a [[SessionWindow]].
+  */
+object Session {
+
+  /**
+    * Creates a session window with the given session gap.
+    *
+    * {{{
+    *   tab.window(Session withGap Time.minutes(10))
+    * }}}
+    */
+  def withGap(gap: Time): SessionWindow = SessionWindow(gap.toMilliseconds)
+}
@@ -20,6 +20,7 @@ package org.apache.flink.api.scala.batch
 
 import java.io.{File, FileOutputStream, OutputStreamWriter}
 
+import org.apache.flink.api.common.functions.FilterFunction
 import org.apache.flink.api.common.io.GenericInputFormat
 import org.apache.flink.api.common.typeinfo.{BasicTypeInfo, TypeInformation}
 import org.apache.flink.api.java.{DataSet => JavaSet, ExecutionEnvironment => JavaExecEnv}
@@ -27,7 +28,8 @@ import org.apache.flink.api.scala.ExecutionEnvironment
 import org.apache.flink.api.scala.batch.utils.TableProgramsTestBase
 import org.apache.flink.api.scala.batch.utils.TableProgramsTestBase.TableConfigMode
 import org.apache.flink.api.scala.table._
-import org.apache.flink.api.table.sources.{BatchTableSource, CsvTableSource}
+import org.apache.flink.api.table.expressions.{Expression, LessThan, Literal, ResolvedFieldReference}
+import org.apache.flink.api.table.sources.{BatchTableSource, CsvTableSource, FilterableTableSource}
 import org.apache.flink.api.table.typeutils.RowTypeInfo
 import org.apache.flink.api.table.{Row, TableEnvironment}
 import org.apache.flink.test.util.MultipleProgramsTestBase.TestExecutionMode
@@ -129,6 +131,71 @@ class TableSourceITCase(mode: TestExecutionMode)
     TestBaseUtils.compareResultAsText(results.asJava, expected)
   }
 
+  @Test
+  def testCsvTableSourceProjection(): Unit = {
+
+    // the score field contains invalid values and must not be parsed
+    val csvRecords = Seq(
+      "Mike#1#12.3#Smith",
+      "Bob#2#n/a#Taylor",
+      "Sam#3#7.89#Miller",
+      "Peter#4#n/a#Smith"
+    )
+
+    val tempFile = File.createTempFile("csv-test", "tmp")
+    tempFile.deleteOnExit()
+    val tmpWriter = new OutputStreamWriter(new FileOutputStream(tempFile), "UTF-8")
+    tmpWriter.write(csvRecords.mkString("$"))
+    tmpWriter.close()
+
+    val env = ExecutionEnvironment.getExecutionEnvironment
+    val tEnv = TableEnvironment.getTableEnvironment(env)
+
+    val csvTable = new CsvTableSource(
+      tempFile.getAbsolutePath,
+      Array("first", "id", "score", "last"),
+      Array(
+        BasicTypeInfo.STRING_TYPE_INFO,
+        BasicTypeInfo.INT_TYPE_INFO,
+        BasicTypeInfo.DOUBLE_TYPE_INFO,
+        BasicTypeInfo.STRING_TYPE_INFO
+      ),
+      fieldDelim = "#",
+      rowDelim = "$"
+    )
+
+    tEnv.registerTableSource("csvTable", csvTable)
+    val results = tEnv
+      .scan("csvTable")
+      .where('id > 1)
+      .select('last, 'id)
+      .collect()
+
+    val expected = Seq(
+      "Taylor,2",
+      "Miller,3",
+      "Smith,4").mkString("\n")
+    TestBaseUtils.compareResultAsText(results.asJava, expected)
+  }
+
+  @Test
+  def testFilterableTableSource(): Unit = {
+
+    val env = ExecutionEnvironment.getExecutionEnvironment
+    val tEnv = TableEnvironment.getTableEnvironment(env)
+
+    tEnv.registerTableSource("MyTestTable", new TestFilterableTableSource())
+    // the source evaluates the predicate on the amount field
+    val results = tEnv
+      .scan("MyTestTable")
+      .where('amount < 4 && 'id > 17)
+      .select('name)
+      .collect()
+
+    val expected = Seq("Record_18", "Record_19", "Record_32").mkString("\n")
+    TestBaseUtils.compareResultAsText(results.asJava, expected)
+  }
+
 }
 
 class TestBatchTableSource extends BatchTableSource[Row] {
@@ -157,6 +224,35 @@ class TestBatchTableSource extends BatchTableSource[Row] {
   override def getNumberOfFields: Int = 3
 }
 
+class TestFilterableTableSource(predicates: Seq[Expression] = Seq())
+  extends TestBatchTableSource
+  with FilterableTableSource[Row] {
+
+  /** Returns the data of the table with all rows removed which violate a predicate. */
+  override def getDataSet(execEnv: JavaExecEnv): JavaSet[Row] = {
+    val bound = predicates.map { case LessThan(_, Literal(v: Int, _)) => v }
+    super.getDataSet(execEnv)
+      .filter(new AmountFilter((Int.MaxValue +: bound).min))
+      .name(s"TestFilterableTableSource(${predicates.mkString(", ")})")
+  }
+
+  /** Only supports upper bounds for the amount field. */
+  override def supportsPredicate(predicate: Expression): Boolean = predicate match {
+    case LessThan(ResolvedFieldReference("amount", _), Literal(_: Int, _)) => true
+    case _ => false
+  }
+
+  override def applyPredicates(predicates: Array[Expression]): FilterableTableSource[Row] =
+    new TestFilterableTableSource(this.predicates ++ predicates)
+
+  override def getPredicates: Array[Expression] = predicates.toArray
+}
+
+class AmountFilter(bound: Int) extends FilterFunction[Row] {
+
+  override def filter(value: Row): Boolean = value.productElement(2).asInstanceOf[Int] < bound
+}
+
 class GeneratingInputFormat(val num: Int) extends GenericInputFormat[Row] {
 
   var cnt = 0L
@@ -18,9 +18,12 @@
 
 package org.apache.flink.api.scala.batch.table
 
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo._
+import org.apache.flink.api.common.typeinfo.TypeInformation
 import org.apache.flink.api.scala._
 import org.apache.flink.api.scala.table._
 import org.apache.flink.api.scala.util.CollectionDataSets
+import org.apache.flink.api.table.typeutils.RowTypeInfo
 import org.apache.flink.api.table.{Row, TableEnvironment, ValidationException}
 import org.apache.flink.test.util.MultipleProgramsTestBase.TestExecutionMode
 import org.apache.flink.test.util.{MultipleProgramsTestBase, TestBaseUtils}
@@ -29,6 +32,7 @@ import org.junit.runner.RunWith
 import org.junit.runners.Parameterized
 
 import scala.collection.JavaConverters._
+import scala.reflect.ClassTag
 
 @RunWith(classOf[Parameterized])
 class GroupedAggregationsITCase(mode: TestExecutionMode) extends MultipleProgramsTestBase(mode) {
@@ -197,4 +201,54 @@ class GroupedAggregationsITCase(mode: TestExecutionMode) extends MultipleProgram
     val results = t.toDataSet[Row].collect()
     TestBaseUtils.compareResultAsText(results.asJava, expected)
   }
+
+  @Test
+  def testGroupedAggregationDataTypes(): Unit = {
+
+    val env = ExecutionEnvironment.getExecutionEnvironment
+    val tEnv = TableEnvironment.getTableEnvironment(env)
+
+    val t = env.fromElements(
+      (1: Byte, 1: Short, 1, 1L, 1.0f, 1.0d, "Hello"),
+      (2: Byte, 2: Short, 2, 2L, 2.0f, 2.0d, "Hello"),
+      (3: Byte, 3: Short, 3, 3L, 3.5f, 3.5d, "Ciao")).toTable(tEnv)
+      .groupBy('_7)
+      .select('_7, '_1.sum, '_2.min, '_3.max, '_3.avg, '_4.max, '_5.avg, '_6.sum, '_7.count)
+
+    val expected = "Hello,3,1,2,1,2,1.5,3.0,2\n" + "Ciao,3,3,3,3,3,3.5,3.5,1"
+    val results = t.toDataSet[Row].collect()
+    TestBaseUtils.compareResultAsText(results.asJava, expected)
+  }
+
+  @Test
+  def testGroupedAggregationDataTypesWithNulls(): Unit = {
+
+    val env = ExecutionEnvironment.getExecutionEnvironment
+    val tEnv = TableEnvironment.getTableEnvironment(env)
+
+    val rowType: TypeInformation[Row] = new RowTypeInfo(Seq(
+      BYTE_TYPE_INFO, SHORT_TYPE_INFO, INT_TYPE_INFO, LONG_TYPE_INFO,
+      FLOAT_TYPE_INFO, DOUBLE_TYPE_INFO, STRING_TYPE_INFO))
+
+    def row(values: Any*): Row = {
+      val r = new Row(values.length)
+      values.zipWithIndex.foreach { case (value, i) => r.setField(i, value) }
+      r
+    }
+
+    // the aggregates skip null values and return null for groups without any values,
+    // except for COUNT, which returns 0
+    val t = env.fromCollection(Seq(
+      row(1: Byte, 1: Short, 1, 1L, 1.0f, 1.0d, "Hello"),
+      row(null, 2: Short, null, 2L, null, 2.0d, "Hello"),
+      row(3: Byte, null, 3, null, 3.5f, null, "Hello"),
+      row(null, null, null, null, null, null, "Ciao")))(ClassTag(classOf[Row]), rowType)
+      .toTable(tEnv, 'a, 'b, 'c, 'd, 'e, 'f, 'g)
+      .groupBy('g)
+      .select('g, 'a.sum, 'b.min, 'c.max, 'c.avg, 'd.max, 'e.avg, 'f.sum, 'a.count)
+
+    val expected = "Hello,4,1,3,2,2,2.25,3.0,2\n" + "Ciao,null,null,null,null,null,null,null,0"
+    val results = t.toDataSet[Row].collect()
+    TestBaseUtils.compareResultAsText(results.asJava, expected)
+  }
 }
@@ -22,7 +22,7 @@ import org.apache.flink.api.common.typeinfo.{BasicTypeInfo, TypeInformation}
 import org.apache.flink.api.scala._
 import org.apache.flink.api.scala.stream.utils.StreamITCase
 import org.apache.flink.api.scala.table._
-import org.apache.flink.api.table.sources.StreamTableSource
+import org.apache.flink.api.table.sources.{ProjectableTableSource, StreamTableSource}
 import org.apache.flink.api.table.typeutils.RowTypeInfo
 import org.apache.flink.api.table.{Row, TableEnvironment}
 import org.apache.flink.streaming.api.datastream.DataStream
@@ -83,6 +83,29 @@ class TableSourceITCase extends StreamingMultipleProgramsTestBase {
     assertEquals(expected.sorted, StreamITCase.testResults.sorted)
   }
 
+  @Test
+  def testProjectableStreamTableSource(): Unit = {
+
+    val env = StreamExecutionEnvironment.getExecutionEnvironment
+    val tEnv = TableEnvironment.getTableEnvironment(env)
+    StreamITCase.testResults = mutable.MutableList()
+
+    tEnv.registerTableSource("MyTestTable", new TestProjectableStreamTableSource(33))
+    tEnv.ingest("MyTestTable")
+      .where('amount < 4)
+      .select('amount, 'name)
+      .toDataStream[Row]
+      .addSink(new StreamITCase.StringSink)
+
+    env.execute()
+
+    val expected = mutable.MutableList(
+      "0,Record_0", "0,Record_16", "0,Record_32",
+      "1,Record_1", "1,Record_17", "2,Record_18",
+      "2,Record_2", "3,Record_19", "3,Record_3")
+    assertEquals(expected.sorted, StreamITCase.testResults.sorted)
+  }
+
 }
 
 class TestStreamTableSource(val numRecords: Int) extends StreamTableSource[Row] {
@@ -111,6 +134,54 @@ class TestStreamTableSource(val numRecords: Int) extends StreamTableSource[Row]
   override def getNumberOfFields: Int = 3
 }
 
+class TestProjectableStreamTableSource(numRecords: Int, fields: Array[Int] = Array(0, 1, 2))
+  extends TestStreamTableSource(numRecords)
+  with ProjectableTableSource[Row] {
+
+  /** Returns the projected data of the table as a [[DataStream]]. */
+  override def getDataStream(execEnv: environment.StreamExecutionEnvironment): DataStream[Row] = {
+    execEnv
+      .addSource(new ProjectingSourceFunction(numRecords, fields), getReturnType)
+      .setParallelism(1)
+  }
+
+  /** Returns the types of the projected fields. */
+  override def getFieldTypes: Array[TypeInformation[_]] = fields.map(fieldTypes(_))
+
+  /** Returns the names of the projected fields. */
+  override def getFieldsNames: Array[String] = fields.map(Array("name", "id", "amount")(_))
+
+  /** Returns the [[TypeInformation]] for the return type. */
+  override def getReturnType: TypeInformation[Row] = new RowTypeInfo(getFieldTypes)
+
+  /** Returns the number of projected fields. */
+  override def getNumberOfFields: Int = fields.length
+
+  override def projectFields(fields: Array[Int]): ProjectableTableSource[Row] =
+    new TestProjectableStreamTableSource(numRecords, fields.map(this.fields(_)))
+}
+
+class ProjectingSourceFunction(num: Long, fields: Array[Int]) extends SourceFunction[Row] {
+
+  var running = true
+
+  override def run(ctx: SourceContext[Row]): Unit = {
+    var cnt = 0L
+    while(running && cnt < num) {
+      val record = Array(s"Record_$cnt", cnt, (cnt % 16).toInt)
+      val out = new Row(fields.length)
+      fields.indices.foreach(i => out.setField(i, record(fields(i))))
+
+      ctx.collect(out)
+      cnt += 1
+    }
+  }
+
+  override def cancel(): Unit = {
+    running = false
+  }
+}
+
 class GeneratingSourceFunction(val num: Long) extends SourceFunction[Row] {
 
   var running = true
@@ -39,7 +39,7 @@ class UnsupportedOpsTest extends StreamingMultipleProgramsTestBase {
     val env = StreamExecutionEnvironment.getExecutionEnvironment
     val tEnv = TableEnvironment.getTableEnvironment(env)
     StreamTestData.getSmall3TupleDataStream(env).toTable(tEnv)
-      .groupBy('_1)
+      .groupBy('_1).select('_1, '_2.count)
   }
 
   @Test(expected = classOf[TableException])
@@ -28,9 +28,11 @@ import org.apache.flink.dropwizard.metrics.FlinkCounterWrapper;
 import org.apache.flink.dropwizard.metrics.DropwizardHistogramWrapper;
 import org.apache.flink.dropwizard.metrics.FlinkGaugeWrapper;
 import org.apache.flink.dropwizard.metrics.FlinkHistogramWrapper;
+import org.apache.flink.dropwizard.metrics.FlinkMeterWrapper;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.Metric;
 import org.apache.flink.metrics.groups.AbstractMetricGroup;
 import org.apache.flink.metrics.reporter.MetricReporter;
@@ -66,6 +68,7 @@ public abstract class ScheduledDropwizardReporter implements MetricReporter, Sch
 	private final Map<Gauge<?>, String> gauges = new HashMap<>();
 	private final Map<Counter, String> counters = new HashMap<>();
 	private final Map<Histogram, String> histograms = new HashMap<>();
+	private final Map<Meter, String> meters = new HashMap<>();
 
 	// ------------------------------------------------------------------------
 
@@ -112,6 +115,9 @@ public abstract class ScheduledDropwizardReporter implements MetricReporter, Sch
 				} else {
 					registry.register(fullName, new FlinkHistogramWrapper(histogram));
 				}
+			} else if (metric instanceof Meter) {
+				meters.put((Meter) metric, fullName);
+				registry.register(fullName, new FlinkMeterWrapper((Meter) metric));
 			} else {
 				log.warn("Cannot add metric of type {}. This indicates that the reporter " +
 					"does not support this metric type.", metric.getClass().getName());
@@ -130,6 +136,8 @@ public abstract class ScheduledDropwizardReporter implements MetricReporter, Sch
 				fullName = gauges.remove(metric);
 			} else if (metric instanceof Histogram) {
 				fullName = histograms.remove(metric);
+			} else if (metric instanceof Meter) {
+				fullName = meters.remove(metric);
 			} else {
 				fullName = null;
 			}
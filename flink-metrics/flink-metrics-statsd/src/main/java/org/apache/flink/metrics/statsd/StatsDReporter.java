@@ -24,6 +24,7 @@ import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.Histogram;
 import org.apache.flink.metrics.HistogramStatistics;
+import org.apache.flink.metrics.Meter;
 import org.apache.flink.metrics.reporter.AbstractReporter;
 import org.apache.flink.metrics.reporter.Scheduled;
 
@@ -116,6 +117,13 @@ public class StatsDReporter extends AbstractReporter implements Scheduled {
 			for (Map.Entry<Histogram, String> entry : histograms.entrySet()) {
 				reportHistogram(entry.getValue(), entry.getKey());
 			}
+
+			for (Map.Entry<Meter, String> entry : meters.entrySet()) {
+				if (closed) {
+					return;
+				}
+				reportMeter(entry.getValue(), entry.getKey());
+			}
 		}
 		catch (ConcurrentModificationException | NoSuchElementException e) {
 			// ignore - may happen when metrics are concurrently added or removed
@@ -157,6 +165,11 @@ public class StatsDReporter extends AbstractReporter implements Scheduled {
 		}
 	}
 
+	private void reportMeter(final String name, final Meter meter) {
+		send(prefix(name, "rate"), String.valueOf(meter.getRate()));
+		send(prefix(name, "count"), String.valueOf(meter.getCount()));
+	}
+
 	private String prefix(String ... names) {
 		if (names.length > 0) {
 			StringBuilder stringBuilder = new StringBuilder(names[0]);
@@ -50,6 +50,8 @@ public abstract class CostEstimator {
 	
 	public abstract void addLocalMergeCost(EstimateProvider estimates1, EstimateProvider estimates2, Costs costs, int costWeight);
 	
+	public abstract void addHashedPartialReduceCosts(EstimateProvider estimates, Costs costs, int costWeight);
+	
 	public abstract void addHybridHashCosts(EstimateProvider buildSide, EstimateProvider probeSide, Costs costs, int costWeight);
 	
 	public abstract void addCachedHybridHashCosts(EstimateProvider buildSide, EstimateProvider probeSide, Costs costs, int costWeight);
@@ -185,6 +187,7 @@ public abstract class CostEstimator {
 			// grouping or co-grouping over sorted streams for free
 			
 		case SORTED_GROUP_COMBINE:
+		case SORTED_PARTIAL_REDUCE:
 			// partial grouping is always local and main memory resident. we should add a relative cpu cost at some point
 
 			// partial grouping is always local and main memory resident. we should add a relative cpu cost at some point
@@ -193,6 +196,9 @@ public abstract class CostEstimator {
 		case UNION:
 			// pipelined local union is for free
 			
+			break;
+		case HASHED_PARTIAL_REDUCE:
+			addHashedPartialReduceCosts(firstInput, driverCosts, costWeight);
 			break;
 		case INNER_MERGE:
 		case FULL_OUTER_MERGE:
@@ -155,6 +155,22 @@ public class DefaultCostEstimator extends CostEstimator {
 		// presence of massively re-occurring duplicate keys is ignored, because cannot be assessed
 	}
 
+	@Override
+	public void addHashedPartialReduceCosts(EstimateProvider estimates, Costs costs, int costWeight) {
+		// the combiner reduces in place in a memory resident hash table, so there are only CPU costs
+		final long s = estimates.getEstimatedOutputSize();
+		if (s <= 0) {
+			costs.setCpuCost(Costs.UNKNOWN);
+		} else {
+			costs.addCpuCost((long) (s * HASHING_CPU_FACTOR));
+		}
+		// the sort-based combiner is costed as free, so that existing plans do not change. we do not know
+		// whether there are few enough distinct keys for the hash table to be effective, so hashing is
+		// only chosen when it is requested through the combine hint
+		costs.addHeuristicCpuCost((long) (HEURISTIC_COST_BASE * HASHING_CPU_FACTOR));
+		costs.multiplyWith(costWeight);
+	}
+
 	@Override
 	public void addHybridHashCosts(EstimateProvider buildSideInput, EstimateProvider probeSideInput, Costs costs, int costWeight) {
 		long bs = buildSideInput.getEstimatedOutputSize();
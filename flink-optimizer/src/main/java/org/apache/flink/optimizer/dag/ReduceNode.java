@@ -19,14 +19,24 @@
 
 package org.apache.flink.optimizer.dag;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.flink.api.common.operators.base.ReduceOperatorBase;
+import org.apache.flink.api.common.operators.base.ReduceOperatorBase.CombineHint;
 import org.apache.flink.optimizer.DataStatistics;
+import org.apache.flink.optimizer.costs.CostEstimator;
+import org.apache.flink.optimizer.dataproperties.RequestedGlobalProperties;
+import org.apache.flink.optimizer.dataproperties.RequestedLocalProperties;
 import org.apache.flink.optimizer.operators.AllReduceProperties;
 import org.apache.flink.optimizer.operators.OperatorDescriptorSingle;
 import org.apache.flink.optimizer.operators.ReduceProperties;
+import org.apache.flink.optimizer.plan.Channel;
+import org.apache.flink.optimizer.plan.NamedChannel;
+import org.apache.flink.optimizer.plan.PlanNode;
+import org.apache.flink.optimizer.plan.SingleInputPlanNode;
 
 /**
  * The Optimizer representation of a <i>Reduce</i> operator.
@@ -46,11 +56,26 @@ public class ReduceNode extends SingleInputNode {
 			setParallelism(1);
 		}
 		
-		OperatorDescriptorSingle props = this.keys == null ?
-			new AllReduceProperties() :
-			new ReduceProperties(this.keys, operator.getCustomPartitioner());
-		
-		this.possibleProperties = Collections.singletonList(props);
+		if (this.keys == null) {
+			this.possibleProperties = Collections.<OperatorDescriptorSingle>singletonList(new AllReduceProperties());
+		}
+		else {
+			switch (operator.getCombineHint()) {
+				case SORT:
+				case HASH:
+					this.possibleProperties = Collections.<OperatorDescriptorSingle>singletonList(
+						new ReduceProperties(this.keys, operator.getCustomPartitioner(), operator.getCombineHint()));
+					break;
+				case OPTIMIZER_CHOOSES:
+					// offer both combine strategies, the cost estimator decides between them
+					this.possibleProperties = Arrays.<OperatorDescriptorSingle>asList(
+						new ReduceProperties(this.keys, operator.getCustomPartitioner(), CombineHint.SORT),
+						new ReduceProperties(this.keys, operator.getCustomPartitioner(), CombineHint.HASH));
+					break;
+				default:
+					throw new RuntimeException("Unknown CombineHint: " + operator.getCombineHint());
+			}
+		}
 	}
 	
 	public ReduceNode(ReduceNode reducerToCopyForCombiner) {
@@ -76,6 +101,45 @@ public class ReduceNode extends SingleInputNode {
 		return this.possibleProperties;
 	}
 	
+	@Override
+	protected void addLocalCandidates(Channel template, List<Set<? extends NamedChannel>> broadcastPlanChannels, RequestedGlobalProperties rgps,
+			List<PlanNode> target, CostEstimator estimator)
+	{
+		for (RequestedLocalProperties ilp : this.inConn.getInterestingProperties().getLocalProperties()) {
+			final Channel in = template.clone();
+			ilp.parameterizeChannel(in);
+			
+			// unlike other operators, instantiate a candidate for every descriptor whose local properties are met,
+			// because the descriptors differ only in their combine strategy
+			for (OperatorDescriptorSingle dps: getPossibleProperties()) {
+				for (RequestedLocalProperties ilps : dps.getPossibleLocalProperties()) {
+					if (ilps.isMetBy(in.getLocalProperties())) {
+						final Channel candidateIn = in.clone();
+						candidateIn.setRequiredLocalProps(ilps);
+						
+						final int numCandidatesBefore = target.size();
+						instantiateCandidate(dps, candidateIn, broadcastPlanChannels, target, estimator, rgps, ilp);
+						costCombiners(target.subList(numCandidatesBefore, target.size()), estimator);
+						break;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Costs the combiners that were injected in front of the given reducer candidates, such that the
+	 * combine strategy is reflected in the cumulative costs of the candidates.
+	 */
+	private void costCombiners(List<PlanNode> candidates, CostEstimator estimator) {
+		for (PlanNode candidate : candidates) {
+			final PlanNode pred = ((SingleInputPlanNode) candidate).getInput().getSource();
+			if (this.preReduceUtilityNode != null && pred.getOptimizerNode() == this.preReduceUtilityNode) {
+				estimator.costOperator(pred);
+			}
+		}
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//  Estimates
 	// --------------------------------------------------------------------------------------------
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.apache.flink.api.common.functions.Partitioner;
+import org.apache.flink.api.common.operators.base.ReduceOperatorBase.CombineHint;
 import org.apache.flink.api.common.operators.util.FieldSet;
 import org.apache.flink.optimizer.costs.Costs;
 import org.apache.flink.optimizer.dag.PartitionNode;
@@ -46,13 +47,31 @@ public final class ReduceProperties extends OperatorDescriptorSingle {
 	
 	private final Partitioner<?> customPartitioner;
 	
+	private final DriverStrategy combinerStrategy;
+	
 	public ReduceProperties(FieldSet keys) {
-		this(keys, null);
+		this(keys, null, CombineHint.SORT);
 	}
 	
 	public ReduceProperties(FieldSet keys, Partitioner<?> customPartitioner) {
+		this(keys, customPartitioner, CombineHint.SORT);
+	}
+	
+	public ReduceProperties(FieldSet keys, Partitioner<?> customPartitioner, CombineHint combineHint) {
 		super(keys);
 		this.customPartitioner = customPartitioner;
+		
+		switch (combineHint) {
+			case HASH:
+				this.combinerStrategy = DriverStrategy.HASHED_PARTIAL_REDUCE;
+				break;
+			case SORT:
+			case OPTIMIZER_CHOOSES:
+				this.combinerStrategy = DriverStrategy.SORTED_PARTIAL_REDUCE;
+				break;
+			default:
+				throw new RuntimeException("Unknown CombineHint");
+		}
 	}
 	
 	@Override
@@ -82,8 +101,9 @@ public final class ReduceProperties extends OperatorDescriptorSingle {
 
 			SingleInputPlanNode combiner = new SingleInputPlanNode(combinerNode,
 								"Combine ("+node.getOperator().getName()+")", toCombiner,
-								DriverStrategy.SORTED_PARTIAL_REDUCE, this.keyList);
+								this.combinerStrategy, this.keyList);
 
+			// placeholder costs, the ReduceNode costs the combiner according to its strategy
 			combiner.setCosts(new Costs(0, 0));
 			combiner.initProperties(toCombiner.getGlobalProperties(), toCombiner.getLocalProperties());
 			
@@ -449,6 +449,10 @@ public class PlanJSONDumpGenerator {
 				locString = "Sorted Combine/Reduce";
 				break;
 
+			case HASHED_PARTIAL_REDUCE:
+				locString = "Hash Combine/Reduce";
+				break;
+
 			case SORTED_GROUP_REDUCE:
 				locString = "Sorted Group Reduce";
 				break;
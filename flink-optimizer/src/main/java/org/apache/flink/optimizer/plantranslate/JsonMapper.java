@@ -79,6 +79,9 @@ public class JsonMapper {
 			case SORTED_PARTIAL_REDUCE:
 				return "Sorted Combine/Reduce";
 
+			case HASHED_PARTIAL_REDUCE:
+				return "Hash Combine/Reduce";
+
 			case SORTED_GROUP_REDUCE:
 				return "Sorted Group Reduce";
 
@@ -37,6 +37,8 @@ import org.apache.flink.runtime.messages.checkpoint.AcknowledgeCheckpoint;
 import org.apache.flink.runtime.messages.checkpoint.DeclineCheckpoint;
 import org.apache.flink.runtime.messages.checkpoint.NotifyCheckpointComplete;
 import org.apache.flink.runtime.messages.checkpoint.TriggerCheckpoint;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.util.SerializedValue;
 import org.slf4j.Logger;
@@ -654,7 +656,7 @@ public class CheckpointCoordinator {
 					message.getTaskExecutionId(),
 					message.getState(),
 					message.getStateSize(),
-					null)) { // TODO: Give KV-state to the acknowledgeTask method
+					message.getKeyGroupStates())) {
 					if (checkpoint.isFullyAcknowledged()) {
 						completed = checkpoint.toCompletedCheckpoint();
 
@@ -808,20 +810,25 @@ public class CheckpointCoordinator {
 				ExecutionJobVertex executionJobVertex = tasks.get(taskGroupStateEntry.getKey());
 
 				if (executionJobVertex != null) {
-					// check that we only restore the state if the parallelism has not been changed
-					if (taskState.getParallelism() != executionJobVertex.getParallelism()) {
+					// the key groups can be redistributed if the parallelism changed, but the
+					// state of the individual subtasks cannot
+					boolean parallelismChanged = taskState.getParallelism() != executionJobVertex.getParallelism();
+					if (parallelismChanged && taskState.getNumberCollectedStates() > 0) {
 						throw new RuntimeException("Cannot restore the latest checkpoint because " +
 							"the parallelism changed. The operator" + executionJobVertex.getJobVertexId() +
 							" has parallelism " + executionJobVertex.getParallelism() + " whereas the corresponding" +
-							"state object has a parallelism of " + taskState.getParallelism());
+							"state object has a parallelism of " + taskState.getParallelism() + ". Only " +
+							"key-partitioned state can be redistributed to a different parallelism, non-keyed " +
+							"operator state (for example the timers of window operators) cannot.");
 					}
 
 					int counter = 0;
 
 					List<Set<Integer>> keyGroupPartitions = createKeyGroupPartitions(numberKeyGroups, executionJobVertex.getParallelism());
+					checkAllKeyGroupsAssigned(taskState, keyGroupPartitions);
 
 					for (int i = 0; i < executionJobVertex.getParallelism(); i++) {
-						SubtaskState subtaskState = taskState.getState(i);
+						SubtaskState subtaskState = parallelismChanged ? null : taskState.getState(i);
 						SerializedValue<StateHandle<?>> state = null;
 
 						if (subtaskState != null) {
@@ -853,7 +860,8 @@ public class CheckpointCoordinator {
 	/**
 	 * Groups the available set of key groups into key group partitions. A key group partition is
 	 * the set of key groups which is assigned to the same task. Each set of the returned list
-	 * constitutes a key group partition.
+	 * constitutes a key group partition. The partitions are contiguous ranges of key groups, as
+	 * computed by {@link KeyGroupRangeAssignment}, which is also how the tasks partition their keys.
 	 *
 	 * @param numberKeyGroups Number of available key groups (indexed from 0 to numberKeyGroups - 1)
 	 * @param parallelism Parallelism to generate the key group partitioning for
@@ -863,9 +871,14 @@ public class CheckpointCoordinator {
 		ArrayList<Set<Integer>> result = new ArrayList<>(parallelism);
 
 		for (int p = 0; p < parallelism; p++) {
-			HashSet<Integer> keyGroupPartition = new HashSet<>();
+			KeyGroupRange keyGroupRange = KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(
+				numberKeyGroups,
+				parallelism,
+				p);
 
-			for (int k = p; k < numberKeyGroups; k += parallelism) {
+			HashSet<Integer> keyGroupPartition = new HashSet<>(keyGroupRange.getNumberOfKeyGroups());
+
+			for (int k = keyGroupRange.getStartKeyGroup(); k <= keyGroupRange.getEndKeyGroup(); k++) {
 				keyGroupPartition.add(k);
 			}
 
@@ -875,6 +888,25 @@ public class CheckpointCoordinator {
 		return result;
 	}
 
+	/**
+	 * Checks that every key group state of the given task state is contained in one of the key
+	 * group partitions. This is not the case if the number of key groups (the maximum
+	 * parallelism) changed since the state was checkpointed.
+	 */
+	protected void checkAllKeyGroupsAssigned(TaskState taskState, List<Set<Integer>> keyGroupPartitions) {
+		int numberAssignedKvStates = 0;
+		for (Set<Integer> keyGroupPartition : keyGroupPartitions) {
+			numberAssignedKvStates += taskState.getUnwrappedKvStates(keyGroupPartition).size();
+		}
+
+		if (numberAssignedKvStates != taskState.getNumberCollectedKvStates()) {
+			throw new IllegalStateException("Cannot restore the key-partitioned state of operator " +
+				taskState.getJobVertexID() + " because the maximum parallelism changed. The state " +
+				"contains key groups that are not in the range of the " + numberKeyGroups + " key groups " +
+				"of the job.");
+		}
+	}
+
 	// --------------------------------------------------------------------------------------------
 	//  Accessors
 	// --------------------------------------------------------------------------------------------
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.checkpoint;
 
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.util.Preconditions;
 
 import java.io.Serializable;
@@ -98,8 +99,31 @@ public class CompletedCheckpoint implements Serializable {
 	// --------------------------------------------------------------------------------------------
 	
 	public void discard(ClassLoader userClassLoader) {
+		discard(userClassLoader, null);
+	}
+
+	/**
+	 * Registers the state that this checkpoint shares with other checkpoints, for example
+	 * the files of incremental checkpoints, with the given registry. A checkpoint that has
+	 * been registered must be discarded via {@link #discard(ClassLoader, SharedStateRegistry)}.
+	 */
+	public void registerSharedStates(SharedStateRegistry sharedStateRegistry, ClassLoader userClassLoader) throws Exception {
+		for (TaskState state: taskStates.values()) {
+			state.registerSharedStates(sharedStateRegistry, userClassLoader);
+		}
+	}
+
+	/**
+	 * Discards this checkpoint. If the checkpoint has been registered with a shared state
+	 * registry, only its private state is discarded and its references to shared state are
+	 * released. Shared state is discarded by the registry once no checkpoint references it.
+	 *
+	 * @param sharedStateRegistry The registry this checkpoint has been registered with, or
+	 *                            null, if it has not been registered.
+	 */
+	public void discard(ClassLoader userClassLoader, SharedStateRegistry sharedStateRegistry) {
 		for (TaskState state: taskStates.values()) {
-			state.discard(userClassLoader);
+			state.discard(userClassLoader, sharedStateRegistry);
 		}
 
 		taskStates.clear();
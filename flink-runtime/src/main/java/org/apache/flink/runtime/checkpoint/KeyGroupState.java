@@ -18,6 +18,8 @@
 
 package org.apache.flink.runtime.checkpoint;
 
+import org.apache.flink.runtime.state.CompositeStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.util.SerializedValue;
 import org.slf4j.Logger;
@@ -63,8 +65,33 @@ public class KeyGroupState implements Serializable {
 	}
 
 	public void discard(ClassLoader classLoader) {
+		discard(classLoader, null);
+	}
+
+	/**
+	 * Registers the shared parts of the state with the given registry, if the state handle
+	 * is a {@link CompositeStateHandle}.
+	 */
+	public void registerSharedStates(SharedStateRegistry sharedStateRegistry, ClassLoader classLoader) throws Exception {
+		StateHandle<?> stateHandle = keyGroupState.deserializeValue(classLoader);
+		if (stateHandle instanceof CompositeStateHandle) {
+			((CompositeStateHandle) stateHandle).registerSharedStates(sharedStateRegistry);
+		}
+	}
+
+	/**
+	 * Discards the state. If the shared parts of the state have been registered via
+	 * {@link #registerSharedStates(SharedStateRegistry, ClassLoader)}, the same registry must
+	 * be given, otherwise the registry is null.
+	 */
+	public void discard(ClassLoader classLoader, SharedStateRegistry sharedStateRegistry) {
 		try {
-			keyGroupState.deserializeValue(classLoader).discardState();
+			StateHandle<?> stateHandle = keyGroupState.deserializeValue(classLoader);
+			if (sharedStateRegistry != null && stateHandle instanceof CompositeStateHandle) {
+				((CompositeStateHandle) stateHandle).discardState(sharedStateRegistry);
+			} else {
+				stateHandle.discardState();
+			}
 		} catch (Exception e) {
 			LOG.warn("Failed to discard checkpoint state: " + this, e);
 		}
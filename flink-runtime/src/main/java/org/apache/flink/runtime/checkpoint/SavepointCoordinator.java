@@ -204,12 +204,15 @@ public class SavepointCoordinator extends CheckpointCoordinator {
 				ExecutionJobVertex executionJobVertex = tasks.get(taskStateEntry.getKey());
 
 				if (executionJobVertex != null) {
-					if (executionJobVertex.getParallelism() != taskState.getParallelism()) {
+					// the key groups can be redistributed if the parallelism changed, but the
+					// state of the individual subtasks cannot
+					boolean parallelismChanged = executionJobVertex.getParallelism() != taskState.getParallelism();
+					if (parallelismChanged && taskState.getNumberCollectedStates() > 0) {
 						String msg = String.format("Failed to rollback to savepoint %s. " +
 								"Parallelism mismatch between savepoint state and new program. " +
 								"Cannot map operator %s with parallelism %d to new program with " +
-								"parallelism %d. This indicates that the program has been changed " +
-								"in a non-compatible way after the savepoint.",
+								"parallelism %d. Only key-partitioned state can be redistributed " +
+								"to a different parallelism.",
 							checkpoint,
 							taskStateEntry.getKey(),
 							taskState.getParallelism(),
@@ -221,9 +224,10 @@ public class SavepointCoordinator extends CheckpointCoordinator {
 					List<Set<Integer>> keyGroupPartitions = createKeyGroupPartitions(
 						numberKeyGroups,
 						executionJobVertex.getParallelism());
+					checkAllKeyGroupsAssigned(taskState, keyGroupPartitions);
 
 					for (int i = 0; i < executionJobVertex.getTaskVertices().length; i++) {
-						SubtaskState subtaskState = taskState.getState(i);
+						SubtaskState subtaskState = parallelismChanged ? null : taskState.getState(i);
 						SerializedValue<StateHandle<?>> state = null;
 
 						if (subtaskState != null) {
@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.checkpoint;
 
 import org.apache.flink.runtime.jobmanager.RecoveryMode;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -41,6 +42,9 @@ class StandaloneCompletedCheckpointStore implements CompletedCheckpointStore {
 	/** The completed checkpoints. */
 	private final ArrayDeque<CompletedCheckpoint> checkpoints;
 
+	/** The reference counts of the state that is shared between the completed checkpoints. */
+	private final SharedStateRegistry sharedStateRegistry;
+
 	/**
 	 * Creates {@link StandaloneCompletedCheckpointStore}.
 	 *
@@ -59,6 +63,7 @@ class StandaloneCompletedCheckpointStore implements CompletedCheckpointStore {
 		this.userClassLoader = checkNotNull(userClassLoader, "User class loader");
 
 		this.checkpoints = new ArrayDeque<>(maxNumberOfCheckpointsToRetain + 1);
+		this.sharedStateRegistry = new SharedStateRegistry();
 	}
 
 	@Override
@@ -67,10 +72,14 @@ class StandaloneCompletedCheckpointStore implements CompletedCheckpointStore {
 	}
 
 	@Override
-	public void addCheckpoint(CompletedCheckpoint checkpoint) {
+	public void addCheckpoint(CompletedCheckpoint checkpoint) throws Exception {
+		// register the new checkpoint first, so that the state it shares with the subsumed
+		// checkpoint is not discarded
+		checkpoint.registerSharedStates(sharedStateRegistry, userClassLoader);
+
 		checkpoints.addLast(checkpoint);
 		if (checkpoints.size() > maxNumberOfCheckpointsToRetain) {
-			checkpoints.removeFirst().discard(userClassLoader);
+			checkpoints.removeFirst().discard(userClassLoader, sharedStateRegistry);
 		}
 	}
 
@@ -92,7 +101,7 @@ class StandaloneCompletedCheckpointStore implements CompletedCheckpointStore {
 	@Override
 	public void discardAllCheckpoints() {
 		for (CompletedCheckpoint checkpoint : checkpoints) {
-			checkpoint.discard(userClassLoader);
+			checkpoint.discard(userClassLoader, sharedStateRegistry);
 		}
 
 		checkpoints.clear();
@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.checkpoint;
 
 import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.util.SerializedValue;
 
@@ -143,12 +144,26 @@ public class TaskState implements Serializable {
 	}
 
 	public void discard(ClassLoader classLoader) {
+		discard(classLoader, null);
+	}
+
+	public void registerSharedStates(SharedStateRegistry sharedStateRegistry, ClassLoader classLoader) throws Exception {
+		for (SubtaskState subtaskState : subtaskStates.values()) {
+			subtaskState.registerSharedStates(sharedStateRegistry, classLoader);
+		}
+
+		for (KeyGroupState keyGroupState : kvStates.values()) {
+			keyGroupState.registerSharedStates(sharedStateRegistry, classLoader);
+		}
+	}
+
+	public void discard(ClassLoader classLoader, SharedStateRegistry sharedStateRegistry) {
 		for (SubtaskState subtaskState : subtaskStates.values()) {
-			subtaskState.discard(classLoader);
+			subtaskState.discard(classLoader, sharedStateRegistry);
 		}
 
 		for (KeyGroupState keyGroupState : kvStates.values()) {
-			keyGroupState.discard(classLoader);
+			keyGroupState.discard(classLoader, sharedStateRegistry);
 		}
 	}
 
@@ -25,6 +25,7 @@ import org.apache.curator.framework.api.CuratorEventType;
 import org.apache.curator.utils.ZKPaths;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.runtime.jobmanager.RecoveryMode;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.runtime.zookeeper.StateStorageHelper;
 import org.apache.flink.runtime.zookeeper.ZooKeeperStateHandleStore;
@@ -81,6 +82,12 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 	/** Local completed checkpoints. */
 	private final ArrayDeque<Tuple2<StateHandle<CompletedCheckpoint>, String>> checkpointStateHandles;
 
+	/**
+	 * The reference counts of the state that is shared between the completed checkpoints.
+	 * Rebuilt from the checkpoints in ZooKeeper on recovery.
+	 */
+	private volatile SharedStateRegistry sharedStateRegistry;
+
 	/**
 	 * Creates a {@link ZooKeeperCompletedCheckpointStore} instance.
 	 *
@@ -123,6 +130,8 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 
 		this.checkpointStateHandles = new ArrayDeque<>(maxNumberOfCheckpointsToRetain + 1);
 
+		this.sharedStateRegistry = new SharedStateRegistry();
+
 		LOG.info("Initialized in '{}'.", checkpointsPath);
 	}
 
@@ -141,6 +150,7 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 		// recovery. The local handles should reflect the state
 		// of ZooKeeper.
 		checkpointStateHandles.clear();
+		sharedStateRegistry = new SharedStateRegistry();
 
 		// Get all there is first
 		List<Tuple2<StateHandle<CompletedCheckpoint>, String>> initialCheckpoints;
@@ -166,13 +176,31 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 
 			CompletedCheckpoint latestCheckpoint = latest.f0.getState(userClassLoader);
 
+			// the older checkpoints have to be registered as well, so that discarding them
+			// keeps the state they share with the latest checkpoint. They are registered in
+			// the order they were added, because the registry keeps the handle of the first
+			// registration of a shared state.
+			List<Tuple2<StateHandle<CompletedCheckpoint>, String>> registeredCheckpoints = new ArrayList<>();
+			for (int i = 0; i < numberOfInitialCheckpoints - 1; i++) {
+				try {
+					initialCheckpoints.get(i).f0.getState(userClassLoader)
+							.registerSharedStates(sharedStateRegistry, userClassLoader);
+
+					registeredCheckpoints.add(initialCheckpoints.get(i));
+				}
+				catch (Exception e) {
+					LOG.error("Failed to register checkpoint", e);
+				}
+			}
+
+			latestCheckpoint.registerSharedStates(sharedStateRegistry, userClassLoader);
 			checkpointStateHandles.add(latest);
 
 			LOG.info("Initialized with {}. Removing all older checkpoints.", latestCheckpoint);
 
-			for (int i = 0; i < numberOfInitialCheckpoints - 1; i++) {
+			for (Tuple2<StateHandle<CompletedCheckpoint>, String> checkpoint : registeredCheckpoints) {
 				try {
-					removeFromZooKeeperAndDiscardCheckpoint(initialCheckpoints.get(i));
+					removeFromZooKeeperAndDiscardCheckpoint(checkpoint);
 				}
 				catch (Exception e) {
 					LOG.error("Failed to discard checkpoint", e);
@@ -195,6 +223,10 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 
 		final StateHandle<CompletedCheckpoint> stateHandle = checkpointsInZooKeeper.add(path, checkpoint);
 
+		// register the new checkpoint before a subsumed one is discarded, so that the state
+		// they share is not discarded
+		checkpoint.registerSharedStates(sharedStateRegistry, userClassLoader);
+
 		checkpointStateHandles.addLast(new Tuple2<>(stateHandle, path));
 
 		// Everything worked, let's remove a previous checkpoint if necessary.
@@ -256,6 +288,8 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 	private void removeFromZooKeeperAndDiscardCheckpoint(
 			final Tuple2<StateHandle<CompletedCheckpoint>, String> stateHandleAndPath) throws Exception {
 
+		final SharedStateRegistry registry = sharedStateRegistry;
+
 		final BackgroundCallback callback = new BackgroundCallback() {
 			@Override
 			public void processResult(CuratorFramework client, CuratorEvent event) throws Exception {
@@ -266,7 +300,7 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 							CompletedCheckpoint checkpoint = stateHandleAndPath
 									.f0.getState(userClassLoader);
 
-							checkpoint.discard(userClassLoader);
+							checkpoint.discard(userClassLoader, registry);
 
 							// Discard the state handle
 							stateHandleAndPath.f0.discardState();
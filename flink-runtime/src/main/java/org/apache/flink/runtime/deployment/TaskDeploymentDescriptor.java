@@ -32,6 +32,7 @@ import java.io.Serializable;
 import java.net.URL;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -90,6 +91,9 @@ public final class TaskDeploymentDescriptor implements Serializable {
 
 	private final SerializedValue<StateHandle<?>> operatorState;
 
+	/** The key-grouped state of the key groups assigned to this task, may be null. */
+	private final Map<Integer, SerializedValue<StateHandle<?>>> keyGroupStates;
+
 	/** The execution configuration (see {@link ExecutionConfig}) related to the specific job. */
 	private final SerializedValue<ExecutionConfig> serializedExecutionConfig;
 
@@ -119,6 +123,55 @@ public final class TaskDeploymentDescriptor implements Serializable {
 			SerializedValue<StateHandle<?>> operatorState,
 			long recoveryTimestamp) {
 
+		this(
+			jobID,
+			jobName,
+			vertexID,
+			executionId,
+			serializedExecutionConfig,
+			taskName,
+			indexInSubtaskGroup,
+			numberOfSubtasks,
+			attemptNumber,
+			jobConfiguration,
+			taskConfiguration,
+			invokableClassName,
+			producedPartitions,
+			inputGates,
+			requiredJarFiles,
+			requiredClasspaths,
+			targetSlotNumber,
+			operatorState,
+			null,
+			recoveryTimestamp);
+	}
+
+	/**
+	 * Constructs a task deployment descriptor which carries the state of the key groups
+	 * assigned to the task.
+	 */
+	public TaskDeploymentDescriptor(
+			JobID jobID,
+			String jobName,
+			JobVertexID vertexID,
+			ExecutionAttemptID executionId,
+			SerializedValue<ExecutionConfig> serializedExecutionConfig,
+			String taskName,
+			int indexInSubtaskGroup,
+			int numberOfSubtasks,
+			int attemptNumber,
+			Configuration jobConfiguration,
+			Configuration taskConfiguration,
+			String invokableClassName,
+			List<ResultPartitionDeploymentDescriptor> producedPartitions,
+			List<InputGateDeploymentDescriptor> inputGates,
+			List<BlobKey> requiredJarFiles,
+			List<URL> requiredClasspaths,
+			int targetSlotNumber,
+			SerializedValue<StateHandle<?>> operatorState,
+			Map<Integer, SerializedValue<StateHandle<?>>> keyGroupStates,
+			long recoveryTimestamp) {
+
 		checkArgument(indexInSubtaskGroup >= 0);
 		checkArgument(numberOfSubtasks > indexInSubtaskGroup);
 		checkArgument(targetSlotNumber >= 0);
@@ -142,6 +195,7 @@ public final class TaskDeploymentDescriptor implements Serializable {
 		this.requiredClasspaths = checkNotNull(requiredClasspaths);
 		this.targetSlotNumber = targetSlotNumber;
 		this.operatorState = operatorState;
+		this.keyGroupStates = keyGroupStates;
 		this.recoveryTimestamp = recoveryTimestamp;
 	}
 
@@ -324,6 +378,10 @@ public final class TaskDeploymentDescriptor implements Serializable {
 	public SerializedValue<StateHandle<?>> getOperatorState() {
 		return operatorState;
 	}
+
+	public Map<Integer, SerializedValue<StateHandle<?>>> getKeyGroupStates() {
+		return keyGroupStates;
+	}
 	
 	public long getRecoveryTimestamp() {
 		return recoveryTimestamp;
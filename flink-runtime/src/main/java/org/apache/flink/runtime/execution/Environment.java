@@ -166,6 +166,19 @@ public interface Environment {
 	 */
 	void acknowledgeCheckpoint(long checkpointId, StateHandle<?> state);
 
+	/**
+	 * Confirms that the invokable has successfully completed all steps it needed to
+	 * to for the checkpoint with the give checkpoint-ID. This method does include
+	 * the given state and the state of the individual key groups in the checkpoint.
+	 * The key group states can be redistributed among the parallel subtasks when the
+	 * job is restored with a different parallelism.
+	 *
+	 * @param checkpointId The ID of the checkpoint.
+	 * @param state A handle to the state to be included in the checkpoint, may be null.
+	 * @param keyGroupStates The handles to the state of each key group, by key group index.
+	 */
+	void acknowledgeCheckpoint(long checkpointId, StateHandle<?> state, Map<Integer, StateHandle<?>> keyGroupStates);
+
 	/**
 	 * Marks task execution failed for an external reason (a reason other than the task code itself
 	 * throwing an exception). If the task is already in a terminal state
@@ -690,6 +690,7 @@ public class ExecutionVertex implements Serializable {
 			classpaths,
 			targetSlot.getRoot().getSlotNumber(),
 			operatorState,
+			operatorKvState,
 			recoveryTimestamp);
 	}
 
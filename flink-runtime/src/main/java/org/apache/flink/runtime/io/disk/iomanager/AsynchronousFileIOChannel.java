@@ -369,7 +369,8 @@ final class BufferWriteRequest implements WriteRequest {
 	public void write() throws IOException {
 		final ByteBuffer header = ByteBuffer.allocateDirect(8);
 
-		header.putInt(buffer.isBuffer() ? 1 : 0);
+		// the flags mark data buffers (1) and compressed contents (2)
+		header.putInt((buffer.isBuffer() ? 1 : 0) | (buffer.isCompressed() ? 2 : 0));
 		header.putInt(buffer.getSize());
 		header.flip();
 
@@ -408,7 +409,9 @@ final class BufferReadRequest implements ReadRequest {
 			fileChannel.read(header);
 			header.flip();
 
-			final boolean isBuffer = header.getInt() == 1;
+			final int flags = header.getInt();
+			final boolean isBuffer = (flags & 1) != 0;
+			final boolean isCompressed = (flags & 2) != 0;
 			final int size = header.getInt();
 
 			if (size > buffer.getMemorySegment().size()) {
@@ -423,6 +426,8 @@ final class BufferReadRequest implements ReadRequest {
 				buffer.tagAsEvent();
 			}
 
+			buffer.setCompressed(isCompressed);
+
 			hasReachedEndOfFile.set(fileChannel.size() - fileChannel.position() == 0);
 		}
 		else {
@@ -462,7 +467,7 @@ final class FileSegmentReadRequest implements ReadRequest {
 
 			final long position = fileChannel.position();
 
-			final boolean isBuffer = header.getInt() == 1;
+			final boolean isBuffer = (header.getInt() & 1) != 0;
 			final int length = header.getInt();
 
 			fileSegment = new FileSegment(fileChannel, position, length, isBuffer);
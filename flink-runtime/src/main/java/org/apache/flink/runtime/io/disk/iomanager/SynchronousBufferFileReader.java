@@ -51,7 +51,9 @@ public class SynchronousBufferFileReader extends SynchronousFileIOChannel implem
 			fileChannel.read(header);
 			header.flip();
 
-			final boolean isBuffer = header.getInt() == 1;
+			final int flags = header.getInt();
+			final boolean isBuffer = (flags & 1) != 0;
+			final boolean isCompressed = (flags & 2) != 0;
 			final int size = header.getInt();
 
 			if (size > buffer.getMemorySegment().size()) {
@@ -66,6 +68,8 @@ public class SynchronousBufferFileReader extends SynchronousFileIOChannel implem
 				buffer.tagAsEvent();
 			}
 
+			buffer.setCompressed(isCompressed);
+
 			hasReachedEndOfFile = fileChannel.size() - fileChannel.position() == 0;
 		}
 		else {
@@ -35,6 +35,7 @@ import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
 import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
+import org.apache.flink.runtime.memory.UnifiedMemoryPool;
 import org.apache.flink.runtime.messages.JobManagerMessages.RequestPartitionState;
 import org.apache.flink.runtime.messages.TaskMessages.FailTask;
 import org.apache.flink.runtime.taskmanager.NetworkEnvironmentConfiguration;
@@ -100,6 +101,19 @@ public class NetworkEnvironment {
 		FiniteDuration jobManagerTimeout,
 		NetworkEnvironmentConfiguration config) throws IOException {
 
+		this(executionContext, jobManagerTimeout, config, null);
+	}
+
+	/**
+	 * Initializes all network I/O components. If a lease of a {@link UnifiedMemoryPool} is given,
+	 * the network buffers are drawn from it instead of being allocated by the network buffer pool.
+	 */
+	public NetworkEnvironment(
+		ExecutionContext executionContext,
+		FiniteDuration jobManagerTimeout,
+		NetworkEnvironmentConfiguration config,
+		UnifiedMemoryPool.Lease memoryLease) throws IOException {
+
 		this.executionContext = executionContext;
 		this.configuration = checkNotNull(config);
 		this.jobManagerTimeout = checkNotNull(jobManagerTimeout);
@@ -107,8 +121,13 @@ public class NetworkEnvironment {
 		// create the network buffers - this is the operation most likely to fail upon
 		// mis-configuration, so we do this first
 		try {
-			networkBufferPool = new NetworkBufferPool(config.numNetworkBuffers(),
-					config.networkBufferSize(), config.memoryType());
+			if (memoryLease != null) {
+				networkBufferPool = new NetworkBufferPool(memoryLease);
+			}
+			else {
+				networkBufferPool = new NetworkBufferPool(config.numNetworkBuffers(),
+						config.networkBufferSize(), config.memoryType());
+			}
 		}
 		catch (Throwable t) {
 			throw new IOException("Cannot allocate network buffer pool: " + t.getMessage(), t);
@@ -135,10 +154,46 @@ public class NetworkEnvironment {
 		return networkBufferPool;
 	}
 
+	/**
+	 * Returns the number of exclusive buffers of each remote input channel. Without a Netty
+	 * configuration, there are no remote channels.
+	 */
+	public int getNetworkBuffersPerChannel() {
+		final Option<NettyConfig> nettyConfig = configuration.nettyConfig();
+		return nettyConfig.isDefined() ? nettyConfig.get().getNetworkBuffersPerChannel() : 0;
+	}
+
 	public IOMode getDefaultIOMode() {
 		return configuration.ioMode();
 	}
 
+	public int getNetworkBufferSize() {
+		return configuration.networkBufferSize();
+	}
+
+	/**
+	 * Returns whether produced data buffers are compressed before they are sent to remote consumers
+	 * (and spilled, for blocking results).
+	 */
+	public boolean isNetworkCompressionEnabled() {
+		return configuration.compressionEnabled();
+	}
+
+	/**
+	 * Returns whether buffers of blocking partitions are compressed before they are spilled.
+	 */
+	public boolean isSpilledPartitionCompressionEnabled() {
+		return configuration.spilledPartitionCompressionEnabled();
+	}
+
+	/**
+	 * Returns the minimum number of subpartitions of a blocking partition to write a single
+	 * sorted data file instead of a spill file per subpartition.
+	 */
+	public int getSortShuffleMinParallelism() {
+		return configuration.sortShuffleMinParallelism();
+	}
+
 	public ResultPartitionConsumableNotifier getPartitionConsumableNotifier() {
 		return partitionConsumableNotifier;
 	}
@@ -326,6 +381,9 @@ public class NetworkEnvironment {
 				try {
 					bufferPool = networkBufferPool.createBufferPool(gate.getNumberOfInputChannels(), false);
 					gate.setBufferPool(bufferPool);
+
+					// Exclusive buffers of the remote channels, which are announced as credit
+					gate.assignExclusiveSegments(networkBufferPool, getNetworkBuffersPerChannel());
 				}
 				catch (Throwable t) {
 					if (bufferPool != null) {
@@ -19,6 +19,9 @@
 package org.apache.flink.runtime.io.network.api.reader;
 
 import org.apache.flink.core.io.IOReadableWritable;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.metrics.groups.IOMetricGroup;
 import org.apache.flink.runtime.accumulators.AccumulatorRegistry;
 import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
 import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
@@ -44,6 +47,9 @@ abstract class AbstractRecordReader<T extends IOReadableWritable> extends Abstra
 
 	private boolean isFinished;
 
+	/** Counts the read records, replaced by the task's counter once the metric group is set */
+	private Counter numRecordsIn = new SimpleCounter();
+
 	/**
 	 * Creates a new AbstractRecordReader that de-serializes records from the given input gate and
 	 * can spill partial records to disk, if they grow large.
@@ -80,6 +86,7 @@ abstract class AbstractRecordReader<T extends IOReadableWritable> extends Abstra
 				}
 
 				if (result.isFullRecord()) {
+					numRecordsIn.inc();
 					return true;
 				}
 			}
@@ -130,4 +137,9 @@ abstract class AbstractRecordReader<T extends IOReadableWritable> extends Abstra
 			deserializer.setReporter(reporter);
 		}
 	}
+
+	@Override
+	public void setMetricGroup(IOMetricGroup metrics) {
+		numRecordsIn = metrics.getNumRecordsInCounter();
+	}
 }
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.network.api.reader;
 
+import org.apache.flink.metrics.groups.IOMetricGroup;
 import org.apache.flink.runtime.accumulators.AccumulatorRegistry;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
@@ -53,4 +54,9 @@ public final class BufferReader extends AbstractReader {
 	public void setReporter(AccumulatorRegistry.Reporter reporter) {
 
 	}
+
+	@Override
+	public void setMetricGroup(IOMetricGroup metrics) {
+
+	}
 }
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.io.network.api.reader;
 
 import java.io.IOException;
 
+import org.apache.flink.metrics.groups.IOMetricGroup;
 import org.apache.flink.runtime.accumulators.AccumulatorRegistry;
 import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.util.event.EventListener;
@@ -57,4 +58,9 @@ public interface ReaderBase {
 	 */
 	void setReporter(AccumulatorRegistry.Reporter reporter);
 
+	/**
+	 * Sets the metric group, e.g. for the number of records read.
+	 */
+	void setMetricGroup(IOMetricGroup metrics);
+
 }
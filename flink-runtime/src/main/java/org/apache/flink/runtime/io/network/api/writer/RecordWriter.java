@@ -19,14 +19,18 @@
 package org.apache.flink.runtime.io.network.api.writer;
 
 import org.apache.flink.core.io.IOReadableWritable;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.metrics.groups.IOMetricGroup;
 import org.apache.flink.runtime.accumulators.AccumulatorRegistry;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.serialization.RecordSerializer;
 import org.apache.flink.runtime.io.network.api.serialization.SpanningRecordSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 
 import java.io.IOException;
+import java.util.Random;
 
 import static org.apache.flink.runtime.io.network.api.serialization.RecordSerializer.SerializationResult;
 
@@ -40,11 +44,19 @@ import static org.apache.flink.runtime.io.network.api.serialization.RecordSerial
  * all records have been written with {@link #emit(IOReadableWritable)}. This
  * ensures that all produced records are written to the output stream (incl.
  * partially filled ones).
+ * <p>
+ * Channels whose consumer runs in the same JVM may accept record objects instead of
+ * serialized bytes (see {@link ResultPartitionWriter#isObjectHandOverEnabled(int)}). For these
+ * channels, copies of the records (see {@link #copyForObjectHandOver(IOReadableWritable)}) are
+ * collected in {@link ObjectBuffer} batches.
  *
  * @param <T> the type of the record that can be emitted with this record writer
  */
 public class RecordWriter<T extends IOReadableWritable> {
 
+	/** The maximum number of records in a batch of records that are handed over as objects */
+	private static final int MAX_OBJECT_BATCH_SIZE = 128;
+
 	protected final ResultPartitionWriter writer;
 
 	private final ChannelSelector<T> channelSelector;
@@ -54,6 +66,17 @@ public class RecordWriter<T extends IOReadableWritable> {
 	/** {@link RecordSerializer} per outgoing channel */
 	private final RecordSerializer<T>[] serializers;
 
+	/** Pending batch of record objects per outgoing channel, guarded by the channel's serializer */
+	private final ObjectBuffer[] objectBatches;
+
+	private AccumulatorRegistry.Reporter reporter;
+
+	/** Counts the emitted records, replaced by the task's counter once the metric group is set */
+	private Counter numRecordsOut = new SimpleCounter();
+
+	/** Selects the channel for {@link #randomEmit(IOReadableWritable)} */
+	private final Random rng = new Random();
+
 	public RecordWriter(ResultPartitionWriter writer) {
 		this(writer, new RoundRobinChannelSelector<T>());
 	}
@@ -74,26 +97,15 @@ public class RecordWriter<T extends IOReadableWritable> {
 		for (int i = 0; i < numChannels; i++) {
 			serializers[i] = new SpanningRecordSerializer<T>();
 		}
+
+		this.objectBatches = new ObjectBuffer[numChannels];
 	}
 
 	public void emit(T record) throws IOException, InterruptedException {
-		for (int targetChannel : channelSelector.selectChannels(record, numChannels)) {
-			// serialize with corresponding serializer and send full buffer
-			RecordSerializer<T> serializer = serializers[targetChannel];
+		numRecordsOut.inc();
 
-			synchronized (serializer) {
-				SerializationResult result = serializer.addRecord(record);
-				while (result.isFullBuffer()) {
-					Buffer buffer = serializer.getCurrentBuffer();
-
-					if (buffer != null) {
-						writeBuffer(buffer, targetChannel, serializer);
-					}
-
-					buffer = writer.getBufferProvider().requestBufferBlocking();
-					result = serializer.setNextBuffer(buffer);
-				}
-			}
+		for (int targetChannel : channelSelector.selectChannels(record, numChannels)) {
+			sendToTarget(record, targetChannel);
 		}
 	}
 
@@ -103,21 +115,45 @@ public class RecordWriter<T extends IOReadableWritable> {
 	 */
 	public void broadcastEmit(T record) throws IOException, InterruptedException {
 		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
-			// serialize with corresponding serializer and send full buffer
-			RecordSerializer<T> serializer = serializers[targetChannel];
+			sendToTarget(record, targetChannel);
+		}
+	}
 
-			synchronized (serializer) {
-				SerializationResult result = serializer.addRecord(record);
-				while (result.isFullBuffer()) {
-					Buffer buffer = serializer.getCurrentBuffer();
+	/**
+	 * This is used to send LatencyMarks to a random target channel. This ignores
+	 * the {@link ChannelSelector}.
+	 */
+	public void randomEmit(T record) throws IOException, InterruptedException {
+		sendToTarget(record, rng.nextInt(numChannels));
+	}
 
-					if (buffer != null) {
-						writeBuffer(buffer, targetChannel, serializer);
-					}
+	private void sendToTarget(T record, int targetChannel) throws IOException, InterruptedException {
+		RecordSerializer<T> serializer = serializers[targetChannel];
 
-					buffer = writer.getBufferProvider().requestBufferBlocking();
-					result = serializer.setNextBuffer(buffer);
+		synchronized (serializer) {
+			if (writer.isObjectHandOverEnabled(targetChannel)) {
+				Object copy = copyForObjectHandOver(record);
+
+				if (copy != null) {
+					addToObjectBatch(copy, targetChannel, serializer);
+					return;
+				}
+			}
+
+			// records in a pending object batch have been emitted before this one
+			writeObjectBatch(targetChannel);
+
+			// serialize with corresponding serializer and send full buffer
+			SerializationResult result = serializer.addRecord(record);
+			while (result.isFullBuffer()) {
+				Buffer buffer = serializer.getCurrentBuffer();
+
+				if (buffer != null) {
+					writeBuffer(buffer, targetChannel, serializer);
 				}
+
+				buffer = writer.getBufferProvider().requestBufferBlocking();
+				result = serializer.setNextBuffer(buffer);
 			}
 		}
 	}
@@ -127,6 +163,7 @@ public class RecordWriter<T extends IOReadableWritable> {
 			RecordSerializer<T> serializer = serializers[targetChannel];
 
 			synchronized (serializer) {
+				writeObjectBatch(targetChannel);
 
 				if (serializer.hasData()) {
 					Buffer buffer = serializer.getCurrentBuffer();
@@ -153,6 +190,8 @@ public class RecordWriter<T extends IOReadableWritable> {
 			RecordSerializer<T> serializer = serializers[targetChannel];
 
 			synchronized (serializer) {
+				writeObjectBatch(targetChannel);
+
 				Buffer buffer = serializer.getCurrentBuffer();
 				if (buffer != null) {
 					writeBuffer(buffer, targetChannel, serializer);
@@ -172,6 +211,8 @@ public class RecordWriter<T extends IOReadableWritable> {
 
 			synchronized (serializer) {
 				try {
+					writeObjectBatch(targetChannel);
+
 					Buffer buffer = serializer.getCurrentBuffer();
 
 					if (buffer != null) {
@@ -185,9 +226,17 @@ public class RecordWriter<T extends IOReadableWritable> {
 	}
 
 	public void clearBuffers() {
-		for (RecordSerializer<?> serializer : serializers) {
+		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
+			RecordSerializer<?> serializer = serializers[targetChannel];
+
 			synchronized (serializer) {
 				try {
+					ObjectBuffer batch = objectBatches[targetChannel];
+					if (batch != null) {
+						objectBatches[targetChannel] = null;
+						batch.recycle();
+					}
+
 					Buffer buffer = serializer.getCurrentBuffer();
 
 					if (buffer != null) {
@@ -205,6 +254,8 @@ public class RecordWriter<T extends IOReadableWritable> {
 	 * Counter for the number of records emitted and the records processed.
 	 */
 	public void setReporter(AccumulatorRegistry.Reporter reporter) {
+		this.reporter = reporter;
+
 		for(RecordSerializer<?> serializer : serializers) {
 			serializer.setReporter(reporter);
 		}
@@ -218,6 +269,69 @@ public class RecordWriter<T extends IOReadableWritable> {
 		for(RecordSerializer<?> serializer : serializers) {
 			serializer.instantiateMetrics(metrics);
 		}
+
+		numRecordsOut = metrics.getNumRecordsOutCounter();
+	}
+
+	/**
+	 * Returns a copy of the given record, which is handed over as an object to a consumer in the
+	 * same JVM, or {@code null}, if the record has to be serialized. The copy must be independent
+	 * of the given record, because the caller may reuse the record after it has been emitted.
+	 *
+	 * <p> This writer does not know how to copy records and always returns {@code null}.
+	 */
+	protected Object copyForObjectHandOver(T record) {
+		return null;
+	}
+
+	/**
+	 * Adds a record to the pending object batch of the given channel. Records that have been
+	 * serialized for this channel before its consumer asked for objects are written first.
+	 */
+	private void addToObjectBatch(
+			Object record,
+			int targetChannel,
+			RecordSerializer<T> serializer) throws IOException, InterruptedException {
+
+		Buffer buffer = serializer.getCurrentBuffer();
+		if (buffer != null) {
+			try {
+				writeBuffer(buffer, targetChannel, serializer);
+			}
+			finally {
+				serializer.clear();
+			}
+		}
+
+		ObjectBuffer batch = objectBatches[targetChannel];
+		if (batch == null) {
+			// the batch is backed by a pooled buffer to back pressure the producer
+			buffer = writer.getBufferProvider().requestBufferBlocking();
+			batch = new ObjectBuffer(buffer.getMemorySegment(), buffer.getRecycler());
+			objectBatches[targetChannel] = batch;
+		}
+
+		batch.addRecord(record);
+
+		if (reporter != null) {
+			reporter.reportNumRecordsOut(1);
+		}
+
+		if (batch.getNumberOfRecords() >= MAX_OBJECT_BATCH_SIZE) {
+			writeObjectBatch(targetChannel);
+		}
+	}
+
+	/**
+	 * Writes the pending object batch of the given channel (if any) to the
+	 * {@link ResultPartitionWriter}.
+	 */
+	private void writeObjectBatch(int targetChannel) throws IOException {
+		ObjectBuffer batch = objectBatches[targetChannel];
+		if (batch != null) {
+			objectBatches[targetChannel] = null;
+			writer.writeBuffer(batch, targetChannel);
+		}
 	}
 
 	/**
@@ -63,6 +63,14 @@ public final class ResultPartitionWriter implements EventListener<TaskEvent> {
 		return partition.getNumberOfSubpartitions();
 	}
 
+	/**
+	 * Returns whether the consumer of the given channel accepts
+	 * {@link org.apache.flink.runtime.io.network.buffer.ObjectBuffer} instances.
+	 */
+	public boolean isObjectHandOverEnabled(int targetChannel) {
+		return partition.isObjectHandOverEnabled(targetChannel);
+	}
+
 	// ------------------------------------------------------------------------
 	// Data processing
 	// ------------------------------------------------------------------------
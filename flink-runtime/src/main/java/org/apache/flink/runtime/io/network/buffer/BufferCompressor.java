@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+
+import java.nio.ByteBuffer;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Compresses the contents of network buffers with LZ4.
+ *
+ * <p> Buffers, which are spilled, are compressed in place: the compressed data replaces the
+ * original contents of the backing memory segment, so compressed buffers fit the fixed-size
+ * segments of the network stack like any other buffer. Buffers, which are sent to remote
+ * consumers, are compressed directly into the outgoing network message, because their subpartition
+ * may still hold them. Buffers whose contents do not shrink are left as they are. Events and
+ * buffers handing over objects are never compressed.
+ *
+ * <p> A compressor is shared by the task producing a result partition and the threads spilling
+ * the partition, hence compression is synchronized.
+ */
+public class BufferCompressor {
+
+	private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+
+	/** The maximum number of bytes a buffer may hold to be compressed */
+	private final int bufferSize;
+
+	/** Target of the compression, before the compressed data is copied back to the buffer */
+	private final byte[] compressionBuffer;
+
+	private final ByteBuffer compressionByteBuffer;
+
+	/** The number of bytes of all buffers, which have been given to this compressor */
+	private long numberOfBytesIn;
+
+	/** The number of bytes of these buffers after compression (or not) */
+	private long numberOfBytesOut;
+
+	public BufferCompressor(int bufferSize) {
+		checkArgument(bufferSize > 0, "Buffer size must be positive.");
+
+		this.bufferSize = bufferSize;
+		this.compressionBuffer = new byte[compressor.maxCompressedLength(bufferSize)];
+		this.compressionByteBuffer = ByteBuffer.wrap(compressionBuffer);
+	}
+
+	/**
+	 * Compresses the given buffer in place, if it is a data buffer and compression reduces its
+	 * size.
+	 *
+	 * @return Whether the buffer has been compressed.
+	 */
+	public synchronized boolean compress(Buffer buffer) {
+		final int compressedSize = compress(buffer, compressionByteBuffer, 0);
+
+		if (compressedSize < 0) {
+			return false;
+		}
+
+		buffer.getMemorySegment().put(0, compressionBuffer, 0, compressedSize);
+		buffer.setSize(compressedSize);
+		buffer.setCompressed(true);
+
+		return true;
+	}
+
+	/**
+	 * Compresses the contents of the given buffer into the target, if it is a data buffer and
+	 * compression reduces its size. The buffer itself is not modified, so it may still be read
+	 * by others.
+	 *
+	 * @param target The target, which has room for {@link #getMaxCompressedLength()} bytes after
+	 *               the given offset.
+	 * @return The number of compressed bytes written to the target, or -1, if the buffer has not
+	 *         been compressed.
+	 */
+	public synchronized int compress(Buffer buffer, ByteBuffer target, int targetOffset) {
+		checkNotNull(buffer);
+
+		if (!buffer.isBuffer() || buffer.isCompressed() || buffer instanceof ObjectBuffer) {
+			return -1;
+		}
+
+		final int size = buffer.getSize();
+
+		if (size == 0 || size > bufferSize) {
+			return -1;
+		}
+
+		final int compressedSize = compressor.compress(
+				buffer.getNioBuffer(), 0, size, target, targetOffset, compressionBuffer.length);
+
+		numberOfBytesIn += size;
+
+		if (compressedSize >= size) {
+			numberOfBytesOut += size;
+			return -1;
+		}
+
+		numberOfBytesOut += compressedSize;
+		return compressedSize;
+	}
+
+	/**
+	 * Returns the maximum number of bytes, which the compressed contents of a buffer may take.
+	 */
+	public int getMaxCompressedLength() {
+		return compressionBuffer.length;
+	}
+
+	/**
+	 * Returns the ratio of the size after compression to the size before compression of all
+	 * buffers given to this compressor, or 1.0 if there have been none.
+	 */
+	public synchronized double getCompressionRatio() {
+		return numberOfBytesIn == 0 ? 1.0 : (double) numberOfBytesOut / numberOfBytesIn;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BufferCompressor [buffer size: %d, compression ratio: %.3f]",
+				bufferSize, getCompressionRatio());
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.apache.flink.core.memory.MemorySegment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Decompresses buffers, which have been compressed by a {@link BufferCompressor}.
+ *
+ * <p> The contents are decompressed into a buffer of the given {@link BufferProvider}, which is
+ * the buffer pool of the consuming input gate, and the compressed buffer is recycled. Compressed
+ * buffers are only received from the network or read from spill files, so they are owned by the
+ * consumer alone. If the provider has no buffer available, the contents are therefore
+ * decompressed into the compressed buffer itself, instead of waiting for a buffer.
+ *
+ * <p> A decompressor is used by the consuming task thread only and is not thread-safe.
+ */
+public class BufferDecompressor {
+
+	private final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+
+	/** Target of in-place decompression, before the contents are copied back to the buffer */
+	private byte[] decompressionBuffer;
+
+	/**
+	 * Decompresses the given buffer.
+	 *
+	 * @param bufferProvider The provider of the buffer to decompress into, or {@code null}, if
+	 *                       the buffer is to be decompressed in place.
+	 * @return The buffer with the decompressed contents. The given buffer is recycled, unless it
+	 *         is the returned one.
+	 */
+	public Buffer decompress(Buffer buffer, BufferProvider bufferProvider) throws IOException {
+		checkArgument(buffer.isCompressed(), "Buffer is not compressed.");
+
+		final Buffer target = bufferProvider != null ? bufferProvider.requestBuffer() : null;
+
+		if (target == null) {
+			return decompressInPlace(buffer);
+		}
+
+		boolean success = false;
+
+		try {
+			final MemorySegment segment = target.getMemorySegment();
+
+			target.setSize(decompress(buffer, segment.wrap(0, segment.size()), segment.size()));
+
+			success = true;
+			return target;
+		}
+		finally {
+			buffer.recycle();
+
+			if (!success) {
+				target.recycle();
+			}
+		}
+	}
+
+	private Buffer decompressInPlace(Buffer buffer) throws IOException {
+		final MemorySegment segment = buffer.getMemorySegment();
+		final int segmentSize = segment.size();
+
+		if (decompressionBuffer == null || decompressionBuffer.length < segmentSize) {
+			decompressionBuffer = new byte[segmentSize];
+		}
+
+		boolean success = false;
+
+		try {
+			final int size = decompress(buffer, ByteBuffer.wrap(decompressionBuffer), segmentSize);
+
+			segment.put(0, decompressionBuffer, 0, size);
+			buffer.setSize(size);
+			buffer.setCompressed(false);
+
+			success = true;
+			return buffer;
+		}
+		finally {
+			if (!success) {
+				buffer.recycle();
+			}
+		}
+	}
+
+	private int decompress(Buffer buffer, ByteBuffer target, int maxSize) throws IOException {
+		try {
+			return decompressor.decompress(buffer.getNioBuffer(), 0, buffer.getSize(), target, 0, maxSize);
+		}
+		catch (LZ4Exception e) {
+			throw new IOException("Corrupt compressed buffer: " + e.getMessage(), e);
+		}
+	}
+}
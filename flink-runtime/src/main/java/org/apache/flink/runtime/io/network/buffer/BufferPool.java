@@ -68,4 +68,16 @@ public interface BufferPool extends BufferProvider, BufferRecycler {
 	 */
 	int getNumberOfAvailableMemorySegments();
 
+	/**
+	 * Returns the number of buffers of this buffer pool, which are currently in use. The number
+	 * is not synchronized with concurrent requests and recycles of buffers.
+	 */
+	int bestEffortGetNumOfUsedBuffers();
+
+	/**
+	 * Returns the total time in milliseconds that blocking buffer requests (see
+	 * {@link BufferProvider#requestBufferBlocking()}) have been waiting for a buffer of this pool.
+	 */
+	long getTotalBlockedTimeMillis();
+
 }
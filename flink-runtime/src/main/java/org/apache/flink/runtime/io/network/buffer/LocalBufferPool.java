@@ -23,7 +23,9 @@ import org.apache.flink.runtime.util.event.EventListener;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -42,6 +44,13 @@ import static org.apache.flink.util.Preconditions.checkState;
  * <p> The size of this pool can be dynamically changed at runtime ({@link #setNumBuffers(int)}. It
  * will then lazily return the required number of buffers to the {@link NetworkBufferPool} to
  * match its new size.
+ *
+ * <p> Requesting an available buffer and recycling a buffer are lock-free in the common case. The
+ * lock is only taken to request new segments from the network buffer pool, to return excess
+ * segments, to wait for a buffer, and to hand recycled buffers over to waiting requests and
+ * registered listeners. A request or listener, which starts waiting, first publishes itself and
+ * then checks the available segments again, whereas a recycler first publishes the segment and
+ * then checks for waiting requests and listeners. This way, a recycled segment is never missed.
  */
 class LocalBufferPool implements BufferPool {
 
@@ -52,20 +61,34 @@ class LocalBufferPool implements BufferPool {
 
 	// The currently available memory segments. These are segments, which have been requested from
 	// the network buffer pool and are currently not handed out as Buffer instances.
-	private final Queue<MemorySegment> availableMemorySegments = new ArrayDeque<MemorySegment>();
+	private final Queue<MemorySegment> availableMemorySegments = new ConcurrentLinkedQueue<MemorySegment>();
+
+	// Lock for all state changes, which are not part of the lock-free request and recycle path
+	private final Object lock = new Object();
 
 	// Buffer availability listeners, which need to be notified when a Buffer becomes available.
 	// Listeners can only be registered at a time/state where no Buffer instance was available.
-	private final Queue<EventListener<Buffer>> registeredListeners = new ArrayDeque<EventListener<Buffer>>();
+	private final Deque<EventListener<Buffer>> registeredListeners = new ArrayDeque<EventListener<Buffer>>();
+
+	// The number of registered listeners, which can be read without the lock
+	private volatile int numberOfRegisteredListeners;
+
+	// The number of blocking requests, which are currently waiting for a buffer
+	private volatile int numberOfWaitingRequests;
 
 	// The current size of this pool
-	private int currentPoolSize;
+	private volatile int currentPoolSize;
 
 	// Number of all memory segments, which have been requested from the network buffer pool and are
 	// somehow referenced through this pool (e.g. wrapped in Buffer instances or as available segments).
-	private int numberOfRequestedMemorySegments;
+	// Only modified while holding the lock.
+	private volatile int numberOfRequestedMemorySegments;
 
-	private boolean isDestroyed;
+	private volatile boolean isDestroyed;
+
+	// The total time that blocking requests have been waiting for a buffer. Only modified while
+	// holding the lock.
+	private volatile long totalBlockedTimeNanos;
 
 	private BufferPoolOwner owner;
 
@@ -81,9 +104,7 @@ class LocalBufferPool implements BufferPool {
 
 	@Override
 	public boolean isDestroyed() {
-		synchronized (availableMemorySegments) {
-			return isDestroyed;
-		}
+		return isDestroyed;
 	}
 
 	@Override
@@ -98,21 +119,27 @@ class LocalBufferPool implements BufferPool {
 
 	@Override
 	public int getNumberOfAvailableMemorySegments() {
-		synchronized (availableMemorySegments) {
-			return availableMemorySegments.size();
-		}
+		return availableMemorySegments.size();
+	}
+
+	@Override
+	public int bestEffortGetNumOfUsedBuffers() {
+		return Math.max(0, numberOfRequestedMemorySegments - availableMemorySegments.size());
+	}
+
+	@Override
+	public long getTotalBlockedTimeMillis() {
+		return totalBlockedTimeNanos / 1000000;
 	}
 
 	@Override
 	public int getNumBuffers() {
-		synchronized (availableMemorySegments) {
-			return currentPoolSize;
-		}
+		return currentPoolSize;
 	}
 
 	@Override
 	public void setBufferPoolOwner(BufferPoolOwner owner) {
-		synchronized (availableMemorySegments) {
+		synchronized (lock) {
 			checkState(this.owner == null, "Buffer pool owner has already been set.");
 			this.owner = checkNotNull(owner);
 		}
@@ -134,24 +161,32 @@ class LocalBufferPool implements BufferPool {
 	}
 
 	private Buffer requestBuffer(boolean isBlocking) throws InterruptedException, IOException {
-		synchronized (availableMemorySegments) {
+		// Fast path: take an available segment, unless excess segments have to be returned first
+		if (numberOfRequestedMemorySegments <= currentPoolSize) {
+			final MemorySegment segment = availableMemorySegments.poll();
+
+			if (segment != null) {
+				return new Buffer(segment, this);
+			}
+		}
+
+		synchronized (lock) {
 			returnExcessMemorySegments();
 
 			boolean askToRecycle = owner != null;
 
-			while (availableMemorySegments.isEmpty()) {
+			MemorySegment segment;
+			while ((segment = availableMemorySegments.poll()) == null) {
 				if (isDestroyed) {
 					throw new IllegalStateException("Buffer pool is destroyed.");
 				}
 
 				if (numberOfRequestedMemorySegments < currentPoolSize) {
-					final MemorySegment segment = networkBufferPool.requestMemorySegment();
+					segment = networkBufferPool.requestMemorySegment();
 
 					if (segment != null) {
 						numberOfRequestedMemorySegments++;
-						availableMemorySegments.add(segment);
-
-						continue;
+						break;
 					}
 				}
 
@@ -159,40 +194,64 @@ class LocalBufferPool implements BufferPool {
 					owner.releaseMemory(1);
 				}
 
-				if (isBlocking) {
-					availableMemorySegments.wait(2000);
-				}
-				else {
+				if (!isBlocking) {
 					return null;
 				}
+
+				numberOfWaitingRequests++;
+				try {
+					// Check again after publishing the waiting request. A concurrent recycler
+					// either sees the request and notifies it or has already made its segment
+					// available.
+					if ((segment = availableMemorySegments.poll()) != null) {
+						break;
+					}
+
+					final long waitStart = System.nanoTime();
+					try {
+						lock.wait(2000);
+					}
+					finally {
+						totalBlockedTimeNanos += System.nanoTime() - waitStart;
+					}
+				}
+				finally {
+					numberOfWaitingRequests--;
+				}
 			}
 
-			return new Buffer(availableMemorySegments.poll(), this);
+			return new Buffer(segment, this);
 		}
 	}
 
 	@Override
 	public void recycle(MemorySegment segment) {
-		synchronized (availableMemorySegments) {
+		// Fast path: make the segment available without taking the lock
+		if (!isDestroyed
+				&& numberOfRegisteredListeners == 0
+				&& numberOfRequestedMemorySegments <= currentPoolSize) {
+
+			availableMemorySegments.add(segment);
+
+			// A request or listener might have started waiting or the pool might have been
+			// destroyed concurrently. Make sure that they don't miss the segment.
+			if (numberOfWaitingRequests > 0 || numberOfRegisteredListeners > 0 || isDestroyed) {
+				synchronized (lock) {
+					handOverAvailableSegments();
+				}
+			}
+
+			return;
+		}
+
+		synchronized (lock) {
 			if (isDestroyed || numberOfRequestedMemorySegments > currentPoolSize) {
 				returnMemorySegment(segment);
 			}
 			else {
-				EventListener<Buffer> listener = registeredListeners.poll();
+				availableMemorySegments.add(segment);
 
-				if (listener == null) {
-					availableMemorySegments.add(segment);
-					availableMemorySegments.notify();
-				}
-				else {
-					try {
-						listener.onEvent(new Buffer(segment, this));
-					}
-					catch (Throwable ignored) {
-						availableMemorySegments.add(segment);
-						availableMemorySegments.notify();
-					}
-				}
+				handOverAvailableSegments();
 			}
 		}
 	}
@@ -202,8 +261,11 @@ class LocalBufferPool implements BufferPool {
 	 */
 	@Override
 	public void lazyDestroy() {
-		synchronized (availableMemorySegments) {
+		synchronized (lock) {
 			if (!isDestroyed) {
+				// Set the flag first, so that concurrent recyclers return their segments
+				isDestroyed = true;
+
 				MemorySegment segment;
 				while ((segment = availableMemorySegments.poll()) != null) {
 					returnMemorySegment(segment);
@@ -214,7 +276,7 @@ class LocalBufferPool implements BufferPool {
 					listener.onEvent(null);
 				}
 
-				isDestroyed = true;
+				numberOfRegisteredListeners = 0;
 			}
 		}
 
@@ -223,19 +285,29 @@ class LocalBufferPool implements BufferPool {
 
 	@Override
 	public boolean addListener(EventListener<Buffer> listener) {
-		synchronized (availableMemorySegments) {
-			if (!availableMemorySegments.isEmpty() || isDestroyed) {
+		synchronized (lock) {
+			if (isDestroyed) {
 				return false;
 			}
 
 			registeredListeners.add(listener);
+			numberOfRegisteredListeners++;
+
+			// Check after publishing the listener, see the recycle fast path
+			if (!availableMemorySegments.isEmpty()) {
+				registeredListeners.pollLast();
+				numberOfRegisteredListeners--;
+
+				return false;
+			}
+
 			return true;
 		}
 	}
 
 	@Override
 	public void setNumBuffers(int numBuffers) throws IOException {
-		synchronized (availableMemorySegments) {
+		synchronized (lock) {
 			checkArgument(numBuffers >= numberOfRequiredMemorySegments, "Buffer pool needs at least " + numberOfRequiredMemorySegments + " buffers, but tried to set to " + numBuffers + ".");
 
 			currentPoolSize = numBuffers;
@@ -252,18 +324,53 @@ class LocalBufferPool implements BufferPool {
 
 	@Override
 	public String toString() {
-		synchronized (availableMemorySegments) {
+		synchronized (lock) {
 			return String.format("[size: %d, required: %d, requested: %d, available: %d, listeners: %d, destroyed: %s]", currentPoolSize, numberOfRequiredMemorySegments, numberOfRequestedMemorySegments, availableMemorySegments.size(), registeredListeners.size(), isDestroyed);
 		}
 	}
 
 	// ------------------------------------------------------------------------
 
+	// Must be called while holding the lock
+	private void handOverAvailableSegments() {
+		if (isDestroyed) {
+			MemorySegment segment;
+			while ((segment = availableMemorySegments.poll()) != null) {
+				returnMemorySegment(segment);
+			}
+
+			return;
+		}
+
+		while (!registeredListeners.isEmpty()) {
+			final MemorySegment segment = availableMemorySegments.poll();
+			if (segment == null) {
+				return;
+			}
+
+			final EventListener<Buffer> listener = registeredListeners.poll();
+			numberOfRegisteredListeners--;
+
+			try {
+				listener.onEvent(new Buffer(segment, this));
+			}
+			catch (Throwable ignored) {
+				availableMemorySegments.add(segment);
+			}
+		}
+
+		if (numberOfWaitingRequests > 0 && !availableMemorySegments.isEmpty()) {
+			lock.notify();
+		}
+	}
+
+	// Must be called while holding the lock
 	private void returnMemorySegment(MemorySegment segment) {
 		numberOfRequestedMemorySegments--;
 		networkBufferPool.recycle(segment);
 	}
 
+	// Must be called while holding the lock
 	private void returnExcessMemorySegments() {
 		while (numberOfRequestedMemorySegments > currentPoolSize) {
 			MemorySegment segment = availableMemorySegments.poll();
@@ -19,19 +19,24 @@
 package org.apache.flink.runtime.io.network.buffer;
 
 import org.apache.flink.configuration.ConfigConstants;
+import org.apache.flink.core.memory.HybridMemorySegment;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.memory.UnifiedMemoryPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Queue;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
@@ -41,19 +46,29 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * The NetworkBufferPool creates {@link LocalBufferPool}s from which the individual tasks draw
  * the buffers for the network data transfer. When new local buffer pools are created, the
  * NetworkBufferPool dynamically redistributes the buffers between the pools.
+ *
+ * <p> If the NetworkBufferPool draws its segments from a {@link UnifiedMemoryPool}, it starts
+ * with the lease's guaranteed segments. When the required buffers of the local buffer pools exceed
+ * them, it leases additional segments and returns them once they are no longer required.
  */
 public class NetworkBufferPool implements BufferPoolFactory {
 
 	private static final Logger LOG = LoggerFactory.getLogger(NetworkBufferPool.class);
 
-	private final int totalNumberOfMemorySegments;
+	/** The time to wait for other buffer pools to return their excess buffers */
+	private static final long REQUEST_SEGMENTS_TIMEOUT_MILLIS = 30000;
+
+	private volatile int totalNumberOfMemorySegments;
 
 	private final int memorySegmentSize;
 
-	private final Queue<MemorySegment> availableMemorySegments;
+	private final ArrayBlockingQueue<MemorySegment> availableMemorySegments;
 
 	private volatile boolean isDestroyed;
 
+	// The lease of the unified memory pool, from which the segments are drawn, or null
+	private final UnifiedMemoryPool.Lease lease;
+
 	// ---- Managed buffer pools ----------------------------------------------
 
 	private final Object factoryLock = new Object();
@@ -70,6 +85,7 @@ public class NetworkBufferPool implements BufferPoolFactory {
 	public NetworkBufferPool(int numberOfSegmentsToAllocate, int segmentSize, MemoryType memoryType) {
 		checkNotNull(memoryType);
 		
+		this.lease = null;
 		this.totalNumberOfMemorySegments = numberOfSegmentsToAllocate;
 		this.memorySegmentSize = segmentSize;
 
@@ -122,6 +138,25 @@ public class NetworkBufferPool implements BufferPoolFactory {
 				allocatedMb, availableMemorySegments.size(), segmentSize);
 	}
 
+	/**
+	 * Creates a pool, which draws its segments from the given lease of a {@link UnifiedMemoryPool}.
+	 * The pool initially takes the lease's guaranteed segments.
+	 */
+	public NetworkBufferPool(UnifiedMemoryPool.Lease lease) {
+		this.lease = checkNotNull(lease);
+		this.memorySegmentSize = lease.getSegmentSize();
+
+		// the pool may grow up to the size of the unified memory pool
+		this.availableMemorySegments = new ArrayBlockingQueue<MemorySegment>(lease.getPool().getTotalNumberOfSegments());
+
+		synchronized (factoryLock) {
+			leaseSegments(lease.getNumberOfGuaranteedSegments());
+		}
+
+		LOG.info("Leased {} MB for network buffer pool (number of memory segments: {}, bytes per segment: {}).",
+				((long) memorySegmentSize * totalNumberOfMemorySegments) >> 20, totalNumberOfMemorySegments, memorySegmentSize);
+	}
+
 	public MemorySegment requestMemorySegment() {
 		return availableMemorySegments.poll();
 	}
@@ -132,13 +167,128 @@ public class NetworkBufferPool implements BufferPoolFactory {
 		availableMemorySegments.add(segment);
 	}
 
+	/**
+	 * Requests a fixed number of memory segments, which are not managed by any {@link LocalBufferPool}.
+	 * This is used for the exclusive buffers of remote input channels, which announce them as credit
+	 * to the sender.
+	 *
+	 * <p> The segments count as required buffers until they are returned via
+	 * {@link #recycleMemorySegments(List)}. If some of them are still held by other buffer pools,
+	 * this call waits until these pools have returned their excess buffers, and fails if they do
+	 * not return them in time.
+	 */
+	public List<MemorySegment> requestMemorySegments(int numRequiredBuffers) throws IOException {
+		return requestMemorySegments(numRequiredBuffers, REQUEST_SEGMENTS_TIMEOUT_MILLIS);
+	}
+
+	List<MemorySegment> requestMemorySegments(int numRequiredBuffers, long timeoutMillis) throws IOException {
+		checkArgument(numRequiredBuffers > 0, "The number of required buffers should be larger than 0.");
+		checkArgument(timeoutMillis > 0, "The timeout should be larger than 0.");
+
+		synchronized (factoryLock) {
+			if (isDestroyed) {
+				throw new IllegalStateException("Network buffer pool has already been destroyed.");
+			}
+
+			leaseRequiredSegments(numTotalRequiredBuffers + numRequiredBuffers);
+
+			if (numTotalRequiredBuffers + numRequiredBuffers > totalNumberOfMemorySegments) {
+				throw new IOException(String.format("Insufficient number of network buffers: " +
+								"required %d, but only %d available. The total number of network " +
+								"buffers is currently set to %d. You can increase this " +
+								"number by setting the configuration key '%s'.",
+						numRequiredBuffers,
+						totalNumberOfMemorySegments - numTotalRequiredBuffers,
+						totalNumberOfMemorySegments,
+						ConfigConstants.TASK_MANAGER_NETWORK_NUM_BUFFERS_KEY));
+			}
+
+			this.numTotalRequiredBuffers += numRequiredBuffers;
+
+			redistributeBuffers();
+		}
+
+		final List<MemorySegment> segments = new ArrayList<MemorySegment>(numRequiredBuffers);
+
+		try {
+			final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+			// The managed pools return their excess buffers lazily
+			while (segments.size() < numRequiredBuffers) {
+				if (isDestroyed) {
+					throw new IllegalStateException("Network buffer pool has already been destroyed.");
+				}
+
+				final long remainingNanos = deadline - System.nanoTime();
+				if (remainingNanos <= 0) {
+					throw new IOException(String.format("Insufficient number of network buffers: " +
+									"required %d, but only %d could be obtained within %d ms, because " +
+									"the other buffer pools of the task manager still use them. " +
+									"You can increase the number of network buffers by setting the " +
+									"configuration key '%s'.",
+							numRequiredBuffers,
+							segments.size(),
+							timeoutMillis,
+							ConfigConstants.TASK_MANAGER_NETWORK_NUM_BUFFERS_KEY));
+				}
+
+				final MemorySegment segment = availableMemorySegments.poll(
+						Math.min(remainingNanos, TimeUnit.SECONDS.toNanos(2)), TimeUnit.NANOSECONDS);
+				if (segment != null) {
+					segments.add(segment);
+				}
+			}
+		}
+		catch (Throwable t) {
+			recycleMemorySegments(segments, numRequiredBuffers);
+
+			if (t instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for exclusive network buffers.", t);
+			}
+			else if (t instanceof IOException) {
+				throw (IOException) t;
+			}
+			else if (t instanceof RuntimeException) {
+				throw (RuntimeException) t;
+			}
+			else {
+				throw new IOException(t.getMessage(), t);
+			}
+		}
+
+		return segments;
+	}
+
+	/**
+	 * Returns memory segments, which have been requested via {@link #requestMemorySegments(int)}.
+	 */
+	public void recycleMemorySegments(List<MemorySegment> segments) throws IOException {
+		recycleMemorySegments(segments, segments.size());
+	}
+
+	private void recycleMemorySegments(List<MemorySegment> segments, int numRequiredBuffers) throws IOException {
+		synchronized (factoryLock) {
+			numTotalRequiredBuffers -= numRequiredBuffers;
+
+			availableMemorySegments.addAll(segments);
+
+			redistributeBuffers();
+		}
+	}
+
 	public void destroy() {
 		synchronized (factoryLock) {
 			isDestroyed = true;
 
 			MemorySegment segment;
 			while ((segment = availableMemorySegments.poll()) != null) {
-				segment.free();
+				if (lease != null) {
+					returnSegmentToLease(segment);
+				}
+				else {
+					segment.free();
+				}
 			}
 		}
 	}
@@ -192,6 +342,8 @@ public class NetworkBufferPool implements BufferPoolFactory {
 
 			// Ensure that the number of required buffers can be satisfied.
 			// With dynamic memory management this should become obsolete.
+			leaseRequiredSegments(numTotalRequiredBuffers + numRequiredBuffers);
+
 			if (numTotalRequiredBuffers + numRequiredBuffers > totalNumberOfMemorySegments) {
 				throw new IOException(String.format("Insufficient number of network buffers: " +
 								"required %d, but only %d available. The total number of network " +
@@ -266,6 +418,8 @@ public class NetworkBufferPool implements BufferPoolFactory {
 
 	// Must be called from synchronized block
 	private void redistributeBuffers() throws IOException {
+		returnLeasedSegments();
+
 		int numManagedBufferPools = managedBufferPools.size();
 
 		if (numManagedBufferPools == 0) {
@@ -289,4 +443,58 @@ public class NetworkBufferPool implements BufferPoolFactory {
 			bufferPool.setNumBuffers(bufferPool.getNumberOfRequiredMemorySegments() + numExcessBuffersPerPool + leftoverBuffers);
 		}
 	}
+
+	// ------------------------------------------------------------------------
+	// Unified memory pool lease
+	// ------------------------------------------------------------------------
+
+	// Must be called from synchronized block
+	private void leaseRequiredSegments(int numRequiredSegments) {
+		if (lease != null && numRequiredSegments > totalNumberOfMemorySegments) {
+			leaseSegments(numRequiredSegments - totalNumberOfMemorySegments);
+		}
+	}
+
+	// Must be called from synchronized block
+	private void leaseSegments(int numSegments) {
+		for (int i = 0; i < numSegments && availableMemorySegments.remainingCapacity() > 0; i++) {
+			final ByteBuffer memory = lease.requestSegment();
+			if (memory == null) {
+				return;
+			}
+
+			availableMemorySegments.add(HybridMemorySegment.FACTORY.wrapPooledOffHeapMemory(memory, null));
+			totalNumberOfMemorySegments++;
+		}
+	}
+
+	/**
+	 * Returns segments beyond the lease's guarantee, which are not required by any local buffer
+	 * pool. Only segments which are currently available are returned, excess buffers of the local
+	 * buffer pools follow with later redistributions.
+	 */
+	// Must be called from synchronized block
+	private void returnLeasedSegments() {
+		if (lease == null) {
+			return;
+		}
+
+		final int numSegmentsToKeep = Math.max(lease.getNumberOfGuaranteedSegments(), numTotalRequiredBuffers);
+
+		while (totalNumberOfMemorySegments > numSegmentsToKeep) {
+			final MemorySegment segment = availableMemorySegments.poll();
+			if (segment == null) {
+				return;
+			}
+
+			returnSegmentToLease(segment);
+			totalNumberOfMemorySegments--;
+		}
+	}
+
+	private void returnSegmentToLease(MemorySegment segment) {
+		final ByteBuffer memory = ((HybridMemorySegment) segment).getOffHeapBuffer();
+		segment.free();
+		lease.recycleSegment(memory);
+	}
 }
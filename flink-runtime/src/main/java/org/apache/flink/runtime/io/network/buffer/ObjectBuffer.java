@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A buffer that carries a batch of record objects instead of serialized bytes.
+ *
+ * <p> Object buffers are only exchanged between a producer and a consumer that run in the same
+ * JVM and share the user code class loader (see {@code ExecutionConfig#enableLocalObjectHandOver()}).
+ * The backing {@link MemorySegment} is never written to. It is requested from the producer's
+ * buffer pool like any other buffer, so that a slow consumer back pressures the producer in the
+ * same way as for serialized exchanges.
+ *
+ * <p> The buffer reports a size of 0 bytes.
+ */
+public class ObjectBuffer extends Buffer {
+
+	/** The records of this batch, in the order in which they were added */
+	private final List<Object> records;
+
+	public ObjectBuffer(MemorySegment memorySegment, BufferRecycler recycler) {
+		this(memorySegment, recycler, new ArrayList<Object>());
+	}
+
+	public ObjectBuffer(MemorySegment memorySegment, BufferRecycler recycler, List<Object> records) {
+		super(memorySegment, recycler);
+
+		this.records = checkNotNull(records);
+
+		setSize(0);
+	}
+
+	public void addRecord(Object record) {
+		records.add(checkNotNull(record));
+	}
+
+	public int getNumberOfRecords() {
+		return records.size();
+	}
+
+	/**
+	 * Returns the records of this batch. The records stay valid after this buffer has been
+	 * recycled, because they do not live in the backing memory segment.
+	 */
+	public List<Object> getRecords() {
+		return records;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ObjectBuffer %s [records: %d]", hashCode(), records.size());
+	}
+}
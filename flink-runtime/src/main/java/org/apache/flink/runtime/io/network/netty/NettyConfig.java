@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.network.netty;
 
+import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +48,8 @@ public class NettyConfig {
 
 	public static final String TRANSPORT_TYPE = "taskmanager.net.transport";
 
+	public static final String NETWORK_BUFFERS_PER_CHANNEL = "taskmanager.net.buffers-per-channel";
+
 	// ------------------------------------------------------------------------
 
 	enum TransportType {
@@ -156,6 +159,13 @@ public class NettyConfig {
 		return this;
 	}
 
+	public NettyConfig setNetworkBuffersPerChannel(int numBuffers) {
+		checkArgument(numBuffers > 0);
+		config.setInteger(NETWORK_BUFFERS_PER_CHANNEL, numBuffers);
+
+		return this;
+	}
+
 	// ------------------------------------------------------------------------
 	// Getters
 	// ------------------------------------------------------------------------
@@ -190,6 +200,23 @@ public class NettyConfig {
 		return config.getInteger(SEND_RECEIVE_BUFFER_SIZE, 0);
 	}
 
+	public int getNetworkBuffersPerChannel() {
+		// default: 2 exclusive buffers per remote input channel, which are
+		// announced as the initial credit of the channel
+		int numBuffers = config.getInteger(NETWORK_BUFFERS_PER_CHANNEL, 2);
+		checkArgument(numBuffers > 0, "Remote input channels require at least one exclusive buffer.");
+
+		return numBuffers;
+	}
+
+	/**
+	 * Returns whether data buffers are compressed before they are sent to remote consumers.
+	 */
+	public boolean isCompressionEnabled() {
+		return config.getBoolean(ConfigConstants.TASK_MANAGER_NETWORK_COMPRESSION_ENABLED,
+				ConfigConstants.DEFAULT_TASK_MANAGER_NETWORK_COMPRESSION_ENABLED);
+	}
+
 	public TransportType getTransportType() {
 		String transport = config.getString(TRANSPORT_TYPE, "nio");
 
@@ -215,7 +242,8 @@ public class NettyConfig {
 				"number of client threads: %d (%s), " +
 				"server connect backlog: %d (%s), " +
 				"client connect timeout (sec): %d, " +
-				"send/receive buffer size (bytes): %d (%s)]";
+				"send/receive buffer size (bytes): %d (%s), " +
+				"exclusive buffers per channel: %d]";
 
 		String def = "use Netty's default";
 		String man = "manual";
@@ -225,6 +253,7 @@ public class NettyConfig {
 				getClientNumThreads(), getClientNumThreads() == 0 ? def : man,
 				getServerConnectBacklog(), getServerConnectBacklog() == 0 ? def : man,
 				getClientConnectTimeoutSeconds(), getSendAndReceiveBufferSize(),
-				getSendAndReceiveBufferSize() == 0 ? def : man);
+				getSendAndReceiveBufferSize() == 0 ? def : man,
+				getNetworkBuffersPerChannel());
 	}
 }
@@ -36,10 +36,14 @@ public class NettyConnectionManager implements ConnectionManager {
 
 	private final PartitionRequestClientFactory partitionRequestClientFactory;
 
+	/** The size of the buffers to compress for remote consumers, or 0 if compression is disabled */
+	private final int compressedBufferSize;
+
 	public NettyConnectionManager(NettyConfig nettyConfig) {
 		this.server = new NettyServer(nettyConfig);
 		this.client = new NettyClient(nettyConfig);
 		this.bufferPool = new NettyBufferPool(nettyConfig.getNumberOfArenas());
+		this.compressedBufferSize = nettyConfig.isCompressionEnabled() ? nettyConfig.getMemorySegmentSize() : 0;
 
 		this.partitionRequestClientFactory = new PartitionRequestClientFactory(client);
 	}
@@ -48,7 +52,7 @@ public class NettyConnectionManager implements ConnectionManager {
 	public void start(ResultPartitionProvider partitionProvider, TaskEventDispatcher taskEventDispatcher, NetworkBufferPool networkbufferPool)
 			throws IOException {
 		PartitionRequestProtocol partitionRequestProtocol =
-				new PartitionRequestProtocol(partitionProvider, taskEventDispatcher, networkbufferPool);
+				new PartitionRequestProtocol(partitionProvider, taskEventDispatcher, networkbufferPool, compressedBufferSize);
 
 		client.init(partitionRequestProtocol, bufferPool);
 		server.init(partitionRequestProtocol, bufferPool);
@@ -36,6 +36,7 @@ import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannel;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
@@ -47,6 +48,8 @@ import java.io.ObjectOutputStream;
 import java.nio.ByteBuffer;
 import java.util.List;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
+
 /**
  * A simple and generic interface to serialize messages to Netty's buffer space.
  */
@@ -153,6 +156,9 @@ abstract class NettyMessage {
 			else if (msgId == CloseRequest.ID) {
 				decodedMsg = new CloseRequest();
 			}
+			else if (msgId == AddCredit.ID) {
+				decodedMsg = new AddCredit();
+			}
 			else {
 				throw new IllegalStateException("Received unknown message from producer: " + msg);
 			}
@@ -174,6 +180,9 @@ abstract class NettyMessage {
 
 		final Buffer buffer;
 
+		/** Compresses the buffer into the serialized message, if not null */
+		final BufferCompressor compressor;
+
 		InputChannelID receiverId;
 
 		int sequenceNumber;
@@ -182,6 +191,8 @@ abstract class NettyMessage {
 
 		boolean isBuffer;
 
+		boolean isCompressed;
+
 		int size;
 
 		ByteBuf retainedSlice;
@@ -190,18 +201,28 @@ abstract class NettyMessage {
 			// When deserializing we first have to request a buffer from the respective buffer
 			// provider (at the handler) and copy the buffer from Netty's space to ours.
 			buffer = null;
+			compressor = null;
 		}
 
 		BufferResponse(Buffer buffer, int sequenceNumber, InputChannelID receiverId) {
+			this(buffer, sequenceNumber, receiverId, null);
+		}
+
+		BufferResponse(Buffer buffer, int sequenceNumber, InputChannelID receiverId, BufferCompressor compressor) {
 			this.buffer = buffer;
 			this.sequenceNumber = sequenceNumber;
 			this.receiverId = receiverId;
+			this.compressor = compressor;
 		}
 
 		boolean isBuffer() {
 			return isBuffer;
 		}
 
+		boolean isCompressed() {
+			return isCompressed;
+		}
+
 		int getSize() {
 			return size;
 		}
@@ -223,7 +244,9 @@ abstract class NettyMessage {
 
 		@Override
 		ByteBuf write(ByteBufAllocator allocator) throws IOException {
-			int length = 16 + 4 + 1 + 4 + buffer.getSize();
+			final int maxCompressedLength = compressor != null ? compressor.getMaxCompressedLength() : 0;
+
+			int length = 16 + 4 + 1 + 1 + 4 + Math.max(buffer.getSize(), maxCompressedLength);
 
 			ByteBuf result = null;
 			try {
@@ -232,8 +255,29 @@ abstract class NettyMessage {
 				receiverId.writeTo(result);
 				result.writeInt(sequenceNumber);
 				result.writeBoolean(buffer.isBuffer());
-				result.writeInt(buffer.getSize());
-				result.writeBytes(buffer.getNioBuffer());
+
+				// The buffer is compressed into the message instead of in place, because its
+				// subpartition may still hold it (e.g. an in-memory blocking subpartition)
+				int compressedSize = -1;
+				if (compressor != null) {
+					int dataIndex = result.writerIndex() + 1 + 4;
+					compressedSize = compressor.compress(
+							buffer, result.nioBuffer(dataIndex, maxCompressedLength), 0);
+				}
+
+				if (compressedSize >= 0) {
+					result.writeBoolean(true);
+					result.writeInt(compressedSize);
+					result.writerIndex(result.writerIndex() + compressedSize);
+				}
+				else {
+					result.writeBoolean(buffer.isCompressed());
+					result.writeInt(buffer.getSize());
+					result.writeBytes(buffer.getNioBuffer());
+				}
+
+				// The frame may be shorter than the allocated length
+				result.setInt(0, result.writerIndex());
 
 				return result;
 			}
@@ -256,6 +300,7 @@ abstract class NettyMessage {
 			receiverId = InputChannelID.fromByteBuf(buffer);
 			sequenceNumber = buffer.readInt();
 			isBuffer = buffer.readBoolean();
+			isCompressed = buffer.readBoolean();
 			size = buffer.readInt();
 
 			retainedSlice = buffer.readSlice(size);
@@ -369,13 +414,17 @@ abstract class NettyMessage {
 
 		InputChannelID receiverId;
 
+		/** The number of buffers the receiver has reserved for this subpartition. */
+		int credit;
+
 		public PartitionRequest() {
 		}
 
-		PartitionRequest(ResultPartitionID partitionId, int queueIndex, InputChannelID receiverId) {
+		PartitionRequest(ResultPartitionID partitionId, int queueIndex, InputChannelID receiverId, int credit) {
 			this.partitionId = partitionId;
 			this.queueIndex = queueIndex;
 			this.receiverId = receiverId;
+			this.credit = credit;
 		}
 
 		@Override
@@ -383,12 +432,13 @@ abstract class NettyMessage {
 			ByteBuf result = null;
 
 			try {
-				result = allocateBuffer(allocator, ID, 16 + 16 + 4 + 16);
+				result = allocateBuffer(allocator, ID, 16 + 16 + 4 + 16 + 4);
 
 				partitionId.getPartitionId().writeTo(result);
 				partitionId.getProducerId().writeTo(result);
 				result.writeInt(queueIndex);
 				receiverId.writeTo(result);
+				result.writeInt(credit);
 
 				return result;
 			}
@@ -406,11 +456,12 @@ abstract class NettyMessage {
 			partitionId = new ResultPartitionID(IntermediateResultPartitionID.fromByteBuf(buffer), ExecutionAttemptID.fromByteBuf(buffer));
 			queueIndex = buffer.readInt();
 			receiverId = InputChannelID.fromByteBuf(buffer);
+			credit = buffer.readInt();
 		}
 
 		@Override
 		public String toString() {
-			return String.format("PartitionRequest(%s:%d)", partitionId, queueIndex);
+			return String.format("PartitionRequest(%s:%d, credit: %d)", partitionId, queueIndex, credit);
 		}
 	}
 
@@ -541,6 +592,62 @@ abstract class NettyMessage {
 		}
 	}
 
+	/**
+	 * Announces additional credit of the {@link InputChannel} identified by {@link InputChannelID}.
+	 *
+	 * <p> Each credit corresponds to one buffer the receiver has made available for the respective
+	 * subpartition. The sender only ships buffers to a receiver for which it holds credit.
+	 */
+	static class AddCredit extends NettyMessage {
+
+		final static byte ID = 6;
+
+		int credit;
+
+		InputChannelID receiverId;
+
+		public AddCredit() {
+		}
+
+		AddCredit(int credit, InputChannelID receiverId) {
+			checkArgument(credit > 0, "The announced credit should be greater than 0.");
+
+			this.credit = credit;
+			this.receiverId = receiverId;
+		}
+
+		@Override
+		ByteBuf write(ByteBufAllocator allocator) throws IOException {
+			ByteBuf result = null;
+
+			try {
+				result = allocateBuffer(allocator, ID, 4 + 16);
+				result.writeInt(credit);
+				receiverId.writeTo(result);
+
+				return result;
+			}
+			catch (Throwable t) {
+				if (result != null) {
+					result.release();
+				}
+
+				throw new IOException(t);
+			}
+		}
+
+		@Override
+		void readFrom(ByteBuf buffer) {
+			credit = buffer.readInt();
+			receiverId = InputChannelID.fromByteBuf(buffer);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("AddCredit(%s : %d)", receiverId, credit);
+		}
+	}
+
 	// ------------------------------------------------------------------------
 
 	private static class ByteBufDataInputView implements DataInputView {
@@ -104,7 +104,7 @@ public class PartitionRequestClient {
 		partitionRequestHandler.addInputChannel(inputChannel);
 
 		final PartitionRequest request = new PartitionRequest(
-				partitionId, subpartitionIndex, inputChannel.getInputChannelId());
+				partitionId, subpartitionIndex, inputChannel.getInputChannelId(), inputChannel.getInitialCredit());
 
 		final ChannelFutureListener listener = new ChannelFutureListener() {
 			@Override
@@ -165,6 +165,16 @@ public class PartitionRequestClient {
 						});
 	}
 
+	/**
+	 * Announces the unannounced credit of the given input channel to the producer.
+	 * <p>
+	 * This is called by the thread recycling a buffer of the input channel and
+	 * hands the announcement over to the network I/O thread.
+	 */
+	public void notifyCreditAvailable(RemoteInputChannel inputChannel) {
+		partitionRequestHandler.notifyCreditAvailable(inputChannel);
+	}
+
 	public void close(RemoteInputChannel inputChannel) throws IOException {
 
 		partitionRequestHandler.removeInputChannel(inputChannel);
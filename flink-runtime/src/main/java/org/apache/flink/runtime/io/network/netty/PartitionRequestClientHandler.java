@@ -19,6 +19,8 @@
 package org.apache.flink.runtime.io.network.netty;
 
 import com.google.common.collect.Maps;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 
@@ -42,6 +44,7 @@ import java.net.SocketAddress;
 import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -68,6 +71,9 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 	 */
 	private final ConcurrentMap<InputChannelID, InputChannelID> cancelled = Maps.newConcurrentMap();
 
+	/** Input channels with credit, which have been notified before the channel became active */
+	private final Queue<RemoteInputChannel> inputChannelsWithCredit = new ConcurrentLinkedQueue<RemoteInputChannel>();
+
 	private volatile ChannelHandlerContext ctx;
 
 	// ------------------------------------------------------------------------
@@ -96,6 +102,73 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 		}
 	}
 
+	/**
+	 * Announces the unannounced credit of the input channel to the producer. Concurrent
+	 * notifications for the same input channel are merged into a single announcement.
+	 */
+	void notifyCreditAvailable(final RemoteInputChannel inputChannel) {
+		final ChannelHandlerContext context = ctx;
+
+		if (context == null) {
+			// Announced when the channel becomes active. Check again, because the channel might
+			// have become active in the meantime without seeing the queued input channel.
+			inputChannelsWithCredit.add(inputChannel);
+
+			if (ctx != null) {
+				ctx.executor().execute(new Runnable() {
+					@Override
+					public void run() {
+						writeAndFlushQueuedCredit();
+					}
+				});
+			}
+
+			return;
+		}
+
+		context.executor().execute(new Runnable() {
+			@Override
+			public void run() {
+				writeAndFlushCredit(inputChannel);
+			}
+		});
+	}
+
+	// Called by the network I/O thread
+	private void writeAndFlushQueuedCredit() {
+		RemoteInputChannel inputChannel;
+
+		while ((inputChannel = inputChannelsWithCredit.poll()) != null) {
+			writeAndFlushCredit(inputChannel);
+		}
+	}
+
+	// Called by the network I/O thread
+	private void writeAndFlushCredit(final RemoteInputChannel inputChannel) {
+		// Always take the credit, even if it is not announced. Otherwise, the input channel
+		// never notifies about new credit again.
+		int credit = inputChannel.getAndResetUnannouncedCredit();
+
+		if (channelError.get() || !inputChannels.containsKey(inputChannel.getInputChannelId())) {
+			// The input channel has been released or failed, its credit is not needed anymore
+			return;
+		}
+
+		if (credit > 0) {
+			ctx.writeAndFlush(new NettyMessage.AddCredit(credit, inputChannel.getInputChannelId()))
+					.addListener(new ChannelFutureListener() {
+						@Override
+						public void operationComplete(ChannelFuture future) throws Exception {
+							if (!future.isSuccess()) {
+								inputChannel.onError(new LocalTransportException(
+										"Sending the credit announcement failed.",
+										future.channel().localAddress(), future.cause()));
+							}
+						}
+					});
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	// Network events
 	// ------------------------------------------------------------------------
@@ -106,6 +179,8 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 			this.ctx = ctx;
 		}
 
+		writeAndFlushQueuedCredit();
+
 		super.channelActive(ctx);
 	}
 
@@ -266,6 +341,22 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 					return true;
 				}
 
+				// With credit-based flow control, the producer only sends a buffer
+				// if the input channel has reserved one for it
+				Buffer creditBuffer = inputChannel.requestBuffer();
+
+				if (creditBuffer != null) {
+					creditBuffer.setSize(bufferOrEvent.getSize());
+					creditBuffer.setCompressed(bufferOrEvent.isCompressed());
+					bufferOrEvent.getNettyBuffer().readBytes(creditBuffer.getNioBuffer());
+
+					inputChannel.onBuffer(creditBuffer, bufferOrEvent.sequenceNumber);
+
+					return true;
+				}
+
+				// Fall back to the buffer pool of the input gate, which stalls the
+				// connection if no buffer is available
 				BufferProvider bufferProvider = inputChannel.getBufferProvider();
 
 				if (bufferProvider == null) {
@@ -280,6 +371,7 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 
 					if (buffer != null) {
 						buffer.setSize(bufferOrEvent.getSize());
+						buffer.setCompressed(bufferOrEvent.isCompressed());
 						bufferOrEvent.getNettyBuffer().readBytes(buffer.getNioBuffer());
 
 						inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber);
@@ -429,6 +521,7 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 				}
 
 				buffer.setSize(stagedBufferResponse.getSize());
+				buffer.setCompressed(stagedBufferResponse.isCompressed());
 
 				stagedBufferResponse.getNettyBuffer().readBytes(buffer.getNioBuffer());
 				stagedBufferResponse.releaseBuffer();
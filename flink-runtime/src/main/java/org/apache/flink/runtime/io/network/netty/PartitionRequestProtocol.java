@@ -20,6 +20,7 @@ package org.apache.flink.runtime.io.network.netty;
 
 import io.netty.channel.ChannelHandler;
 import org.apache.flink.runtime.io.network.TaskEventDispatcher;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
 
@@ -36,10 +37,23 @@ class PartitionRequestProtocol implements NettyProtocol {
 	private final TaskEventDispatcher taskEventDispatcher;
 	private final NetworkBufferPool networkbufferPool;
 
+	/** The size of the buffers to compress for remote consumers, or 0 if compression is disabled */
+	private final int compressedBufferSize;
+
 	PartitionRequestProtocol(ResultPartitionProvider partitionProvider, TaskEventDispatcher taskEventDispatcher, NetworkBufferPool networkbufferPool) {
+		this(partitionProvider, taskEventDispatcher, networkbufferPool, 0);
+	}
+
+	PartitionRequestProtocol(
+			ResultPartitionProvider partitionProvider,
+			TaskEventDispatcher taskEventDispatcher,
+			NetworkBufferPool networkbufferPool,
+			int compressedBufferSize) {
+
 		this.partitionProvider = partitionProvider;
 		this.taskEventDispatcher = taskEventDispatcher;
 		this.networkbufferPool = networkbufferPool;
+		this.compressedBufferSize = compressedBufferSize;
 	}
 
 	// +-------------------------------------------------------------------+
@@ -75,7 +89,9 @@ class PartitionRequestProtocol implements NettyProtocol {
 
 	@Override
 	public ChannelHandler[] getServerChannelHandlers() {
-		PartitionRequestQueue queueOfPartitionQueues = new PartitionRequestQueue();
+		// Each channel compresses in its own event loop thread with a compressor of its own
+		PartitionRequestQueue queueOfPartitionQueues = new PartitionRequestQueue(
+				compressedBufferSize > 0 ? new BufferCompressor(compressedBufferSize) : null);
 		PartitionRequestServerHandler serverHandler = new PartitionRequestServerHandler(
 				partitionProvider, taskEventDispatcher, queueOfPartitionQueues, networkbufferPool);
 
@@ -27,6 +27,7 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.partition.ProducerFailedException;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
@@ -36,6 +37,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 
@@ -45,6 +50,16 @@ import static org.apache.flink.runtime.io.network.netty.NettyMessage.BufferRespo
 /**
  * A queue of partition queues, which listens for channel writability changed
  * events before writing and flushing {@link Buffer} instances.
+ *
+ * <p> Buffers are only written for partition queues, which have credit. The
+ * receiver announces credit for each buffer it has reserved for the respective
+ * input channel. Partition queues without credit are parked until new credit is
+ * announced, so that a slow receiver does not block the other partition queues
+ * multiplexed over the same TCP connection. Receivers without exclusive buffers
+ * request with an initial credit of 0 and are served without credit, as before.
+ *
+ * <p> If network compression is enabled, data buffers are compressed into the messages
+ * sent to the receivers. Consumers in the same JVM never see compressed buffers.
  */
 class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
@@ -56,12 +71,27 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
 	private final Set<InputChannelID> released = Sets.newHashSet();
 
+	/** All partition queues with an outstanding request, by receiver. Used to look up credit announcements. */
+	private final Map<InputChannelID, SequenceNumberingSubpartitionView> allPartitionQueues =
+			new HashMap<InputChannelID, SequenceNumberingSubpartitionView>();
+
 	private SequenceNumberingSubpartitionView currentPartitionQueue;
 
+	/** Compresses the data buffers sent to the receivers, if not null */
+	private final BufferCompressor bufferCompressor;
+
 	private boolean fatalError;
 
 	private ChannelHandlerContext ctx;
 
+	PartitionRequestQueue() {
+		this(null);
+	}
+
+	PartitionRequestQueue(BufferCompressor bufferCompressor) {
+		this.bufferCompressor = bufferCompressor;
+	}
+
 	@Override
 	public void channelRegistered(final ChannelHandlerContext ctx) throws Exception {
 		if (this.ctx == null) {
@@ -71,8 +101,12 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		super.channelRegistered(ctx);
 	}
 
-	public void enqueue(ResultSubpartitionView partitionQueue, InputChannelID receiverId) throws Exception {
-		ctx.pipeline().fireUserEventTriggered(new SequenceNumberingSubpartitionView(partitionQueue, receiverId));
+	public void enqueue(ResultSubpartitionView partitionQueue, InputChannelID receiverId, int initialCredit) throws Exception {
+		ctx.pipeline().fireUserEventTriggered(new SequenceNumberingSubpartitionView(partitionQueue, receiverId, initialCredit));
+	}
+
+	public void addCredit(InputChannelID receiverId, int credit) {
+		ctx.pipeline().fireUserEventTriggered(new CreditAnnouncement(receiverId, credit));
 	}
 
 	public void cancel(InputChannelID receiverId) {
@@ -88,12 +122,33 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 	@Override
 	public void userEventTriggered(ChannelHandlerContext ctx, Object msg) throws Exception {
 		if (msg.getClass() == SequenceNumberingSubpartitionView.class) {
-			boolean triggerWrite = queue.isEmpty();
+			// Either a new partition queue or a notification about available data
+			SequenceNumberingSubpartitionView partitionQueue = (SequenceNumberingSubpartitionView) msg;
 
-			queue.add((SequenceNumberingSubpartitionView) msg);
+			if (released.contains(partitionQueue.getReceiverId())) {
+				return;
+			}
 
-			if (triggerWrite) {
-				writeAndFlushNextMessageIfPossible(ctx.channel());
+			if (!allPartitionQueues.containsKey(partitionQueue.getReceiverId())) {
+				allPartitionQueues.put(partitionQueue.getReceiverId(), partitionQueue);
+			}
+
+			enqueueIfCredit(ctx.channel(), partitionQueue);
+		}
+		else if (msg.getClass() == CreditAnnouncement.class) {
+			CreditAnnouncement announcement = (CreditAnnouncement) msg;
+
+			SequenceNumberingSubpartitionView partitionQueue = allPartitionQueues.get(announcement.receiverId);
+
+			// The partition queue might have been released concurrently
+			if (partitionQueue != null) {
+				partitionQueue.addCredit(announcement.credit);
+
+				if (partitionQueue.isBlockedByCredit()) {
+					partitionQueue.setBlockedByCredit(false);
+
+					enqueueIfCredit(ctx.channel(), partitionQueue);
+				}
 			}
 		}
 		else if (msg.getClass() == InputChannelID.class) {
@@ -103,26 +158,20 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 				return;
 			}
 
-			// Cancel the request for the input channel
-			if (currentPartitionQueue != null && currentPartitionQueue.getReceiverId().equals(toCancel)) {
-				currentPartitionQueue.releaseAllResources();
-				markAsReleased(currentPartitionQueue.receiverId);
-				currentPartitionQueue = null;
-			}
-			else {
-				int size = queue.size();
+			// Cancel the request for the input channel. The partition queue might
+			// currently be waiting for data or credit and not be queued at all.
+			SequenceNumberingSubpartitionView toRelease = allPartitionQueues.get(toCancel);
 
-				for (int i = 0; i < size; i++) {
-					SequenceNumberingSubpartitionView curr = queue.poll();
-
-					if (curr.getReceiverId().equals(toCancel)) {
-						curr.releaseAllResources();
-						markAsReleased(curr.receiverId);
-					}
-					else {
-						queue.add(curr);
-					}
+			if (toRelease != null) {
+				if (toRelease == currentPartitionQueue) {
+					currentPartitionQueue = null;
 				}
+				else {
+					queue.remove(toRelease);
+				}
+
+				toRelease.releaseAllResources();
+				markAsReleased(toCancel);
 			}
 		}
 		else {
@@ -130,6 +179,25 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		}
 	}
 
+	/**
+	 * Queues the partition queue for writing if the receiver announced credit for it.
+	 * Otherwise, it is parked until the next credit announcement.
+	 */
+	private void enqueueIfCredit(Channel channel, SequenceNumberingSubpartitionView partitionQueue) throws IOException {
+		if (partitionQueue.hasCredit()) {
+			boolean triggerWrite = queue.isEmpty();
+
+			queue.add(partitionQueue);
+
+			if (triggerWrite) {
+				writeAndFlushNextMessageIfPossible(channel);
+			}
+		}
+		else {
+			partitionQueue.setBlockedByCredit(true);
+		}
+	}
+
 	@Override
 	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
 		writeAndFlushNextMessageIfPossible(ctx.channel());
@@ -149,6 +217,14 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 						return;
 					}
 
+					if (!currentPartitionQueue.hasCredit()) {
+						// Park the partition queue until the receiver announces new credit
+						currentPartitionQueue.setBlockedByCredit(true);
+						currentPartitionQueue = null;
+
+						continue;
+					}
+
 					buffer = currentPartitionQueue.getNextBuffer();
 
 					if (buffer == null) {
@@ -170,7 +246,7 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 						}
 					}
 					else {
-						BufferResponse resp = new BufferResponse(buffer, currentPartitionQueue.getSequenceNumber(), currentPartitionQueue.getReceiverId());
+						BufferResponse resp = new BufferResponse(buffer, currentPartitionQueue.getSequenceNumber(), currentPartitionQueue.getReceiverId(), bufferCompressor);
 
 						if (!buffer.isBuffer() &&
 								EventSerializer.fromBuffer(buffer, getClass().getClassLoader()).getClass() == EndOfPartitionEvent.class) {
@@ -220,18 +296,17 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 	}
 
 	private void releaseAllResources() throws IOException {
-		if (currentPartitionQueue != null) {
-			currentPartitionQueue.releaseAllResources();
-			markAsReleased(currentPartitionQueue.getReceiverId());
+		// Copy, because releasing removes the partition queues from the map
+		List<SequenceNumberingSubpartitionView> toRelease =
+				new ArrayList<SequenceNumberingSubpartitionView>(allPartitionQueues.values());
 
-			currentPartitionQueue = null;
+		for (SequenceNumberingSubpartitionView partitionQueue : toRelease) {
+			partitionQueue.releaseAllResources();
+			markAsReleased(partitionQueue.getReceiverId());
 		}
 
-		while ((currentPartitionQueue = queue.poll()) != null) {
-			currentPartitionQueue.releaseAllResources();
-
-			markAsReleased(currentPartitionQueue.getReceiverId());
-		}
+		queue.clear();
+		currentPartitionQueue = null;
 	}
 
 	/**
@@ -239,6 +314,7 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 	 */
 	private void markAsReleased(InputChannelID receiverId) {
 		released.add(receiverId);
+		allPartitionQueues.remove(receiverId);
 	}
 
 	// This listener is called after an element of the current queue has been
@@ -265,9 +341,29 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		}
 	}
 
+	/**
+	 * A credit announcement of a receiver, which is handed over to the network I/O thread.
+	 */
+	private static class CreditAnnouncement {
+
+		private final InputChannelID receiverId;
+
+		private final int credit;
+
+		private CreditAnnouncement(InputChannelID receiverId, int credit) {
+			this.receiverId = checkNotNull(receiverId);
+			this.credit = credit;
+		}
+	}
+
 	/**
 	 * Simple wrapper for the partition queue iterator, which increments a
 	 * sequence number for each returned buffer and remembers the receiver ID.
+	 *
+	 * <p> It also tracks the credit of the receiver. Every returned non-empty data
+	 * buffer consumes one credit, because the receiver has to copy it into one of
+	 * its reserved buffers. Events and empty buffers don't occupy a receiver buffer.
+	 * The credit is only accessed by the network I/O thread.
 	 */
 	private class SequenceNumberingSubpartitionView implements ResultSubpartitionView, NotificationListener {
 
@@ -277,9 +373,21 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
 		private int sequenceNumber = -1;
 
-		private SequenceNumberingSubpartitionView(ResultSubpartitionView queueIterator, InputChannelID receiverId) {
+		/**
+		 * Flag indicating that the receiver announces credit. A receiver without exclusive
+		 * buffers requests with an initial credit of 0 and is served without credit.
+		 */
+		private final boolean isCreditBased;
+
+		private int numCreditsAvailable;
+
+		private boolean isBlockedByCredit;
+
+		private SequenceNumberingSubpartitionView(ResultSubpartitionView queueIterator, InputChannelID receiverId, int initialCredit) {
 			this.queueIterator = checkNotNull(queueIterator);
 			this.receiverId = checkNotNull(receiverId);
+			this.isCreditBased = initialCredit > 0;
+			this.numCreditsAvailable = initialCredit;
 		}
 
 		private InputChannelID getReceiverId() {
@@ -290,12 +398,32 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 			return sequenceNumber;
 		}
 
+		private boolean hasCredit() {
+			return !isCreditBased || numCreditsAvailable > 0;
+		}
+
+		private void addCredit(int credit) {
+			numCreditsAvailable += credit;
+		}
+
+		private boolean isBlockedByCredit() {
+			return isBlockedByCredit;
+		}
+
+		private void setBlockedByCredit(boolean isBlockedByCredit) {
+			this.isBlockedByCredit = isBlockedByCredit;
+		}
+
 		@Override
 		public Buffer getNextBuffer() throws IOException, InterruptedException {
 			Buffer buffer = queueIterator.getNextBuffer();
 
 			if (buffer != null) {
 				sequenceNumber++;
+
+				if (buffer.isBuffer() && buffer.getSize() > 0) {
+					numCreditsAvailable--;
+				}
 			}
 
 			return buffer;
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Gauge metric measuring the total time in milliseconds that a task's record writers have been
+ * blocked, waiting for a buffer of the buffer pools of its result partitions. A growing value
+ * indicates back pressure from the consumers.
+ */
+public class OutputBufferPoolBlockedTimeGauge implements Gauge<Long> {
+
+	private final ResultPartition[] resultPartitions;
+
+	public OutputBufferPoolBlockedTimeGauge(ResultPartition[] resultPartitions) {
+		this.resultPartitions = checkNotNull(resultPartitions);
+	}
+
+	@Override
+	public Long getValue() {
+		long blockedTime = 0;
+
+		for (ResultPartition resultPartition : resultPartitions) {
+			BufferPool bufferPool = resultPartition.getBufferPool();
+
+			if (bufferPool != null) {
+				blockedTime += bufferPool.getTotalBlockedTimeMillis();
+			}
+		}
+
+		return blockedTime;
+	}
+}
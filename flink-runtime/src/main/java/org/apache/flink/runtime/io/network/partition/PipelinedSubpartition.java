@@ -43,6 +43,9 @@ class PipelinedSubpartition extends ResultSubpartition {
 	/** Flag indicating whether the subpartition has been released. */
 	private volatile boolean isReleased;
 
+	/** Flag indicating whether the local consumer accepts object buffers. */
+	private volatile boolean isObjectHandOverEnabled;
+
 	/**
 	 * A data availability listener. Registered, when the consuming task is faster than the
 	 * producing task.
@@ -159,6 +162,17 @@ class PipelinedSubpartition extends ResultSubpartition {
 		}
 	}
 
+	@Override
+	boolean enableObjectHandOver() {
+		isObjectHandOverEnabled = true;
+		return true;
+	}
+
+	@Override
+	public boolean isObjectHandOverEnabled() {
+		return isObjectHandOverEnabled;
+	}
+
 	@Override
 	public int releaseMemory() {
 		// The pipelined subpartition does not react to memory release requests. The buffers will be
@@ -171,6 +185,13 @@ class PipelinedSubpartition extends ResultSubpartition {
 		return isReleased;
 	}
 
+	@Override
+	public int getNumberOfQueuedBuffers() {
+		synchronized (buffers) {
+			return buffers.size();
+		}
+	}
+
 	@Override
 	public PipelinedSubpartitionView createReadView(BufferProvider bufferProvider) {
 		synchronized (buffers) {
@@ -21,7 +21,10 @@ package org.apache.flink.runtime.io.network.partition;
 import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager.IOMode;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferPoolOwner;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
@@ -101,6 +104,9 @@ public class ResultPartition implements BufferPoolOwner {
 
 	private final ResultPartitionConsumableNotifier partitionConsumableNotifier;
 
+	/** Compresses the data buffers when they are spilled, if not null. */
+	private final BufferCompressor spillCompressor;
+
 	// - Runtime state --------------------------------------------------------
 
 	private final AtomicBoolean isReleased = new AtomicBoolean();
@@ -140,6 +146,36 @@ public class ResultPartition implements BufferPoolOwner {
 			IOManager ioManager,
 			IOMode defaultIoMode) {
 
+		this(owningTaskName, jobId, partitionId, partitionType, eagerlyDeployConsumers,
+				numberOfSubpartitions, partitionManager, partitionConsumableNotifier, ioManager,
+				defaultIoMode, null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a result partition, which compresses its data buffers with the given compressor
+	 * when a blocking subpartition spills its buffers to disk. The compressor may be null.
+	 *
+	 * <p> Buffers of consumers in the same JVM are never compressed. Buffers for remote consumers
+	 * are compressed by the network stack when they are sent (see {@code PartitionRequestQueue}).
+	 *
+	 * <p> Blocking partitions with at least <code>sortShuffleMinParallelism</code> subpartitions
+	 * write all subpartitions to a single {@link SortMergePartitionFile} instead of spilling each
+	 * subpartition to a file of its own.
+	 */
+	public ResultPartition(
+			String owningTaskName,
+			JobID jobId,
+			ResultPartitionID partitionId,
+			ResultPartitionType partitionType,
+			boolean eagerlyDeployConsumers,
+			int numberOfSubpartitions,
+			ResultPartitionManager partitionManager,
+			ResultPartitionConsumableNotifier partitionConsumableNotifier,
+			IOManager ioManager,
+			IOMode defaultIoMode,
+			BufferCompressor spillCompressor,
+			int sortShuffleMinParallelism) {
+
 		this.owningTaskName = checkNotNull(owningTaskName);
 		this.jobId = checkNotNull(jobId);
 		this.partitionId = checkNotNull(partitionId);
@@ -148,13 +184,26 @@ public class ResultPartition implements BufferPoolOwner {
 		this.subpartitions = new ResultSubpartition[numberOfSubpartitions];
 		this.partitionManager = checkNotNull(partitionManager);
 		this.partitionConsumableNotifier = checkNotNull(partitionConsumableNotifier);
+		this.spillCompressor = spillCompressor;
+
+		checkArgument(sortShuffleMinParallelism > 0, "Minimum parallelism for sort-merge shuffle must be positive.");
 
 		// Create the subpartitions.
 		switch (partitionType) {
 			case BLOCKING:
-				for (int i = 0; i < subpartitions.length; i++) {
-					subpartitions[i] = new SpillableSubpartition(
-							i, this, ioManager, defaultIoMode);
+				if (subpartitions.length >= sortShuffleMinParallelism) {
+					final SortMergePartitionFile partitionFile = new SortMergePartitionFile(
+							subpartitions.length, ioManager, spillCompressor);
+
+					for (int i = 0; i < subpartitions.length; i++) {
+						subpartitions[i] = new SortMergeSubpartition(i, this, partitionFile);
+					}
+				}
+				else {
+					for (int i = 0; i < subpartitions.length; i++) {
+						subpartitions[i] = new SpillableSubpartition(
+								i, this, ioManager, defaultIoMode, spillCompressor);
+					}
 				}
 
 				break;
@@ -225,6 +274,10 @@ public class ResultPartition implements BufferPoolOwner {
 		return bufferPool;
 	}
 
+	public BufferPool getBufferPool() {
+		return bufferPool;
+	}
+
 	public int getTotalNumberOfBuffers() {
 		return totalNumberOfBuffers;
 	}
@@ -233,6 +286,34 @@ public class ResultPartition implements BufferPoolOwner {
 		return totalNumberOfBytes;
 	}
 
+	/**
+	 * Returns the number of buffers, which are queued in memory for the consumers of all
+	 * subpartitions of this partition.
+	 */
+	public int getNumberOfQueuedBuffers() {
+		int totalBuffers = 0;
+
+		for (ResultSubpartition subpartition : subpartitions) {
+			totalBuffers += subpartition.getNumberOfQueuedBuffers();
+		}
+
+		return totalBuffers;
+	}
+
+	/**
+	 * Registers the compression ratio of this partition, if it compresses its spilled buffers.
+	 */
+	public void registerMetrics(MetricGroup metrics) {
+		if (spillCompressor != null) {
+			metrics.gauge("SpillCompressionRatio", new Gauge<Double>() {
+				@Override
+				public Double getValue() {
+					return spillCompressor.getCompressionRatio();
+				}
+			});
+		}
+	}
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -348,6 +429,25 @@ public class ResultPartition implements BufferPoolOwner {
 		return subpartitions[index].createReadView(bufferProvider);
 	}
 
+	/**
+	 * Lets the subpartition with the given index hand over record objects to its consumer,
+	 * which runs in the same JVM. Only pipelined subpartitions support this.
+	 *
+	 * @return Whether the subpartition will hand over object buffers.
+	 */
+	public boolean enableObjectHandOver(int index) {
+		checkElementIndex(index, subpartitions.length, "Subpartition not found.");
+
+		return subpartitions[index].enableObjectHandOver();
+	}
+
+	/**
+	 * Returns whether the subpartition with the given index accepts object buffers.
+	 */
+	public boolean isObjectHandOverEnabled(int index) {
+		return subpartitions[index].isObjectHandOverEnabled();
+	}
+
 	public Throwable getFailureCause() {
 		return cause;
 	}
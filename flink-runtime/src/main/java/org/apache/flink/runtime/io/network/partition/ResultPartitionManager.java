@@ -82,6 +82,25 @@ public class ResultPartitionManager implements ResultPartitionProvider {
 		}
 	}
 
+	/**
+	 * Lets the given subpartition hand over record objects instead of serialized buffers. This
+	 * is requested by local consumers, which share the JVM with the producer.
+	 *
+	 * @return Whether the subpartition will hand over object buffers.
+	 */
+	public boolean enableObjectHandOver(ResultPartitionID partitionId, int subpartitionIndex) throws IOException {
+		synchronized (registeredPartitions) {
+			final ResultPartition partition = registeredPartitions.get(partitionId.getProducerId(),
+					partitionId.getPartitionId());
+
+			if (partition == null) {
+				throw new PartitionNotFoundException(partitionId);
+			}
+
+			return partition.enableObjectHandOver(subpartitionIndex);
+		}
+	}
+
 	public void releasePartitionsProducedBy(ExecutionAttemptID executionId) {
 		releasePartitionsProducedBy(executionId, null);
 	}
@@ -71,6 +71,21 @@ public abstract class ResultSubpartition {
 		return parent.getFailureCause();
 	}
 
+	/**
+	 * Enables the hand-over of {@link org.apache.flink.runtime.io.network.buffer.ObjectBuffer}
+	 * instances to a consumer in the same JVM and returns whether this subpartition supports it.
+	 */
+	boolean enableObjectHandOver() {
+		return false;
+	}
+
+	/**
+	 * Returns whether the consumer of this subpartition accepts object buffers.
+	 */
+	public boolean isObjectHandOverEnabled() {
+		return false;
+	}
+
 	abstract public boolean add(Buffer buffer) throws IOException;
 
 	abstract public void finish() throws IOException;
@@ -83,4 +98,10 @@ public abstract class ResultSubpartition {
 
 	abstract public boolean isReleased();
 
+	/**
+	 * Returns the number of buffers, which are queued in memory for the consumer of this
+	 * subpartition.
+	 */
+	abstract public int getNumberOfQueuedBuffers();
+
 }
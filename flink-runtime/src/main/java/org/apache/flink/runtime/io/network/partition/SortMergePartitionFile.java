@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.disk.iomanager.BufferFileWriter;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkElementIndex;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * The data file and index shared by all {@link SortMergeSubpartition} instances of a blocking
+ * result partition.
+ *
+ * <p> Buffers added to the subpartitions are kept in memory, grouped by their subpartition. When
+ * the buffer pool of the partition asks for memory or the partition is finished, all buffered data
+ * is appended to the data file as one <em>region</em>: the buffers of the first subpartition,
+ * followed by the buffers of the second subpartition and so on. For each region, the index file
+ * holds the offset and the number of buffers of every subpartition in the data file.
+ *
+ * <p> A producer therefore writes a single data file with sequential writes, no matter how many
+ * subpartitions it has, and a consumer reads one contiguous range of the data file per region.
+ * The blocks of the data file have the same format as the spill files of a
+ * {@link SpillableSubpartition}.
+ */
+class SortMergePartitionFile {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SortMergePartitionFile.class);
+
+	/** The size of an index entry: offset (long) and number of buffers (int) of a subpartition. */
+	static final int INDEX_ENTRY_SIZE = 12;
+
+	/** The size of the header, which the buffer file writer writes in front of each buffer. */
+	private static final int BUFFER_HEADER_SIZE = 8;
+
+	/** The buffers of each subpartition, which have not been written yet. */
+	private final ArrayDeque<Buffer>[] buffers;
+
+	/** The I/O manager to create the data and index files from. */
+	private final IOManager ioManager;
+
+	/** Compresses the buffers before they are written, if not null. */
+	private final BufferCompressor compressor;
+
+	/** The writer of the data file. As long as this is null, nothing has been written. */
+	private BufferFileWriter dataWriter;
+
+	/** The path of the index file. */
+	private FileIOChannel.ID indexChannelId;
+
+	/** The channel to write and read the index file. */
+	private FileChannel indexChannel;
+
+	/** The number of bytes written to the data file. */
+	private long dataFileSize;
+
+	/** The number of buffers, which have not been written yet. */
+	private int numberOfBufferedBuffers;
+
+	/** The number of regions written to the data file. */
+	private volatile int numberOfRegions;
+
+	private int numberOfFinishedSubpartitions;
+
+	private int numberOfReleasedSubpartitions;
+
+	/** Flag indicating whether all subpartitions have been finished and the data file is complete. */
+	private volatile boolean isFinished;
+
+	private boolean isReleased;
+
+	@SuppressWarnings("unchecked")
+	SortMergePartitionFile(int numberOfSubpartitions, IOManager ioManager, BufferCompressor compressor) {
+		checkArgument(numberOfSubpartitions > 0, "Number of subpartitions must be positive.");
+
+		this.buffers = (ArrayDeque<Buffer>[]) new ArrayDeque[numberOfSubpartitions];
+		for (int i = 0; i < numberOfSubpartitions; i++) {
+			buffers[i] = new ArrayDeque<Buffer>();
+		}
+
+		this.ioManager = checkNotNull(ioManager);
+		this.compressor = compressor;
+	}
+
+	int getNumberOfSubpartitions() {
+		return buffers.length;
+	}
+
+	/**
+	 * Adds a buffer of the given subpartition, which is written with the next region.
+	 */
+	synchronized boolean add(Buffer buffer, int subpartitionIndex) {
+		checkElementIndex(subpartitionIndex, buffers.length, "Subpartition not found.");
+
+		if (isFinished || isReleased) {
+			return false;
+		}
+
+		buffers[subpartitionIndex].add(buffer);
+		numberOfBufferedBuffers++;
+
+		return true;
+	}
+
+	/**
+	 * Notification when a subpartition has been finished. After the last subpartition, the
+	 * remaining buffers are written and the data file is closed.
+	 */
+	synchronized void onFinishedSubpartition() throws IOException {
+		checkState(!isFinished, "Partition file already finished.");
+
+		if (isReleased || ++numberOfFinishedSubpartitions < buffers.length) {
+			return;
+		}
+
+		writeRegion();
+
+		// Wait for the outstanding writes of the data file
+		if (dataWriter != null) {
+			dataWriter.close();
+		}
+
+		isFinished = true;
+
+		LOG.debug("Finished {}.", this);
+	}
+
+	/**
+	 * Writes all buffered data as a new region and returns the number of written buffers.
+	 */
+	synchronized int releaseMemory() throws IOException {
+		if (isFinished || isReleased) {
+			return 0;
+		}
+
+		return writeRegion();
+	}
+
+	/**
+	 * Notification when a subpartition has been released. After the last subpartition, the
+	 * buffered data is recycled and the data and index file are deleted.
+	 */
+	synchronized void onReleasedSubpartition() throws IOException {
+		if (isReleased || ++numberOfReleasedSubpartitions < buffers.length) {
+			return;
+		}
+
+		isReleased = true;
+
+		for (ArrayDeque<Buffer> subpartitionBuffers : buffers) {
+			Buffer buffer;
+			while ((buffer = subpartitionBuffers.poll()) != null) {
+				buffer.recycle();
+			}
+		}
+
+		numberOfBufferedBuffers = 0;
+
+		try {
+			if (dataWriter != null) {
+				dataWriter.closeAndDelete();
+			}
+		}
+		finally {
+			if (indexChannel != null) {
+				indexChannel.close();
+
+				File indexFile = indexChannelId.getPathFile();
+				if (indexFile.exists() && !indexFile.delete()) {
+					LOG.warn("Failed to delete index file {}.", indexFile);
+				}
+			}
+		}
+	}
+
+	boolean isFinished() {
+		return isFinished;
+	}
+
+	/**
+	 * Returns the number of regions of the data file. This is final once the file is finished.
+	 */
+	int getNumberOfRegions() {
+		return numberOfRegions;
+	}
+
+	FileIOChannel.ID getDataChannelId() {
+		checkState(dataWriter != null, "Nothing has been written yet.");
+
+		return dataWriter.getChannelID();
+	}
+
+	/**
+	 * Reads the index entry of a subpartition in a region into the given buffer, which needs to
+	 * have {@link #INDEX_ENTRY_SIZE} bytes remaining.
+	 */
+	void readIndexEntry(int region, int subpartitionIndex, ByteBuffer target) throws IOException {
+		checkState(isFinished, "Partition file not finished yet.");
+		checkElementIndex(region, numberOfRegions, "Region not found.");
+		checkElementIndex(subpartitionIndex, buffers.length, "Subpartition not found.");
+
+		final long position = ((long) region * buffers.length + subpartitionIndex) * INDEX_ENTRY_SIZE;
+
+		// Positional reads are safe with concurrent readers of other subpartitions
+		long offset = 0;
+		while (target.hasRemaining()) {
+			int read = indexChannel.read(target, position + offset);
+
+			if (read < 0) {
+				throw new EOFException("Unexpected end of index file " + indexChannelId.getPath() + ".");
+			}
+
+			offset += read;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private int writeRegion() throws IOException {
+		if (numberOfBufferedBuffers == 0) {
+			return 0;
+		}
+
+		if (dataWriter == null) {
+			dataWriter = ioManager.createBufferFileWriter(ioManager.createChannel());
+
+			indexChannelId = ioManager.createChannel();
+
+			@SuppressWarnings("resource")
+			RandomAccessFile indexFile = new RandomAccessFile(indexChannelId.getPath(), "rw");
+			indexChannel = indexFile.getChannel();
+		}
+
+		final ByteBuffer index = ByteBuffer.allocate(buffers.length * INDEX_ENTRY_SIZE);
+
+		for (ArrayDeque<Buffer> subpartitionBuffers : buffers) {
+			index.putLong(dataFileSize);
+			index.putInt(subpartitionBuffers.size());
+
+			// Buffers handed to the writer are owned by it, even if a write fails
+			Buffer buffer;
+			while ((buffer = subpartitionBuffers.poll()) != null) {
+				if (compressor != null) {
+					compressor.compress(buffer);
+				}
+
+				// The buffer is recycled after the asynchronous write, so account for it before
+				dataFileSize += BUFFER_HEADER_SIZE + buffer.getSize();
+
+				dataWriter.writeBlock(buffer);
+			}
+		}
+
+		index.flip();
+		while (index.hasRemaining()) {
+			indexChannel.write(index);
+		}
+
+		final int numberOfWrittenBuffers = numberOfBufferedBuffers;
+
+		numberOfBufferedBuffers = 0;
+		numberOfRegions++;
+
+		LOG.debug("Wrote region {} with {} buffers of {}.", numberOfRegions - 1, numberOfWrittenBuffers, this);
+
+		return numberOfWrittenBuffers;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SortMergePartitionFile [%d subpartitions, %d regions (%d bytes), " +
+						"finished? %s, released? %s]",
+				buffers.length, numberOfRegions, dataFileSize, isFinished, isReleased);
+	}
+}
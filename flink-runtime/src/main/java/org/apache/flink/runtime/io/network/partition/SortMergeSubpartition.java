@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A blocking subpartition, which writes its buffers to the {@link SortMergePartitionFile} shared
+ * by all subpartitions of its partition.
+ *
+ * <p> In contrast to the {@link SpillableSubpartition}, which spills to a file of its own, this
+ * keeps the number of files per producer independent of the number of consumers. The buffers
+ * are always written to disk and consumed from there, after all subpartitions have been finished.
+ */
+class SortMergeSubpartition extends ResultSubpartition {
+
+	/** The data file and index shared with the other subpartitions of the partition. */
+	private final SortMergePartitionFile partitionFile;
+
+	/** Flag indicating whether the subpartition has been finished. */
+	private boolean isFinished;
+
+	/** Flag indicating whether the subpartition has been released. */
+	private volatile boolean isReleased;
+
+	/** The read view to consume this subpartition. */
+	private ResultSubpartitionView readView;
+
+	SortMergeSubpartition(int index, ResultPartition parent, SortMergePartitionFile partitionFile) {
+		super(index, parent);
+
+		this.partitionFile = checkNotNull(partitionFile);
+	}
+
+	@Override
+	public boolean add(Buffer buffer) throws IOException {
+		checkNotNull(buffer);
+
+		synchronized (this) {
+			if (isFinished || isReleased) {
+				return false;
+			}
+		}
+
+		if (partitionFile.add(buffer, index)) {
+			updateStatistics(buffer);
+
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void finish() throws IOException {
+		final Buffer endOfPartition = EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE);
+
+		if (add(endOfPartition)) {
+			synchronized (this) {
+				isFinished = true;
+			}
+
+			partitionFile.onFinishedSubpartition();
+		}
+		else {
+			endOfPartition.recycle();
+		}
+	}
+
+	@Override
+	public void release() throws IOException {
+		final ResultSubpartitionView view;
+
+		synchronized (this) {
+			if (isReleased) {
+				return;
+			}
+
+			view = readView;
+			readView = null;
+
+			isReleased = true;
+		}
+
+		partitionFile.onReleasedSubpartition();
+
+		// Release the view outside of the synchronized block
+		if (view != null) {
+			view.notifySubpartitionConsumed();
+		}
+	}
+
+	@Override
+	int releaseMemory() throws IOException {
+		// All buffered data of the partition is written at once
+		return partitionFile.releaseMemory();
+	}
+
+	@Override
+	public boolean isReleased() {
+		return isReleased;
+	}
+
+	@Override
+	public int getNumberOfQueuedBuffers() {
+		// the data of all subpartitions is buffered and written by the partition file
+		return 0;
+	}
+
+	@Override
+	public ResultSubpartitionView createReadView(BufferProvider bufferProvider) throws IOException {
+		synchronized (this) {
+			if (!partitionFile.isFinished()) {
+				throw new IllegalStateException("Partition has not been finished yet, " +
+						"but blocking subpartitions can only be consumed after they have " +
+						"been finished.");
+			}
+
+			if (readView != null) {
+				throw new IllegalStateException("Subpartition is being or already has been " +
+						"consumed, but we currently allow subpartitions to only be consumed once.");
+			}
+
+			readView = new SortMergeSubpartitionView(
+					this, partitionFile, bufferProvider.getMemorySegmentSize());
+
+			return readView;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SortMergeSubpartition [%d number of buffers (%d bytes), " +
+						"finished? %s, read view? %s]",
+				getTotalNumberOfBuffers(), getTotalNumberOfBytes(), isFinished, readView != null);
+	}
+}
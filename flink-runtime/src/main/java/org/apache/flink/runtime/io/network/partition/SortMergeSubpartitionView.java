@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.disk.iomanager.BufferFileReader;
+import org.apache.flink.runtime.io.disk.iomanager.SynchronousBufferFileReader;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.partition.SpilledSubpartitionViewSyncIO.SpillReadBufferPool;
+import org.apache.flink.runtime.util.event.NotificationListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * View over a {@link SortMergeSubpartition}.
+ *
+ * <p> The view reads the range of its subpartition in each region of the partition's data file,
+ * region by region. Within a region, the buffers of a subpartition are contiguous, so the reads
+ * are sequential and only seek once per region. Reads are done synchronously.
+ */
+class SortMergeSubpartitionView implements ResultSubpartitionView {
+
+	/** The subpartition this view belongs to. */
+	private final ResultSubpartition parent;
+
+	/** The data file and index to read from. */
+	private final SortMergePartitionFile partitionFile;
+
+	/** The synchronous file reader to do the actual I/O. */
+	private final BufferFileReader fileReader;
+
+	/** The buffer pool to read data into. */
+	private final SpillReadBufferPool bufferPool;
+
+	/** The index entry of the current region. */
+	private final ByteBuffer indexEntry = ByteBuffer.allocate(SortMergePartitionFile.INDEX_ENTRY_SIZE);
+
+	/** The region to read next. */
+	private int nextRegion;
+
+	/** The number of buffers of the current region, which have not been read yet. */
+	private int numberOfRemainingBuffers;
+
+	/** Flag indicating whether all resources have been released. */
+	private AtomicBoolean isReleased = new AtomicBoolean();
+
+	SortMergeSubpartitionView(
+			ResultSubpartition parent,
+			SortMergePartitionFile partitionFile,
+			int memorySegmentSize) throws IOException {
+
+		this.parent = checkNotNull(parent);
+		this.partitionFile = checkNotNull(partitionFile);
+
+		this.bufferPool = new SpillReadBufferPool(2, memorySegmentSize);
+
+		this.fileReader = new SynchronousBufferFileReader(partitionFile.getDataChannelId(), false);
+	}
+
+	@Override
+	public Buffer getNextBuffer() throws IOException, InterruptedException {
+		// Skip to the next region with data of this subpartition
+		while (numberOfRemainingBuffers == 0) {
+			if (nextRegion == partitionFile.getNumberOfRegions()) {
+				return null;
+			}
+
+			indexEntry.clear();
+			partitionFile.readIndexEntry(nextRegion++, parent.index, indexEntry);
+			indexEntry.flip();
+
+			final long offset = indexEntry.getLong();
+			numberOfRemainingBuffers = indexEntry.getInt();
+
+			if (numberOfRemainingBuffers > 0) {
+				fileReader.seekToPosition(offset);
+			}
+		}
+
+		// It's OK to request the buffer in a blocking fashion as the buffer pool is NOT shared
+		// among all consumed subpartitions.
+		final Buffer buffer = bufferPool.requestBufferBlocking();
+
+		if (buffer == null) {
+			// Released concurrently
+			return null;
+		}
+
+		fileReader.readInto(buffer);
+		numberOfRemainingBuffers--;
+
+		return buffer;
+	}
+
+	@Override
+	public boolean registerListener(NotificationListener listener) throws IOException {
+		return false;
+	}
+
+	@Override
+	public void notifySubpartitionConsumed() throws IOException {
+		parent.onConsumedSubpartition();
+	}
+
+	@Override
+	public void releaseAllResources() throws IOException {
+		if (isReleased.compareAndSet(false, true)) {
+			fileReader.close();
+			bufferPool.destroy();
+		}
+	}
+
+	@Override
+	public boolean isReleased() {
+		return parent.isReleased() || isReleased.get();
+	}
+
+	@Override
+	public Throwable getFailureCause() {
+		return parent.getFailureCause();
+	}
+}
@@ -24,6 +24,7 @@ import org.apache.flink.runtime.io.disk.iomanager.IOManager.IOMode;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +53,9 @@ class SpillableSubpartition extends ResultSubpartition {
 	/** The default I/O mode to use. */
 	final IOMode ioMode;
 
+	/** Compresses the buffers before they are spilled, if not null. */
+	private final BufferCompressor spillCompressor;
+
 	/** The writer used for spilling. As long as this is null, we are in-memory. */
 	BufferFileWriter spillWriter;
 
@@ -65,10 +69,21 @@ class SpillableSubpartition extends ResultSubpartition {
 	private ResultSubpartitionView readView;
 
 	SpillableSubpartition(int index, ResultPartition parent, IOManager ioManager, IOMode ioMode) {
+		this(index, parent, ioManager, ioMode, null);
+	}
+
+	SpillableSubpartition(
+			int index,
+			ResultPartition parent,
+			IOManager ioManager,
+			IOMode ioMode,
+			BufferCompressor spillCompressor) {
+
 		super(index, parent);
 
 		this.ioManager = checkNotNull(ioManager);
 		this.ioMode = checkNotNull(ioMode);
+		this.spillCompressor = spillCompressor;
 	}
 
 	@Override
@@ -89,6 +104,10 @@ class SpillableSubpartition extends ResultSubpartition {
 		}
 
 		// Else: Spilling
+		if (spillCompressor != null) {
+			spillCompressor.compress(buffer);
+		}
+
 		spillWriter.writeBlock(buffer);
 
 		return true;
@@ -152,9 +171,19 @@ class SpillableSubpartition extends ResultSubpartition {
 
 				final int numberOfBuffers = buffers.size();
 
+				// A read view continues at its byte offset in the spill file, which must
+				// therefore match the in-memory buffers
+				final BufferCompressor compressor = readView == null ? spillCompressor : null;
+
 				// Spill all buffers
 				for (int i = 0; i < numberOfBuffers; i++) {
-					spillWriter.writeBlock(buffers.remove(0));
+					Buffer buffer = buffers.remove(0);
+
+					if (compressor != null) {
+						compressor.compress(buffer);
+					}
+
+					spillWriter.writeBlock(buffer);
 				}
 
 				LOG.debug("Spilling {} buffers of {}.", numberOfBuffers, this);
@@ -172,6 +201,14 @@ class SpillableSubpartition extends ResultSubpartition {
 		return isReleased;
 	}
 
+	@Override
+	public int getNumberOfQueuedBuffers() {
+		// spilled buffers are not counted
+		synchronized (buffers) {
+			return buffers.size();
+		}
+	}
+
 	@Override
 	public ResultSubpartitionView createReadView(BufferProvider bufferProvider) throws IOException {
 		synchronized (buffers) {
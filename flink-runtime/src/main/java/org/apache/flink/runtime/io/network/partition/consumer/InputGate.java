@@ -75,6 +75,17 @@ public interface InputGate {
 
 	BufferOrEvent getNextBufferOrEvent() throws IOException, InterruptedException;
 
+	/**
+	 * Returns the next {@link BufferOrEvent}, if one is available right away. In contrast to
+	 * {@link #getNextBufferOrEvent()}, this method never waits for data to arrive.
+	 *
+	 * <p> A return value of {@code null} means either that no data is available at the moment
+	 * or that the gate is finished. Callers distinguish the two cases via {@link #isFinished()}
+	 * and can register a listener via {@link #registerListener(EventListener)} in order to be
+	 * notified about newly available data.
+	 */
+	BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException;
+
 	void sendTaskEvent(TaskEvent event) throws IOException;
 
 	void registerListener(EventListener<InputGate> listener);
@@ -120,6 +120,10 @@ public class LocalInputChannel extends InputChannel implements NotificationListe
 					throw new IOException("Error requesting subpartition.");
 				}
 
+				if (inputGate.isObjectHandOverEnabled()) {
+					partitionManager.enableObjectHandOver(partitionId, subpartitionIndex);
+				}
+
 				getNextLookAhead();
 			}
 		}
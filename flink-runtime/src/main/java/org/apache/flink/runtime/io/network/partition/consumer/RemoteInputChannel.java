@@ -18,12 +18,15 @@
 
 package org.apache.flink.runtime.io.network.partition.consumer;
 
+import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.metrics.groups.IOMetricGroup;
 import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.ConnectionManager;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.netty.PartitionRequestClient;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
@@ -33,16 +36,24 @@ import scala.Tuple2;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * An input channel, which requests a remote partition queue.
+ *
+ * <p> The channel announces each buffer it can receive into as credit to the producer. It owns a
+ * fixed number of exclusive buffers, which are announced with the partition request and again
+ * after they have been recycled by the consumer. If the channel runs out of buffers, it tries to
+ * get an additional floating buffer from the buffer pool of its input gate.
  */
-public class RemoteInputChannel extends InputChannel {
+public class RemoteInputChannel extends InputChannel implements BufferRecycler {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RemoteInputChannel.class);
 
@@ -61,6 +72,9 @@ public class RemoteInputChannel extends InputChannel {
 	 */
 	private final Queue<Buffer> receivedBuffers = new ArrayDeque<Buffer>();
 
+	/** The number of bytes in the received buffers. Guarded by the received buffers. */
+	private long numberOfQueuedBytes;
+
 	/**
 	 * Flag indicating whether this channel has been released. Either called by the receiving task
 	 * thread or the task manager actor.
@@ -76,6 +90,21 @@ public class RemoteInputChannel extends InputChannel {
 	 */
 	private int expectedSequenceNumber = 0;
 
+	/**
+	 * Buffers, which have been announced as credit and can be used by the network I/O thread to
+	 * receive data. These are exclusive buffers and floating buffers of the input gate.
+	 */
+	private final Queue<Buffer> availableBuffers = new ArrayDeque<Buffer>();
+
+	/** The pool to return the exclusive memory segments to after the channel is released. */
+	private NetworkBufferPool networkBufferPool;
+
+	/** The number of exclusive buffers, which is announced with the partition request. */
+	private int initialCredit;
+
+	/** Credit, which has become available but has not been announced to the producer yet. */
+	private final AtomicInteger unannouncedCredit = new AtomicInteger();
+
 	public RemoteInputChannel(
 			SingleInputGate inputGate,
 			int channelIndex,
@@ -103,6 +132,24 @@ public class RemoteInputChannel extends InputChannel {
 		this.connectionManager = checkNotNull(connectionManager);
 	}
 
+	/**
+	 * Assigns the exclusive memory segments of this channel. This has to happen before the
+	 * partition is requested, because the segments are announced as the initial credit.
+	 */
+	void assignExclusiveSegments(List<MemorySegment> segments, NetworkBufferPool networkBufferPool) {
+		checkState(this.networkBufferPool == null, "Bug in input channel setup logic: exclusive " +
+				"buffers have already been set for this input channel.");
+
+		this.networkBufferPool = checkNotNull(networkBufferPool);
+		this.initialCredit = segments.size();
+
+		synchronized (availableBuffers) {
+			for (MemorySegment segment : segments) {
+				availableBuffers.add(new Buffer(segment, this));
+			}
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	// Consume
 	// ------------------------------------------------------------------------
@@ -151,6 +198,7 @@ public class RemoteInputChannel extends InputChannel {
 				throw new IOException("Queried input channel for data although non is available.");
 			}
 
+			numberOfQueuedBytes -= buffer.getSize();
 			numBytesIn.inc(buffer.getSize());
 			return buffer;
 		}
@@ -195,6 +243,17 @@ public class RemoteInputChannel extends InputChannel {
 				while ((buffer = receivedBuffers.poll()) != null) {
 					buffer.recycle();
 				}
+
+				numberOfQueuedBytes = 0;
+			}
+
+			// Exclusive buffers are returned to the network buffer pool on recycle, because
+			// the channel has been released. Floating buffers go back to the input gate.
+			synchronized (availableBuffers) {
+				Buffer buffer;
+				while ((buffer = availableBuffers.poll()) != null) {
+					buffer.recycle();
+				}
 			}
 
 			// The released flag has to be set before closing the connection to ensure that
@@ -227,10 +286,125 @@ public class RemoteInputChannel extends InputChannel {
 		}
 	}
 
+	/**
+	 * Returns the number of bytes, which have been received from the network, but not consumed
+	 * by the receiving task yet.
+	 */
+	public long getNumberOfQueuedBytes() {
+		synchronized (receivedBuffers) {
+			return numberOfQueuedBytes;
+		}
+	}
+
 	public InputChannelID getInputChannelId() {
 		return id;
 	}
 
+	/**
+	 * Returns the number of exclusive buffers of this channel, which is announced as the initial
+	 * credit with the partition request.
+	 */
+	public int getInitialCredit() {
+		return initialCredit;
+	}
+
+	/**
+	 * Returns the credit, which has not been announced yet, and resets it.
+	 */
+	public int getAndResetUnannouncedCredit() {
+		return unannouncedCredit.getAndSet(0);
+	}
+
+	/**
+	 * Returns a buffer the producer holds credit for or <code>null</code> if the channel has been
+	 * released or has no buffers.
+	 *
+	 * <p> If the channel runs out of buffers, it tries to get a floating buffer from the input
+	 * gate, which is announced as additional credit.
+	 */
+	public Buffer requestBuffer() throws IOException {
+		Buffer buffer;
+		boolean requestFloatingBuffer;
+
+		synchronized (availableBuffers) {
+			if (isReleased.get()) {
+				return null;
+			}
+
+			buffer = availableBuffers.poll();
+			requestFloatingBuffer = buffer != null && availableBuffers.isEmpty();
+		}
+
+		if (requestFloatingBuffer) {
+			BufferProvider floatingBufferProvider = inputGate.getBufferProvider();
+			Buffer floatingBuffer = floatingBufferProvider != null ? floatingBufferProvider.requestBuffer() : null;
+
+			if (floatingBuffer != null) {
+				boolean added = false;
+
+				synchronized (availableBuffers) {
+					if (!isReleased.get()) {
+						availableBuffers.add(floatingBuffer);
+						added = true;
+					}
+				}
+
+				if (added) {
+					notifyCreditAvailable();
+				}
+				else {
+					floatingBuffer.recycle();
+				}
+			}
+		}
+
+		return buffer;
+	}
+
+	/**
+	 * Recycles an exclusive memory segment of this channel. The segment is announced as new
+	 * credit or returned to the network buffer pool if the channel has been released.
+	 */
+	@Override
+	public void recycle(MemorySegment segment) {
+		synchronized (availableBuffers) {
+			if (!isReleased.get()) {
+				availableBuffers.add(new Buffer(segment, this));
+				segment = null;
+			}
+		}
+
+		if (segment == null) {
+			notifyCreditAvailable();
+		}
+		else {
+			try {
+				networkBufferPool.recycleMemorySegments(Collections.singletonList(segment));
+			}
+			catch (Throwable t) {
+				LOG.error("Failed to return exclusive buffer of {} to the network buffer pool.", this, t);
+			}
+		}
+	}
+
+	private void notifyCreditAvailable() {
+		// Only the first increment triggers an announcement, which picks up all
+		// credit accumulated until it is executed by the network I/O thread.
+		if (unannouncedCredit.getAndIncrement() == 0) {
+			PartitionRequestClient client = partitionRequestClient;
+
+			if (client != null) {
+				client.notifyCreditAvailable(this);
+			}
+			else {
+				// Without a partition request, all buffers of the channel are announced as the
+				// initial credit of the request. Resetting the counter lets the next credit
+				// trigger an announcement again.
+				unannouncedCredit.set(0);
+			}
+		}
+	}
+
 	public BufferProvider getBufferProvider() throws IOException {
 		if (isReleased.get()) {
 			return null;
@@ -247,6 +421,7 @@ public class RemoteInputChannel extends InputChannel {
 				if (!isReleased.get()) {
 					if (expectedSequenceNumber == sequenceNumber) {
 						receivedBuffers.add(buffer);
+						numberOfQueuedBytes += buffer.getSize();
 						expectedSequenceNumber++;
 
 						notifyAvailableBuffer();
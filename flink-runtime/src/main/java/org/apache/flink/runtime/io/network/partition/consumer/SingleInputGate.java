@@ -20,6 +20,8 @@ package org.apache.flink.runtime.io.network.partition.consumer;
 
 import com.google.common.collect.Maps;
 import org.apache.flink.api.common.JobID;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.groups.IOMetricGroup;
 import org.apache.flink.runtime.deployment.InputChannelDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.InputGateDeploymentDescriptor;
@@ -31,8 +33,10 @@ import org.apache.flink.runtime.io.network.NetworkEnvironment;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.netty.PartitionStateChecker;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.jobgraph.DistributionPattern;
@@ -144,11 +148,18 @@ public class SingleInputGate implements InputGate {
 	private final PartitionStateChecker partitionStateChecker;
 
 	/**
-	 * Buffer pool for incoming buffers. Incoming data from remote channels is copied to buffers
-	 * from this pool.
+	 * Buffer pool for incoming buffers. Incoming data from remote channels is copied to their
+	 * exclusive buffers. This pool provides the floating buffers, which are shared by all
+	 * remote channels of this gate.
 	 */
 	private BufferPool bufferPool;
 
+	/** The pool to request the exclusive buffers of remote channels from. */
+	private NetworkBufferPool networkBufferPool;
+
+	/** The number of exclusive buffers per remote channel. */
+	private int networkBuffersPerChannel;
+
 	private boolean hasReceivedAllEndOfPartitionEvents;
 
 	/** Flag indicating whether partitions have been requested. */
@@ -157,11 +168,17 @@ public class SingleInputGate implements InputGate {
 	/** Flag indicating whether all resources have been released. */
 	private volatile boolean isReleased;
 
+	/** Flag indicating whether local channels request record objects instead of serialized buffers. */
+	private volatile boolean isObjectHandOverEnabled;
+
 	/** Registered listener to forward buffer notifications to. */
 	private volatile EventListener<InputGate> registeredListener;
 
 	private final List<TaskEvent> pendingEvents = new ArrayList<TaskEvent>();
 
+	/** Decompresses buffers compressed by the producer, created on the first such buffer. */
+	private BufferDecompressor bufferDecompressor;
+
 	private int numberOfUninitializedChannels;
 
 	/** A timer to retrigger local partition requests. Only initialized if actually needed. */
@@ -212,6 +229,62 @@ public class SingleInputGate implements InputGate {
 		return bufferPool;
 	}
 
+	public BufferPool getBufferPool() {
+		return bufferPool;
+	}
+
+	/**
+	 * Returns the number of buffers, which have been received by the remote input channels of
+	 * this gate, but not consumed yet. Data of local channels is queued at the producer.
+	 */
+	public int getNumberOfQueuedBuffers() {
+		int totalBuffers = 0;
+
+		synchronized (requestLock) {
+			for (InputChannel inputChannel : inputChannels.values()) {
+				if (inputChannel.getClass() == RemoteInputChannel.class) {
+					totalBuffers += ((RemoteInputChannel) inputChannel).getNumberOfQueuedBuffers();
+				}
+			}
+		}
+
+		return totalBuffers;
+	}
+
+	/**
+	 * Registers the number of bytes in flight of each input channel, which are the bytes that
+	 * have been received from the network, but not consumed yet. The channels are registered
+	 * by their index, the gauges report zero for channels, which are not remote.
+	 */
+	public void registerMetrics(MetricGroup metrics) {
+		synchronized (requestLock) {
+			for (InputChannel inputChannel : inputChannels.values()) {
+				final IntermediateResultPartitionID partitionId = inputChannel.partitionId.getPartitionId();
+
+				metrics.addGroup(inputChannel.getChannelIndex()).gauge("bytesInFlight", new Gauge<Long>() {
+					@Override
+					public Long getValue() {
+						return getNumberOfQueuedBytes(partitionId);
+					}
+				});
+			}
+		}
+	}
+
+	private long getNumberOfQueuedBytes(IntermediateResultPartitionID partitionId) {
+		synchronized (requestLock) {
+			// unknown channels are replaced by local or remote channels for the same partition
+			InputChannel inputChannel = inputChannels.get(partitionId);
+
+			if (inputChannel != null && inputChannel.getClass() == RemoteInputChannel.class) {
+				return ((RemoteInputChannel) inputChannel).getNumberOfQueuedBytes();
+			}
+			else {
+				return 0L;
+			}
+		}
+	}
+
 	@Override
 	public int getPageSize() {
 		if (bufferPool != null) {
@@ -226,6 +299,19 @@ public class SingleInputGate implements InputGate {
 	// Setup/Life-cycle
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Lets the local input channels of this gate request record objects from their producers.
+	 * Must be called before the partitions are requested and only by consumers, which
+	 * understand {@link org.apache.flink.runtime.io.network.buffer.ObjectBuffer} instances.
+	 */
+	public void enableObjectHandOver() {
+		isObjectHandOverEnabled = true;
+	}
+
+	boolean isObjectHandOverEnabled() {
+		return isObjectHandOverEnabled;
+	}
+
 	public void setBufferPool(BufferPool bufferPool) {
 		// Sanity checks
 		checkArgument(numberOfInputChannels == bufferPool.getNumberOfRequiredMemorySegments(),
@@ -239,6 +325,34 @@ public class SingleInputGate implements InputGate {
 		this.bufferPool = checkNotNull(bufferPool);
 	}
 
+	/**
+	 * Assigns exclusive buffers to all remote input channels of this gate. Remote channels, which
+	 * are only created after a runtime update of an unknown channel, get their buffers on update.
+	 */
+	public void assignExclusiveSegments(NetworkBufferPool networkBufferPool, int networkBuffersPerChannel) throws IOException {
+		synchronized (requestLock) {
+			checkState(this.networkBufferPool == null, "Bug in input gate setup logic: exclusive " +
+					"buffers have already been set for this input gate.");
+
+			this.networkBufferPool = checkNotNull(networkBufferPool);
+			this.networkBuffersPerChannel = networkBuffersPerChannel;
+
+			for (InputChannel inputChannel : inputChannels.values()) {
+				if (inputChannel.getClass() == RemoteInputChannel.class) {
+					assignExclusiveSegments((RemoteInputChannel) inputChannel);
+				}
+			}
+		}
+	}
+
+	// Must be called from synchronized block
+	private void assignExclusiveSegments(RemoteInputChannel inputChannel) throws IOException {
+		if (networkBufferPool != null && networkBuffersPerChannel > 0) {
+			inputChannel.assignExclusiveSegments(
+					networkBufferPool.requestMemorySegments(networkBuffersPerChannel), networkBufferPool);
+		}
+	}
+
 	public void setInputChannel(IntermediateResultPartitionID partitionId, InputChannel inputChannel) {
 		synchronized (requestLock) {
 			if (inputChannels.put(checkNotNull(partitionId), checkNotNull(inputChannel)) == null
@@ -272,7 +386,10 @@ public class SingleInputGate implements InputGate {
 					newChannel = unknownChannel.toLocalInputChannel();
 				}
 				else if (partitionLocation.isRemote()) {
-					newChannel = unknownChannel.toRemoteInputChannel(partitionLocation.getConnectionId());
+					RemoteInputChannel remoteChannel = unknownChannel.toRemoteInputChannel(partitionLocation.getConnectionId());
+					assignExclusiveSegments(remoteChannel);
+
+					newChannel = remoteChannel;
 				}
 				else {
 					throw new IllegalStateException("Tried to update unknown channel with unknown channel.");
@@ -405,6 +522,15 @@ public class SingleInputGate implements InputGate {
 
 	@Override
 	public BufferOrEvent getNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(false);
+	}
+
+	private BufferOrEvent getNextBufferOrEvent(boolean blocking) throws IOException, InterruptedException {
 
 		if (hasReceivedAllEndOfPartitionEvents) {
 			return null;
@@ -418,10 +544,19 @@ public class SingleInputGate implements InputGate {
 				throw new IllegalStateException("Released");
 			}
 
-			currentChannel = inputChannelsWithData.poll(2, TimeUnit.SECONDS);
+			if (blocking) {
+				currentChannel = inputChannelsWithData.poll(2, TimeUnit.SECONDS);
+			}
+			else {
+				currentChannel = inputChannelsWithData.poll();
+
+				if (currentChannel == null) {
+					return null;
+				}
+			}
 		}
 
-		final Buffer buffer = currentChannel.getNextBuffer();
+		Buffer buffer = currentChannel.getNextBuffer();
 
 		// Sanity check that notifications only happen when data is available
 		if (buffer == null) {
@@ -430,6 +565,16 @@ public class SingleInputGate implements InputGate {
 		}
 
 		if (buffer.isBuffer()) {
+			if (buffer.isCompressed()) {
+				// The producer decides whether to compress, so the decompressor is created lazily
+				if (bufferDecompressor == null) {
+					bufferDecompressor = new BufferDecompressor();
+				}
+
+				// The decompressed contents take a buffer of this gate's pool
+				buffer = bufferDecompressor.decompress(buffer, bufferPool);
+			}
+
 			return new BufferOrEvent(buffer, currentChannel.getChannelIndex());
 		}
 		else {
@@ -139,6 +139,15 @@ public class UnionInputGate implements InputGate {
 
 	@Override
 	public BufferOrEvent getNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(false);
+	}
+
+	private BufferOrEvent getNextBufferOrEvent(boolean blocking) throws IOException, InterruptedException {
 
 		if (inputGatesWithRemainingData.isEmpty()) {
 			return null;
@@ -147,8 +156,20 @@ public class UnionInputGate implements InputGate {
 		// Make sure to request the partitions, if they have not been requested before.
 		requestPartitions();
 
-		final InputGate inputGate = inputGateListener.getNextInputGateToReadFrom();
+		final InputGate inputGate;
+		if (blocking) {
+			inputGate = inputGateListener.getNextInputGateToReadFrom();
+		}
+		else {
+			inputGate = inputGateListener.pollNextInputGateToReadFrom();
 
+			if (inputGate == null) {
+				return null;
+			}
+		}
+
+		// The union gate is notified once per available buffer of the given gate, hence the
+		// following call does not block.
 		final BufferOrEvent bufferOrEvent = inputGate.getNextBufferOrEvent();
 
 		if (bufferOrEvent.isEvent()
@@ -232,6 +253,10 @@ public class UnionInputGate implements InputGate {
 			return inputGatesWithData.take();
 		}
 
+		InputGate pollNextInputGateToReadFrom() {
+			return inputGatesWithData.poll();
+		}
+
 		public void registerListener(EventListener<InputGate> listener) {
 			registeredListeners.add(checkNotNull(listener));
 		}
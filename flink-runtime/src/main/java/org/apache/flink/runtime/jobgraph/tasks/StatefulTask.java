@@ -20,6 +20,8 @@ package org.apache.flink.runtime.jobgraph.tasks;
 
 import org.apache.flink.runtime.state.StateHandle;
 
+import java.util.Map;
+
 /**
  * This interface must be implemented by any invokable that has recoverable state and participates
  * in checkpointing.
@@ -35,6 +37,16 @@ public interface StatefulTask<T extends StateHandle<?>> {
 	 */
 	void setInitialState(T stateHandle, long recoveryTimestamp) throws Exception;
 
+	/**
+	 * Sets the initial state of the key groups which are assigned to this task, upon recovery.
+	 * The key groups may have been snapshotted by different tasks of a previous execution,
+	 * possibly with a different parallelism.
+	 *
+	 * @param keyGroupStates The handles to the state of the key groups, indexed by key group.
+	 * @param recoveryTimestamp Global recovery timestamp.
+	 */
+	void setInitialKeyGroupStates(Map<Integer, StateHandle<?>> keyGroupStates, long recoveryTimestamp) throws Exception;
+
 	/**
 	 * This method is either called directly and asynchronously by the checkpoint
 	 * coordinator (in the case of functions that are directly notified - usually
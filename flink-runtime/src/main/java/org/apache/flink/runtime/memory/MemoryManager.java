@@ -50,6 +50,10 @@ import org.apache.flink.util.MathUtils;
  * On-demand allocation means that the memory manager only keeps track how many memory segments are
  * currently allocated (bookkeeping only). Releasing a memory segment will not add it back to the pool,
  * but make it re-claimable by the garbage collector.
+ * <p>
+ * Alternatively, the memory manager can draw its off-heap memory from a lease of a
+ * {@link UnifiedMemoryPool}, which it shares with the network stack. Its size is then the lease's
+ * guaranteed memory, and the memory is always pooled.
  */
 public class MemoryManager {
 
@@ -94,6 +98,9 @@ public class MemoryManager {
 	/** The number of memory pages that have not been allocated and are available for lazy allocation */
 	private int numNonAllocatedPages;
 
+	/** The lease of the unified memory pool, from which the memory is drawn, or null */
+	private final UnifiedMemoryPool.Lease lease;
+
 	/** flag whether the close() has already been invoked */
 	private boolean isShutDown;
 
@@ -120,6 +127,23 @@ public class MemoryManager {
 	 */
 	public MemoryManager(long memorySize, int numberOfSlots, int pageSize,
 							MemoryType memoryType, boolean preAllocateMemory) {
+		this(memorySize, numberOfSlots, pageSize, memoryType, preAllocateMemory, null);
+	}
+
+	/**
+	 * Creates a memory manager, which draws its off-heap memory from the given lease of a
+	 * {@link UnifiedMemoryPool}. The memory manager's size is the lease's guaranteed memory.
+	 *
+	 * @param lease The lease, from which the memory segments are taken.
+	 * @param numberOfSlots The number of slots of the task manager.
+	 */
+	public MemoryManager(UnifiedMemoryPool.Lease lease, int numberOfSlots) {
+		this((long) lease.getNumberOfGuaranteedSegments() * lease.getSegmentSize(), numberOfSlots,
+				lease.getSegmentSize(), MemoryType.OFF_HEAP, true, lease);
+	}
+
+	private MemoryManager(long memorySize, int numberOfSlots, int pageSize,
+							MemoryType memoryType, boolean preAllocateMemory, UnifiedMemoryPool.Lease lease) {
 		// sanity checks
 		if (memoryType == null) {
 			throw new NullPointerException();
@@ -157,16 +181,23 @@ public class MemoryManager {
 
 		this.numNonAllocatedPages = preAllocateMemory ? 0 : this.totalNumPages;
 		final int memToAllocate = preAllocateMemory ? this.totalNumPages : 0;
-		
-		switch (memoryType) {
-			case HEAP:
-				this.memoryPool = new HeapMemoryPool(memToAllocate, pageSize);
-				break;
-			case OFF_HEAP:
-				this.memoryPool = new HybridOffHeapMemoryPool(memToAllocate, pageSize);
-				break;
-			default:
-				throw new IllegalArgumentException("unrecognized memory type: " + memoryType);
+
+		this.lease = lease;
+
+		if (lease != null) {
+			this.memoryPool = new LeasedMemoryPool(lease);
+		}
+		else {
+			switch (memoryType) {
+				case HEAP:
+					this.memoryPool = new HeapMemoryPool(memToAllocate, pageSize);
+					break;
+				case OFF_HEAP:
+					this.memoryPool = new HybridOffHeapMemoryPool(memToAllocate, pageSize);
+					break;
+				default:
+					throw new IllegalArgumentException("unrecognized memory type: " + memoryType);
+			}
 		}
 	}
 
@@ -219,7 +250,7 @@ public class MemoryManager {
 	public boolean verifyEmpty() {
 		synchronized (lock) {
 			return isPreAllocated ?
-					memoryPool.getNumberOfAvailableMemorySegments() == totalNumPages :
+					memoryPool.containsAllSegments(totalNumPages) :
 					numNonAllocatedPages == totalNumPages;
 		}
 	}
@@ -291,8 +322,7 @@ public class MemoryManager {
 			}
 
 			if (isPreAllocated) {
-				for (int i = numPages; i > 0; i--) {
-					MemorySegment segment = memoryPool.requestSegmentFromPool(owner);
+				for (MemorySegment segment : memoryPool.requestSegmentsFromPool(owner, numPages)) {
 					target.add(segment);
 					segmentsForOwner.add(segment);
 				}
@@ -507,6 +537,15 @@ public class MemoryManager {
 		return memoryType;
 	}
 
+	/**
+	 * Gets the unified memory pool, which the memory manager shares with the network stack.
+	 *
+	 * @return The unified memory pool, or null, if the memory manager allocates its own memory.
+	 */
+	public UnifiedMemoryPool getUnifiedMemoryPool() {
+		return lease == null ? null : lease.getPool();
+	}
+
 	/**
 	 * Checks whether this memory manager pre-allocates the memory.
 	 *
@@ -591,9 +630,25 @@ public class MemoryManager {
 
 		abstract MemorySegment requestSegmentFromPool(Object owner);
 
+		/**
+		 * Takes the given number of segments from the pool. The caller has checked that the pool
+		 * has enough available segments.
+		 */
+		List<MemorySegment> requestSegmentsFromPool(Object owner, int numSegments) throws MemoryAllocationException {
+			final List<MemorySegment> segments = new ArrayList<MemorySegment>(numSegments);
+			for (int i = 0; i < numSegments; i++) {
+				segments.add(requestSegmentFromPool(owner));
+			}
+			return segments;
+		}
+
 		abstract void returnSegmentToPool(MemorySegment segment);
 		
 		abstract void clear();
+
+		boolean containsAllSegments(int totalNumPages) {
+			return getNumberOfAvailableMemorySegments() == totalNumPages;
+		}
 	}
 
 	static final class HeapMemoryPool extends MemoryPool {
@@ -697,4 +752,74 @@ public class MemoryManager {
 			availableMemory.clear();
 		}
 	}
+
+	/**
+	 * Memory pool, which takes its segments from a lease of a {@link UnifiedMemoryPool}. Segments
+	 * beyond the lease's guarantee are only available while the other leases do not need them.
+	 */
+	static final class LeasedMemoryPool extends MemoryPool {
+
+		private final UnifiedMemoryPool.Lease lease;
+
+		LeasedMemoryPool(UnifiedMemoryPool.Lease lease) {
+			this.lease = lease;
+		}
+
+		@Override
+		HybridMemorySegment allocateNewSegment(Object owner) {
+			throw new UnsupportedOperationException("Memory of a unified memory pool is always pooled.");
+		}
+
+		@Override
+		HybridMemorySegment requestSegmentFromPool(Object owner) {
+			throw new UnsupportedOperationException("Segments of a lease are requested all at once.");
+		}
+
+		/**
+		 * Takes all segments at once, because another lease may take the floating segments
+		 * since the available segments were checked.
+		 */
+		@Override
+		List<MemorySegment> requestSegmentsFromPool(Object owner, int numSegments) throws MemoryAllocationException {
+			final List<ByteBuffer> buffers = lease.requestSegments(numSegments);
+			if (buffers == null) {
+				throw new MemoryAllocationException("Could not allocate " + numSegments + " pages. Only " +
+						lease.getNumberOfAvailableSegments() + " pages are remaining in " + lease + '.');
+			}
+
+			final List<MemorySegment> segments = new ArrayList<MemorySegment>(numSegments);
+			for (ByteBuffer buf : buffers) {
+				segments.add(HybridMemorySegment.FACTORY.wrapPooledOffHeapMemory(buf, owner));
+			}
+			return segments;
+		}
+
+		@Override
+		void returnSegmentToPool(MemorySegment segment) {
+			if (segment.getClass() == HybridMemorySegment.class) {
+				HybridMemorySegment hybridSegment = (HybridMemorySegment) segment;
+				ByteBuffer buf = hybridSegment.getOffHeapBuffer();
+				hybridSegment.free();
+				lease.recycleSegment(buf);
+			}
+			else {
+				throw new IllegalArgumentException("Memory segment is not a " + HybridMemorySegment.class.getSimpleName());
+			}
+		}
+
+		@Override
+		protected int getNumberOfAvailableMemorySegments() {
+			return lease.getNumberOfAvailableSegments();
+		}
+
+		@Override
+		boolean containsAllSegments(int totalNumPages) {
+			return lease.getNumberOfLeasedSegments() == 0;
+		}
+
+		@Override
+		void clear() {
+			// the segments belong to the unified memory pool
+		}
+	}
 }
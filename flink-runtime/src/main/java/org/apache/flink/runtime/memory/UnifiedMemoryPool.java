@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.memory;
+
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A pool of direct memory, from which both the network stack and the {@link MemoryManager} draw
+ * their memory segments. Memory is allocated in a few large direct chunks, which are sliced into
+ * segments, instead of allocating every segment individually.
+ * <p>
+ * Each consumer of the pool holds a {@link Lease}. When a lease is created, the pool grows by
+ * the lease's number of segments, which are all guaranteed to the lease, plus a <i>floating</i>
+ * fraction on top of them, which is shared by all leases. A lease may always take segments up to
+ * its guarantee. Beyond that, it may only take segments which are not needed to fulfill the
+ * guarantees of the other leases. This way, the network stack can temporarily use more buffers
+ * than configured, if the memory manager does not need the floating segments, and vice versa.
+ * With a floating fraction of 0, the pool holds exactly the configured memory.
+ */
+public class UnifiedMemoryPool {
+
+	private static final Logger LOG = LoggerFactory.getLogger(UnifiedMemoryPool.class);
+
+	/** The maximum size of the chunks of direct memory, which are sliced into segments */
+	private static final int MAX_CHUNK_SIZE = 128 * 1024 * 1024;
+
+	/** The lock guarding the free segments and the lease accounting */
+	private final Object lock = new Object();
+
+	/** The size of the memory segments */
+	private final int segmentSize;
+
+	/** The fraction of each lease's segments, which is added as floating segments on top of them */
+	private final double floatingFraction;
+
+	/** The segments, which are currently not leased */
+	private final ArrayDeque<ByteBuffer> freeSegments = new ArrayDeque<ByteBuffer>();
+
+	/** All leases of this pool */
+	private final List<Lease> leases = new ArrayList<Lease>();
+
+	/** The total number of segments of this pool */
+	private int totalNumberOfSegments;
+
+	/** The sum of all guaranteed segments, which are currently not leased */
+	private int numberOfUnclaimedGuaranteedSegments;
+
+	private boolean isDestroyed;
+
+	/**
+	 * Creates an empty pool, which grows as leases are created.
+	 *
+	 * @param segmentSize The size of the memory segments.
+	 * @param floatingFraction The fraction of each lease's segments, which is added to the pool in
+	 *                         addition to them and shared by all leases.
+	 */
+	public UnifiedMemoryPool(int segmentSize, double floatingFraction) {
+		checkArgument(segmentSize > 0, "The segment size must be positive.");
+		checkArgument(floatingFraction >= 0.0 && floatingFraction < 1.0,
+				"The floating fraction must be within [0, 1).");
+
+		this.segmentSize = segmentSize;
+		this.floatingFraction = floatingFraction;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Leases
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Allocates the given number of segments, plus the floating fraction of them, and creates a
+	 * lease for them.
+	 *
+	 * @param name The name of the lease, used in logs and metrics.
+	 * @param numberOfSegments The number of segments, which are guaranteed to this lease.
+	 * @return The lease, which is guaranteed all of the given segments.
+	 */
+	public Lease createLease(String name, int numberOfSegments) {
+		checkNotNull(name);
+		checkArgument(numberOfSegments > 0, "The number of segments must be positive.");
+
+		final int numberOfFloatingSegments = (int) (numberOfSegments * floatingFraction);
+
+		synchronized (lock) {
+			checkState(!isDestroyed, "Unified memory pool has already been destroyed.");
+
+			allocateSegments(numberOfSegments + numberOfFloatingSegments);
+
+			final Lease lease = new Lease(name, numberOfSegments);
+
+			totalNumberOfSegments += numberOfSegments + numberOfFloatingSegments;
+			numberOfUnclaimedGuaranteedSegments += numberOfSegments;
+			leases.add(lease);
+
+			LOG.info("Added {} MB to the unified memory pool for {} ({} segments guaranteed, {} floating).",
+					((long) (numberOfSegments + numberOfFloatingSegments) * segmentSize) >> 20,
+					name, numberOfSegments, numberOfFloatingSegments);
+
+			return lease;
+		}
+	}
+
+	// Must be called while holding the lock
+	private void allocateSegments(int numberOfSegments) {
+		final int segmentsPerChunk = Math.max(1, MAX_CHUNK_SIZE / segmentSize);
+
+		final int numberOfFreeSegments = freeSegments.size();
+
+		try {
+			int remaining = numberOfSegments;
+			while (remaining > 0) {
+				final int numberInChunk = Math.min(remaining, segmentsPerChunk);
+				final ByteBuffer chunk = ByteBuffer.allocateDirect(numberInChunk * segmentSize);
+
+				for (int i = 0; i < numberInChunk; i++) {
+					chunk.limit((i + 1) * segmentSize);
+					chunk.position(i * segmentSize);
+
+					freeSegments.add(chunk.slice());
+				}
+
+				remaining -= numberInChunk;
+			}
+		}
+		catch (OutOfMemoryError err) {
+			// drop the partially allocated segments
+			while (freeSegments.size() > numberOfFreeSegments) {
+				freeSegments.pollLast();
+			}
+
+			throw new OutOfMemoryError("Could not allocate " + (((long) numberOfSegments * segmentSize) >> 20)
+					+ " MB of direct memory for the unified memory pool. Cause: " + err.getMessage());
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Properties and metrics
+	// ------------------------------------------------------------------------
+
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	public int getTotalNumberOfSegments() {
+		synchronized (lock) {
+			return totalNumberOfSegments;
+		}
+	}
+
+	public int getNumberOfFreeSegments() {
+		synchronized (lock) {
+			return freeSegments.size();
+		}
+	}
+
+	public boolean isDestroyed() {
+		synchronized (lock) {
+			return isDestroyed;
+		}
+	}
+
+	/**
+	 * Registers gauges for the utilization of the pool and of each of its current leases.
+	 */
+	public void registerMetrics(MetricGroup metrics) {
+		metrics.gauge("TotalSegments", new Gauge<Integer>() {
+			@Override
+			public Integer getValue() {
+				return getTotalNumberOfSegments();
+			}
+		});
+		metrics.gauge("FreeSegments", new Gauge<Integer>() {
+			@Override
+			public Integer getValue() {
+				return getNumberOfFreeSegments();
+			}
+		});
+
+		synchronized (lock) {
+			for (final Lease lease : leases) {
+				final MetricGroup leaseMetrics = metrics.addGroup(lease.name);
+
+				leaseMetrics.gauge("GuaranteedSegments", new Gauge<Integer>() {
+					@Override
+					public Integer getValue() {
+						return lease.getNumberOfGuaranteedSegments();
+					}
+				});
+				leaseMetrics.gauge("LeasedSegments", new Gauge<Integer>() {
+					@Override
+					public Integer getValue() {
+						return lease.getNumberOfLeasedSegments();
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Releases all free segments. Segments, which are still leased, are released with their leases.
+	 */
+	public void destroy() {
+		synchronized (lock) {
+			isDestroyed = true;
+			freeSegments.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		synchronized (lock) {
+			return String.format("UnifiedMemoryPool [segment size: %d, total: %d, free: %d, leases: %s]",
+					segmentSize, totalNumberOfSegments, freeSegments.size(), leases);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * A consumer's share of the {@link UnifiedMemoryPool}. The segments are handed out as direct
+	 * {@link ByteBuffer}s of the pool's segment size, which are sliced from the pool's memory.
+	 */
+	public final class Lease {
+
+		private final String name;
+
+		private final int numberOfGuaranteedSegments;
+
+		private int numberOfLeasedSegments;
+
+		private Lease(String name, int numberOfGuaranteedSegments) {
+			this.name = name;
+			this.numberOfGuaranteedSegments = numberOfGuaranteedSegments;
+		}
+
+		/**
+		 * Takes a segment from the pool, if this lease may take one.
+		 *
+		 * @return A segment, or <code>null</code>, if the lease has taken all its guaranteed segments
+		 *         and the other leases' guarantees need the remaining free segments.
+		 */
+		public ByteBuffer requestSegment() {
+			synchronized (lock) {
+				if (isDestroyed) {
+					return null;
+				}
+
+				if (numberOfLeasedSegments < numberOfGuaranteedSegments) {
+					numberOfUnclaimedGuaranteedSegments--;
+				}
+				else if (freeSegments.size() <= numberOfUnclaimedGuaranteedSegments) {
+					return null;
+				}
+
+				numberOfLeasedSegments++;
+				return freeSegments.poll();
+			}
+		}
+
+		/**
+		 * Takes the given number of segments from the pool, if this lease may take all of them.
+		 * Either all or none of the segments are taken.
+		 *
+		 * @return The segments, or <code>null</code>, if the lease may not take that many segments.
+		 */
+		public List<ByteBuffer> requestSegments(int numberOfSegments) {
+			checkArgument(numberOfSegments >= 0, "The number of segments must not be negative.");
+
+			synchronized (lock) {
+				if (numberOfSegments > getNumberOfAvailableSegments()) {
+					return null;
+				}
+
+				final List<ByteBuffer> segments = new ArrayList<ByteBuffer>(numberOfSegments);
+				for (int i = 0; i < numberOfSegments; i++) {
+					segments.add(requestSegment());
+				}
+
+				return segments;
+			}
+		}
+
+		/**
+		 * Returns a segment, which has been taken via {@link #requestSegment()}, to the pool.
+		 */
+		public void recycleSegment(ByteBuffer segment) {
+			checkNotNull(segment);
+
+			synchronized (lock) {
+				checkState(numberOfLeasedSegments > 0, "Lease %s has no leased segments.", name);
+
+				numberOfLeasedSegments--;
+
+				if (numberOfLeasedSegments < numberOfGuaranteedSegments) {
+					numberOfUnclaimedGuaranteedSegments++;
+				}
+
+				if (!isDestroyed) {
+					freeSegments.add(segment);
+				}
+			}
+		}
+
+		/**
+		 * Gets the number of segments, which this lease can currently take: its unclaimed guaranteed
+		 * segments and the free segments, which are not guaranteed to any lease.
+		 */
+		public int getNumberOfAvailableSegments() {
+			synchronized (lock) {
+				if (isDestroyed) {
+					return 0;
+				}
+
+				return Math.max(0, numberOfGuaranteedSegments - numberOfLeasedSegments)
+						+ freeSegments.size() - numberOfUnclaimedGuaranteedSegments;
+			}
+		}
+
+		public int getNumberOfGuaranteedSegments() {
+			return numberOfGuaranteedSegments;
+		}
+
+		public int getNumberOfLeasedSegments() {
+			synchronized (lock) {
+				return numberOfLeasedSegments;
+			}
+		}
+
+		public int getSegmentSize() {
+			return segmentSize;
+		}
+
+		public UnifiedMemoryPool getPool() {
+			return UnifiedMemoryPool.this;
+		}
+
+		@Override
+		public String toString() {
+			synchronized (lock) {
+				return String.format("%s [guaranteed: %d, leased: %d]", name, numberOfGuaranteedSegments, numberOfLeasedSegments);
+			}
+		}
+	}
+}
@@ -356,6 +356,7 @@ public class DataSinkTask<IT> extends AbstractInvokable {
 		final AccumulatorRegistry.Reporter reporter = accumulatorRegistry.getReadWriteReporter();
 
 		inputReader.setReporter(reporter);
+		inputReader.setMetricGroup(getEnvironment().getMetricGroup().getIOMetricGroup());
 		
 		this.inputTypeSerializerFactory = this.config.getInputSerializer(0, getUserCodeClassLoader());
 		@SuppressWarnings({ "rawtypes" })
@@ -33,6 +33,7 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.hash.InPlaceMutableHashTable;
 import org.apache.flink.runtime.operators.sort.FixedLengthRecordSorter;
 import org.apache.flink.runtime.operators.sort.InMemorySorter;
 import org.apache.flink.runtime.operators.sort.NormalizedKeySorter;
@@ -45,6 +46,10 @@ import org.apache.flink.util.MutableObjectIterator;
  * Sorts and groups and reduces data, but never spills the sort. May produce multiple
  * partially aggregated groups.
  * 
+ * <p>With the {@link DriverStrategy#HASHED_PARTIAL_REDUCE} strategy, the records are instead
+ * reduced into an {@link InPlaceMutableHashTable}, which is emitted and cleared whenever its
+ * memory is full.
+ * 
  * @param <T> The data type consumed and produced by the combiner.
  */
 public class ReduceCombineDriver<T> implements Driver<ReduceFunction<T>, T> {
@@ -65,10 +70,16 @@ public class ReduceCombineDriver<T> implements Driver<ReduceFunction<T>, T> {
 	
 	private Collector<T> output;
 	
+	private DriverStrategy strategy;
+	
 	private InMemorySorter<T> sorter;
 	
 	private QuickSort sortAlgo = new QuickSort();
 
+	private InPlaceMutableHashTable<T> table;
+
+	private InPlaceMutableHashTable<T>.ReduceFacade reduceFacade;
+
 	private List<MemorySegment> memory;
 
 	private boolean running;
@@ -103,8 +114,9 @@ public class ReduceCombineDriver<T> implements Driver<ReduceFunction<T>, T> {
 
 	@Override
 	public void prepare() throws Exception {
-		if (this.taskContext.getTaskConfig().getDriverStrategy() != DriverStrategy.SORTED_PARTIAL_REDUCE) {
-			throw new Exception("Invalid strategy " + this.taskContext.getTaskConfig().getDriverStrategy() + " for reduce combiner.");
+		this.strategy = this.taskContext.getTaskConfig().getDriverStrategy();
+		if (this.strategy != DriverStrategy.SORTED_PARTIAL_REDUCE && this.strategy != DriverStrategy.HASHED_PARTIAL_REDUCE) {
+			throw new Exception("Invalid strategy " + this.strategy + " for reduce combiner.");
 		}
 
 		final Counter numRecordsOut = this.taskContext.getMetricGroup().counter("numRecordsOut");
@@ -121,8 +133,16 @@ public class ReduceCombineDriver<T> implements Driver<ReduceFunction<T>, T> {
 				this.taskContext.getTaskConfig().getRelativeMemoryDriver());
 		this.memory = memManager.allocatePages(this.taskContext.getOwningNepheleTask(), numMemoryPages);
 
+		ExecutionConfig executionConfig = taskContext.getExecutionConfig();
+		this.objectReuseEnabled = executionConfig.isObjectReuseEnabled();
+
+		if (this.strategy == DriverStrategy.HASHED_PARTIAL_REDUCE) {
+			this.table = new InPlaceMutableHashTable<T>(this.serializer, this.comparator, this.memory);
+			this.table.open();
+			this.reduceFacade = this.table.new ReduceFacade(this.reducer, this.output, this.objectReuseEnabled);
+		}
 		// instantiate a fix-length in-place sorter, if possible, otherwise the out-of-place sorter
-		if (this.comparator.supportsSerializationWithKeyNormalization() &&
+		else if (this.comparator.supportsSerializationWithKeyNormalization() &&
 			this.serializer.getLength() > 0 && this.serializer.getLength() <= THRESHOLD_FOR_IN_PLACE_SORTING)
 		{
 			this.sorter = new FixedLengthRecordSorter<T>(this.serializer, this.comparator, memory);
@@ -130,9 +150,6 @@ public class ReduceCombineDriver<T> implements Driver<ReduceFunction<T>, T> {
 			this.sorter = new NormalizedKeySorter<T>(this.serializer, this.comparator.duplicate(), memory);
 		}
 
-		ExecutionConfig executionConfig = taskContext.getExecutionConfig();
-		this.objectReuseEnabled = executionConfig.isObjectReuseEnabled();
-
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("ReduceCombineDriver object reuse: " + (this.objectReuseEnabled ? "ENABLED" : "DISABLED") + ".");
 		}
@@ -149,6 +166,30 @@ public class ReduceCombineDriver<T> implements Driver<ReduceFunction<T>, T> {
 		final MutableObjectIterator<T> in = this.taskContext.getInput(0);
 		final TypeSerializer<T> serializer = this.serializer;
 		
+		if (this.strategy == DriverStrategy.HASHED_PARTIAL_REDUCE) {
+			final InPlaceMutableHashTable<T>.ReduceFacade reduceFacade = this.reduceFacade;
+			
+			if (objectReuseEnabled) {
+				T value = serializer.createInstance();
+				
+				while (running && (value = in.next(value)) != null) {
+					numRecordsIn.inc();
+					reduceFacade.updateTableEntryWithReduce(value);
+				}
+			}
+			else {
+				T value;
+				while (running && (value = in.next()) != null) {
+					numRecordsIn.inc();
+					reduceFacade.updateTableEntryWithReduce(value);
+				}
+			}
+			
+			// send the final batch
+			reduceFacade.emit();
+			return;
+		}
+		
 		if (objectReuseEnabled) {
 			T value = serializer.createInstance();
 		
@@ -277,7 +318,12 @@ public class ReduceCombineDriver<T> implements Driver<ReduceFunction<T>, T> {
 
 	@Override
 	public void cleanup() {
-		this.sorter.dispose();
+		if (this.sorter != null) {
+			this.sorter.dispose();
+		}
+		if (this.table != null) {
+			this.table.close();
+		}
 		this.taskContext.getMemoryManager().release(this.memory);
 	}
 
@@ -286,7 +332,13 @@ public class ReduceCombineDriver<T> implements Driver<ReduceFunction<T>, T> {
 		this.running = false;
 		
 		try {
-			this.sorter.dispose();
+			if (this.sorter != null) {
+				this.sorter.dispose();
+			}
+			if (this.table != null) {
+				this.table.abort();
+				this.table.close();
+			}
 		}
 		catch (Exception e) {
 			// may happen during concurrent modifications
@@ -0,0 +1,869 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.hash;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.SameTypePairComparator;
+import org.apache.flink.api.common.typeutils.TypePairComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.memory.AbstractPagedInputView;
+import org.apache.flink.runtime.util.DataOutputSerializer;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.MutableObjectIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hash table that uses Flink's managed memory and supports in-place updates of records.
+ * It is intended for aggregations with few distinct keys, where every incoming record is merged
+ * into the entry that is already stored for its key.
+ *
+ * <p>The table consists of two parts: The bucket area and the record area. The bucket area is an
+ * array of 8 byte pointers, each pointing to the first entry of a linked list of records. The record
+ * area is an append-only sequence of entries, each made of an 8 byte pointer to the next entry in the
+ * same bucket, followed by the serialized record. As in the {@link CompactingHashTable}, all memory
+ * segments must have the same power-of-two size, so that a pointer is simply the segment index
+ * shifted by the page size, plus the offset within the segment.</p>
+ *
+ * <p>Records whose serialized length does not change are updated in place. Records that change their
+ * length are appended to the record area and re-linked, which leaves the old copy as garbage. The table
+ * does not compact that garbage: Once the record area has no more free memory, the modifying methods throw
+ * an {@link EOFException}. Users such as the {@link ReduceFacade} are expected to emit the contents and
+ * {@link #reset()} the table at that point.</p>
+ *
+ * @param <T> Record type stored in hash table
+ */
+public class InPlaceMutableHashTable<T> extends AbstractMutableHashTable<T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(InPlaceMutableHashTable.class);
+
+	// ------------------------------------------------------------------------
+	//                         Internal Constants
+	// ------------------------------------------------------------------------
+
+	/** The minimum number of memory segments: one for the buckets and one for the records */
+	private static final int MIN_NUM_MEMORY_SEGMENTS = 2;
+
+	/**
+	 * The default record width that is used when no width is given. The record width is
+	 * used to determine the ratio between the number of buckets and the memory for the records.
+	 */
+	private static final int DEFAULT_RECORD_LEN = 24;
+
+	/** The length of a pointer, both in the buckets and in front of each record, in bytes. */
+	private static final int POINTER_LEN = 8;
+
+	/** The number of bits of the offset of a bucket pointer within its segment that stem from the pointer length. */
+	private static final int POINTER_LEN_BITS = 3;
+
+	/** Marks the end of a bucket's linked list of entries. */
+	private static final long END_OF_LIST = -1L;
+
+	// ------------------------------------------------------------------------
+	//                              Members
+	// ------------------------------------------------------------------------
+
+	/** The lock to synchronize state changes on */
+	private final Object stateLock = new Object();
+
+	/** The memory segments that are currently not used by the buckets or the record area. */
+	private final ArrayList<MemorySegment> freeMemory;
+
+	/** The total number of memory segments given to this table. */
+	private final int numAllMemorySegments;
+
+	/** The size of the memory segments. All segments must be of the same power-of-two size. */
+	private final int segmentSize;
+
+	/** log2 of the segment size, used to translate pointers into segment indexes. */
+	private final int segmentSizeBits;
+
+	/** Mask to translate pointers into offsets within a segment. */
+	private final int segmentSizeMask;
+
+	/** An estimate for the average record length. */
+	private final int avgRecordLen;
+
+	/** The segments that hold the records, in the order in which they were taken. */
+	private final ArrayList<MemorySegment> recordSegments;
+
+	/** View to deserialize records from the record area. */
+	private final RecordAreaInputView recordInView;
+
+	/** Buffer into which records are serialized before they are copied into the record area. */
+	private final DataOutputSerializer stagingArea;
+
+	/** Instance used to deserialize records during lookups that do not hand out the record. */
+	private T reuse;
+
+	// ------------------------------------------------------------------------
+
+	/** The segments that hold the bucket pointers. */
+	private MemorySegment[] bucketSegments;
+
+	/** The number of buckets, always a power of two. */
+	private int numBuckets;
+
+	/** log2 of the number of buckets in one segment. */
+	private int bucketsPerSegmentBits;
+
+	/** Mask to determine the position of a bucket within its segment. */
+	private int bucketsPerSegmentMask;
+
+	/** The position in the record area at which the next entry is appended. */
+	private long appendPosition;
+
+	/** The number of bytes in the record area that belong to outdated copies of records. */
+	private long numGarbageBytes;
+
+	/** The number of distinct records currently in the table. */
+	private long numElements;
+
+	/** Flag to interrupt closed loops */
+	private boolean running = true;
+
+	/** Flag to mark the table as open / closed */
+	private boolean closed;
+
+	// ------------------------------------------------------------------------
+	//                         Construction and Teardown
+	// ------------------------------------------------------------------------
+
+	public InPlaceMutableHashTable(TypeSerializer<T> buildSideSerializer,
+									TypeComparator<T> buildSideComparator,
+									List<MemorySegment> memorySegments) {
+		this(buildSideSerializer, buildSideComparator, memorySegments, DEFAULT_RECORD_LEN);
+	}
+
+	public InPlaceMutableHashTable(TypeSerializer<T> buildSideSerializer,
+									TypeComparator<T> buildSideComparator,
+									List<MemorySegment> memorySegments,
+									int avgRecordLen) {
+
+		super(buildSideSerializer, buildSideComparator);
+
+		// some sanity checks first
+		if (memorySegments == null) {
+			throw new NullPointerException();
+		}
+		if (memorySegments.size() < MIN_NUM_MEMORY_SEGMENTS) {
+			throw new IllegalArgumentException("Too few memory segments provided. Hash Table needs at least " +
+				MIN_NUM_MEMORY_SEGMENTS + " memory segments.");
+		}
+
+		this.freeMemory = new ArrayList<MemorySegment>(memorySegments);
+		this.numAllMemorySegments = memorySegments.size();
+
+		this.avgRecordLen = buildSideSerializer.getLength() > 0 ? buildSideSerializer.getLength() : avgRecordLen;
+
+		// check the size of the first buffer and record it. all further buffers must have the same size.
+		// the size must also be a power of 2
+		this.segmentSize = memorySegments.get(0).size();
+		if ((this.segmentSize & this.segmentSize - 1) != 0) {
+			throw new IllegalArgumentException("Hash Table requires buffers whose size is a power of 2.");
+		}
+		if (this.segmentSize < 2 * POINTER_LEN) {
+			throw new IllegalArgumentException("Hash Table requires buffers of at least " + (2 * POINTER_LEN) + " bytes.");
+		}
+
+		this.segmentSizeBits = MathUtils.log2strict(this.segmentSize);
+		this.segmentSizeMask = this.segmentSize - 1;
+
+		this.recordSegments = new ArrayList<MemorySegment>(memorySegments.size());
+		this.recordInView = new RecordAreaInputView();
+		this.stagingArea = new DataOutputSerializer(Math.max(this.avgRecordLen, 16));
+
+		// because we allow to open and close multiple times, the state is initially closed
+		this.closed = true;
+	}
+
+	// ------------------------------------------------------------------------
+	//  life cycle
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Initialize the hash table
+	 */
+	@Override
+	public void open() {
+		synchronized (stateLock) {
+			if (!closed) {
+				throw new IllegalStateException("currently not closed.");
+			}
+			closed = false;
+		}
+
+		this.running = true;
+		this.reuse = this.buildSideSerializer.createInstance();
+		initBucketsAndRecordArea();
+	}
+
+	/**
+	 * Closes the hash table and returns all memory segments to the free list. The call to this method
+	 * is valid both as a cleanup after the complete input was processed, and as a cancellation call.
+	 */
+	@Override
+	public void close() {
+		// make sure that we close only once
+		synchronized (this.stateLock) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+		}
+
+		LOG.debug("Closing InPlaceMutableHashTable and releasing resources.");
+
+		releaseBucketsAndRecordArea();
+	}
+
+	@Override
+	public void abort() {
+		this.running = false;
+		LOG.debug("Cancelling InPlaceMutableHashTable operations.");
+	}
+
+	@Override
+	public List<MemorySegment> getFreeMemory() {
+		if (!this.closed) {
+			throw new IllegalStateException("Cannot return memory while InPlaceMutableHashTable is open.");
+		}
+
+		return this.freeMemory;
+	}
+
+	/**
+	 * Removes all records from the table, but keeps it open. All memory of the record area is returned
+	 * to the free list and all buckets are emptied.
+	 */
+	public void reset() {
+		if (this.closed) {
+			throw new IllegalStateException("Cannot reset a closed InPlaceMutableHashTable.");
+		}
+
+		releaseBucketsAndRecordArea();
+		initBucketsAndRecordArea();
+	}
+
+	/**
+	 * Gets the number of distinct records that are currently stored in the table.
+	 *
+	 * @return The number of records in the table.
+	 */
+	public long getNumElements() {
+		return this.numElements;
+	}
+
+	/**
+	 * Gets the number of bytes in the record area that are occupied by outdated copies of records,
+	 * which were left behind when an update changed the serialized length of a record.
+	 *
+	 * @return The number of bytes occupied by outdated records.
+	 */
+	public long getNumGarbageBytes() {
+		return this.numGarbageBytes;
+	}
+
+	private void initBucketsAndRecordArea() {
+		// size the bucket area such that every record expected to fit into memory gets its own bucket
+		final long bytesPerRecord = POINTER_LEN + POINTER_LEN + this.avgRecordLen;
+		final long estimatedNumRecords = ((long) this.freeMemory.size()) * this.segmentSize / bytesPerRecord;
+
+		final int bucketsPerSegment = this.segmentSize >> POINTER_LEN_BITS;
+		int numBuckets = MathUtils.roundDownToPowerOf2((int) Math.max(1, Math.min(estimatedNumRecords, 1 << 30)));
+		int numBucketSegments = Math.max(1, numBuckets / bucketsPerSegment);
+
+		// always leave at least one segment for the records
+		while (numBucketSegments >= this.freeMemory.size()) {
+			numBuckets >>>= 1;
+			numBucketSegments = Math.max(1, numBuckets / bucketsPerSegment);
+		}
+
+		this.numBuckets = numBuckets;
+		this.bucketsPerSegmentBits = MathUtils.log2strict(bucketsPerSegment);
+		this.bucketsPerSegmentMask = bucketsPerSegment - 1;
+
+		this.bucketSegments = new MemorySegment[numBucketSegments];
+		for (int i = 0; i < numBucketSegments; i++) {
+			final MemorySegment seg = this.freeMemory.remove(this.freeMemory.size() - 1);
+			for (int offset = 0; offset < this.segmentSize; offset += POINTER_LEN) {
+				seg.putLong(offset, END_OF_LIST);
+			}
+			this.bucketSegments[i] = seg;
+		}
+
+		this.appendPosition = 0;
+		this.numGarbageBytes = 0;
+		this.numElements = 0;
+	}
+
+	private void releaseBucketsAndRecordArea() {
+		if (this.bucketSegments != null) {
+			for (MemorySegment seg : this.bucketSegments) {
+				this.freeMemory.add(seg);
+			}
+			this.bucketSegments = null;
+		}
+
+		this.freeMemory.addAll(this.recordSegments);
+		this.recordSegments.clear();
+
+		if (this.freeMemory.size() != this.numAllMemorySegments) {
+			throw new RuntimeException("Bug in InPlaceMutableHashTable: Lost memory segments.");
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  adding data to the hash table
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Inserts the given record into the hash table. This method does not check whether a record with
+	 * the same key is already contained in the table.
+	 *
+	 * @param record The record to insert.
+	 * @throws EOFException Thrown, if the record area has no more free memory.
+	 * @throws IOException Thrown, if the record could not be serialized.
+	 */
+	@Override
+	public void insert(T record) throws IOException {
+		if (this.closed) {
+			return;
+		}
+
+		final int bucket = bucketFor(this.buildSideComparator.hash(record));
+		stage(record);
+
+		final long newEntry = appendEntry(getBucketHead(bucket));
+		setBucketHead(bucket, newEntry);
+		this.numElements++;
+	}
+
+	/**
+	 * Searches the hash table for a record with the given key. If one is found, it is replaced,
+	 * otherwise the record is inserted.
+	 *
+	 * @param record The record to insert or to replace with.
+	 * @throws EOFException Thrown, if the record area has no more free memory.
+	 * @throws IOException Thrown, if the record could not be serialized or deserialized.
+	 */
+	@Override
+	public void insertOrReplaceRecord(T record) throws IOException {
+		if (this.closed) {
+			return;
+		}
+
+		final int bucket = bucketFor(this.buildSideComparator.hash(record));
+		this.buildSideComparator.setReference(record);
+
+		long prevEntry = END_OF_LIST;
+		long curEntry = getBucketHead(bucket);
+
+		while (curEntry != END_OF_LIST) {
+			this.recordInView.seekToEntry(curEntry);
+			this.reuse = this.buildSideSerializer.deserialize(this.reuse, this.recordInView);
+
+			if (this.buildSideComparator.equalToReference(this.reuse)) {
+				replaceEntry(bucket, prevEntry, curEntry, this.recordInView.getReadPosition(), record);
+				return;
+			}
+
+			prevEntry = curEntry;
+			curEntry = getNextPointer(curEntry);
+		}
+
+		// no entry with the same key, insert as the new head of the bucket
+		stage(record);
+		final long newEntry = appendEntry(getBucketHead(bucket));
+		setBucketHead(bucket, newEntry);
+		this.numElements++;
+	}
+
+	/**
+	 * Replaces the record of the given entry. The record is overwritten in place, if its serialized length
+	 * did not change. Otherwise a new entry is appended and linked into the bucket instead of the old one.
+	 */
+	private void replaceEntry(int bucket, long prevEntry, long entry, long entryEnd, T record) throws IOException {
+		stage(record);
+
+		final long oldLength = entryEnd - (entry + POINTER_LEN);
+		final int newLength = this.stagingArea.length();
+
+		if (newLength == oldLength) {
+			writeStagedRecord(entry + POINTER_LEN);
+		}
+		else {
+			final long newEntry = appendEntry(getNextPointer(entry));
+			if (prevEntry == END_OF_LIST) {
+				setBucketHead(bucket, newEntry);
+			} else {
+				setNextPointer(prevEntry, newEntry);
+			}
+			this.numGarbageBytes += POINTER_LEN + oldLength;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Access to the entries
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns an iterator over all records in the table. The records are returned bucket by bucket,
+	 * outdated copies of records are skipped.
+	 *
+	 * @return An iterator over the records in the table.
+	 */
+	@Override
+	public EntryIterator getEntryIterator() {
+		return new EntryIterator();
+	}
+
+	@Override
+	public <PT> HashTableProber<PT> getProber(TypeComparator<PT> probeSideComparator, TypePairComparator<PT, T> pairComparator) {
+		return new HashTableProber<PT>(probeSideComparator, pairComparator);
+	}
+
+	// ------------------------------------------------------------------------
+	//  Buckets and record area
+	// ------------------------------------------------------------------------
+
+	private int bucketFor(int hashCode) {
+		return MathUtils.jenkinsHash(hashCode) & (this.numBuckets - 1);
+	}
+
+	private long getBucketHead(int bucket) {
+		final MemorySegment seg = this.bucketSegments[bucket >>> this.bucketsPerSegmentBits];
+		return seg.getLong((bucket & this.bucketsPerSegmentMask) << POINTER_LEN_BITS);
+	}
+
+	private void setBucketHead(int bucket, long entry) {
+		final MemorySegment seg = this.bucketSegments[bucket >>> this.bucketsPerSegmentBits];
+		seg.putLong((bucket & this.bucketsPerSegmentMask) << POINTER_LEN_BITS, entry);
+	}
+
+	private long getNextPointer(long entry) {
+		final MemorySegment seg = this.recordSegments.get((int) (entry >>> this.segmentSizeBits));
+		return seg.getLong((int) (entry & this.segmentSizeMask));
+	}
+
+	private void setNextPointer(long entry, long next) {
+		final MemorySegment seg = this.recordSegments.get((int) (entry >>> this.segmentSizeBits));
+		seg.putLong((int) (entry & this.segmentSizeMask), next);
+	}
+
+	private void stage(T record) throws IOException {
+		this.stagingArea.clear();
+		this.buildSideSerializer.serialize(record, this.stagingArea);
+	}
+
+	/**
+	 * Appends the staged record as a new entry to the record area.
+	 *
+	 * @param nextEntry The pointer to the next entry in the bucket.
+	 * @return The pointer to the new entry.
+	 * @throws EOFException Thrown, if the record area has no more free memory.
+	 */
+	private long appendEntry(long nextEntry) throws EOFException {
+		long entry = this.appendPosition;
+
+		// the pointer in front of the record must never straddle two segments
+		if (this.segmentSize - (int) (entry & this.segmentSizeMask) < POINTER_LEN) {
+			entry = ((entry >>> this.segmentSizeBits) + 1) << this.segmentSizeBits;
+		}
+
+		final long end = entry + POINTER_LEN + this.stagingArea.length();
+		while (((long) this.recordSegments.size()) << this.segmentSizeBits < end) {
+			if (this.freeMemory.isEmpty()) {
+				throw new EOFException("The record area of the InPlaceMutableHashTable is full.");
+			}
+			this.recordSegments.add(this.freeMemory.remove(this.freeMemory.size() - 1));
+		}
+
+		setNextPointer(entry, nextEntry);
+		writeStagedRecord(entry + POINTER_LEN);
+
+		this.appendPosition = end;
+		return entry;
+	}
+
+	/**
+	 * Copies the staged record into the record area, starting at the given position.
+	 */
+	private void writeStagedRecord(long position) {
+		final byte[] bytes = this.stagingArea.getByteArray();
+		final int length = this.stagingArea.length();
+
+		int segIndex = (int) (position >>> this.segmentSizeBits);
+		int offset = (int) (position & this.segmentSizeMask);
+		int written = 0;
+
+		while (written < length) {
+			final int toWrite = Math.min(length - written, this.segmentSize - offset);
+			this.recordSegments.get(segIndex).put(offset, bytes, written, toWrite);
+			written += toWrite;
+			segIndex++;
+			offset = 0;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Input view over the segments of the record area.
+	 */
+	private final class RecordAreaInputView extends AbstractPagedInputView {
+
+		private int currentSegmentIndex;
+
+		private RecordAreaInputView() {
+			super(0);
+		}
+
+		/**
+		 * Positions the view at the record of the given entry.
+		 */
+		void seekToEntry(long entry) {
+			final long position = entry + POINTER_LEN;
+			this.currentSegmentIndex = (int) (position >>> segmentSizeBits);
+			seekInput(recordSegments.get(this.currentSegmentIndex), (int) (position & segmentSizeMask), segmentSize);
+		}
+
+		/**
+		 * Gets the current read position as a pointer into the record area.
+		 */
+		long getReadPosition() {
+			return (((long) this.currentSegmentIndex) << segmentSizeBits) + getCurrentPositionInSegment();
+		}
+
+		@Override
+		protected MemorySegment nextSegment(MemorySegment current) throws EOFException {
+			if (++this.currentSegmentIndex < recordSegments.size()) {
+				return recordSegments.get(this.currentSegmentIndex);
+			} else {
+				throw new EOFException();
+			}
+		}
+
+		@Override
+		protected int getLimitForSegment(MemorySegment segment) {
+			return segmentSize;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Iterator over all records in the table, bucket by bucket.
+	 */
+	public final class EntryIterator implements MutableObjectIterator<T> {
+
+		private int currentBucket = -1;
+
+		private long nextEntry = END_OF_LIST;
+
+		private EntryIterator() {}
+
+		@Override
+		public T next(T target) throws IOException {
+			if (!advance()) {
+				return null;
+			}
+			return buildSideSerializer.deserialize(target, recordInView);
+		}
+
+		@Override
+		public T next() throws IOException {
+			if (!advance()) {
+				return null;
+			}
+			return buildSideSerializer.deserialize(recordInView);
+		}
+
+		/**
+		 * Moves the input view to the next entry, if there is one.
+		 */
+		private boolean advance() {
+			if (closed) {
+				return false;
+			}
+
+			while (this.nextEntry == END_OF_LIST) {
+				if (!running || ++this.currentBucket >= numBuckets) {
+					return false;
+				}
+				this.nextEntry = getBucketHead(this.currentBucket);
+			}
+
+			recordInView.seekToEntry(this.nextEntry);
+			this.nextEntry = getNextPointer(this.nextEntry);
+			return true;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Prober that looks up records by key and allows to update the found record.
+	 *
+	 * @param <PT> The type of the probe side records.
+	 */
+	public final class HashTableProber<PT> extends AbstractHashTableProber<PT, T> {
+
+		private int curBucket;
+
+		private long prevEntry = END_OF_LIST;
+
+		private long curEntry = END_OF_LIST;
+
+		private long curEntryEnd;
+
+		private HashTableProber(TypeComparator<PT> probeTypeComparator, TypePairComparator<PT, T> pairComparator) {
+			super(probeTypeComparator, pairComparator);
+		}
+
+		/**
+		 * Searches the table for a record with the same key as the given probe side record.
+		 * The record is deserialized into the given reuse object.
+		 *
+		 * @param probeSideRecord The record to find a match for.
+		 * @param reuse The object to deserialize the match into.
+		 * @return The matching record, or null, if there is none.
+		 */
+		@Override
+		public T getMatchFor(PT probeSideRecord, T reuse) {
+			return lookup(probeSideRecord, reuse, true);
+		}
+
+		/**
+		 * Searches the table for a record with the same key as the given probe side record.
+		 * The match is deserialized into a new object.
+		 *
+		 * @param probeSideRecord The record to find a match for.
+		 * @return The matching record, or null, if there is none.
+		 */
+		public T getMatchFor(PT probeSideRecord) {
+			return lookup(probeSideRecord, null, false);
+		}
+
+		private T lookup(PT probeSideRecord, T reuse, boolean reuseObject) {
+			if (closed) {
+				return null;
+			}
+
+			this.curBucket = bucketFor(this.probeTypeComparator.hash(probeSideRecord));
+			this.pairComparator.setReference(probeSideRecord);
+
+			long prev = END_OF_LIST;
+			long cur = getBucketHead(this.curBucket);
+
+			try {
+				while (cur != END_OF_LIST) {
+					recordInView.seekToEntry(cur);
+					final T candidate = reuseObject ?
+						buildSideSerializer.deserialize(reuse, recordInView) :
+						buildSideSerializer.deserialize(recordInView);
+
+					if (this.pairComparator.equalToReference(candidate)) {
+						this.prevEntry = prev;
+						this.curEntry = cur;
+						this.curEntryEnd = recordInView.getReadPosition();
+						return candidate;
+					}
+
+					prev = cur;
+					cur = getNextPointer(cur);
+				}
+			}
+			catch (IOException e) {
+				throw new RuntimeException("Error deserializing record from the hashtable: " + e.getMessage(), e);
+			}
+
+			this.curEntry = END_OF_LIST;
+			return null;
+		}
+
+		/**
+		 * Replaces the record that was last found by {@link #getMatchFor(Object, Object)} with the given record.
+		 * The key of the given record must be the same as the key of the replaced record.
+		 *
+		 * @param record The updated record.
+		 * @throws EOFException Thrown, if the record area has no more free memory.
+		 * @throws IOException Thrown, if the record could not be serialized.
+		 */
+		@Override
+		public void updateMatch(T record) throws IOException {
+			if (closed) {
+				return;
+			}
+			if (this.curEntry == END_OF_LIST) {
+				throw new IllegalStateException("updateMatch was called without a preceding successful getMatchFor.");
+			}
+
+			replaceEntry(this.curBucket, this.prevEntry, this.curEntry, this.curEntryEnd, record);
+
+			// the entry may have been moved, so a further update needs a new lookup
+			this.curEntry = END_OF_LIST;
+		}
+
+		/**
+		 * Removes the record that was last found by {@link #getMatchFor(Object, Object)} from the table.
+		 * This is also possible after a failed {@link #updateMatch(Object)}, which leaves the found
+		 * record unchanged.
+		 */
+		void removeMatch() {
+			if (closed) {
+				return;
+			}
+			if (this.curEntry == END_OF_LIST) {
+				throw new IllegalStateException("removeMatch was called without a preceding successful getMatchFor.");
+			}
+
+			final long nextEntry = getNextPointer(this.curEntry);
+			if (this.prevEntry == END_OF_LIST) {
+				setBucketHead(this.curBucket, nextEntry);
+			} else {
+				setNextPointer(this.prevEntry, nextEntry);
+			}
+
+			numGarbageBytes += this.curEntryEnd - this.curEntry;
+			numElements--;
+
+			this.curEntry = END_OF_LIST;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * A facade for doing partial reductions (as in a combiner) with the hash table. Records are merged
+	 * with the stored record of the same key, using the given {@link ReduceFunction}. When the table runs
+	 * out of memory, its contents are emitted and the table is cleared.
+	 */
+	public final class ReduceFacade {
+
+		private final HashTableProber<T> prober;
+
+		private final ReduceFunction<T> reducer;
+
+		private final Collector<T> outputCollector;
+
+		private final boolean objectReuseEnabled;
+
+		private T matchReuse;
+
+		public ReduceFacade(ReduceFunction<T> reducer, Collector<T> outputCollector, boolean objectReuseEnabled) {
+			this.reducer = reducer;
+			this.outputCollector = outputCollector;
+			this.objectReuseEnabled = objectReuseEnabled;
+			this.prober = getProber(buildSideComparator.duplicate(), new SameTypePairComparator<T>(buildSideComparator.duplicate()));
+			this.matchReuse = buildSideSerializer.createInstance();
+		}
+
+		/**
+		 * Looks up the stored record with the same key as the given record and replaces it with the result
+		 * of reducing both. If there is no record with that key, the given record is inserted.
+		 * If the table runs out of memory, its contents are emitted and the table is cleared.
+		 *
+		 * <p>The reduce function may modify its arguments, so a record is never reduced twice. If the table
+		 * runs out of memory while storing the reduced record, the stale record with the same key is removed
+		 * before the contents are emitted, and the reduced record is inserted into the empty table.
+		 *
+		 * @param record The record to merge into the table.
+		 * @throws Exception Thrown, if the reduce function fails or the record does not fit into the empty table.
+		 */
+		public void updateTableEntryWithReduce(T record) throws Exception {
+			final T match = this.objectReuseEnabled ?
+				this.prober.getMatchFor(record, this.matchReuse) :
+				this.prober.getMatchFor(record);
+
+			if (match == null) {
+				try {
+					insert(record);
+				}
+				catch (EOFException e) {
+					emitAndReset();
+					insertIntoEmptyTable(record);
+				}
+			} else {
+				// the reduce function may return one of its arguments, which is fine,
+				// because the result is serialized into the table right away
+				final T reduced = this.reducer.reduce(match, record);
+
+				try {
+					this.prober.updateMatch(reduced);
+				}
+				catch (EOFException e) {
+					// the reduced record includes the stale one, which must not be emitted as well
+					this.prober.removeMatch();
+					emitAndReset();
+					insertIntoEmptyTable(reduced);
+				}
+			}
+		}
+
+		private void insertIntoEmptyTable(T record) throws IOException {
+			try {
+				insert(record);
+			}
+			catch (EOFException ex) {
+				throw new IOException("Cannot write record to empty hash table. Record too large.", ex);
+			}
+		}
+
+		/**
+		 * Emits all records of the table to the output collector.
+		 *
+		 * @throws IOException Thrown, if the records could not be deserialized.
+		 */
+		public void emit() throws IOException {
+			final EntryIterator iterator = getEntryIterator();
+			final Collector<T> out = this.outputCollector;
+
+			if (this.objectReuseEnabled) {
+				T record = buildSideSerializer.createInstance();
+				while (running && (record = iterator.next(record)) != null) {
+					out.collect(record);
+				}
+			} else {
+				T record;
+				while (running && (record = iterator.next()) != null) {
+					out.collect(record);
+				}
+			}
+		}
+
+		/**
+		 * Emits all records of the table to the output collector and clears the table afterwards.
+		 *
+		 * @throws IOException Thrown, if the records could not be deserialized.
+		 */
+		public void emitAndReset() throws IOException {
+			emit();
+			reset();
+		}
+	}
+}
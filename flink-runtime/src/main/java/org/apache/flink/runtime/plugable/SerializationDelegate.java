@@ -50,6 +50,13 @@ public class SerializationDelegate<T> implements IOReadableWritable {
 	public T getInstance() {
 		return this.instance;
 	}
+
+	/**
+	 * Returns a deep copy of the current instance, created with the type serializer.
+	 */
+	public T copyInstance() {
+		return this.serializer.copy(this.instance);
+	}
 	
 	@Override
 	public void write(DataOutputView out) throws IOException {
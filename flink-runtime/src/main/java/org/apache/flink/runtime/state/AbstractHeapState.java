@@ -23,14 +23,14 @@ import org.apache.flink.api.common.state.State;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
 /**
- * Base class for partitioned {@link ListState} implementations that are backed by a regular
- * heap hash map. The concrete implementations define how the state is checkpointed.
+ * Base class for partitioned {@link ListState} implementations that are backed by a
+ * {@link CopyOnWriteStateTable} on the heap. The concrete implementations define how the state
+ * is checkpointed.
  * 
  * @param <K> The type of the key.
  * @param <N> The type of the namespace.
@@ -42,8 +42,8 @@ import static java.util.Objects.requireNonNull;
 public abstract class AbstractHeapState<K, N, SV, S extends State, SD extends StateDescriptor<S, ?>, Backend extends AbstractStateBackend>
 		implements KvState<K, N, S, SD, Backend>, State {
 
-	/** Map containing the actual key/value pairs */
-	protected final HashMap<N, Map<K, SV>> state;
+	/** Table containing the actual key/value pairs of all namespaces */
+	protected final CopyOnWriteStateTable<K, N, SV> state;
 
 	/** Serializer for the state value. The state value could be a List<V>, for example. */
 	protected final TypeSerializer<SV> stateSerializer;
@@ -63,9 +63,6 @@ public abstract class AbstractHeapState<K, N, SV, S extends State, SD extends St
 	/** The current namespace, which the access methods will refer to. */
 	protected N currentNamespace = null;
 
-	/** Cache the state map for the current key. */
-	protected Map<K, SV> currentNSState;
-
 	/**
 	 * Creates a new empty key/value state.
 	 *
@@ -78,7 +75,11 @@ public abstract class AbstractHeapState<K, N, SV, S extends State, SD extends St
 		TypeSerializer<N> namespaceSerializer,
 		TypeSerializer<SV> stateSerializer,
 		SD stateDesc) {
-		this(keySerializer, namespaceSerializer, stateSerializer, stateDesc, new HashMap<N, Map<K, SV>>());
+		this.state = new CopyOnWriteStateTable<>(stateSerializer);
+		this.keySerializer = requireNonNull(keySerializer);
+		this.namespaceSerializer = requireNonNull(namespaceSerializer);
+		this.stateSerializer = stateSerializer;
+		this.stateDesc = stateDesc;
 	}
 
 	/**
@@ -87,14 +88,14 @@ public abstract class AbstractHeapState<K, N, SV, S extends State, SD extends St
 	 * @param keySerializer The serializer for the keys.
 	 * @param stateDesc The state identifier for the state. This contains name
 	 *                           and can create a default state value.
-	 * @param state The state map to use in this kev/value state. May contain initial state.
+	 * @param state The key/value pairs per namespace to initialize this kev/value state with.
 	 */
 	protected AbstractHeapState(TypeSerializer<K> keySerializer,
 		TypeSerializer<N> namespaceSerializer,
 		TypeSerializer<SV> stateSerializer,
 		SD stateDesc,
-		HashMap<N, Map<K, SV>> state) {
-		this.state = requireNonNull(state);
+		Map<N, ? extends Map<K, SV>> state) {
+		this.state = new CopyOnWriteStateTable<>(stateSerializer, requireNonNull(state));
 		this.keySerializer = requireNonNull(keySerializer);
 		this.namespaceSerializer = requireNonNull(namespaceSerializer);
 		this.stateSerializer = stateSerializer;
@@ -105,13 +106,7 @@ public abstract class AbstractHeapState<K, N, SV, S extends State, SD extends St
 
 	@Override
 	public final void clear() {
-		if (currentNSState != null) {
-			currentNSState.remove(currentKey);
-			if (currentNSState.isEmpty()) {
-				state.remove(currentNamespace);
-				currentNSState = null;
-			}
-		}
+		state.remove(currentKey, currentNamespace);
 	}
 
 	@Override
@@ -121,22 +116,14 @@ public abstract class AbstractHeapState<K, N, SV, S extends State, SD extends St
 
 	@Override
 	public final void setCurrentNamespace(N namespace) {
-		if (namespace != null && namespace.equals(this.currentNamespace)) {
-			return;
-		}
 		this.currentNamespace = namespace;
-		this.currentNSState = state.get(currentNamespace);
 	}
 
 	/**
 	 * Returns the number of all state pairs in this state, across namespaces.
 	 */
 	protected final int size() {
-		int size = 0;
-		for (Map<K, SV> namespace: state.values()) {
-			size += namespace.size();
-		}
-		return size;
+		return state.size();
 	}
 
 	@Override
@@ -144,6 +131,35 @@ public abstract class AbstractHeapState<K, N, SV, S extends State, SD extends St
 		state.clear();
 	}
 
+	/**
+	 * Draws a snapshot of this state that is split into one snapshot per key group. Only key
+	 * groups which contain state are part of the result.
+	 *
+	 * @param checkpointId The ID of the checkpoint for which the snapshot should be created.
+	 * @param timestamp The timestamp of the checkpoint.
+	 * @param keyGroupRange The range of key groups that all keys of this state belong to.
+	 * @param numberOfKeyGroups The total number of key groups.
+	 * @return The snapshots of the key groups, indexed by key group.
+	 *
+	 * @throws Exception Exceptions during snapshotting the state should be forwarded, so the system
+	 *                   can react to failed snapshots.
+	 */
+	public abstract Map<Integer, KvStateSnapshot<K, N, S, SD, Backend>> snapshotKeyGroups(
+			long checkpointId,
+			long timestamp,
+			KeyGroupRange keyGroupRange,
+			int numberOfKeyGroups) throws Exception;
+
+	/**
+	 * Adds all state of the given key/value state to this state, for example when the state of
+	 * several key groups is restored into one state.
+	 *
+	 * @param other The state to add, must not be used afterwards.
+	 */
+	public final void putAll(AbstractHeapState<K, N, SV, S, SD, Backend> other) {
+		state.putAll(other.state);
+	}
+
 	/**
 	 * Gets the serializer for the keys.
 	 *
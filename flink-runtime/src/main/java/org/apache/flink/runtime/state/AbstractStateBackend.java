@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.state;
 
 import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.TaskInfo;
 import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.api.common.state.FoldingState;
 import org.apache.flink.api.common.state.FoldingStateDescriptor;
@@ -73,6 +74,12 @@ public abstract class AbstractStateBackend implements java.io.Serializable {
 	@SuppressWarnings("rawtypes")
 	private transient KvState lastState;
 
+	/** The total number of key groups of the job */
+	protected transient int numberOfKeyGroups;
+
+	/** The range of key groups that is assigned to the task of this backend */
+	protected transient KeyGroupRange keyGroupRange;
+
 	// ------------------------------------------------------------------------
 	//  initialization and cleanup
 	// ------------------------------------------------------------------------
@@ -92,6 +99,18 @@ public abstract class AbstractStateBackend implements java.io.Serializable {
 		TypeSerializer<?> keySerializer) throws Exception {
 		this.userCodeClassLoader = env.getUserClassLoader();
 		this.keySerializer = keySerializer;
+
+		ExecutionConfig executionConfig = env.getExecutionConfig();
+		this.numberOfKeyGroups = KeyGroupRangeAssignment.resolveNumberOfKeyGroups(
+			executionConfig != null ? executionConfig.getMaxParallelism() : ExecutionConfig.PARALLELISM_DEFAULT);
+
+		TaskInfo taskInfo = env.getTaskInfo();
+		this.keyGroupRange = taskInfo != null ?
+			KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(
+				numberOfKeyGroups,
+				taskInfo.getNumberOfParallelSubtasks(),
+				taskInfo.getIndexOfThisSubtask()) :
+			new KeyGroupRange(0, numberOfKeyGroups - 1);
 	}
 
 	/**
@@ -325,6 +344,53 @@ public abstract class AbstractStateBackend implements java.io.Serializable {
 		return null;
 	}
 
+	/**
+	 * Checks whether this backend can draw snapshots of the partitioned state that are split by
+	 * key group (see {@link #snapshotPartitionedStateByKeyGroup(long, long)}). Only such snapshots
+	 * can be redistributed when the parallelism of the job changes.
+	 *
+	 * @return True, if this backend supports key-grouped snapshots, false otherwise.
+	 */
+	public boolean supportsKeyGroupSnapshots() {
+		return false;
+	}
+
+	/**
+	 * Draws a snapshot of the partitioned state that is split by key group. The default
+	 * implementation supports the heap-backed key/value states.
+	 *
+	 * @return The snapshots of the key/value states by name, for each key group that contains
+	 *         state, or null if there is no key/value state.
+	 */
+	@SuppressWarnings("rawtypes")
+	public HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> snapshotPartitionedStateByKeyGroup(long checkpointId, long timestamp) throws Exception {
+		if (keyValueStates != null) {
+			HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> snapshots = new HashMap<>();
+
+			for (Map.Entry<String, KvState<?, ?, ?, ?, ?>> entry : keyValueStatesByName.entrySet()) {
+				if (!(entry.getValue() instanceof AbstractHeapState)) {
+					throw new UnsupportedOperationException("The key/value state " + entry.getKey() +
+						" cannot be snapshotted by key group.");
+				}
+
+				Map<Integer, KvStateSnapshot> keyGroupSnapshots = ((AbstractHeapState) entry.getValue())
+					.snapshotKeyGroups(checkpointId, timestamp, keyGroupRange, numberOfKeyGroups);
+
+				for (Map.Entry<Integer, KvStateSnapshot> keyGroupSnapshot : keyGroupSnapshots.entrySet()) {
+					HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroupState = snapshots.get(keyGroupSnapshot.getKey());
+					if (keyGroupState == null) {
+						keyGroupState = new HashMap<>();
+						snapshots.put(keyGroupSnapshot.getKey(), keyGroupState);
+					}
+					keyGroupState.put(entry.getKey(), keyGroupSnapshot.getValue());
+				}
+			}
+			return snapshots;
+		}
+
+		return null;
+	}
+
 	public void notifyOfCompletedCheckpoint(long checkpointId) throws Exception {
 		// We check whether the KvStates require notifications
 		if (keyValueStates != null) {
@@ -358,6 +424,41 @@ public abstract class AbstractStateBackend implements java.io.Serializable {
 		}
 	}
 
+	/**
+	 * Injects the K/V state snapshots of several key groups for restore. The snapshots of the
+	 * same state in different key groups are combined into one K/V state.
+	 *
+	 * @param keyGroupStateSnapshots The Maps of snapshots, one for each key group
+	 */
+	@SuppressWarnings("unchecked,rawtypes")
+	public void injectKeyGroupStateSnapshots(Collection<HashMap<String, KvStateSnapshot>> keyGroupStateSnapshots, long recoveryTimestamp) throws Exception {
+		if (keyValueStatesByName == null) {
+			keyValueStatesByName = new HashMap<>();
+		}
+
+		for (HashMap<String, KvStateSnapshot> keyValueStateSnapshots : keyGroupStateSnapshots) {
+			for (Map.Entry<String, KvStateSnapshot> state : keyValueStateSnapshots.entrySet()) {
+				KvState kvState = state.getValue().restoreState(this,
+					keySerializer,
+					userCodeClassLoader,
+					recoveryTimestamp);
+
+				KvState previous = keyValueStatesByName.get(state.getKey());
+				if (previous == null) {
+					keyValueStatesByName.put(state.getKey(), kvState);
+				}
+				else if (previous instanceof AbstractHeapState && kvState instanceof AbstractHeapState) {
+					((AbstractHeapState) previous).putAll((AbstractHeapState) kvState);
+				}
+				else {
+					throw new UnsupportedOperationException("The key/value state " + state.getKey() +
+						" cannot be restored from several key groups.");
+				}
+			}
+		}
+		keyValueStates = keyValueStatesByName.values().toArray(new KvState[keyValueStatesByName.size()]);
+	}
+
 	// ------------------------------------------------------------------------
 	//  storing state for a checkpoint
 	// ------------------------------------------------------------------------
@@ -415,6 +516,14 @@ public abstract class AbstractStateBackend implements java.io.Serializable {
 	 */
 	public static abstract class CheckpointStateOutputStream extends OutputStream {
 
+		/**
+		 * Gets the number of bytes that have been written to this stream so far.
+		 *
+		 * @return The current position in the stream.
+		 * @throws IOException Thrown, if the position cannot be determined.
+		 */
+		public abstract long getPos() throws IOException;
+
 		/**
 		 * Closes the stream and gets a state handle that can create an input stream
 		 * producing the data written to this stream.
@@ -437,6 +546,16 @@ public abstract class AbstractStateBackend implements java.io.Serializable {
 			this.out = out;
 		}
 
+		/**
+		 * Gets the number of bytes that have been written to this view so far.
+		 *
+		 * @return The current position in the underlying stream.
+		 * @throws IOException Thrown, if the position cannot be determined.
+		 */
+		public long getPos() throws IOException {
+			return out.getPos();
+		}
+
 		/**
 		 * Closes the stream and gets a state handle that can create a DataInputView.
 		 * producing the data written to this stream.
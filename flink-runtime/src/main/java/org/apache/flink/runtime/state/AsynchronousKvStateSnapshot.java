@@ -38,6 +38,9 @@ public abstract class AsynchronousKvStateSnapshot<K, N, S extends State, SD exte
 
 	/**
 	 * Materializes the state held by this {@code AsynchronousKvStateSnapshot}.
+	 *
+	 * <p>Snapshots of a single key group may return null, if the key group turns out to hold
+	 * no state. Such key groups are not part of the checkpoint.
 	 */
 	public abstract KvStateSnapshot<K, N, S, SD, Backend> materialize() throws Exception;
 
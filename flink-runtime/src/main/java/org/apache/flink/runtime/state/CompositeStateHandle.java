@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.state;
+
+/**
+ * Interface for checkpointed state that (possibly) references state which is shared with
+ * other checkpoints, for example files of an incremental checkpoint that later checkpoints
+ * still refer to. The shared parts are reference counted in a {@link SharedStateRegistry}.
+ *
+ * <p>A composite handle that has been registered is discarded via
+ * {@link #discardState(SharedStateRegistry)}, which only discards the private parts of the
+ * state. The usual {@code discardState()} of the handle discards the private parts and all
+ * shared parts that were created by this checkpoint, which is only safe as long as the
+ * checkpoint has not been completed and registered.
+ */
+public interface CompositeStateHandle {
+
+	/**
+	 * Registers a reference to every shared part of this state with the given registry.
+	 *
+	 * @param sharedStateRegistry The registry counting the references to shared state.
+	 * @throws Exception Thrown, if the shared state cannot be accessed.
+	 */
+	void registerSharedStates(SharedStateRegistry sharedStateRegistry) throws Exception;
+
+	/**
+	 * Releases the references to the shared parts of this state, which were previously
+	 * registered, and discards the private parts of this state.
+	 *
+	 * @param sharedStateRegistry The registry counting the references to shared state.
+	 * @throws Exception Thrown, if the state cannot be discarded.
+	 */
+	void discardState(SharedStateRegistry sharedStateRegistry) throws Exception;
+}
@@ -0,0 +1,617 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.util.MathUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A hash table for heap-backed partitioned state that maps (key, namespace) pairs to state
+ * values and supports consistent snapshots in constant time with respect to the number of
+ * state entries.
+ *
+ * <p>A {@link #snapshot()} only copies the bucket array of the table. Afterwards, the table
+ * never modifies any entry or state object that is reachable from the snapshot. Instead, an
+ * entry that is part of a pending snapshot is copied before it is modified (copy-on-write),
+ * and a state object that is part of a pending snapshot is copied (using the state
+ * serializer) before it is handed out, because the caller may modify it in place. Entries and
+ * state objects carry the version of the table in which they were created, which allows to
+ * decide whether they are shared with a snapshot by comparing the version against the highest
+ * version of all snapshots that have not been released yet.
+ *
+ * <p>The table is not thread safe with respect to concurrent modifications. It only supports
+ * that the {@link Snapshot snapshots} are read and released by other threads, while the table
+ * is modified by the owning thread.
+ *
+ * @param <K> The type of the key.
+ * @param <N> The type of the namespace.
+ * @param <S> The type of the state values.
+ */
+public class CopyOnWriteStateTable<K, N, S> {
+
+	/** The minimum (and initial) number of buckets, must be a power of two */
+	private static final int MIN_CAPACITY = 64;
+
+	/** The maximum number of buckets, must be a power of two */
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	/** The serializer used to copy state objects that are shared with a snapshot */
+	private final TypeSerializer<S> stateSerializer;
+
+	/** The versions of all snapshots that have not been released yet */
+	private final TreeSet<Integer> snapshotVersions;
+
+	/** The buckets of the table. Never shared with a snapshot, only copied. */
+	private Entry<K, N, S>[] table;
+
+	/** The number of entries in the table */
+	private int size;
+
+	/** The number of entries at which the table grows */
+	private int threshold;
+
+	/** The current version of the table, incremented with every snapshot */
+	private int stateTableVersion;
+
+	/**
+	 * The highest version of all snapshots that have not been released yet, or zero if there
+	 * is none. Entries and state objects with a lower version must not be modified.
+	 *
+	 * <p>This is only raised by the owning thread and lowered by threads releasing a snapshot.
+	 * The owning thread may therefore only see a higher value than the actual one, which leads
+	 * to unnecessary copies, but never to modifications of shared entries.
+	 */
+	private int highestRequiredSnapshotVersion;
+
+	/**
+	 * Creates a new empty state table.
+	 *
+	 * @param stateSerializer The serializer used to copy state objects that are shared with a snapshot.
+	 */
+	public CopyOnWriteStateTable(TypeSerializer<S> stateSerializer) {
+		this.stateSerializer = requireNonNull(stateSerializer);
+		this.snapshotVersions = new TreeSet<>();
+		this.table = createTable(MIN_CAPACITY);
+		this.threshold = thresholdFor(MIN_CAPACITY);
+	}
+
+	/**
+	 * Creates a new state table that contains the given state, for example restored from a
+	 * checkpoint.
+	 *
+	 * @param stateSerializer The serializer used to copy state objects that are shared with a snapshot.
+	 * @param state The initial state, grouped by namespace.
+	 */
+	public CopyOnWriteStateTable(TypeSerializer<S> stateSerializer, Map<N, ? extends Map<K, S>> state) {
+		this(stateSerializer);
+		for (Map.Entry<N, ? extends Map<K, S>> namespaceState : state.entrySet()) {
+			N namespace = namespaceState.getKey();
+			for (Map.Entry<K, S> entry : namespaceState.getValue().entrySet()) {
+				put(entry.getKey(), namespace, entry.getValue());
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Access
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns the number of (key, namespace) pairs in the table.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the state for the given key and namespace, or null if there is none. The returned
+	 * state object is never shared with a pending snapshot and may be modified in place.
+	 */
+	public S get(K key, N namespace) {
+		final int hash = hash(key, namespace);
+		final Entry<K, N, S>[] tab = table;
+		final int index = hash & (tab.length - 1);
+
+		for (Entry<K, N, S> e = tab[index]; e != null; e = e.next) {
+			if (e.hash == hash && Objects.equals(e.key, key) && Objects.equals(e.namespace, namespace)) {
+				final int requiredVersion = highestRequiredSnapshotVersion;
+				if (e.stateVersion < requiredVersion && e.state != null) {
+					if (e.entryVersion < requiredVersion) {
+						e = copyChainUpTo(tab, index, e, requiredVersion);
+					}
+					e.state = stateSerializer.copy(e.state);
+					e.stateVersion = stateTableVersion;
+				}
+				return e.state;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether the table contains state for the given key and namespace.
+	 */
+	public boolean containsKey(K key, N namespace) {
+		final int hash = hash(key, namespace);
+		final Entry<K, N, S>[] tab = table;
+
+		for (Entry<K, N, S> e = tab[hash & (tab.length - 1)]; e != null; e = e.next) {
+			if (e.hash == hash && Objects.equals(e.key, key) && Objects.equals(e.namespace, namespace)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the state for the given key and namespace, replacing any previous state.
+	 */
+	public void put(K key, N namespace, S state) {
+		final int hash = hash(key, namespace);
+		final Entry<K, N, S>[] tab = table;
+		final int index = hash & (tab.length - 1);
+
+		for (Entry<K, N, S> e = tab[index]; e != null; e = e.next) {
+			if (e.hash == hash && Objects.equals(e.key, key) && Objects.equals(e.namespace, namespace)) {
+				final int requiredVersion = highestRequiredSnapshotVersion;
+				if (e.entryVersion < requiredVersion) {
+					e = copyChainUpTo(tab, index, e, requiredVersion);
+				}
+				e.state = state;
+				e.stateVersion = stateTableVersion;
+				return;
+			}
+		}
+
+		// new entries go to the head of the chain, which leaves all existing entries untouched
+		tab[index] = new Entry<>(key, namespace, state, hash, tab[index], stateTableVersion);
+		if (++size > threshold) {
+			grow();
+		}
+	}
+
+	/**
+	 * Removes the state for the given key and namespace.
+	 *
+	 * @return True, if the table contained state for the key and namespace, false otherwise.
+	 */
+	public boolean remove(K key, N namespace) {
+		final int hash = hash(key, namespace);
+		final Entry<K, N, S>[] tab = table;
+		final int index = hash & (tab.length - 1);
+
+		Entry<K, N, S> prev = null;
+		for (Entry<K, N, S> e = tab[index]; e != null; prev = e, e = e.next) {
+			if (e.hash == hash && Objects.equals(e.key, key) && Objects.equals(e.namespace, namespace)) {
+				if (prev == null) {
+					tab[index] = e.next;
+				}
+				else {
+					final int requiredVersion = highestRequiredSnapshotVersion;
+					if (prev.entryVersion < requiredVersion) {
+						prev = copyChainUpTo(tab, index, prev, requiredVersion);
+					}
+					prev.next = e.next;
+				}
+				size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Puts all state of the given table into this table, replacing the state for (key, namespace)
+	 * pairs which are already contained. The state objects are not copied.
+	 */
+	public void putAll(CopyOnWriteStateTable<K, N, S> other) {
+		for (Entry<K, N, S> e : other.table) {
+			for (; e != null; e = e.next) {
+				put(e.key, e.namespace, e.state);
+			}
+		}
+	}
+
+	/**
+	 * Removes all state from the table. Pending snapshots are not affected.
+	 */
+	public void clear() {
+		table = createTable(MIN_CAPACITY);
+		threshold = thresholdFor(MIN_CAPACITY);
+		size = 0;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Snapshots
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a consistent snapshot of the current contents of the table. The snapshot only
+	 * copies the bucket array, the entries are shared with the table until they are modified.
+	 *
+	 * <p>The returned snapshot must be {@link Snapshot#release() released} once it is not
+	 * needed any more, otherwise the table keeps copying entries on modification.
+	 */
+	public Snapshot<K, N, S> snapshot() {
+		final int version;
+		synchronized (snapshotVersions) {
+			version = ++stateTableVersion;
+			snapshotVersions.add(version);
+			highestRequiredSnapshotVersion = version;
+		}
+		return new Snapshot<>(this, Arrays.copyOf(table, table.length), size, version);
+	}
+
+	private void releaseSnapshot(int version) {
+		synchronized (snapshotVersions) {
+			snapshotVersions.remove(version);
+			highestRequiredSnapshotVersion = snapshotVersions.isEmpty() ? 0 : snapshotVersions.last();
+		}
+	}
+
+	/**
+	 * Returns the number of snapshots that have been taken and not been released, yet.
+	 */
+	public int getNumPendingSnapshots() {
+		synchronized (snapshotVersions) {
+			return snapshotVersions.size();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Internals
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Makes sure that all entries from the head of the bucket up to the given entry are not
+	 * shared with a snapshot, copying the shared ones, and returns the (possibly copied) entry.
+	 */
+	private Entry<K, N, S> copyChainUpTo(Entry<K, N, S>[] tab, int index, Entry<K, N, S> untilEntry, int requiredVersion) {
+		Entry<K, N, S> current = tab[index];
+		Entry<K, N, S> copy;
+		if (current.entryVersion < requiredVersion) {
+			copy = new Entry<>(current, stateTableVersion);
+			tab[index] = copy;
+		}
+		else {
+			copy = current;
+		}
+
+		while (current != untilEntry) {
+			current = current.next;
+			if (current.entryVersion < requiredVersion) {
+				copy.next = new Entry<>(current, stateTableVersion);
+				copy = copy.next;
+			}
+			else {
+				copy = current;
+			}
+		}
+		return copy;
+	}
+
+	private void grow() {
+		final Entry<K, N, S>[] oldTable = table;
+		if (oldTable.length == MAX_CAPACITY) {
+			threshold = Integer.MAX_VALUE;
+			return;
+		}
+
+		final int newCapacity = oldTable.length << 1;
+		final int mask = newCapacity - 1;
+		final int requiredVersion = highestRequiredSnapshotVersion;
+		final Entry<K, N, S>[] newTable = createTable(newCapacity);
+
+		for (Entry<K, N, S> e : oldTable) {
+			while (e != null) {
+				final Entry<K, N, S> next = e.next;
+				final int index = e.hash & mask;
+
+				// re-linking modifies the entry, so entries shared with a snapshot are copied
+				final Entry<K, N, S> moved = e.entryVersion < requiredVersion ? new Entry<>(e, stateTableVersion) : e;
+				moved.next = newTable[index];
+				newTable[index] = moved;
+				e = next;
+			}
+		}
+
+		table = newTable;
+		threshold = thresholdFor(newCapacity);
+	}
+
+	private static int hash(Object key, Object namespace) {
+		return MathUtils.murmurHash(31 * Objects.hashCode(key) + Objects.hashCode(namespace));
+	}
+
+	private static int thresholdFor(int capacity) {
+		return (capacity >> 1) + (capacity >> 2);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, N, S> Entry<K, N, S>[] createTable(int capacity) {
+		return (Entry<K, N, S>[]) new Entry<?, ?, ?>[capacity];
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * An entry of the table, holding the state for one (key, namespace) pair.
+	 */
+	private static final class Entry<K, N, S> {
+
+		final K key;
+
+		final N namespace;
+
+		final int hash;
+
+		S state;
+
+		Entry<K, N, S> next;
+
+		/** The table version in which this entry was created */
+		int entryVersion;
+
+		/** The table version in which the state object of this entry was set */
+		int stateVersion;
+
+		Entry(K key, N namespace, S state, int hash, Entry<K, N, S> next, int version) {
+			this.key = key;
+			this.namespace = namespace;
+			this.state = state;
+			this.hash = hash;
+			this.next = next;
+			this.entryVersion = version;
+			this.stateVersion = version;
+		}
+
+		Entry(Entry<K, N, S> other, int version) {
+			this.key = other.key;
+			this.namespace = other.namespace;
+			this.state = other.state;
+			this.hash = other.hash;
+			this.next = other.next;
+			this.entryVersion = version;
+			this.stateVersion = other.stateVersion;
+		}
+	}
+
+	/**
+	 * A consistent, immutable view on the contents of a {@link CopyOnWriteStateTable} at the
+	 * time the snapshot was taken. The snapshot can be written and released by any thread.
+	 *
+	 * @param <K> The type of the key.
+	 * @param <N> The type of the namespace.
+	 * @param <S> The type of the state values.
+	 */
+	public static final class Snapshot<K, N, S> {
+
+		private final CopyOnWriteStateTable<K, N, S> owner;
+
+		private final Entry<K, N, S>[] snapshotTable;
+
+		private final int size;
+
+		private final int version;
+
+		private boolean released;
+
+		/** The range of the key groups that the entries are grouped by, null if not grouped */
+		private KeyGroupRange groupedKeyGroupRange;
+
+		/** The entries, ordered by key group */
+		private Entry<K, N, S>[] groupedEntries;
+
+		/** The offsets of the key groups in the grouped entries, one more than there are key groups */
+		private int[] keyGroupOffsets;
+
+		private Snapshot(CopyOnWriteStateTable<K, N, S> owner, Entry<K, N, S>[] snapshotTable, int size, int version) {
+			this.owner = owner;
+			this.snapshotTable = snapshotTable;
+			this.size = size;
+			this.version = version;
+		}
+
+		/**
+		 * Returns the number of (key, namespace) pairs in this snapshot.
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Writes the snapshot grouped by namespace, in the format
+		 * {@code numNamespaces, [namespace, numEntries, [key, state]]}.
+		 *
+		 * <p>If the snapshot is written by a thread other than the owner of the table, the
+		 * given serializers must not be shared with the owner.
+		 */
+		public void write(
+				DataOutputView out,
+				TypeSerializer<K> keySerializer,
+				TypeSerializer<N> namespaceSerializer,
+				TypeSerializer<S> stateSerializer) throws IOException {
+
+			checkNotReleased();
+
+			final Entry<K, N, S>[] entries = createTable(size);
+			int count = 0;
+			for (Entry<K, N, S> e : snapshotTable) {
+				for (; e != null; e = e.next) {
+					entries[count++] = e;
+				}
+			}
+
+			writeEntries(entries, 0, count, out, keySerializer, namespaceSerializer, stateSerializer);
+		}
+
+		/**
+		 * Groups the entries of this snapshot by the key group of their key, which is required
+		 * before single key groups can be {@link #writeKeyGroup(int, DataOutputView,
+		 * TypeSerializer, TypeSerializer, TypeSerializer) written}. The grouping takes a single
+		 * pass over the entries.
+		 *
+		 * @param keyGroupRange The range of key groups that all keys of the snapshot belong to.
+		 * @param numberOfKeyGroups The total number of key groups.
+		 * @return The key groups which have at least one entry, in ascending order.
+		 *
+		 * @throws IllegalStateException Thrown, if a key does not belong to the given key group range.
+		 */
+		public Set<Integer> groupByKeyGroup(KeyGroupRange keyGroupRange, int numberOfKeyGroups) {
+			checkNotReleased();
+
+			final int startKeyGroup = keyGroupRange.getStartKeyGroup();
+			final int[] offsets = new int[keyGroupRange.getNumberOfKeyGroups() + 1];
+			final int[] entryKeyGroups = new int[size];
+			final Entry<K, N, S>[] entries = createTable(size);
+
+			// first pass: compute the key group of each entry and count the entries per key group
+			int count = 0;
+			for (Entry<K, N, S> e : snapshotTable) {
+				for (; e != null; e = e.next) {
+					final int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(e.key, numberOfKeyGroups);
+					if (!keyGroupRange.contains(keyGroup)) {
+						throw new IllegalStateException("Key " + e.key + " belongs to key group " + keyGroup +
+							", which is not in the key group range " + keyGroupRange + '.');
+					}
+					entryKeyGroups[count] = keyGroup;
+					entries[count++] = e;
+					offsets[keyGroup - startKeyGroup + 1]++;
+				}
+			}
+
+			final Set<Integer> nonEmptyKeyGroups = new TreeSet<>();
+			for (int i = 1; i < offsets.length; i++) {
+				if (offsets[i] > 0) {
+					nonEmptyKeyGroups.add(startKeyGroup + i - 1);
+				}
+				offsets[i] += offsets[i - 1];
+			}
+
+			// second pass: move the entries to the positions of their key groups
+			final Entry<K, N, S>[] grouped = createTable(count);
+			final int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+			for (int i = 0; i < count; i++) {
+				grouped[positions[entryKeyGroups[i] - startKeyGroup]++] = entries[i];
+			}
+
+			this.groupedKeyGroupRange = keyGroupRange;
+			this.groupedEntries = grouped;
+			this.keyGroupOffsets = offsets;
+
+			return nonEmptyKeyGroups;
+		}
+
+		/**
+		 * Writes the entries of a single key group, in the same format as {@link #write(DataOutputView,
+		 * TypeSerializer, TypeSerializer, TypeSerializer)}. The snapshot must have been {@link
+		 * #groupByKeyGroup(KeyGroupRange, int) grouped by key group} before.
+		 *
+		 * <p>If the snapshot is written by a thread other than the owner of the table, the
+		 * given serializers must not be shared with the owner.
+		 */
+		public void writeKeyGroup(
+				int keyGroup,
+				DataOutputView out,
+				TypeSerializer<K> keySerializer,
+				TypeSerializer<N> namespaceSerializer,
+				TypeSerializer<S> stateSerializer) throws IOException {
+
+			checkNotReleased();
+
+			if (groupedKeyGroupRange == null) {
+				throw new IllegalStateException("The snapshot has not been grouped by key group.");
+			}
+			if (!groupedKeyGroupRange.contains(keyGroup)) {
+				throw new IllegalArgumentException("Key group " + keyGroup + " is not in the key group range " +
+					groupedKeyGroupRange + '.');
+			}
+
+			final int index = keyGroup - groupedKeyGroupRange.getStartKeyGroup();
+			writeEntries(groupedEntries, keyGroupOffsets[index], keyGroupOffsets[index + 1],
+				out, keySerializer, namespaceSerializer, stateSerializer);
+		}
+
+		private void checkNotReleased() {
+			if (released) {
+				throw new IllegalStateException("The snapshot has been released.");
+			}
+		}
+
+		private static <K, N, S> void writeEntries(
+				Entry<K, N, S>[] entries,
+				int from,
+				int to,
+				DataOutputView out,
+				TypeSerializer<K> keySerializer,
+				TypeSerializer<N> namespaceSerializer,
+				TypeSerializer<S> stateSerializer) throws IOException {
+
+			HashMap<N, List<Entry<K, N, S>>> byNamespace = new HashMap<>();
+			for (int i = from; i < to; i++) {
+				Entry<K, N, S> e = entries[i];
+				List<Entry<K, N, S>> namespaceEntries = byNamespace.get(e.namespace);
+				if (namespaceEntries == null) {
+					namespaceEntries = new ArrayList<>();
+					byNamespace.put(e.namespace, namespaceEntries);
+				}
+				namespaceEntries.add(e);
+			}
+
+			out.writeInt(byNamespace.size());
+			for (Map.Entry<N, List<Entry<K, N, S>>> namespaceState : byNamespace.entrySet()) {
+				namespaceSerializer.serialize(namespaceState.getKey(), out);
+				out.writeInt(namespaceState.getValue().size());
+				for (Entry<K, N, S> entry : namespaceState.getValue()) {
+					keySerializer.serialize(entry.key, out);
+					stateSerializer.serialize(entry.state, out);
+				}
+			}
+		}
+
+		/**
+		 * Releases this snapshot, so that the table can modify the entries in place again.
+		 * Releasing a snapshot multiple times has no effect.
+		 */
+		public void release() {
+			if (!released) {
+				released = true;
+				groupedEntries = null;
+				owner.releaseSnapshot(version);
+			}
+		}
+	}
+}
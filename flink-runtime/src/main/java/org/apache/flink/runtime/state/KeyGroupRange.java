@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import java.io.Serializable;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A contiguous range of key groups, from the start key group to the end key group (both
+ * inclusive). A range with an end smaller than its start is empty.
+ */
+public class KeyGroupRange implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The empty key group range */
+	public static final KeyGroupRange EMPTY_KEY_GROUP_RANGE = new KeyGroupRange(0, -1);
+
+	private final int startKeyGroup;
+
+	private final int endKeyGroup;
+
+	/**
+	 * Creates a key group range.
+	 *
+	 * @param startKeyGroup The first key group of the range.
+	 * @param endKeyGroup The last key group of the range (inclusive).
+	 */
+	public KeyGroupRange(int startKeyGroup, int endKeyGroup) {
+		checkArgument(startKeyGroup >= 0, "Start key group must be non-negative.");
+		checkArgument(endKeyGroup >= startKeyGroup - 1, "End key group must not be smaller than the start key group - 1.");
+
+		this.startKeyGroup = startKeyGroup;
+		this.endKeyGroup = endKeyGroup;
+	}
+
+	public int getStartKeyGroup() {
+		return startKeyGroup;
+	}
+
+	public int getEndKeyGroup() {
+		return endKeyGroup;
+	}
+
+	public int getNumberOfKeyGroups() {
+		return endKeyGroup - startKeyGroup + 1;
+	}
+
+	public boolean contains(int keyGroup) {
+		return keyGroup >= startKeyGroup && keyGroup <= endKeyGroup;
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		else if (o instanceof KeyGroupRange) {
+			KeyGroupRange that = (KeyGroupRange) o;
+			return startKeyGroup == that.startKeyGroup && endKeyGroup == that.endKeyGroup;
+		}
+		else {
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * startKeyGroup + endKeyGroup;
+	}
+
+	@Override
+	public String toString() {
+		return "KeyGroupRange{" + startKeyGroup + " - " + endKeyGroup + '}';
+	}
+}
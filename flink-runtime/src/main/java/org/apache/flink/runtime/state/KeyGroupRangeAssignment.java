@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.util.MathUtils;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Utilities to assign keys to key groups and key groups to the parallel subtasks of an operator.
+ *
+ * <p>Keyed state is partitioned into a fixed number of key groups, the maximum parallelism of
+ * the job. Each parallel subtask is responsible for a contiguous range of key groups. When a
+ * job is restored with a different parallelism, the key groups (and with them the state) are
+ * redistributed without having to re-partition individual keys.
+ */
+public final class KeyGroupRangeAssignment {
+
+	/** The number of key groups that is used if the maximum parallelism is not configured */
+	public static final int DEFAULT_MAX_PARALLELISM = 128;
+
+	/**
+	 * Returns the key group of the given key.
+	 *
+	 * @param key The key, must not be null.
+	 * @param numberOfKeyGroups The total number of key groups (the maximum parallelism).
+	 * @return The key group of the key, between 0 and numberOfKeyGroups - 1.
+	 */
+	public static int assignToKeyGroup(Object key, int numberOfKeyGroups) {
+		return MathUtils.murmurHash(key.hashCode()) % numberOfKeyGroups;
+	}
+
+	/**
+	 * Returns the range of key groups the subtask with the given index is responsible for.
+	 *
+	 * @param numberOfKeyGroups The total number of key groups (the maximum parallelism).
+	 * @param parallelism The parallelism of the operator.
+	 * @param operatorIndex The index of the parallel subtask.
+	 * @return The key group range of the subtask, which may be empty if the parallelism is
+	 *         larger than the number of key groups.
+	 */
+	public static KeyGroupRange computeKeyGroupRangeForOperatorIndex(
+			int numberOfKeyGroups,
+			int parallelism,
+			int operatorIndex) {
+
+		checkArgument(parallelism > 0, "Parallelism must be positive.");
+		checkArgument(operatorIndex >= 0 && operatorIndex < parallelism, "Operator index out of range.");
+
+		int start = (int) (((long) operatorIndex * numberOfKeyGroups + parallelism - 1) / parallelism);
+		int end = (int) (((long) (operatorIndex + 1) * numberOfKeyGroups - 1) / parallelism);
+		return new KeyGroupRange(start, end);
+	}
+
+	/**
+	 * Returns the index of the parallel subtask that is responsible for the given key group.
+	 * This is the inverse of {@link #computeKeyGroupRangeForOperatorIndex(int, int, int)}.
+	 *
+	 * @param numberOfKeyGroups The total number of key groups (the maximum parallelism).
+	 * @param parallelism The parallelism of the operator.
+	 * @param keyGroup The key group.
+	 * @return The index of the subtask that is responsible for the key group.
+	 */
+	public static int computeOperatorIndexForKeyGroup(int numberOfKeyGroups, int parallelism, int keyGroup) {
+		return (int) ((long) keyGroup * parallelism / numberOfKeyGroups);
+	}
+
+	/**
+	 * Returns the number of key groups for the given configured maximum parallelism, which is
+	 * {@link #DEFAULT_MAX_PARALLELISM} if no maximum parallelism is configured.
+	 */
+	public static int resolveNumberOfKeyGroups(int maxParallelism) {
+		return maxParallelism == ExecutionConfig.PARALLELISM_DEFAULT ? DEFAULT_MAX_PARALLELISM : maxParallelism;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/** Utility class, not meant to be instantiated */
+	private KeyGroupRangeAssignment() {}
+}
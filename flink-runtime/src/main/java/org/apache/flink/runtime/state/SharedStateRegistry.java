@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.state;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A registry that counts the references to state which is shared between multiple
+ * checkpoints, for example the files of incremental checkpoints. Shared state is registered
+ * by every checkpoint that references it and is discarded once the last checkpoint that
+ * references it is unregistered.
+ *
+ * <p>The registry is thread safe, because checkpoints may be discarded asynchronously.
+ */
+public class SharedStateRegistry {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SharedStateRegistry.class);
+
+	/** The registered shared state and its reference counts, by key */
+	private final Map<String, SharedStateEntry> registeredStates = new HashMap<>();
+
+	/**
+	 * Registers a reference to the shared state with the given key. If the key is registered
+	 * for the first time, the given handle is used to discard the state once it is not
+	 * referenced any more.
+	 *
+	 * @param key The key that uniquely identifies the shared state, for example its file path.
+	 * @param stateHandle The handle to the shared state.
+	 * @return The number of references to the shared state, including this one.
+	 */
+	public int register(String key, StateHandle<?> stateHandle) {
+		checkNotNull(key, "Key");
+		checkNotNull(stateHandle, "State handle");
+
+		synchronized (registeredStates) {
+			SharedStateEntry entry = registeredStates.get(key);
+			if (entry == null) {
+				entry = new SharedStateEntry(stateHandle);
+				registeredStates.put(key, entry);
+			}
+			return ++entry.referenceCount;
+		}
+	}
+
+	/**
+	 * Releases a reference to the shared state with the given key. The state is discarded if
+	 * this was the last reference.
+	 *
+	 * @param key The key of the shared state.
+	 * @return The number of remaining references to the shared state.
+	 */
+	public int unregister(String key) {
+		checkNotNull(key, "Key");
+
+		final StateHandle<?> toDiscard;
+		synchronized (registeredStates) {
+			SharedStateEntry entry = registeredStates.get(key);
+			if (entry == null) {
+				throw new IllegalStateException("Shared state " + key + " is not registered.");
+			}
+			if (--entry.referenceCount > 0) {
+				return entry.referenceCount;
+			}
+			registeredStates.remove(key);
+			toDiscard = entry.stateHandle;
+		}
+
+		// discard outside the lock, this may involve slow file system operations
+		try {
+			toDiscard.discardState();
+		}
+		catch (Exception e) {
+			LOG.warn("Failed to discard shared state " + key + '.', e);
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of references to the shared state with the given key, or zero, if the
+	 * key is not registered.
+	 */
+	public int getReferenceCount(String key) {
+		synchronized (registeredStates) {
+			SharedStateEntry entry = registeredStates.get(key);
+			return entry == null ? 0 : entry.referenceCount;
+		}
+	}
+
+	/**
+	 * Returns the number of distinct shared states in this registry.
+	 */
+	public int size() {
+		synchronized (registeredStates) {
+			return registeredStates.size();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static final class SharedStateEntry {
+
+		final StateHandle<?> stateHandle;
+
+		int referenceCount;
+
+		SharedStateEntry(StateHandle<?> stateHandle) {
+			this.stateHandle = stateHandle;
+		}
+	}
+}
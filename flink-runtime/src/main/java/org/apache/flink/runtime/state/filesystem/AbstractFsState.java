@@ -25,15 +25,21 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.fs.Path;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.runtime.state.AbstractHeapState;
+import org.apache.flink.runtime.state.AsynchronousKvStateSnapshot;
+import org.apache.flink.runtime.state.CopyOnWriteStateTable;
+import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KvStateSnapshot;
 
 import java.io.DataOutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
- * Base class for partitioned {@link ListState} implementations that are backed by a regular
- * heap hash map. The concrete implementations define how the state is checkpointed.
+ * Base class for partitioned {@link ListState} implementations that are backed by a
+ * {@link CopyOnWriteStateTable} on the heap and that are snapshotted into files. If the
+ * {@link FsStateBackend} has asynchronous snapshots enabled, the files are written by the
+ * asynchronous checkpointing thread of the task.
  * 
  * @param <K> The type of the key.
  * @param <N> The type of the namespace.
@@ -70,26 +76,242 @@ public abstract class AbstractFsState<K, N, SV, S extends State, SD extends Stat
 
 	@Override
 	public KvStateSnapshot<K, N, S, SD, FsStateBackend> snapshot(long checkpointId, long timestamp) throws Exception {
+		CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot = state.snapshot();
+
+		if (backend.isAsynchronousSnapshots()) {
+			// the serializers are not thread safe, the background thread gets its own copies
+			return new AsyncFsStateSnapshot(tableSnapshot,
+				keySerializer.duplicate(),
+				namespaceSerializer.duplicate(),
+				stateSerializer.duplicate(),
+				checkpointId,
+				timestamp);
+		}
+		else {
+			return writeSnapshot(tableSnapshot, keySerializer, namespaceSerializer, stateSerializer, checkpointId, timestamp);
+		}
+	}
+
+	/**
+	 * Draws a snapshot of the key groups that contain state. All key groups are written into
+	 * one file, and the snapshot of each key group refers to its section in that file.
+	 */
+	@Override
+	public Map<Integer, KvStateSnapshot<K, N, S, SD, FsStateBackend>> snapshotKeyGroups(
+			long checkpointId,
+			long timestamp,
+			KeyGroupRange keyGroupRange,
+			int numberOfKeyGroups) throws Exception {
+
+		CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot = state.snapshot();
+
+		Set<Integer> keyGroups;
+		try {
+			keyGroups = tableSnapshot.groupByKeyGroup(keyGroupRange, numberOfKeyGroups);
+		}
+		catch (Exception e) {
+			tableSnapshot.release();
+			throw e;
+		}
+
+		if (keyGroups.isEmpty()) {
+			tableSnapshot.release();
+			return new HashMap<>();
+		}
+		else if (backend.isAsynchronousSnapshots()) {
+			// the first key group to be materialized writes the file for all of them
+			KeyGroupsWriter writer = new KeyGroupsWriter(tableSnapshot,
+				keyGroups,
+				keySerializer.duplicate(),
+				namespaceSerializer.duplicate(),
+				stateSerializer.duplicate(),
+				checkpointId,
+				timestamp);
+
+			Map<Integer, KvStateSnapshot<K, N, S, SD, FsStateBackend>> snapshots = new HashMap<>();
+			for (Integer keyGroup : keyGroups) {
+				snapshots.put(keyGroup, new AsyncFsKeyGroupSnapshot(writer, keyGroup));
+			}
+			return snapshots;
+		}
+		else {
+			try {
+				return writeKeyGroupSnapshots(tableSnapshot, keyGroups,
+					keySerializer, namespaceSerializer, stateSerializer, checkpointId, timestamp);
+			}
+			finally {
+				tableSnapshot.release();
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<Integer, KvStateSnapshot<K, N, S, SD, FsStateBackend>> writeKeyGroupSnapshots(
+			CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot,
+			Set<Integer> keyGroups,
+			TypeSerializer<K> keySerializer,
+			TypeSerializer<N> namespaceSerializer,
+			TypeSerializer<SV> stateSerializer,
+			long checkpointId,
+			long timestamp) throws Exception {
+
+		final long[] offsets = new long[keyGroups.size() + 1];
+		final AbstractFsStateSnapshot<K, N, SV, S, SD> fileSnapshot;
+
+		try (FsStateBackend.FsCheckpointStateOutputStream out = backend.createCheckpointStateOutputStream(checkpointId, timestamp)) {
+			DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(new DataOutputStream(out));
+
+			int index = 0;
+			for (Integer keyGroup : keyGroups) {
+				offsets[index++] = out.getPos();
+				tableSnapshot.writeKeyGroup(keyGroup, outView, keySerializer, namespaceSerializer, stateSerializer);
+			}
+			offsets[index] = out.getPos();
+			outView.flush();
+
+			fileSnapshot = (AbstractFsStateSnapshot<K, N, SV, S, SD>) createHeapSnapshot(out.closeAndGetPath());
+		}
+
+		Map<Integer, KvStateSnapshot<K, N, S, SD, FsStateBackend>> snapshots = new HashMap<>(keyGroups.size());
+		int index = 0;
+		for (Integer keyGroup : keyGroups) {
+			snapshots.put(keyGroup, new FsKeyGroupStateSnapshot<>(fileSnapshot,
+				offsets[index], offsets[index + 1] - offsets[index]));
+			index++;
+		}
+		return snapshots;
+	}
+
+	private KvStateSnapshot<K, N, S, SD, FsStateBackend> writeSnapshot(
+			CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot,
+			TypeSerializer<K> keySerializer,
+			TypeSerializer<N> namespaceSerializer,
+			TypeSerializer<SV> stateSerializer,
+			long checkpointId,
+			long timestamp) throws Exception {
 
 		try (FsStateBackend.FsCheckpointStateOutputStream out = backend.createCheckpointStateOutputStream(checkpointId, timestamp)) {
 
 			// serialize the state to the output stream
 			DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(new DataOutputStream(out));
-			outView.writeInt(state.size());
-			for (Map.Entry<N, Map<K, SV>> namespaceState: state.entrySet()) {
-				N namespace = namespaceState.getKey();
-				namespaceSerializer.serialize(namespace, outView);
-				outView.writeInt(namespaceState.getValue().size());
-				for (Map.Entry<K, SV> entry: namespaceState.getValue().entrySet()) {
-					keySerializer.serialize(entry.getKey(), outView);
-					stateSerializer.serialize(entry.getValue(), outView);
-				}
-			}
+			tableSnapshot.write(outView, keySerializer, namespaceSerializer, stateSerializer);
 			outView.flush();
 
 			// create a handle to the state
-//			return new FsHeapValueStateSnapshot<>(getKeySerializer(), getNamespaceSerializer(), stateDesc, out.closeAndGetPath());
 			return createHeapSnapshot(out.closeAndGetPath());
 		}
+		finally {
+			tableSnapshot.release();
+		}
+	}
+
+	/**
+	 * Snapshot that holds a copy-on-write view of the state table and writes it to the
+	 * checkpoint file when it is materialized by the asynchronous checkpointing thread.
+	 */
+	private class AsyncFsStateSnapshot extends AsynchronousKvStateSnapshot<K, N, S, SD, FsStateBackend> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot;
+		private final TypeSerializer<K> keySerializer;
+		private final TypeSerializer<N> namespaceSerializer;
+		private final TypeSerializer<SV> stateSerializer;
+		private final long checkpointId;
+		private final long timestamp;
+
+		private AsyncFsStateSnapshot(CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot,
+				TypeSerializer<K> keySerializer,
+				TypeSerializer<N> namespaceSerializer,
+				TypeSerializer<SV> stateSerializer,
+				long checkpointId,
+				long timestamp) {
+			this.tableSnapshot = tableSnapshot;
+			this.keySerializer = keySerializer;
+			this.namespaceSerializer = namespaceSerializer;
+			this.stateSerializer = stateSerializer;
+			this.checkpointId = checkpointId;
+			this.timestamp = timestamp;
+		}
+
+		@Override
+		public KvStateSnapshot<K, N, S, SD, FsStateBackend> materialize() throws Exception {
+			return writeSnapshot(tableSnapshot, keySerializer, namespaceSerializer, stateSerializer, checkpointId, timestamp);
+		}
+	}
+
+	/**
+	 * Writes the key groups of a copy-on-write view of the state table into one file. The key
+	 * groups are written when the first of them is materialized by the asynchronous
+	 * checkpointing thread, and the view is released afterwards.
+	 */
+	private class KeyGroupsWriter {
+
+		private final CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot;
+		private final Set<Integer> keyGroups;
+		private final TypeSerializer<K> keySerializer;
+		private final TypeSerializer<N> namespaceSerializer;
+		private final TypeSerializer<SV> stateSerializer;
+		private final long checkpointId;
+		private final long timestamp;
+
+		private Map<Integer, KvStateSnapshot<K, N, S, SD, FsStateBackend>> snapshots;
+		private Exception failure;
+
+		private KeyGroupsWriter(CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot,
+				Set<Integer> keyGroups,
+				TypeSerializer<K> keySerializer,
+				TypeSerializer<N> namespaceSerializer,
+				TypeSerializer<SV> stateSerializer,
+				long checkpointId,
+				long timestamp) {
+			this.tableSnapshot = tableSnapshot;
+			this.keyGroups = keyGroups;
+			this.keySerializer = keySerializer;
+			this.namespaceSerializer = namespaceSerializer;
+			this.stateSerializer = stateSerializer;
+			this.checkpointId = checkpointId;
+			this.timestamp = timestamp;
+		}
+
+		private synchronized KvStateSnapshot<K, N, S, SD, FsStateBackend> getKeyGroupSnapshot(int keyGroup) throws Exception {
+			if (snapshots == null && failure == null) {
+				try {
+					snapshots = writeKeyGroupSnapshots(tableSnapshot, keyGroups,
+						keySerializer, namespaceSerializer, stateSerializer, checkpointId, timestamp);
+				}
+				catch (Exception e) {
+					failure = e;
+				}
+				finally {
+					tableSnapshot.release();
+				}
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+			return snapshots.get(keyGroup);
+		}
+	}
+
+	/**
+	 * Snapshot of a single key group, whose file is written together with the other key
+	 * groups of the state by a shared {@link KeyGroupsWriter}.
+	 */
+	private class AsyncFsKeyGroupSnapshot extends AsynchronousKvStateSnapshot<K, N, S, SD, FsStateBackend> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient KeyGroupsWriter writer;
+		private final int keyGroup;
+
+		private AsyncFsKeyGroupSnapshot(KeyGroupsWriter writer, int keyGroup) {
+			this.writer = writer;
+			this.keyGroup = keyGroup;
+		}
+
+		@Override
+		public KvStateSnapshot<K, N, S, SD, FsStateBackend> materialize() throws Exception {
+			return writer.getKeyGroupSnapshot(keyGroup);
+		}
 	}
 }
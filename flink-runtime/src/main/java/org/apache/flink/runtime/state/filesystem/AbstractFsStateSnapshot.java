@@ -86,6 +86,18 @@ public abstract class AbstractFsStateSnapshot<K, N, SV, S extends State, SD exte
 		ClassLoader classLoader,
 		long recoveryTimestamp) throws Exception {
 
+		return restoreState(stateBackend, keySerializer, 0L);
+	}
+
+	/**
+	 * Restores the state that starts at the given offset in the file. Several key groups of the
+	 * same state share one file (see {@link FsKeyGroupStateSnapshot}).
+	 */
+	KvState<K, N, S, SD, FsStateBackend> restoreState(
+		FsStateBackend stateBackend,
+		final TypeSerializer<K> keySerializer,
+		long offset) throws Exception {
+
 		// validity checks
 		if (!this.keySerializer.equals(keySerializer)) {
 			throw new IllegalArgumentException(
@@ -97,6 +109,9 @@ public abstract class AbstractFsStateSnapshot<K, N, SV, S extends State, SD exte
 
 		// state restore
 		try (FSDataInputStream inStream = stateBackend.getFileSystem().open(getFilePath())) {
+			if (offset > 0) {
+				inStream.seek(offset);
+			}
 			DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(new DataInputStream(inStream));
 
 
@@ -85,14 +85,8 @@ public class FsFoldingState<K, N, T, ACC>
 
 	@Override
 	public ACC get() {
-		if (currentNSState == null) {
-			currentNSState = state.get(currentNamespace);
-		}
-		if (currentNSState != null) {
-			ACC value = currentNSState.get(currentKey);
-			return value != null ? value : stateDesc.getDefaultValue();
-		}
-		return stateDesc.getDefaultValue();
+		ACC value = state.get(currentKey, currentNamespace);
+		return value != null ? value : stateDesc.getDefaultValue();
 	}
 
 	@Override
@@ -101,18 +95,12 @@ public class FsFoldingState<K, N, T, ACC>
 			throw new RuntimeException("No key available.");
 		}
 
-		if (currentNSState == null) {
-			currentNSState = new HashMap<>();
-			state.put(currentNamespace, currentNSState);
-		}
-
-		ACC currentValue = currentNSState.get(currentKey);
+		ACC currentValue = state.get(currentKey, currentNamespace);
 		try {
 			if (currentValue == null) {
-				currentNSState.put(currentKey, foldFunction.fold(stateDesc.getDefaultValue(), value));
+				state.put(currentKey, currentNamespace, foldFunction.fold(stateDesc.getDefaultValue(), value));
 			} else {
-				currentNSState.put(currentKey, foldFunction.fold(currentValue, value));
-
+				state.put(currentKey, currentNamespace, foldFunction.fold(currentValue, value));
 			}
 		} catch (Exception e) {
 			throw new RuntimeException("Could not add value to folding state.", e);
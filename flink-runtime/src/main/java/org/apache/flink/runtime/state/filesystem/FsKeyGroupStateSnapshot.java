@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.filesystem;
+
+import org.apache.flink.api.common.state.State;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.fs.Path;
+import org.apache.flink.runtime.state.KvState;
+import org.apache.flink.runtime.state.KvStateSnapshot;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A snapshot of a single key group of a heap key/value state. The key groups of a state are
+ * written into one file, and the snapshot refers to the section of its key group in that file.
+ *
+ * <p>Discarding the snapshot deletes the shared file. The snapshots of all key groups of the
+ * file belong to the same checkpoint and are discarded together.
+ *
+ * @param <K> The type of the key in the snapshot state.
+ * @param <N> The type of the namespace in the snapshot state.
+ * @param <SV> The type of the state value.
+ */
+public class FsKeyGroupStateSnapshot<K, N, SV, S extends State, SD extends StateDescriptor<S, ?>> implements KvStateSnapshot<K, N, S, SD, FsStateBackend> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The snapshot of the file that contains the key group */
+	private final AbstractFsStateSnapshot<K, N, SV, S, SD> fileSnapshot;
+
+	/** The offset of the key group in the file */
+	private final long offset;
+
+	/** The number of bytes of the key group */
+	private final long length;
+
+	public FsKeyGroupStateSnapshot(AbstractFsStateSnapshot<K, N, SV, S, SD> fileSnapshot, long offset, long length) {
+		this.fileSnapshot = requireNonNull(fileSnapshot);
+		this.offset = offset;
+		this.length = length;
+	}
+
+	@Override
+	public KvState<K, N, S, SD, FsStateBackend> restoreState(
+		FsStateBackend stateBackend,
+		TypeSerializer<K> keySerializer,
+		ClassLoader classLoader,
+		long recoveryTimestamp) throws Exception {
+
+		return fileSnapshot.restoreState(stateBackend, keySerializer, offset);
+	}
+
+	@Override
+	public void discardState() throws Exception {
+		fileSnapshot.discardState();
+	}
+
+	@Override
+	public long getStateSize() throws Exception {
+		return length;
+	}
+
+	public Path getFilePath() {
+		return fileSnapshot.getFilePath();
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+}
@@ -82,18 +82,12 @@ public class FsListState<K, N, V>
 
 	@Override
 	public Iterable<V> get() {
-		if (currentNSState == null) {
-			currentNSState = state.get(currentNamespace);
+		List<V> result = state.get(currentKey, currentNamespace);
+		if (result == null) {
+			return Collections.emptyList();
+		} else {
+			return result;
 		}
-		if (currentNSState != null) {
-			List<V> result = currentNSState.get(currentKey);
-			if (result == null) {
-				return Collections.emptyList();
-			} else {
-				return result;
-			}
-		}
-		return Collections.emptyList();
 	}
 
 	@Override
@@ -102,20 +96,14 @@ public class FsListState<K, N, V>
 			throw new RuntimeException("No key available.");
 		}
 
-		if (currentNSState == null) {
-			currentNSState = new HashMap<>();
-			state.put(currentNamespace, currentNSState);
-		}
-
-
-		ArrayList<V> list = currentNSState.get(currentKey);
+		ArrayList<V> list = state.get(currentKey, currentNamespace);
 		if (list == null) {
 			list = new ArrayList<>();
-			currentNSState.put(currentKey, list);
+			state.put(currentKey, currentNamespace, list);
 		}
 		list.add(value);
 	}
-	
+
 	@Override
 	public KvStateSnapshot<K, N, ListState<V>, ListStateDescriptor<V>, FsStateBackend> createHeapSnapshot(Path filePath) {
 		return new Snapshot<>(getKeySerializer(), getNamespaceSerializer(), new ArrayListSerializer<>(stateDesc.getSerializer()), stateDesc, filePath);
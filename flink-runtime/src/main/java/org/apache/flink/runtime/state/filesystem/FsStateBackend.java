@@ -79,6 +79,9 @@ public class FsStateBackend extends AbstractStateBackend {
 
 	/** State below this size will be stored as part of the metadata, rather than in files */
 	private final int fileStateThreshold;
+
+	/** Whether partitioned state is written to the checkpoint files asynchronously */
+	private boolean asynchronousSnapshots = false;
 	
 	/** The directory (job specific) into this initialized instance of the backend stores its data */
 	private transient Path checkpointDirectory;
@@ -207,6 +210,42 @@ public class FsStateBackend extends AbstractStateBackend {
 		return fileStateThreshold;
 	}
 
+	/**
+	 * Enables asynchronous snapshotting of the partitioned state held on the heap.
+	 *
+	 * <p>By default, this is disabled. This means that the partitioned state is written to the
+	 * checkpoint files in a synchronous step, during which normal processing of elements pauses.
+	 * With asynchronous snapshots, only a copy-on-write view of the state is taken synchronously,
+	 * which takes constant time, and the state is written in a background thread. In turn, state
+	 * that is modified while the snapshot is written is copied on its first access.
+	 */
+	public void enableAsynchronousSnapshots() {
+		this.asynchronousSnapshots = true;
+	}
+
+	/**
+	 * Disables asynchronous snapshotting of the partitioned state held on the heap.
+	 *
+	 * <p>By default, this is disabled.
+	 */
+	public void disableAsynchronousSnapshots() {
+		this.asynchronousSnapshots = false;
+	}
+
+	/**
+	 * Checks whether partitioned state is written to the checkpoint files asynchronously.
+	 *
+	 * @return True, if asynchronous snapshots are enabled, false otherwise.
+	 */
+	public boolean isAsynchronousSnapshots() {
+		return asynchronousSnapshots;
+	}
+
+	@Override
+	public boolean supportsKeyGroupSnapshots() {
+		return true;
+	}
+
 	/**
 	 * Checks whether this state backend is initialized. Note that initialization does not carry
 	 * across serialization. After each serialization, the state backend needs to be initialized.
@@ -425,6 +464,9 @@ public class FsStateBackend extends AbstractStateBackend {
 
 		private int pos;
 
+		/** The number of bytes that have been flushed to the output stream */
+		private long flushedBytes;
+
 		private FSDataOutputStream outStream;
 		
 		private final int localStateThreshold;
@@ -485,9 +527,15 @@ public class FsStateBackend extends AbstractStateBackend {
 				flush();
 				// write the bytes directly
 				outStream.write(b, off, len);
+				flushedBytes += len;
 			}
 		}
 
+		@Override
+		public long getPos() {
+			return flushedBytes + pos;
+		}
+
 		@Override
 		public void flush() throws IOException {
 			if (!closed) {
@@ -516,6 +564,7 @@ public class FsStateBackend extends AbstractStateBackend {
 				// now flush
 				if (pos > 0) {
 					outStream.write(writeBuffer, 0, pos);
+					flushedBytes += pos;
 					pos = 0;
 				}
 			}
@@ -78,14 +78,8 @@ public class FsValueState<K, N, V>
 
 	@Override
 	public V value() {
-		if (currentNSState == null) {
-			currentNSState = state.get(currentNamespace);
-		}
-		if (currentNSState != null) {
-			V value = currentNSState.get(currentKey);
-			return value != null ? value : stateDesc.getDefaultValue();
-		}
-		return stateDesc.getDefaultValue();
+		V value = state.get(currentKey, currentNamespace);
+		return value != null ? value : stateDesc.getDefaultValue();
 	}
 
 	@Override
@@ -99,12 +93,7 @@ public class FsValueState<K, N, V>
 			return;
 		}
 
-		if (currentNSState == null) {
-			currentNSState = new HashMap<>();
-			state.put(currentNamespace, currentNSState);
-		}
-
-		currentNSState.put(currentKey, value);
+		state.put(currentKey, currentNamespace, value);
 	}
 
 	@Override
@@ -23,6 +23,8 @@ import org.apache.flink.api.common.state.State;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.runtime.state.AbstractHeapState;
+import org.apache.flink.runtime.state.CopyOnWriteStateTable;
+import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KvStateSnapshot;
 import org.apache.flink.runtime.util.DataOutputSerializer;
 
@@ -30,8 +32,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Base class for partitioned {@link ListState} implementations that are backed by a regular
- * heap hash map. The concrete implementations define how the state is checkpointed.
+ * Base class for partitioned {@link ListState} implementations that are backed by a
+ * {@link CopyOnWriteStateTable} on the heap and that are snapshotted into a byte array.
  * 
  * @param <K> The type of the key.
  * @param <N> The type of the namespace.
@@ -62,21 +64,41 @@ public abstract class AbstractMemState<K, N, SV, S extends State, SD extends Sta
 	@Override
 	public KvStateSnapshot<K, N, S, SD, MemoryStateBackend> snapshot(long checkpointId, long timestamp) throws Exception {
 
-		DataOutputSerializer out = new DataOutputSerializer(Math.max(size() * 16, 16));
-
-		out.writeInt(state.size());
-		for (Map.Entry<N, Map<K, SV>> namespaceState: state.entrySet()) {
-			N namespace = namespaceState.getKey();
-			namespaceSerializer.serialize(namespace, out);
-			out.writeInt(namespaceState.getValue().size());
-			for (Map.Entry<K, SV> entry: namespaceState.getValue().entrySet()) {
-				keySerializer.serialize(entry.getKey(), out);
-				stateSerializer.serialize(entry.getValue(), out);
-			}
+		CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot = state.snapshot();
+		DataOutputSerializer out = new DataOutputSerializer(Math.max(tableSnapshot.size() * 16, 16));
+		try {
+			tableSnapshot.write(out, keySerializer, namespaceSerializer, stateSerializer);
+		}
+		finally {
+			tableSnapshot.release();
 		}
 
 		byte[] bytes = out.getCopyOfBuffer();
 
 		return createHeapSnapshot(bytes);
 	}
+
+	@Override
+	public Map<Integer, KvStateSnapshot<K, N, S, SD, MemoryStateBackend>> snapshotKeyGroups(
+			long checkpointId,
+			long timestamp,
+			KeyGroupRange keyGroupRange,
+			int numberOfKeyGroups) throws Exception {
+
+		CopyOnWriteStateTable.Snapshot<K, N, SV> tableSnapshot = state.snapshot();
+		Map<Integer, KvStateSnapshot<K, N, S, SD, MemoryStateBackend>> snapshots = new HashMap<>();
+		try {
+			DataOutputSerializer out = new DataOutputSerializer(16);
+			for (Integer keyGroup : tableSnapshot.groupByKeyGroup(keyGroupRange, numberOfKeyGroups)) {
+				tableSnapshot.writeKeyGroup(keyGroup, out, keySerializer, namespaceSerializer, stateSerializer);
+				snapshots.put(keyGroup, createHeapSnapshot(out.getCopyOfBuffer()));
+				out.clear();
+			}
+		}
+		finally {
+			tableSnapshot.release();
+		}
+
+		return snapshots;
+	}
 }
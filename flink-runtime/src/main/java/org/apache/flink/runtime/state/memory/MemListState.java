@@ -53,18 +53,12 @@ public class MemListState<K, N, V>
 
 	@Override
 	public Iterable<V> get() {
-		if (currentNSState == null) {
-			currentNSState = state.get(currentNamespace);
+		List<V> result = state.get(currentKey, currentNamespace);
+		if (result == null) {
+			return Collections.emptyList();
+		} else {
+			return result;
 		}
-		if (currentNSState != null) {
-			List<V> result = currentNSState.get(currentKey);
-			if (result == null) {
-				return Collections.emptyList();
-			} else {
-				return result;
-			}
-		}
-		return Collections.emptyList();
 	}
 
 	@Override
@@ -73,16 +67,10 @@ public class MemListState<K, N, V>
 			throw new RuntimeException("No key available.");
 		}
 
-		if (currentNSState == null) {
-			currentNSState = new HashMap<>();
-			state.put(currentNamespace, currentNSState);
-		}
-
-
-		ArrayList<V> list = currentNSState.get(currentKey);
+		ArrayList<V> list = state.get(currentKey, currentNamespace);
 		if (list == null) {
 			list = new ArrayList<>();
-			currentNSState.put(currentKey, list);
+			state.put(currentKey, currentNamespace, list);
 		}
 		list.add(value);
 	}
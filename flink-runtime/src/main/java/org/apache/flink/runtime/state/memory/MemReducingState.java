@@ -60,13 +60,7 @@ public class MemReducingState<K, N, V>
 
 	@Override
 	public V get() {
-		if (currentNSState == null) {
-			currentNSState = state.get(currentNamespace);
-		}
-		if (currentNSState != null) {
-			return currentNSState.get(currentKey);
-		}
-		return null;
+		return state.get(currentKey, currentNamespace);
 	}
 
 	@Override
@@ -75,26 +69,12 @@ public class MemReducingState<K, N, V>
 			throw new RuntimeException("No key available.");
 		}
 
-		if (currentNSState == null) {
-			currentNSState = new HashMap<>();
-			state.put(currentNamespace, currentNSState);
-		}
-//		currentKeyState.merge(currentNamespace, value, new BiFunction<V, V, V>() {
-//			@Override
-//			public V apply(V v, V v2) {
-//				try {
-//					return reduceFunction.reduce(v, v2);
-//				} catch (Exception e) {
-//					return null;
-//				}
-//			}
-//		});
-		V currentValue = currentNSState.get(currentKey);
+		V currentValue = state.get(currentKey, currentNamespace);
 		if (currentValue == null) {
-			currentNSState.put(currentKey, value);
+			state.put(currentKey, currentNamespace, value);
 		} else {
 			try {
-				currentNSState.put(currentKey, reduceFunction.reduce(currentValue, value));
+				state.put(currentKey, currentNamespace, reduceFunction.reduce(currentValue, value));
 			} catch (Exception e) {
 				throw new RuntimeException("Could not add value to reducing state.", e);
 			}
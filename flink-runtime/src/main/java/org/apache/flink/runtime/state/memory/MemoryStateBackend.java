@@ -80,6 +80,11 @@ public class MemoryStateBackend extends AbstractStateBackend {
 	@Override
 	public void close() throws Exception {}
 
+	@Override
+	public boolean supportsKeyGroupSnapshots() {
+		return true;
+	}
+
 	// ------------------------------------------------------------------------
 	//  State backend operations
 	// ------------------------------------------------------------------------
@@ -177,6 +182,11 @@ public class MemoryStateBackend extends AbstractStateBackend {
 			os.write(b, off, len);
 		}
 
+		@Override
+		public long getPos() {
+			return os.size();
+		}
+
 		// --------------------------------------------------------------------
 
 		@Override
@@ -39,6 +39,7 @@ import org.apache.flink.runtime.messages.checkpoint.AcknowledgeCheckpoint;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.util.SerializedValue;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Future;
 
@@ -235,38 +236,58 @@ public class RuntimeEnvironment implements Environment {
 
 	@Override
 	public void acknowledgeCheckpoint(long checkpointId, StateHandle<?> state) {
-		// try and create a serialized version of the state handle
-		SerializedValue<StateHandle<?>> serializedState;
-		long stateSize;
-
-		if (state == null) {
-			serializedState = null;
-			stateSize = 0;
-		} else {
-			try {
-				serializedState = new SerializedValue<StateHandle<?>>(state);
-			} catch (Exception e) {
-				throw new RuntimeException("Failed to serialize state handle during checkpoint confirmation", e);
-			}
+		acknowledgeCheckpoint(checkpointId, state, null);
+	}
 
-			try {
-				stateSize = state.getStateSize();
-			}
-			catch (Exception e) {
-				throw new RuntimeException("Failed to fetch state handle size", e);
+	@Override
+	public void acknowledgeCheckpoint(long checkpointId, StateHandle<?> state, Map<Integer, StateHandle<?>> keyGroupStates) {
+		// try and create a serialized version of the state handles
+		SerializedValue<StateHandle<?>> serializedState = serializeState(state);
+		long stateSize = getStateSize(state);
+
+		Map<Integer, SerializedValue<StateHandle<?>>> serializedKeyGroupStates = null;
+		if (keyGroupStates != null) {
+			serializedKeyGroupStates = new HashMap<>(keyGroupStates.size());
+			for (Map.Entry<Integer, StateHandle<?>> keyGroupState : keyGroupStates.entrySet()) {
+				serializedKeyGroupStates.put(keyGroupState.getKey(), serializeState(keyGroupState.getValue()));
+				stateSize += getStateSize(keyGroupState.getValue());
 			}
 		}
-		
+
 		AcknowledgeCheckpoint message = new AcknowledgeCheckpoint(
 				jobId,
 				executionId,
 				checkpointId,
 				serializedState,
-				stateSize);
+				stateSize,
+				serializedKeyGroupStates);
 
 		jobManager.tell(message);
 	}
 
+	private static SerializedValue<StateHandle<?>> serializeState(StateHandle<?> state) {
+		if (state == null) {
+			return null;
+		}
+		try {
+			return new SerializedValue<StateHandle<?>>(state);
+		} catch (Exception e) {
+			throw new RuntimeException("Failed to serialize state handle during checkpoint confirmation", e);
+		}
+	}
+
+	private static long getStateSize(StateHandle<?> state) {
+		if (state == null) {
+			return 0;
+		}
+		try {
+			return state.getStateSize();
+		}
+		catch (Exception e) {
+			throw new RuntimeException("Failed to fetch state handle size", e);
+		}
+	}
+
 	@Override
 	public void failExternally(Throwable cause) {
 		this.containingTask.failExternally(cause);
@@ -25,6 +25,7 @@ import org.apache.flink.api.common.cache.DistributedCache;
 import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.core.fs.Path;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.groups.TaskMetricGroup;
 import org.apache.flink.runtime.accumulators.AccumulatorRegistry;
 import org.apache.flink.runtime.blob.BlobKey;
@@ -42,8 +43,14 @@ import org.apache.flink.runtime.instance.ActorGateway;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.NetworkEnvironment;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.apache.flink.runtime.io.network.partition.OutputBufferPoolBlockedTimeGauge;
+import org.apache.flink.runtime.io.network.partition.OutputBufferPoolUsageGauge;
+import org.apache.flink.runtime.io.network.partition.OutputBuffersGauge;
 import org.apache.flink.runtime.io.network.partition.ResultPartition;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.consumer.InputBufferPoolUsageGauge;
+import org.apache.flink.runtime.io.network.partition.consumer.InputBuffersGauge;
 import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
 import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
@@ -226,6 +233,10 @@ public class Task implements Runnable {
 	 * initialization, to be memory friendly */
 	private volatile SerializedValue<StateHandle<?>> operatorState;
 
+	/** The handles to the state of the key groups assigned to this task. Will be set to null after
+	 * the initialization, to be memory friendly */
+	private volatile Map<Integer, SerializedValue<StateHandle<?>>> keyGroupStates;
+
 	private volatile long recoveryTs;
 
 	/** Initialized from the Flink configuration. May also be set at the ExecutionConfig */
@@ -259,6 +270,7 @@ public class Task implements Runnable {
 		this.requiredClasspaths = checkNotNull(tdd.getRequiredClasspaths());
 		this.nameOfInvokableClass = checkNotNull(tdd.getInvokableClassName());
 		this.operatorState = tdd.getOperatorState();
+		this.keyGroupStates = tdd.getKeyGroupStates();
 		this.recoveryTs = tdd.getRecoveryTimestamp();
 		this.serializedExecutionConfig = checkNotNull(tdd.getSerializedExecutionConfig());
 
@@ -298,6 +310,11 @@ public class Task implements Runnable {
 			ResultPartitionDeploymentDescriptor desc = partitions.get(i);
 			ResultPartitionID partitionId = new ResultPartitionID(desc.getPartitionId(), executionId);
 
+			// buffers for remote consumers are compressed by the network stack when they are sent
+			final BufferCompressor spillCompressor = networkEnvironment.isNetworkCompressionEnabled()
+					|| networkEnvironment.isSpilledPartitionCompressionEnabled()
+					? new BufferCompressor(networkEnvironment.getNetworkBufferSize()) : null;
+
 			this.producedPartitions[i] = new ResultPartition(
 					taskNameWithSubtaskAndId,
 					jobId,
@@ -308,7 +325,14 @@ public class Task implements Runnable {
 					networkEnvironment.getPartitionManager(),
 					networkEnvironment.getPartitionConsumableNotifier(),
 					ioManager,
-					networkEnvironment.getDefaultIOMode());
+					networkEnvironment.getDefaultIOMode(),
+					spillCompressor,
+					networkEnvironment.getSortShuffleMinParallelism());
+
+			if (spillCompressor != null) {
+				this.producedPartitions[i].registerMetrics(
+						metricGroup.addGroup("ResultPartition").addGroup(i));
+			}
 
 			this.writers[i] = new ResultPartitionWriter(this.producedPartitions[i]);
 		}
@@ -326,6 +350,20 @@ public class Task implements Runnable {
 			inputGatesById.put(gate.getConsumedResultId(), gate);
 		}
 
+		// the buffer pools are assigned when the task registers at the network stack,
+		// the gauges report zero usage until then
+		MetricGroup buffersGroup = metricGroup.getIOMetricGroup().getBuffersGroup();
+		buffersGroup.gauge("inputQueueLength", new InputBuffersGauge(inputGates));
+		buffersGroup.gauge("outputQueueLength", new OutputBuffersGauge(producedPartitions));
+		buffersGroup.gauge("inPoolUsage", new InputBufferPoolUsageGauge(inputGates));
+		buffersGroup.gauge("outPoolUsage", new OutputBufferPoolUsageGauge(producedPartitions));
+		buffersGroup.gauge("outPoolBlockedTime", new OutputBufferPoolBlockedTimeGauge(producedPartitions));
+
+		MetricGroup inputGatesGroup = buffersGroup.addGroup("InputGate");
+		for (int i = 0; i < this.inputGates.length; i++) {
+			this.inputGates[i].registerMetrics(inputGatesGroup.addGroup(i));
+		}
+
 		invokableHasBeenCanceled = new AtomicBoolean(false);
 
 		// finally, create the executing thread, but do not start it
@@ -556,11 +594,34 @@ public class Task implements Runnable {
 				}
 			}
 
+			Map<Integer, SerializedValue<StateHandle<?>>> keyGroupStates = this.keyGroupStates;
+
+			if (keyGroupStates != null && !keyGroupStates.isEmpty()) {
+				if (invokable instanceof StatefulTask) {
+					try {
+						Map<Integer, StateHandle<?>> states = new HashMap<>(keyGroupStates.size());
+						for (Map.Entry<Integer, SerializedValue<StateHandle<?>>> entry : keyGroupStates.entrySet()) {
+							states.put(entry.getKey(), entry.getValue().deserializeValue(userCodeClassLoader));
+						}
+						((StatefulTask<?>) invokable).setInitialKeyGroupStates(states, recoveryTs);
+					}
+					catch (Exception e) {
+						throw new RuntimeException("Failed to deserialize key group state handles and setup initial key group states.", e);
+					}
+				}
+				else {
+					throw new IllegalStateException("Found key group state for a non-stateful task invokable");
+				}
+			}
+
 			// be memory and GC friendly - since the code stays in invoke() for a potentially long time,
 			// we clear the reference to the state handle
 			//noinspection UnusedAssignment
 			operatorState = null;
 			this.operatorState = null;
+			//noinspection UnusedAssignment
+			keyGroupStates = null;
+			this.keyGroupStates = null;
 
 			// ----------------------------------------------------------------
 			//  actual task core work
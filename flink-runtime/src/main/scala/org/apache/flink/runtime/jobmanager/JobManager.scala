@@ -73,6 +73,7 @@ import org.apache.flink.runtime.messages.webmonitor._
 import org.apache.flink.runtime.process.ProcessReaper
 import org.apache.flink.runtime.security.SecurityUtils
 import org.apache.flink.runtime.security.SecurityUtils.FlinkSecuredRunner
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment
 import org.apache.flink.runtime.taskmanager.TaskManager
 import org.apache.flink.runtime.util._
 import org.apache.flink.runtime.webmonitor.{WebMonitor, WebMonitorUtils}
@@ -1241,21 +1242,20 @@ class JobManager(
               new SimpleCheckpointStatsTracker(historySize, ackVertices, jobMetrics)
             }
 
-          val jobParallelism = jobGraph.getSerializedExecutionConfig
-            .deserializeValue(userCodeLoader).getParallelism()
+          val jobExecutionConfig = jobGraph.getSerializedExecutionConfig
+            .deserializeValue(userCodeLoader)
 
-          val parallelism = if (jobParallelism == ExecutionConfig.PARALLELISM_AUTO_MAX) {
-            numSlots
-          } else {
-            jobParallelism
-          }
+          // the key-partitioned state is checkpointed in this many key groups, the
+          // tasks resolve the same number from the execution config
+          val numberKeyGroups = KeyGroupRangeAssignment.resolveNumberOfKeyGroups(
+            jobExecutionConfig.getMaxParallelism())
 
           executionGraph.enableSnapshotCheckpointing(
             snapshotSettings.getCheckpointInterval,
             snapshotSettings.getCheckpointTimeout,
             snapshotSettings.getMinPauseBetweenCheckpoints,
             snapshotSettings.getMaxConcurrentCheckpoints,
-            parallelism,
+            numberKeyGroups,
             triggerVertices,
             ackVertices,
             confirmVertices,
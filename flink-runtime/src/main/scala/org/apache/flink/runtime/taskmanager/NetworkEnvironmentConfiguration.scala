@@ -28,4 +28,7 @@ case class NetworkEnvironmentConfiguration(
   memoryType: MemoryType,
   ioMode: IOMode,
   nettyConfig: Option[NettyConfig] = None,
-  partitionRequestInitialAndMaxBackoff: (Integer, Integer) = (500, 3000))
+  partitionRequestInitialAndMaxBackoff: (Integer, Integer) = (500, 3000),
+  compressionEnabled: Boolean = false,
+  spilledPartitionCompressionEnabled: Boolean = false,
+  sortShuffleMinParallelism: Int = Integer.MAX_VALUE)
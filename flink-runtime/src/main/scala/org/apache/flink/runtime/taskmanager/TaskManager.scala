@@ -58,7 +58,7 @@ import org.apache.flink.runtime.io.network.NetworkEnvironment
 import org.apache.flink.runtime.io.network.netty.NettyConfig
 import org.apache.flink.runtime.jobgraph.IntermediateDataSetID
 import org.apache.flink.runtime.leaderretrieval.{LeaderRetrievalListener, LeaderRetrievalService}
-import org.apache.flink.runtime.memory.MemoryManager
+import org.apache.flink.runtime.memory.{MemoryManager, UnifiedMemoryPool}
 import org.apache.flink.runtime.messages.Messages._
 import org.apache.flink.runtime.messages.RegistrationMessages._
 import org.apache.flink.runtime.messages.StackTraceSampleMessages.{ResponseStackTraceSampleFailure, ResponseStackTraceSampleSuccess, SampleTaskStackTrace, StackTraceSampleMessages, TriggerStackTraceSample}
@@ -258,6 +258,9 @@ class TaskManager(
       case t: Exception => log.error("Network environment did not shutdown properly.", t)
     }
 
+    // release the direct memory after the memory manager and the network stack have shut down
+    Option(memoryManager.getUnifiedMemoryPool).foreach(_.destroy())
+
     try {
       fileCache.shutdown()
     } catch {
@@ -948,6 +951,9 @@ class TaskManager(
       new TaskManagerMetricGroup(metricsRegistry, this.runtimeInfo.getHostname, id.toString)
     
     TaskManager.instantiateStatusMetrics(taskManagerMetricGroup)
+
+    Option(memoryManager.getUnifiedMemoryPool).foreach(
+      _.registerMetrics(taskManagerMetricGroup.addGroup("Status").addGroup("UnifiedMemory")))
     
     // watch job manager to detect when it dies
     context.watch(jobManager)
@@ -1796,11 +1802,118 @@ object TaskManager {
 
     val executionContext = ExecutionContext.fromExecutor(new ForkJoinPool())
 
-    // we start the network first, to make sure it can allocate its buffers first
-    val network = new NetworkEnvironment(executionContext, taskManagerConfig.timeout, netConfig)
+    val preAllocateMemory = configuration.getBoolean(
+      ConfigConstants.TASK_MANAGER_MEMORY_PRE_ALLOCATE_KEY,
+      ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_PRE_ALLOCATE)
+
+    // with off-heap memory, the network buffers and the managed memory may share one pool
+    val useUnifiedMemoryPool = memType == MemoryType.OFF_HEAP && configuration.getBoolean(
+      ConfigConstants.TASK_MANAGER_MEMORY_UNIFIED_POOL_KEY,
+      ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_UNIFIED_POOL)
 
-    // computing the amount of memory to use depends on how much memory is available
-    // it strictly needs to happen AFTER the network stack has been initialized
+    val (network, memoryManager) = if (useUnifiedMemoryPool) {
+      // the size of off-heap memory does not depend on the heap used by the network stack
+      val memorySize = computeManagedMemorySize(configuration, memType, preAllocateMemory = true)
+
+      val floatingFraction = configuration.getFloat(
+        ConfigConstants.TASK_MANAGER_MEMORY_UNIFIED_POOL_FLOATING_FRACTION_KEY,
+        ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_UNIFIED_POOL_FLOATING_FRACTION)
+      checkConfigParameter(floatingFraction >= 0.0f && floatingFraction < 1.0f, floatingFraction,
+        ConfigConstants.TASK_MANAGER_MEMORY_UNIFIED_POOL_FLOATING_FRACTION_KEY,
+        "The floating fraction of the unified memory pool must be within [0.0, 1.0)")
+
+      val memoryPool = new UnifiedMemoryPool(netConfig.networkBufferSize, floatingFraction)
+
+      val (networkLease, managedMemoryLease) = try {
+        (memoryPool.createLease("Network", netConfig.numNetworkBuffers),
+          memoryPool.createLease("ManagedMemory", (memorySize / netConfig.networkBufferSize).toInt))
+      }
+      catch {
+        case e: OutOfMemoryError =>
+          throw new Exception(s"OutOfMemory error (${e.getMessage()})" +
+            s" while allocating the TaskManager unified off-heap memory pool. " +
+            s"Try increasing the maximum direct memory (-XX:MaxDirectMemorySize)", e)
+      }
+
+      (new NetworkEnvironment(executionContext, taskManagerConfig.timeout, netConfig, networkLease),
+        new MemoryManager(managedMemoryLease, taskManagerConfig.numberOfSlots))
+    }
+    else {
+      // we start the network first, to make sure it can allocate its buffers first
+      val network = new NetworkEnvironment(executionContext, taskManagerConfig.timeout, netConfig)
+
+      // computing the amount of memory to use depends on how much memory is available
+      // it strictly needs to happen AFTER the network stack has been initialized
+      val memorySize = computeManagedMemorySize(configuration, memType, preAllocateMemory)
+
+      // now start the memory manager
+      val memoryManager = try {
+        new MemoryManager(
+          memorySize,
+          taskManagerConfig.numberOfSlots,
+          netConfig.networkBufferSize,
+          memType,
+          preAllocateMemory)
+      }
+      catch {
+        case e: OutOfMemoryError =>
+          memType match {
+            case MemoryType.HEAP =>
+              throw new Exception(s"OutOfMemory error (${e.getMessage()})" +
+                s" while allocating the TaskManager heap memory ($memorySize bytes).", e)
+
+            case MemoryType.OFF_HEAP =>
+              throw new Exception(s"OutOfMemory error (${e.getMessage()})" +
+                s" while allocating the TaskManager off-heap memory ($memorySize bytes). " +
+                s"Try increasing the maximum direct memory (-XX:MaxDirectMemorySize)", e)
+
+            case _ => throw e
+          }
+      }
+
+      (network, memoryManager)
+    }
+
+    // start the I/O manager last, it will create some temp directories.
+    val ioManager: IOManager = new IOManagerAsync(taskManagerConfig.tmpDirPaths)
+
+    val leaderRetrievalService = leaderRetrievalServiceOption match {
+      case Some(lrs) => lrs
+      case None => LeaderRetrievalUtils.createLeaderRetrievalService(configuration)
+    }
+
+    // create the actor properties (which define the actor constructor parameters)
+    val tmProps = Props(
+      taskManagerClass,
+      taskManagerConfig,
+      resourceID,
+      connectionInfo,
+      memoryManager,
+      ioManager,
+      network,
+      taskManagerConfig.numberOfSlots,
+      leaderRetrievalService)
+
+    taskManagerActorName match {
+      case Some(actorName) => actorSystem.actorOf(tmProps, actorName)
+      case None => actorSystem.actorOf(tmProps)
+    }
+  }
+
+  /**
+   * Computes the size of the memory managed by the memory manager, either from the configured
+   * absolute size, or as a fraction of the heap / maximum memory.
+   *
+   * @param configuration The configuration of the TaskManager.
+   * @param memType The type of the managed memory.
+   * @param preAllocateMemory Whether the managed memory is allocated eagerly (only logged).
+   * @return The size of the managed memory in bytes.
+   */
+  private def computeManagedMemorySize(
+      configuration: Configuration,
+      memType: MemoryType,
+      preAllocateMemory: Boolean)
+    : Long = {
 
     // check if a value has been configured
     val configuredMemory = configuration.getLong(ConfigConstants.TASK_MANAGER_MEMORY_SIZE_KEY, -1L)
@@ -1811,10 +1924,6 @@ object TaskManager {
         "pick a fraction of the available memory.")
 
 
-    val preAllocateMemory = configuration.getBoolean(
-      ConfigConstants.TASK_MANAGER_MEMORY_PRE_ALLOCATE_KEY,
-      ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_PRE_ALLOCATE)
-
     val memorySize = if (configuredMemory > 0) {
       if (preAllocateMemory) {
         LOG.info(s"Using $configuredMemory MB for managed memory.")
@@ -1867,55 +1976,7 @@ object TaskManager {
       }
     }
 
-    // now start the memory manager
-    val memoryManager = try {
-      new MemoryManager(
-        memorySize,
-        taskManagerConfig.numberOfSlots,
-        netConfig.networkBufferSize,
-        memType,
-        preAllocateMemory)
-    }
-    catch {
-      case e: OutOfMemoryError =>
-        memType match {
-          case MemoryType.HEAP =>
-            throw new Exception(s"OutOfMemory error (${e.getMessage()})" +
-              s" while allocating the TaskManager heap memory ($memorySize bytes).", e)
-
-          case MemoryType.OFF_HEAP =>
-            throw new Exception(s"OutOfMemory error (${e.getMessage()})" +
-              s" while allocating the TaskManager off-heap memory ($memorySize bytes). " +
-              s"Try increasing the maximum direct memory (-XX:MaxDirectMemorySize)", e)
-
-          case _ => throw e
-        }
-    }
-
-    // start the I/O manager last, it will create some temp directories.
-    val ioManager: IOManager = new IOManagerAsync(taskManagerConfig.tmpDirPaths)
-
-    val leaderRetrievalService = leaderRetrievalServiceOption match {
-      case Some(lrs) => lrs
-      case None => LeaderRetrievalUtils.createLeaderRetrievalService(configuration)
-    }
-
-    // create the actor properties (which define the actor constructor parameters)
-    val tmProps = Props(
-      taskManagerClass,
-      taskManagerConfig,
-      resourceID,
-      connectionInfo,
-      memoryManager,
-      ioManager,
-      network,
-      taskManagerConfig.numberOfSlots,
-      leaderRetrievalService)
-
-    taskManagerActorName match {
-      case Some(actorName) => actorSystem.actorOf(tmProps, actorName)
-      case None => actorSystem.actorOf(tmProps)
-    }
+    memorySize
   }
 
 
@@ -2081,12 +2142,33 @@ object TaskManager {
 
     val ioMode : IOMode = if (syncOrAsync == "async") IOMode.ASYNC else IOMode.SYNC
 
+    // LZ4 compression of network buffers and spilled intermediate results
+    val compressionEnabled = configuration.getBoolean(
+      ConfigConstants.TASK_MANAGER_NETWORK_COMPRESSION_ENABLED,
+      ConfigConstants.DEFAULT_TASK_MANAGER_NETWORK_COMPRESSION_ENABLED)
+
+    val spilledPartitionCompressionEnabled = configuration.getBoolean(
+      ConfigConstants.TASK_MANAGER_NETWORK_SPILL_COMPRESSION_ENABLED,
+      ConfigConstants.DEFAULT_TASK_MANAGER_NETWORK_SPILL_COMPRESSION_ENABLED)
+
+    // blocking results with at least this many subpartitions write a single sorted file
+    val sortShuffleMinParallelism = configuration.getInteger(
+      ConfigConstants.TASK_MANAGER_NETWORK_SORT_SHUFFLE_MIN_PARALLELISM,
+      ConfigConstants.DEFAULT_TASK_MANAGER_NETWORK_SORT_SHUFFLE_MIN_PARALLELISM)
+
+    checkConfigParameter(sortShuffleMinParallelism > 0, sortShuffleMinParallelism,
+      ConfigConstants.TASK_MANAGER_NETWORK_SORT_SHUFFLE_MIN_PARALLELISM,
+      "Minimum parallelism for the sort-merge shuffle must be positive.")
+
     val networkConfig = NetworkEnvironmentConfiguration(
       numNetworkBuffers,
       pageSize,
       memType,
       ioMode,
-      nettyConfig)
+      nettyConfig,
+      compressionEnabled = compressionEnabled,
+      spilledPartitionCompressionEnabled = spilledPartitionCompressionEnabled,
+      sortShuffleMinParallelism = sortShuffleMinParallelism)
 
     // ----> timeouts, library caching, profiling
 
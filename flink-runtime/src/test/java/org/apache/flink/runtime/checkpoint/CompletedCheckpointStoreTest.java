@@ -21,6 +21,7 @@ package org.apache.flink.runtime.checkpoint;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.runtime.messages.CheckpointMessagesTest;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.util.SerializedValue;
 import org.apache.flink.util.TestLogger;
@@ -242,8 +243,8 @@ public abstract class CompletedCheckpointStoreTest extends TestLogger {
 		}
 
 		@Override
-		public void discard(ClassLoader userClassLoader) {
-			super.discard(userClassLoader);
+		public void discard(ClassLoader userClassLoader, SharedStateRegistry sharedStateRegistry) {
+			super.discard(userClassLoader, sharedStateRegistry);
 
 			if (!isDiscarded) {
 				this.discardClassLoader = userClassLoader;
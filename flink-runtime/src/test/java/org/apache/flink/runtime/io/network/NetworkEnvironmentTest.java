@@ -80,7 +80,7 @@ public class NetworkEnvironmentTest {
 			NetworkEnvironmentConfiguration config = new NetworkEnvironmentConfiguration(
 					NUM_BUFFERS, BUFFER_SIZE, MemoryType.HEAP,
 					IOManager.IOMode.SYNC, new Some<>(nettyConf),
-					new Tuple2<>(0, 0));
+					new Tuple2<>(0, 0), false, false, Integer.MAX_VALUE);
 
 			NetworkEnvironment env = new NetworkEnvironment(
 				TestingUtils.defaultExecutionContext(),
@@ -173,7 +173,7 @@ public class NetworkEnvironmentTest {
 				MemoryType.HEAP,
 				IOManager.IOMode.SYNC,
 				Some.<NettyConfig>empty(),
-				new Tuple2<>(0, 0));
+				new Tuple2<>(0, 0), false, false, Integer.MAX_VALUE);
 
 		NetworkEnvironment env = new NetworkEnvironment(
 				TestingUtils.defaultExecutionContext(),
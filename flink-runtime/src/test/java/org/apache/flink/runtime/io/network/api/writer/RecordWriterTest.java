@@ -23,6 +23,7 @@ import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.io.network.util.TestBufferFactory;
 import org.apache.flink.runtime.io.network.util.TestTaskEvent;
 import org.apache.flink.types.IntValue;
@@ -37,6 +38,9 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -46,6 +50,7 @@ import java.util.concurrent.Future;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
@@ -293,6 +298,73 @@ public class RecordWriterTest {
 		recordWriter.flush();
 	}
 
+	// ---------------------------------------------------------------------------------------------
+	// Local object hand-over tests
+	// ---------------------------------------------------------------------------------------------
+
+	/**
+	 * Tests that records are handed over as copies in object batches after the consumer of a
+	 * channel asked for objects, and that records serialized before are written first.
+	 */
+	@Test
+	public void testObjectHandOverAfterSerializedRecords() throws Exception {
+		BufferProvider bufferProvider = mock(BufferProvider.class);
+		when(bufferProvider.requestBufferBlocking()).thenAnswer(new Answer<Buffer>() {
+			@Override
+			public Buffer answer(InvocationOnMock invocation) throws Throwable {
+				return TestBufferFactory.createBuffer(16);
+			}
+		});
+
+		ResultPartitionWriter partitionWriter = mock(ResultPartitionWriter.class);
+		when(partitionWriter.getBufferProvider()).thenReturn(bufferProvider);
+		when(partitionWriter.getNumberOfOutputChannels()).thenReturn(1);
+
+		final List<Buffer> writtenBuffers = new ArrayList<Buffer>();
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				writtenBuffers.add((Buffer) invocation.getArguments()[0]);
+
+				return null;
+			}
+		}).when(partitionWriter).writeBuffer(any(Buffer.class), anyInt());
+
+		RecordWriter<IntValue> recordWriter = new RecordWriter<IntValue>(partitionWriter) {
+			@Override
+			protected Object copyForObjectHandOver(IntValue record) {
+				return new IntValue(record.getValue());
+			}
+		};
+
+		IntValue value = new IntValue(1);
+
+		// The consumer did not ask for objects yet
+		recordWriter.emit(value);
+		verify(partitionWriter, never()).writeBuffer(any(Buffer.class), anyInt());
+
+		when(partitionWriter.isObjectHandOverEnabled(0)).thenReturn(true);
+
+		value.setValue(2);
+		recordWriter.emit(value);
+
+		value.setValue(3);
+		recordWriter.emit(value);
+
+		// Modifying the emitted record must not affect the handed over copies
+		value.setValue(4);
+		recordWriter.flush();
+
+		assertEquals(2, writtenBuffers.size());
+
+		// length (4 bytes) + value (4 bytes)
+		assertFalse(writtenBuffers.get(0) instanceof ObjectBuffer);
+		assertEquals(8, writtenBuffers.get(0).getSize());
+
+		ObjectBuffer batch = (ObjectBuffer) writtenBuffers.get(1);
+		assertEquals(Arrays.<Object>asList(new IntValue(2), new IntValue(3)), batch.getRecords());
+	}
+
 	// ---------------------------------------------------------------------------------------------
 	// Helpers
 	// ---------------------------------------------------------------------------------------------
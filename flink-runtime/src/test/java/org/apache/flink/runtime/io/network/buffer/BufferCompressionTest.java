@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BufferCompressionTest {
+
+	private static final int BUFFER_SIZE = 32 * 1024;
+
+	@Test
+	public void testCompressDecompressRoundTrip() throws Exception {
+		final BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE);
+		final BufferDecompressor decompressor = new BufferDecompressor();
+
+		final Buffer buffer = createBuffer(BUFFER_SIZE - 17, false);
+
+		assertTrue(compressor.compress(buffer));
+		assertTrue(buffer.isCompressed());
+		assertTrue(buffer.getSize() < BUFFER_SIZE - 17);
+		assertTrue(compressor.getCompressionRatio() < 1.0);
+
+		// compressing again has no effect
+		final int compressedSize = buffer.getSize();
+		assertFalse(compressor.compress(buffer));
+		assertEquals(compressedSize, buffer.getSize());
+
+		// the contents are decompressed into a buffer of the provider
+		final Buffer pooled = createBuffer(0, false);
+		final BufferProvider bufferProvider = mock(BufferProvider.class);
+		when(bufferProvider.requestBuffer()).thenReturn(pooled);
+
+		final Buffer decompressed = decompressor.decompress(buffer, bufferProvider);
+
+		assertSame(pooled, decompressed);
+		assertTrue(buffer.isRecycled());
+		assertFalse(decompressed.isCompressed());
+		assertEquals(BUFFER_SIZE - 17, decompressed.getSize());
+		verifyContents(decompressed);
+
+		decompressed.recycle();
+	}
+
+	@Test
+	public void testDecompressInPlaceWithoutAvailableBuffer() throws Exception {
+		final BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE);
+		final BufferDecompressor decompressor = new BufferDecompressor();
+
+		final Buffer buffer = createBuffer(BUFFER_SIZE, false);
+		assertTrue(compressor.compress(buffer));
+
+		final Buffer decompressed = decompressor.decompress(buffer, mock(BufferProvider.class));
+
+		assertSame(buffer, decompressed);
+		assertFalse(decompressed.isRecycled());
+		assertFalse(decompressed.isCompressed());
+		assertEquals(BUFFER_SIZE, decompressed.getSize());
+		verifyContents(decompressed);
+
+		decompressed.recycle();
+	}
+
+	@Test
+	public void testCompressIntoTargetLeavesBufferUnchanged() throws Exception {
+		final BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE);
+		final BufferDecompressor decompressor = new BufferDecompressor();
+
+		final Buffer buffer = createBuffer(BUFFER_SIZE - 17, false);
+
+		final int offset = 5;
+		final ByteBuffer target = ByteBuffer.allocate(offset + compressor.getMaxCompressedLength());
+		final int compressedSize = compressor.compress(buffer, target, offset);
+
+		assertTrue(compressedSize > 0);
+		assertTrue(compressedSize < BUFFER_SIZE - 17);
+		assertFalse(buffer.isCompressed());
+		assertEquals(BUFFER_SIZE - 17, buffer.getSize());
+		verifyContents(buffer);
+
+		// the compressed contents decompress to the original ones
+		final Buffer compressed = createBuffer(0, false);
+		compressed.getMemorySegment().put(0, target.array(), offset, compressedSize);
+		compressed.setSize(compressedSize);
+		compressed.setCompressed(true);
+
+		final Buffer decompressed = decompressor.decompress(compressed, null);
+
+		assertNotSame(buffer, decompressed);
+		assertEquals(BUFFER_SIZE - 17, decompressed.getSize());
+		verifyContents(decompressed);
+	}
+
+	@Test
+	public void testIncompressibleBufferIsLeftUnchanged() throws Exception {
+		final BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE);
+
+		final Buffer buffer = createBuffer(BUFFER_SIZE, true);
+		final byte[] expected = new byte[BUFFER_SIZE];
+		buffer.getMemorySegment().get(0, expected);
+
+		assertFalse(compressor.compress(buffer));
+		assertFalse(buffer.isCompressed());
+		assertEquals(BUFFER_SIZE, buffer.getSize());
+
+		final byte[] actual = new byte[BUFFER_SIZE];
+		buffer.getMemorySegment().get(0, actual);
+
+		for (int i = 0; i < BUFFER_SIZE; i++) {
+			assertEquals(expected[i], actual[i]);
+		}
+
+		assertEquals(1.0, compressor.getCompressionRatio(), 0.0);
+	}
+
+	@Test
+	public void testEventsAreNotCompressed() throws Exception {
+		final BufferCompressor compressor = new BufferCompressor(BUFFER_SIZE);
+
+		final Buffer event = EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE);
+
+		assertFalse(compressor.compress(event));
+		assertEquals(-1, compressor.compress(event, ByteBuffer.allocate(compressor.getMaxCompressedLength()), 0));
+		assertFalse(event.isCompressed());
+		assertEquals(1.0, compressor.getCompressionRatio(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDecompressUncompressedBuffer() throws Exception {
+		new BufferDecompressor().decompress(createBuffer(128, false), null);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static void verifyContents(Buffer buffer) {
+		final MemorySegment segment = buffer.getMemorySegment();
+		for (int i = 0; i < buffer.getSize(); i++) {
+			assertEquals((byte) (i % 16), segment.get(i));
+		}
+	}
+
+	private static Buffer createBuffer(int size, boolean random) {
+		final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(BUFFER_SIZE);
+
+		if (random) {
+			final byte[] bytes = new byte[size];
+			new Random(42).nextBytes(bytes);
+			segment.put(0, bytes);
+		}
+		else {
+			for (int i = 0; i < size; i++) {
+				segment.put(i, (byte) (i % 16));
+			}
+		}
+
+		final Buffer buffer = new Buffer(segment, FreeingBufferRecycler.INSTANCE);
+		buffer.setSize(size);
+		return buffer;
+	}
+}
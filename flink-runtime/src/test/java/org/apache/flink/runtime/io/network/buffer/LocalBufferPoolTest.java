@@ -31,6 +31,8 @@ import org.mockito.Mockito;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -38,6 +40,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -328,6 +331,91 @@ public class LocalBufferPoolTest {
 		}
 	}
 
+	@Test
+	public void testBlockedTimeOfBlockingRequest() throws Exception {
+		localBufferPool.setNumBuffers(1);
+
+		final Buffer available = localBufferPool.requestBuffer();
+		assertNotNull(available);
+		assertEquals(0, localBufferPool.getTotalBlockedTimeMillis());
+
+		Future<Buffer> blocked = executor.submit(new Callable<Buffer>() {
+			@Override
+			public Buffer call() throws Exception {
+				return localBufferPool.requestBufferBlocking();
+			}
+		});
+
+		// give the request time to block
+		Thread.sleep(100);
+
+		available.recycle();
+
+		Buffer buffer = blocked.get(60, TimeUnit.SECONDS);
+		buffer.recycle();
+
+		assertTrue(localBufferPool.getTotalBlockedTimeMillis() > 0);
+	}
+
+	@Test
+	public void testListenerReceivesRecycledBuffer() throws Exception {
+		localBufferPool.setNumBuffers(1);
+
+		final Buffer buffer = localBufferPool.requestBuffer();
+		assertNotNull(buffer);
+
+		final AtomicReference<Buffer> received = new AtomicReference<Buffer>();
+
+		assertTrue(localBufferPool.addListener(new EventListener<Buffer>() {
+			@Override
+			public void onEvent(Buffer buffer) {
+				received.set(buffer);
+			}
+		}));
+
+		// The recycled buffer is handed over to the listener instead of being made available
+		buffer.recycle();
+
+		assertNotNull(received.get());
+		assertEquals(0, localBufferPool.getNumberOfAvailableMemorySegments());
+
+		// Without listeners, the next recycle makes the buffer available again
+		received.get().recycle();
+
+		assertEquals(1, localBufferPool.getNumberOfAvailableMemorySegments());
+	}
+
+	/**
+	 * Hands a single buffer back and forth between a blocking requester and a recycler. A
+	 * blocking request, which misses the notification of a concurrent lock-free recycle, only
+	 * wakes up after its wait timeout and lets this test time out.
+	 */
+	@Test(timeout = 30000)
+	public void testConcurrentRecycleNotifiesBlockingRequest() throws Exception {
+		final int numHandOvers = 20000;
+
+		localBufferPool.setNumBuffers(1);
+
+		final BlockingQueue<Buffer> handOver = new ArrayBlockingQueue<Buffer>(1);
+
+		final Future<Boolean> requester = executor.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				for (int i = 0; i < numHandOvers; i++) {
+					handOver.put(localBufferPool.requestBufferBlocking());
+				}
+
+				return true;
+			}
+		});
+
+		for (int i = 0; i < numHandOvers; i++) {
+			handOver.take().recycle();
+		}
+
+		assertTrue(requester.get());
+	}
+
 	// ------------------------------------------------------------------------
 	// Helpers
 	// ------------------------------------------------------------------------
@@ -18,9 +18,15 @@
 
 package org.apache.flink.runtime.io.network.buffer;
 
+import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.memory.UnifiedMemoryPool;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -145,4 +151,126 @@ public class NetworkBufferPoolTest {
 			fail(e.getMessage());
 		}
 	}
+
+	@Test
+	public void testRequestAndRecycleMemorySegments() throws Exception {
+		NetworkBufferPool globalPool = new NetworkBufferPool(10, 128, MemoryType.HEAP);
+
+		try {
+			BufferPool nonFixedPool = globalPool.createBufferPool(2, false);
+			assertEquals(10, nonFixedPool.getNumBuffers());
+
+			// Take some buffers out of the pool, which have to be given back
+			Buffer buffer = nonFixedPool.requestBuffer();
+			assertNotNull(buffer);
+
+			List<MemorySegment> segments = globalPool.requestMemorySegments(4);
+			assertEquals(4, segments.size());
+			assertEquals(6, nonFixedPool.getNumBuffers());
+
+			// The exclusive segments count as required buffers
+			try {
+				globalPool.createBufferPool(5, false);
+				fail("Should throw an IOException");
+			}
+			catch (IOException e) {
+				// the segments are still in use
+			}
+
+			globalPool.recycleMemorySegments(segments);
+			assertEquals(10, nonFixedPool.getNumBuffers());
+
+			buffer.recycle();
+			nonFixedPool.lazyDestroy();
+
+			assertEquals(10, globalPool.getNumberOfAvailableMemorySegments());
+		}
+		finally {
+			globalPool.destroy();
+		}
+	}
+
+	@Test
+	public void testRequestMemorySegmentsTimesOut() throws Exception {
+		NetworkBufferPool globalPool = new NetworkBufferPool(10, 128, MemoryType.HEAP);
+
+		try {
+			BufferPool nonFixedPool = globalPool.createBufferPool(2, false);
+
+			// Hold all buffers, so that the pool cannot return any of them
+			List<Buffer> buffers = new ArrayList<Buffer>();
+			for (int i = 0; i < 10; i++) {
+				buffers.add(nonFixedPool.requestBuffer());
+			}
+
+			try {
+				globalPool.requestMemorySegments(4, 100);
+				fail("Should throw an IOException");
+			}
+			catch (IOException e) {
+				assertTrue(e.getMessage().contains("Insufficient number of network buffers"));
+			}
+
+			// The failed request does not count as required buffers
+			assertEquals(10, nonFixedPool.getNumBuffers());
+
+			for (Buffer buffer : buffers) {
+				buffer.recycle();
+			}
+
+			nonFixedPool.lazyDestroy();
+
+			assertEquals(10, globalPool.getNumberOfAvailableMemorySegments());
+		}
+		finally {
+			globalPool.destroy();
+		}
+	}
+
+	@Test
+	public void testLeaseSegmentsFromUnifiedMemoryPool() throws Exception {
+		UnifiedMemoryPool memoryPool = new UnifiedMemoryPool(4096, 0.5);
+
+		UnifiedMemoryPool.Lease lease = memoryPool.createLease("network", 8);
+		memoryPool.createLease("managed", 4);
+
+		NetworkBufferPool globalPool = new NetworkBufferPool(lease);
+
+		try {
+			// Initially, only the guaranteed segments are taken
+			assertEquals(8, globalPool.getTotalNumberOfMemorySegments());
+			assertEquals(8, lease.getNumberOfLeasedSegments());
+
+			// Required buffers beyond the guarantee are leased
+			BufferPool fixedPool = globalPool.createBufferPool(10, true);
+			assertEquals(10, globalPool.getTotalNumberOfMemorySegments());
+
+			Buffer buffer = fixedPool.requestBuffer();
+			assertNotNull(buffer);
+			assertEquals(4096, buffer.getSize());
+
+			// ... but not the guaranteed segments of the other lease
+			try {
+				globalPool.createBufferPool(5, true);
+				fail("Should throw an IOException");
+			}
+			catch (IOException e) {
+				// expected
+			}
+
+			assertEquals(14, globalPool.getTotalNumberOfMemorySegments());
+
+			buffer.recycle();
+			fixedPool.lazyDestroy();
+
+			// The segments beyond the guarantee are returned
+			assertEquals(8, globalPool.getTotalNumberOfMemorySegments());
+			assertEquals(8, lease.getNumberOfLeasedSegments());
+		}
+		finally {
+			globalPool.destroy();
+		}
+
+		assertEquals(0, lease.getNumberOfLeasedSegments());
+	}
 }
@@ -24,6 +24,8 @@ import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.event.task.IntegerTaskEvent;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferCompressor;
+import org.apache.flink.runtime.io.network.buffer.BufferDecompressor;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
@@ -34,6 +36,7 @@ import java.nio.ByteBuffer;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -51,7 +54,7 @@ public class NettyMessageSerializationTest {
 	private final Random random = new Random();
 
 	@Test
-	public void testEncodeDecode() {
+	public void testEncodeDecode() throws Exception {
 		{
 			Buffer buffer = spy(new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class)));
 			ByteBuffer nioBuffer = buffer.getNioBuffer();
@@ -85,6 +88,62 @@ public class NettyMessageSerializationTest {
 			assertEquals(expected.receiverId, actual.receiverId);
 		}
 
+		{
+			Buffer buffer = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class));
+			buffer.setCompressed(true);
+
+			NettyMessage.BufferResponse expected = new NettyMessage.BufferResponse(buffer, random.nextInt(), new InputChannelID());
+			NettyMessage.BufferResponse actual = encodeAndDecode(expected);
+
+			assertTrue(actual.isBuffer());
+			assertTrue(actual.isCompressed());
+
+			actual.releaseBuffer();
+		}
+
+		{
+			// the buffer is compressed into the message and left as it is
+			Buffer buffer = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class));
+			for (int i = 0; i < 1024; i++) {
+				buffer.getMemorySegment().put(i, (byte) (i % 16));
+			}
+
+			// keep the buffer around to check it after it has been sent, like a subpartition does
+			buffer.retain();
+
+			NettyMessage.BufferResponse expected = new NettyMessage.BufferResponse(
+					buffer, random.nextInt(), new InputChannelID(), new BufferCompressor(1024));
+			NettyMessage.BufferResponse actual = encodeAndDecode(expected);
+
+			assertFalse(buffer.isCompressed());
+			assertEquals(1024, buffer.getSize());
+			for (int i = 0; i < 1024; i++) {
+				assertEquals((byte) (i % 16), buffer.getMemorySegment().get(i));
+			}
+			buffer.recycle();
+
+			assertTrue(actual.isBuffer());
+			assertTrue(actual.isCompressed());
+			assertTrue(actual.getSize() < 1024);
+			assertEquals(actual.getSize(), actual.getNettyBuffer().readableBytes());
+
+			Buffer received = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(1024), mock(BufferRecycler.class));
+			received.setSize(actual.getSize());
+			received.setCompressed(true);
+			actual.getNettyBuffer().readBytes(received.getNioBuffer());
+			actual.releaseBuffer();
+
+			Buffer decompressed = new BufferDecompressor().decompress(received, null);
+
+			assertEquals(1024, decompressed.getSize());
+			for (int i = 0; i < 1024; i++) {
+				assertEquals((byte) (i % 16), decompressed.getMemorySegment().get(i));
+			}
+
+			assertEquals(expected.sequenceNumber, actual.sequenceNumber);
+			assertEquals(expected.receiverId, actual.receiverId);
+		}
+
 		{
 			{
 				IllegalStateException expectedError = new IllegalStateException();
@@ -124,12 +183,13 @@ public class NettyMessageSerializationTest {
 		}
 
 		{
-			NettyMessage.PartitionRequest expected = new NettyMessage.PartitionRequest(new ResultPartitionID(new IntermediateResultPartitionID(), new ExecutionAttemptID()), random.nextInt(), new InputChannelID());
+			NettyMessage.PartitionRequest expected = new NettyMessage.PartitionRequest(new ResultPartitionID(new IntermediateResultPartitionID(), new ExecutionAttemptID()), random.nextInt(), new InputChannelID(), random.nextInt());
 			NettyMessage.PartitionRequest actual = encodeAndDecode(expected);
 
 			assertEquals(expected.partitionId, actual.partitionId);
 			assertEquals(expected.queueIndex, actual.queueIndex);
 			assertEquals(expected.receiverId, actual.receiverId);
+			assertEquals(expected.credit, actual.credit);
 		}
 
 		{
@@ -154,6 +214,14 @@ public class NettyMessageSerializationTest {
 
 			assertEquals(expected.getClass(), actual.getClass());
 		}
+
+		{
+			NettyMessage.AddCredit expected = new NettyMessage.AddCredit(random.nextInt(Integer.MAX_VALUE) + 1, new InputChannelID());
+			NettyMessage.AddCredit actual = encodeAndDecode(expected);
+
+			assertEquals(expected.credit, actual.credit);
+			assertEquals(expected.receiverId, actual.receiverId);
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -20,12 +20,19 @@ package org.apache.flink.runtime.io.network.netty;
 
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.apache.flink.runtime.execution.CancelTaskException;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
+import org.apache.flink.runtime.io.network.util.TestBufferFactory;
+import org.apache.flink.runtime.util.event.NotificationListener;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -42,7 +49,7 @@ public class PartitionRequestQueueTest {
 		when(view.getFailureCause()).thenReturn(new RuntimeException("Expected test exception"));
 
 		// Enqueue the erroneous view
-		queue.enqueue(view, new InputChannelID());
+		queue.enqueue(view, new InputChannelID(), 1);
 		ch.runPendingTasks();
 
 		// Read the enqueued msg
@@ -53,4 +60,68 @@ public class PartitionRequestQueueTest {
 		NettyMessage.ErrorResponse err = (NettyMessage.ErrorResponse) msg;
 		assertTrue(err.cause instanceof CancelTaskException);
 	}
+
+	/**
+	 * Tests that buffers are only written for a receiver with credit and that the
+	 * partition queue is resumed after new credit has been announced.
+	 */
+	@Test
+	public void testBuffersAreOnlySentWithCredit() throws Exception {
+		PartitionRequestQueue queue = new PartitionRequestQueue();
+
+		EmbeddedChannel ch = new EmbeddedChannel(queue);
+
+		// A view with an infinite number of available buffers
+		ResultSubpartitionView view = mock(ResultSubpartitionView.class);
+		when(view.getNextBuffer()).thenAnswer(new Answer<Buffer>() {
+			@Override
+			public Buffer answer(InvocationOnMock invocation) throws Throwable {
+				return TestBufferFactory.createBuffer();
+			}
+		});
+
+		InputChannelID receiverId = new InputChannelID();
+
+		queue.enqueue(view, receiverId, 2);
+		ch.runPendingTasks();
+
+		// Only the initial credit has been used
+		assertEquals(NettyMessage.BufferResponse.class, ch.readOutbound().getClass());
+		assertEquals(NettyMessage.BufferResponse.class, ch.readOutbound().getClass());
+		assertNull(ch.readOutbound());
+
+		// Announce new credit
+		queue.addCredit(receiverId, 1);
+		ch.runPendingTasks();
+
+		assertEquals(NettyMessage.BufferResponse.class, ch.readOutbound().getClass());
+		assertNull(ch.readOutbound());
+	}
+
+	/**
+	 * Tests that a receiver without exclusive buffers, which requests with an initial credit of
+	 * 0, is served without credit.
+	 */
+	@Test
+	public void testReceiverWithoutCreditIsServed() throws Exception {
+		PartitionRequestQueue queue = new PartitionRequestQueue();
+
+		EmbeddedChannel ch = new EmbeddedChannel(queue);
+
+		ResultSubpartitionView view = mock(ResultSubpartitionView.class);
+		when(view.getNextBuffer())
+				.thenReturn(TestBufferFactory.createBuffer())
+				.thenReturn(TestBufferFactory.createBuffer())
+				.thenReturn(TestBufferFactory.createBuffer())
+				.thenReturn(null);
+		when(view.registerListener(any(NotificationListener.class))).thenReturn(true);
+
+		queue.enqueue(view, new InputChannelID(), 0);
+		ch.runPendingTasks();
+
+		assertEquals(NettyMessage.BufferResponse.class, ch.readOutbound().getClass());
+		assertEquals(NettyMessage.BufferResponse.class, ch.readOutbound().getClass());
+		assertEquals(NettyMessage.BufferResponse.class, ch.readOutbound().getClass());
+		assertNull(ch.readOutbound());
+	}
 }
@@ -174,6 +174,22 @@ public class PipelinedSubpartitionTest extends SubpartitionTestBase {
 		assertEquals(1, listener.getNumberOfNotifications());
 	}
 
+	@Test
+	public void testNumberOfQueuedBuffers() throws Exception {
+		final PipelinedSubpartition subpartition = createSubpartition();
+
+		ResultSubpartitionView view = subpartition.createReadView(null);
+
+		assertEquals(0, subpartition.getNumberOfQueuedBuffers());
+
+		subpartition.add(createBuffer());
+		subpartition.add(createBuffer());
+		assertEquals(2, subpartition.getNumberOfQueuedBuffers());
+
+		view.getNextBuffer().recycle();
+		assertEquals(1, subpartition.getNumberOfQueuedBuffers());
+	}
+
 	@Test
 	public void testConcurrentFastProduceAndFastConsume() throws Exception {
 		testProduceConsume(false, false);
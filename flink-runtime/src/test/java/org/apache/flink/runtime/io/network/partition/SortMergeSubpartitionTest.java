@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.util.TestInfiniteBufferProvider;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class SortMergeSubpartitionTest extends SubpartitionTestBase {
+
+	/** Asynchronous I/O manager */
+	private static final IOManager ioManager = new IOManagerAsync();
+
+	@AfterClass
+	public static void shutdown() {
+		ioManager.shutdown();
+	}
+
+	@Override
+	ResultSubpartition createSubpartition() {
+		return new SortMergeSubpartition(
+				0, mock(ResultPartition.class), new SortMergePartitionFile(1, ioManager, null));
+	}
+
+	/**
+	 * Tests that each subpartition reads back exactly its own buffers in order, when the
+	 * partition file consists of multiple regions.
+	 */
+	@Test
+	public void testReadSubpartitionsFromMultipleRegions() throws Exception {
+		final int numberOfSubpartitions = 3;
+
+		final SortMergePartitionFile partitionFile = new SortMergePartitionFile(
+				numberOfSubpartitions, ioManager, null);
+
+		final SortMergeSubpartition[] subpartitions = new SortMergeSubpartition[numberOfSubpartitions];
+		for (int i = 0; i < numberOfSubpartitions; i++) {
+			subpartitions[i] = new SortMergeSubpartition(i, mock(ResultPartition.class), partitionFile);
+		}
+
+		try {
+			// First region: subpartition 1 has no data
+			assertTrue(subpartitions[0].add(createBuffer(0, 0)));
+			assertTrue(subpartitions[2].add(createBuffer(2, 0)));
+			assertTrue(subpartitions[0].add(createBuffer(0, 1)));
+
+			assertEquals(3, subpartitions[1].releaseMemory());
+
+			// Nothing left in memory
+			assertEquals(0, subpartitions[0].releaseMemory());
+
+			// Second region
+			assertTrue(subpartitions[1].add(createBuffer(1, 0)));
+			assertTrue(subpartitions[0].add(createBuffer(0, 2)));
+
+			for (SortMergeSubpartition subpartition : subpartitions) {
+				subpartition.finish();
+			}
+
+			assertTrue(partitionFile.isFinished());
+			assertEquals(2, partitionFile.getNumberOfRegions());
+
+			verifySubpartition(subpartitions[0], 0, 3);
+			verifySubpartition(subpartitions[1], 1, 1);
+			verifySubpartition(subpartitions[2], 2, 1);
+		}
+		finally {
+			for (SortMergeSubpartition subpartition : subpartitions) {
+				subpartition.release();
+			}
+		}
+	}
+
+	@Test
+	public void testCreateReadViewBeforeAllSubpartitionsFinished() throws Exception {
+		final SortMergePartitionFile partitionFile = new SortMergePartitionFile(2, ioManager, null);
+
+		final SortMergeSubpartition first = new SortMergeSubpartition(0, mock(ResultPartition.class), partitionFile);
+		final SortMergeSubpartition second = new SortMergeSubpartition(1, mock(ResultPartition.class), partitionFile);
+
+		try {
+			first.finish();
+
+			// The data file is only complete after all subpartitions have been finished
+			try {
+				first.createReadView(new TestInfiniteBufferProvider());
+				fail("Did not throw expected exception");
+			}
+			catch (IllegalStateException expected) {
+			}
+
+			second.finish();
+
+			assertNotNull(first.createReadView(new TestInfiniteBufferProvider()));
+		}
+		finally {
+			first.release();
+			second.release();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static Buffer createBuffer(int subpartitionIndex, int sequenceNumber) {
+		final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(1024);
+		segment.putInt(0, subpartitionIndex);
+		segment.putInt(4, sequenceNumber);
+
+		final Buffer buffer = new Buffer(segment, FreeingBufferRecycler.INSTANCE);
+		buffer.setSize(8);
+		return buffer;
+	}
+
+	private static void verifySubpartition(
+			ResultSubpartition subpartition,
+			int subpartitionIndex,
+			int numberOfBuffers) throws Exception {
+
+		final ResultSubpartitionView view = subpartition.createReadView(new TestInfiniteBufferProvider());
+
+		try {
+			for (int i = 0; i < numberOfBuffers; i++) {
+				Buffer buffer = view.getNextBuffer();
+
+				assertNotNull(buffer);
+				assertTrue(buffer.isBuffer());
+				assertEquals(8, buffer.getSize());
+				assertEquals(subpartitionIndex, buffer.getMemorySegment().getInt(0));
+				assertEquals(i, buffer.getMemorySegment().getInt(4));
+
+				buffer.recycle();
+			}
+
+			// The end-of-partition event
+			Buffer event = view.getNextBuffer();
+			assertNotNull(event);
+			assertFalse(event.isBuffer());
+			event.recycle();
+
+			assertNull(view.getNextBuffer());
+		}
+		finally {
+			view.releaseAllResources();
+		}
+	}
+}
@@ -19,9 +19,12 @@
 package org.apache.flink.runtime.io.network.partition.consumer;
 
 import com.google.common.collect.Lists;
+import org.apache.flink.core.memory.MemoryType;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.ConnectionManager;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.netty.PartitionRequestClient;
 import org.apache.flink.runtime.io.network.partition.ProducerFailedException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
@@ -38,6 +41,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -279,6 +284,52 @@ public class RemoteInputChannelTest {
 		ch.getNextBuffer();
 	}
 
+	/**
+	 * Tests that the exclusive buffers are announced as initial credit and again after they
+	 * have been recycled, and that they are returned to the network buffer pool on release.
+	 */
+	@Test
+	public void testExclusiveBuffersAreAnnouncedAsCredit() throws Exception {
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(4, 128, MemoryType.HEAP);
+
+		try {
+			final PartitionRequestClient client = mock(PartitionRequestClient.class);
+
+			final RemoteInputChannel ch = createRemoteInputChannel(
+					mock(SingleInputGate.class), client, new Tuple2<Integer, Integer>(0, 0));
+
+			ch.assignExclusiveSegments(networkBufferPool.requestMemorySegments(2), networkBufferPool);
+			assertEquals(2, ch.getInitialCredit());
+			assertEquals(2, networkBufferPool.getNumberOfAvailableMemorySegments());
+
+			ch.requestSubpartition(0);
+
+			// The network I/O thread receives into the announced buffers
+			Buffer first = ch.requestBuffer();
+			Buffer second = ch.requestBuffer();
+
+			assertNotNull(first);
+			assertNotNull(second);
+			assertNull(ch.requestBuffer());
+
+			// Recycling announces new credit. Concurrent announcements are merged.
+			first.recycle();
+			second.recycle();
+
+			verify(client, times(1)).notifyCreditAvailable(eq(ch));
+			assertEquals(2, ch.getAndResetUnannouncedCredit());
+
+			// Releasing returns the exclusive buffers
+			ch.releaseAllResources();
+
+			assertNull(ch.requestBuffer());
+			assertEquals(4, networkBufferPool.getNumberOfAvailableMemorySegments());
+		}
+		finally {
+			networkBufferPool.destroy();
+		}
+	}
+
 	// ---------------------------------------------------------------------------------------------
 
 	private RemoteInputChannel createRemoteInputChannel(SingleInputGate inputGate)
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.memory;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UnifiedMemoryPoolTest {
+
+	private static final int SEGMENT_SIZE = 4096;
+
+	@Test
+	public void testLeasesSliceDirectSegments() {
+		UnifiedMemoryPool pool = new UnifiedMemoryPool(SEGMENT_SIZE, 0.0);
+		UnifiedMemoryPool.Lease lease = pool.createLease("test", 4);
+
+		assertEquals(4, pool.getTotalNumberOfSegments());
+		assertEquals(4, lease.getNumberOfGuaranteedSegments());
+
+		ByteBuffer segment = lease.requestSegment();
+
+		assertNotNull(segment);
+		assertTrue(segment.isDirect());
+		assertEquals(SEGMENT_SIZE, segment.capacity());
+		assertEquals(1, lease.getNumberOfLeasedSegments());
+		assertEquals(3, pool.getNumberOfFreeSegments());
+
+		lease.recycleSegment(segment);
+
+		assertEquals(0, lease.getNumberOfLeasedSegments());
+		assertEquals(4, pool.getNumberOfFreeSegments());
+	}
+
+	@Test
+	public void testFloatingSegmentsDoNotViolateGuarantees() {
+		UnifiedMemoryPool pool = new UnifiedMemoryPool(SEGMENT_SIZE, 0.25);
+
+		UnifiedMemoryPool.Lease first = pool.createLease("first", 8);
+		UnifiedMemoryPool.Lease second = pool.createLease("second", 8);
+
+		// The floating segments are added on top of the guaranteed ones
+		assertEquals(20, pool.getTotalNumberOfSegments());
+		assertEquals(8, first.getNumberOfGuaranteedSegments());
+		assertEquals(8, second.getNumberOfGuaranteedSegments());
+
+		// The first lease can take its guarantee and all floating segments
+		assertEquals(12, first.getNumberOfAvailableSegments());
+
+		List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+		ByteBuffer segment;
+		while ((segment = first.requestSegment()) != null) {
+			segments.add(segment);
+		}
+
+		assertEquals(12, segments.size());
+
+		// ... but not the guaranteed segments of the second lease
+		assertEquals(8, second.getNumberOfAvailableSegments());
+
+		for (int i = 0; i < 8; i++) {
+			assertNotNull(second.requestSegment());
+		}
+
+		assertNull(second.requestSegment());
+
+		// Recycled floating segments can be taken by the other lease
+		first.recycleSegment(segments.remove(0));
+
+		assertEquals(1, second.getNumberOfAvailableSegments());
+		assertNotNull(second.requestSegment());
+		assertEquals(0, first.getNumberOfAvailableSegments());
+	}
+
+	@Test
+	public void testMemoryManagerDrawsFromLease() throws Exception {
+		UnifiedMemoryPool pool = new UnifiedMemoryPool(SEGMENT_SIZE, 0.5);
+
+		UnifiedMemoryPool.Lease network = pool.createLease("network", 4);
+		MemoryManager memoryManager = new MemoryManager(pool.createLease("managed", 8), 1);
+
+		// The memory manager is guaranteed all of its memory
+		assertEquals(8, memoryManager.getTotalNumPages());
+		assertEquals(SEGMENT_SIZE, memoryManager.getPageSize());
+		assertEquals(pool, memoryManager.getUnifiedMemoryPool());
+		assertTrue(memoryManager.verifyEmpty());
+
+		// The network takes its guaranteed segments
+		for (int i = 0; i < 4; i++) {
+			assertNotNull(network.requestSegment());
+		}
+
+		Object owner = new Object();
+
+		// An allocation, which the lease cannot serve completely, takes no segments at all
+		try {
+			memoryManager.allocatePages(owner, 15);
+			fail("Allocated more segments than the unified memory pool has.");
+		}
+		catch (MemoryAllocationException expected) {
+		}
+
+		assertTrue(memoryManager.verifyEmpty());
+		assertEquals(14, pool.getNumberOfFreeSegments());
+
+		// The memory manager can use all floating segments, which the network does not use
+		List<MemorySegment> segments = memoryManager.allocatePages(owner, 14);
+
+		assertFalse(memoryManager.verifyEmpty());
+		assertEquals(0, network.getNumberOfAvailableSegments());
+
+		try {
+			memoryManager.allocatePages(owner, 1);
+			fail("Allocated more segments than the unified memory pool has.");
+		}
+		catch (MemoryAllocationException expected) {
+		}
+
+		memoryManager.release(segments);
+
+		assertTrue(memoryManager.verifyEmpty());
+		assertEquals(14, pool.getNumberOfFreeSegments());
+
+		// The guaranteed segments of the memory manager are not available to the network
+		assertEquals(6, network.getNumberOfAvailableSegments());
+
+		memoryManager.shutdown();
+	}
+
+	@Test
+	public void testNoSegmentsAfterDestroy() {
+		UnifiedMemoryPool pool = new UnifiedMemoryPool(SEGMENT_SIZE, 0.0);
+		UnifiedMemoryPool.Lease lease = pool.createLease("test", 2);
+
+		ByteBuffer segment = lease.requestSegment();
+
+		pool.destroy();
+
+		assertNull(lease.requestSegment());
+		assertEquals(0, lease.getNumberOfAvailableSegments());
+
+		// Segments can still be returned
+		lease.recycleSegment(segment);
+
+		assertEquals(0, lease.getNumberOfLeasedSegments());
+		assertEquals(0, pool.getNumberOfFreeSegments());
+	}
+}
@@ -20,6 +20,7 @@
 package org.apache.flink.runtime.operators.drivers;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.apache.flink.api.common.ExecutionConfig;
@@ -217,10 +218,85 @@ public class ReduceCombineDriverTest {
 		}
 	}
 	
+	@Test
+	public void testReduceDriverHashed() {
+		try {
+			for (boolean objectReuse : new boolean[] { false, true }) {
+				TestTaskContext<ReduceFunction<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+						new TestTaskContext<ReduceFunction<Tuple2<String,Integer>>, Tuple2<String,Integer>>(1024 * 1024);
+				context.getTaskConfig().setRelativeMemoryDriver(0.5);
+				if (objectReuse) {
+					context.getExecutionConfig().enableObjectReuse();
+				} else {
+					context.getExecutionConfig().disableObjectReuse();
+				}
+				
+				List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+				Collections.shuffle(data);
+				
+				TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+				MutableObjectIterator<Tuple2<String, Integer>> input = new RegularToMutableObjectIterator<Tuple2<String, Integer>>(data.iterator(), typeInfo.createSerializer(new ExecutionConfig()));
+				TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true}, 0, new ExecutionConfig());
+				
+				GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer(new ExecutionConfig()));
+				
+				context.setDriverStrategy(DriverStrategy.HASHED_PARTIAL_REDUCE);
+				context.setInput1(input, typeInfo.createSerializer(new ExecutionConfig()));
+				context.setComparator1(comparator);
+				context.setCollector(result);
+				context.setUdf(new SumFirstReducer());
+				
+				ReduceCombineDriver<Tuple2<String, Integer>> driver = new ReduceCombineDriver<Tuple2<String,Integer>>();
+				driver.setup(context);
+				driver.prepare();
+				driver.run();
+				driver.cleanup();
+				
+				// the hash table does not emit in key order
+				List<Tuple2<String, Integer>> resultList = result.getList();
+				Collections.sort(resultList, new Comparator<Tuple2<String, Integer>>() {
+					@Override
+					public int compare(Tuple2<String, Integer> o1, Tuple2<String, Integer> o2) {
+						return o1.f0.compareTo(o2.f0);
+					}
+				});
+				
+				Object[] res = resultList.toArray();
+				Object[] expected = new Object[] {
+					new Tuple2<String, Integer>("a", 1),
+					new Tuple2<String, Integer>("b", 2),
+					new Tuple2<String, Integer>("c", 3),
+					new Tuple2<String, Integer>("d", 9),
+					new Tuple2<String, Integer>("e", 21),
+					new Tuple2<String, Integer>("f", 42)
+				};
+				
+				DriverTestData.compareTupleArrays(expected, res);
+			}
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//  Test UDFs
 	// --------------------------------------------------------------------------------------------
 	
+	/**
+	 * Sums up the second field and keeps the key, as required by the hash-based combiner.
+	 */
+	public static final class SumFirstReducer extends RichReduceFunction<Tuple2<String, Integer>> {
+
+		@Override
+		public Tuple2<String, Integer> reduce(Tuple2<String, Integer> value1, Tuple2<String, Integer> value2) {
+			value1.f1 = value1.f1 + value2.f1;
+			return value1;
+		}
+	}
+	
 	public static final class ConcatSumFirstReducer extends RichReduceFunction<Tuple2<String, Integer>> {
 
 		@Override
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.hash;
+
+import static org.junit.Assert.*;
+
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypePairComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.LongComparator;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.runtime.TupleComparator;
+import org.apache.flink.api.java.typeutils.runtime.TupleSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.MutableObjectIterator;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class InPlaceMutableHashTableTest {
+
+	private final TypeSerializer<Tuple2<Long, String>> serializer;
+	private final TypeComparator<Tuple2<Long, String>> comparator;
+
+	private final TypeComparator<Long> probeComparator;
+
+	private final TypePairComparator<Long, Tuple2<Long, String>> pairComparator;
+
+
+	public InPlaceMutableHashTableTest() {
+		TypeSerializer<?>[] fieldSerializers = { LongSerializer.INSTANCE, StringSerializer.INSTANCE };
+		@SuppressWarnings("unchecked")
+		Class<Tuple2<Long, String>> clazz = (Class<Tuple2<Long, String>>) (Class<?>) Tuple2.class;
+		this.serializer = new TupleSerializer<Tuple2<Long, String>>(clazz, fieldSerializers);
+
+		TypeComparator<?>[] comparators = { new LongComparator(true) };
+		TypeSerializer<?>[] comparatorSerializers = { LongSerializer.INSTANCE };
+
+		this.comparator = new TupleComparator<Tuple2<Long, String>>(new int[] {0}, comparators, comparatorSerializers);
+
+		this.probeComparator = new LongComparator(true);
+
+		this.pairComparator = new TypePairComparator<Long, Tuple2<Long, String>>() {
+
+			private long ref;
+
+			@Override
+			public void setReference(Long reference) {
+				ref = reference;
+			}
+
+			@Override
+			public boolean equalToReference(Tuple2<Long, String> candidate) {
+				//noinspection UnnecessaryUnboxing
+				return candidate.f0.longValue() == ref;
+			}
+
+			@Override
+			public int compareToReference(Tuple2<Long, String> candidate) {
+				long x = ref;
+				long y = candidate.f0;
+				return (x < y) ? -1 : ((x == y) ? 0 : 1);
+			}
+		};
+	}
+
+	// ------------------------------------------------------------------------
+	//  tests
+	// ------------------------------------------------------------------------
+
+	@Test
+	public void testInsertAndIterate() {
+		try {
+			final int numElements = 100000;
+
+			InPlaceMutableHashTable<Tuple2<Long, String>> table = new InPlaceMutableHashTable<Tuple2<Long, String>>(
+					serializer, comparator, getMemory(1000, 32 * 1024));
+			table.open();
+
+			for (long i = 0; i < numElements; i++) {
+				table.insert(new Tuple2<Long, String>(i, String.valueOf(i)));
+			}
+			assertEquals(numElements, table.getNumElements());
+
+			BitSet bitSet = new BitSet(numElements);
+			MutableObjectIterator<Tuple2<Long, String>> iter = table.getEntryIterator();
+			Tuple2<Long, String> next;
+			while ((next = iter.next()) != null) {
+				assertEquals(next.f0.longValue(), Long.parseLong(next.f1));
+				bitSet.set(next.f0.intValue());
+			}
+			assertEquals(numElements, bitSet.cardinality());
+
+			table.close();
+			assertEquals(1000, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testProbeAndUpdateWithChangingLengths() {
+		try {
+			final int numElements = 10000;
+
+			InPlaceMutableHashTable<Tuple2<Long, String>> table = new InPlaceMutableHashTable<Tuple2<Long, String>>(
+					serializer, comparator, getMemory(1000, 32 * 1024));
+			table.open();
+
+			for (long i = 0; i < numElements; i++) {
+				table.insertOrReplaceRecord(new Tuple2<Long, String>(i, "x"));
+			}
+
+			InPlaceMutableHashTable<Tuple2<Long, String>>.HashTableProber<Long> prober =
+					table.getProber(probeComparator, pairComparator);
+
+			// grow every other record, overwrite the rest in place
+			Tuple2<Long, String> reuse = new Tuple2<Long, String>();
+			for (long i = 0; i < numElements; i++) {
+				Tuple2<Long, String> match = prober.getMatchFor(i, reuse);
+				assertNotNull(match);
+				assertEquals(i, match.f0.longValue());
+
+				match.f1 = i % 2 == 0 ? "y" : "a much longer value";
+				prober.updateMatch(match);
+			}
+
+			assertEquals(numElements, table.getNumElements());
+			assertTrue(table.getNumGarbageBytes() > 0);
+
+			for (long i = 0; i < numElements; i++) {
+				Tuple2<Long, String> match = prober.getMatchFor(i, reuse);
+				assertNotNull(match);
+				assertEquals(i % 2 == 0 ? "y" : "a much longer value", match.f1);
+			}
+			assertNull(prober.getMatchFor((long) numElements, reuse));
+
+			table.close();
+			assertEquals(1000, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testFullTableAndReset() {
+		try {
+			InPlaceMutableHashTable<Tuple2<Long, String>> table = new InPlaceMutableHashTable<Tuple2<Long, String>>(
+					serializer, comparator, getMemory(4, 4 * 1024));
+			table.open();
+
+			long i = 0;
+			try {
+				while (true) {
+					table.insert(new Tuple2<Long, String>(i++, "some value"));
+				}
+			}
+			catch (EOFException e) {
+				// expected, the table is full
+			}
+			assertTrue(table.getNumElements() > 0);
+
+			table.reset();
+			assertEquals(0, table.getNumElements());
+			assertNull(table.getEntryIterator().next());
+
+			table.insert(new Tuple2<Long, String>(42L, "after reset"));
+			assertEquals("after reset", table.getEntryIterator().next().f1);
+
+			table.close();
+			assertEquals(4, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReduceFacade() {
+		testReduceFacade(false);
+		testReduceFacade(true);
+	}
+
+	private void testReduceFacade(boolean objectReuse) {
+		try {
+			final int numKeys = 1000;
+			final int numRecords = 100000;
+
+			// little memory, so that the table is emitted and reset several times
+			InPlaceMutableHashTable<Tuple2<Long, String>> table = new InPlaceMutableHashTable<Tuple2<Long, String>>(
+					serializer, comparator, getMemory(8, 4 * 1024));
+			table.open();
+
+			final Map<Long, Long> result = new HashMap<Long, Long>();
+			Collector<Tuple2<Long, String>> collector = new Collector<Tuple2<Long, String>>() {
+				@Override
+				public void collect(Tuple2<Long, String> record) {
+					Long sum = result.get(record.f0);
+					long value = Long.parseLong(record.f1);
+					result.put(record.f0, sum == null ? value : sum + value);
+				}
+
+				@Override
+				public void close() {}
+			};
+
+			InPlaceMutableHashTable<Tuple2<Long, String>>.ReduceFacade reduceFacade =
+					table.new ReduceFacade(new SumReducer(), collector, objectReuse);
+
+			Random rnd = new Random(42);
+			Map<Long, Long> expected = new HashMap<Long, Long>();
+			for (int i = 0; i < numRecords; i++) {
+				long key = rnd.nextInt(numKeys);
+				reduceFacade.updateTableEntryWithReduce(new Tuple2<Long, String>(key, "1"));
+
+				Long sum = expected.get(key);
+				expected.put(key, sum == null ? 1L : sum + 1);
+			}
+			reduceFacade.emit();
+
+			assertEquals(expected, result);
+
+			table.close();
+			assertEquals(8, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReduceFacadeWithReducerModifyingSecondArgument() {
+		testReduceFacadeWithReducerModifyingSecondArgument(false);
+		testReduceFacadeWithReducerModifyingSecondArgument(true);
+	}
+
+	/**
+	 * The reducer concatenates the values into its second argument, so every update appends a longer
+	 * record and the table runs full in the middle of updates. The stale records must not be emitted
+	 * in addition to the reduced ones.
+	 */
+	private void testReduceFacadeWithReducerModifyingSecondArgument(boolean objectReuse) {
+		try {
+			final int numKeys = 10;
+			final int numRecords = 20000;
+
+			InPlaceMutableHashTable<Tuple2<Long, String>> table = new InPlaceMutableHashTable<Tuple2<Long, String>>(
+					serializer, comparator, getMemory(8, 4 * 1024));
+			table.open();
+
+			final Map<Long, Long> result = new HashMap<Long, Long>();
+			Collector<Tuple2<Long, String>> collector = new Collector<Tuple2<Long, String>>() {
+				@Override
+				public void collect(Tuple2<Long, String> record) {
+					Long count = result.get(record.f0);
+					long value = record.f1.length();
+					result.put(record.f0, count == null ? value : count + value);
+				}
+
+				@Override
+				public void close() {}
+			};
+
+			InPlaceMutableHashTable<Tuple2<Long, String>>.ReduceFacade reduceFacade =
+					table.new ReduceFacade(new SecondArgumentConcatReducer(), collector, objectReuse);
+
+			Random rnd = new Random(42);
+			Map<Long, Long> expected = new HashMap<Long, Long>();
+			for (int i = 0; i < numRecords; i++) {
+				long key = rnd.nextInt(numKeys);
+				reduceFacade.updateTableEntryWithReduce(new Tuple2<Long, String>(key, "x"));
+
+				Long count = expected.get(key);
+				expected.put(key, count == null ? 1L : count + 1);
+			}
+			reduceFacade.emit();
+
+			assertEquals(expected, result);
+
+			table.close();
+			assertEquals(8, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  utilities
+	// ------------------------------------------------------------------------
+
+	private static List<MemorySegment> getMemory(int numSegments, int segmentSize) {
+		ArrayList<MemorySegment> list = new ArrayList<MemorySegment>(numSegments);
+		for (int i = 0; i < numSegments; i++) {
+			list.add(MemorySegmentFactory.allocateUnpooledSegment(segmentSize));
+		}
+		return list;
+	}
+
+	/**
+	 * Sums up the values (in their string representation), which changes the serialized length
+	 * of the records from time to time.
+	 */
+	private static final class SumReducer implements ReduceFunction<Tuple2<Long, String>> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Tuple2<Long, String> reduce(Tuple2<Long, String> value1, Tuple2<Long, String> value2) {
+			value1.f1 = String.valueOf(Long.parseLong(value1.f1) + Long.parseLong(value2.f1));
+			return value1;
+		}
+	}
+
+	/**
+	 * Concatenates the values into the second argument, which changes the serialized length of the
+	 * records with every update.
+	 */
+	private static final class SecondArgumentConcatReducer implements ReduceFunction<Tuple2<Long, String>> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Tuple2<Long, String> reduce(Tuple2<Long, String> value1, Tuple2<Long, String> value2) {
+			value2.f1 = value1.f1 + value2.f1;
+			return value2;
+		}
+	}
+}
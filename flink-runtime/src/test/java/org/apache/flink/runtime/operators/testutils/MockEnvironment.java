@@ -290,6 +290,11 @@ public class MockEnvironment implements Environment {
 		throw new UnsupportedOperationException();
 	}
 
+	@Override
+	public void acknowledgeCheckpoint(long checkpointId, StateHandle<?> state, Map<Integer, StateHandle<?>> keyGroupStates) {
+		throw new UnsupportedOperationException();
+	}
+
 	@Override
 	public void failExternally(Throwable cause) {
 		throw new UnsupportedOperationException("MockEnvironment does not support external task failure.");
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.runtime.util.DataInputDeserializer;
+import org.apache.flink.runtime.util.DataOutputSerializer;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link CopyOnWriteStateTable}.
+ */
+public class CopyOnWriteStateTableTest {
+
+	@Test
+	public void testPutGetRemove() {
+		CopyOnWriteStateTable<Integer, String, Long> table = new CopyOnWriteStateTable<>(LongSerializer.INSTANCE);
+		HashMap<String, Map<Integer, Long>> reference = new HashMap<>();
+		Random rnd = new Random(42);
+
+		// enough operations to grow the table several times
+		for (int i = 0; i < 100_000; i++) {
+			int key = rnd.nextInt(5_000);
+			String namespace = rnd.nextBoolean() ? null : "ns-" + rnd.nextInt(4);
+
+			if (rnd.nextInt(4) == 0) {
+				assertEquals(removeFromReference(reference, key, namespace), table.remove(key, namespace));
+			}
+			else {
+				long value = rnd.nextLong();
+				table.put(key, namespace, value);
+				putIntoReference(reference, key, namespace, value);
+			}
+		}
+
+		assertTableEquals(reference, table);
+	}
+
+	@Test
+	public void testSnapshotIsIsolatedFromModifications() throws Exception {
+		CopyOnWriteStateTable<Integer, String, Long> table = new CopyOnWriteStateTable<>(LongSerializer.INSTANCE);
+		HashMap<String, Map<Integer, Long>> reference = new HashMap<>();
+		Random rnd = new Random(17);
+
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 20_000; i++) {
+				int key = rnd.nextInt(10_000);
+				String namespace = "ns-" + rnd.nextInt(3);
+				long value = rnd.nextLong();
+				table.put(key, namespace, value);
+				putIntoReference(reference, key, namespace, value);
+			}
+
+			HashMap<String, Map<Integer, Long>> expected = deepCopy(reference);
+			CopyOnWriteStateTable.Snapshot<Integer, String, Long> snapshot = table.snapshot();
+			assertEquals(1, table.getNumPendingSnapshots());
+
+			// modify, remove and grow while the snapshot is pending
+			for (int i = 0; i < 30_000; i++) {
+				int key = rnd.nextInt(20_000);
+				String namespace = "ns-" + rnd.nextInt(3);
+				if (rnd.nextInt(3) == 0) {
+					assertEquals(removeFromReference(reference, key, namespace), table.remove(key, namespace));
+				}
+				else {
+					long value = rnd.nextLong();
+					table.put(key, namespace, value);
+					putIntoReference(reference, key, namespace, value);
+				}
+			}
+
+			assertEquals(expected, readSnapshot(snapshot));
+			snapshot.release();
+			snapshot.release();
+			assertEquals(0, table.getNumPendingSnapshots());
+
+			assertTableEquals(reference, table);
+		}
+	}
+
+	@Test
+	public void testStateObjectsAreCopiedOnAccess() throws Exception {
+		ArrayListSerializer<Integer> serializer = new ArrayListSerializer<>(IntSerializer.INSTANCE);
+		CopyOnWriteStateTable<Integer, String, ArrayList<Integer>> table = new CopyOnWriteStateTable<>(serializer);
+
+		ArrayList<Integer> list = new ArrayList<>();
+		list.add(1);
+		table.put(1, "ns", list);
+
+		CopyOnWriteStateTable.Snapshot<Integer, String, ArrayList<Integer>> snapshot = table.snapshot();
+
+		// modify the state object in place, as the heap list state does
+		ArrayList<Integer> accessed = table.get(1, "ns");
+		assertNotSame(list, accessed);
+		accessed.add(2);
+
+		// subsequent accesses return the same (copied) object
+		assertSame(accessed, table.get(1, "ns"));
+
+		DataOutputSerializer out = new DataOutputSerializer(64);
+		snapshot.write(out, IntSerializer.INSTANCE, StringSerializer.INSTANCE, serializer);
+		snapshot.release();
+
+		DataInputDeserializer in = new DataInputDeserializer(out.getByteArray(), 0, out.length());
+		assertEquals(1, in.readInt());
+		assertEquals("ns", StringSerializer.INSTANCE.deserialize(in));
+		assertEquals(1, in.readInt());
+		assertEquals(Integer.valueOf(1), IntSerializer.INSTANCE.deserialize(in));
+		assertEquals(1, serializer.deserialize(in).size());
+
+		// without pending snapshots, no more copies are made
+		assertSame(accessed, table.get(1, "ns"));
+		assertEquals(2, accessed.size());
+	}
+
+	// ------------------------------------------------------------------------
+	//  utilities
+	// ------------------------------------------------------------------------
+
+	private static void putIntoReference(HashMap<String, Map<Integer, Long>> reference, int key, String namespace, long value) {
+		Map<Integer, Long> namespaceMap = reference.get(namespace);
+		if (namespaceMap == null) {
+			namespaceMap = new HashMap<>();
+			reference.put(namespace, namespaceMap);
+		}
+		namespaceMap.put(key, value);
+	}
+
+	private static boolean removeFromReference(HashMap<String, Map<Integer, Long>> reference, int key, String namespace) {
+		Map<Integer, Long> namespaceMap = reference.get(namespace);
+		if (namespaceMap == null || !namespaceMap.containsKey(key)) {
+			return false;
+		}
+		namespaceMap.remove(key);
+		if (namespaceMap.isEmpty()) {
+			reference.remove(namespace);
+		}
+		return true;
+	}
+
+	private static HashMap<String, Map<Integer, Long>> deepCopy(HashMap<String, Map<Integer, Long>> reference) {
+		HashMap<String, Map<Integer, Long>> copy = new HashMap<>();
+		for (Map.Entry<String, Map<Integer, Long>> entry : reference.entrySet()) {
+			copy.put(entry.getKey(), new HashMap<>(entry.getValue()));
+		}
+		return copy;
+	}
+
+	private static void assertTableEquals(HashMap<String, Map<Integer, Long>> reference, CopyOnWriteStateTable<Integer, String, Long> table) {
+		int size = 0;
+		for (Map.Entry<String, Map<Integer, Long>> namespaceState : reference.entrySet()) {
+			for (Map.Entry<Integer, Long> entry : namespaceState.getValue().entrySet()) {
+				assertTrue(table.containsKey(entry.getKey(), namespaceState.getKey()));
+				assertEquals(entry.getValue(), table.get(entry.getKey(), namespaceState.getKey()));
+				size++;
+			}
+		}
+		assertEquals(size, table.size());
+	}
+
+	private static HashMap<String, Map<Integer, Long>> readSnapshot(CopyOnWriteStateTable.Snapshot<Integer, String, Long> snapshot) throws IOException {
+		DataOutputSerializer out = new DataOutputSerializer(1024);
+		snapshot.write(out, IntSerializer.INSTANCE, StringSerializer.INSTANCE, LongSerializer.INSTANCE);
+
+		DataInputView in = new DataInputDeserializer(out.getByteArray(), 0, out.length());
+		HashMap<String, Map<Integer, Long>> result = new HashMap<>();
+		int numNamespaces = in.readInt();
+		for (int i = 0; i < numNamespaces; i++) {
+			String namespace = StringSerializer.INSTANCE.deserialize(in);
+			int numEntries = in.readInt();
+			Map<Integer, Long> namespaceMap = new HashMap<>();
+			for (int j = 0; j < numEntries; j++) {
+				namespaceMap.put(IntSerializer.INSTANCE.deserialize(in), LongSerializer.INSTANCE.deserialize(in));
+			}
+			result.put(namespace, namespaceMap);
+		}
+		return result;
+	}
+}
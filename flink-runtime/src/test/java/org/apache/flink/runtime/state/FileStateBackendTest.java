@@ -19,12 +19,17 @@
 package org.apache.flink.runtime.state;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.VoidSerializer;
 import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.core.fs.Path;
 import org.apache.flink.core.testutils.CommonTestUtils;
 import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
 import org.apache.flink.runtime.state.filesystem.FileStreamStateHandle;
+import org.apache.flink.runtime.state.filesystem.FsKeyGroupStateSnapshot;
 import org.apache.flink.runtime.state.filesystem.FsStateBackend;
 import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
 
@@ -34,7 +39,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.Assert.*;
@@ -67,6 +75,42 @@ public class FileStateBackendTest extends StateBackendTestBase<FsStateBackend> {
 	@Test
 	public void testReducingStateRestoreWithWrongSerializers() {}
 
+	@Test
+	public void testKeyGroupsShareOneFile() throws Exception {
+		backend.initializeForJob(new DummyEnvironment("test", 1, 0), "test_op", IntSerializer.INSTANCE);
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class, null);
+		kvId.initializeSerializerUnlessSet(new ExecutionConfig());
+
+		ValueState<String> state = backend.getPartitionedState(null, VoidSerializer.INSTANCE, kvId);
+
+		for (int key = 0; key < 10; key++) {
+			backend.setCurrentKey(key);
+			state.update(String.valueOf(key));
+		}
+
+		HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> snapshot =
+			backend.snapshotPartitionedStateByKeyGroup(682375462378L, 2);
+
+		assertTrue(snapshot.size() > 1);
+
+		Set<Path> files = new HashSet<>();
+		Set<Long> offsets = new HashSet<>();
+		for (HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroup : snapshot.values()) {
+			FsKeyGroupStateSnapshot<?, ?, ?, ?, ?> keyGroupSnapshot = (FsKeyGroupStateSnapshot<?, ?, ?, ?, ?>) keyGroup.get("id");
+			files.add(keyGroupSnapshot.getFilePath());
+			offsets.add(keyGroupSnapshot.getOffset());
+		}
+
+		// all key groups of the state are written into one file
+		assertEquals(1, files.size());
+		assertEquals(snapshot.size(), offsets.size());
+
+		for (HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroup : snapshot.values()) {
+			keyGroup.get("id").discardState();
+		}
+	}
+
 	@Test
 	public void testSetupAndSerialization() {
 		File tempDir = new File(ConfigConstants.DEFAULT_TASK_MANAGER_TMP_PATH, UUID.randomUUID().toString());
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link KeyGroupRangeAssignment}.
+ */
+public class KeyGroupRangeAssignmentTest {
+
+	@Test
+	public void testRangesCoverAllKeyGroups() {
+		for (int numberOfKeyGroups : new int[] {1, 7, 128, 32768}) {
+			for (int parallelism : new int[] {1, 2, 3, 7, 64, 128, 200}) {
+				int expectedStart = 0;
+				for (int operatorIndex = 0; operatorIndex < parallelism; operatorIndex++) {
+					KeyGroupRange range = KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(
+						numberOfKeyGroups, parallelism, operatorIndex);
+
+					// the ranges are contiguous and do not overlap
+					if (range.getNumberOfKeyGroups() > 0) {
+						assertEquals(expectedStart, range.getStartKeyGroup());
+						expectedStart = range.getEndKeyGroup() + 1;
+					}
+
+					// the ranges differ in size by at most one key group
+					assertTrue(Math.abs(range.getNumberOfKeyGroups() - numberOfKeyGroups / parallelism) <= 1);
+				}
+				assertEquals(numberOfKeyGroups, expectedStart);
+			}
+		}
+	}
+
+	@Test
+	public void testOperatorIndexIsInverseOfRange() {
+		for (int numberOfKeyGroups : new int[] {1, 7, 128, 1000}) {
+			for (int parallelism : new int[] {1, 2, 3, 7, 64, 128, 200}) {
+				for (int keyGroup = 0; keyGroup < numberOfKeyGroups; keyGroup++) {
+					int operatorIndex = KeyGroupRangeAssignment.computeOperatorIndexForKeyGroup(
+						numberOfKeyGroups, parallelism, keyGroup);
+
+					assertTrue(operatorIndex >= 0 && operatorIndex < parallelism);
+
+					KeyGroupRange range = KeyGroupRangeAssignment.computeKeyGroupRangeForOperatorIndex(
+						numberOfKeyGroups, parallelism, operatorIndex);
+					assertTrue(range.contains(keyGroup));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAssignToKeyGroup() {
+		for (int numberOfKeyGroups : new int[] {1, 128, 32768}) {
+			for (int key = -1000; key < 1000; key++) {
+				int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(key, numberOfKeyGroups);
+				assertTrue(keyGroup >= 0 && keyGroup < numberOfKeyGroups);
+				assertEquals(keyGroup, KeyGroupRangeAssignment.assignToKeyGroup(Integer.valueOf(key), numberOfKeyGroups));
+			}
+		}
+	}
+
+	@Test
+	public void testResolveNumberOfKeyGroups() {
+		assertEquals(KeyGroupRangeAssignment.DEFAULT_MAX_PARALLELISM,
+			KeyGroupRangeAssignment.resolveNumberOfKeyGroups(ExecutionConfig.PARALLELISM_DEFAULT));
+		assertEquals(42, KeyGroupRangeAssignment.resolveNumberOfKeyGroups(42));
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link SharedStateRegistry}.
+ */
+public class SharedStateRegistryTest {
+
+	@Test
+	public void testReferenceCounting() {
+		SharedStateRegistry registry = new SharedStateRegistry();
+		TestStateHandle first = new TestStateHandle();
+		TestStateHandle second = new TestStateHandle();
+
+		assertEquals(1, registry.register("first", first));
+		assertEquals(2, registry.register("first", new TestStateHandle()));
+		assertEquals(1, registry.register("second", second));
+		assertEquals(2, registry.size());
+
+		assertEquals(1, registry.unregister("first"));
+		assertFalse(first.discarded);
+
+		assertEquals(0, registry.unregister("first"));
+		assertTrue(first.discarded);
+		assertEquals(0, registry.getReferenceCount("first"));
+		assertEquals(1, registry.size());
+
+		assertEquals(1, registry.getReferenceCount("second"));
+		assertFalse(second.discarded);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnregisterUnknownState() {
+		new SharedStateRegistry().unregister("unknown");
+	}
+
+	@Test
+	public void testFailingDiscardIsIgnored() {
+		SharedStateRegistry registry = new SharedStateRegistry();
+		registry.register("failing", new StateHandle<Object>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Object getState(ClassLoader userCodeClassLoader) {
+				return null;
+			}
+
+			@Override
+			public void discardState() throws Exception {
+				throw new Exception("Expected test exception");
+			}
+
+			@Override
+			public long getStateSize() {
+				return 0;
+			}
+		});
+
+		assertEquals(0, registry.unregister("failing"));
+		assertEquals(0, registry.size());
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static class TestStateHandle implements StateHandle<Object> {
+
+		private static final long serialVersionUID = 1L;
+
+		boolean discarded;
+
+		@Override
+		public Object getState(ClassLoader userCodeClassLoader) {
+			return null;
+		}
+
+		@Override
+		public void discardState() {
+			discarded = true;
+		}
+
+		@Override
+		public long getStateSize() {
+			return 0;
+		}
+	}
+}
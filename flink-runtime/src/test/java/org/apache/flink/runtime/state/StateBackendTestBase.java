@@ -46,7 +46,12 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -728,6 +733,74 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> {
 		assertFalse(default1 == default2);
 	}
 
+	@Test
+	@SuppressWarnings("unchecked,rawtypes")
+	public void testKeyGroupSnapshotAndRestore() throws Exception {
+		backend.initializeForJob(new DummyEnvironment("test", 1, 0), "test_op", IntSerializer.INSTANCE);
+
+		if (!backend.supportsKeyGroupSnapshots()) {
+			return;
+		}
+
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class, null);
+		kvId.initializeSerializerUnlessSet(new ExecutionConfig());
+
+		ValueState<String> state = backend.getPartitionedState(null, VoidSerializer.INSTANCE, kvId);
+
+		Set<Integer> expectedKeyGroups = new HashSet<>();
+		for (int key = 0; key < 10; key++) {
+			backend.setCurrentKey(key);
+			state.update(String.valueOf(key));
+			expectedKeyGroups.add(KeyGroupRangeAssignment.assignToKeyGroup(key, KeyGroupRangeAssignment.DEFAULT_MAX_PARALLELISM));
+		}
+
+		HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> snapshot =
+			backend.snapshotPartitionedStateByKeyGroup(682375462378L, 2);
+
+		// materialize the snapshots, key groups without state materialize to null
+		Iterator<HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> keyGroups = snapshot.values().iterator();
+		while (keyGroups.hasNext()) {
+			HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroup = keyGroups.next();
+			Iterator<Map.Entry<String, KvStateSnapshot<?, ?, ?, ?, ?>>> kvStates = keyGroup.entrySet().iterator();
+			while (kvStates.hasNext()) {
+				Map.Entry<String, KvStateSnapshot<?, ?, ?, ?, ?>> kvState = kvStates.next();
+				if (kvState.getValue() instanceof AsynchronousKvStateSnapshot) {
+					KvStateSnapshot<?, ?, ?, ?, ?> materialized =
+						((AsynchronousKvStateSnapshot<?, ?, ?, ?, ?>) kvState.getValue()).materialize();
+					if (materialized == null) {
+						kvStates.remove();
+					} else {
+						kvState.setValue(materialized);
+					}
+				}
+			}
+			if (keyGroup.isEmpty()) {
+				keyGroups.remove();
+			}
+		}
+
+		// only the key groups with state are part of the snapshot
+		assertEquals(expectedKeyGroups, snapshot.keySet());
+
+		backend.dispose();
+		backend.initializeForJob(new DummyEnvironment("test", 1, 0), "test_op", IntSerializer.INSTANCE);
+
+		backend.injectKeyGroupStateSnapshots((Collection) snapshot.values(), 100);
+
+		ValueState<String> restored = backend.getPartitionedState(null, VoidSerializer.INSTANCE, kvId);
+
+		for (int key = 0; key < 10; key++) {
+			backend.setCurrentKey(key);
+			assertEquals(String.valueOf(key), restored.value());
+		}
+
+		for (HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroup : snapshot.values()) {
+			for (KvStateSnapshot<?, ?, ?, ?, ?> kvState : keyGroup.values()) {
+				kvState.discardState();
+			}
+		}
+	}
+
 	private static class AppendingReduce implements ReduceFunction<String> {
 		@Override
 		public String reduce(String value1, String value2) throws Exception {
@@ -53,6 +53,7 @@ import scala.concurrent.duration.FiniteDuration;
 import java.io.Serializable;
 import java.net.URL;
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertFalse;
@@ -205,6 +206,11 @@ public class TaskAsyncCallTest {
 
 		}
 
+		@Override
+		public void setInitialKeyGroupStates(Map<Integer, StateHandle<?>> keyGroupStates, long ts) throws Exception {
+
+		}
+
 		@Override
 		public boolean triggerCheckpoint(long checkpointId, long timestamp) {
 			lastCheckpointId++;
@@ -152,6 +152,10 @@ class SimpleConsumerThread<T> extends Thread {
 			// Now, the actual work starts :-)
 			int offsetOutOfRangeCount = 0;
 			int reconnects = 0;
+
+			// the deserialized records of one partition, which are emitted together
+			final List<T> recordBatch = new ArrayList<>();
+
 			while (running) {
 
 				// ----------------------------------- partitions list maintenance ----------------------------
@@ -326,7 +330,10 @@ class SimpleConsumerThread<T> extends Thread {
 				partitionsLoop:
 				while (partitionsIterator.hasNext()) {
 					final KafkaTopicPartitionState<TopicAndPartition> currentPartition = partitionsIterator.next();
-					
+
+					// the offset of the last record in the batch of this partition
+					long lastOffset = -1L;
+
 					final ByteBufferMessageSet messageSet = fetchResponse.messageSet(
 							currentPartition.getTopic(), currentPartition.getPartition());
 
@@ -371,18 +378,27 @@ class SimpleConsumerThread<T> extends Thread {
 									currentPartition.getTopic(), currentPartition.getPartition(), offset);
 							
 							if (deserializer.isEndOfStream(value)) {
+								// emit the records before the end of stream and
 								// remove partition from subscribed partitions.
+								owner.emitRecords(recordBatch, currentPartition, lastOffset);
+								recordBatch.clear();
 								partitionsIterator.remove();
 								continue partitionsLoop;
 							}
 							
-							owner.emitRecord(value, currentPartition, offset);
+							recordBatch.add(value);
+							lastOffset = offset;
 						}
 						else {
 							// no longer running
 							return;
 						}
 					}
+
+					// emit the records of the partition at once. this also updates the offset state
+					// atomically and deals with timestamps and watermark generation
+					owner.emitRecords(recordBatch, currentPartition, lastOffset);
+					recordBatch.clear();
 				}
 				LOG.debug("This fetch contained {} messages ({} deleted messages)", messagesInFetch, deletedMessages);
 			} // end of fetch loop
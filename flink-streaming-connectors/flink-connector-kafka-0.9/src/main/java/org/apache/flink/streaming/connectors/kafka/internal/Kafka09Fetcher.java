@@ -209,6 +209,9 @@ public class Kafka09Fetcher<T> extends AbstractFetcher<T, TopicPartition> implem
 			// from now on, external operations may call the consumer
 			this.consumer = consumer;
 
+			// the deserialized records of one partition, which are emitted together
+			final List<T> recordBatch = new ArrayList<>();
+
 			// main fetch loop
 			while (running) {
 				// get the next batch of records
@@ -230,6 +233,7 @@ public class Kafka09Fetcher<T> extends AbstractFetcher<T, TopicPartition> implem
 				for (KafkaTopicPartitionState<TopicPartition> partition : subscribedPartitions()) {
 					
 					List<ConsumerRecord<byte[], byte[]>> partitionRecords = records.records(partition.getKafkaPartitionHandle());
+					long lastOffset = -1L;
 
 					for (ConsumerRecord<byte[], byte[]> record : partitionRecords) {
 						T value = deserializer.deserialize(
@@ -242,10 +246,14 @@ public class Kafka09Fetcher<T> extends AbstractFetcher<T, TopicPartition> implem
 							break;
 						}
 
-						// emit the actual record. this also update offset state atomically
-						// and deals with timestamps and watermark generation
-						emitRecord(value, partition, record.offset());
+						recordBatch.add(value);
+						lastOffset = record.offset();
 					}
+
+					// emit the records of the partition at once. this also updates the offset state
+					// atomically and deals with timestamps and watermark generation
+					emitRecords(recordBatch, partition, lastOffset);
+					recordBatch.clear();
 				}
 			}
 			// end main fetch loop
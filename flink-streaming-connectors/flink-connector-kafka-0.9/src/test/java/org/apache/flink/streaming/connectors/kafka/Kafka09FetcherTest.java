@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.connectors.kafka;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.streaming.api.functions.AssignerWithPeriodicWatermarks;
+import org.apache.flink.streaming.api.functions.source.SourceFunction.SourceContext;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.connectors.kafka.internal.Kafka09Fetcher;
+import org.apache.flink.streaming.connectors.kafka.internals.KafkaTopicPartition;
+import org.apache.flink.streaming.connectors.kafka.testutils.MockRuntimeContext;
+import org.apache.flink.streaming.util.serialization.KeyedDeserializationSchemaWrapper;
+import org.apache.flink.streaming.util.serialization.SimpleStringSchema;
+import org.apache.flink.util.SerializedValue;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.whenNew;
+
+/**
+ * Tests for the {@link Kafka09Fetcher}, which drive the fetch loop with a mocked Kafka consumer.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Kafka09Fetcher.class)
+public class Kafka09FetcherTest {
+
+	private static final String TOPIC = "test topic name";
+
+	/**
+	 * Tests that the fetched records are emitted in order, that the offset state is that of the
+	 * last emitted record, and that the periodic watermarks never overtake the records.
+	 */
+	@Test(timeout = 60000L)
+	@SuppressWarnings("unchecked")
+	public void testBatchEmissionWithPeriodicWatermarks() throws Exception {
+		final int numPolls = 500;
+		final int recordsPerPoll = 10;
+
+		final TopicPartition partition = new TopicPartition(TOPIC, 0);
+
+		// the consumer returns the records 1, 2, 3, ... with offsets 0, 1, 2, ...
+		KafkaConsumer<byte[], byte[]> mockConsumer = mock(KafkaConsumer.class);
+		when(mockConsumer.poll(anyLong())).thenAnswer(new Answer<ConsumerRecords<byte[], byte[]>>() {
+
+			private int numPollCalls;
+
+			@Override
+			public ConsumerRecords<byte[], byte[]> answer(InvocationOnMock invocation) throws Throwable {
+				if (numPollCalls >= numPolls) {
+					Thread.sleep(1);
+					return new ConsumerRecords<>(Collections.<TopicPartition, List<ConsumerRecord<byte[], byte[]>>>emptyMap());
+				}
+
+				List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>(recordsPerPoll);
+				for (int i = 0; i < recordsPerPoll; i++) {
+					long offset = (long) numPollCalls * recordsPerPoll + i;
+					records.add(new ConsumerRecord<byte[], byte[]>(
+							TOPIC, 0, offset, null, String.valueOf(offset + 1).getBytes()));
+				}
+
+				numPollCalls++;
+				return new ConsumerRecords<>(Collections.singletonMap(partition, records));
+			}
+		});
+
+		whenNew(KafkaConsumer.class).withAnyArguments().thenReturn(mockConsumer);
+
+		ExecutionConfig config = new ExecutionConfig();
+		config.setAutoWatermarkInterval(1);
+
+		final RecordingSourceContext sourceContext = new RecordingSourceContext();
+		final KafkaTopicPartition kafkaPartition = new KafkaTopicPartition(TOPIC, 0);
+
+		final Kafka09Fetcher<String> fetcher = new Kafka09Fetcher<>(
+				sourceContext,
+				Collections.singletonList(kafkaPartition),
+				new SerializedValue<AssignerWithPeriodicWatermarks<String>>(new ParsingPeriodicExtractor()),
+				null,
+				new MockRuntimeContext(1, 0, config, sourceContext.getCheckpointLock()),
+				new KeyedDeserializationSchemaWrapper<>(new SimpleStringSchema()),
+				new Properties(),
+				0L,
+				false);
+
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		final Thread fetcherRunner = new Thread("fetcher runner") {
+			@Override
+			public void run() {
+				try {
+					fetcher.runFetchLoop();
+				}
+				catch (Throwable t) {
+					error.set(t);
+				}
+			}
+		};
+		fetcherRunner.start();
+
+		final int numRecords = numPolls * recordsPerPoll;
+		sourceContext.waitForRecords(numRecords);
+
+		fetcher.cancel();
+		fetcherRunner.join();
+
+		if (error.get() != null) {
+			throw new Exception("The fetcher failed.", error.get());
+		}
+
+		synchronized (sourceContext.getCheckpointLock()) {
+			assertEquals(numRecords, sourceContext.records.size());
+			for (int i = 0; i < numRecords; i++) {
+				assertEquals(String.valueOf(i + 1), sourceContext.records.get(i));
+			}
+
+			assertEquals("Records were emitted behind a watermark.", 0, sourceContext.numLateRecords);
+
+			Map<KafkaTopicPartition, Long> offsets = fetcher.snapshotCurrentState();
+			assertEquals(numRecords - 1, offsets.get(kafkaPartition).longValue());
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Records the emitted elements and counts those with a timestamp that is not larger than the
+	 * last watermark.
+	 */
+	private static final class RecordingSourceContext implements SourceContext<String> {
+
+		private final Object checkpointLock = new Object();
+
+		private final List<String> records = new ArrayList<>();
+
+		private long lastWatermark = Long.MIN_VALUE;
+
+		private int numLateRecords;
+
+		@Override
+		public void collect(String element) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void collectWithTimestamp(String element, long timestamp) {
+			records.add(element);
+
+			if (timestamp <= lastWatermark) {
+				numLateRecords++;
+			}
+
+			checkpointLock.notifyAll();
+		}
+
+		@Override
+		public void emitWatermark(Watermark mark) {
+			lastWatermark = mark.getTimestamp();
+		}
+
+		@Override
+		public Object getCheckpointLock() {
+			return checkpointLock;
+		}
+
+		@Override
+		public void close() {}
+
+		void waitForRecords(int numRecords) throws InterruptedException {
+			synchronized (checkpointLock) {
+				while (records.size() < numRecords) {
+					checkpointLock.wait();
+				}
+			}
+		}
+	}
+
+	private static class ParsingPeriodicExtractor implements AssignerWithPeriodicWatermarks<String> {
+
+		private static final long serialVersionUID = 1L;
+
+		private long maxTimestamp = Long.MIN_VALUE;
+
+		@Override
+		public long extractTimestamp(String element, long previousElementTimestamp) {
+			long timestamp = Long.parseLong(element);
+			maxTimestamp = Math.max(maxTimestamp, timestamp);
+			return timestamp;
+		}
+
+		@Nullable
+		@Override
+		public Watermark getCurrentWatermark() {
+			return new Watermark(maxTimestamp);
+		}
+	}
+}
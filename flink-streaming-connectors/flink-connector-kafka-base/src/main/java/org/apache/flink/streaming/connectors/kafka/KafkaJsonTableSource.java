@@ -19,6 +19,8 @@
 package org.apache.flink.streaming.connectors.kafka;
 
 import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.table.Row;
+import org.apache.flink.api.table.sources.ProjectableTableSource;
 import org.apache.flink.api.table.sources.StreamTableSource;
 import org.apache.flink.streaming.util.serialization.DeserializationSchema;
 import org.apache.flink.streaming.util.serialization.JsonRowDeserializationSchema;
@@ -32,8 +34,14 @@ import java.util.Properties;
  * override {@link #getKafkaConsumer(String, Properties, DeserializationSchema)}}.
  *
  * <p>The field names are used to parse the JSON file and so are the types.
+ *
+ * <p>The source supports projection push-down. Only the fields which are
+ * accessed by a query are read from the JSON objects.
  */
-public abstract class KafkaJsonTableSource extends KafkaTableSource {
+public abstract class KafkaJsonTableSource extends KafkaTableSource implements ProjectableTableSource<Row> {
+
+	/** Flag indicating whether to fail on a missing field. */
+	private boolean failOnMissingField;
 
 	/**
 	 * Creates a generic Kafka JSON {@link StreamTableSource}.
@@ -77,10 +85,51 @@ public abstract class KafkaJsonTableSource extends KafkaTableSource {
 	 * @param failOnMissingField Flag indicating whether to fail or not on a missing field.
 	 */
 	public void setFailOnMissingField(boolean failOnMissingField) {
+		this.failOnMissingField = failOnMissingField;
 		JsonRowDeserializationSchema deserializationSchema = (JsonRowDeserializationSchema) getDeserializationSchema();
 		deserializationSchema.setFailOnMissingField(failOnMissingField);
 	}
 
+	/**
+	 * Creates a copy of this source which only reads the given fields of the JSON objects.
+	 *
+	 * @param fields Indexes of the fields to read.
+	 * @return A copy of this source which produces the projected fields.
+	 */
+	@Override
+	public KafkaJsonTableSource projectFields(int[] fields) {
+		String[] fieldNames = getFieldsNames();
+		TypeInformation<?>[] fieldTypes = getFieldTypes();
+
+		String[] projectedFieldNames = new String[fields.length];
+		TypeInformation<?>[] projectedFieldTypes = new TypeInformation[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			projectedFieldNames[i] = fieldNames[fields[i]];
+			projectedFieldTypes[i] = fieldTypes[fields[i]];
+		}
+
+		// The version-specific consumer is created by this source
+		final KafkaJsonTableSource source = this;
+		KafkaJsonTableSource projectedSource = new KafkaJsonTableSource(
+				getTopic(),
+				getProperties(),
+				projectedFieldNames,
+				projectedFieldTypes) {
+
+			@Override
+			FlinkKafkaConsumerBase<Row> getKafkaConsumer(
+					String topic,
+					Properties properties,
+					DeserializationSchema<Row> deserializationSchema) {
+
+				return source.getKafkaConsumer(topic, properties, deserializationSchema);
+			}
+		};
+		projectedSource.setFailOnMissingField(failOnMissingField);
+
+		return projectedSource;
+	}
+
 	private static JsonRowDeserializationSchema createDeserializationSchema(
 			String[] fieldNames,
 			TypeInformation<?>[] fieldTypes) {
@@ -139,6 +139,24 @@ abstract class KafkaTableSource implements StreamTableSource<Row> {
 			Properties properties,
 			DeserializationSchema<Row> deserializationSchema);
 
+	/**
+	 * Returns the Kafka topic to consume.
+	 *
+	 * @return The Kafka topic
+	 */
+	protected String getTopic() {
+		return topic;
+	}
+
+	/**
+	 * Returns the properties for the Kafka consumer.
+	 *
+	 * @return The properties for the Kafka consumer
+	 */
+	protected Properties getProperties() {
+		return properties;
+	}
+
 	/**
 	 * Returns the deserialization schema.
 	 *
@@ -20,6 +20,8 @@ package org.apache.flink.streaming.connectors.kafka.internals;
 
 import org.apache.flink.streaming.api.functions.AssignerWithPeriodicWatermarks;
 import org.apache.flink.streaming.api.functions.AssignerWithPunctuatedWatermarks;
+import org.apache.flink.streaming.api.functions.source.BatchSourceContext;
+import org.apache.flink.streaming.api.functions.source.BatchSourceContextAdapter;
 import org.apache.flink.streaming.api.functions.source.SourceFunction.SourceContext;
 import org.apache.flink.streaming.api.operators.StreamingRuntimeContext;
 import org.apache.flink.streaming.api.watermark.Watermark;
@@ -55,6 +57,9 @@ public abstract class AbstractFetcher<T, KPH> {
 	/** The source context to emit records and watermarks to */
 	private final SourceContext<T> sourceContext;
 
+	/** The source context, for emitting all records of one fetch from a partition at once */
+	private final BatchSourceContext<T> batchSourceContext;
+
 	/** The lock that guarantees that record emission and state updates are atomic,
 	 * from the view of taking a checkpoint */
 	private final Object checkpointLock;
@@ -78,6 +83,7 @@ public abstract class AbstractFetcher<T, KPH> {
 			StreamingRuntimeContext runtimeContext) throws Exception
 	{
 		this.sourceContext = checkNotNull(sourceContext);
+		this.batchSourceContext = BatchSourceContextAdapter.forContext(sourceContext);
 		this.checkpointLock = sourceContext.getCheckpointLock();
 		
 		// figure out what we watermark mode we will be using
@@ -228,6 +234,41 @@ public abstract class AbstractFetcher<T, KPH> {
 		}
 	}
 
+	/**
+	 * Emits the given records from one partition at once and sets the partition's offset to the
+	 * offset of the last record. The checkpoint lock is acquired only once for the whole batch,
+	 * and emission and offset update are atomic, like in {@link #emitRecord(Object, KafkaTopicPartitionState, long)}.
+	 *
+	 * <p>Watermarks that result from the records of the batch are emitted after the batch.
+	 * 
+	 * @param records The records to emit, in the order of their offsets. The list is not
+	 *                referenced after the call, so it may be reused.
+	 * @param partitionState The state of the Kafka partition from which the records were fetched
+	 * @param lastOffset The offset of the last record of the batch
+	 */
+	protected final void emitRecords(List<T> records, final KafkaTopicPartitionState<KPH> partitionState, final long lastOffset) {
+		if (records.isEmpty()) {
+			return;
+		}
+
+		final Runnable offsetUpdate = new Runnable() {
+			@Override
+			public void run() {
+				partitionState.setOffset(lastOffset);
+			}
+		};
+
+		if (timestampWatermarkMode == NO_TIMESTAMPS_WATERMARKS) {
+			batchSourceContext.collectBatch(records, offsetUpdate);
+		}
+		else if (timestampWatermarkMode == PERIODIC_WATERMARKS) {
+			emitRecordsWithTimestampsAndPeriodicWatermark(records, partitionState, offsetUpdate);
+		}
+		else {
+			emitRecordsWithTimestampsAndPunctuatedWatermark(records, partitionState, offsetUpdate);
+		}
+	}
+
 	/**
 	 * Record emission, if a timestamp will be attached from an assigner that is
 	 * also a periodic watermark generator.
@@ -239,18 +280,20 @@ public abstract class AbstractFetcher<T, KPH> {
 		final KafkaTopicPartitionStateWithPeriodicWatermarks<T, KPH> withWatermarksState =
 				(KafkaTopicPartitionStateWithPeriodicWatermarks<T, KPH>) partitionState;
 
-		// extract timestamp - this accesses/modifies the per-partition state inside the
-		// watermark generator instance, so we need to lock the access on the
-		// partition state. concurrent access can happen from the periodic emitter
-		final long timestamp;
-		//noinspection SynchronizationOnLocalVariableOrMethodParameter
-		synchronized (withWatermarksState) {
-			timestamp = withWatermarksState.getTimestampForRecord(record);
-		}
-
 		// emit the record with timestamp, using the usual checkpoint lock to guarantee
-		// atomicity of record emission and offset state update 
+		// atomicity of record emission and offset state update. The timestamp is extracted
+		// under the same lock, because the periodic emitter holds it as well. Otherwise, the
+		// emitter could emit a watermark covering the timestamp before the record.
 		synchronized (checkpointLock) {
+			// extract timestamp - this accesses/modifies the per-partition state inside the
+			// watermark generator instance, so we need to lock the access on the
+			// partition state. concurrent access can happen from the periodic emitter
+			final long timestamp;
+			//noinspection SynchronizationOnLocalVariableOrMethodParameter
+			synchronized (withWatermarksState) {
+				timestamp = withWatermarksState.getTimestampForRecord(record);
+			}
+
 			sourceContext.collectWithTimestamp(record, timestamp);
 			partitionState.setOffset(offset);
 		}
@@ -285,6 +328,73 @@ public abstract class AbstractFetcher<T, KPH> {
 			updateMinPunctuatedWatermark(newWatermark);
 		}
 	}
+
+	/**
+	 * Batch record emission, if timestamps will be attached from an assigner that is
+	 * also a periodic watermark generator.
+	 */
+	private void emitRecordsWithTimestampsAndPeriodicWatermark(
+			List<T> records, KafkaTopicPartitionState<KPH> partitionState, Runnable offsetUpdate)
+	{
+		@SuppressWarnings("unchecked")
+		final KafkaTopicPartitionStateWithPeriodicWatermarks<T, KPH> withWatermarksState =
+				(KafkaTopicPartitionStateWithPeriodicWatermarks<T, KPH>) partitionState;
+
+		final long[] timestamps = new long[records.size()];
+
+		// the timestamps are extracted in the same checkpoint lock scope as the batch is emitted
+		// (the batch source context acquires it again), because the periodic emitter holds it
+		// as well. Otherwise, the emitter could emit a watermark covering the timestamps of the
+		// batch before the batch itself.
+		synchronized (checkpointLock) {
+			// the timestamps are extracted under the lock on the partition state,
+			// because the periodic emitter concurrently accesses the watermark generator
+			//noinspection SynchronizationOnLocalVariableOrMethodParameter
+			synchronized (withWatermarksState) {
+				for (int i = 0; i < timestamps.length; i++) {
+					timestamps[i] = withWatermarksState.getTimestampForRecord(records.get(i));
+				}
+			}
+
+			batchSourceContext.collectBatchWithTimestamps(records, timestamps, offsetUpdate);
+		}
+	}
+
+	/**
+	 * Batch record emission, if timestamps will be attached from an assigner that is
+	 * also a punctuated watermark generator.
+	 */
+	private void emitRecordsWithTimestampsAndPunctuatedWatermark(
+			List<T> records, KafkaTopicPartitionState<KPH> partitionState, Runnable offsetUpdate)
+	{
+		@SuppressWarnings("unchecked")
+		final KafkaTopicPartitionStateWithPunctuatedWatermarks<T, KPH> withWatermarksState =
+				(KafkaTopicPartitionStateWithPunctuatedWatermarks<T, KPH>) partitionState;
+
+		// only one thread ever works on accessing timestamps and watermarks
+		// from the punctuated extractor
+		final long[] timestamps = new long[records.size()];
+		Watermark newWatermark = null;
+
+		for (int i = 0; i < timestamps.length; i++) {
+			final T record = records.get(i);
+			timestamps[i] = withWatermarksState.getTimestampForRecord(record);
+
+			Watermark watermark = withWatermarksState.checkAndGetNewWatermark(record, timestamps[i]);
+			if (watermark != null) {
+				newWatermark = watermark;
+			}
+		}
+
+		batchSourceContext.collectBatchWithTimestamps(records, timestamps, offsetUpdate);
+
+		// the latest new per-partition watermark of the batch may also be
+		// a new cross-partition watermark
+		if (newWatermark != null) {
+			updateMinPunctuatedWatermark(newWatermark);
+		}
+	}
+
 	/**
 	 *Checks whether a new per-partition watermark is also a new cross-partition watermark.
 	 */
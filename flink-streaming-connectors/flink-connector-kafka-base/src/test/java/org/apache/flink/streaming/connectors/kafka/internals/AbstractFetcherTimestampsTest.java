@@ -31,7 +31,9 @@ import org.apache.flink.util.SerializedValue;
 import org.junit.Test;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -177,6 +179,88 @@ public class AbstractFetcherTimestampsTest {
 		assertTrue(watermarkTs >= 13L && watermarkTs <= 15L);
 	}
 
+	@Test
+	public void testPeriodicWatermarksWithBatches() throws Exception {
+		ExecutionConfig config = new ExecutionConfig();
+		config.setAutoWatermarkInterval(10);
+
+		List<KafkaTopicPartition> originalPartitions = Arrays.asList(
+				new KafkaTopicPartition("test topic name", 7),
+				new KafkaTopicPartition("test topic name", 13));
+
+		TestSourceContext<Long> sourceContext = new TestSourceContext<>();
+
+		TestFetcher<Long> fetcher = new TestFetcher<>(
+				sourceContext, originalPartitions,
+				new SerializedValue<AssignerWithPeriodicWatermarks<Long>>(new PeriodicTestExtractor()),
+				null, new MockRuntimeContext(17, 3, config, sourceContext.getCheckpointLock()));
+
+		final KafkaTopicPartitionState<Object> part1 = fetcher.subscribedPartitions()[0];
+		final KafkaTopicPartitionState<Object> part2 = fetcher.subscribedPartitions()[1];
+
+		fetcher.emitRecords(Arrays.asList(1L, 2L, 3L), part1, 3L);
+		assertEquals(3L, sourceContext.getLatestElement().getValue().longValue());
+		assertEquals(3L, sourceContext.getLatestElement().getTimestamp());
+
+		fetcher.emitRecords(Arrays.asList(11L, 12L), part2, 2L);
+		assertEquals(12L, sourceContext.getLatestElement().getValue().longValue());
+		assertEquals(12L, sourceContext.getLatestElement().getTimestamp());
+
+		// this blocks until the periodic thread emitted the watermark
+		assertEquals(3L, sourceContext.getLatestWatermark().getTimestamp());
+
+		fetcher.emitRecords(Arrays.asList(20L, 30L), part1, 5L);
+
+		// this blocks until the periodic thread emitted the watermark
+		assertEquals(12L, sourceContext.getLatestWatermark().getTimestamp());
+
+		// the offsets are those of the last records of the batches
+		synchronized (sourceContext.getCheckpointLock()) {
+			Map<KafkaTopicPartition, Long> offsets = fetcher.snapshotCurrentState();
+			assertEquals(5L, offsets.get(originalPartitions.get(0)).longValue());
+			assertEquals(2L, offsets.get(originalPartitions.get(1)).longValue());
+		}
+	}
+
+	/**
+	 * Tests that the periodic watermark emitter, running concurrently to the batch emission,
+	 * never emits a watermark that covers records of a batch before the batch itself.
+	 */
+	@Test
+	public void testNoLateRecordsInBatchesWithPeriodicWatermarks() throws Exception {
+		ExecutionConfig config = new ExecutionConfig();
+		config.setAutoWatermarkInterval(1);
+
+		List<KafkaTopicPartition> originalPartitions = Collections.singletonList(
+				new KafkaTopicPartition("test topic name", 7));
+
+		LateRecordCheckingSourceContext<Long> sourceContext = new LateRecordCheckingSourceContext<>();
+
+		TestFetcher<Long> fetcher = new TestFetcher<>(
+				sourceContext, originalPartitions,
+				new SerializedValue<AssignerWithPeriodicWatermarks<Long>>(new PeriodicTestExtractor()),
+				null, new MockRuntimeContext(17, 3, config, sourceContext.getCheckpointLock()));
+
+		final KafkaTopicPartitionState<Object> partition = fetcher.subscribedPartitions()[0];
+
+		final int numBatches = 2000;
+		final int batchSize = 10;
+		final List<Long> batch = new ArrayList<>(batchSize);
+
+		long timestamp = 0L;
+		for (int i = 0; i < numBatches; i++) {
+			for (int j = 0; j < batchSize; j++) {
+				batch.add(++timestamp);
+			}
+
+			fetcher.emitRecords(batch, partition, timestamp);
+			batch.clear();
+		}
+
+		assertEquals(numBatches * batchSize, sourceContext.getNumRecords());
+		assertEquals("Records were emitted behind a watermark.", 0, sourceContext.getNumLateRecords());
+	}
+
 	// ------------------------------------------------------------------------
 	//  Test mocks
 	// ------------------------------------------------------------------------
@@ -272,6 +356,62 @@ public class AbstractFetcherTimestampsTest {
 
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Counts the records with a timestamp that is not larger than the last watermark.
+	 */
+	private static final class LateRecordCheckingSourceContext<T> implements SourceContext<T> {
+
+		private final Object checkpointLock = new Object();
+
+		private long lastWatermark = Long.MIN_VALUE;
+		private int numRecords;
+		private int numLateRecords;
+
+		@Override
+		public void collect(T element) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void collectWithTimestamp(T element, long timestamp) {
+			assertTrue(Thread.holdsLock(checkpointLock));
+
+			numRecords++;
+			if (timestamp <= lastWatermark) {
+				numLateRecords++;
+			}
+		}
+
+		@Override
+		public void emitWatermark(Watermark mark) {
+			assertTrue(Thread.holdsLock(checkpointLock));
+
+			lastWatermark = mark.getTimestamp();
+		}
+
+		@Override
+		public Object getCheckpointLock() {
+			return checkpointLock;
+		}
+
+		@Override
+		public void close() {}
+
+		public int getNumRecords() {
+			synchronized (checkpointLock) {
+				return numRecords;
+			}
+		}
+
+		public int getNumLateRecords() {
+			synchronized (checkpointLock) {
+				return numLateRecords;
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
 	private static class PeriodicTestExtractor implements AssignerWithPeriodicWatermarks<Long> {
 
 		private volatile long maxTimestamp = Long.MIN_VALUE;
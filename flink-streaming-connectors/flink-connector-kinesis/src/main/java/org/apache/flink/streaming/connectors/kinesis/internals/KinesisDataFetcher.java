@@ -18,6 +18,8 @@
 package org.apache.flink.streaming.connectors.kinesis.internals;
 
 import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.streaming.api.functions.source.BatchSourceContext;
+import org.apache.flink.streaming.api.functions.source.BatchSourceContextAdapter;
 import org.apache.flink.streaming.api.functions.source.SourceFunction;
 import org.apache.flink.streaming.connectors.kinesis.FlinkKinesisConsumer;
 import org.apache.flink.streaming.connectors.kinesis.config.KinesisConfigConstants;
@@ -132,12 +134,16 @@ public class KinesisDataFetcher<T> {
 	 *     <li>{@link KinesisDataFetcher#registerNewSubscribedShardState(KinesisStreamShardState)}</li>
 	 *     <li>{@link KinesisDataFetcher#updateState(int, SequenceNumber)}</li>
 	 *     <li>{@link KinesisDataFetcher#emitRecordAndUpdateState(T, int, SequenceNumber)}</li>
+	 *     <li>{@link KinesisDataFetcher#emitRecordsAndUpdateState(List, int, SequenceNumber)}</li>
 	 * </ul>
 	 */
 	private final List<KinesisStreamShardState> subscribedShardsState;
 
 	private final SourceFunction.SourceContext<T> sourceContext;
 
+	/** The source context, for emitting all records of one fetch at once */
+	private final BatchSourceContext<T> batchSourceContext;
+
 	/** Checkpoint lock, also used to synchronize operations on subscribedShardsState */
 	private final Object checkpointLock;
 
@@ -192,6 +198,7 @@ public class KinesisDataFetcher<T> {
 		this.streams = checkNotNull(streams);
 		this.configProps = checkNotNull(configProps);
 		this.sourceContext = checkNotNull(sourceContext);
+		this.batchSourceContext = BatchSourceContextAdapter.forContext(sourceContext);
 		this.checkpointLock = checkNotNull(checkpointLock);
 		this.runtimeContext = checkNotNull(runtimeContext);
 		this.totalNumberOfConsumerSubtasks = runtimeContext.getNumberOfParallelSubtasks();
@@ -504,6 +511,30 @@ public class KinesisDataFetcher<T> {
 		}
 	}
 
+	/**
+	 * Atomic operation to collect a batch of records and update state to the sequence number of
+	 * the last record of the batch. Compared to {@link #emitRecordAndUpdateState(Object, int, SequenceNumber)},
+	 * the checkpoint lock is only acquired once for all records.
+	 * This method is called by {@link ShardConsumer}s.
+	 *
+	 * @param records the records to collect
+	 * @param shardStateIndex index of the shard to update in subscribedShardsState;
+	 *                        this index should be the returned value from
+	 *                        {@link KinesisDataFetcher#registerNewSubscribedShardState(KinesisStreamShardState)}, called
+	 *                        when the shard state was registered.
+	 * @param lastSequenceNumber the sequence number of the last record of the batch
+	 */
+	protected void emitRecordsAndUpdateState(List<T> records, final int shardStateIndex, final SequenceNumber lastSequenceNumber) {
+		synchronized (checkpointLock) {
+			batchSourceContext.collectBatch(records, new Runnable() {
+				@Override
+				public void run() {
+					updateState(shardStateIndex, lastSequenceNumber);
+				}
+			});
+		}
+	}
+
 	/**
 	 * Update the shard to last processed sequence number state.
 	 * This method is called by {@link ShardConsumer}s.
@@ -32,6 +32,7 @@ import org.apache.flink.streaming.connectors.kinesis.serialization.KinesisDeseri
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
@@ -56,6 +57,12 @@ public class ShardConsumer<T> implements Runnable {
 
 	private SequenceNumber lastSequenceNum;
 
+	/** The deserialized records of the current fetch, which are emitted together */
+	private final List<T> collectedRecords = new ArrayList<>();
+
+	/** The last record of the current fetch, whose sequence number is stored in the state */
+	private UserRecord lastCollectedRecord;
+
 	/**
 	 * Creates a shard consumer.
 	 *
@@ -134,11 +141,12 @@ public class ShardConsumer<T> implements Runnable {
 					long lastSubSequenceNum = lastSequenceNum.getSubSequenceNumber();
 					for (UserRecord record : fetchedRecords) {
 						// we have found a dangling sub-record if it has a larger subsequence number
-						// than our last sequence number; if so, collect the record and update state
+						// than our last sequence number; if so, collect the record
 						if (record.getSubSequenceNumber() > lastSubSequenceNum) {
-							deserializeRecordForCollectionAndUpdateState(record);
+							deserializeRecordForCollection(record);
 						}
 					}
+					emitCollectedRecordsAndUpdateState();
 
 					// set the nextShardItr so we can continue iterating in the next while loop
 					nextShardItr = getRecordsResult.getNextShardIterator();
@@ -164,8 +172,9 @@ public class ShardConsumer<T> implements Runnable {
 						subscribedShard.getShard().getHashKeyRange().getEndingHashKey());
 
 					for (UserRecord record : fetchedRecords) {
-						deserializeRecordForCollectionAndUpdateState(record);
+						deserializeRecordForCollection(record);
 					}
+					emitCollectedRecordsAndUpdateState();
 
 					nextShardItr = getRecordsResult.getNextShardIterator();
 				}
@@ -185,7 +194,11 @@ public class ShardConsumer<T> implements Runnable {
 		return !Thread.interrupted();
 	}
 
-	private void deserializeRecordForCollectionAndUpdateState(UserRecord record)
+	/**
+	 * Deserializes the given record and adds it to the batch of records that are emitted with
+	 * the next call to {@link #emitCollectedRecordsAndUpdateState()}.
+	 */
+	private void deserializeRecordForCollection(UserRecord record)
 		throws IOException {
 		ByteBuffer recordData = record.getData();
 
@@ -197,17 +210,27 @@ public class ShardConsumer<T> implements Runnable {
 		final T value = deserializer.deserialize(keyBytes, dataBytes, subscribedShard.getStreamName(),
 			record.getSequenceNumber());
 
-		if (record.isAggregated()) {
-			fetcherRef.emitRecordAndUpdateState(
-				value,
-				subscribedShardStateIndex,
-				new SequenceNumber(record.getSequenceNumber(), record.getSubSequenceNumber()));
-		} else {
-			fetcherRef.emitRecordAndUpdateState(
-				value,
-				subscribedShardStateIndex,
-				new SequenceNumber(record.getSequenceNumber()));
+		collectedRecords.add(value);
+		lastCollectedRecord = record;
+	}
+
+	/**
+	 * Emits all collected records at once, and updates the shard state to the sequence number
+	 * of the last of them.
+	 */
+	private void emitCollectedRecordsAndUpdateState() {
+		if (collectedRecords.isEmpty()) {
+			return;
 		}
+
+		final SequenceNumber lastCollectedSequenceNum = lastCollectedRecord.isAggregated()
+			? new SequenceNumber(lastCollectedRecord.getSequenceNumber(), lastCollectedRecord.getSubSequenceNumber())
+			: new SequenceNumber(lastCollectedRecord.getSequenceNumber());
+
+		fetcherRef.emitRecordsAndUpdateState(collectedRecords, subscribedShardStateIndex, lastCollectedSequenceNum);
+
+		collectedRecords.clear();
+		lastCollectedRecord = null;
 	}
 
 	@SuppressWarnings("unchecked")
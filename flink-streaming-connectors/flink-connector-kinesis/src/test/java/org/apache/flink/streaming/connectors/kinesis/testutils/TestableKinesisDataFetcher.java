@@ -19,9 +19,9 @@ package org.apache.flink.streaming.connectors.kinesis.testutils;
 
 import org.apache.flink.api.common.functions.RuntimeContext;
 import org.apache.flink.streaming.api.functions.source.SourceFunction;
+import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.connectors.kinesis.internals.KinesisDataFetcher;
 import org.apache.flink.streaming.connectors.kinesis.model.KinesisStreamShardState;
-import org.apache.flink.streaming.connectors.kinesis.model.SequenceNumber;
 import org.apache.flink.streaming.connectors.kinesis.proxy.KinesisProxyInterface;
 import org.apache.flink.streaming.connectors.kinesis.serialization.KinesisDeserializationSchema;
 import org.apache.flink.streaming.connectors.kinesis.serialization.KinesisDeserializationSchemaWrapper;
@@ -40,7 +40,7 @@ public class TestableKinesisDataFetcher extends KinesisDataFetcher<String> {
 
 	private static final Object fakeCheckpointLock = new Object();
 
-	private long numElementsCollected;
+	private final CountingSourceContext sourceContext;
 
 	public TestableKinesisDataFetcher(List<String> fakeStreams,
 									  Properties fakeConfiguration,
@@ -50,8 +50,28 @@ public class TestableKinesisDataFetcher extends KinesisDataFetcher<String> {
 									  LinkedList<KinesisStreamShardState> subscribedShardsStateUnderTest,
 									  HashMap<String, String> subscribedStreamsToLastDiscoveredShardIdsStateUnderTest,
 									  KinesisProxyInterface fakeKinesis) {
+		this(fakeStreams,
+			new CountingSourceContext(),
+			fakeConfiguration,
+			fakeTotalCountOfSubtasks,
+			fakeTndexOfThisSubtask,
+			thrownErrorUnderTest,
+			subscribedShardsStateUnderTest,
+			subscribedStreamsToLastDiscoveredShardIdsStateUnderTest,
+			fakeKinesis);
+	}
+
+	private TestableKinesisDataFetcher(List<String> fakeStreams,
+									   CountingSourceContext sourceContext,
+									   Properties fakeConfiguration,
+									   int fakeTotalCountOfSubtasks,
+									   int fakeTndexOfThisSubtask,
+									   AtomicReference<Throwable> thrownErrorUnderTest,
+									   LinkedList<KinesisStreamShardState> subscribedShardsStateUnderTest,
+									   HashMap<String, String> subscribedStreamsToLastDiscoveredShardIdsStateUnderTest,
+									   KinesisProxyInterface fakeKinesis) {
 		super(fakeStreams,
-			getMockedSourceContext(),
+			sourceContext,
 			fakeCheckpointLock,
 			getMockedRuntimeContext(fakeTotalCountOfSubtasks, fakeTndexOfThisSubtask),
 			fakeConfiguration,
@@ -61,11 +81,11 @@ public class TestableKinesisDataFetcher extends KinesisDataFetcher<String> {
 			subscribedStreamsToLastDiscoveredShardIdsStateUnderTest,
 			fakeKinesis);
 
-		this.numElementsCollected = 0;
+		this.sourceContext = sourceContext;
 	}
 
 	public long getNumOfElementsCollected() {
-		return numElementsCollected;
+		return sourceContext.numElementsCollected;
 	}
 
 	@Override
@@ -73,17 +93,43 @@ public class TestableKinesisDataFetcher extends KinesisDataFetcher<String> {
 		return new KinesisDeserializationSchemaWrapper<>(new SimpleStringSchema());
 	}
 
-	@Override
-	protected void emitRecordAndUpdateState(String record, int shardStateIndex, SequenceNumber lastSequenceNumber) {
-		synchronized (fakeCheckpointLock) {
-			this.numElementsCollected++;
-			updateState(shardStateIndex, lastSequenceNumber);
+	/**
+	 * Counts the collected elements, so that the records go through the actual emission of
+	 * the fetcher, including the batch emission under the checkpoint lock.
+	 */
+	private static class CountingSourceContext implements SourceFunction.SourceContext<String> {
+
+		private long numElementsCollected;
+
+		@Override
+		public void collect(String element) {
+			checkHoldsCheckpointLock();
+			numElementsCollected++;
+		}
+
+		@Override
+		public void collectWithTimestamp(String element, long timestamp) {
+			collect(element);
+		}
+
+		@Override
+		public void emitWatermark(Watermark mark) {
+			throw new UnsupportedOperationException();
 		}
-	}
 
-	@SuppressWarnings("unchecked")
-	private static SourceFunction.SourceContext<String> getMockedSourceContext() {
-		return Mockito.mock(SourceFunction.SourceContext.class);
+		@Override
+		public Object getCheckpointLock() {
+			return fakeCheckpointLock;
+		}
+
+		@Override
+		public void close() {}
+
+		private static void checkHoldsCheckpointLock() {
+			if (!Thread.holdsLock(fakeCheckpointLock)) {
+				throw new IllegalStateException("Records must be emitted under the checkpoint lock.");
+			}
+		}
 	}
 
 	private static RuntimeContext getMockedRuntimeContext(final int fakeTotalCountOfSubtasks, final int fakeTndexOfThisSubtask) {
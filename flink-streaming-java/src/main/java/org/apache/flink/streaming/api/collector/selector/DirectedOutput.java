@@ -23,12 +23,14 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.streaming.api.graph.StreamEdge;
 import org.apache.flink.streaming.api.operators.Output;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 
@@ -42,6 +44,8 @@ public class DirectedOutput<OUT> implements Output<StreamRecord<OUT>> {
 	
 	protected final Output<StreamRecord<OUT>>[] allOutputs;
 
+	private final Random random = new Random();
+
 	
 	@SuppressWarnings({"unchecked", "rawtypes"})
 	public DirectedOutput(
@@ -100,6 +104,18 @@ public class DirectedOutput<OUT> implements Output<StreamRecord<OUT>> {
 		}
 	}
 
+	@Override
+	public void emitLatencyMarker(LatencyMarker latencyMarker) {
+		// latency markers are not selected by the output selectors, but sent to a random output
+		if (allOutputs.length <= 0) {
+			// ignore
+		} else if (allOutputs.length == 1) {
+			allOutputs[0].emitLatencyMarker(latencyMarker);
+		} else {
+			allOutputs[random.nextInt(allOutputs.length)].emitLatencyMarker(latencyMarker);
+		}
+	}
+
 	protected Set<Output<StreamRecord<OUT>>> selectOutputs(StreamRecord<OUT> record)  {
 		Set<Output<StreamRecord<OUT>>> selectedOutputs = new HashSet<>(selectAllOutputs.length);
 		Collections.addAll(selectedOutputs, selectAllOutputs);
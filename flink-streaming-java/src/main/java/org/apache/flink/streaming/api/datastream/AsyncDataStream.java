@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.datastream;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.Utils;
+import org.apache.flink.api.java.typeutils.TypeExtractor;
+import org.apache.flink.streaming.api.functions.async.AsyncFunction;
+import org.apache.flink.streaming.api.operators.async.AsyncWaitOperator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper to apply an {@link AsyncFunction} to a {@link DataStream}.
+ *
+ * <pre>{@code
+ * DataStream<String> input = ...
+ * AsyncFunction<String, Tuple2<String, String>> lookup = ...
+ *
+ * DataStream<Tuple2<String, String>> enriched =
+ *     AsyncDataStream.unorderedWait(input, lookup, 1000, TimeUnit.MILLISECONDS, 100);
+ * }</pre>
+ */
+@PublicEvolving
+public class AsyncDataStream {
+
+	/**
+	 * The order in which the results of the asynchronous operations are emitted.
+	 */
+	public enum OutputMode {
+
+		/** Results are emitted in the order of the input elements. */
+		ORDERED,
+
+		/**
+		 * Results are emitted as soon as they are complete. Watermarks are kept in place: results
+		 * are never emitted after a watermark that followed their input element, or before a
+		 * watermark that preceded it.
+		 */
+		UNORDERED
+	}
+
+	/** The default capacity of the operator, if none is given */
+	private static final int DEFAULT_CAPACITY = 100;
+
+	/**
+	 * Applies the function to the stream and emits the results in the order of the input elements.
+	 *
+	 * @param in The input stream.
+	 * @param func The function starting the asynchronous operations.
+	 * @param timeout The timeout of an operation, or 0 for no timeout. An operation that takes
+	 *                longer fails the program.
+	 * @param timeUnit The unit of the timeout.
+	 * @param capacity The maximum number of operations in flight per parallel instance.
+	 * @param <IN> Type of the input elements.
+	 * @param <OUT> Type of the result elements.
+	 * @return The stream of results.
+	 */
+	public static <IN, OUT> SingleOutputStreamOperator<OUT> orderedWait(
+			DataStream<IN> in,
+			AsyncFunction<IN, OUT> func,
+			long timeout,
+			TimeUnit timeUnit,
+			int capacity) {
+
+		return addOperator(in, func, timeUnit.toMillis(timeout), capacity, OutputMode.ORDERED);
+	}
+
+	/**
+	 * Applies the function to the stream and emits the results in the order of the input
+	 * elements, with a capacity of 100 operations in flight.
+	 */
+	public static <IN, OUT> SingleOutputStreamOperator<OUT> orderedWait(
+			DataStream<IN> in,
+			AsyncFunction<IN, OUT> func,
+			long timeout,
+			TimeUnit timeUnit) {
+
+		return orderedWait(in, func, timeout, timeUnit, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Applies the function to the stream and emits the results as soon as they are complete,
+	 * but never across a watermark.
+	 *
+	 * @param in The input stream.
+	 * @param func The function starting the asynchronous operations.
+	 * @param timeout The timeout of an operation, or 0 for no timeout. An operation that takes
+	 *                longer fails the program.
+	 * @param timeUnit The unit of the timeout.
+	 * @param capacity The maximum number of operations in flight per parallel instance.
+	 * @param <IN> Type of the input elements.
+	 * @param <OUT> Type of the result elements.
+	 * @return The stream of results.
+	 */
+	public static <IN, OUT> SingleOutputStreamOperator<OUT> unorderedWait(
+			DataStream<IN> in,
+			AsyncFunction<IN, OUT> func,
+			long timeout,
+			TimeUnit timeUnit,
+			int capacity) {
+
+		return addOperator(in, func, timeUnit.toMillis(timeout), capacity, OutputMode.UNORDERED);
+	}
+
+	/**
+	 * Applies the function to the stream and emits the results as soon as they are complete,
+	 * but never across a watermark, with a capacity of 100 operations in flight.
+	 */
+	public static <IN, OUT> SingleOutputStreamOperator<OUT> unorderedWait(
+			DataStream<IN> in,
+			AsyncFunction<IN, OUT> func,
+			long timeout,
+			TimeUnit timeUnit) {
+
+		return unorderedWait(in, func, timeout, timeUnit, DEFAULT_CAPACITY);
+	}
+
+	private static <IN, OUT> SingleOutputStreamOperator<OUT> addOperator(
+			DataStream<IN> in,
+			AsyncFunction<IN, OUT> func,
+			long timeout,
+			int capacity,
+			OutputMode mode) {
+
+		AsyncFunction<IN, OUT> cleanedFunc = in.getExecutionEnvironment().clean(func);
+
+		TypeInformation<OUT> outTypeInfo = TypeExtractor.getUnaryOperatorReturnType(
+				cleanedFunc, AsyncFunction.class, false, true, in.getType(),
+				Utils.getCallLocationName(), true);
+
+		AsyncWaitOperator<IN, OUT> operator = new AsyncWaitOperator<>(
+				cleanedFunc,
+				in.getType().createSerializer(in.getExecutionConfig()),
+				capacity,
+				timeout,
+				mode);
+
+		return in.transform("async wait operator", outTypeInfo, operator);
+	}
+}
@@ -41,17 +41,20 @@ import org.apache.flink.streaming.api.functions.windowing.ReduceApplyWindowFunct
 import org.apache.flink.streaming.api.functions.windowing.WindowFunction;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.windowing.assigners.MergingWindowAssigner;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
 import org.apache.flink.streaming.api.windowing.assigners.SlidingProcessingTimeWindows;
 import org.apache.flink.streaming.api.windowing.assigners.TumblingProcessingTimeWindows;
 import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
 import org.apache.flink.streaming.api.windowing.evictors.Evictor;
 import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
 import org.apache.flink.streaming.api.windowing.triggers.ProcessingTimeTrigger;
 import org.apache.flink.streaming.api.windowing.triggers.Trigger;
 import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
 import org.apache.flink.streaming.api.windowing.windows.Window;
 import org.apache.flink.streaming.runtime.operators.windowing.AccumulatingProcessingTimeWindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.AggregatingProcessingTimeWindowOperator;
+import org.apache.flink.streaming.runtime.operators.windowing.AlignedEventTimeWindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.EvictingWindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalIterableWindowFunction;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalSingleValueWindowFunction;
@@ -401,15 +404,32 @@ public class WindowedStream<T, K, W extends Window> {
 
 			opName = "TriggerWindow(" + windowAssigner + ", " + stateDesc + ", " + trigger + ", " + udfName + ")";
 
-			operator =
-				new WindowOperator<>(windowAssigner,
-					windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
-					keySel,
-					input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
-					stateDesc,
-					new InternalSingleValueWindowFunction<>(function),
-					trigger,
-					allowedLateness);
+			if (windowAssigner instanceof SlidingEventTimeWindows && trigger instanceof EventTimeTrigger) {
+				// aligned windows can share the pre-aggregated panes, so that every element
+				// is added to a single pane instead of to every window it belongs to
+				@SuppressWarnings("unchecked")
+				WindowFunction<T, R, K, TimeWindow> wf = (WindowFunction<T, R, K, TimeWindow>) function;
+
+				operator =
+					new AlignedEventTimeWindowOperator<>((SlidingEventTimeWindows) windowAssigner,
+						new TimeWindow.Serializer(),
+						keySel,
+						input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
+						stateDesc,
+						new InternalSingleValueWindowFunction<>(wf),
+						(EventTimeTrigger) trigger,
+						allowedLateness);
+			} else {
+				operator =
+					new WindowOperator<>(windowAssigner,
+						windowAssigner.getWindowSerializer(getExecutionEnvironment().getConfig()),
+						keySel,
+						input.getKeyType().createSerializer(getExecutionEnvironment().getConfig()),
+						stateDesc,
+						new InternalSingleValueWindowFunction<>(function),
+						trigger,
+						allowedLateness);
+			}
 		}
 
 		return input.transform(opName, resultType, operator);
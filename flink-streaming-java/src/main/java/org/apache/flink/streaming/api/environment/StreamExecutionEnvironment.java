@@ -179,6 +179,36 @@ public abstract class StreamExecutionEnvironment {
 		return config.getParallelism();
 	}
 
+	/**
+	 * Sets the maximum parallelism, which is the number of key groups into which the keyed
+	 * state is partitioned. A job can be restored from a checkpoint or savepoint with any
+	 * parallelism up to the maximum parallelism, as long as the maximum parallelism is not
+	 * changed. If not set, the maximum parallelism is the higher one of 128 and the highest
+	 * parallelism of an operator with keyed state.
+	 *
+	 * @param maxParallelism The maximum parallelism
+	 */
+	@PublicEvolving
+	public StreamExecutionEnvironment setMaxParallelism(int maxParallelism) {
+		if (maxParallelism < 1) {
+			throw new IllegalArgumentException("maximum parallelism must be at least one.");
+		}
+		config.setMaxParallelism(maxParallelism);
+		return this;
+	}
+
+	/**
+	 * Gets the maximum parallelism, which is the number of key groups into which the keyed
+	 * state is partitioned.
+	 *
+	 * @return The maximum parallelism, or {@link ExecutionConfig#PARALLELISM_DEFAULT} if it
+	 *         has not been set.
+	 */
+	@PublicEvolving
+	public int getMaxParallelism() {
+		return config.getMaxParallelism();
+	}
+
 	/**
 	 * Sets the maximum time frequency (milliseconds) for the flushing of the
 	 * output buffers. By default the output buffers flush frequently to provide
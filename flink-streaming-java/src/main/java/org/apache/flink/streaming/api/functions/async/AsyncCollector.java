@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.functions.async;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import java.util.Collection;
+
+/**
+ * Collects the result of an asynchronous operation started by an {@link AsyncFunction}.
+ *
+ * <p>Exactly one of the methods must be called once per input element. The methods may be called
+ * from any thread; further calls are ignored.
+ *
+ * @param <OUT> The type of the returned elements.
+ */
+@PublicEvolving
+public interface AsyncCollector<OUT> {
+
+	/**
+	 * Completes the operation with the given result elements, which may be empty.
+	 */
+	void collect(Collection<OUT> result);
+
+	/**
+	 * Completes the operation with an error, which fails the streaming program.
+	 */
+	void collect(Throwable error);
+}
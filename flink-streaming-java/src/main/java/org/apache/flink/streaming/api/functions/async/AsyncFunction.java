@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.functions.async;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.common.functions.Function;
+
+import java.io.Serializable;
+
+/**
+ * A function to trigger asynchronous I/O operations, for example lookups in an external
+ * key/value store, for each element of a stream.
+ *
+ * <p>For each element, {@link #asyncInvoke(Object, AsyncCollector)} is called by the task thread.
+ * The function starts the request and returns immediately; the callback of the request hands
+ * the result (or the error) to the given {@link AsyncCollector}, from any thread. The number of
+ * concurrent requests is bounded by the capacity of the operator, see
+ * {@link org.apache.flink.streaming.api.datastream.AsyncDataStream}.
+ *
+ * <pre>{@code
+ * public class LookupFunction implements AsyncFunction<String, String> {
+ *     public void asyncInvoke(final String key, final AsyncCollector<String> collector) {
+ *         Future<String> value = client.get(key);
+ *         value.onComplete(new Callback<String>() {
+ *             public void onSuccess(String result) {
+ *                 collector.collect(Collections.singletonList(result));
+ *             }
+ *             public void onFailure(Throwable error) {
+ *                 collector.collect(error);
+ *             }
+ *         });
+ *     }
+ * }
+ * }</pre>
+ *
+ * @param <IN> The type of the input elements.
+ * @param <OUT> The type of the returned elements.
+ */
+@PublicEvolving
+public interface AsyncFunction<IN, OUT> extends Function, Serializable {
+
+	/**
+	 * Triggers the asynchronous operation for the given input element.
+	 *
+	 * @param input The element of the stream.
+	 * @param collector The collector to hand the result of the operation to, exactly once.
+	 * @throws Exception The function may throw exceptions which cause the streaming program
+	 *                   to fail and go into recovery.
+	 */
+	void asyncInvoke(IN input, AsyncCollector<OUT> collector) throws Exception;
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.functions.source;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import java.util.List;
+
+/**
+ * A {@link SourceFunction.SourceContext} that can emit a whole batch of elements at once.
+ *
+ * <p>Sources that fetch their data in batches (such as the records of one poll from a message
+ * queue) typically emit every record under the checkpoint lock, together with an update of the
+ * read position (offset). Emitting the batch through this context acquires the lock only once
+ * for the whole batch and pushes all elements through the operator chain in one go. The update
+ * of the read position is passed along and runs within the same lock scope, so that record
+ * emission and state update remain atomic with respect to checkpoints:
+ *
+ * <pre>{@code
+ *  batchContext.collectBatch(records, new Runnable() {
+ *      public void run() {
+ *          partitionState.setOffset(lastOffset);
+ *      }
+ *  });
+ * }</pre>
+ *
+ * <p>Use {@link BatchSourceContextAdapter#forContext(SourceFunction.SourceContext)} to obtain a
+ * batch context for any source context.
+ *
+ * @param <T> The type of the elements produced by the source.
+ */
+@PublicEvolving
+public interface BatchSourceContext<T> extends SourceFunction.SourceContext<T> {
+
+	/**
+	 * Emits the given elements, without attaching timestamps, and runs the given state update
+	 * atomically with the emission. The elements get timestamps as described in
+	 * {@link #collect(Object)}.
+	 *
+	 * <p>The context does not keep a reference to the list after the call returns, so the
+	 * caller may reuse it for the next batch.
+	 *
+	 * @param elements The elements to emit.
+	 * @param stateUpdate The update of the source's state to run under the checkpoint lock,
+	 *                    after the elements were emitted. May be {@code null}.
+	 */
+	void collectBatch(List<T> elements, Runnable stateUpdate);
+
+	/**
+	 * Emits the given elements with the given timestamps, and runs the given state update
+	 * atomically with the emission. The timestamps are treated as described in
+	 * {@link #collectWithTimestamp(Object, long)}.
+	 *
+	 * @param elements The elements to emit.
+	 * @param timestamps The timestamps of the elements, at the same positions as the elements.
+	 *                   The array may be longer than the list of elements.
+	 * @param stateUpdate The update of the source's state to run under the checkpoint lock,
+	 *                    after the elements were emitted. May be {@code null}.
+	 */
+	void collectBatchWithTimestamps(List<T> elements, long[] timestamps, Runnable stateUpdate);
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.functions.source;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.streaming.api.watermark.Watermark;
+
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link BatchSourceContext} on top of a plain {@link SourceFunction.SourceContext}, which
+ * emits the elements of a batch one by one. The checkpoint lock is still held for the whole
+ * batch, so emission and state update are atomic.
+ *
+ * @param <T> The type of the elements produced by the source.
+ */
+@PublicEvolving
+public class BatchSourceContextAdapter<T> implements BatchSourceContext<T> {
+
+	private final SourceFunction.SourceContext<T> context;
+
+	private BatchSourceContextAdapter(SourceFunction.SourceContext<T> context) {
+		this.context = checkNotNull(context);
+	}
+
+	@Override
+	public void collectBatch(List<T> elements, Runnable stateUpdate) {
+		synchronized (context.getCheckpointLock()) {
+			for (int i = 0; i < elements.size(); i++) {
+				context.collect(elements.get(i));
+			}
+			if (stateUpdate != null) {
+				stateUpdate.run();
+			}
+		}
+	}
+
+	@Override
+	public void collectBatchWithTimestamps(List<T> elements, long[] timestamps, Runnable stateUpdate) {
+		synchronized (context.getCheckpointLock()) {
+			for (int i = 0; i < elements.size(); i++) {
+				context.collectWithTimestamp(elements.get(i), timestamps[i]);
+			}
+			if (stateUpdate != null) {
+				stateUpdate.run();
+			}
+		}
+	}
+
+	@Override
+	public void collect(T element) {
+		context.collect(element);
+	}
+
+	@Override
+	public void collectWithTimestamp(T element, long timestamp) {
+		context.collectWithTimestamp(element, timestamp);
+	}
+
+	@Override
+	public void emitWatermark(Watermark mark) {
+		context.emitWatermark(mark);
+	}
+
+	@Override
+	public Object getCheckpointLock() {
+		return context.getCheckpointLock();
+	}
+
+	@Override
+	public void close() {
+		context.close();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns a batch context for the given source context. That is the context itself, if it
+	 * supports batches already (as the contexts of the stream sources do), or an adapter that
+	 * emits the elements of the batches one by one.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> BatchSourceContext<T> forContext(SourceFunction.SourceContext<T> context) {
+		if (context instanceof BatchSourceContext) {
+			return (BatchSourceContext<T>) context;
+		}
+		else {
+			return new BatchSourceContextAdapter<>(context);
+		}
+	}
+}
@@ -24,6 +24,7 @@ import com.google.common.hash.Hashing;
 import org.apache.commons.lang3.StringUtils;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.operators.util.UserCodeObjectWrapper;
 import org.apache.flink.api.common.restartstrategy.RestartStrategies;
 import org.apache.flink.api.java.tuple.Tuple2;
@@ -40,6 +41,7 @@ import org.apache.flink.runtime.jobgraph.tasks.JobSnapshottingSettings;
 import org.apache.flink.runtime.jobmanager.scheduler.CoLocationGroup;
 import org.apache.flink.runtime.jobmanager.scheduler.SlotSharingGroup;
 import org.apache.flink.runtime.operators.util.TaskConfig;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.streaming.api.CheckpointingMode;
 import org.apache.flink.streaming.api.environment.CheckpointConfig;
 import org.apache.flink.streaming.api.operators.AbstractUdfStreamOperator;
@@ -47,6 +49,7 @@ import org.apache.flink.streaming.api.operators.ChainingStrategy;
 import org.apache.flink.streaming.api.operators.StreamOperator;
 import org.apache.flink.streaming.api.transformations.StreamTransformation;
 import org.apache.flink.streaming.runtime.partitioner.ForwardPartitioner;
+import org.apache.flink.streaming.runtime.partitioner.HashPartitioner;
 import org.apache.flink.streaming.runtime.partitioner.RescalePartitioner;
 import org.apache.flink.streaming.runtime.partitioner.StreamPartitioner;
 import org.apache.flink.streaming.runtime.tasks.StreamIterationHead;
@@ -121,6 +124,9 @@ public class StreamingJobGraphGenerator {
 		// submission iff they didn't change.
 		Map<Integer, byte[]> hashes = traverseStreamGraphAndGenerateHashes();
 
+		// the number of key groups must be fixed before the partitioners are written to the configs
+		configureKeyGroups();
+
 		setChaining(hashes);
 
 		setPhysicalEdges();
@@ -444,6 +450,34 @@ public class StreamingJobGraphGenerator {
 
 	}
 	
+	/**
+	 * Fixes the maximum parallelism of the job, which is the number of key groups of the keyed
+	 * state, and configures the hash partitioners with it. If the maximum parallelism has not
+	 * been set, it is the default maximum parallelism or the highest parallelism of an operator
+	 * with keyed state, whichever is higher.
+	 */
+	private void configureKeyGroups() {
+		ExecutionConfig executionConfig = streamGraph.getExecutionConfig();
+
+		if (executionConfig.getMaxParallelism() == ExecutionConfig.PARALLELISM_DEFAULT) {
+			int maxParallelism = KeyGroupRangeAssignment.DEFAULT_MAX_PARALLELISM;
+			for (StreamNode node : streamGraph.getStreamNodes()) {
+				if (node.getStateKeySerializer() != null) {
+					maxParallelism = Math.max(maxParallelism, node.getParallelism());
+				}
+			}
+			executionConfig.setMaxParallelism(maxParallelism);
+		}
+
+		for (StreamNode node : streamGraph.getStreamNodes()) {
+			for (StreamEdge edge : node.getOutEdges()) {
+				if (edge.getPartitioner() instanceof HashPartitioner) {
+					((HashPartitioner<?>) edge.getPartitioner()).setNumberOfKeyGroups(executionConfig.getMaxParallelism());
+				}
+			}
+		}
+	}
+	
 	private void configureCheckpointing() {
 		CheckpointConfig cfg = streamGraph.getCheckpointConfig();
 		
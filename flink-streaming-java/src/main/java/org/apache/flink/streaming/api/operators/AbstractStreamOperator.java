@@ -26,12 +26,15 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.base.VoidSerializer;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SlidingWindowHistogram;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.runtime.state.KvStateSnapshot;
 import org.apache.flink.runtime.state.AbstractStateBackend;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.operators.Triggerable;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
 import org.apache.flink.streaming.runtime.tasks.StreamTaskState;
@@ -39,7 +42,9 @@ import org.apache.flink.streaming.runtime.tasks.StreamTaskState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 
 /**
@@ -66,6 +71,9 @@ public abstract class AbstractStreamOperator<OUT>
 	/** The logger used by the operator class and its subclasses */
 	protected static final Logger LOG = LoggerFactory.getLogger(AbstractStreamOperator.class);
 
+	/** The number of latency samples per source subtask that the latency histograms keep */
+	private static final int LATENCY_HISTOGRAM_WINDOW_SIZE = 128;
+
 	// ----------- configuration properties -------------
 
 	// A sane default for most operators
@@ -94,6 +102,14 @@ public abstract class AbstractStreamOperator<OUT>
 	private AbstractStateBackend stateBackend = null;
 	protected MetricGroup metrics;
 
+	// ---------------- latency tracking ------------------
+
+	/** The metric group of the latency histograms, created with the first latency marker */
+	private transient MetricGroup latencyMetrics;
+
+	/** The latency histogram per source subtask, keyed by vertex id and subtask index */
+	private transient Map<Long, Histogram> latencyHistograms;
+
 	// ------------------------------------------------------------------------
 	//  Life Cycle
 	// ------------------------------------------------------------------------
@@ -182,10 +198,20 @@ public abstract class AbstractStreamOperator<OUT>
 		StreamTaskState state = new StreamTaskState();
 
 		if (stateBackend != null) {
-			HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> partitionedSnapshots =
-				stateBackend.snapshotPartitionedState(checkpointId, timestamp);
-			if (partitionedSnapshots != null) {
-				state.setKvStates(partitionedSnapshots);
+			if (stateBackend.supportsKeyGroupSnapshots()) {
+				// key-grouped snapshots can be redistributed if the parallelism changes
+				HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> keyGroupSnapshots =
+					stateBackend.snapshotPartitionedStateByKeyGroup(checkpointId, timestamp);
+				if (keyGroupSnapshots != null && !keyGroupSnapshots.isEmpty()) {
+					state.setKeyGroupStates(keyGroupSnapshots);
+				}
+			}
+			else {
+				HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> partitionedSnapshots =
+					stateBackend.snapshotPartitionedState(checkpointId, timestamp);
+				if (partitionedSnapshots != null) {
+					state.setKvStates(partitionedSnapshots);
+				}
 			}
 		}
 
@@ -200,6 +226,9 @@ public abstract class AbstractStreamOperator<OUT>
 		// the state again, because the restore method needs information provided by the user function
 		if (stateBackend != null) {
 			stateBackend.injectKeyValueStateSnapshots((HashMap)state.getKvStates(), recoveryTimestamp);
+			if (state.getKeyGroupStates() != null) {
+				stateBackend.injectKeyGroupStateSnapshots((Collection)state.getKeyGroupStates().values(), recoveryTimestamp);
+			}
 		}
 	}
 	
@@ -312,6 +341,48 @@ public abstract class AbstractStreamOperator<OUT>
 		}
 	}
 	
+	// ------------------------------------------------------------------------
+	//  Latency tracking
+	// ------------------------------------------------------------------------
+
+	public void processLatencyMarker(LatencyMarker latencyMarker) throws Exception {
+		reportOrForwardLatencyMarker(latencyMarker);
+	}
+
+	public void processLatencyMarker1(LatencyMarker latencyMarker) throws Exception {
+		reportOrForwardLatencyMarker(latencyMarker);
+	}
+
+	public void processLatencyMarker2(LatencyMarker latencyMarker) throws Exception {
+		reportOrForwardLatencyMarker(latencyMarker);
+	}
+
+	/**
+	 * Records the time the given latency marker needed to travel from its source to this
+	 * operator in the latency histogram of the marker's source subtask, and forwards the marker
+	 * to the downstream operators.
+	 */
+	protected void reportOrForwardLatencyMarker(LatencyMarker marker) {
+		long source = ((long) marker.getVertexID() << 32) | (marker.getSubtaskIndex() & 0xffffffffL);
+
+		if (latencyHistograms == null) {
+			latencyHistograms = new HashMap<>();
+			latencyMetrics = metrics.addGroup("latency");
+		}
+
+		Histogram histogram = latencyHistograms.get(source);
+		if (histogram == null) {
+			histogram = latencyMetrics
+				.addGroup("source" + marker.getVertexID())
+				.histogram(marker.getSubtaskIndex(), new SlidingWindowHistogram(LATENCY_HISTOGRAM_WINDOW_SIZE));
+			latencyHistograms.put(source, histogram);
+		}
+
+		histogram.update(System.currentTimeMillis() - marker.getMarkedTime());
+
+		output.emitLatencyMarker(marker);
+	}
+
 	// ------------------------------------------------------------------------
 	//  Context and chaining properties
 	// ------------------------------------------------------------------------
@@ -340,6 +411,11 @@ public abstract class AbstractStreamOperator<OUT>
 			output.emitWatermark(mark);
 		}
 
+		@Override
+		public void emitLatencyMarker(LatencyMarker latencyMarker) {
+			output.emitLatencyMarker(latencyMarker);
+		}
+
 		@Override
 		public void collect(StreamRecord<OUT> record) {
 			numRecordsOut.inc();
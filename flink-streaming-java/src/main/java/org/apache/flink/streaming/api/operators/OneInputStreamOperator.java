@@ -20,6 +20,7 @@ package org.apache.flink.streaming.api.operators;
 
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 /**
@@ -46,4 +47,12 @@ public interface OneInputStreamOperator<IN, OUT> extends StreamOperator<OUT> {
 	 * @see org.apache.flink.streaming.api.watermark.Watermark
 	 */
 	void processWatermark(Watermark mark) throws Exception;
+
+	/**
+	 * Processes a {@link LatencyMarker}.
+	 * This method is guaranteed to not be called concurrently with other methods of the operator.
+	 *
+	 * @see org.apache.flink.streaming.runtime.streamrecord.LatencyMarker
+	 */
+	void processLatencyMarker(LatencyMarker latencyMarker) throws Exception;
 }
@@ -19,12 +19,13 @@ package org.apache.flink.streaming.api.operators;
 
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.util.Collector;
 
 /**
  * A {@link org.apache.flink.streaming.api.operators.StreamOperator} is supplied with an object
- * of this interface that can be used to emit elements and other messages, such as barriers
- * and watermarks, from an operator.
+ * of this interface that can be used to emit elements and other messages, such as barriers,
+ * watermarks and latency markers, from an operator.
  *
  * @param <T> The type of the elements that can be emitted.
  */
@@ -39,4 +40,10 @@ public interface Output<T> extends Collector<T> {
 	 * timestamp will be emitted in the future.
 	 */
 	void emitWatermark(Watermark mark);
+
+	/**
+	 * Emits a {@link LatencyMarker} from an operator. Different from watermarks, a latency
+	 * marker is not broadcast, but sent to one randomly selected downstream operator.
+	 */
+	void emitLatencyMarker(LatencyMarker latencyMarker);
 }
@@ -19,11 +19,14 @@ package org.apache.flink.streaming.api.operators;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.streaming.api.TimeCharacteristic;
+import org.apache.flink.streaming.api.functions.source.BatchSourceContext;
 import org.apache.flink.streaming.api.functions.source.SourceFunction;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.operators.Triggerable;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
+import java.util.List;
 import java.util.concurrent.ScheduledFuture;
 
 /**
@@ -75,6 +78,10 @@ public class StreamSource<OUT, SRC extends SourceFunction<OUT>>
 
 		// copy to a field to give the 'cancel()' method access
 		this.ctx = ctx;
+
+		final long latencyTrackingInterval = getExecutionConfig().getLatencyTrackingInterval();
+		final LatencyMarksEmitter<OUT> latencyEmitter = getExecutionConfig().isLatencyTrackingEnabled() ?
+				new LatencyMarksEmitter<>(this, lockingObject, collector, latencyTrackingInterval) : null;
 		
 		try {
 			userFunction.run(ctx);
@@ -86,6 +93,10 @@ public class StreamSource<OUT, SRC extends SourceFunction<OUT>>
 				ctx.emitWatermark(Watermark.MAX_WATERMARK);
 			}
 		} finally {
+			if (latencyEmitter != null) {
+				latencyEmitter.close();
+			}
+
 			// make sure that the context is closed in any case
 			ctx.close();
 		}
@@ -131,6 +142,64 @@ public class StreamSource<OUT, SRC extends SourceFunction<OUT>>
 		getContainingTask().checkTimerException();
 	}
 
+	// ------------------------------------------------------------------------
+	//  Latency tracking
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Periodically emits a {@link LatencyMarker} with the current wall-clock time, the vertex id
+	 * and the subtask index of the source.
+	 */
+	private static class LatencyMarksEmitter<OUT> implements Triggerable {
+
+		private final StreamSource<OUT, ?> owner;
+		private final Object lockingObject;
+		private final Output<StreamRecord<OUT>> output;
+		private final long interval;
+
+		private final int vertexID;
+		private final int subtaskIndex;
+
+		private volatile ScheduledFuture<?> nextTimer;
+		private volatile boolean closed;
+
+		private LatencyMarksEmitter(
+				StreamSource<OUT, ?> owner,
+				Object lockingObject,
+				Output<StreamRecord<OUT>> output,
+				long interval) {
+
+			this.owner = owner;
+			this.lockingObject = lockingObject;
+			this.output = output;
+			this.interval = interval;
+
+			this.vertexID = owner.getOperatorConfig().getVertexID();
+			this.subtaskIndex = owner.getRuntimeContext().getIndexOfThisSubtask();
+
+			this.nextTimer = owner.registerTimer(owner.getCurrentProcessingTime() + interval, this);
+		}
+
+		@Override
+		public void trigger(long timestamp) {
+			synchronized (lockingObject) {
+				if (closed) {
+					return;
+				}
+				output.emitLatencyMarker(new LatencyMarker(System.currentTimeMillis(), vertexID, subtaskIndex));
+			}
+
+			if (!closed) {
+				nextTimer = owner.registerTimer(owner.getCurrentProcessingTime() + interval, this);
+			}
+		}
+
+		public void close() {
+			closed = true;
+			nextTimer.cancel(true);
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	//  Source contexts for various stream time characteristics
 	// ------------------------------------------------------------------------
@@ -139,7 +208,7 @@ public class StreamSource<OUT, SRC extends SourceFunction<OUT>>
 	 * A source context that attached {@code -1} as a timestamp to all records, and that
 	 * does not forward watermarks.
 	 */
-	public static class NonTimestampContext<T> implements SourceFunction.SourceContext<T> {
+	public static class NonTimestampContext<T> implements BatchSourceContext<T> {
 
 		private final StreamSource<?, ?> owner;
 		private final Object lockingObject;
@@ -167,6 +236,25 @@ public class StreamSource<OUT, SRC extends SourceFunction<OUT>>
 			collect(element);
 		}
 
+		@Override
+		public void collectBatch(List<T> elements, Runnable stateUpdate) {
+			owner.checkAsyncException();
+			synchronized (lockingObject) {
+				for (int i = 0; i < elements.size(); i++) {
+					output.collect(reuse.replace(elements.get(i)));
+				}
+				if (stateUpdate != null) {
+					stateUpdate.run();
+				}
+			}
+		}
+
+		@Override
+		public void collectBatchWithTimestamps(List<T> elements, long[] timestamps, Runnable stateUpdate) {
+			// ignore the timestamps
+			collectBatch(elements, stateUpdate);
+		}
+
 		@Override
 		public void emitWatermark(Watermark mark) {
 			owner.checkAsyncException();
@@ -186,7 +274,7 @@ public class StreamSource<OUT, SRC extends SourceFunction<OUT>>
 	 * {@link SourceFunction.SourceContext} to be used for sources with automatic timestamps
 	 * and watermark emission.
 	 */
-	public static class AutomaticWatermarkContext<T> implements SourceFunction.SourceContext<T> {
+	public static class AutomaticWatermarkContext<T> implements BatchSourceContext<T> {
 
 		private final StreamSource<?, ?> owner;
 		private final Object lockingObject;
@@ -248,6 +336,34 @@ public class StreamSource<OUT, SRC extends SourceFunction<OUT>>
 			collect(element);
 		}
 
+		@Override
+		public void collectBatch(List<T> elements, Runnable stateUpdate) {
+			owner.checkAsyncException();
+
+			synchronized (lockingObject) {
+				// all elements of a batch are ingested at the same time
+				final long currentTime = owner.getCurrentProcessingTime();
+				for (int i = 0; i < elements.size(); i++) {
+					output.collect(reuse.replace(elements.get(i), currentTime));
+				}
+				if (stateUpdate != null) {
+					stateUpdate.run();
+				}
+
+				if (currentTime > nextWatermarkTime) {
+					// in case we jumped some watermarks, recompute the next watermark time
+					final long watermarkTime = currentTime - (currentTime % watermarkInterval);
+					nextWatermarkTime = watermarkTime + watermarkInterval;
+					output.emitWatermark(new Watermark(watermarkTime));
+				}
+			}
+		}
+
+		@Override
+		public void collectBatchWithTimestamps(List<T> elements, long[] timestamps, Runnable stateUpdate) {
+			collectBatch(elements, stateUpdate);
+		}
+
 		@Override
 		public void emitWatermark(Watermark mark) {
 			owner.checkAsyncException();
@@ -318,7 +434,7 @@ public class StreamSource<OUT, SRC extends SourceFunction<OUT>>
 	 * Streaming topologies can use timestamp assigner functions to override the timestamps
 	 * assigned here.
 	 */
-	public static class ManualWatermarkContext<T> implements SourceFunction.SourceContext<T> {
+	public static class ManualWatermarkContext<T> implements BatchSourceContext<T> {
 
 		private final StreamSource<?, ?> owner;
 		private final Object lockingObject;
@@ -350,6 +466,34 @@ public class StreamSource<OUT, SRC extends SourceFunction<OUT>>
 			}
 		}
 
+		@Override
+		public void collectBatch(List<T> elements, Runnable stateUpdate) {
+			owner.checkAsyncException();
+
+			synchronized (lockingObject) {
+				for (int i = 0; i < elements.size(); i++) {
+					output.collect(reuse.replace(elements.get(i)));
+				}
+				if (stateUpdate != null) {
+					stateUpdate.run();
+				}
+			}
+		}
+
+		@Override
+		public void collectBatchWithTimestamps(List<T> elements, long[] timestamps, Runnable stateUpdate) {
+			owner.checkAsyncException();
+
+			synchronized (lockingObject) {
+				for (int i = 0; i < elements.size(); i++) {
+					output.collect(reuse.replace(elements.get(i), timestamps[i]));
+				}
+				if (stateUpdate != null) {
+					stateUpdate.run();
+				}
+			}
+		}
+
 		@Override
 		public void emitWatermark(Watermark mark) {
 			owner.checkAsyncException();
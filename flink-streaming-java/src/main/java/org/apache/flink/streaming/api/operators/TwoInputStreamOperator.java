@@ -20,6 +20,7 @@ package org.apache.flink.streaming.api.operators;
 
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 /**
@@ -62,4 +63,20 @@ public interface TwoInputStreamOperator<IN1, IN2, OUT> extends StreamOperator<OU
 	 */
 	public void processWatermark2(Watermark mark) throws Exception;
 
+	/**
+	 * Processes a {@link LatencyMarker} that arrived on the first input of this two-input operator.
+	 * This method is guaranteed to not be called concurrently with other methods of the operator.
+	 *
+	 * @see org.apache.flink.streaming.runtime.streamrecord.LatencyMarker
+	 */
+	public void processLatencyMarker1(LatencyMarker latencyMarker) throws Exception;
+
+	/**
+	 * Processes a {@link LatencyMarker} that arrived on the second input of this two-input operator.
+	 * This method is guaranteed to not be called concurrently with other methods of the operator.
+	 *
+	 * @see org.apache.flink.streaming.runtime.streamrecord.LatencyMarker
+	 */
+	public void processLatencyMarker2(LatencyMarker latencyMarker) throws Exception;
+
 }
@@ -0,0 +1,364 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators.async;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.StateHandle;
+import org.apache.flink.streaming.api.datastream.AsyncDataStream.OutputMode;
+import org.apache.flink.streaming.api.functions.async.AsyncFunction;
+import org.apache.flink.streaming.api.operators.AbstractUdfStreamOperator;
+import org.apache.flink.streaming.api.operators.ChainingStrategy;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.TimestampedCollector;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.MultiplexingStreamRecordSerializer;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.StreamTaskState;
+import org.apache.flink.streaming.runtime.tasks.TimeServiceProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Operator for {@link AsyncFunction AsyncFunctions}. The operator hands each element to the
+ * function, which starts an asynchronous operation, and emits the results once the operations
+ * complete.
+ *
+ * <p>At most {@code capacity} elements (records and watermarks) are in flight. When the queue is
+ * full, the task thread emits completed elements and otherwise waits for further completions.
+ * Depending on the {@link OutputMode}, results are emitted in the order of the input elements,
+ * or as soon as they are complete, but never across a watermark.
+ *
+ * <p>A completion only completes its entry and wakes up the task thread, which may wait for
+ * capacity under the checkpoint lock. The completing thread never takes the checkpoint lock
+ * itself: the emission of the results is handed to the task via {@link
+ * org.apache.flink.streaming.runtime.tasks.StreamTask#submitAction(Runnable)}, which runs it in
+ * the task thread or in a dedicated action thread, under the checkpoint lock. Timeouts are timers
+ * of the task's {@link TimeServiceProvider}, which fail the operation of an element that takes
+ * too long.
+ *
+ * <p>The input elements of all in-flight operations are part of the operator state. On recovery,
+ * the function is invoked again for all of them.
+ *
+ * @param <IN> The type of the input elements.
+ * @param <OUT> The type of the result elements.
+ */
+@Internal
+public class AsyncWaitOperator<IN, OUT>
+		extends AbstractUdfStreamOperator<OUT, AsyncFunction<IN, OUT>>
+		implements OneInputStreamOperator<IN, OUT> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The maximum number of elements in flight */
+	private final int capacity;
+
+	/** The timeout of an asynchronous operation in milliseconds, or 0 for no timeout */
+	private final long timeout;
+
+	private final OutputMode outputMode;
+
+	/** Serializer for the in-flight elements in checkpoints */
+	private final MultiplexingStreamRecordSerializer<IN> inputSerializer;
+
+	// ------------------------------------------------------------------------
+
+	/** Guards the queue and the completion of its entries, and is notified on completions */
+	private transient Object lock;
+
+	/** The in-flight elements. Null after the operator has been disposed. */
+	private transient StreamElementQueue<OUT> queue;
+
+	/** Flag indicating that an action to emit completed elements has been submitted to the task */
+	private transient AtomicBoolean isEmitSubmitted;
+
+	/** The action that emits completed elements, after a completion in another thread */
+	private transient Runnable emitAction;
+
+	private transient TimestampedCollector<OUT> collector;
+
+	/** Elements restored from a checkpoint, which are processed again in {@link #open()} */
+	private transient List<StreamElement> restoredElements;
+
+	public AsyncWaitOperator(
+			AsyncFunction<IN, OUT> asyncFunction,
+			TypeSerializer<IN> inputSerializer,
+			int capacity,
+			long timeout,
+			OutputMode outputMode) {
+
+		super(asyncFunction);
+
+		checkArgument(capacity > 0, "The capacity must be larger than 0.");
+		checkArgument(timeout >= 0, "The timeout must not be negative.");
+
+		this.capacity = capacity;
+		this.timeout = timeout;
+		this.outputMode = checkNotNull(outputMode);
+		this.inputSerializer = new MultiplexingStreamRecordSerializer<>(checkNotNull(inputSerializer));
+
+		chainingStrategy = ChainingStrategy.ALWAYS;
+	}
+
+	@Override
+	public void open() throws Exception {
+		super.open();
+
+		lock = new Object();
+		queue = outputMode == OutputMode.ORDERED
+				? new OrderedStreamElementQueue<OUT>(capacity)
+				: new UnorderedStreamElementQueue<OUT>();
+
+		isEmitSubmitted = new AtomicBoolean();
+		emitAction = new Runnable() {
+			@Override
+			public void run() {
+				isEmitSubmitted.set(false);
+
+				try {
+					emitCompletedElements();
+				}
+				catch (Exception e) {
+					throw new RuntimeException("Could not emit the results of asynchronous operations.", e);
+				}
+			}
+		};
+
+		collector = new TimestampedCollector<>(output);
+
+		// re-invoke the function for the elements that were in flight at the checkpoint
+		if (restoredElements != null) {
+			for (StreamElement element : restoredElements) {
+				if (element.isWatermark()) {
+					processWatermark(element.asWatermark());
+				}
+				else {
+					processElement(element.<IN>asRecord());
+				}
+			}
+
+			restoredElements = null;
+		}
+	}
+
+	@Override
+	public void processElement(StreamRecord<IN> element) throws Exception {
+		final StreamElementQueueEntry<OUT> entry = new StreamElementQueueEntry<>(element, this);
+
+		addToQueue(entry);
+
+		if (timeout > 0) {
+			final TimeServiceProvider timerService = getContainingTask().getTimerService();
+			final long timeoutTimestamp = timerService.getCurrentProcessingTime() + timeout;
+
+			entry.setTimeout(timerService.registerTimer(timeoutTimestamp, new Runnable() {
+				@Override
+				public void run() {
+					entry.collect(new TimeoutException("Async function call has timed out."));
+				}
+			}));
+		}
+
+		userFunction.asyncInvoke(element.getValue(), entry);
+
+		emitCompletedElements();
+	}
+
+	@Override
+	public void processWatermark(Watermark mark) throws Exception {
+		addToQueue(new StreamElementQueueEntry<OUT>(mark, this));
+
+		emitCompletedElements();
+	}
+
+	@Override
+	public void close() throws Exception {
+		// wait for all in-flight elements before the end of the stream is forwarded
+		while (true) {
+			emitCompletedElements();
+
+			synchronized (lock) {
+				if (queue.size() == 0) {
+					break;
+				}
+
+				if (!queue.hasEmittableElement()) {
+					lock.wait();
+				}
+			}
+		}
+
+		super.close();
+	}
+
+	@Override
+	public void dispose() {
+		List<StreamElementQueueEntry<OUT>> remaining = null;
+
+		if (lock != null) {
+			synchronized (lock) {
+				if (queue != null) {
+					remaining = queue.entries();
+					queue = null;
+				}
+			}
+		}
+
+		if (remaining != null) {
+			for (StreamElementQueueEntry<OUT> entry : remaining) {
+				entry.cancelTimeout();
+			}
+		}
+
+		super.dispose();
+	}
+
+	// ------------------------------------------------------------------------
+	//  Checkpointing
+	// ------------------------------------------------------------------------
+
+	@Override
+	public StreamTaskState snapshotOperatorState(long checkpointId, long timestamp) throws Exception {
+		StreamTaskState taskState = super.snapshotOperatorState(checkpointId, timestamp);
+
+		final List<StreamElementQueueEntry<OUT>> entries;
+		synchronized (lock) {
+			entries = queue.entries();
+		}
+
+		AbstractStateBackend.CheckpointStateOutputView out =
+				getStateBackend().createCheckpointStateOutputView(checkpointId, timestamp);
+
+		out.writeInt(entries.size());
+		for (StreamElementQueueEntry<OUT> entry : entries) {
+			inputSerializer.serialize(entry.getElement(), out);
+		}
+
+		taskState.setOperatorState(out.closeAndGetHandle());
+
+		return taskState;
+	}
+
+	@Override
+	public void restoreState(StreamTaskState taskState, long recoveryTimestamp) throws Exception {
+		super.restoreState(taskState, recoveryTimestamp);
+
+		@SuppressWarnings("unchecked")
+		StateHandle<DataInputView> inputState = (StateHandle<DataInputView>) taskState.getOperatorState();
+		DataInputView in = inputState.getState(getUserCodeClassloader());
+
+		int numberOfElements = in.readInt();
+		restoredElements = new ArrayList<>(numberOfElements);
+
+		for (int i = 0; i < numberOfElements; i++) {
+			restoredElements.add(inputSerializer.deserialize(in));
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Completion and emission
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Completes the given entry, called by the {@link StreamElementQueueEntry} when the function
+	 * (or the timeout) hands over a result. This may happen in any thread.
+	 */
+	void onComplete(StreamElementQueueEntry<OUT> entry, Collection<OUT> result, Throwable failure) {
+		synchronized (lock) {
+			if (queue == null || !entry.complete(result, failure)) {
+				return;
+			}
+
+			queue.onComplete(entry);
+
+			// wake up the task thread if it waits for capacity or for the end of the stream
+			lock.notifyAll();
+		}
+
+		entry.cancelTimeout();
+
+		// the emission must not happen in this thread, which must not block on the checkpoint
+		// lock while the task thread holds it and waits for the completion of the queue head
+		if (isEmitSubmitted.compareAndSet(false, true)) {
+			getContainingTask().submitAction(emitAction);
+		}
+	}
+
+	/**
+	 * Adds the entry to the queue, after waiting for capacity. Completed elements are emitted
+	 * while waiting.
+	 */
+	private void addToQueue(StreamElementQueueEntry<OUT> entry) throws Exception {
+		while (true) {
+			synchronized (lock) {
+				if (queue.size() < capacity) {
+					queue.add(entry);
+					return;
+				}
+
+				if (!queue.hasEmittableElement()) {
+					lock.wait();
+				}
+			}
+
+			emitCompletedElements();
+		}
+	}
+
+	/**
+	 * Emits all elements, which are complete and may be emitted according to the output mode.
+	 * Must be called by the task thread or under the checkpoint lock.
+	 */
+	private void emitCompletedElements() throws Exception {
+		StreamElementQueueEntry<OUT> entry;
+
+		while ((entry = pollEmittableElement()) != null) {
+			if (entry.isWatermark()) {
+				output.emitWatermark(entry.getWatermark());
+			}
+			else if (entry.getFailure() != null) {
+				throw new Exception("An async function call terminated with an exception. " +
+						"Failing the AsyncWaitOperator.", entry.getFailure());
+			}
+			else {
+				collector.setTimestamp(entry.getStreamRecord());
+
+				for (OUT result : entry.getResult()) {
+					collector.collect(result);
+				}
+			}
+		}
+	}
+
+	private StreamElementQueueEntry<OUT> pollEmittableElement() {
+		synchronized (lock) {
+			return queue != null ? queue.poll() : null;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators.async;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Emits the elements in the order in which they have been added. An element that completes
+ * early waits for all elements before it.
+ */
+class OrderedStreamElementQueue<OUT> implements StreamElementQueue<OUT> {
+
+	private final ArrayDeque<StreamElementQueueEntry<OUT>> queue;
+
+	OrderedStreamElementQueue(int capacity) {
+		this.queue = new ArrayDeque<>(capacity);
+	}
+
+	@Override
+	public void add(StreamElementQueueEntry<OUT> entry) {
+		queue.add(entry);
+	}
+
+	@Override
+	public void onComplete(StreamElementQueueEntry<OUT> entry) {
+		// the head is checked when polling
+	}
+
+	@Override
+	public StreamElementQueueEntry<OUT> poll() {
+		StreamElementQueueEntry<OUT> head = queue.peek();
+		return head != null && head.isDone() ? queue.poll() : null;
+	}
+
+	@Override
+	public boolean hasEmittableElement() {
+		StreamElementQueueEntry<OUT> head = queue.peek();
+		return head != null && head.isDone();
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public List<StreamElementQueueEntry<OUT>> entries() {
+		return new ArrayList<>(queue);
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators.async;
+
+import java.util.List;
+
+/**
+ * The queue of the in-flight elements of an {@link AsyncWaitOperator}, which decides in which
+ * order completed elements are emitted.
+ *
+ * <p>Queues are not thread-safe, the operator guards them with its lock.
+ *
+ * @param <OUT> The type of the result elements.
+ */
+interface StreamElementQueue<OUT> {
+
+	/**
+	 * Adds an element. Watermarks have to be complete already.
+	 */
+	void add(StreamElementQueueEntry<OUT> entry);
+
+	/**
+	 * Notification when an element of the queue has been completed.
+	 */
+	void onComplete(StreamElementQueueEntry<OUT> entry);
+
+	/**
+	 * Removes and returns the next element that can be emitted, or null if there is none.
+	 */
+	StreamElementQueueEntry<OUT> poll();
+
+	/**
+	 * Checks whether {@link #poll()} would return an element.
+	 */
+	boolean hasEmittableElement();
+
+	/**
+	 * Returns the number of elements in the queue, including completed ones.
+	 */
+	int size();
+
+	/**
+	 * Returns all elements in the queue, in the order in which they have been added.
+	 */
+	List<StreamElementQueueEntry<OUT>> entries();
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators.async;
+
+import org.apache.flink.streaming.api.functions.async.AsyncCollector;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+import java.util.Collection;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * An element in the queue of an {@link AsyncWaitOperator}, with the result of its asynchronous
+ * operation. Watermarks are complete from the start.
+ *
+ * <p>The entry is the {@link AsyncCollector} handed to the function for its element. The state of
+ * the entry is guarded by the lock of the operator.
+ *
+ * @param <OUT> The type of the result elements.
+ */
+class StreamElementQueueEntry<OUT> implements AsyncCollector<OUT> {
+
+	private final StreamElement element;
+
+	private final AsyncWaitOperator<?, OUT> operator;
+
+	private Collection<OUT> result;
+
+	private Throwable failure;
+
+	private boolean isDone;
+
+	/** The timer that fails the entry if it does not complete in time, if any */
+	private volatile ScheduledFuture<?> timeout;
+
+	StreamElementQueueEntry(StreamElement element, AsyncWaitOperator<?, OUT> operator) {
+		this.element = checkNotNull(element);
+		this.operator = checkNotNull(operator);
+		this.isDone = element.isWatermark();
+	}
+
+	StreamElement getElement() {
+		return element;
+	}
+
+	boolean isWatermark() {
+		return element.isWatermark();
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> StreamRecord<T> getStreamRecord() {
+		return (StreamRecord<T>) element.asRecord();
+	}
+
+	Watermark getWatermark() {
+		return element.asWatermark();
+	}
+
+	boolean isDone() {
+		return isDone;
+	}
+
+	Collection<OUT> getResult() {
+		return result;
+	}
+
+	Throwable getFailure() {
+		return failure;
+	}
+
+	void setTimeout(ScheduledFuture<?> timeout) {
+		this.timeout = timeout;
+	}
+
+	void cancelTimeout() {
+		ScheduledFuture<?> timeout = this.timeout;
+		if (timeout != null) {
+			timeout.cancel(false);
+		}
+	}
+
+	/**
+	 * Completes the entry, if it is not complete yet. Must be called under the operator's lock.
+	 *
+	 * @return Whether the entry has been completed by this call.
+	 */
+	boolean complete(Collection<OUT> result, Throwable failure) {
+		if (isDone) {
+			return false;
+		}
+
+		this.result = result;
+		this.failure = failure;
+		this.isDone = true;
+		return true;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Async collector
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void collect(Collection<OUT> result) {
+		operator.onComplete(this, checkNotNull(result, "Result must not be null."), null);
+	}
+
+	@Override
+	public void collect(Throwable error) {
+		operator.onComplete(this, null, checkNotNull(error, "Error must not be null."));
+	}
+}
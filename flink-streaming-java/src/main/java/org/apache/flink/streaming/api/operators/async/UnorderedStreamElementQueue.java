@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators.async;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Emits records as soon as they are complete, but never across a watermark: the records that
+ * were added before a watermark are emitted before the watermark, and the records that were
+ * added after it are emitted after it. This keeps the watermarks correct, because no record
+ * is emitted after a watermark that it was older than.
+ *
+ * <p>The queue is organized in segments. Each segment holds the records between two watermarks
+ * and ends with the later watermark. Only completed records of the first segment are emitted;
+ * its watermark follows once all its records have been emitted.
+ */
+class UnorderedStreamElementQueue<OUT> implements StreamElementQueue<OUT> {
+
+	private final ArrayDeque<Segment<OUT>> segments = new ArrayDeque<>();
+
+	private int size;
+
+	@Override
+	public void add(StreamElementQueueEntry<OUT> entry) {
+		Segment<OUT> last = segments.peekLast();
+
+		if (last == null || last.watermark != null) {
+			last = new Segment<>();
+			segments.add(last);
+		}
+
+		if (entry.isWatermark()) {
+			last.watermark = entry;
+		}
+		else {
+			last.pending.add(entry);
+		}
+
+		size++;
+	}
+
+	@Override
+	public void onComplete(StreamElementQueueEntry<OUT> entry) {
+		// there is one segment per watermark in flight, usually only a few
+		for (Segment<OUT> segment : segments) {
+			if (segment.pending.remove(entry)) {
+				segment.completed.add(entry);
+				return;
+			}
+		}
+	}
+
+	@Override
+	public StreamElementQueueEntry<OUT> poll() {
+		final Segment<OUT> first = segments.peek();
+
+		if (first == null) {
+			return null;
+		}
+
+		StreamElementQueueEntry<OUT> next = first.completed.poll();
+
+		if (next == null && first.pending.isEmpty() && first.watermark != null) {
+			next = first.watermark;
+			segments.poll();
+		}
+
+		if (next != null) {
+			size--;
+		}
+
+		return next;
+	}
+
+	@Override
+	public boolean hasEmittableElement() {
+		final Segment<OUT> first = segments.peek();
+
+		return first != null && (!first.completed.isEmpty()
+				|| (first.pending.isEmpty() && first.watermark != null));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public List<StreamElementQueueEntry<OUT>> entries() {
+		List<StreamElementQueueEntry<OUT>> entries = new ArrayList<>(size);
+
+		for (Segment<OUT> segment : segments) {
+			entries.addAll(segment.completed);
+			entries.addAll(segment.pending);
+
+			if (segment.watermark != null) {
+				entries.add(segment.watermark);
+			}
+		}
+
+		return entries;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The records between two watermarks, followed by the later watermark.
+	 */
+	private static final class Segment<OUT> {
+
+		/** Records that have not been completed yet, in the order in which they were added */
+		final LinkedHashSet<StreamElementQueueEntry<OUT>> pending = new LinkedHashSet<>();
+
+		/** Completed records, in the order of their completion */
+		final ArrayDeque<StreamElementQueueEntry<OUT>> completed = new ArrayDeque<>();
+
+		/** The watermark that ends the segment, or null if the segment is still open */
+		StreamElementQueueEntry<OUT> watermark;
+	}
+}
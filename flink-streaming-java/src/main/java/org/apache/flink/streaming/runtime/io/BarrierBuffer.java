@@ -101,17 +101,35 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 
 	@Override
 	public BufferOrEvent getNextNonBlocked() throws IOException, InterruptedException {
+		return getNext(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNext() throws IOException, InterruptedException {
+		return getNext(false);
+	}
+
+	private BufferOrEvent getNext(boolean blocking) throws IOException, InterruptedException {
 		while (true) {
 			// process buffered BufferOrEvents before grabbing new ones
 			BufferOrEvent next;
 			if (currentBuffered == null) {
-				next = inputGate.getNextBufferOrEvent();
+				if (blocking) {
+					next = inputGate.getNextBufferOrEvent();
+				}
+				else {
+					next = inputGate.pollNextBufferOrEvent();
+					if (next == null && !inputGate.isFinished()) {
+						// no data available at the moment
+						return null;
+					}
+				}
 			}
 			else {
 				next = currentBuffered.getNext();
 				if (next == null) {
 					completeBufferedSequence();
-					return getNextNonBlocked();
+					return getNext(blocking);
 				}
 			}
 			
@@ -142,7 +160,7 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 				// end of stream. we feed the data that is still buffered
 				endOfStream = true;
 				releaseBlocks();
-				return getNextNonBlocked();
+				return getNext(blocking);
 			}
 			else {
 				return null;
@@ -222,6 +240,11 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 		return currentBuffered == null;
 	}
 
+	@Override
+	public boolean isFinished() {
+		return endOfStream && currentBuffered == null;
+	}
+
 	@Override
 	public void cleanup() throws IOException {
 		bufferSpiller.close();
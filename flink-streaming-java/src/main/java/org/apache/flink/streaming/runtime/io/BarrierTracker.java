@@ -71,8 +71,17 @@ public class BarrierTracker implements CheckpointBarrierHandler {
 
 	@Override
 	public BufferOrEvent getNextNonBlocked() throws IOException, InterruptedException {
+		return getNext(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNext() throws IOException, InterruptedException {
+		return getNext(false);
+	}
+
+	private BufferOrEvent getNext(boolean blocking) throws IOException, InterruptedException {
 		while (true) {
-			BufferOrEvent next = inputGate.getNextBufferOrEvent();
+			BufferOrEvent next = blocking ? inputGate.getNextBufferOrEvent() : inputGate.pollNextBufferOrEvent();
 			if (next == null) {
 				return null;
 			}
@@ -105,6 +114,11 @@ public class BarrierTracker implements CheckpointBarrierHandler {
 		return pendingCheckpoints.isEmpty();
 	}
 
+	@Override
+	public boolean isFinished() {
+		return inputGate.isFinished();
+	}
+
 	private void processBarrier(CheckpointBarrier receivedBarrier) {
 		// fast path for single channel trackers
 		if (totalNumberOfInputChannels == 1) {
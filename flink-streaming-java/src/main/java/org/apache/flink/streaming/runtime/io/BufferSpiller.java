@@ -23,6 +23,8 @@ import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -34,6 +36,7 @@ import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.util.StringUtils;
 
@@ -46,6 +49,10 @@ import org.apache.flink.util.StringUtils;
  * disk. Most data is written and re-read milliseconds later. The file is deleted after the read.
  * Consequently, in most cases, the data will never actually hit the physical disks.</p>
  * 
+ * <p>Batches of record objects (see {@link ObjectBuffer}) cannot be written to the spill file. Only a
+ * marker goes to the file, while the records are kept on the heap. The pooled buffer of such a
+ * batch is still recycled, so that the producer does not starve while the input is blocked.</p>
+ * 
  * <p>IMPORTANT: The SpilledBufferOrEventSequences created by this spiller all reuse the same
  * reading memory (to reduce overhead) and can consequently not be read concurrently.</p>
  */
@@ -57,6 +64,18 @@ public class BufferSpiller {
 	
 	/** The size of the buffer with which data is read back in */
 	private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+	/** The type byte of spilled buffers */
+	private static final byte BUFFER = 0;
+
+	/** The type byte of spilled events */
+	private static final byte EVENT = 1;
+
+	/** The type byte of markers for object batches, whose records are kept on the heap */
+	private static final byte OBJECT_BATCH = 2;
+
+	/** The (empty) contents of object batch markers */
+	private static final ByteBuffer EMPTY_CONTENTS = ByteBuffer.allocate(0);
 	
 	/** The directories to spill to */
 	private final File tempDir;
@@ -87,6 +106,9 @@ public class BufferSpiller {
 	
 	/** A flag to check whether the spiller has written since the last roll over */
 	private boolean hasWritten;
+
+	/** The records of the object batches added since the last roll over, in the order of their markers */
+	private ArrayDeque<List<Object>> objectBatches = new ArrayDeque<>();
 	
 	/**
 	 * Creates a new buffer spiller, spilling to one of the I/O manager's temp directories.
@@ -127,18 +149,26 @@ public class BufferSpiller {
 		hasWritten = true;
 		try {
 			ByteBuffer contents;
-			if (boe.isBuffer()) {
+			byte type;
+			if (boe.isBuffer() && boe.getBuffer() instanceof ObjectBuffer) {
+				objectBatches.add(((ObjectBuffer) boe.getBuffer()).getRecords());
+				contents = EMPTY_CONTENTS;
+				type = OBJECT_BATCH;
+			}
+			else if (boe.isBuffer()) {
 				Buffer buf = boe.getBuffer();
 				contents = buf.getMemorySegment().wrap(0, buf.getSize());
+				type = BUFFER;
 			}
 			else {
 				contents = EventSerializer.toSerializedEvent(boe.getEvent());
+				type = EVENT;
 			}
 			
 			headBuffer.clear();
 			headBuffer.putInt(boe.getChannelIndex());
 			headBuffer.putInt(contents.remaining());
-			headBuffer.put((byte) (boe.isBuffer() ? 0 : 1));
+			headBuffer.put(type);
 			headBuffer.flip();
 			
 			sources[1] = contents;
@@ -201,10 +231,11 @@ public class BufferSpiller {
 		// create a reader for the spilled data
 		currentChannel.position(0L);
 		SpilledBufferOrEventSequence seq = 
-				new SpilledBufferOrEventSequence(currentSpillFile, currentChannel, buf, pageSize);
+				new SpilledBufferOrEventSequence(currentSpillFile, currentChannel, buf, pageSize, objectBatches);
 		
 		// create ourselves a new spill file
 		createSpillingChannel();
+		objectBatches = new ArrayDeque<>();
 		
 		hasWritten = false;
 		return seq;
@@ -219,6 +250,7 @@ public class BufferSpiller {
 	 * @throws IOException Thrown if channel closing or file deletion fail.
 	 */
 	public void close() throws IOException {
+		objectBatches.clear();
 		currentChannel.close();
 		if (!currentSpillFile.delete()) {
 			throw new IOException("Cannot delete spill file");
@@ -256,7 +288,7 @@ public class BufferSpiller {
 	 */
 	public static class SpilledBufferOrEventSequence {
 		
-		/** Header is "channel index" (4 bytes) + length (4 bytes) + buffer/event (1 byte) */
+		/** Header is "channel index" (4 bytes) + length (4 bytes) + buffer/event/object batch (1 byte) */
 		private static final int HEADER_LENGTH = 9;
 
 		/** The file containing the data */
@@ -271,6 +303,9 @@ public class BufferSpiller {
 		/** The page size to instantiate properly sized memory segments */
 		private final int pageSize;
 
+		/** The records of the object batches in this sequence, in the order of their markers */
+		private final ArrayDeque<List<Object>> objectBatches;
+
 		/** Flag to track whether the sequence has been opened already */
 		private boolean opened = false;
 
@@ -283,10 +318,30 @@ public class BufferSpiller {
 		 * @param pageSize The page size to use for the created memory segments.
 		 */
 		SpilledBufferOrEventSequence(File file, FileChannel fileChannel, ByteBuffer buffer, int pageSize) {
+			this(file, fileChannel, buffer, pageSize, new ArrayDeque<List<Object>>());
+		}
+
+		/**
+		 * Create a reader that reads a sequence of spilled buffers, events, and object batch markers.
+		 * 
+		 * @param file The file with the data.
+		 * @param fileChannel The file channel to read the data from.
+		 * @param buffer The buffer used for bulk reading.
+		 * @param pageSize The page size to use for the created memory segments.
+		 * @param objectBatches The records of the object batches, in the order of their markers.
+		 */
+		SpilledBufferOrEventSequence(
+				File file,
+				FileChannel fileChannel,
+				ByteBuffer buffer,
+				int pageSize,
+				ArrayDeque<List<Object>> objectBatches) {
+
 			this.file = file;
 			this.fileChannel = fileChannel;
 			this.buffer = buffer;
 			this.pageSize = pageSize;
+			this.objectBatches = objectBatches;
 		}
 
 		/**
@@ -329,10 +384,21 @@ public class BufferSpiller {
 			
 			final int channel = buffer.getInt();
 			final int length = buffer.getInt();
-			final boolean isBuffer = buffer.get() == 0;
+			final byte type = buffer.get();
 			
 			
-			if (isBuffer) {
+			if (type == OBJECT_BATCH) {
+				List<Object> records = objectBatches.poll();
+				if (records == null) {
+					throw new IOException("Found marker of an object batch without records");
+				}
+
+				// the pooled buffer of the batch has been recycled when the batch was spilled
+				MemorySegment seg = MemorySegmentFactory.allocateUnpooledSegment(0);
+
+				return new BufferOrEvent(new ObjectBuffer(seg, FreeingBufferRecycler.INSTANCE, records), channel);
+			}
+			else if (type == BUFFER) {
 				// deserialize buffer
 				if (length > pageSize) {
 					throw new IOException(String.format(
@@ -403,6 +469,7 @@ public class BufferSpiller {
 		 * @throws IOException Thrown, if file channel closing or file deletion fail. 
 		 */
 		public void cleanup() throws IOException {
+			objectBatches.clear();
 			fileChannel.close();
 			if (!file.delete()) {
 				throw new IOException("Cannot remove temp file for stream alignment writer");
@@ -45,6 +45,25 @@ public interface CheckpointBarrierHandler {
 	 */
 	BufferOrEvent getNextNonBlocked() throws IOException, InterruptedException;
 
+	/**
+	 * Returns the next {@link BufferOrEvent} that the operator may consume, if one is available
+	 * right away. Unlike {@link #getNextNonBlocked()}, this call never waits for the input gate.
+	 *
+	 * @return The next BufferOrEvent, or {@code null}, if no data is available at the moment or
+	 *         if the stream is finished (see {@link #isFinished()}).
+	 * @throws java.io.IOException Thrown if the network or local disk I/O fails.
+	 * @throws java.lang.InterruptedException Thrown if the thread is interrupted.
+	 */
+	BufferOrEvent pollNext() throws IOException, InterruptedException;
+
+	/**
+	 * Checks whether the stream is finished, i.e., all input has been consumed, including the
+	 * data that was buffered internally.
+	 *
+	 * @return {@code True}, if the stream is finished, {@code false} otherwise.
+	 */
+	boolean isFinished();
+
 	/**
 	 * Registers the given event handler to be notified on successful checkpoints.
 	 * 
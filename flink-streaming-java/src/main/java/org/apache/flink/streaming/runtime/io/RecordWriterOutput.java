@@ -27,6 +27,7 @@ import org.apache.flink.runtime.plugable.SerializationDelegate;
 import org.apache.flink.streaming.api.operators.Output;
 import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.MultiplexingStreamRecordSerializer;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecordSerializer;
@@ -43,6 +44,8 @@ public class RecordWriterOutput<OUT> implements Output<StreamRecord<OUT>> {
 	
 	private SerializationDelegate<StreamElement> serializationDelegate;
 
+	/** Whether watermarks and latency markers can be sent along with the records */
+	private final boolean enableMultiplexing;
 	
 	@SuppressWarnings("unchecked")
 	public RecordWriterOutput(
@@ -57,6 +60,8 @@ public class RecordWriterOutput<OUT> implements Output<StreamRecord<OUT>> {
 		this.recordWriter = (StreamRecordWriter<SerializationDelegate<StreamElement>>) 
 				(StreamRecordWriter<?>) recordWriter;
 
+		this.enableMultiplexing = enableWatermarkMultiplexing;
+
 		TypeSerializer<StreamElement> outRecordSerializer;
 		if (enableWatermarkMultiplexing) {
 			outRecordSerializer = new MultiplexingStreamRecordSerializer<OUT>(outSerializer);
@@ -94,6 +99,23 @@ public class RecordWriterOutput<OUT> implements Output<StreamRecord<OUT>> {
 		}
 	}
 
+	@Override
+	public void emitLatencyMarker(LatencyMarker latencyMarker) {
+		// without multiplexing, the downstream tasks could not tell the marker from a record
+		if (!enableMultiplexing) {
+			return;
+		}
+
+		serializationDelegate.setInstance(latencyMarker);
+
+		try {
+			recordWriter.randomEmit(serializationDelegate);
+		}
+		catch (Exception e) {
+			throw new RuntimeException(e.getMessage(), e);
+		}
+	}
+
 	public void broadcastEvent(AbstractEvent barrier) throws IOException, InterruptedException {
 		recordWriter.broadcastEvent(barrier);
 	}
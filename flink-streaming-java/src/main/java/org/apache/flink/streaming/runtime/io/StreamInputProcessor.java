@@ -19,11 +19,13 @@
 package org.apache.flink.streaming.runtime.io;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.metrics.groups.IOMetricGroup;
 import org.apache.flink.runtime.accumulators.AccumulatorRegistry;
 import org.apache.flink.runtime.event.AbstractEvent;
@@ -33,6 +35,7 @@ import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
 import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
 import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpanningRecordDeserializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
@@ -64,10 +67,26 @@ import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 @Internal
 public class StreamInputProcessor<IN> {
 
+	/** Result of {@link #processNextElement}: a record was handed to the operator */
+	private static final int RECORD_PROCESSED = 0;
+
+	/** Result of {@link #processNextElement}: no input is available at the moment */
+	private static final int NO_INPUT_AVAILABLE = 1;
+
+	/** Result of {@link #processNextElement}: all input has been consumed */
+	private static final int END_OF_INPUT = 2;
+
 	private final RecordDeserializer<DeserializationDelegate<StreamElement>>[] recordDeserializers;
 
 	private RecordDeserializer<DeserializationDelegate<StreamElement>> currentRecordDeserializer;
 
+	/** The records of the object batch that is currently consumed (see {@link ObjectBuffer}) */
+	private List<Object> currentObjectBatch;
+
+	private int currentObjectBatchIndex;
+
+	private final InputGate inputGate;
+
 	private final CheckpointBarrierHandler barrierHandler;
 
 	// We need to keep track of the channel from which a buffer came, so that we can
@@ -83,6 +102,11 @@ public class StreamInputProcessor<IN> {
 
 	private Counter numRecordsIn;
 
+	/** Counts the records of the task, replaced by the task's counter once the metric group is set */
+	private Counter numTaskRecordsIn = new SimpleCounter();
+
+	private AccumulatorRegistry.Reporter reporter;
+
 	@SuppressWarnings("unchecked")
 	public StreamInputProcessor(InputGate[] inputGates, TypeSerializer<IN> inputSerializer,
 								EventListener<CheckpointBarrier> checkpointListener,
@@ -91,6 +115,7 @@ public class StreamInputProcessor<IN> {
 								boolean enableWatermarkMultiplexing) throws IOException {
 
 		InputGate inputGate = InputGateUtil.createInputGate(inputGates);
+		this.inputGate = inputGate;
 
 		if (checkpointMode == CheckpointingMode.EXACTLY_ONCE) {
 			this.barrierHandler = new BarrierBuffer(inputGate, ioManager);
@@ -139,8 +164,75 @@ public class StreamInputProcessor<IN> {
 			numRecordsIn = streamOperator.getMetricGroup().counter("numRecordsIn");
 		}
 
+		return processNextElement(streamOperator, lock, true) == RECORD_PROCESSED;
+	}
+
+	/**
+	 * Processes up to the given number of records, without ever waiting for input to become
+	 * available. The lock is acquired once for the whole batch instead of once per record.
+	 *
+	 * <p>This is used by tasks that run their timers and checkpoint notifications as mails in
+	 * the task thread (see {@link org.apache.flink.streaming.runtime.tasks.StreamTaskMailbox}),
+	 * so that the lock is not contended between records.
+	 *
+	 * @return {@code True}, if the batch was fully processed and more input may be available,
+	 *         {@code false}, if the input ran dry or is finished (see {@link #isFinished()}).
+	 */
+	@SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
+	public boolean processInputBatch(OneInputStreamOperator<IN, ?> streamOperator, final Object lock, int maxRecords) throws Exception {
+		if (isFinished) {
+			return false;
+		}
+		if (numRecordsIn == null) {
+			numRecordsIn = streamOperator.getMetricGroup().counter("numRecordsIn");
+		}
+
+		synchronized (lock) {
+			for (int i = 0; i < maxRecords; i++) {
+				if (processNextElement(streamOperator, null, false) != RECORD_PROCESSED) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether all input has been consumed.
+	 */
+	public boolean isFinished() {
+		return isFinished;
+	}
+
+	/**
+	 * Registers a listener at the input gate that is notified whenever new data becomes
+	 * available. This is needed to wake up a task that reads its input via
+	 * {@link #processInputBatch(OneInputStreamOperator, Object, int)}.
+	 */
+	public void registerInputAvailabilityListener(EventListener<InputGate> listener) {
+		inputGate.registerListener(listener);
+	}
+
+	/**
+	 * Processes the next record from the input, including all watermarks that precede it.
+	 *
+	 * @param lock The lock to acquire when calling the operator, or {@code null}, if the
+	 *             caller holds the lock already.
+	 * @param blocking Flag indicating whether to wait for input to become available.
+	 */
+	@SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
+	private int processNextElement(OneInputStreamOperator<IN, ?> streamOperator, Object lock, boolean blocking) throws Exception {
 		while (true) {
-			if (currentRecordDeserializer != null) {
+			StreamElement recordOrWatermark = null;
+
+			if (currentObjectBatch != null) {
+				recordOrWatermark = (StreamElement) currentObjectBatch.get(currentObjectBatchIndex++);
+
+				if (currentObjectBatchIndex == currentObjectBatch.size()) {
+					currentObjectBatch = null;
+				}
+			}
+			else if (currentRecordDeserializer != null) {
 				DeserializationResult result = currentRecordDeserializer.getNextRecord(deserializationDelegate);
 
 				if (result.isBufferConsumed()) {
@@ -149,43 +241,70 @@ public class StreamInputProcessor<IN> {
 				}
 
 				if (result.isFullRecord()) {
-					StreamElement recordOrWatermark = deserializationDelegate.getInstance();
-
-					if (recordOrWatermark.isWatermark()) {
-						long watermarkMillis = recordOrWatermark.asWatermark().getTimestamp();
-						if (watermarkMillis > watermarks[currentChannel]) {
-							watermarks[currentChannel] = watermarkMillis;
-							long newMinWatermark = Long.MAX_VALUE;
-							for (long watermark : watermarks) {
-								newMinWatermark = Math.min(watermark, newMinWatermark);
-							}
-							if (newMinWatermark > lastEmittedWatermark) {
-								lastEmittedWatermark = newMinWatermark;
+					recordOrWatermark = deserializationDelegate.getInstance();
+				}
+			}
+
+			if (recordOrWatermark != null) {
+				if (recordOrWatermark.isWatermark()) {
+					long watermarkMillis = recordOrWatermark.asWatermark().getTimestamp();
+					if (watermarkMillis > watermarks[currentChannel]) {
+						watermarks[currentChannel] = watermarkMillis;
+						long newMinWatermark = Long.MAX_VALUE;
+						for (long watermark : watermarks) {
+							newMinWatermark = Math.min(watermark, newMinWatermark);
+						}
+						if (newMinWatermark > lastEmittedWatermark) {
+							lastEmittedWatermark = newMinWatermark;
+							if (lock != null) {
 								synchronized (lock) {
 									streamOperator.processWatermark(new Watermark(lastEmittedWatermark));
 								}
 							}
+							else {
+								streamOperator.processWatermark(new Watermark(lastEmittedWatermark));
+							}
 						}
-						continue;
-					} else {
-						// now we can do the actual processing
-						StreamRecord<IN> record = recordOrWatermark.asRecord();
+					}
+					continue;
+				} else if (recordOrWatermark.isLatencyMarker()) {
+					// handle latency marker
+					if (lock != null) {
 						synchronized (lock) {
-							numRecordsIn.inc();
-							streamOperator.setKeyContextElement1(record);
-							streamOperator.processElement(record);
+							streamOperator.processLatencyMarker(recordOrWatermark.asLatencyMarker());
 						}
-						return true;
 					}
+					else {
+						streamOperator.processLatencyMarker(recordOrWatermark.asLatencyMarker());
+					}
+					continue;
+				} else {
+					// now we can do the actual processing
+					StreamRecord<IN> record = recordOrWatermark.asRecord();
+					if (lock != null) {
+						synchronized (lock) {
+							processRecord(streamOperator, record);
+						}
+					}
+					else {
+						processRecord(streamOperator, record);
+					}
+					return RECORD_PROCESSED;
 				}
 			}
 
-			final BufferOrEvent bufferOrEvent = barrierHandler.getNextNonBlocked();
+			final BufferOrEvent bufferOrEvent = blocking ? barrierHandler.getNextNonBlocked() : barrierHandler.pollNext();
 			if (bufferOrEvent != null) {
 				if (bufferOrEvent.isBuffer()) {
 					currentChannel = bufferOrEvent.getChannelIndex();
-					currentRecordDeserializer = recordDeserializers[currentChannel];
-					currentRecordDeserializer.setNextBuffer(bufferOrEvent.getBuffer());
+
+					if (bufferOrEvent.getBuffer() instanceof ObjectBuffer) {
+						setNextObjectBatch((ObjectBuffer) bufferOrEvent.getBuffer());
+					}
+					else {
+						currentRecordDeserializer = recordDeserializers[currentChannel];
+						currentRecordDeserializer.setNextBuffer(bufferOrEvent.getBuffer());
+					}
 				}
 				else {
 					// Event received
@@ -195,17 +314,47 @@ public class StreamInputProcessor<IN> {
 					}
 				}
 			}
-			else {
+			else if (blocking || barrierHandler.isFinished()) {
 				isFinished = true;
 				if (!barrierHandler.isEmpty()) {
 					throw new IllegalStateException("Trailing data in checkpoint barrier handler.");
 				}
-				return false;
+				return END_OF_INPUT;
+			}
+			else {
+				return NO_INPUT_AVAILABLE;
 			}
 		}
 	}
-	
+
+	private void processRecord(OneInputStreamOperator<IN, ?> streamOperator, StreamRecord<IN> record) throws Exception {
+		numRecordsIn.inc();
+		numTaskRecordsIn.inc();
+		streamOperator.setKeyContextElement1(record);
+		streamOperator.processElement(record);
+	}
+
+	/**
+	 * Starts consuming the records of the given object batch. The records do not live in the
+	 * memory of the buffer, which is recycled right away.
+	 */
+	private void setNextObjectBatch(ObjectBuffer buffer) {
+		List<Object> records = buffer.getRecords();
+		buffer.recycle();
+
+		if (!records.isEmpty()) {
+			currentObjectBatch = records;
+			currentObjectBatchIndex = 0;
+
+			if (reporter != null) {
+				reporter.reportNumRecordsIn(records.size());
+			}
+		}
+	}
+
 	public void setReporter(AccumulatorRegistry.Reporter reporter) {
+		this.reporter = reporter;
+
 		for (RecordDeserializer<?> deserializer : recordDeserializers) {
 			deserializer.setReporter(reporter);
 		}
@@ -217,6 +366,8 @@ public class StreamInputProcessor<IN> {
 	 * @param metrics metric group
      */
 	public void setMetricGroup(IOMetricGroup metrics) {
+		numTaskRecordsIn = metrics.getNumRecordsInCounter();
+
 		metrics.gauge("currentLowWatermark", new Gauge<Long>() {
 			@Override
 			public Long getValue() {
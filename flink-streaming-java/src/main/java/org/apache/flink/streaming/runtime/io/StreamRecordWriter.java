@@ -24,6 +24,7 @@ import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.runtime.io.network.api.writer.ChannelSelector;
 import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.plugable.SerializationDelegate;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 
@@ -98,6 +99,31 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 		}
 	}
 
+	@Override
+	public void randomEmit(T record) throws IOException, InterruptedException {
+		checkErroneous();
+		super.randomEmit(record);
+		if (flushAlways) {
+			flush();
+		}
+	}
+
+	/**
+	 * Records that are handed over as objects to a local consumer are copied with the type
+	 * serializer of their {@link SerializationDelegate}, like records that are passed between
+	 * chained operators. The copy is required even if object reuse is enabled, because the
+	 * consumer processes the record asynchronously, after the producer may have modified it.
+	 */
+	@Override
+	protected Object copyForObjectHandOver(T record) {
+		if (record instanceof SerializationDelegate) {
+			return ((SerializationDelegate<?>) record).copyInstance();
+		}
+		else {
+			return null;
+		}
+	}
+
 	/**
 	 * Closes the writer. This stops the flushing thread (if there is one).
 	 */
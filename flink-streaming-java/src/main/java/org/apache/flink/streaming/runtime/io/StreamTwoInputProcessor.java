@@ -20,7 +20,9 @@ package org.apache.flink.streaming.runtime.io;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.SimpleCounter;
 import org.apache.flink.metrics.groups.IOMetricGroup;
 import org.apache.flink.runtime.accumulators.AccumulatorRegistry;
 import org.apache.flink.runtime.event.AbstractEvent;
@@ -30,6 +32,7 @@ import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
 import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
 import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpanningRecordDeserializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
@@ -37,6 +40,7 @@ import org.apache.flink.runtime.plugable.NonReusingDeserializationDelegate;
 import org.apache.flink.runtime.util.event.EventListener;
 import org.apache.flink.streaming.api.CheckpointingMode;
 import org.apache.flink.streaming.api.operators.TwoInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.MultiplexingStreamRecordSerializer;
@@ -47,6 +51,7 @@ import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Input reader for {@link org.apache.flink.streaming.runtime.tasks.TwoInputStreamTask}.
@@ -66,16 +71,32 @@ import java.util.Collection;
 @Internal
 public class StreamTwoInputProcessor<IN1, IN2> {
 
+	/** Result of {@link #processNextElement}: a record was handed to the operator */
+	private static final int RECORD_PROCESSED = 0;
+
+	/** Result of {@link #processNextElement}: no input is available at the moment */
+	private static final int NO_INPUT_AVAILABLE = 1;
+
+	/** Result of {@link #processNextElement}: all input has been consumed */
+	private static final int END_OF_INPUT = 2;
+
 	private final RecordDeserializer<DeserializationDelegate<StreamElement>>[] recordDeserializers;
 
 	private RecordDeserializer<DeserializationDelegate<StreamElement>> currentRecordDeserializer;
 
+	/** The records of the object batch that is currently consumed (see {@link ObjectBuffer}) */
+	private List<Object> currentObjectBatch;
+
+	private int currentObjectBatchIndex;
+
 	// We need to keep track of the channel from which a buffer came, so that we can
 	// appropriately map the watermarks to input channels
 	private int currentChannel = -1;
 
 	private boolean isFinished;
 
+	private final InputGate inputGate;
+
 	private final CheckpointBarrierHandler barrierHandler;
 
 	private final long[] watermarks1;
@@ -89,6 +110,11 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 	private final DeserializationDelegate<StreamElement> deserializationDelegate1;
 	private final DeserializationDelegate<StreamElement> deserializationDelegate2;
 
+	/** Counts the records of the task, replaced by the task's counter once the metric group is set */
+	private Counter numRecordsIn = new SimpleCounter();
+
+	private AccumulatorRegistry.Reporter reporter;
+
 	@SuppressWarnings({"unchecked", "rawtypes"})
 	public StreamTwoInputProcessor(
 			Collection<InputGate> inputGates1,
@@ -101,6 +127,7 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 			boolean enableWatermarkMultiplexing) throws IOException {
 		
 		final InputGate inputGate = InputGateUtil.createInputGate(inputGates1, inputGates2);
+		this.inputGate = inputGate;
 
 		if (checkpointMode == CheckpointingMode.EXACTLY_ONCE) {
 			this.barrierHandler = new BarrierBuffer(inputGate, ioManager);
@@ -162,14 +189,74 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 		lastEmittedWatermark2 = Long.MIN_VALUE;
 	}
 
-	@SuppressWarnings("unchecked")
 	public boolean processInput(TwoInputStreamOperator<IN1, IN2, ?> streamOperator, Object lock) throws Exception {
 		if (isFinished) {
 			return false;
 		}
 
+		return processNextElement(streamOperator, lock, true) == RECORD_PROCESSED;
+	}
+
+	/**
+	 * Processes up to the given number of records, without ever waiting for input to become
+	 * available. The lock is acquired once for the whole batch instead of once per record.
+	 *
+	 * @return {@code True}, if the batch was fully processed and more input may be available,
+	 *         {@code false}, if the input ran dry or is finished (see {@link #isFinished()}).
+	 *
+	 * @see StreamInputProcessor#processInputBatch(org.apache.flink.streaming.api.operators.OneInputStreamOperator, Object, int)
+	 */
+	@SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
+	public boolean processInputBatch(TwoInputStreamOperator<IN1, IN2, ?> streamOperator, Object lock, int maxRecords) throws Exception {
+		if (isFinished) {
+			return false;
+		}
+
+		synchronized (lock) {
+			for (int i = 0; i < maxRecords; i++) {
+				if (processNextElement(streamOperator, null, false) != RECORD_PROCESSED) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether all input has been consumed.
+	 */
+	public boolean isFinished() {
+		return isFinished;
+	}
+
+	/**
+	 * Registers a listener at the input gate that is notified whenever new data becomes
+	 * available on either of the two inputs.
+	 */
+	public void registerInputAvailabilityListener(EventListener<InputGate> listener) {
+		inputGate.registerListener(listener);
+	}
+
+	/**
+	 * Processes the next record from either input, including all watermarks that precede it.
+	 *
+	 * @param lock The lock to acquire when calling the operator, or {@code null}, if the
+	 *             caller holds the lock already.
+	 * @param blocking Flag indicating whether to wait for input to become available.
+	 */
+	@SuppressWarnings({"unchecked", "SynchronizationOnLocalVariableOrMethodParameter"})
+	private int processNextElement(TwoInputStreamOperator<IN1, IN2, ?> streamOperator, Object lock, boolean blocking) throws Exception {
 		while (true) {
-			if (currentRecordDeserializer != null) {
+			StreamElement recordOrWatermark = null;
+
+			if (currentObjectBatch != null) {
+				recordOrWatermark = (StreamElement) currentObjectBatch.get(currentObjectBatchIndex++);
+
+				if (currentObjectBatchIndex == currentObjectBatch.size()) {
+					currentObjectBatch = null;
+				}
+			}
+			else if (currentRecordDeserializer != null) {
 				DeserializationResult result;
 				if (currentChannel < numInputChannels1) {
 					result = currentRecordDeserializer.getNextRecord(deserializationDelegate1);
@@ -184,45 +271,54 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 
 				if (result.isFullRecord()) {
 					if (currentChannel < numInputChannels1) {
-						StreamElement recordOrWatermark = deserializationDelegate1.getInstance();
-						if (recordOrWatermark.isWatermark()) {
-							handleWatermark(streamOperator, (Watermark) recordOrWatermark, currentChannel, lock);
-							continue;
-						}
-						else {
-							synchronized (lock) {
-								streamOperator.setKeyContextElement1(recordOrWatermark.<IN1>asRecord());
-								streamOperator.processElement1(recordOrWatermark.<IN1>asRecord());
-							}
-							return true;
+						recordOrWatermark = deserializationDelegate1.getInstance();
+					} else {
+						recordOrWatermark = deserializationDelegate2.getInstance();
+					}
+				}
+			}
 
+			if (recordOrWatermark != null) {
+				if (recordOrWatermark.isWatermark()) {
+					handleWatermark(streamOperator, recordOrWatermark.asWatermark(), currentChannel, lock);
+					continue;
+				}
+				else if (recordOrWatermark.isLatencyMarker()) {
+					if (lock != null) {
+						synchronized (lock) {
+							processLatencyMarker(streamOperator, recordOrWatermark.asLatencyMarker());
 						}
 					}
 					else {
-						StreamElement recordOrWatermark = deserializationDelegate2.getInstance();
-						if (recordOrWatermark.isWatermark()) {
-							handleWatermark(streamOperator, recordOrWatermark.asWatermark(), currentChannel, lock);
-							continue;
-						}
-						else {
-							synchronized (lock) {
-								streamOperator.setKeyContextElement2(recordOrWatermark.<IN2>asRecord());
-								streamOperator.processElement2(recordOrWatermark.<IN2>asRecord());
-							}
-							return true;
-						}
+						processLatencyMarker(streamOperator, recordOrWatermark.asLatencyMarker());
+					}
+					continue;
+				}
+				else if (lock != null) {
+					synchronized (lock) {
+						processRecord(streamOperator, recordOrWatermark);
 					}
+					return RECORD_PROCESSED;
+				}
+				else {
+					processRecord(streamOperator, recordOrWatermark);
+					return RECORD_PROCESSED;
 				}
 			}
 
-			final BufferOrEvent bufferOrEvent = barrierHandler.getNextNonBlocked();
+			final BufferOrEvent bufferOrEvent = blocking ? barrierHandler.getNextNonBlocked() : barrierHandler.pollNext();
 			if (bufferOrEvent != null) {
 
 				if (bufferOrEvent.isBuffer()) {
 					currentChannel = bufferOrEvent.getChannelIndex();
-					currentRecordDeserializer = recordDeserializers[currentChannel];
-					currentRecordDeserializer.setNextBuffer(bufferOrEvent.getBuffer());
-	
+
+					if (bufferOrEvent.getBuffer() instanceof ObjectBuffer) {
+						setNextObjectBatch((ObjectBuffer) bufferOrEvent.getBuffer());
+					}
+					else {
+						currentRecordDeserializer = recordDeserializers[currentChannel];
+						currentRecordDeserializer.setNextBuffer(bufferOrEvent.getBuffer());
+					}
 				} else {
 					// Event received
 					final AbstractEvent event = bufferOrEvent.getEvent();
@@ -231,16 +327,42 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 					}
 				}
 			}
-			else {
+			else if (blocking || barrierHandler.isFinished()) {
 				isFinished = true;
 				if (!barrierHandler.isEmpty()) {
 					throw new IllegalStateException("Trailing data in checkpoint barrier handler.");
 				}
-				return false;
+				return END_OF_INPUT;
+			}
+			else {
+				return NO_INPUT_AVAILABLE;
 			}
 		}
 	}
 
+	private void processRecord(TwoInputStreamOperator<IN1, IN2, ?> streamOperator, StreamElement record) throws Exception {
+		numRecordsIn.inc();
+
+		if (currentChannel < numInputChannels1) {
+			streamOperator.setKeyContextElement1(record.<IN1>asRecord());
+			streamOperator.processElement1(record.<IN1>asRecord());
+		}
+		else {
+			streamOperator.setKeyContextElement2(record.<IN2>asRecord());
+			streamOperator.processElement2(record.<IN2>asRecord());
+		}
+	}
+
+	private void processLatencyMarker(TwoInputStreamOperator<IN1, IN2, ?> streamOperator, LatencyMarker marker) throws Exception {
+		if (currentChannel < numInputChannels1) {
+			streamOperator.processLatencyMarker1(marker);
+		}
+		else {
+			streamOperator.processLatencyMarker2(marker);
+		}
+	}
+
+	@SuppressWarnings("SynchronizationOnLocalVariableOrMethodParameter")
 	private void handleWatermark(TwoInputStreamOperator<IN1, IN2, ?> operator, Watermark mark, int channelIndex, Object lock) throws Exception {
 		if (channelIndex < numInputChannels1) {
 			long watermarkMillis = mark.getTimestamp();
@@ -252,7 +374,12 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 				}
 				if (newMinWatermark > lastEmittedWatermark1) {
 					lastEmittedWatermark1 = newMinWatermark;
-					synchronized (lock) {
+					if (lock != null) {
+						synchronized (lock) {
+							operator.processWatermark1(new Watermark(lastEmittedWatermark1));
+						}
+					}
+					else {
 						operator.processWatermark1(new Watermark(lastEmittedWatermark1));
 					}
 				}
@@ -268,7 +395,12 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 				}
 				if (newMinWatermark > lastEmittedWatermark2) {
 					lastEmittedWatermark2 = newMinWatermark;
-					synchronized (lock) {
+					if (lock != null) {
+						synchronized (lock) {
+							operator.processWatermark2(new Watermark(lastEmittedWatermark2));
+						}
+					}
+					else {
 						operator.processWatermark2(new Watermark(lastEmittedWatermark2));
 					}
 				}
@@ -276,7 +408,27 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 		}
 	}
 	
+	/**
+	 * Starts consuming the records of the given object batch. The records do not live in the
+	 * memory of the buffer, which is recycled right away.
+	 */
+	private void setNextObjectBatch(ObjectBuffer buffer) {
+		List<Object> records = buffer.getRecords();
+		buffer.recycle();
+
+		if (!records.isEmpty()) {
+			currentObjectBatch = records;
+			currentObjectBatchIndex = 0;
+
+			if (reporter != null) {
+				reporter.reportNumRecordsIn(records.size());
+			}
+		}
+	}
+
 	public void setReporter(AccumulatorRegistry.Reporter reporter) {
+		this.reporter = reporter;
+
 		for (RecordDeserializer<?> deserializer : recordDeserializers) {
 			deserializer.setReporter(reporter);
 		}
@@ -288,6 +440,8 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 	 * @param metrics metric group
 	 */
 	public void setMetricGroup(IOMetricGroup metrics) {
+		numRecordsIn = metrics.getNumRecordsInCounter();
+
 		metrics.gauge("currentLowWatermark", new Gauge<Long>() {
 			@Override
 			public Long getValue() {
@@ -0,0 +1,447 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.util.MathUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A priority queue of timers, ordered by timestamp, where each timer is scoped to a key and a
+ * namespace (for example the window). Each {@code (timestamp, key, namespace)} triple is contained
+ * at most once. Operators that do not need a namespace use {@code null}, together with the
+ * {@link org.apache.flink.api.common.typeutils.base.VoidSerializer}.
+ *
+ * <p>The queue is a binary min-heap that is laid out in parallel arrays, with the timestamps in a
+ * primitive {@code long[]}. An open addressing hash index (linear probing) maps timers to their
+ * position in the heap, which makes duplicate detection and the removal of arbitrary timers
+ * O(log n). Adding and removing timers does not create any objects, apart from growing the
+ * arrays.
+ *
+ * <p>The queue is written to checkpoints in heap order, so that it can be restored in linear time,
+ * without re-inserting the timers one by one.
+ *
+ * <p>This class is not thread safe.
+ *
+ * @param <K> The type of the keys of the timers.
+ * @param <N> The type of the namespaces of the timers.
+ */
+@Internal
+public final class InternalTimerQueue<K, N> {
+
+	/** Marks an unused slot in the hash index */
+	private static final int EMPTY = -1;
+
+	/** The hash index is grown when it is more than half full */
+	private static final int MAX_INDEX_FILL_FACTOR_INVERSE = 2;
+
+	private static final int MIN_CAPACITY = 16;
+
+	// -------------------- heap, indexed by heap position --------------------
+
+	private long[] timestamps;
+
+	private Object[] keys;
+
+	private Object[] namespaces;
+
+	/** The (spread) hash code of each timer, cached to avoid calling hashCode() when re-indexing */
+	private int[] hashes;
+
+	/** The slot in the hash index that points to each timer */
+	private int[] slots;
+
+	private int size;
+
+	// -------------------- hash index, slot to heap position --------------------
+
+	private int[] index;
+
+	private int indexMask;
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a new, empty timer queue.
+	 *
+	 * @param initialCapacity The number of timers the queue can hold before it needs to grow.
+	 */
+	public InternalTimerQueue(int initialCapacity) {
+		checkArgument(initialCapacity >= 0, "The initial capacity must not be negative.");
+
+		int capacity = Math.max(MIN_CAPACITY, initialCapacity);
+		this.timestamps = new long[capacity];
+		this.keys = new Object[capacity];
+		this.namespaces = new Object[capacity];
+		this.hashes = new int[capacity];
+		this.slots = new int[capacity];
+
+		allocateIndex(indexSizeFor(capacity));
+	}
+
+	// ------------------------------------------------------------------------
+	//  Queue operations
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds a timer to the queue, if the queue does not contain the same timer already.
+	 *
+	 * @return True, if the timer was added, false, if it was already contained.
+	 */
+	public boolean add(long timestamp, K key, N namespace) {
+		checkNotNull(key, "The key must not be null.");
+
+		final int hash = hash(timestamp, key, namespace);
+		int slot = findSlot(timestamp, key, namespace, hash);
+		if (index[slot] != EMPTY) {
+			return false;
+		}
+
+		if (size == timestamps.length) {
+			growHeap();
+		}
+		if ((size + 1) * MAX_INDEX_FILL_FACTOR_INVERSE > index.length) {
+			allocateIndex(index.length << 1);
+			rebuildIndex();
+			slot = findSlot(timestamp, key, namespace, hash);
+		}
+
+		final int pos = size++;
+		index[slot] = pos;
+		siftUp(pos, timestamp, key, namespace, hash, slot);
+		return true;
+	}
+
+	/**
+	 * Removes a timer from the queue.
+	 *
+	 * @return True, if the timer was contained in the queue, false otherwise.
+	 */
+	public boolean remove(long timestamp, K key, N namespace) {
+		final int slot = findSlot(timestamp, key, namespace, hash(timestamp, key, namespace));
+		final int pos = index[slot];
+		if (pos == EMPTY) {
+			return false;
+		}
+
+		removeAt(pos);
+		return true;
+	}
+
+	/**
+	 * Checks whether the queue contains the given timer.
+	 */
+	public boolean contains(long timestamp, K key, N namespace) {
+		return index[findSlot(timestamp, key, namespace, hash(timestamp, key, namespace))] != EMPTY;
+	}
+
+	/**
+	 * Removes the timer with the smallest timestamp.
+	 *
+	 * @throws NoSuchElementException Thrown, if the queue is empty.
+	 */
+	public void poll() {
+		checkNotEmpty();
+		removeAt(0);
+	}
+
+	/**
+	 * Returns the smallest timestamp in the queue, or {@link Long#MAX_VALUE}, if the queue
+	 * is empty.
+	 */
+	public long getHeadTimestamp() {
+		return size > 0 ? timestamps[0] : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the key of the timer with the smallest timestamp.
+	 *
+	 * @throws NoSuchElementException Thrown, if the queue is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public K getHeadKey() {
+		checkNotEmpty();
+		return (K) keys[0];
+	}
+
+	/**
+	 * Returns the namespace of the timer with the smallest timestamp.
+	 *
+	 * @throws NoSuchElementException Thrown, if the queue is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public N getHeadNamespace() {
+		checkNotEmpty();
+		return (N) namespaces[0];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all timers from the queue. The queue keeps its capacity.
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(namespaces, 0, size, null);
+		Arrays.fill(index, EMPTY);
+		size = 0;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Checkpointing
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Writes all timers to the given output view. The timers are written in heap order,
+	 * which is again a valid heap when they are read back by
+	 * {@link #read(DataInputView, TypeSerializer, TypeSerializer)}.
+	 */
+	@SuppressWarnings("unchecked")
+	public void write(DataOutputView out, TypeSerializer<K> keySerializer, TypeSerializer<N> namespaceSerializer) throws IOException {
+		out.writeInt(size);
+		for (int i = 0; i < size; i++) {
+			out.writeLong(timestamps[i]);
+			keySerializer.serialize((K) keys[i], out);
+			namespaceSerializer.serialize((N) namespaces[i], out);
+		}
+	}
+
+	/**
+	 * Replaces the contents of this queue with the timers read from the given input view.
+	 */
+	public void read(DataInputView in, TypeSerializer<K> keySerializer, TypeSerializer<N> namespaceSerializer) throws IOException {
+		clear();
+
+		final int numTimers = in.readInt();
+		while (timestamps.length < numTimers) {
+			growHeap();
+		}
+		if (numTimers * MAX_INDEX_FILL_FACTOR_INVERSE > index.length) {
+			allocateIndex(indexSizeFor(numTimers));
+		}
+
+		for (int i = 0; i < numTimers; i++) {
+			timestamps[i] = in.readLong();
+			keys[i] = keySerializer.deserialize(in);
+			namespaces[i] = namespaceSerializer.deserialize(in);
+			hashes[i] = hash(timestamps[i], keys[i], namespaces[i]);
+		}
+		size = numTimers;
+
+		rebuildIndex();
+	}
+
+	// ------------------------------------------------------------------------
+	//  Heap maintenance
+	// ------------------------------------------------------------------------
+
+	private void removeAt(int pos) {
+		deleteSlot(slots[pos]);
+
+		final int last = --size;
+		if (pos != last) {
+			// move the last timer into the gap and restore the heap property
+			final long timestamp = timestamps[last];
+			final Object key = keys[last];
+			final Object namespace = namespaces[last];
+			final int hash = hashes[last];
+			final int slot = slots[last];
+
+			keys[last] = null;
+			namespaces[last] = null;
+
+			if (siftDown(pos, timestamp, key, namespace, hash, slot) == pos) {
+				siftUp(pos, timestamp, key, namespace, hash, slot);
+			}
+		}
+		else {
+			keys[last] = null;
+			namespaces[last] = null;
+		}
+	}
+
+	/**
+	 * Moves the given timer up from the given (free) heap position, until its parent has a
+	 * smaller or equal timestamp, and stores it there.
+	 */
+	private void siftUp(int pos, long timestamp, Object key, Object namespace, int hash, int slot) {
+		while (pos > 0) {
+			final int parent = (pos - 1) >>> 1;
+			if (timestamps[parent] <= timestamp) {
+				break;
+			}
+			moveTo(parent, pos);
+			pos = parent;
+		}
+		set(pos, timestamp, key, namespace, hash, slot);
+	}
+
+	/**
+	 * Moves the given timer down from the given (free) heap position, until its children have
+	 * larger or equal timestamps, and stores it there.
+	 *
+	 * @return The heap position at which the timer was stored.
+	 */
+	private int siftDown(int pos, long timestamp, Object key, Object namespace, int hash, int slot) {
+		final int half = size >>> 1;
+		while (pos < half) {
+			int child = (pos << 1) + 1;
+			final int right = child + 1;
+			if (right < size && timestamps[right] < timestamps[child]) {
+				child = right;
+			}
+			if (timestamp <= timestamps[child]) {
+				break;
+			}
+			moveTo(child, pos);
+			pos = child;
+		}
+		set(pos, timestamp, key, namespace, hash, slot);
+		return pos;
+	}
+
+	private void moveTo(int from, int to) {
+		set(to, timestamps[from], keys[from], namespaces[from], hashes[from], slots[from]);
+	}
+
+	private void set(int pos, long timestamp, Object key, Object namespace, int hash, int slot) {
+		timestamps[pos] = timestamp;
+		keys[pos] = key;
+		namespaces[pos] = namespace;
+		hashes[pos] = hash;
+		slots[pos] = slot;
+		index[slot] = pos;
+	}
+
+	private void growHeap() {
+		final int newCapacity = timestamps.length << 1;
+		timestamps = Arrays.copyOf(timestamps, newCapacity);
+		keys = Arrays.copyOf(keys, newCapacity);
+		namespaces = Arrays.copyOf(namespaces, newCapacity);
+		hashes = Arrays.copyOf(hashes, newCapacity);
+		slots = Arrays.copyOf(slots, newCapacity);
+	}
+
+	private void checkNotEmpty() {
+		if (size == 0) {
+			throw new NoSuchElementException("The timer queue is empty.");
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Hash index maintenance
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns the slot that points to the given timer, or the empty slot where the timer
+	 * would be inserted, if the timer is not contained.
+	 */
+	private int findSlot(long timestamp, Object key, Object namespace, int hash) {
+		int slot = hash & indexMask;
+		int pos;
+		while ((pos = index[slot]) != EMPTY) {
+			if (hashes[pos] == hash && timestamps[pos] == timestamp &&
+					keys[pos].equals(key) && Objects.equals(namespaces[pos], namespace)) {
+				break;
+			}
+			slot = (slot + 1) & indexMask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Frees a slot of the hash index. The following timers of the probe sequence are shifted back
+	 * into the freed slot where necessary, so that no tombstones are needed.
+	 */
+	private void deleteSlot(int slot) {
+		int free = slot;
+		int current = slot;
+		index[free] = EMPTY;
+
+		while (true) {
+			current = (current + 1) & indexMask;
+			final int pos = index[current];
+			if (pos == EMPTY) {
+				return;
+			}
+
+			// the timer stays, if its home slot lies cyclically in (free, current]
+			final int home = hashes[pos] & indexMask;
+			final boolean stays = free <= current ?
+					(free < home && home <= current) :
+					(free < home || home <= current);
+
+			if (!stays) {
+				index[free] = pos;
+				slots[pos] = free;
+				index[current] = EMPTY;
+				free = current;
+			}
+		}
+	}
+
+	private void rebuildIndex() {
+		Arrays.fill(index, EMPTY);
+		for (int pos = 0; pos < size; pos++) {
+			int slot = hashes[pos] & indexMask;
+			while (index[slot] != EMPTY) {
+				slot = (slot + 1) & indexMask;
+			}
+			index[slot] = pos;
+			slots[pos] = slot;
+		}
+	}
+
+	private void allocateIndex(int indexSize) {
+		index = new int[indexSize];
+		indexMask = indexSize - 1;
+		Arrays.fill(index, EMPTY);
+	}
+
+	private static int indexSizeFor(int numTimers) {
+		int indexSize = MIN_CAPACITY;
+		while (indexSize < numTimers * MAX_INDEX_FILL_FACTOR_INVERSE) {
+			indexSize <<= 1;
+		}
+		return indexSize;
+	}
+
+	private static int hash(long timestamp, Object key, Object namespace) {
+		int hash = (int) (timestamp ^ (timestamp >>> 32));
+		hash = 31 * hash + key.hashCode();
+		hash = 31 * hash + Objects.hashCode(namespace);
+		return MathUtils.murmurHash(hash);
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators.windowing;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.math3.util.ArithmeticUtils;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.ReducingState;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
+import org.apache.flink.streaming.api.windowing.triggers.Trigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalWindowFunction;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * A {@link WindowOperator} for {@link SlidingEventTimeWindows} with the default
+ * {@link EventTimeTrigger} and an incrementally aggregating {@link ReduceFunction}.
+ *
+ * <p>
+ * Instead of adding each element to every window it belongs to, the operator adds it to exactly
+ * one pane. The panes partition the time axis into slices of the greatest common divisor of window
+ * size and slide, so every window consists of a fixed number of consecutive panes. When the
+ * watermark passes the end of a window, the panes of the window are combined with the reduce
+ * function and the result is emitted. A pane is cleared when the last window that contains it has
+ * fired. The panes are stored as partitioned state with the pane as namespace, so they are
+ * checkpointed by the state backend like the window contents of the {@code WindowOperator}.
+ *
+ * <p>
+ * Per key, only the earliest pending window has a timer. When it fires, the timer for the next
+ * window is registered if that window contains any data. Elements that arrive after their window
+ * has fired, but within the allowed lateness, are emitted on their own, just as the
+ * {@code EventTimeTrigger} does after it purged the window contents.
+ *
+ * @param <K> The type of key returned by the {@code KeySelector}.
+ * @param <IN> The type of the incoming elements.
+ * @param <OUT> The type of elements emitted by the {@code InternalWindowFunction}.
+ */
+@Internal
+public class AlignedEventTimeWindowOperator<K, IN, OUT> extends WindowOperator<K, IN, IN, OUT, TimeWindow> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final ReducingStateDescriptor<IN> paneStateDescriptor;
+
+	private final long windowSize;
+
+	private final long windowSlide;
+
+	private final long paneSize;
+
+	public AlignedEventTimeWindowOperator(SlidingEventTimeWindows windowAssigner,
+		TypeSerializer<TimeWindow> windowSerializer,
+		KeySelector<IN, K> keySelector,
+		TypeSerializer<K> keySerializer,
+		ReducingStateDescriptor<IN> paneStateDescriptor,
+		InternalWindowFunction<IN, OUT, K, TimeWindow> windowFunction,
+		Trigger<? super IN, ? super TimeWindow> trigger,
+		long allowedLateness) {
+
+		super(windowAssigner, windowSerializer, keySelector,
+			keySerializer, paneStateDescriptor, windowFunction, trigger, allowedLateness);
+
+		Preconditions.checkArgument(trigger instanceof EventTimeTrigger,
+			"Pane based windows can only be used with the EventTimeTrigger.");
+
+		this.paneStateDescriptor = paneStateDescriptor;
+		this.windowSize = windowAssigner.getSize();
+		this.windowSlide = windowAssigner.getSlide();
+		this.paneSize = ArithmeticUtils.gcd(windowSize, windowSlide);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void processElement(StreamRecord<IN> element) throws Exception {
+		final long timestamp = element.getTimestamp();
+		if (timestamp == Long.MIN_VALUE) {
+			throw new RuntimeException("Record has Long.MIN_VALUE timestamp (= no timestamp marker). " +
+				"Is the time characteristic set to 'ProcessingTime', or did you forget to call " +
+				"'DataStream.assignTimestampsAndWatermarks(...)'?");
+		}
+
+		// the windows of the element are the same as those of SlidingEventTimeWindows
+		final long lastStart = timestamp - timestamp % windowSlide;
+		if (lastStart + windowSize <= timestamp) {
+			// the element lies in the gap between two windows (the slide is larger than the size)
+			return;
+		}
+		final long firstStart = lastStart - ((lastStart + windowSize - timestamp - 1) / windowSlide) * windowSlide;
+
+		TimeWindow lastWindow = new TimeWindow(lastStart, lastStart + windowSize);
+		if (isLate(lastWindow)) {
+			// all windows of the element are beyond the allowed lateness
+			return;
+		}
+
+		final K key = (K) getStateBackend().getCurrentKey();
+
+		if (lastWindow.maxTimestamp() > currentWatermark) {
+			// at least one window still fires regularly and picks up the pane
+			final long paneStart = timestamp - timestamp % paneSize;
+			ReducingState<IN> pane = getPartitionedState(
+				new TimeWindow(paneStart, paneStart + paneSize), windowSerializer, paneStateDescriptor);
+			pane.add(element.getValue());
+		}
+
+		for (long start = firstStart; start <= lastStart; start += windowSlide) {
+			TimeWindow window = new TimeWindow(start, start + windowSize);
+			if (window.maxTimestamp() > currentWatermark) {
+				// the timers of the following windows are registered when this one fires
+				watermarkTimers.add(window.maxTimestamp(), key, window);
+				break;
+			} else if (!isLate(window)) {
+				// the window has fired and was purged, the late element makes up its contents
+				timestampedCollector.setAbsoluteTimestamp(window.maxTimestamp());
+				userFunction.apply(key, window, element.getValue(), timestampedCollector);
+			}
+		}
+	}
+
+	@Override
+	public void processWatermark(Watermark mark) throws Exception {
+		while (!watermarkTimers.isEmpty() && watermarkTimers.getHeadTimestamp() <= mark.getTimestamp()) {
+			K key = watermarkTimers.getHeadKey();
+			TimeWindow window = watermarkTimers.getHeadNamespace();
+			watermarkTimers.poll();
+
+			setKeyContext(key);
+			fireWindow(key, window);
+		}
+
+		output.emitWatermark(mark);
+
+		this.currentWatermark = mark.getTimestamp();
+	}
+
+	/**
+	 * Combines the panes of the given window and emits the result. Panes that are not part of the
+	 * next window are cleared, and the timer of the next window is registered if any of the
+	 * remaining panes holds data. The caller must ensure that the correct key is set in the
+	 * state backend.
+	 */
+	private void fireWindow(K key, TimeWindow window) throws Exception {
+		final ReduceFunction<IN> reduceFunction = paneStateDescriptor.getReduceFunction();
+		final long nextWindowStart = window.getStart() + windowSlide;
+
+		IN result = null;
+		boolean nextWindowHasData = false;
+
+		for (long paneStart = window.getStart(); paneStart < window.getEnd(); paneStart += paneSize) {
+			ReducingState<IN> pane = getPartitionedState(
+				new TimeWindow(paneStart, paneStart + paneSize), windowSerializer, paneStateDescriptor);
+			IN paneValue = pane.get();
+			if (paneValue == null) {
+				continue;
+			}
+
+			// the reduce function may modify its arguments or return one of them, and the pane
+			// may still be needed by the following windows, so it only ever sees copies
+			IN paneCopy = inputSerializer.copy(paneValue);
+			result = result == null ? paneCopy : reduceFunction.reduce(result, paneCopy);
+
+			if (paneStart >= nextWindowStart) {
+				nextWindowHasData = true;
+			} else {
+				pane.clear();
+			}
+		}
+
+		if (result != null) {
+			timestampedCollector.setAbsoluteTimestamp(window.maxTimestamp());
+			userFunction.apply(key, window, result, timestampedCollector);
+		}
+
+		if (nextWindowHasData) {
+			TimeWindow nextWindow = new TimeWindow(nextWindowStart, nextWindowStart + windowSize);
+			watermarkTimers.add(nextWindow.maxTimestamp(), key, nextWindow);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Getters for testing
+	// ------------------------------------------------------------------------
+
+	@VisibleForTesting
+	public long getPaneSize() {
+		return paneSize;
+	}
+}
@@ -188,41 +188,34 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window> extends Window
 
 	@Override
 	public void processWatermark(Watermark mark) throws Exception {
-		boolean fire;
-		do {
-			Timer<K, W> timer = watermarkTimersQueue.peek();
-			if (timer != null && timer.timestamp <= mark.getTimestamp()) {
-				fire = true;
-
-				watermarkTimers.remove(timer);
-				watermarkTimersQueue.remove();
-
-				context.key = timer.key;
-				context.window = timer.window;
-				setKeyContext(timer.key);
-
-				ListState<StreamRecord<IN>> windowState;
-				MergingWindowSet<W> mergingWindows = null;
-
-				if (windowAssigner instanceof MergingWindowAssigner) {
-					mergingWindows = getMergingWindowSet();
-					W stateWindow = mergingWindows.getStateWindow(context.window);
-					windowState = getPartitionedState(stateWindow, windowSerializer, windowStateDescriptor);
-				} else {
-					windowState = getPartitionedState(context.window, windowSerializer, windowStateDescriptor);
-				}
-
-				TriggerResult triggerResult = context.onEventTime(timer.timestamp);
-				fireOrContinue(triggerResult, context.window, windowState);
+		while (!watermarkTimers.isEmpty() && watermarkTimers.getHeadTimestamp() <= mark.getTimestamp()) {
+			long timestamp = watermarkTimers.getHeadTimestamp();
+			K key = watermarkTimers.getHeadKey();
+			W window = watermarkTimers.getHeadNamespace();
+			watermarkTimers.poll();
+
+			context.key = key;
+			context.window = window;
+			setKeyContext(key);
+
+			ListState<StreamRecord<IN>> windowState;
+			MergingWindowSet<W> mergingWindows = null;
+
+			if (windowAssigner instanceof MergingWindowAssigner) {
+				mergingWindows = getMergingWindowSet();
+				W stateWindow = mergingWindows.getStateWindow(context.window);
+				windowState = getPartitionedState(stateWindow, windowSerializer, windowStateDescriptor);
+			} else {
+				windowState = getPartitionedState(context.window, windowSerializer, windowStateDescriptor);
+			}
 
-				if (triggerResult.isPurge() || (windowAssigner.isEventTime() && isCleanupTime(timer.window, timer.timestamp))) {
-					cleanup(timer.window, windowState, mergingWindows);
-				}
+			TriggerResult triggerResult = context.onEventTime(timestamp);
+			fireOrContinue(triggerResult, context.window, windowState);
 
-			} else {
-				fire = false;
+			if (triggerResult.isPurge() || (windowAssigner.isEventTime() && isCleanupTime(window, timestamp))) {
+				cleanup(window, windowState, mergingWindows);
 			}
-		} while (fire);
+		}
 
 		output.emitWatermark(mark);
 
@@ -231,46 +224,38 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window> extends Window
 
 	@Override
 	public void trigger(long time) throws Exception {
-		boolean fire;
-
-		//Remove information about the triggering task
-		processingTimeTimerFutures.remove(time);
-		processingTimeTimerTimestamps.remove(time, processingTimeTimerTimestamps.count(time));
-
-		do {
-			Timer<K, W> timer = processingTimeTimersQueue.peek();
-			if (timer != null && timer.timestamp <= time) {
-				fire = true;
+		onProcessingTimeTrigger(time);
 
-				processingTimeTimers.remove(timer);
-				processingTimeTimersQueue.remove();
+		while (!processingTimeTimers.isEmpty() && processingTimeTimers.getHeadTimestamp() <= time) {
+			long timestamp = processingTimeTimers.getHeadTimestamp();
+			K key = processingTimeTimers.getHeadKey();
+			W window = processingTimeTimers.getHeadNamespace();
+			processingTimeTimers.poll();
 
-				context.key = timer.key;
-				context.window = timer.window;
-				setKeyContext(timer.key);
+			context.key = key;
+			context.window = window;
+			setKeyContext(key);
 
-				ListState<StreamRecord<IN>> windowState;
-				MergingWindowSet<W> mergingWindows = null;
+			ListState<StreamRecord<IN>> windowState;
+			MergingWindowSet<W> mergingWindows = null;
 
-				if (windowAssigner instanceof MergingWindowAssigner) {
-					mergingWindows = getMergingWindowSet();
-					W stateWindow = mergingWindows.getStateWindow(context.window);
-					windowState = getPartitionedState(stateWindow, windowSerializer, windowStateDescriptor);
-				} else {
-					windowState = getPartitionedState(context.window, windowSerializer, windowStateDescriptor);
-				}
+			if (windowAssigner instanceof MergingWindowAssigner) {
+				mergingWindows = getMergingWindowSet();
+				W stateWindow = mergingWindows.getStateWindow(context.window);
+				windowState = getPartitionedState(stateWindow, windowSerializer, windowStateDescriptor);
+			} else {
+				windowState = getPartitionedState(context.window, windowSerializer, windowStateDescriptor);
+			}
 
-				TriggerResult triggerResult = context.onProcessingTime(timer.timestamp);
-				fireOrContinue(triggerResult, context.window, windowState);
+			TriggerResult triggerResult = context.onProcessingTime(timestamp);
+			fireOrContinue(triggerResult, context.window, windowState);
 
-				if (triggerResult.isPurge() || (!windowAssigner.isEventTime() && isCleanupTime(timer.window, timer.timestamp))) {
-					cleanup(timer.window, windowState, mergingWindows);
-				}
-
-			} else {
-				fire = false;
+			if (triggerResult.isPurge() || (!windowAssigner.isEventTime() && isCleanupTime(window, timestamp))) {
+				cleanup(window, windowState, mergingWindows);
 			}
-		} while (fire);
+		}
+
+		scheduleNextProcessingTimeTrigger();
 	}
 
 	private void fireOrContinue(TriggerResult triggerResult,
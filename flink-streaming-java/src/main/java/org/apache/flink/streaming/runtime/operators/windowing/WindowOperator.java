@@ -19,8 +19,6 @@
 package org.apache.flink.streaming.runtime.operators.windowing;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.state.AppendingState;
@@ -55,6 +53,7 @@ import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
 import org.apache.flink.streaming.api.windowing.triggers.Trigger;
 import org.apache.flink.streaming.api.windowing.triggers.TriggerResult;
 import org.apache.flink.streaming.api.windowing.windows.Window;
+import org.apache.flink.streaming.runtime.operators.InternalTimerQueue;
 import org.apache.flink.streaming.runtime.operators.Triggerable;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalWindowFunction;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
@@ -66,10 +65,7 @@ import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 
 import static java.util.Objects.requireNonNull;
@@ -91,6 +87,11 @@ import static java.util.Objects.requireNonNull;
  * the given {@link InternalWindowFunction} is invoked to produce the results that are emitted for
  * the pane to which the {@code Trigger} belongs.
  *
+ * <p>
+ * The contents of the panes are kept in key/value state, but the registered timers are
+ * checkpointed as non-keyed operator state. A job with a window operator can therefore not be
+ * restored with a different parallelism, even though its key/value state is split by key group.
+ *
  * @param <K> The type of key returned by the {@code KeySelector}.
  * @param <IN> The type of the incoming elements.
  * @param <OUT> The type of elements emitted by the {@code InternalWindowFunction}.
@@ -103,6 +104,12 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Written in front of the timers of a snapshot. Snapshots of earlier versions start with
+	 * the number of event time timers instead, which is never negative.
+	 */
+	private static final int TIMERS_SNAPSHOT_VERSION = -2;
+
 	// ------------------------------------------------------------------------
 	// Configuration values and user functions
 	// ------------------------------------------------------------------------
@@ -150,7 +157,14 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 	 */
 	protected transient TimestampedCollector<OUT> timestampedCollector;
 
-	protected transient Map<Long, ScheduledFuture<?>> processingTimeTimerFutures;
+	/**
+	 * The time for which the trigger task of the processing time timers is currently scheduled,
+	 * {@link Long#MAX_VALUE} if none is scheduled. Only the earliest processing time timer
+	 * has a trigger task; when it fires, the task for the next timer is scheduled.
+	 */
+	protected transient long nextProcessingTimeTrigger = Long.MAX_VALUE;
+
+	protected transient ScheduledFuture<?> nextProcessingTimeTriggerFuture;
 
 	/**
 	 * To keep track of the current watermark so that we can immediately fire if a trigger
@@ -169,15 +183,12 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 	/**
 	 * Processing time timers that are currently in-flight.
 	 */
-	protected transient PriorityQueue<Timer<K, W>> processingTimeTimersQueue;
-	protected transient Set<Timer<K, W>> processingTimeTimers;
-	protected transient Multiset<Long> processingTimeTimerTimestamps;
+	protected transient InternalTimerQueue<K, W> processingTimeTimers;
 
 	/**
 	 * Current waiting watermark callbacks.
 	 */
-	protected transient Set<Timer<K, W>> watermarkTimers;
-	protected transient PriorityQueue<Timer<K, W>> watermarkTimersQueue;
+	protected transient InternalTimerQueue<K, W> watermarkTimers;
 
 	protected transient Map<K, MergingWindowSet<W>> mergingWindowsByKey;
 
@@ -233,17 +244,16 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 
 		// these could already be initialized from restoreState()
 		if (watermarkTimers == null) {
-			watermarkTimers = new HashSet<>();
-			watermarkTimersQueue = new PriorityQueue<>(100);
+			watermarkTimers = new InternalTimerQueue<>(100);
 		}
 		if (processingTimeTimers == null) {
-			processingTimeTimers = new HashSet<>();
-			processingTimeTimerTimestamps = HashMultiset.create();
-			processingTimeTimersQueue = new PriorityQueue<>(100);
+			processingTimeTimers = new InternalTimerQueue<>(100);
 		}
 
-		//ScheduledFutures are not checkpointed
-		processingTimeTimerFutures = new HashMap<>();
+		// the trigger task is not checkpointed, re-schedule it for restored timers
+		nextProcessingTimeTrigger = Long.MAX_VALUE;
+		nextProcessingTimeTriggerFuture = null;
+		scheduleNextProcessingTimeTrigger();
 
 		context = new Context(null, null);
 
@@ -266,9 +276,8 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 		super.close();
 		timestampedCollector = null;
 		watermarkTimers = null;
-		watermarkTimersQueue = null;
 		processingTimeTimers = null;
-		processingTimeTimersQueue = null;
+		nextProcessingTimeTriggerFuture = null;
 		context = null;
 		windowAssignerContext = null;
 		mergingWindowsByKey = null;
@@ -279,9 +288,8 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 		super.dispose();
 		timestampedCollector = null;
 		watermarkTimers = null;
-		watermarkTimersQueue = null;
 		processingTimeTimers = null;
-		processingTimeTimersQueue = null;
+		nextProcessingTimeTriggerFuture = null;
 		context = null;
 		windowAssignerContext = null;
 		mergingWindowsByKey = null;
@@ -389,41 +397,34 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 
 	@Override
 	public void processWatermark(Watermark mark) throws Exception {
-		boolean fire;
-		do {
-			Timer<K, W> timer = watermarkTimersQueue.peek();
-			if (timer != null && timer.timestamp <= mark.getTimestamp()) {
-				fire = true;
-
-				watermarkTimers.remove(timer);
-				watermarkTimersQueue.remove();
-
-				context.key = timer.key;
-				context.window = timer.window;
-				setKeyContext(timer.key);
-
-				AppendingState<IN, ACC> windowState;
-				MergingWindowSet<W> mergingWindows = null;
-
-				if (windowAssigner instanceof MergingWindowAssigner) {
-					mergingWindows = getMergingWindowSet();
-					W stateWindow = mergingWindows.getStateWindow(context.window);
-					windowState = getPartitionedState(stateWindow, windowSerializer, windowStateDescriptor);
-				} else {
-					windowState = getPartitionedState(context.window, windowSerializer, windowStateDescriptor);
-				}
-
-				TriggerResult triggerResult = context.onEventTime(timer.timestamp);
-				fireOrContinue(triggerResult, context.window, windowState);
+		while (!watermarkTimers.isEmpty() && watermarkTimers.getHeadTimestamp() <= mark.getTimestamp()) {
+			long timestamp = watermarkTimers.getHeadTimestamp();
+			K key = watermarkTimers.getHeadKey();
+			W window = watermarkTimers.getHeadNamespace();
+			watermarkTimers.poll();
+
+			context.key = key;
+			context.window = window;
+			setKeyContext(key);
+
+			AppendingState<IN, ACC> windowState;
+			MergingWindowSet<W> mergingWindows = null;
+
+			if (windowAssigner instanceof MergingWindowAssigner) {
+				mergingWindows = getMergingWindowSet();
+				W stateWindow = mergingWindows.getStateWindow(context.window);
+				windowState = getPartitionedState(stateWindow, windowSerializer, windowStateDescriptor);
+			} else {
+				windowState = getPartitionedState(context.window, windowSerializer, windowStateDescriptor);
+			}
 
-				if (triggerResult.isPurge() || (windowAssigner.isEventTime() && isCleanupTime(timer.window, timer.timestamp))) {
-					cleanup(timer.window, windowState, mergingWindows);
-				}
+			TriggerResult triggerResult = context.onEventTime(timestamp);
+			fireOrContinue(triggerResult, context.window, windowState);
 
-			} else {
-				fire = false;
+			if (triggerResult.isPurge() || (windowAssigner.isEventTime() && isCleanupTime(window, timestamp))) {
+				cleanup(window, windowState, mergingWindows);
 			}
-		} while (fire);
+		}
 
 		output.emitWatermark(mark);
 
@@ -432,46 +433,65 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 
 	@Override
 	public void trigger(long time) throws Exception {
-		boolean fire;
+		onProcessingTimeTrigger(time);
 
-		//Remove information about the triggering task
-		processingTimeTimerFutures.remove(time);
-		processingTimeTimerTimestamps.remove(time, processingTimeTimerTimestamps.count(time));
+		while (!processingTimeTimers.isEmpty() && processingTimeTimers.getHeadTimestamp() <= time) {
+			long timestamp = processingTimeTimers.getHeadTimestamp();
+			K key = processingTimeTimers.getHeadKey();
+			W window = processingTimeTimers.getHeadNamespace();
+			processingTimeTimers.poll();
 
-		do {
-			Timer<K, W> timer = processingTimeTimersQueue.peek();
-			if (timer != null && timer.timestamp <= time) {
-				fire = true;
+			context.key = key;
+			context.window = window;
+			setKeyContext(key);
 
-				processingTimeTimers.remove(timer);
-				processingTimeTimersQueue.remove();
+			AppendingState<IN, ACC> windowState;
+			MergingWindowSet<W> mergingWindows = null;
 
-				context.key = timer.key;
-				context.window = timer.window;
-				setKeyContext(timer.key);
+			if (windowAssigner instanceof MergingWindowAssigner) {
+				mergingWindows = getMergingWindowSet();
+				W stateWindow = mergingWindows.getStateWindow(context.window);
+				windowState = getPartitionedState(stateWindow, windowSerializer, windowStateDescriptor);
+			} else {
+				windowState = getPartitionedState(context.window, windowSerializer, windowStateDescriptor);
+			}
 
-				AppendingState<IN, ACC> windowState;
-				MergingWindowSet<W> mergingWindows = null;
+			TriggerResult triggerResult = context.onProcessingTime(timestamp);
+			fireOrContinue(triggerResult, context.window, windowState);
 
-				if (windowAssigner instanceof MergingWindowAssigner) {
-					mergingWindows = getMergingWindowSet();
-					W stateWindow = mergingWindows.getStateWindow(context.window);
-					windowState = getPartitionedState(stateWindow, windowSerializer, windowStateDescriptor);
-				} else {
-					windowState = getPartitionedState(context.window, windowSerializer, windowStateDescriptor);
-				}
+			if (triggerResult.isPurge() || (!windowAssigner.isEventTime() && isCleanupTime(window, timestamp))) {
+				cleanup(window, windowState, mergingWindows);
+			}
+		}
 
-				TriggerResult triggerResult = context.onProcessingTime(timer.timestamp);
-				fireOrContinue(triggerResult, context.window, windowState);
+		scheduleNextProcessingTimeTrigger();
+	}
 
-				if (triggerResult.isPurge() || (!windowAssigner.isEventTime() && isCleanupTime(timer.window, timer.timestamp))) {
-					cleanup(timer.window, windowState, mergingWindows);
-				}
+	/**
+	 * Must be called when the trigger task for the given time fires, before the processing time
+	 * timers are evaluated.
+	 */
+	protected void onProcessingTimeTrigger(long time) {
+		if (time >= nextProcessingTimeTrigger) {
+			nextProcessingTimeTrigger = Long.MAX_VALUE;
+			nextProcessingTimeTriggerFuture = null;
+		}
+	}
 
-			} else {
-				fire = false;
+	/**
+	 * Schedules the trigger task for the earliest processing time timer, unless a task is
+	 * already scheduled for that time or earlier. A trigger task that fires without a due
+	 * timer (because the timer was deleted in the meantime) does nothing.
+	 */
+	protected void scheduleNextProcessingTimeTrigger() {
+		long nextTimer = processingTimeTimers.getHeadTimestamp();
+		if (nextTimer < nextProcessingTimeTrigger) {
+			if (nextProcessingTimeTriggerFuture != null) {
+				nextProcessingTimeTriggerFuture.cancel(false);
 			}
-		} while (fire);
+			nextProcessingTimeTrigger = nextTimer;
+			nextProcessingTimeTriggerFuture = registerTimer(nextTimer, this);
+		}
 	}
 
 	/**
@@ -685,49 +705,26 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 
 		@Override
 		public void registerProcessingTimeTimer(long time) {
-			Timer<K, W> timer = new Timer<>(time, key, window);
-			// make sure we only put one timer per key into the queue
-			if (processingTimeTimers.add(timer)) {
-				processingTimeTimersQueue.add(timer);
-				//If this is the first timer added for this timestamp register a TriggerTask
-				if (processingTimeTimerTimestamps.add(time, 1) == 0) {
-					ScheduledFuture<?> scheduledFuture = WindowOperator.this.registerTimer(time, WindowOperator.this);
-					processingTimeTimerFutures.put(time, scheduledFuture);
-				}
+			// the queue makes sure we only have one timer per key and window
+			if (processingTimeTimers.add(time, key, window)) {
+				scheduleNextProcessingTimeTrigger();
 			}
 		}
 
 		@Override
 		public void registerEventTimeTimer(long time) {
-			Timer<K, W> timer = new Timer<>(time, key, window);
-			if (watermarkTimers.add(timer)) {
-				watermarkTimersQueue.add(timer);
-			}
+			watermarkTimers.add(time, key, window);
 		}
 
 		@Override
 		public void deleteProcessingTimeTimer(long time) {
-			Timer<K, W> timer = new Timer<>(time, key, window);
-
-			if (processingTimeTimers.remove(timer)) {
-				processingTimeTimersQueue.remove(timer);
-			}
-
-			//If there are no timers left for this timestamp, remove it from queue and cancel TriggerTask
-			if (processingTimeTimerTimestamps.remove(time,1) == 1) {
-				ScheduledFuture<?> triggerTaskFuture = processingTimeTimerFutures.remove(timer.timestamp);
-				if (triggerTaskFuture != null && !triggerTaskFuture.isDone()) {
-					triggerTaskFuture.cancel(false);
-				}
-			}
+			// the trigger task is left scheduled, if it fires without a due timer it does nothing
+			processingTimeTimers.remove(time, key, window);
 		}
 
 		@Override
 		public void deleteEventTimeTimer(long time) {
-			Timer<K, W> timer = new Timer<>(time, key, window);
-			if (watermarkTimers.remove(timer)) {
-				watermarkTimersQueue.remove(timer);
-			}
+			watermarkTimers.remove(time, key, window);
 		}
 
 		public TriggerResult onElement(StreamRecord<IN> element) throws Exception {
@@ -760,60 +757,6 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 		}
 	}
 
-	/**
-	 * Internal class for keeping track of in-flight timers.
-	 */
-	protected static class Timer<K, W extends Window> implements Comparable<Timer<K, W>> {
-		protected long timestamp;
-		protected K key;
-		protected W window;
-
-		public Timer(long timestamp, K key, W window) {
-			this.timestamp = timestamp;
-			this.key = key;
-			this.window = window;
-		}
-
-		@Override
-		public int compareTo(Timer<K, W> o) {
-			return Long.compare(this.timestamp, o.timestamp);
-		}
-
-		@Override
-		public boolean equals(Object o) {
-			if (this == o) {
-				return true;
-			}
-			if (o == null || getClass() != o.getClass()){
-				return false;
-			}
-
-			Timer<?, ?> timer = (Timer<?, ?>) o;
-
-			return timestamp == timer.timestamp
-				&& key.equals(timer.key)
-				&& window.equals(timer.window);
-
-		}
-
-		@Override
-		public int hashCode() {
-			int result = (int) (timestamp ^ (timestamp >>> 32));
-			result = 31 * result + key.hashCode();
-			result = 31 * result + window.hashCode();
-			return result;
-		}
-
-		@Override
-		public String toString() {
-			return "Timer{" +
-				"timestamp=" + timestamp +
-				", key=" + key +
-				", window=" + window +
-				'}';
-		}
-	}
-
 	// ------------------------------------------------------------------------
 	//  Checkpointing
 	// ------------------------------------------------------------------------
@@ -858,60 +801,51 @@ public class WindowOperator<K, IN, ACC, OUT, W extends Window>
 		restoreTimers(in);
 	}
 
-	private void restoreTimers(DataInputView in ) throws IOException {
-		int numWatermarkTimers = in.readInt();
-		watermarkTimers = new HashSet<>(numWatermarkTimers);
-		watermarkTimersQueue = new PriorityQueue<>(Math.max(numWatermarkTimers, 1));
+	private void restoreTimers(DataInputView in) throws IOException {
+		watermarkTimers = new InternalTimerQueue<>(0);
+		processingTimeTimers = new InternalTimerQueue<>(0);
+
+		int version = in.readInt();
+		if (version == TIMERS_SNAPSHOT_VERSION) {
+			watermarkTimers.read(in, keySerializer, windowSerializer);
+			processingTimeTimers.read(in, keySerializer, windowSerializer);
+		} else if (version >= 0) {
+			restoreLegacyTimers(in, version);
+		} else {
+			throw new IOException("Unknown version " + version + " of the window timers snapshot.");
+		}
+	}
+
+	/**
+	 * Restores the timers of a snapshot of an earlier version, which writes the timers one by
+	 * one, followed by the number of processing time timers per timestamp.
+	 */
+	private void restoreLegacyTimers(DataInputView in, int numWatermarkTimers) throws IOException {
 		for (int i = 0; i < numWatermarkTimers; i++) {
 			K key = keySerializer.deserialize(in);
 			W window = windowSerializer.deserialize(in);
-			long timestamp = in.readLong();
-			Timer<K, W> timer = new Timer<>(timestamp, key, window);
-			watermarkTimers.add(timer);
-			watermarkTimersQueue.add(timer);
+			watermarkTimers.add(in.readLong(), key, window);
 		}
 
 		int numProcessingTimeTimers = in.readInt();
-		processingTimeTimersQueue = new PriorityQueue<>(Math.max(numProcessingTimeTimers, 1));
-		processingTimeTimers = new HashSet<>();
 		for (int i = 0; i < numProcessingTimeTimers; i++) {
 			K key = keySerializer.deserialize(in);
 			W window = windowSerializer.deserialize(in);
-			long timestamp = in.readLong();
-			Timer<K, W> timer = new Timer<>(timestamp, key, window);
-			processingTimeTimersQueue.add(timer);
-			processingTimeTimers.add(timer);
+			processingTimeTimers.add(in.readLong(), key, window);
 		}
 
-		int numProcessingTimeTimerTimestamp = in.readInt();
-		processingTimeTimerTimestamps = HashMultiset.create();
-		for (int i = 0; i< numProcessingTimeTimerTimestamp; i++) {
-			long timestamp = in.readLong();
-			int count = in.readInt();
-			processingTimeTimerTimestamps.add(timestamp, count);
+		// the trigger tasks are scheduled from the restored timers
+		int numProcessingTimeTimerTimestamps = in.readInt();
+		for (int i = 0; i < numProcessingTimeTimerTimestamps; i++) {
+			in.readLong();
+			in.readInt();
 		}
 	}
 
 	private void snapshotTimers(DataOutputView out) throws IOException {
-		out.writeInt(watermarkTimersQueue.size());
-		for (Timer<K, W> timer : watermarkTimersQueue) {
-			keySerializer.serialize(timer.key, out);
-			windowSerializer.serialize(timer.window, out);
-			out.writeLong(timer.timestamp);
-		}
-
-		out.writeInt(processingTimeTimers.size());
-		for (Timer<K,W> timer : processingTimeTimers) {
-			keySerializer.serialize(timer.key, out);
-			windowSerializer.serialize(timer.window, out);
-			out.writeLong(timer.timestamp);
-		}
-
-		out.writeInt(processingTimeTimerTimestamps.entrySet().size());
-		for (Multiset.Entry<Long> timerTimestampCounts: processingTimeTimerTimestamps.entrySet()) {
-			out.writeLong(timerTimestampCounts.getElement());
-			out.writeInt(timerTimestampCounts.getCount());
-		}
+		out.writeInt(TIMERS_SNAPSHOT_VERSION);
+		watermarkTimers.write(out, keySerializer, windowSerializer);
+		processingTimeTimers.write(out, keySerializer, windowSerializer);
 	}
 
 	// ------------------------------------------------------------------------
@@ -20,12 +20,13 @@ package org.apache.flink.streaming.runtime.partitioner;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
-import org.apache.flink.util.MathUtils;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 /**
  * Partitioner selects the target channel based on the hash value of a key from a
- * {@link KeySelector}.
+ * {@link KeySelector}. The key is assigned to a key group, and the key group to the
+ * channel whose parallel instance holds the state of that key group.
  *
  * @param <T> Type of the elements in the Stream being partitioned
  */
@@ -36,6 +37,8 @@ public class HashPartitioner<T> extends StreamPartitioner<T> {
 	private int[] returnArray = new int[1];
 	KeySelector<T, ?> keySelector;
 
+	private int numberOfKeyGroups = KeyGroupRangeAssignment.DEFAULT_MAX_PARALLELISM;
+
 	public HashPartitioner(KeySelector<T, ?> keySelector) {
 		this.keySelector = keySelector;
 	}
@@ -49,11 +52,25 @@ public class HashPartitioner<T> extends StreamPartitioner<T> {
 		} catch (Exception e) {
 			throw new RuntimeException("Could not extract key from " + record.getInstance().getValue(), e);
 		}
-		returnArray[0] = MathUtils.murmurHash(key.hashCode()) % numberOfOutputChannels;
+		int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(key, numberOfKeyGroups);
+		returnArray[0] = KeyGroupRangeAssignment.computeOperatorIndexForKeyGroup(
+			numberOfKeyGroups, numberOfOutputChannels, keyGroup);
 
 		return returnArray;
 	}
 
+	/**
+	 * Sets the number of key groups that the keys are assigned to. This must be the number
+	 * of key groups of the job, which is given by its maximum parallelism.
+	 */
+	public void setNumberOfKeyGroups(int numberOfKeyGroups) {
+		this.numberOfKeyGroups = numberOfKeyGroups;
+	}
+
+	public int getNumberOfKeyGroups() {
+		return numberOfKeyGroups;
+	}
+
 	@Override
 	public StreamPartitioner<T> copy() {
 		return this;
@@ -29,9 +29,9 @@ import java.io.IOException;
 import static java.util.Objects.requireNonNull;
 
 /**
- * Serializer for {@link StreamRecord} and {@link Watermark}. This does not behave like a normal
- * {@link TypeSerializer}, instead, this is only used at the stream task/operator level for
- * transmitting StreamRecords and Watermarks.
+ * Serializer for {@link StreamRecord}, {@link Watermark} and {@link LatencyMarker}. This does not
+ * behave like a normal {@link TypeSerializer}, instead, this is only used at the stream
+ * task/operator level for transmitting StreamRecords, Watermarks and LatencyMarkers.
  *
  * @param <T> The type of value in the StreamRecord
  */
@@ -43,6 +43,7 @@ public final class MultiplexingStreamRecordSerializer<T> extends TypeSerializer<
 	private static final int TAG_REC_WITH_TIMESTAMP = 0;
 	private static final int TAG_REC_WITHOUT_TIMESTAMP = 1;
 	private static final int TAG_WATERMARK = 2;
+	private static final int TAG_LATENCY_MARKER = 3;
 	
 	
 	private final TypeSerializer<T> typeSerializer;
@@ -95,7 +96,7 @@ public final class MultiplexingStreamRecordSerializer<T> extends TypeSerializer<
 			StreamRecord<T> fromRecord = from.asRecord();
 			return fromRecord.copy(typeSerializer.copy(fromRecord.getValue()));
 		}
-		else if (from.isWatermark()) {
+		else if (from.isWatermark() || from.isLatencyMarker()) {
 			// is immutable
 			return from;
 		}
@@ -114,7 +115,7 @@ public final class MultiplexingStreamRecordSerializer<T> extends TypeSerializer<
 			fromRecord.copyTo(valueCopy, reuseRecord);
 			return reuse;
 		}
-		else if (from.isWatermark()) {
+		else if (from.isWatermark() || from.isLatencyMarker()) {
 			// is immutable
 			return from;
 		}
@@ -139,6 +140,11 @@ public final class MultiplexingStreamRecordSerializer<T> extends TypeSerializer<
 		else if (tag == TAG_WATERMARK) {
 			target.writeLong(source.readLong());
 		}
+		else if (tag == TAG_LATENCY_MARKER) {
+			target.writeLong(source.readLong());
+			target.writeInt(source.readInt());
+			target.writeInt(source.readInt());
+		}
 		else {
 			throw new IOException("Corrupt stream, found tag: " + tag);
 		}
@@ -161,6 +167,13 @@ public final class MultiplexingStreamRecordSerializer<T> extends TypeSerializer<
 			target.write(TAG_WATERMARK);
 			target.writeLong(value.asWatermark().getTimestamp());
 		}
+		else if (value.isLatencyMarker()) {
+			LatencyMarker marker = value.asLatencyMarker();
+			target.write(TAG_LATENCY_MARKER);
+			target.writeLong(marker.getMarkedTime());
+			target.writeInt(marker.getVertexID());
+			target.writeInt(marker.getSubtaskIndex());
+		}
 		else {
 			throw new RuntimeException();
 		}
@@ -179,6 +192,9 @@ public final class MultiplexingStreamRecordSerializer<T> extends TypeSerializer<
 		else if (tag == TAG_WATERMARK) {
 			return new Watermark(source.readLong());
 		}
+		else if (tag == TAG_LATENCY_MARKER) {
+			return new LatencyMarker(source.readLong(), source.readInt(), source.readInt());
+		}
 		else {
 			throw new IOException("Corrupt stream, found tag: " + tag);
 		}
@@ -203,6 +219,9 @@ public final class MultiplexingStreamRecordSerializer<T> extends TypeSerializer<
 		else if (tag == TAG_WATERMARK) {
 			return new Watermark(source.readLong());
 		}
+		else if (tag == TAG_LATENCY_MARKER) {
+			return new LatencyMarker(source.readLong(), source.readInt(), source.readInt());
+		}
 		else {
 			throw new IOException("Corrupt stream, found tag: " + tag);
 		}
@@ -22,7 +22,7 @@ import org.apache.flink.annotation.Internal;
 import org.apache.flink.streaming.api.watermark.Watermark;
 
 /**
- * An element in a data stream. Can be a record or a Watermark.
+ * An element in a data stream. Can be a record, a Watermark, or a LatencyMarker.
  */
 @Internal
 public abstract class StreamElement {
@@ -43,6 +43,14 @@ public abstract class StreamElement {
 		return getClass() == StreamRecord.class;
 	}
 
+	/**
+	 * Checks whether this element is a latency marker.
+	 * @return True, if this element is a latency marker, false otherwise.
+	 */
+	public final boolean isLatencyMarker() {
+		return getClass() == LatencyMarker.class;
+	}
+
 	/**
 	 * Casts this element into a StreamRecord.
 	 * @return This element as a stream record.
@@ -61,4 +69,13 @@ public abstract class StreamElement {
 	public final Watermark asWatermark() {
 		return (Watermark) this;
 	}
+
+	/**
+	 * Casts this element into a LatencyMarker.
+	 * @return This element as a LatencyMarker.
+	 * @throws java.lang.ClassCastException Thrown, if this element is actually not a LatencyMarker.
+	 */
+	public final LatencyMarker asLatencyMarker() {
+		return (LatencyMarker) this;
+	}
 }
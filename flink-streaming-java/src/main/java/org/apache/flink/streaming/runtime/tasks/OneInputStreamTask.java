@@ -29,8 +29,13 @@ import org.apache.flink.streaming.runtime.io.StreamInputProcessor;
 @Internal
 public class OneInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputStreamOperator<IN, OUT>> {
 
+	/** The maximum number of records that are processed before the mailbox is checked again */
+	private static final int MAX_BATCH_SIZE = 128;
+
 	private StreamInputProcessor<IN> inputProcessor;
 	
+	private StreamTaskMailbox mailbox;
+
 	private volatile boolean running = true;
 
 	@Override
@@ -42,17 +47,22 @@ public class OneInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputStreamO
 
 		if (numberOfInputs > 0) {
 			InputGate[] inputGates = getEnvironment().getAllInputGates();
+			configureLocalObjectHandOver(inputGates);
+
 			inputProcessor = new StreamInputProcessor<IN>(inputGates, inSerializer,
 					getCheckpointBarrierListener(), 
 					configuration.getCheckpointMode(),
 					getEnvironment().getIOManager(),
-					isSerializingTimestamps());
+					isMultiplexingStreamElements());
 
 			// make sure that stream tasks report their I/O statistics
 			AccumulatorRegistry registry = getEnvironment().getAccumulatorRegistry();
 			AccumulatorRegistry.Reporter reporter = registry.getReadWriteReporter();
 			inputProcessor.setReporter(reporter);
 			inputProcessor.setMetricGroup(getEnvironment().getMetricGroup().getIOMetricGroup());
+
+			mailbox = createMailbox();
+			inputProcessor.registerInputAvailabilityListener(mailbox);
 		}
 	}
 
@@ -61,11 +71,24 @@ public class OneInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputStreamO
 		// cache some references on the stack, to make the code more JIT friendly
 		final OneInputStreamOperator<IN, OUT> operator = this.headOperator;
 		final StreamInputProcessor<IN> inputProcessor = this.inputProcessor;
+		final StreamTaskMailbox mailbox = this.mailbox;
 		final Object lock = getCheckpointLock();
-		
-		while (running && inputProcessor.processInput(operator, lock)) {
+
+		while (running) {
+			mailbox.runMails();
 			checkTimerException();
+
+			if (!inputProcessor.processInputBatch(operator, lock, MAX_BATCH_SIZE)) {
+				if (inputProcessor.isFinished()) {
+					break;
+				}
+				mailbox.awaitMailOrInput();
+			}
 		}
+
+		// run the timers and notifications that came in until the end of the input
+		mailbox.runMails();
+		checkTimerException();
 	}
 
 	@Override
@@ -26,6 +26,7 @@ import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.operators.Output;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.io.BlockingQueueBroker;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -95,6 +96,10 @@ public class StreamIterationTail<IN> extends OneInputStreamTask<IN, IN> {
 		public void emitWatermark(Watermark mark) {
 		}
 
+		@Override
+		public void emitLatencyMarker(LatencyMarker latencyMarker) {
+		}
+
 		@Override
 		public void collect(StreamRecord<IN> record) {
 			try {
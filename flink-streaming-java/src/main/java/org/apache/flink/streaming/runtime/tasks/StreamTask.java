@@ -26,6 +26,8 @@ import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
 import org.apache.flink.runtime.state.AbstractStateBackend;
@@ -33,6 +35,7 @@ import org.apache.flink.runtime.state.AsynchronousKvStateSnapshot;
 import org.apache.flink.runtime.state.AsynchronousStateHandle;
 import org.apache.flink.runtime.state.KvStateSnapshot;
 import org.apache.flink.runtime.state.StateBackendFactory;
+import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.runtime.state.filesystem.FsStateBackend;
 import org.apache.flink.runtime.state.filesystem.FsStateBackendFactory;
 import org.apache.flink.runtime.state.memory.MemoryStateBackend;
@@ -52,8 +55,11 @@ import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 
@@ -92,6 +98,12 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
  * <p> The {@code StreamTask} has a lock object called {@code lock}. All calls to methods on a
  * {@code StreamOperator} must be synchronized on this lock object to ensure that no methods
  * are called concurrently.
+ *
+ * <p> Tasks with network inputs use a {@link StreamTaskMailbox} in addition: timers and
+ * checkpoint notifications are put into the mailbox and run by the task thread between batches
+ * of records. The lock is then only acquired once per batch and is not contended with the
+ * timer thread. Source tasks keep running timers under the lock, because the source functions
+ * emit records from their own thread.
  * 
  * @param <OUT>
  * @param <Operator>
@@ -134,12 +146,29 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 	 */
 	private TimeServiceProvider timerService;
 
+	/** The mailbox through which timers and checkpoint notifications are handed to the task
+	 * thread, or null, if they are run by other threads under the checkpoint lock */
+	private volatile StreamTaskMailbox mailbox;
+
+	/** The thread that runs submitted actions under the checkpoint lock if the task has no
+	 * mailbox. Created on the first submitted action. */
+	private ExecutorService actionExecutor;
+
+	/** Guards the creation and shutdown of the action executor */
+	private final Object actionExecutorLock = new Object();
+
+	/** Flag indicating that the task has shut down and drops further submitted actions */
+	private boolean actionExecutorShutdown;
+
 	/** The map of user-defined accumulators of this task */
 	private Map<String, Accumulator<?, ?>> accumulatorMap;
 	
 	/** The state to be restored once the initialization is done */
 	private StreamTaskStateList lazyRestoreState;
 
+	/** The state of the key groups to be restored once the initialization is done */
+	private Map<Integer, StateHandle<?>> lazyRestoreKeyGroupStates;
+
 	/**
 	 * This field is used to forward an exception that is caught in the timer thread or other
 	 * asynchronous Threads. Subclasses must ensure that exceptions stored here get thrown on the
@@ -194,6 +223,15 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 		return timerService.getCurrentProcessingTime();
 	}
 
+	/**
+	 * Returns the time service of this task. Timers registered directly with the service run in
+	 * the timer thread, without synchronization with the operators of the task; use
+	 * {@link #registerTimer(long, Triggerable)} for timers that call into operators.
+	 */
+	public TimeServiceProvider getTimerService() {
+		return timerService;
+	}
+
 	@Override
 	public final void invoke() throws Exception {
 
@@ -248,6 +286,7 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 			// first order of business is to give operators back their state
 			restoreState();
 			lazyRestoreState = null; // GC friendliness
+			lazyRestoreKeyGroupStates = null;
 			
 			// we need to make sure that any triggers scheduled in open() cannot be
 			// executed before all operators are opened
@@ -302,6 +341,8 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 					LOG.error("Could not shut down timer service", t);
 				}
 			}
+
+			shutdownActionExecutor();
 			
 			// stop all asynchronous checkpoint threads
 			try {
@@ -354,6 +395,12 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 		isRunning = false;
 		canceled = true;
 		cancelTask();
+
+		// wake up the task thread, in case it waits for mails or input
+		StreamTaskMailbox mailbox = this.mailbox;
+		if (mailbox != null) {
+			mailbox.wakeUp();
+		}
 	}
 
 	public final boolean isRunning() {
@@ -458,7 +505,44 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 		TimeCharacteristic tc = configuration.getTimeCharacteristic();
 		return tc == TimeCharacteristic.EventTime | tc == TimeCharacteristic.IngestionTime;
 	}
+
+	/**
+	 * Checks whether the records are exchanged together with other stream elements (watermarks
+	 * and latency markers), in which case the elements have to be tagged on the wire.
+	 */
+	protected boolean isMultiplexingStreamElements() {
+		return isSerializingTimestamps() || getExecutionConfig().isLatencyTrackingEnabled();
+	}
+
+	/**
+	 * Lets the given input gates receive records as objects from producers in the same
+	 * TaskManager, if local object hand-over is enabled in the execution config. Tasks of the
+	 * same job in one TaskManager share the user code class loader, so the objects can be
+	 * passed on as they are.
+	 */
+	protected void configureLocalObjectHandOver(InputGate... inputGates) {
+		if (getExecutionConfig().isLocalObjectHandOverEnabled()) {
+			for (InputGate inputGate : inputGates) {
+				if (inputGate instanceof SingleInputGate) {
+					((SingleInputGate) inputGate).enableObjectHandOver();
+				}
+			}
+		}
+	}
 	
+	/**
+	 * Creates the mailbox of this task. From then on, timers and checkpoint notifications are
+	 * not run by the timer and RPC threads any more, but put into the mailbox, and the task
+	 * must run them in its main loop via {@link StreamTaskMailbox#runMails()}.
+	 *
+	 * <p>This must be called during {@link #init()}, before any timers are registered.
+	 */
+	protected StreamTaskMailbox createMailbox() {
+		StreamTaskMailbox mailbox = new StreamTaskMailbox();
+		this.mailbox = mailbox;
+		return mailbox;
+	}
+
 	// ------------------------------------------------------------------------
 	//  Access to properties and utilities
 	// ------------------------------------------------------------------------
@@ -504,17 +588,30 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 		lazyRestoreState = initialState;
 		this.recoveryTimestamp = recoveryTimestamp;
 	}
+
+	@Override
+	public void setInitialKeyGroupStates(Map<Integer, StateHandle<?>> keyGroupStates, long recoveryTimestamp) {
+		lazyRestoreKeyGroupStates = keyGroupStates;
+		this.recoveryTimestamp = recoveryTimestamp;
+	}
 	
 	private void restoreState() throws Exception {
-		if (lazyRestoreState != null) {
+		if (lazyRestoreState != null || lazyRestoreKeyGroupStates != null) {
 			LOG.info("Restoring checkpointed state to task {}", getName());
 			
 			try {
 				final StreamOperator<?>[] allOperators = operatorChain.getAllOperators();
-				final StreamTaskState[] states = lazyRestoreState.getState(userClassLoader);
+				final StreamTaskState[] states = lazyRestoreState != null ?
+					lazyRestoreState.getState(userClassLoader) :
+					new StreamTaskState[allOperators.length];
+
+				if (lazyRestoreKeyGroupStates != null) {
+					addKeyGroupStates(states, lazyRestoreKeyGroupStates);
+				}
 				
 				// be GC friendly
 				lazyRestoreState = null;
+				lazyRestoreKeyGroupStates = null;
 				
 				for (int i = 0; i < states.length; i++) {
 					StreamTaskState state = states[i];
@@ -535,6 +632,28 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 		}
 	}
 
+	/**
+	 * Adds the key/value state of the given key groups to the states of the operators, creating
+	 * the operator states where they are missing.
+	 */
+	private void addKeyGroupStates(StreamTaskState[] states, Map<Integer, StateHandle<?>> keyGroupStates) throws Exception {
+		for (Map.Entry<Integer, StateHandle<?>> keyGroupState : keyGroupStates.entrySet()) {
+			StreamTaskState[] keyGroupOperatorStates = ((StreamTaskStateList) keyGroupState.getValue()).getState(userClassLoader);
+
+			for (int i = 0; i < keyGroupOperatorStates.length; i++) {
+				if (keyGroupOperatorStates[i] != null && keyGroupOperatorStates[i].getKvStates() != null) {
+					if (states[i] == null) {
+						states[i] = new StreamTaskState();
+					}
+					if (states[i].getKeyGroupStates() == null) {
+						states[i].setKeyGroupStates(new HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>>());
+					}
+					states[i].getKeyGroupStates().put(keyGroupState.getKey(), keyGroupOperatorStates[i].getKvStates());
+				}
+			}
+		}
+	}
+
 	@Override
 	public boolean triggerCheckpoint(long checkpointId, long timestamp) throws Exception {
 		try {
@@ -578,9 +697,12 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 						if (state.getFunctionState() instanceof AsynchronousStateHandle) {
 							hasAsyncStates = true;
 						}
-						if (state.getKvStates() != null) {
-							for (KvStateSnapshot<?, ?, ?, ?, ?> kvSnapshot: state.getKvStates().values()) {
-								if (kvSnapshot instanceof AsynchronousKvStateSnapshot) {
+						if (hasAsyncKvStates(state.getKvStates())) {
+							hasAsyncStates = true;
+						}
+						if (state.getKeyGroupStates() != null) {
+							for (HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroupState : state.getKeyGroupStates().values()) {
+								if (hasAsyncKvStates(keyGroupState)) {
 									hasAsyncStates = true;
 								}
 							}
@@ -596,13 +718,8 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 					throw new CancelTaskException();
 				}
 
-				StreamTaskStateList allStates = new StreamTaskStateList(states);
-
-				if (allStates.isEmpty()) {
-					getEnvironment().acknowledgeCheckpoint(checkpointId);
-				} else if (!hasAsyncStates) {
-					this.lastCheckpointSize = allStates.getStateSize();
-					getEnvironment().acknowledgeCheckpoint(checkpointId, allStates);
+				if (!hasAsyncStates) {
+					acknowledgeCheckpoint(checkpointId, states);
 				} else {
 					// start a Thread that does the asynchronous materialization and
 					// then sends the checkpoint acknowledge
@@ -622,22 +739,15 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 											AsynchronousStateHandle<?> asyncState = (AsynchronousStateHandle<?>) state.getOperatorState();
 											state.setOperatorState(asyncState.materialize());
 										}
-										if (state.getKvStates() != null) {
-											Set<String> keys = state.getKvStates().keySet();
-											HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> kvStates = state.getKvStates();
-											for (String key: keys) {
-												if (kvStates.get(key) instanceof AsynchronousKvStateSnapshot) {
-													AsynchronousKvStateSnapshot<?, ?, ?, ?, ?> asyncHandle = (AsynchronousKvStateSnapshot<?, ?, ?, ?, ?>) kvStates.get(key);
-													kvStates.put(key, asyncHandle.materialize());
-												}
+										materializeKvStates(state.getKvStates());
+										if (state.getKeyGroupStates() != null) {
+											for (HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroupState : state.getKeyGroupStates().values()) {
+												materializeKvStates(keyGroupState);
 											}
 										}
-
 									}
 								}
-								StreamTaskStateList allStates = new StreamTaskStateList(states);
-								StreamTask.this.lastCheckpointSize = allStates.getStateSize();
-								getEnvironment().acknowledgeCheckpoint(checkpointId, allStates);
+								acknowledgeCheckpoint(checkpointId, states);
 								LOG.debug("Finished asynchronous checkpoints for checkpoint {} on task {}", checkpointId, getName());
 							}
 							catch (Exception e) {
@@ -663,8 +773,116 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 		}
 	}
 	
+	/**
+	 * Acknowledges the checkpoint with the given (materialized) states of the operators. The
+	 * key-grouped state of the operators is split off into one state handle per key group, so
+	 * that the key groups can be redistributed when the parallelism changes.
+	 */
+	private void acknowledgeCheckpoint(long checkpointId, StreamTaskState[] states) throws Exception {
+		Map<Integer, StreamTaskState[]> keyGroupOperatorStates = new HashMap<>();
+
+		for (int i = 0; i < states.length; i++) {
+			StreamTaskState state = states[i];
+			if (state != null && state.getKeyGroupStates() != null) {
+				for (Map.Entry<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> keyGroupState : state.getKeyGroupStates().entrySet()) {
+					if (keyGroupState.getValue().isEmpty()) {
+						continue;
+					}
+
+					StreamTaskState[] operatorStates = keyGroupOperatorStates.get(keyGroupState.getKey());
+					if (operatorStates == null) {
+						operatorStates = new StreamTaskState[states.length];
+						keyGroupOperatorStates.put(keyGroupState.getKey(), operatorStates);
+					}
+					operatorStates[i] = new StreamTaskState();
+					operatorStates[i].setKvStates(keyGroupState.getValue());
+				}
+
+				state.setKeyGroupStates(null);
+				if (state.isEmpty()) {
+					states[i] = null;
+				}
+			}
+		}
+
+		StreamTaskStateList allStates = new StreamTaskStateList(states);
+
+		if (keyGroupOperatorStates.isEmpty()) {
+			if (allStates.isEmpty()) {
+				getEnvironment().acknowledgeCheckpoint(checkpointId);
+			} else {
+				this.lastCheckpointSize = allStates.getStateSize();
+				getEnvironment().acknowledgeCheckpoint(checkpointId, allStates);
+			}
+		} else {
+			long stateSize = allStates.getStateSize();
+			Map<Integer, StateHandle<?>> keyGroupStates = new HashMap<>(keyGroupOperatorStates.size());
+			for (Map.Entry<Integer, StreamTaskState[]> operatorStates : keyGroupOperatorStates.entrySet()) {
+				StreamTaskStateList keyGroupState = new StreamTaskStateList(operatorStates.getValue());
+				stateSize += keyGroupState.getStateSize();
+				keyGroupStates.put(operatorStates.getKey(), keyGroupState);
+			}
+
+			this.lastCheckpointSize = stateSize;
+			getEnvironment().acknowledgeCheckpoint(checkpointId, allStates.isEmpty() ? null : allStates, keyGroupStates);
+		}
+	}
+
+	private static boolean hasAsyncKvStates(HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> kvStates) {
+		if (kvStates != null) {
+			for (KvStateSnapshot<?, ?, ?, ?, ?> kvSnapshot : kvStates.values()) {
+				if (kvSnapshot instanceof AsynchronousKvStateSnapshot) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static void materializeKvStates(HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> kvStates) throws Exception {
+		if (kvStates != null) {
+			Iterator<Map.Entry<String, KvStateSnapshot<?, ?, ?, ?, ?>>> iterator = kvStates.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, KvStateSnapshot<?, ?, ?, ?, ?>> kvState = iterator.next();
+				if (kvState.getValue() instanceof AsynchronousKvStateSnapshot) {
+					AsynchronousKvStateSnapshot<?, ?, ?, ?, ?> asyncHandle = (AsynchronousKvStateSnapshot<?, ?, ?, ?, ?>) kvState.getValue();
+					KvStateSnapshot<?, ?, ?, ?, ?> materialized = asyncHandle.materialize();
+					if (materialized != null) {
+						kvState.setValue(materialized);
+					}
+					else {
+						// the snapshot of a key group without state
+						iterator.remove();
+					}
+				}
+			}
+		}
+	}
+
 	@Override
-	public void notifyCheckpointComplete(long checkpointId) throws Exception {
+	public void notifyCheckpointComplete(final long checkpointId) throws Exception {
+		StreamTaskMailbox mailbox = this.mailbox;
+		if (mailbox != null) {
+			mailbox.put(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						notifyCheckpointCompleteInternal(checkpointId);
+					}
+					catch (Exception e) {
+						if (asyncException == null) {
+							asyncException = new AsynchronousException(e);
+						}
+					}
+				}
+			});
+		}
+		else {
+			notifyCheckpointCompleteInternal(checkpointId);
+		}
+	}
+
+	private void notifyCheckpointCompleteInternal(long checkpointId) throws Exception {
 		synchronized (lock) {
 			if (isRunning) {
 				LOG.debug("Notification of complete checkpoint for task {}", getName());
@@ -745,7 +963,67 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 		if (timerService == null) {
 			throw new IllegalStateException("The timer service has not been initialized.");
 		}
-		return timerService.registerTimer(timestamp, new TriggerTask(this, lock, target, timestamp));
+		final TriggerTask triggerTask = new TriggerTask(this, lock, target, timestamp);
+		final StreamTaskMailbox mailbox = this.mailbox;
+
+		if (mailbox == null) {
+			return timerService.registerTimer(timestamp, triggerTask);
+		}
+		else {
+			// the timer thread only hands the trigger over to the task thread
+			return timerService.registerTimer(timestamp, new Runnable() {
+				@Override
+				public void run() {
+					mailbox.put(triggerTask);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Runs an action of another thread (for example, a callback of an asynchronous request)
+	 * against the operators of this task. Tasks with a mailbox hand the action over to the task
+	 * thread, other tasks run it in a dedicated action thread under the checkpoint lock.
+	 *
+	 * <p>The action is never run by the calling thread, and the calling thread never blocks on
+	 * the checkpoint lock. The task thread may hold the checkpoint lock while it waits for the
+	 * calling thread, for example for the completion of an asynchronous request.
+	 *
+	 * <p>Exceptions thrown by the action fail the task, like exceptions thrown by timers.
+	 */
+	public void submitAction(final Runnable action) {
+		final ActionTask actionTask = new ActionTask(this, lock, action);
+		final StreamTaskMailbox mailbox = this.mailbox;
+
+		if (mailbox != null) {
+			mailbox.put(actionTask);
+			return;
+		}
+
+		synchronized (actionExecutorLock) {
+			if (actionExecutorShutdown) {
+				// the task has shut down, there is nothing left to act on
+				LOG.debug("Dropping action submitted after the shutdown of task {}.", getName());
+				return;
+			}
+
+			if (actionExecutor == null) {
+				actionExecutor = Executors.newSingleThreadExecutor(
+					new DispatcherThreadFactory(TRIGGER_THREAD_GROUP, "Async Actions for " + getName()));
+			}
+			actionExecutor.execute(actionTask);
+		}
+	}
+
+	private void shutdownActionExecutor() {
+		synchronized (actionExecutorLock) {
+			actionExecutorShutdown = true;
+
+			if (actionExecutor != null) {
+				actionExecutor.shutdownNow();
+				actionExecutor = null;
+			}
+		}
 	}
 
 	/**
@@ -790,6 +1068,38 @@ public abstract class StreamTask<OUT, Operator extends StreamOperator<OUT>>
 	
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Internal task that runs an action submitted by another thread.
+	 */
+	private static final class ActionTask implements Runnable {
+
+		private final Object lock;
+		private final Runnable action;
+		private final StreamTask<?, ?> task;
+
+		ActionTask(StreamTask<?, ?> task, final Object lock, Runnable action) {
+			this.task = task;
+			this.lock = lock;
+			this.action = action;
+		}
+
+		@Override
+		public void run() {
+			synchronized (lock) {
+				try {
+					action.run();
+				} catch (Throwable t) {
+					if (task.isRunning) {
+						LOG.error("Caught exception while running asynchronous action.", t);
+					}
+					if (task.asyncException == null) {
+						task.asyncException = new AsynchronousException(t);
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Internal task that is invoked by the timer service and triggers the target.
 	 */
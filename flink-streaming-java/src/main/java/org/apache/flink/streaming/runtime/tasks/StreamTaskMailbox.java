@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.tasks;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.util.event.EventListener;
+
+import java.util.ArrayDeque;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The mailbox of a {@link StreamTask}. Actions that other threads want to run against the
+ * operators of a task (such as firing timers or notifying about completed checkpoints) are put
+ * into the mailbox as "mails", and the task thread runs them between batches of records.
+ *
+ * <p>This way, all operator methods are called by the task thread and the records do not have
+ * to be processed under a lock that is contended with timer threads. The checkpoint lock is
+ * kept for legacy source functions, which emit records from their own thread.
+ *
+ * <p>The mailbox also serves as the listener for input availability. The task thread waits on
+ * the mailbox until either a new mail arrives or new input is available:
+ * <pre>{@code
+ * while (running) {
+ *     mailbox.runMails();
+ *     if (!processInputBatch()) {
+ *         if (finished) {
+ *             break;
+ *         }
+ *         mailbox.awaitMailOrInput();
+ *     }
+ * }
+ * }</pre>
+ */
+@Internal
+public class StreamTaskMailbox implements EventListener<InputGate> {
+
+	/** The lock that guards the mails and the flags, and that the task thread waits on */
+	private final Object lock = new Object();
+
+	/** The mails that have not yet been run */
+	private final ArrayDeque<Runnable> mails = new ArrayDeque<Runnable>();
+
+	/** Cheap check for pending mails, so that the task thread does not need the lock for it */
+	private volatile boolean hasMail;
+
+	/** Flag indicating that input became available since the task thread last waited */
+	private boolean inputAvailable;
+
+	/** Flag indicating that the task thread should stop waiting, for example on cancellation */
+	private boolean wokenUp;
+
+	/**
+	 * Puts the given mail into the mailbox. It is run by the task thread with the next call
+	 * to {@link #runMails()}.
+	 *
+	 * @param mail The action to run in the task thread.
+	 */
+	public void put(Runnable mail) {
+		checkNotNull(mail);
+
+		synchronized (lock) {
+			mails.add(mail);
+			hasMail = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Checks whether there are mails that have not been run yet.
+	 */
+	public boolean hasMail() {
+		return hasMail;
+	}
+
+	/**
+	 * Runs all mails in the order in which they were put into the mailbox, including those that
+	 * are added by the mails themselves. Must only be called by the task thread.
+	 *
+	 * @return The number of mails that were run.
+	 */
+	public int runMails() {
+		int numMails = 0;
+
+		while (hasMail) {
+			Runnable mail;
+			synchronized (lock) {
+				mail = mails.poll();
+				hasMail = !mails.isEmpty();
+			}
+
+			if (mail != null) {
+				mail.run();
+				numMails++;
+			}
+		}
+
+		return numMails;
+	}
+
+	/**
+	 * Blocks the task thread until a mail is available, input became available since the last
+	 * call of this method, or the mailbox is woken up via {@link #wakeUp()}.
+	 *
+	 * <p>Input availability is remembered, so a notification that comes in between the task
+	 * checking its input and calling this method is not lost. Spurious returns are possible
+	 * and must be handled by the caller by checking its input again.
+	 *
+	 * @throws InterruptedException Thrown, if the task thread is interrupted while waiting.
+	 */
+	public void awaitMailOrInput() throws InterruptedException {
+		synchronized (lock) {
+			while (mails.isEmpty() && !inputAvailable && !wokenUp) {
+				lock.wait();
+			}
+
+			inputAvailable = false;
+			wokenUp = false;
+		}
+	}
+
+	/**
+	 * Wakes up the task thread if it is waiting in {@link #awaitMailOrInput()}, for example
+	 * because the task is canceled.
+	 */
+	public void wakeUp() {
+		synchronized (lock) {
+			wokenUp = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Called by the input gate whenever new data is available. This method is called from the
+	 * network threads or the threads of local producers.
+	 */
+	@Override
+	public void onEvent(InputGate inputGate) {
+		synchronized (lock) {
+			if (!inputAvailable) {
+				inputAvailable = true;
+				lock.notifyAll();
+			}
+		}
+	}
+}
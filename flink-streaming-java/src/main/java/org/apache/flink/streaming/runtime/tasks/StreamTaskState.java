@@ -19,6 +19,8 @@
 package org.apache.flink.streaming.runtime.tasks;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.state.CompositeStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateHandle;
 import org.apache.flink.runtime.state.KvStateSnapshot;
 
@@ -35,6 +37,9 @@ import java.util.Iterator;
  *     <li>The state of the user function, if it implements the Checkpointed interface.</li>
  *     <li>The key/value state of the operator, if it executes on a KeyedDataStream.</li>
  * </ul>
+ *
+ * <p>If the state backend snapshots the key/value state by key group, the snapshots are held
+ * per key group instead, so that they can be redistributed when the parallelism changes.
  */
 @Internal
 public class StreamTaskState implements Serializable {
@@ -47,6 +52,8 @@ public class StreamTaskState implements Serializable {
 
 	private HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> kvStates;
 
+	private HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> keyGroupStates;
+
 	// ------------------------------------------------------------------------
 
 	public StateHandle<?> getOperatorState() {
@@ -73,6 +80,14 @@ public class StreamTaskState implements Serializable {
 		this.kvStates = kvStates;
 	}
 
+	public HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> getKeyGroupStates() {
+		return keyGroupStates;
+	}
+
+	public void setKeyGroupStates(HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> keyGroupStates) {
+		this.keyGroupStates = keyGroupStates;
+	}
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -82,7 +97,88 @@ public class StreamTaskState implements Serializable {
 	 * @return True, if all state is null, false if at least one state is not null.
 	 */
 	public boolean isEmpty() {
-		return operatorState == null & functionState == null & kvStates == null;
+		return operatorState == null & functionState == null & kvStates == null & keyGroupStates == null;
+	}
+
+	/**
+	 * Registers the shared parts of all contained states that are {@link CompositeStateHandle
+	 * composite state handles} with the given registry.
+	 *
+	 * @throws Exception Forwards exceptions that occur when registering the shared states.
+	 */
+	public void registerSharedStates(SharedStateRegistry sharedStateRegistry) throws Exception {
+		if (operatorState instanceof CompositeStateHandle) {
+			((CompositeStateHandle) operatorState).registerSharedStates(sharedStateRegistry);
+		}
+		if (functionState instanceof CompositeStateHandle) {
+			((CompositeStateHandle) functionState).registerSharedStates(sharedStateRegistry);
+		}
+		if (kvStates != null) {
+			for (KvStateSnapshot<?, ?, ?, ?, ?> kvState : kvStates.values()) {
+				if (kvState instanceof CompositeStateHandle) {
+					((CompositeStateHandle) kvState).registerSharedStates(sharedStateRegistry);
+				}
+			}
+		}
+		if (keyGroupStates != null) {
+			for (HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroupState : keyGroupStates.values()) {
+				for (KvStateSnapshot<?, ?, ?, ?, ?> kvState : keyGroupState.values()) {
+					if (kvState instanceof CompositeStateHandle) {
+						((CompositeStateHandle) kvState).registerSharedStates(sharedStateRegistry);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Discards all the contained states after their shared parts have been registered with
+	 * the given registry, and sets them to null. Shared parts are only released in the registry.
+	 *
+	 * @throws Exception Forwards exceptions that occur when releasing the
+	 *                   state handles and snapshots.
+	 */
+	public void discardState(SharedStateRegistry sharedStateRegistry) throws Exception {
+		StateHandle<?> operatorState = this.operatorState;
+		StateHandle<?> functionState = this.functionState;
+		HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> kvStates = this.kvStates;
+		HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> keyGroupStates = this.keyGroupStates;
+
+		if (operatorState instanceof CompositeStateHandle) {
+			((CompositeStateHandle) operatorState).discardState(sharedStateRegistry);
+		} else if (operatorState != null) {
+			operatorState.discardState();
+		}
+		if (functionState instanceof CompositeStateHandle) {
+			((CompositeStateHandle) functionState).discardState(sharedStateRegistry);
+		} else if (functionState != null) {
+			functionState.discardState();
+		}
+		if (kvStates != null) {
+			for (KvStateSnapshot<?, ?, ?, ?, ?> kvState : kvStates.values()) {
+				if (kvState instanceof CompositeStateHandle) {
+					((CompositeStateHandle) kvState).discardState(sharedStateRegistry);
+				} else {
+					kvState.discardState();
+				}
+			}
+		}
+		if (keyGroupStates != null) {
+			for (HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroupState : keyGroupStates.values()) {
+				for (KvStateSnapshot<?, ?, ?, ?, ?> kvState : keyGroupState.values()) {
+					if (kvState instanceof CompositeStateHandle) {
+						((CompositeStateHandle) kvState).discardState(sharedStateRegistry);
+					} else {
+						kvState.discardState();
+					}
+				}
+			}
+		}
+
+		this.operatorState = null;
+		this.functionState = null;
+		this.kvStates = null;
+		this.keyGroupStates = null;
 	}
 
 	/**
@@ -95,6 +191,7 @@ public class StreamTaskState implements Serializable {
 		StateHandle<?> operatorState = this.operatorState;
 		StateHandle<?> functionState = this.functionState;
 		HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> kvStates = this.kvStates;
+		HashMap<Integer, HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>>> keyGroupStates = this.keyGroupStates;
 		
 		if (operatorState != null) {
 			operatorState.discardState();
@@ -117,9 +214,17 @@ public class StreamTaskState implements Serializable {
 				}
 			}
 		}
+		if (keyGroupStates != null) {
+			for (HashMap<String, KvStateSnapshot<?, ?, ?, ?, ?>> keyGroupState : keyGroupStates.values()) {
+				for (KvStateSnapshot<?, ?, ?, ?, ?> kvState : keyGroupState.values()) {
+					kvState.discardState();
+				}
+			}
+		}
 
 		this.operatorState = null;
 		this.functionState = null;
 		this.kvStates = null;
+		this.keyGroupStates = null;
 	}
 }
@@ -19,7 +19,9 @@
 package org.apache.flink.streaming.runtime.tasks;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.runtime.state.CompositeStateHandle;
 import org.apache.flink.runtime.state.KvStateSnapshot;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateHandle;
 
 import java.util.HashMap;
@@ -28,7 +30,7 @@ import java.util.HashMap;
  * List of task states for a chain of streaming tasks.
  */
 @Internal
-public class StreamTaskStateList implements StateHandle<StreamTaskState[]> {
+public class StreamTaskStateList implements StateHandle<StreamTaskState[]>, CompositeStateHandle {
 
 	private static final long serialVersionUID = 1L;
 
@@ -62,6 +64,24 @@ public class StreamTaskStateList implements StateHandle<StreamTaskState[]> {
 		}
 	}
 
+	@Override
+	public void registerSharedStates(SharedStateRegistry sharedStateRegistry) throws Exception {
+		for (StreamTaskState state : states) {
+			if (state != null) {
+				state.registerSharedStates(sharedStateRegistry);
+			}
+		}
+	}
+
+	@Override
+	public void discardState(SharedStateRegistry sharedStateRegistry) throws Exception {
+		for (StreamTaskState state : states) {
+			if (state != null) {
+				state.discardState(sharedStateRegistry);
+			}
+		}
+	}
+
 	@Override
 	public long getStateSize() throws Exception {
 		long sumStateSize = 0;
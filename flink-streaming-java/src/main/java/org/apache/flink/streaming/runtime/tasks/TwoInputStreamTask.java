@@ -32,8 +32,13 @@ import org.apache.flink.streaming.runtime.io.StreamTwoInputProcessor;
 @Internal
 public class TwoInputStreamTask<IN1, IN2, OUT> extends StreamTask<OUT, TwoInputStreamOperator<IN1, IN2, OUT>> {
 
+	/** The maximum number of records that are processed before the mailbox is checked again */
+	private static final int MAX_BATCH_SIZE = 128;
+
 	private StreamTwoInputProcessor<IN1, IN2> inputProcessor;
 	
+	private StreamTaskMailbox mailbox;
+
 	private volatile boolean running = true;
 
 	@Override
@@ -54,6 +59,7 @@ public class TwoInputStreamTask<IN1, IN2, OUT> extends StreamTask<OUT, TwoInputS
 		for (int i = 0; i < numberOfInputs; i++) {
 			int inputType = inEdges.get(i).getTypeNumber();
 			InputGate reader = getEnvironment().getInputGate(i);
+			configureLocalObjectHandOver(reader);
 			switch (inputType) {
 				case 1:
 					inputList1.add(reader);
@@ -71,13 +77,16 @@ public class TwoInputStreamTask<IN1, IN2, OUT> extends StreamTask<OUT, TwoInputS
 				getCheckpointBarrierListener(),
 				configuration.getCheckpointMode(),
 				getEnvironment().getIOManager(),
-				isSerializingTimestamps());
+				isMultiplexingStreamElements());
 
 		// make sure that stream tasks report their I/O statistics
 		AccumulatorRegistry registry = getEnvironment().getAccumulatorRegistry();
 		AccumulatorRegistry.Reporter reporter = registry.getReadWriteReporter();
 		this.inputProcessor.setReporter(reporter);
 		inputProcessor.setMetricGroup(getEnvironment().getMetricGroup().getIOMetricGroup());
+
+		mailbox = createMailbox();
+		inputProcessor.registerInputAvailabilityListener(mailbox);
 	}
 
 	@Override
@@ -85,11 +94,24 @@ public class TwoInputStreamTask<IN1, IN2, OUT> extends StreamTask<OUT, TwoInputS
 		// cache some references on the stack, to make the code more JIT friendly
 		final TwoInputStreamOperator<IN1, IN2, OUT> operator = this.headOperator;
 		final StreamTwoInputProcessor<IN1, IN2> inputProcessor = this.inputProcessor;
+		final StreamTaskMailbox mailbox = this.mailbox;
 		final Object lock = getCheckpointLock();
-		
-		while (running && inputProcessor.processInput(operator, lock)) {
+
+		while (running) {
+			mailbox.runMails();
 			checkTimerException();
+
+			if (!inputProcessor.processInputBatch(operator, lock, MAX_BATCH_SIZE)) {
+				if (inputProcessor.isFinished()) {
+					break;
+				}
+				mailbox.awaitMailOrInput();
+			}
 		}
+
+		// run the timers and notifications that came in until the end of the input
+		mailbox.runMails();
+		checkTimerException();
 	}
 
 	@Override
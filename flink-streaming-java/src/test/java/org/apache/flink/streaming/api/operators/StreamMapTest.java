@@ -23,6 +23,7 @@ import org.apache.flink.api.common.functions.MapFunction;
 import org.apache.flink.api.common.functions.RichMapFunction;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
 import org.apache.flink.streaming.util.TestHarnessUtil;
@@ -36,6 +37,7 @@ import org.junit.Test;
  *     <li>RichFunction methods are called correctly</li>
  *     <li>Timestamps of processed elements match the input timestamp</li>
  *     <li>Watermarks are correctly forwarded</li>
+ *     <li>Latency markers are forwarded without passing through the function</li>
  * </ul>
  */
 public class StreamMapTest {
@@ -73,6 +75,29 @@ public class StreamMapTest {
 		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
 	}
 
+	@Test
+	public void testLatencyMarkerForwarding() throws Exception {
+		StreamMap<Integer, String> operator = new StreamMap<Integer, String>(new Map());
+
+		OneInputStreamOperatorTestHarness<Integer, String> testHarness = new OneInputStreamOperatorTestHarness<Integer, String>(operator);
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<Object>();
+
+		testHarness.open();
+
+		LatencyMarker marker = new LatencyMarker(System.currentTimeMillis(), 1, 0);
+
+		testHarness.processElement(new StreamRecord<Integer>(1, 1L));
+		testHarness.processLatencyMarker(marker);
+		testHarness.processElement(new StreamRecord<Integer>(2, 2L));
+
+		expectedOutput.add(new StreamRecord<String>("+2", 1L));
+		expectedOutput.add(marker);
+		expectedOutput.add(new StreamRecord<String>("+3", 2L));
+
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+	}
+
 	@Test
 	public void testOpenClose() throws Exception {
 		StreamMap<String, String> operator = new StreamMap<String, String>(new TestOpenCloseMapFunction());
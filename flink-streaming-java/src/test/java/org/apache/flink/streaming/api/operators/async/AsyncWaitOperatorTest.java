@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators.async;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.streaming.api.datastream.AsyncDataStream.OutputMode;
+import org.apache.flink.streaming.api.functions.async.AsyncCollector;
+import org.apache.flink.streaming.api.functions.async.AsyncFunction;
+import org.apache.flink.streaming.api.functions.async.RichAsyncFunction;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.StreamTaskState;
+import org.apache.flink.streaming.runtime.tasks.TestTimeServiceProvider;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.TestHarnessUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link AsyncWaitOperator}.
+ */
+public class AsyncWaitOperatorTest {
+
+	@Test
+	public void testOrderedOutput() throws Exception {
+		AsyncWaitOperator<Integer, Integer> operator = new AsyncWaitOperator<>(
+				new DelayedDoublingFunction(), IntSerializer.INSTANCE, 3, 0L, OutputMode.ORDERED);
+
+		OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+				new OneInputStreamOperatorTestHarness<>(operator);
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+		testHarness.open();
+
+		synchronized (testHarness.getCheckpointLock()) {
+			for (int i = 1; i <= 10; i++) {
+				testHarness.processElement(new StreamRecord<>(i, i));
+				expectedOutput.add(new StreamRecord<>(2 * i, i));
+			}
+
+			testHarness.processWatermark(new Watermark(10));
+			expectedOutput.add(new Watermark(10));
+
+			testHarness.close();
+		}
+
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+	}
+
+	@Test
+	public void testUnorderedOutputDoesNotOvertakeWatermarks() throws Exception {
+		ManuallyCompletedFunction function = new ManuallyCompletedFunction();
+
+		AsyncWaitOperator<Integer, Integer> operator = new AsyncWaitOperator<>(
+				function, IntSerializer.INSTANCE, 10, 0L, OutputMode.UNORDERED);
+
+		OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+				new OneInputStreamOperatorTestHarness<>(operator);
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+		testHarness.open();
+
+		synchronized (testHarness.getCheckpointLock()) {
+			testHarness.processElement(new StreamRecord<>(1, 1));
+			testHarness.processElement(new StreamRecord<>(2, 2));
+			testHarness.processWatermark(new Watermark(5));
+			testHarness.processElement(new StreamRecord<>(3, 6));
+		}
+
+		// records before the watermark may overtake each other
+		function.complete(1);
+		testHarness.waitForActions();
+		expectedOutput.add(new StreamRecord<>(4, 2));
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		// but not the watermark
+		function.complete(2);
+		testHarness.waitForActions();
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		function.complete(0);
+		testHarness.waitForActions();
+		expectedOutput.add(new StreamRecord<>(2, 1));
+		expectedOutput.add(new Watermark(5));
+		expectedOutput.add(new StreamRecord<>(6, 6));
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+
+		synchronized (testHarness.getCheckpointLock()) {
+			testHarness.close();
+		}
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		TestTimeServiceProvider timeServiceProvider = new TestTimeServiceProvider();
+
+		AsyncWaitOperator<Integer, Integer> operator = new AsyncWaitOperator<>(
+				new ManuallyCompletedFunction(), IntSerializer.INSTANCE, 10, 10L, OutputMode.ORDERED);
+
+		OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+				new OneInputStreamOperatorTestHarness<>(operator, new ExecutionConfig(), timeServiceProvider);
+
+		testHarness.open();
+
+		synchronized (testHarness.getCheckpointLock()) {
+			timeServiceProvider.setCurrentTime(1);
+			testHarness.processElement(new StreamRecord<>(1, 1));
+
+			assertEquals(1, timeServiceProvider.getNoOfRegisteredTimers());
+
+			timeServiceProvider.setCurrentTime(5);
+			assertTrue(testHarness.getOutput().isEmpty());
+
+			// the timeout only completes the element, the failure surfaces in its emission
+			timeServiceProvider.setCurrentTime(11);
+		}
+
+		try {
+			testHarness.waitForActions();
+			fail("The timeout should fail the operator.");
+		}
+		catch (Exception e) {
+			Throwable cause = e;
+			while (cause != null && !(cause instanceof TimeoutException)) {
+				cause = cause.getCause();
+			}
+			assertTrue("The failure should be caused by the timeout.", cause != null);
+		}
+
+		operator.dispose();
+	}
+
+	/**
+	 * Completes the elements out of order in the single thread of the client, while the queue is
+	 * full and the task thread waits for the completion of its head under the checkpoint lock.
+	 * The completions must neither block on the checkpoint lock nor be emitted out of order.
+	 */
+	@Test(timeout = 10000L)
+	public void testOrderedOutOfOrderCompletionWithFullQueue() throws Exception {
+		AsyncWaitOperator<Integer, Integer> operator = new AsyncWaitOperator<>(
+				new ReversingSingleThreadedFunction(), IntSerializer.INSTANCE, 2, 0L, OutputMode.ORDERED);
+
+		OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+				new OneInputStreamOperatorTestHarness<>(operator);
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+		testHarness.open();
+
+		synchronized (testHarness.getCheckpointLock()) {
+			for (int i = 1; i <= 10; i++) {
+				testHarness.processElement(new StreamRecord<>(i, i));
+				expectedOutput.add(new StreamRecord<>(2 * i, i));
+			}
+
+			testHarness.close();
+		}
+
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+	}
+
+	@Test
+	public void testSnapshotAndRestore() throws Exception {
+		AsyncWaitOperator<Integer, Integer> operator = new AsyncWaitOperator<>(
+				new ManuallyCompletedFunction(), IntSerializer.INSTANCE, 10, 0L, OutputMode.ORDERED);
+
+		OneInputStreamOperatorTestHarness<Integer, Integer> testHarness =
+				new OneInputStreamOperatorTestHarness<>(operator);
+
+		testHarness.open();
+
+		final StreamTaskState snapshot;
+
+		synchronized (testHarness.getCheckpointLock()) {
+			testHarness.processElement(new StreamRecord<>(1, 1));
+			testHarness.processElement(new StreamRecord<>(2, 2));
+			testHarness.processWatermark(new Watermark(2));
+			testHarness.processElement(new StreamRecord<>(3, 3));
+
+			snapshot = testHarness.snapshot(0L, 0L);
+		}
+
+		operator.dispose();
+
+		AsyncWaitOperator<Integer, Integer> restoredOperator = new AsyncWaitOperator<>(
+				new DelayedDoublingFunction(), IntSerializer.INSTANCE, 10, 0L, OutputMode.ORDERED);
+
+		OneInputStreamOperatorTestHarness<Integer, Integer> restoredTestHarness =
+				new OneInputStreamOperatorTestHarness<>(restoredOperator);
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+		expectedOutput.add(new StreamRecord<>(2, 1));
+		expectedOutput.add(new StreamRecord<>(4, 2));
+		expectedOutput.add(new Watermark(2));
+		expectedOutput.add(new StreamRecord<>(6, 3));
+		expectedOutput.add(new StreamRecord<>(8, 4));
+
+		synchronized (restoredTestHarness.getCheckpointLock()) {
+			restoredTestHarness.setup();
+			restoredTestHarness.restore(snapshot, 1L);
+			restoredTestHarness.open();
+
+			restoredTestHarness.processElement(new StreamRecord<>(4, 4));
+
+			restoredTestHarness.close();
+		}
+
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, restoredTestHarness.getOutput());
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Doubles the input in a separate thread, after a random delay.
+	 */
+	private static class DelayedDoublingFunction extends RichAsyncFunction<Integer, Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		private transient ExecutorService executor;
+
+		@Override
+		public void open(Configuration parameters) throws Exception {
+			executor = Executors.newFixedThreadPool(3);
+		}
+
+		@Override
+		public void close() throws Exception {
+			executor.shutdown();
+		}
+
+		@Override
+		public void asyncInvoke(final Integer input, final AsyncCollector<Integer> collector) throws Exception {
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(ThreadLocalRandom.current().nextInt(10));
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+
+					collector.collect(Collections.singletonList(2 * input));
+				}
+			});
+		}
+	}
+
+	/**
+	 * Doubles the input in the single thread of its client. Every odd element is held back until
+	 * the following element arrives, which is then completed first.
+	 */
+	private static class ReversingSingleThreadedFunction extends RichAsyncFunction<Integer, Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		private transient ExecutorService executor;
+
+		/** The held back element and its collector, only accessed by the client thread */
+		private transient Integer pendingInput;
+		private transient AsyncCollector<Integer> pendingCollector;
+
+		@Override
+		public void open(Configuration parameters) throws Exception {
+			executor = Executors.newSingleThreadExecutor();
+		}
+
+		@Override
+		public void close() throws Exception {
+			executor.shutdown();
+		}
+
+		@Override
+		public void asyncInvoke(final Integer input, final AsyncCollector<Integer> collector) throws Exception {
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					if (pendingCollector == null) {
+						pendingInput = input;
+						pendingCollector = collector;
+					}
+					else {
+						collector.collect(Collections.singletonList(2 * input));
+						pendingCollector.collect(Collections.singletonList(2 * pendingInput));
+
+						pendingInput = null;
+						pendingCollector = null;
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Keeps the collectors, to let the test complete the elements in the order it chooses.
+	 */
+	private static class ManuallyCompletedFunction implements AsyncFunction<Integer, Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Integer> inputs = new ArrayList<>();
+
+		private final List<AsyncCollector<Integer>> collectors = new ArrayList<>();
+
+		@Override
+		public void asyncInvoke(Integer input, AsyncCollector<Integer> collector) throws Exception {
+			inputs.add(input);
+			collectors.add(collector);
+		}
+
+		void complete(int index) {
+			collectors.get(index).collect(Collections.singletonList(2 * inputs.get(index)));
+		}
+	}
+}
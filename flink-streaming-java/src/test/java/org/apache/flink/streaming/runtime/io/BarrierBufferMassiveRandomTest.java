@@ -161,6 +161,11 @@ public class BarrierBufferMassiveRandomTest {
 			}
 		}
 
+		@Override
+		public BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException {
+			return getNextBufferOrEvent();
+		}
+
 		@Override
 		public void sendTaskEvent(TaskEvent event) {}
 
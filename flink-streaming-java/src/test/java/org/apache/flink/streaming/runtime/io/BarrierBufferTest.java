@@ -37,6 +37,7 @@ import java.io.File;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -354,6 +355,56 @@ public class BarrierBufferTest {
 		}
 	}
 
+	/**
+	 * Validates that polling the buffer yields the same sequence as the blocking calls, including
+	 * the data that is still buffered when the input gate is finished.
+	 */
+	@Test
+	public void testPollTrailingBlockedData() {
+		try {
+			BufferOrEvent[] sequence = {
+					createBuffer(0), createBuffer(1),
+					createBarrier(1, 1), createBarrier(1, 0),
+
+					createBuffer(0), createBarrier(2, 0),
+					createBuffer(0), createBuffer(1), createEndOfPartition(0), createEndOfPartition(1)
+			};
+
+			MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.asList(sequence));
+			BarrierBuffer buffer = new BarrierBuffer(gate, IO_MANAGER);
+
+			ValidatingCheckpointHandler handler = new ValidatingCheckpointHandler();
+			buffer.registerCheckpointEventHandler(handler);
+			handler.setNextExpectedCheckpointId(1L);
+
+			check(sequence[0], buffer.pollNext());
+			check(sequence[1], buffer.pollNext());
+			check(sequence[4], buffer.pollNext());
+			assertEquals(2L, handler.getNextExpectedCheckpointId());
+
+			// checkpoint 2 alignment, channel 0 is blocked
+			check(sequence[7], buffer.pollNext());
+			check(sequence[9], buffer.pollNext());
+			assertFalse(buffer.isFinished());
+
+			// end of stream: remaining buffered contents
+			check(sequence[6], buffer.pollNext());
+			check(sequence[8], buffer.pollNext());
+
+			assertNull(buffer.pollNext());
+			assertTrue(buffer.isFinished());
+			assertNull(buffer.getNextNonBlocked());
+
+			buffer.cleanup();
+
+			checkNoTempFilesRemain();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
 	/**
 	 * Validates that the buffer correctly aligns the streams in cases
 	 * where some channels receive barriers from multiple successive checkpoints
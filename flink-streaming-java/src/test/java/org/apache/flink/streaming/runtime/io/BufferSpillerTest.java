@@ -24,6 +24,7 @@ import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.buffer.ObjectBuffer;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 
 import org.junit.After;
@@ -38,6 +39,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 
 
@@ -185,6 +187,45 @@ public class BufferSpillerTest {
 		}
 	}
 
+	@Test
+	public void testSpillAndRollOverObjectBatches() {
+		try {
+			MemorySegment pooledSegment = MemorySegmentFactory.allocateUnpooledSegment(PAGE_SIZE);
+			ObjectBuffer batch = new ObjectBuffer(pooledSegment, FreeingBufferRecycler.INSTANCE);
+			batch.addRecord("a");
+			batch.addRecord("b");
+
+			spiller.add(generateRandomBuffer(17, 3));
+			spiller.add(new BufferOrEvent(batch, 5));
+			spiller.add(generateRandomEvent(new Random(), 7));
+
+			// the pooled memory of the batch is given back right away
+			assertTrue(batch.isRecycled());
+			assertTrue(pooledSegment.isFreed());
+
+			BufferSpiller.SpilledBufferOrEventSequence seq = spiller.rollOver();
+			seq.open();
+
+			validateBuffer(seq.getNext(), 17, 3);
+
+			BufferOrEvent next = seq.getNext();
+			assertEquals(5, next.getChannelIndex());
+			assertTrue(next.isBuffer());
+			assertTrue(next.getBuffer() instanceof ObjectBuffer);
+			assertEquals(Arrays.<Object>asList("a", "b"), ((ObjectBuffer) next.getBuffer()).getRecords());
+			next.getBuffer().recycle();
+
+			assertTrue(seq.getNext().isEvent());
+			assertNull(seq.getNext());
+
+			seq.cleanup();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
 	@Test
 	public void testSpillWhileReading() {
 		LOG.info("Starting SpillWhileReading test");
@@ -82,6 +82,11 @@ public class MockInputGate implements InputGate {
 		return next;
 	}
 
+	@Override
+	public BufferOrEvent pollNextBufferOrEvent() {
+		return getNextBufferOrEvent();
+	}
+
 	@Override
 	public void requestPartitions() {}
 
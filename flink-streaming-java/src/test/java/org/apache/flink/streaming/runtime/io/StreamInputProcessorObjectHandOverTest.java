@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.io.network.TaskEventDispatcher;
+import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.api.writer.RoundRobinChannelSelector;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.netty.PartitionStateChecker;
+import org.apache.flink.runtime.io.network.partition.ResultPartition;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionConsumableNotifier;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionType;
+import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.LocalInputChannel;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
+import org.apache.flink.runtime.operators.testutils.UnregisteredTaskMetricsGroup;
+import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.runtime.util.event.EventListener;
+import org.apache.flink.streaming.api.CheckpointingMode;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.runtime.streamrecord.MultiplexingStreamRecordSerializer;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+import org.junit.Test;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.runtime.io.disk.iomanager.IOManager.IOMode.SYNC;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the {@link StreamInputProcessor} with records that are handed over as objects by
+ * {@link StreamRecordWriter}s through local input channels.
+ */
+public class StreamInputProcessorObjectHandOverTest {
+
+	private static final int NUM_CHANNELS = 2;
+
+	/**
+	 * Tests that a checkpoint barrier, which is emitted between records of one object batch, is
+	 * aligned like a barrier between serialized records. The post-barrier batches of the first
+	 * aligned channel are buffered by the {@link BarrierBuffer} until the barrier of the other
+	 * channel arrives.
+	 *
+	 * <p>The producers reuse and modify their record objects after every emit and the operator
+	 * modifies every record it receives. Each record must still arrive with its original value,
+	 * which requires the record writer to copy the records that it hands over.
+	 */
+	@Test(timeout = 60000L)
+	@SuppressWarnings("unchecked")
+	public void testBarrierInsideObjectBatch() throws Exception {
+		// the first channel sees its barrier early, the second one late
+		final int[] numRecordsBeforeBarrier = { 100, 500 };
+		final int[] numRecordsAfterBarrier = { 300, 100 };
+
+		final TypeSerializer<Tuple2<Integer, Integer>> serializer =
+				new TupleTypeInfo<Tuple2<Integer, Integer>>(BasicTypeInfo.INT_TYPE_INFO, BasicTypeInfo.INT_TYPE_INFO)
+						.createSerializer(new ExecutionConfig());
+
+		final NetworkBufferPool networkBuffers = new NetworkBufferPool(64, 4096, MemoryType.HEAP);
+		final IOManager ioManager = new IOManagerAsync();
+		final ResultPartitionManager partitionManager = new ResultPartitionManager();
+		final JobID jobId = new JobID();
+
+		final ResultPartition[] partitions = new ResultPartition[NUM_CHANNELS];
+		final ResultPartitionID[] partitionIds = new ResultPartitionID[NUM_CHANNELS];
+
+		for (int i = 0; i < NUM_CHANNELS; i++) {
+			partitionIds[i] = new ResultPartitionID();
+			partitions[i] = new ResultPartition(
+					"Test Name",
+					jobId,
+					partitionIds[i],
+					ResultPartitionType.PIPELINED,
+					false,
+					1,
+					partitionManager,
+					mock(ResultPartitionConsumableNotifier.class),
+					mock(IOManager.class),
+					SYNC);
+
+			partitions[i].registerBufferPool(networkBuffers.createBufferPool(16, true));
+			partitionManager.registerResultPartition(partitions[i]);
+		}
+
+		final SingleInputGate inputGate = new SingleInputGate(
+				"Test Name",
+				jobId,
+				new ExecutionAttemptID(),
+				new IntermediateDataSetID(),
+				0,
+				NUM_CHANNELS,
+				mock(PartitionStateChecker.class),
+				new UnregisteredTaskMetricsGroup.DummyIOMetricGroup());
+
+		inputGate.enableObjectHandOver();
+		inputGate.setBufferPool(networkBuffers.createBufferPool(NUM_CHANNELS, true));
+
+		for (int i = 0; i < NUM_CHANNELS; i++) {
+			inputGate.setInputChannel(
+					new IntermediateResultPartitionID(),
+					new LocalInputChannel(
+							inputGate,
+							i,
+							partitionIds[i],
+							partitionManager,
+							new TaskEventDispatcher(),
+							new UnregisteredTaskMetricsGroup.DummyIOMetricGroup()));
+		}
+
+		// the producers have to know about the object hand-over before they emit
+		inputGate.requestPartitions();
+
+		final List<StreamRecordWriter<SerializationDelegate<StreamElement>>> writers = new ArrayList<>();
+		final List<Tuple2<Integer, Integer>> producerValues = new ArrayList<>();
+
+		StreamInputProcessor<Tuple2<Integer, Integer>> processor = null;
+
+		try {
+			for (int i = 0; i < NUM_CHANNELS; i++) {
+				assertTrue(partitions[i].isObjectHandOverEnabled(0));
+
+				writers.add(new StreamRecordWriter<>(
+						new ResultPartitionWriter(partitions[i]),
+						new RoundRobinChannelSelector<SerializationDelegate<StreamElement>>(),
+						-1));
+
+				producerValues.add(new Tuple2<Integer, Integer>());
+			}
+
+			// produce all input up front, the input gate consumes the channels round robin
+			for (int i = 0; i < NUM_CHANNELS; i++) {
+				StreamRecordWriter<SerializationDelegate<StreamElement>> writer = writers.get(i);
+				SerializationDelegate<StreamElement> delegate = new SerializationDelegate<StreamElement>(
+						new MultiplexingStreamRecordSerializer<>(serializer));
+
+				Tuple2<Integer, Integer> value = producerValues.get(i);
+				StreamRecord<Tuple2<Integer, Integer>> record = new StreamRecord<>(value);
+
+				int numRecords = numRecordsBeforeBarrier[i] + numRecordsAfterBarrier[i];
+				for (int seq = 0; seq < numRecords; seq++) {
+					if (seq == numRecordsBeforeBarrier[i]) {
+						writer.broadcastEvent(new CheckpointBarrier(1L, 1L));
+					}
+
+					value.f0 = i;
+					value.f1 = seq;
+					delegate.setInstance(record.replace(value));
+					writer.emit(delegate);
+
+					// modify the emitted object like an operator with object reuse does
+					value.f0 = -1;
+					value.f1 = -1;
+				}
+
+				writer.flush();
+				partitions[i].finish();
+			}
+
+			final List<List<Integer>> received = new ArrayList<>();
+			for (int i = 0; i < NUM_CHANNELS; i++) {
+				received.add(new ArrayList<Integer>());
+			}
+
+			final int[] numRecordsAtCheckpoint = new int[NUM_CHANNELS];
+			final int[] numCheckpoints = new int[1];
+
+			EventListener<CheckpointBarrier> checkpointListener = new EventListener<CheckpointBarrier>() {
+				@Override
+				public void onEvent(CheckpointBarrier barrier) {
+					assertEquals(1L, barrier.getId());
+
+					numCheckpoints[0]++;
+					for (int i = 0; i < NUM_CHANNELS; i++) {
+						numRecordsAtCheckpoint[i] = received.get(i).size();
+					}
+				}
+			};
+
+			OneInputStreamOperator<Tuple2<Integer, Integer>, Object> operator = mock(OneInputStreamOperator.class);
+			when(operator.getMetricGroup()).thenReturn(new UnregisteredMetricsGroup());
+
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					StreamRecord<Tuple2<Integer, Integer>> record =
+							(StreamRecord<Tuple2<Integer, Integer>>) invocation.getArguments()[0];
+					Tuple2<Integer, Integer> value = record.getValue();
+
+					assertNotSame(producerValues.get(value.f0), value);
+
+					received.get(value.f0).add(value.f1);
+
+					// modify the received object like a downstream operator may do
+					value.f1 = -1;
+					return null;
+				}
+			}).when(operator).processElement(any(StreamRecord.class));
+
+			processor = new StreamInputProcessor<>(
+					new InputGate[] { inputGate },
+					serializer,
+					checkpointListener,
+					CheckpointingMode.EXACTLY_ONCE,
+					ioManager,
+					true);
+
+			Object lock = new Object();
+			while (processor.processInput(operator, lock)) {
+				// consume all input
+			}
+
+			assertEquals(1, numCheckpoints[0]);
+
+			for (int i = 0; i < NUM_CHANNELS; i++) {
+				assertEquals(numRecordsBeforeBarrier[i], numRecordsAtCheckpoint[i]);
+
+				List<Integer> channelRecords = received.get(i);
+				assertEquals(numRecordsBeforeBarrier[i] + numRecordsAfterBarrier[i], channelRecords.size());
+
+				for (int seq = 0; seq < channelRecords.size(); seq++) {
+					assertEquals(seq, channelRecords.get(seq).intValue());
+				}
+			}
+		}
+		finally {
+			if (processor != null) {
+				processor.cleanup();
+			}
+			for (StreamRecordWriter<?> writer : writers) {
+				writer.close();
+			}
+			inputGate.releaseAllResources();
+			for (ResultPartition partition : partitions) {
+				partition.release();
+			}
+			ioManager.shutdown();
+			networkBuffers.destroy();
+		}
+	}
+}
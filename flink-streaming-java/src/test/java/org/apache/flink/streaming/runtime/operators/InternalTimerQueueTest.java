@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators;
+
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.runtime.util.DataInputDeserializer;
+import org.apache.flink.runtime.util.DataOutputSerializer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link InternalTimerQueue}.
+ */
+public class InternalTimerQueueTest {
+
+	@Test
+	public void testOrderingAndDeduplication() {
+		InternalTimerQueue<String, Integer> queue = new InternalTimerQueue<>(0);
+
+		assertTrue(queue.add(3L, "a", 1));
+		assertTrue(queue.add(1L, "a", 1));
+		assertTrue(queue.add(2L, "b", 1));
+		assertTrue(queue.add(2L, "b", 2));
+		assertFalse(queue.add(1L, "a", 1));
+		assertFalse(queue.add(2L, "b", 2));
+
+		assertEquals(4, queue.size());
+		assertTrue(queue.contains(2L, "b", 2));
+		assertFalse(queue.contains(2L, "a", 2));
+
+		assertEquals(1L, queue.getHeadTimestamp());
+		assertEquals("a", queue.getHeadKey());
+		queue.poll();
+
+		assertEquals(2L, queue.getHeadTimestamp());
+		queue.poll();
+		assertEquals(2L, queue.getHeadTimestamp());
+		queue.poll();
+
+		assertEquals(3L, queue.getHeadTimestamp());
+		assertEquals(Integer.valueOf(1), queue.getHeadNamespace());
+		queue.poll();
+
+		assertTrue(queue.isEmpty());
+		assertEquals(Long.MAX_VALUE, queue.getHeadTimestamp());
+
+		// a polled timer can be added again
+		assertTrue(queue.add(1L, "a", 1));
+
+		// timers without namespace
+		assertTrue(queue.add(1L, "a", null));
+		assertFalse(queue.add(1L, "a", null));
+		assertTrue(queue.remove(1L, "a", null));
+		assertTrue(queue.contains(1L, "a", 1));
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testPollEmptyQueue() {
+		new InternalTimerQueue<String, Integer>(10).poll();
+	}
+
+	@Test
+	public void testRandomAddAndRemove() {
+		final Random rnd = new Random(42);
+		final InternalTimerQueue<Integer, Integer> queue = new InternalTimerQueue<>(0);
+		final List<Long> reference = new ArrayList<>();
+
+		// timestamps and keys are tied together, so that every timer is distinct in the reference
+		for (int round = 0; round < 100_000; round++) {
+			long timestamp = rnd.nextInt(10_000);
+			int key = (int) timestamp % 100;
+
+			if (rnd.nextInt(3) == 0) {
+				assertEquals(reference.remove(timestamp), queue.remove(timestamp, key, 0));
+			}
+			else {
+				boolean added = queue.add(timestamp, key, 0);
+				assertEquals(!reference.contains(timestamp), added);
+				if (added) {
+					reference.add(timestamp);
+				}
+			}
+			assertEquals(reference.size(), queue.size());
+		}
+
+		Collections.sort(reference);
+		for (Long timestamp : reference) {
+			assertEquals(timestamp.longValue(), queue.getHeadTimestamp());
+			assertEquals((int) (timestamp % 100), (int) queue.getHeadKey());
+			queue.poll();
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testWriteAndRead() throws Exception {
+		InternalTimerQueue<String, Integer> queue = new InternalTimerQueue<>(4);
+		for (int i = 0; i < 1000; i++) {
+			queue.add((i * 7919L) % 1000, "key-" + (i % 17), i % 3);
+		}
+		queue.remove(0L, "key-0", 0);
+
+		DataOutputSerializer out = new DataOutputSerializer(1024);
+		queue.write(out, StringSerializer.INSTANCE, IntSerializer.INSTANCE);
+
+		InternalTimerQueue<String, Integer> restored = new InternalTimerQueue<>(0);
+		restored.add(5L, "to be replaced", 1);
+		restored.read(new DataInputDeserializer(out.getByteArray(), 0, out.length()),
+				StringSerializer.INSTANCE, IntSerializer.INSTANCE);
+
+		assertEquals(queue.size(), restored.size());
+		assertFalse(restored.contains(5L, "to be replaced", 1));
+		assertFalse(restored.contains(0L, "key-0", 0));
+
+		while (!queue.isEmpty()) {
+			long timestamp = queue.getHeadTimestamp();
+			assertEquals(timestamp, restored.getHeadTimestamp());
+			assertTrue(restored.remove(timestamp, queue.getHeadKey(), queue.getHeadNamespace()));
+			queue.poll();
+		}
+		assertTrue(restored.isEmpty());
+	}
+}
@@ -25,6 +25,8 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
 import org.apache.flink.streaming.api.TimeCharacteristic;
+import org.apache.flink.streaming.api.functions.source.BatchSourceContext;
+import org.apache.flink.streaming.api.functions.source.BatchSourceContextAdapter;
 import org.apache.flink.streaming.api.functions.source.SourceFunction;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.operators.Output;
@@ -32,6 +34,7 @@ import org.apache.flink.streaming.api.operators.StoppableStreamSource;
 import org.apache.flink.streaming.api.operators.StreamSource;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
 
@@ -42,6 +45,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ScheduledFuture;
@@ -212,6 +216,43 @@ public class StreamSourceOperatorTest {
 		}
 	}
 
+	@Test
+	public void testBatchEmission() throws Exception {
+		final StreamSource<String, FiniteSource<String>> operator =
+				new StreamSource<>(new FiniteSource<String>());
+
+		setupSourceOperator(operator, TimeCharacteristic.EventTime, 0, null);
+
+		final Object lock = new Object();
+		final List<StreamElement> output = new ArrayList<>();
+		final List<Boolean> stateUpdates = new ArrayList<>();
+
+		StreamSource.ManualWatermarkContext<String> ctx =
+				new StreamSource.ManualWatermarkContext<>(operator, lock, new CollectorOutput<String>(output));
+
+		BatchSourceContext<String> batchContext = BatchSourceContextAdapter.forContext(ctx);
+		assertTrue(batchContext == ctx);
+
+		Runnable stateUpdate = new Runnable() {
+			@Override
+			public void run() {
+				stateUpdates.add(Thread.holdsLock(lock));
+			}
+		};
+
+		batchContext.collectBatch(Arrays.asList("a", "b"), stateUpdate);
+		batchContext.collectBatchWithTimestamps(Arrays.asList("c", "d"), new long[] { 17L, 42L }, stateUpdate);
+
+		assertEquals(4, output.size());
+		assertEquals(new StreamRecord<>("a"), output.get(0));
+		assertEquals(new StreamRecord<>("b"), output.get(1));
+		assertEquals(new StreamRecord<>("c", 17L), output.get(2));
+		assertEquals(new StreamRecord<>("d", 42L), output.get(3));
+
+		// the state updates ran under the checkpoint lock
+		assertEquals(Arrays.asList(true, true), stateUpdates);
+	}
+
 	// ------------------------------------------------------------------------
 	
 	@SuppressWarnings("unchecked")
@@ -326,9 +367,15 @@ public class StreamSourceOperatorTest {
 			list.add(mark);
 		}
 
+		@Override
+		public void emitLatencyMarker(LatencyMarker latencyMarker) {
+			list.add(latencyMarker);
+		}
+
 		@Override
 		public void collect(StreamRecord<T> record) {
-			list.add(record);
+			// the source contexts reuse the record object
+			list.add(record.copy(record.getValue()));
 		}
 
 		@Override
@@ -20,6 +20,7 @@ package org.apache.flink.streaming.runtime.operators.windowing;
 
 import org.apache.flink.streaming.api.operators.Output;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
 import java.util.ArrayList;
@@ -63,6 +64,11 @@ public class CollectingOutput<T> implements Output<StreamRecord<T>> {
 		throw new UnsupportedOperationException("the output should not emit watermarks");
 	}
 
+	@Override
+	public void emitLatencyMarker(LatencyMarker latencyMarker) {
+		throw new UnsupportedOperationException("the output should not emit latency markers");
+	}
+
 	@Override
 	public void collect(StreamRecord<T> record) {
 		elements.add(record.getValue());
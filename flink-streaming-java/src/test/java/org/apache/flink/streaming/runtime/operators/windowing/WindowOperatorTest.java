@@ -229,6 +229,152 @@ public class WindowOperatorTest {
 		Assert.assertEquals("Close was not called.", 2, closeCalled.get());
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSlidingEventTimeWindowsPanes() throws Exception {
+		final int WINDOW_SIZE = 3;
+		final int WINDOW_SLIDE = 1;
+
+		TypeInformation<Tuple2<String, Integer>> inputType = TypeInfoParser.parse("Tuple2<String, Integer>");
+
+		ReducingStateDescriptor<Tuple2<String, Integer>> stateDesc = new ReducingStateDescriptor<>("window-contents",
+				new SumReducer(),
+				inputType.createSerializer(new ExecutionConfig()));
+
+		AlignedEventTimeWindowOperator<String, Tuple2<String, Integer>, Tuple2<String, Integer>> operator = new AlignedEventTimeWindowOperator<>(
+				SlidingEventTimeWindows.of(Time.of(WINDOW_SIZE, TimeUnit.SECONDS), Time.of(WINDOW_SLIDE, TimeUnit.SECONDS)),
+				new TimeWindow.Serializer(),
+				new TupleKeySelector(),
+				BasicTypeInfo.STRING_TYPE_INFO.createSerializer(new ExecutionConfig()),
+				stateDesc,
+				new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<String, TimeWindow, Tuple2<String, Integer>>()),
+				EventTimeTrigger.create(),
+				0);
+
+		assertEquals(1000, operator.getPaneSize());
+
+		operator.setInputType(inputType, new ExecutionConfig());
+
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness =
+				new OneInputStreamOperatorTestHarness<>(operator);
+
+		testHarness.configureForKeyedStream(new TupleKeySelector(), BasicTypeInfo.STRING_TYPE_INFO);
+
+		testHarness.setup();
+		testHarness.open();
+
+		testSlidingEventTimeWindows(testHarness);
+
+		testHarness.close();
+	}
+
+	/**
+	 * Tests that the panes, which are combined for overlapping windows, are not modified by a
+	 * reduce function that modifies its arguments.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSlidingEventTimeWindowsPanesWithModifyingReducer() throws Exception {
+		final int WINDOW_SIZE = 3;
+		final int WINDOW_SLIDE = 1;
+
+		TypeInformation<Tuple2<String, Integer>> inputType = TypeInfoParser.parse("Tuple2<String, Integer>");
+
+		ReducingStateDescriptor<Tuple2<String, Integer>> stateDesc = new ReducingStateDescriptor<>("window-contents",
+				new ModifyingSumReducer(),
+				inputType.createSerializer(new ExecutionConfig()));
+
+		AlignedEventTimeWindowOperator<String, Tuple2<String, Integer>, Tuple2<String, Integer>> operator = new AlignedEventTimeWindowOperator<>(
+				SlidingEventTimeWindows.of(Time.of(WINDOW_SIZE, TimeUnit.SECONDS), Time.of(WINDOW_SLIDE, TimeUnit.SECONDS)),
+				new TimeWindow.Serializer(),
+				new TupleKeySelector(),
+				BasicTypeInfo.STRING_TYPE_INFO.createSerializer(new ExecutionConfig()),
+				stateDesc,
+				new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<String, TimeWindow, Tuple2<String, Integer>>()),
+				EventTimeTrigger.create(),
+				0);
+
+		operator.setInputType(inputType, new ExecutionConfig());
+
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness =
+				new OneInputStreamOperatorTestHarness<>(operator);
+
+		testHarness.configureForKeyedStream(new TupleKeySelector(), BasicTypeInfo.STRING_TYPE_INFO);
+
+		testHarness.setup();
+		testHarness.open();
+
+		testSlidingEventTimeWindows(testHarness);
+
+		testHarness.close();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSlidingEventTimeWindowsPanesLateElements() throws Exception {
+		final int WINDOW_SIZE = 3;
+		final int WINDOW_SLIDE = 1;
+		final long LATENESS = 2000;
+
+		TypeInformation<Tuple2<String, Integer>> inputType = TypeInfoParser.parse("Tuple2<String, Integer>");
+
+		ReducingStateDescriptor<Tuple2<String, Integer>> stateDesc = new ReducingStateDescriptor<>("window-contents",
+				new SumReducer(),
+				inputType.createSerializer(new ExecutionConfig()));
+
+		AlignedEventTimeWindowOperator<String, Tuple2<String, Integer>, Tuple2<String, Integer>> operator = new AlignedEventTimeWindowOperator<>(
+				SlidingEventTimeWindows.of(Time.of(WINDOW_SIZE, TimeUnit.SECONDS), Time.of(WINDOW_SLIDE, TimeUnit.SECONDS)),
+				new TimeWindow.Serializer(),
+				new TupleKeySelector(),
+				BasicTypeInfo.STRING_TYPE_INFO.createSerializer(new ExecutionConfig()),
+				stateDesc,
+				new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<String, TimeWindow, Tuple2<String, Integer>>()),
+				EventTimeTrigger.create(),
+				LATENESS);
+
+		operator.setInputType(inputType, new ExecutionConfig());
+
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness =
+				new OneInputStreamOperatorTestHarness<>(operator);
+
+		testHarness.configureForKeyedStream(new TupleKeySelector(), BasicTypeInfo.STRING_TYPE_INFO);
+
+		testHarness.open();
+
+		ConcurrentLinkedQueue<Object> expected = new ConcurrentLinkedQueue<>();
+
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 1000));
+		testHarness.processWatermark(new Watermark(1999));
+
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 1), 1999));
+		expected.add(new Watermark(1999));
+
+		// late for the windows ending at 999 and 1999, which fire again with only this element,
+		// the window ending at 2999 still gets it through the pane
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 500));
+
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 1), 999));
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 1), 1999));
+
+		testHarness.processWatermark(new Watermark(3999));
+
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 2), 2999));
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 1), 3999));
+		expected.add(new Watermark(3999));
+
+		// only the window ending at 2999 is still within the allowed lateness
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 500));
+
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 1), 2999));
+
+		testHarness.processWatermark(new Watermark(10000));
+
+		expected.add(new Watermark(10000));
+
+		TestHarnessUtil.assertOutputEqualsSorted("Output was not correct.", expected, testHarness.getOutput(), new Tuple2ResultSortComparator());
+		testHarness.close();
+	}
+
 	private void testTumblingEventTimeWindows(OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness) throws Exception {
 		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
 
@@ -889,19 +1035,10 @@ public class WindowOperatorTest {
 		operator.setInputType(inputType, new ExecutionConfig());
 		testHarness.open();
 
-		WindowOperator.Timer<String, TimeWindow> timer1 = new WindowOperator.Timer<>(1L, "key1", new TimeWindow(1L, 2L));
-		WindowOperator.Timer<String, TimeWindow> timer2 = new WindowOperator.Timer<>(3L, "key1", new TimeWindow(1L, 2L));
-		WindowOperator.Timer<String, TimeWindow> timer3 = new WindowOperator.Timer<>(2L, "key1", new TimeWindow(1L, 2L));
-		operator.processingTimeTimers.add(timer1);
-		operator.processingTimeTimers.add(timer2);
-		operator.processingTimeTimers.add(timer3);
-		operator.processingTimeTimersQueue.add(timer1);
-		operator.processingTimeTimersQueue.add(timer2);
-		operator.processingTimeTimersQueue.add(timer3);
-
-		operator.processingTimeTimerTimestamps.add(1L, 10);
-		operator.processingTimeTimerTimestamps.add(2L, 5);
-		operator.processingTimeTimerTimestamps.add(3L, 1);
+		operator.processingTimeTimers.add(1L, "key1", new TimeWindow(1L, 2L));
+		operator.processingTimeTimers.add(3L, "key1", new TimeWindow(1L, 2L));
+		operator.processingTimeTimers.add(2L, "key1", new TimeWindow(1L, 2L));
+		operator.processingTimeTimers.add(2L, "key2", new TimeWindow(1L, 2L));
 
 
 		StreamTaskState snapshot = testHarness.snapshot(0, 0);
@@ -916,8 +1053,9 @@ public class WindowOperatorTest {
 				EventTimeTrigger.create(),
 				0);
 
+		// the restored processing time timers are scheduled on open(), they must not fire
 		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> otherTestHarness =
-				new OneInputStreamOperatorTestHarness<>(otherOperator);
+				new OneInputStreamOperatorTestHarness<>(otherOperator, new ExecutionConfig(), new TestTimeServiceProvider());
 
 		otherTestHarness.configureForKeyedStream(new TupleKeySelector(), BasicTypeInfo.STRING_TYPE_INFO);
 		otherOperator.setInputType(inputType, new ExecutionConfig());
@@ -926,9 +1064,16 @@ public class WindowOperatorTest {
 		otherTestHarness.restore(snapshot, 0);
 		otherTestHarness.open();
 
-		Assert.assertEquals(operator.processingTimeTimers, otherOperator.processingTimeTimers);
-		Assert.assertArrayEquals(operator.processingTimeTimersQueue.toArray(), otherOperator.processingTimeTimersQueue.toArray());
-		Assert.assertEquals(operator.processingTimeTimerTimestamps, otherOperator.processingTimeTimerTimestamps);
+		Assert.assertEquals(operator.processingTimeTimers.size(), otherOperator.processingTimeTimers.size());
+		while (!operator.processingTimeTimers.isEmpty()) {
+			long timestamp = operator.processingTimeTimers.getHeadTimestamp();
+			Assert.assertEquals(timestamp, otherOperator.processingTimeTimers.getHeadTimestamp());
+			Assert.assertTrue(otherOperator.processingTimeTimers.remove(timestamp,
+					operator.processingTimeTimers.getHeadKey(),
+					operator.processingTimeTimers.getHeadNamespace()));
+			operator.processingTimeTimers.poll();
+		}
+		Assert.assertTrue(otherOperator.processingTimeTimers.isEmpty());
 	}
 
 	@Test
@@ -1968,6 +2113,19 @@ public class WindowOperatorTest {
 	}
 
 
+	/**
+	 * Sums into its second argument and returns it.
+	 */
+	public static class ModifyingSumReducer implements ReduceFunction<Tuple2<String, Integer>> {
+		private static final long serialVersionUID = 1L;
+		@Override
+		public Tuple2<String, Integer> reduce(Tuple2<String, Integer> value1,
+				Tuple2<String, Integer> value2) throws Exception {
+			value2.f1 += value1.f1;
+			return value2;
+		}
+	}
+
 	public static class RichSumReducer<W extends Window> extends RichWindowFunction<Tuple2<String, Integer>, Tuple2<String, Integer>, String, W> {
 		private static final long serialVersionUID = 1L;
 
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.tasks;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link StreamTaskMailbox}.
+ */
+public class StreamTaskMailboxTest {
+
+	@Test
+	public void testRunMailsInOrder() {
+		final StreamTaskMailbox mailbox = new StreamTaskMailbox();
+		final List<Integer> order = new ArrayList<>();
+
+		assertFalse(mailbox.hasMail());
+		assertEquals(0, mailbox.runMails());
+
+		mailbox.put(new AddToList(order, 1));
+		mailbox.put(new Runnable() {
+			@Override
+			public void run() {
+				order.add(2);
+				// mails that are put by mails run in the same round
+				mailbox.put(new AddToList(order, 3));
+			}
+		});
+
+		assertTrue(mailbox.hasMail());
+		assertEquals(3, mailbox.runMails());
+		assertFalse(mailbox.hasMail());
+
+		assertEquals(3, order.size());
+		for (int i = 0; i < order.size(); i++) {
+			assertEquals(i + 1, (int) order.get(i));
+		}
+	}
+
+	@Test
+	public void testAwaitReturnsOnRememberedInput() throws Exception {
+		StreamTaskMailbox mailbox = new StreamTaskMailbox();
+
+		// input notification before the task waits must not be lost
+		mailbox.onEvent(null);
+		mailbox.awaitMailOrInput();
+
+		// pending mails do not let the task wait
+		mailbox.put(new AddToList(new ArrayList<Integer>(), 1));
+		mailbox.awaitMailOrInput();
+		assertEquals(1, mailbox.runMails());
+	}
+
+	@Test(timeout = 10000)
+	public void testAwaitIsWokenUpByOtherThreads() throws Exception {
+		final StreamTaskMailbox mailbox = new StreamTaskMailbox();
+		final List<Integer> order = new ArrayList<>();
+
+		Thread mailer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(10);
+					mailbox.put(new AddToList(order, 1));
+					Thread.sleep(10);
+					mailbox.onEvent(null);
+					Thread.sleep(10);
+					mailbox.wakeUp();
+				}
+				catch (InterruptedException ignored) {}
+			}
+		};
+		mailer.start();
+
+		// woken up by the mail
+		mailbox.awaitMailOrInput();
+		assertEquals(1, mailbox.runMails());
+
+		// woken up by the input notification
+		mailbox.awaitMailOrInput();
+
+		// woken up explicitly
+		mailbox.awaitMailOrInput();
+
+		mailer.join();
+		assertEquals(1, order.size());
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static final class AddToList implements Runnable {
+
+		private final List<Integer> list;
+		private final int value;
+
+		AddToList(List<Integer> list, int value) {
+			this.list = list;
+			this.value = value;
+		}
+
+		@Override
+		public void run() {
+			list.add(value);
+		}
+	}
+}
@@ -34,6 +34,7 @@ import org.apache.flink.runtime.state.AbstractStateBackend;
 import org.apache.flink.runtime.state.memory.MemoryStateBackend;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.operators.Triggerable;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.tasks.DefaultTimeServiceProvider;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
@@ -44,6 +45,7 @@ import org.mockito.stubbing.Answer;
 
 import java.util.Collection;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import static org.mockito.Matchers.any;
@@ -76,6 +78,15 @@ public class OneInputStreamOperatorTestHarness<IN, OUT> {
 
 	StreamTask<?, ?> mockTask;
 
+	/**
+	 * Runs the actions submitted via {@link StreamTask#submitAction(Runnable)} under the
+	 * checkpoint lock, like the action thread of a task without a mailbox.
+	 */
+	final ExecutorService actionExecutor;
+
+	/** The first failure of a submitted action */
+	private volatile Throwable actionFailure;
+
 	/**
 	 * Whether setup() was called on the operator. This is reset when calling close().
 	 */
@@ -97,6 +108,7 @@ public class OneInputStreamOperatorTestHarness<IN, OUT> {
 		this.config = new StreamConfig(new Configuration());
 		this.executionConfig = executionConfig;
 		this.checkpointLock = new Object();
+		this.actionExecutor = Executors.newSingleThreadExecutor();
 
 		final Environment env = new MockEnvironment("MockTwoInputTask", 3 * 1024 * 1024, new MockInputSplitProvider(), 1024);
 		mockTask = mock(StreamTask.class);
@@ -141,12 +153,53 @@ public class OneInputStreamOperatorTestHarness<IN, OUT> {
 				return timeServiceProvider.getCurrentProcessingTime();
 			}
 		}).when(mockTask).getCurrentProcessingTime();
+
+		when(mockTask.getTimerService()).thenReturn(timeServiceProvider);
+
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				final Runnable action = (Runnable) invocation.getArguments()[0];
+
+				actionExecutor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							synchronized (checkpointLock) {
+								action.run();
+							}
+						} catch (Throwable t) {
+							if (actionFailure == null) {
+								actionFailure = t;
+							}
+						}
+					}
+				});
+				return null;
+			}
+		}).when(mockTask).submitAction(any(Runnable.class));
 	}
 
 	public Object getCheckpointLock() {
 		return mockTask.getCheckpointLock();
 	}
 
+	/**
+	 * Waits until all actions submitted so far via {@link StreamTask#submitAction(Runnable)}
+	 * have run and rethrows the first failure of an action. Must not be called while holding
+	 * the checkpoint lock, because the actions run under it.
+	 */
+	public void waitForActions() throws Exception {
+		actionExecutor.submit(new Runnable() {
+			@Override
+			public void run() {}
+		}).get();
+
+		if (actionFailure != null) {
+			throw new Exception("A submitted action failed.", actionFailure);
+		}
+	}
+
 	public <K> void configureForKeyedStream(KeySelector<IN, K> keySelector, TypeInformation<K> keyType) {
 		ClosureCleaner.clean(keySelector, false);
 		config.setStatePartitioner(0, keySelector);
@@ -206,6 +259,7 @@ public class OneInputStreamOperatorTestHarness<IN, OUT> {
 		if (timeServiceProvider != null) {
 			timeServiceProvider.shutdownService();
 		}
+		actionExecutor.shutdownNow();
 		setupCalled = false;
 	}
 
@@ -225,6 +279,10 @@ public class OneInputStreamOperatorTestHarness<IN, OUT> {
 		operator.processWatermark(mark);
 	}
 
+	public void processLatencyMarker(LatencyMarker marker) throws Exception {
+		operator.processLatencyMarker(marker);
+	}
+
 	private class MockOutput implements Output<StreamRecord<OUT>> {
 
 		private TypeSerializer<OUT> outputSerializer;
@@ -234,6 +292,11 @@ public class OneInputStreamOperatorTestHarness<IN, OUT> {
 			outputList.add(mark);
 		}
 
+		@Override
+		public void emitLatencyMarker(LatencyMarker latencyMarker) {
+			outputList.add(latencyMarker);
+		}
+
 		@Override
 		public void collect(StreamRecord<OUT> element) {
 			if (outputSerializer == null) {
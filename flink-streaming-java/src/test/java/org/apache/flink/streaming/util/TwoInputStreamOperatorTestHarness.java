@@ -29,6 +29,7 @@ import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.operators.Output;
 import org.apache.flink.streaming.api.operators.TwoInputStreamOperator;
 import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.runtime.streamrecord.LatencyMarker;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
 
@@ -116,6 +117,14 @@ public class TwoInputStreamOperatorTestHarness<IN1, IN2, OUT> {
 		operator.processWatermark2(mark);
 	}
 
+	public void processLatencyMarker1(LatencyMarker marker) throws Exception {
+		operator.processLatencyMarker1(marker);
+	}
+
+	public void processLatencyMarker2(LatencyMarker marker) throws Exception {
+		operator.processLatencyMarker2(marker);
+	}
+
 	private class MockOutput implements Output<StreamRecord<OUT>> {
 
 		private TypeSerializer<OUT> outputSerializer;
@@ -126,6 +135,11 @@ public class TwoInputStreamOperatorTestHarness<IN1, IN2, OUT> {
 			outputList.add(mark);
 		}
 
+		@Override
+		public void emitLatencyMarker(LatencyMarker latencyMarker) {
+			outputList.add(latencyMarker);
+		}
+
 		@Override
 		@SuppressWarnings("unchecked")
 		public void collect(StreamRecord<OUT> element) {
@@ -24,6 +24,7 @@ import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.runtime.jobgraph.JobGraph;
 import org.apache.flink.runtime.jobgraph.JobVertex;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.streaming.api.CheckpointingMode;
 import org.apache.flink.streaming.api.datastream.DataStream;
 import org.apache.flink.streaming.api.datastream.DataStreamSink;
@@ -47,7 +48,6 @@ import org.apache.flink.test.streaming.runtime.util.EvenOddOutputSelector;
 import org.apache.flink.test.streaming.runtime.util.NoOpIntMap;
 import org.apache.flink.test.streaming.runtime.util.ReceiveCheckNoOpSink;
 import org.apache.flink.util.Collector;
-import org.apache.flink.util.MathUtils;
 
 import org.junit.Test;
 
@@ -507,13 +507,14 @@ public class IterateITCase extends StreamingMultipleProgramsTestBase {
 	}
 
 	/**
-	 * This test relies on the hash function used by the {@link DataStream#keyBy}, which is
-	 * assumed to be {@link MathUtils#murmurHash}.
+	 * This test relies on the assignment of keys to parallel instances used by the
+	 * {@link DataStream#keyBy}, which is assumed to be the one of {@link KeyGroupRangeAssignment}
+	 * with the default number of key groups.
 	 *
 	 * For the test to pass all FlatMappers must see at least two records in the iteration,
-	 * which can only be achieved if the hashed values of the input keys map to a complete
-	 * congruence system. Given that the test is designed for 3 parallel FlatMapper instances
-	 * keys chosen from the [1,3] range are a suitable choice.
+	 * which can only be achieved if the input keys are assigned to different instances.
+	 * Given that the test is designed for 3 parallel FlatMapper instances keys chosen from
+	 * the [7,9] range are a suitable choice.
      */
 	@Test
 	public void testGroupByFeedback() throws Exception {
@@ -529,7 +530,7 @@ public class IterateITCase extends StreamingMultipleProgramsTestBase {
 
 					@Override
 					public Integer getKey(Integer value) throws Exception {
-						return value % 3;
+						return value % 3 + 7;
 					}
 				};
 
@@ -541,16 +542,17 @@ public class IterateITCase extends StreamingMultipleProgramsTestBase {
 				DataStream<Integer> head = it.flatMap(new RichFlatMapFunction<Integer, Integer>() {
 
 					int received = 0;
-					int key = -1;
 
 					@Override
 					public void flatMap(Integer value, Collector<Integer> out) throws Exception {
 						received++;
-						if (key == -1) {
-							key = MathUtils.murmurHash(value % 3) % 3;
-						} else {
-							assertEquals(key, MathUtils.murmurHash(value % 3) % 3);
-						}
+						int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(value % 3 + 7,
+							KeyGroupRangeAssignment.DEFAULT_MAX_PARALLELISM);
+						assertEquals(getRuntimeContext().getIndexOfThisSubtask(),
+							KeyGroupRangeAssignment.computeOperatorIndexForKeyGroup(
+								KeyGroupRangeAssignment.DEFAULT_MAX_PARALLELISM,
+								getRuntimeContext().getNumberOfParallelSubtasks(),
+								keyGroup));
 						if (value > 0) {
 							out.collect(value - 1);
 						}